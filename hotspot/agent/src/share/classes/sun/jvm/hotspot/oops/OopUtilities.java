@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2000, 2012, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2000, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -43,6 +43,7 @@ public class OopUtilities implements /* imports */ JVMTIThreadState {
   private static IntField offsetField;
   private static IntField countField;
   private static OopField valueField;
+  private static ByteField coderField;
   // ThreadGroup fields
   private static OopField threadGroupParentField;
   private static OopField threadGroupNameField;
@@ -112,6 +113,26 @@ public class OopUtilities implements /* imports */ JVMTIThreadState {
     return buf.toString();
   }
 
+  public static String byteArrayToString(TypeArray byteArray, byte coder) {
+    if (byteArray == null) {
+      return null;
+    }
+    int length = (int) byteArray.getLength() >> coder;
+    StringBuffer buf = new StringBuffer(length);
+    if (coder == 0) {
+      // Latin1 encoded
+      for (int i = 0; i < length; i++) {
+        buf.append((char) (byteArray.getByteAt(i) & 0xff));
+      }
+    } else {
+      // UTF16 encoded, two bytes per char in native byte order
+      for (int i = 0; i < length; i++) {
+        buf.append(byteArray.getCharAt(i));
+      }
+    }
+    return buf.toString();
+  }
+
   public static String escapeString(String s) {
     StringBuilder sb = null;
     for (int index = 0; index < s.length(); index++) {
@@ -139,15 +160,24 @@ public class OopUtilities implements /* imports */ JVMTIThreadState {
   }
 
   public static String stringOopToString(Oop stringOop) {
-    if (offsetField == null) {
+    if (valueField == null) {
       InstanceKlass k = (InstanceKlass) stringOop.getKlass();
-      offsetField = (IntField) k.findField("offset", "I");   // optional
-      countField  = (IntField) k.findField("count",  "I");   // optional
-      valueField  = (OopField) k.findField("value",  "[C");
+      coderField  = (ByteField) k.findField("coder", "B");   // optional
+      valueField  = (OopField) k.findField("value",  "[B");
+      if (valueField == null) {
+        // String with a char[] value
+        offsetField = (IntField) k.findField("offset", "I");   // optional
+        countField  = (IntField) k.findField("count",  "I");   // optional
+        valueField  = (OopField) k.findField("value",  "[C");
+      }
       if (Assert.ASSERTS_ENABLED) {
          Assert.that(valueField != null, "Field \'value\' of java.lang.String not found");
       }
     }
+    if (coderField != null) {
+      return byteArrayToString((TypeArray) valueField.getValue(stringOop),
+                               coderField.getValue(stringOop));
+    }
     if (offsetField != null && countField != null) {
       return charArrayToString((TypeArray) valueField.getValue(stringOop),
                                offsetField.getValue(stringOop),
@@ -217,7 +247,7 @@ public class OopUtilities implements /* imports */ JVMTIThreadState {
     if (threadNameField == null) {
       SystemDictionary sysDict = VM.getVM().getSystemDictionary();
       InstanceKlass k = sysDict.getThreadKlass();
-      threadNameField  = (OopField) k.findField("name", "[C");
+      threadNameField  = (OopField) k.findField("name", "Ljava/lang/String;");
       threadGroupField = (OopField) k.findField("group", "Ljava/lang/ThreadGroup;");
       threadEETopField = (LongField) k.findField("eetop", "J");
       threadStatusField = (IntField) k.findField("threadStatus", "I");
@@ -255,7 +285,7 @@ public class OopUtilities implements /* imports */ JVMTIThreadState {
 
   public static String threadOopGetName(Oop threadOop) {
     initThreadFields();
-    return charArrayToString((TypeArray) threadNameField.getValue(threadOop));
+    return stringOopToString(threadNameField.getValue(threadOop));
   }
 
   /** May return null if, e.g., thread was not started */
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2003, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2003, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -272,12 +272,17 @@ public class HeapSummary extends Tool {
             VM vm = VM.getVM();
             SystemDictionary sysDict = vm.getSystemDictionary();
             InstanceKlass strKlass = sysDict.getStringKlass();
-            // String has a field named 'value' of type 'char[]'.
-            stringValueField = (OopField) strKlass.findField("value", "[C");
+            // String has a field named 'value' of type 'byte[]', or
+            // 'char[]' on VMs that predate compact Strings.
+            stringValueField = (OopField) strKlass.findField("value", "[B");
+            if (stringValueField == null) {
+               stringValueField = (OopField) strKlass.findField("value", "[C");
+            }
          }
 
          private long stringSize(Instance instance) {
-            // We include String content in size calculation.
+            // We include String content in size calculation; the array's
+            // object size covers its length in bytes whatever the coder.
             return instance.getObjectSize() +
                    stringValueField.getValue(instance).getObjectSize();
          }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1997, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -5301,14 +5301,22 @@ void MacroAssembler::clear_mem(Register base, Register cnt, Register tmp) {
 }
 
 // IndexOf for constant substrings with size >= 8 chars
+// (16 chars when both strings are Latin1)
 // which don't need to be loaded through stack.
 void MacroAssembler::string_indexofC8(Register str1, Register str2,
                                       Register cnt1, Register cnt2,
                                       int int_cnt2,  Register result,
-                                      XMMRegister vec, Register tmp) {
+                                      XMMRegister vec, Register tmp,
+                                      bool is_latin1) {
   ShortBranchVerifier sbv(this);
   assert(UseSSE42Intrinsics, "SSE4.2 is required");
 
+  // Latin1 strings are compared as unsigned bytes, 16 per vector.
+  int stride = is_latin1 ? 16 : 8;
+  int elem_size = is_latin1 ? 1 : 2;
+  Address::ScaleFactor scale = is_latin1 ? Address::times_1 : Address::times_2;
+  int mode = is_latin1 ? 0x0c : 0x0d;
+
   // This method uses pcmpestri inxtruction with bound registers
   //   inputs:
   //     xmm - substring
@@ -5316,6 +5324,7 @@ void MacroAssembler::string_indexofC8(Register str1, Register str2,
   //     mem - scanned string
   //     rdx - string length (elements count)
   //     0xd - mode: 1100 (substring search) + 01 (unsigned shorts)
+  //     0xc - mode: 1100 (substring search) + 00 (unsigned bytes)
   //   outputs:
   //     rcx - matched index in string
   assert(cnt1 == rdx && cnt2 == rax && tmp == rcx, "pcmpestri");
@@ -5327,18 +5336,18 @@ void MacroAssembler::string_indexofC8(Register str1, Register str2,
   // Note, inline_string_indexOf() generates checks:
   // if (substr.count > string.count) return -1;
   // if (substr.count == 0) return 0;
-  assert(int_cnt2 >= 8, "this code isused only for cnt2 >= 8 chars");
+  assert(int_cnt2 >= stride, "this code is used only for cnt2 >= stride");
 
   // Load substring.
   movdqu(vec, Address(str2, 0));
   movl(cnt2, int_cnt2);
   movptr(result, str1); // string addr
 
-  if (int_cnt2 > 8) {
+  if (int_cnt2 > stride) {
     jmpb(SCAN_TO_SUBSTR);
 
     // Reload substr for rescan, this code
-    // is executed only for large substrings (> 8 chars)
+    // is executed only for large substrings (> stride elements)
     bind(RELOAD_SUBSTR);
     movdqu(vec, Address(str2, 0));
     negptr(cnt2); // Jumped here with negative cnt2, convert to positive
@@ -5359,15 +5368,15 @@ void MacroAssembler::string_indexofC8(Register str1, Register str2,
     cmpl(cnt1, cnt2);
     jccb(Assembler::negative, RET_NOT_FOUND);  // Left less then substring
 
-    addptr(result, 2);
+    addptr(result, elem_size);
 
-  } // (int_cnt2 > 8)
+  } // (int_cnt2 > stride)
 
   // Scan string for start of substr in 16-byte vectors
   bind(SCAN_TO_SUBSTR);
-  pcmpestri(vec, Address(result, 0), 0x0d);
+  pcmpestri(vec, Address(result, 0), mode);
   jccb(Assembler::below, FOUND_CANDIDATE);   // CF == 1
-  subl(cnt1, 8);
+  subl(cnt1, stride);
   jccb(Assembler::lessEqual, RET_NOT_FOUND); // Scanned full string
   cmpl(cnt1, cnt2);
   jccb(Assembler::negative, RET_NOT_FOUND);  // Left less then substring
@@ -5377,21 +5386,21 @@ void MacroAssembler::string_indexofC8(Register str1, Register str2,
   // Found a potential substr
   bind(FOUND_CANDIDATE);
   // Matched whole vector if first element matched (tmp(rcx) == 0).
-  if (int_cnt2 == 8) {
+  if (int_cnt2 == stride) {
     jccb(Assembler::overflow, RET_FOUND);    // OF == 1
-  } else { // int_cnt2 > 8
+  } else { // int_cnt2 > stride
     jccb(Assembler::overflow, FOUND_SUBSTR);
   }
   // After pcmpestri tmp(rcx) contains matched element index
   // Compute start addr of substr
-  lea(result, Address(result, tmp, Address::times_2));
+  lea(result, Address(result, tmp, scale));
 
   // Make sure string is still long enough
   subl(cnt1, tmp);
   cmpl(cnt1, cnt2);
-  if (int_cnt2 == 8) {
+  if (int_cnt2 == stride) {
     jccb(Assembler::greaterEqual, SCAN_TO_SUBSTR);
-  } else { // int_cnt2 > 8
+  } else { // int_cnt2 > stride
     jccb(Assembler::greaterEqual, MATCH_SUBSTR_HEAD);
   }
   // Left less then substring.
@@ -5400,54 +5409,56 @@ void MacroAssembler::string_indexofC8(Register str1, Register str2,
   movl(result, -1);
   jmpb(EXIT);
 
-  if (int_cnt2 > 8) {
+  if (int_cnt2 > stride) {
     // This code is optimized for the case when whole substring
     // is matched if its head is matched.
     bind(MATCH_SUBSTR_HEAD);
-    pcmpestri(vec, Address(result, 0), 0x0d);
+    pcmpestri(vec, Address(result, 0), mode);
     // Reload only string if does not match
     jccb(Assembler::noOverflow, RELOAD_STR); // OF == 0
 
     Label CONT_SCAN_SUBSTR;
-    // Compare the rest of substring (> 8 chars).
+    // Compare the rest of substring (> stride elements).
     bind(FOUND_SUBSTR);
-    // First 8 chars are already matched.
+    // First stride elements are already matched.
     negptr(cnt2);
-    addptr(cnt2, 8);
+    addptr(cnt2, stride);
 
     bind(SCAN_SUBSTR);
-    subl(cnt1, 8);
-    cmpl(cnt2, -8); // Do not read beyond substring
+    subl(cnt1, stride);
+    cmpl(cnt2, -stride); // Do not read beyond substring
     jccb(Assembler::lessEqual, CONT_SCAN_SUBSTR);
     // Back-up strings to avoid reading beyond substring:
-    // cnt1 = cnt1 - cnt2 + 8
+    // cnt1 = cnt1 - cnt2 + stride
     addl(cnt1, cnt2); // cnt2 is negative
-    addl(cnt1, 8);
-    movl(cnt2, 8); negptr(cnt2);
+    addl(cnt1, stride);
+    movl(cnt2, stride); negptr(cnt2);
     bind(CONT_SCAN_SUBSTR);
     if (int_cnt2 < (int)G) {
-      movdqu(vec, Address(str2, cnt2, Address::times_2, int_cnt2*2));
-      pcmpestri(vec, Address(result, cnt2, Address::times_2, int_cnt2*2), 0x0d);
+      movdqu(vec, Address(str2, cnt2, scale, int_cnt2*elem_size));
+      pcmpestri(vec, Address(result, cnt2, scale, int_cnt2*elem_size), mode);
     } else {
-      // calculate index in register to avoid integer overflow (int_cnt2*2)
+      // calculate index in register to avoid integer overflow (int_cnt2*elem_size)
       movl(tmp, int_cnt2);
       addptr(tmp, cnt2);
-      movdqu(vec, Address(str2, tmp, Address::times_2, 0));
-      pcmpestri(vec, Address(result, tmp, Address::times_2, 0), 0x0d);
+      movdqu(vec, Address(str2, tmp, scale, 0));
+      pcmpestri(vec, Address(result, tmp, scale, 0), mode);
     }
     // Need to reload strings pointers if not matched whole vector
     jcc(Assembler::noOverflow, RELOAD_SUBSTR); // OF == 0
-    addptr(cnt2, 8);
+    addptr(cnt2, stride);
     jcc(Assembler::negative, SCAN_SUBSTR);
     // Fall through if found full substring
 
-  } // (int_cnt2 > 8)
+  } // (int_cnt2 > stride)
 
   bind(RET_FOUND);
   // Found result if we matched full small substring.
   // Compute substr offset
   subptr(result, str1);
-  shrl(result, 1); // index
+  if (!is_latin1) {
+    shrl(result, 1); // index
+  }
   bind(EXIT);
 
 } // string_indexofC8
@@ -5456,11 +5467,19 @@ void MacroAssembler::string_indexofC8(Register str1, Register str2,
 void MacroAssembler::string_indexof(Register str1, Register str2,
                                     Register cnt1, Register cnt2,
                                     int int_cnt2,  Register result,
-                                    XMMRegister vec, Register tmp) {
+                                    XMMRegister vec, Register tmp,
+                                    bool is_latin1) {
   ShortBranchVerifier sbv(this);
   assert(UseSSE42Intrinsics, "SSE4.2 is required");
+
+  // Latin1 strings are compared as unsigned bytes, 16 per vector.
+  int stride = is_latin1 ? 16 : 8;
+  int elem_size = is_latin1 ? 1 : 2;
+  Address::ScaleFactor scale = is_latin1 ? Address::times_1 : Address::times_2;
+  int mode = is_latin1 ? 0x0c : 0x0d;
+
   //
-  // int_cnt2 is length of small (< 8 chars) constant substring
+  // int_cnt2 is length of small (< stride elements) constant substring
   // or (-1) for non constant substring in which case its length
   // is in cnt2 register.
   //
@@ -5468,7 +5487,7 @@ void MacroAssembler::string_indexof(Register str1, Register str2,
   // if (substr.count > string.count) return -1;
   // if (substr.count == 0) return 0;
   //
-  assert(int_cnt2 == -1 || (0 < int_cnt2 && int_cnt2 < 8), "should be != 0");
+  assert(int_cnt2 == -1 || (0 < int_cnt2 && int_cnt2 < stride), "should be != 0");
 
   // This method uses pcmpestri inxtruction with bound registers
   //   inputs:
@@ -5477,6 +5496,7 @@ void MacroAssembler::string_indexof(Register str1, Register str2,
   //     mem - scanned string
   //     rdx - string length (elements count)
   //     0xd - mode: 1100 (substring search) + 01 (unsigned shorts)
+  //     0xc - mode: 1100 (substring search) + 00 (unsigned bytes)
   //   outputs:
   //     rcx - matched index in string
   assert(cnt1 == rdx && cnt2 == rax && tmp == rcx, "pcmpestri");
@@ -5492,24 +5512,33 @@ void MacroAssembler::string_indexof(Register str1, Register str2,
 
     movptr(tmp, rsp); // save old SP
 
-    if (int_cnt2 > 0) {     // small (< 8 chars) constant substring
-      if (int_cnt2 == 1) {  // One char
+    if (int_cnt2 > 0) {     // small (< stride elements) constant substring
+      int size = int_cnt2*elem_size;
+      if (size == 1) {      // One Latin1 char
+        load_unsigned_byte(result, Address(str2, 0));
+        movdl(vec, result); // move 32 bits
+      } else if (size == 2) { // One char or two Latin1 chars
         load_unsigned_short(result, Address(str2, 0));
         movdl(vec, result); // move 32 bits
-      } else if (int_cnt2 == 2) { // Two chars
+      } else if (size == 4) { // Two chars or four Latin1 chars
         movdl(vec, Address(str2, 0)); // move 32 bits
-      } else if (int_cnt2 == 4) { // Four chars
+      } else if (size == 8) { // Four chars or eight Latin1 chars
         movq(vec, Address(str2, 0));  // move 64 bits
-      } else { // cnt2 = { 3, 5, 6, 7 }
+      } else if (size < 8) { // size = { 3, 5, 6, 7 } bytes
+        // Array header is at least 12 bytes, enough space
+        // to load 8 bytes ending at the last char and shift.
+        movq(vec, Address(str2, size-8));
+        psrldq(vec, 8-size);
+      } else { // size = { 10, 12, 14 } or Latin1 { 9, ..., 15 } bytes
         // Array header size is 12 bytes in 32-bit VM
-        // + 6 bytes for 3 chars == 18 bytes,
+        // + 10 bytes for 5 chars == 22 bytes,
         // enough space to load vec and shift.
         assert(HeapWordSize*TypeArrayKlass::header_size() >= 12,"sanity");
-        movdqu(vec, Address(str2, (int_cnt2*2)-16));
-        psrldq(vec, 16-(int_cnt2*2));
+        movdqu(vec, Address(str2, size-16));
+        psrldq(vec, 16-size);
       }
     } else { // not constant substring
-      cmpl(cnt2, 8);
+      cmpl(cnt2, stride);
       jccb(Assembler::aboveEqual, BIG_STRINGS); // Both strings are big enough
 
       // We can read beyond string if srt+16 does not cross page boundary
@@ -5522,12 +5551,17 @@ void MacroAssembler::string_indexof(Register str1, Register str2,
 
       // Move small strings to stack to allow load 16 bytes into vec.
       subptr(rsp, 16);
-      int stk_offset = wordSize-2;
+      int stk_offset = wordSize-elem_size;
       push(cnt2);
 
       bind(COPY_SUBSTR);
-      load_unsigned_short(result, Address(str2, cnt2, Address::times_2, -2));
-      movw(Address(rsp, cnt2, Address::times_2, stk_offset), result);
+      if (is_latin1) {
+        load_unsigned_byte(result, Address(str2, cnt2, Address::times_1, -1));
+        movb(Address(rsp, cnt2, Address::times_1, stk_offset), result);
+      } else {
+        load_unsigned_short(result, Address(str2, cnt2, Address::times_2, -2));
+        movw(Address(rsp, cnt2, Address::times_2, stk_offset), result);
+      }
       decrement(cnt2);
       jccb(Assembler::notZero, COPY_SUBSTR);
 
@@ -5536,7 +5570,7 @@ void MacroAssembler::string_indexof(Register str1, Register str2,
     } // non constant
 
     bind(CHECK_STR);
-    cmpl(cnt1, 8);
+    cmpl(cnt1, stride);
     jccb(Assembler::aboveEqual, BIG_STRINGS);
 
     // Check cross page boundary.
@@ -5546,7 +5580,7 @@ void MacroAssembler::string_indexof(Register str1, Register str2,
     jccb(Assembler::belowEqual, BIG_STRINGS);
 
     subptr(rsp, 16);
-    int stk_offset = -2;
+    int stk_offset = -elem_size;
     if (int_cnt2 < 0) { // not constant
       push(cnt2);
       stk_offset += wordSize;
@@ -5554,8 +5588,13 @@ void MacroAssembler::string_indexof(Register str1, Register str2,
     movl(cnt2, cnt1);
 
     bind(COPY_STR);
-    load_unsigned_short(result, Address(str1, cnt2, Address::times_2, -2));
-    movw(Address(rsp, cnt2, Address::times_2, stk_offset), result);
+    if (is_latin1) {
+      load_unsigned_byte(result, Address(str1, cnt2, Address::times_1, -1));
+      movb(Address(rsp, cnt2, Address::times_1, stk_offset), result);
+    } else {
+      load_unsigned_short(result, Address(str1, cnt2, Address::times_2, -2));
+      movw(Address(rsp, cnt2, Address::times_2, stk_offset), result);
+    }
     decrement(cnt2);
     jccb(Assembler::notZero, COPY_STR);
 
@@ -5572,7 +5611,7 @@ void MacroAssembler::string_indexof(Register str1, Register str2,
       push(str2);       // substr addr
       push(str1);       // string addr
     } else {
-      // Small (< 8 chars) constant substrings are loaded already.
+      // Small (< stride elements) constant substrings are loaded already.
       movl(cnt2, int_cnt2);
     }
     push(tmp);  // original SP
@@ -5594,7 +5633,7 @@ void MacroAssembler::string_indexof(Register str1, Register str2,
     // Substr count saved at sp+3*wordSize
 
     // Reload substr for rescan, this code
-    // is executed only for large substrings (> 8 chars)
+    // is executed only for large substrings (> stride elements)
     bind(RELOAD_SUBSTR);
     movptr(str2, Address(rsp, 2*wordSize));
     movl(cnt2, Address(rsp, 3*wordSize));
@@ -5603,32 +5642,34 @@ void MacroAssembler::string_indexof(Register str1, Register str2,
     // matched but the rest of it was not so we need to search
     // again. Start from the next element after the previous match.
     subptr(str1, result); // Restore counter
-    shrl(str1, 1);
+    if (!is_latin1) {
+      shrl(str1, 1);
+    }
     addl(cnt1, str1);
     decrementl(cnt1);   // Shift to next element
     cmpl(cnt1, cnt2);
     jccb(Assembler::negative, RET_NOT_FOUND);  // Left less then substring
 
-    addptr(result, 2);
+    addptr(result, elem_size);
   } // non constant
 
   // Scan string for start of substr in 16-byte vectors
   bind(SCAN_TO_SUBSTR);
   assert(cnt1 == rdx && cnt2 == rax && tmp == rcx, "pcmpestri");
-  pcmpestri(vec, Address(result, 0), 0x0d);
+  pcmpestri(vec, Address(result, 0), mode);
   jccb(Assembler::below, FOUND_CANDIDATE);   // CF == 1
-  subl(cnt1, 8);
+  subl(cnt1, stride);
   jccb(Assembler::lessEqual, RET_NOT_FOUND); // Scanned full string
   cmpl(cnt1, cnt2);
   jccb(Assembler::negative, RET_NOT_FOUND);  // Left less then substring
   addptr(result, 16);
 
   bind(ADJUST_STR);
-  cmpl(cnt1, 8); // Do not read beyond string
+  cmpl(cnt1, stride); // Do not read beyond string
   jccb(Assembler::greaterEqual, SCAN_TO_SUBSTR);
   // Back-up string to avoid reading beyond string.
-  lea(result, Address(result, cnt1, Address::times_2, -16));
-  movl(cnt1, 8);
+  lea(result, Address(result, cnt1, scale, -16));
+  movl(cnt1, stride);
   jmpb(SCAN_TO_SUBSTR);
 
   // Found a potential substr
@@ -5647,13 +5688,13 @@ void MacroAssembler::string_indexof(Register str1, Register str2,
 
   bind(FOUND_SUBSTR);
   // Compute start addr of substr
-  lea(result, Address(result, tmp, Address::times_2));
+  lea(result, Address(result, tmp, scale));
 
   if (int_cnt2 > 0) { // Constant substring
-    // Repeat search for small substring (< 8 chars)
+    // Repeat search for small substring (< stride elements)
     // from new point without reloading substring.
     // Have to check that we don't read beyond string.
-    cmpl(tmp, 8-int_cnt2);
+    cmpl(tmp, stride-int_cnt2);
     jccb(Assembler::greater, ADJUST_STR);
     // Fall through if matched whole substring.
   } else { // non constant
@@ -5661,42 +5702,42 @@ void MacroAssembler::string_indexof(Register str1, Register str2,
 
     addl(tmp, cnt2);
     // Found result if we matched whole substring.
-    cmpl(tmp, 8);
+    cmpl(tmp, stride);
     jccb(Assembler::lessEqual, RET_FOUND);
 
-    // Repeat search for small substring (<= 8 chars)
+    // Repeat search for small substring (<= stride elements)
     // from new point 'str1' without reloading substring.
-    cmpl(cnt2, 8);
+    cmpl(cnt2, stride);
     // Have to check that we don't read beyond string.
     jccb(Assembler::lessEqual, ADJUST_STR);
 
     Label CHECK_NEXT, CONT_SCAN_SUBSTR, RET_FOUND_LONG;
-    // Compare the rest of substring (> 8 chars).
+    // Compare the rest of substring (> stride elements).
     movptr(str1, result);
 
     cmpl(tmp, cnt2);
-    // First 8 chars are already matched.
+    // First stride elements are already matched.
     jccb(Assembler::equal, CHECK_NEXT);
 
     bind(SCAN_SUBSTR);
-    pcmpestri(vec, Address(str1, 0), 0x0d);
+    pcmpestri(vec, Address(str1, 0), mode);
     // Need to reload strings pointers if not matched whole vector
     jcc(Assembler::noOverflow, RELOAD_SUBSTR); // OF == 0
 
     bind(CHECK_NEXT);
-    subl(cnt2, 8);
+    subl(cnt2, stride);
     jccb(Assembler::lessEqual, RET_FOUND_LONG); // Found full substring
     addptr(str1, 16);
     addptr(str2, 16);
-    subl(cnt1, 8);
-    cmpl(cnt2, 8); // Do not read beyond substring
+    subl(cnt1, stride);
+    cmpl(cnt2, stride); // Do not read beyond substring
     jccb(Assembler::greaterEqual, CONT_SCAN_SUBSTR);
     // Back-up strings to avoid reading beyond substring.
-    lea(str2, Address(str2, cnt2, Address::times_2, -16));
-    lea(str1, Address(str1, cnt2, Address::times_2, -16));
+    lea(str2, Address(str2, cnt2, scale, -16));
+    lea(str1, Address(str1, cnt2, scale, -16));
     subl(cnt1, cnt2);
-    movl(cnt2, 8);
-    addl(cnt1, 8);
+    movl(cnt2, stride);
+    addl(cnt1, stride);
     bind(CONT_SCAN_SUBSTR);
     movdqu(vec, Address(str2, 0));
     jmpb(SCAN_SUBSTR);
@@ -5708,17 +5749,28 @@ void MacroAssembler::string_indexof(Register str1, Register str2,
   bind(RET_FOUND);
   // Compute substr offset
   subptr(result, str1);
-  shrl(result, 1); // index
+  if (!is_latin1) {
+    shrl(result, 1); // index
+  }
 
   bind(CLEANUP);
   pop(rsp); // restore SP
 
 } // string_indexof
 
+// Load a Latin1 (byte) or UTF16 (char) string element zero-extended.
+void MacroAssembler::load_string_element(Register dst, Address src, bool is_latin1) {
+  if (is_latin1) {
+    load_unsigned_byte(dst, src);
+  } else {
+    load_unsigned_short(dst, src);
+  }
+}
+
 // Compare strings.
 void MacroAssembler::string_compare(Register str1, Register str2,
                                     Register cnt1, Register cnt2, Register result,
-                                    XMMRegister vec1) {
+                                    XMMRegister vec1, bool is_latin1) {
   ShortBranchVerifier sbv(this);
   Label LENGTH_DIFF_LABEL, POP_LABEL, DONE_LABEL, WHILE_HEAD_LABEL;
 
@@ -5735,8 +5787,8 @@ void MacroAssembler::string_compare(Register str1, Register str2,
   jcc(Assembler::zero, LENGTH_DIFF_LABEL);
 
   // Compare first characters
-  load_unsigned_short(result, Address(str1, 0));
-  load_unsigned_short(cnt1, Address(str2, 0));
+  load_string_element(result, Address(str1, 0), is_latin1);
+  load_string_element(cnt1, Address(str2, 0), is_latin1);
   subl(result, cnt1);
   jcc(Assembler::notZero,  POP_LABEL);
   cmpl(cnt2, 1);
@@ -5746,18 +5798,19 @@ void MacroAssembler::string_compare(Register str1, Register str2,
   cmpptr(str1, str2);
   jcc(Assembler::equal, LENGTH_DIFF_LABEL);
 
-  Address::ScaleFactor scale = Address::times_2;
-  int stride = 8;
+  // Latin1 strings are compared as unsigned bytes, 16 per vector.
+  Address::ScaleFactor scale = is_latin1 ? Address::times_1 : Address::times_2;
+  int stride = is_latin1 ? 16 : 8;
 
   if (UseAVX >= 2 && UseSSE42Intrinsics) {
     Label COMPARE_WIDE_VECTORS, VECTOR_NOT_EQUAL, COMPARE_WIDE_TAIL, COMPARE_SMALL_STR;
     Label COMPARE_WIDE_VECTORS_LOOP, COMPARE_16_CHARS, COMPARE_INDEX_CHAR;
     Label COMPARE_TAIL_LONG;
-    int pcmpmask = 0x19;
+    int pcmpmask = is_latin1 ? 0x18 : 0x19;
 
     // Setup to compare 16-chars (32-bytes) vectors,
     // start from first character again because it has aligned address.
-    int stride2 = 16;
+    int stride2 = is_latin1 ? 32 : 16;
     int adr_stride  = stride  << scale;
     int adr_stride2 = stride2 << scale;
 
@@ -5780,8 +5833,8 @@ void MacroAssembler::string_compare(Register str1, Register str2,
 
     // Compare the characters at index in cnt1
     bind(COMPARE_INDEX_CHAR); //cnt1 has the offset of the mismatching character
-    load_unsigned_short(result, Address(str1, cnt1, scale));
-    load_unsigned_short(cnt2, Address(str2, cnt1, scale));
+    load_string_element(result, Address(str1, cnt1, scale), is_latin1);
+    load_string_element(cnt2, Address(str2, cnt1, scale), is_latin1);
     subl(result, cnt2);
     jmp(POP_LABEL);
 
@@ -5843,7 +5896,7 @@ void MacroAssembler::string_compare(Register str1, Register str2,
     bind(COMPARE_SMALL_STR);
   } else if (UseSSE42Intrinsics) {
     Label COMPARE_WIDE_VECTORS, VECTOR_NOT_EQUAL, COMPARE_TAIL;
-    int pcmpmask = 0x19;
+    int pcmpmask = is_latin1 ? 0x18 : 0x19;
     // Setup to compare 8-char (16-byte) vectors,
     // start from first character again because it has aligned address.
     movl(result, cnt2);
@@ -5890,8 +5943,8 @@ void MacroAssembler::string_compare(Register str1, Register str2,
     // Mismatched characters in the vectors
     bind(VECTOR_NOT_EQUAL);
     addptr(cnt1, result);
-    load_unsigned_short(result, Address(str1, cnt1, scale));
-    load_unsigned_short(cnt2, Address(str2, cnt1, scale));
+    load_string_element(result, Address(str1, cnt1, scale), is_latin1);
+    load_string_element(cnt2, Address(str2, cnt1, scale), is_latin1);
     subl(result, cnt2);
     jmpb(POP_LABEL);
 
@@ -5907,8 +5960,8 @@ void MacroAssembler::string_compare(Register str1, Register str2,
 
   // Compare the rest of the elements
   bind(WHILE_HEAD_LABEL);
-  load_unsigned_short(result, Address(str1, cnt2, scale, 0));
-  load_unsigned_short(cnt1, Address(str2, cnt2, scale, 0));
+  load_string_element(result, Address(str1, cnt2, scale, 0), is_latin1);
+  load_string_element(cnt1, Address(str2, cnt2, scale, 0), is_latin1);
   subl(result, cnt1);
   jccb(Assembler::notZero, POP_LABEL);
   increment(cnt2);
@@ -5927,15 +5980,15 @@ void MacroAssembler::string_compare(Register str1, Register str2,
   bind(DONE_LABEL);
 }
 
-// Compare char[] arrays aligned to 4 bytes or substrings.
-void MacroAssembler::char_arrays_equals(bool is_array_equ, Register ary1, Register ary2,
-                                        Register limit, Register result, Register chr,
-                                        XMMRegister vec1, XMMRegister vec2) {
+// Compare char[] or byte[] arrays aligned to 4 bytes or substrings.
+void MacroAssembler::arrays_equals(bool is_array_equ, Register ary1, Register ary2,
+                                   Register limit, Register result, Register chr,
+                                   XMMRegister vec1, XMMRegister vec2, bool is_char) {
   ShortBranchVerifier sbv(this);
-  Label TRUE_LABEL, FALSE_LABEL, DONE, COMPARE_VECTORS, COMPARE_CHAR;
+  Label TRUE_LABEL, FALSE_LABEL, DONE, COMPARE_VECTORS, COMPARE_CHAR, COMPARE_BYTE;
 
   int length_offset  = arrayOopDesc::length_offset_in_bytes();
-  int base_offset    = arrayOopDesc::base_offset_in_bytes(T_CHAR);
+  int base_offset    = arrayOopDesc::base_offset_in_bytes(is_char ? T_CHAR : T_BYTE);
 
   // Check the input args
   cmpptr(ary1, ary2);
@@ -5964,7 +6017,9 @@ void MacroAssembler::char_arrays_equals(bool is_array_equ, Register ary1, Regist
     lea(ary2, Address(ary2, base_offset));
   }
 
-  shll(limit, 1);      // byte count != 0
+  if (is_char) {
+    shll(limit, 1);      // byte count != 0
+  }
   movl(result, limit); // copy
 
   if (UseAVX >= 2) {
@@ -5972,7 +6027,7 @@ void MacroAssembler::char_arrays_equals(bool is_array_equ, Register ary1, Regist
     Label COMPARE_WIDE_VECTORS, COMPARE_TAIL;
 
     // Compare 32-byte vectors
-    andl(result, 0x0000001e);  //   tail count (in bytes)
+    andl(result, is_char ? 0x0000001e : 0x0000001f);  //   tail count (in bytes)
     andl(limit, 0xffffffe0);   // vector count (in bytes)
     jccb(Assembler::zero, COMPARE_TAIL);
 
@@ -6009,7 +6064,7 @@ void MacroAssembler::char_arrays_equals(bool is_array_equ, Register ary1, Regist
     Label COMPARE_WIDE_VECTORS, COMPARE_TAIL;
 
     // Compare 16-byte vectors
-    andl(result, 0x0000000e);  //   tail count (in bytes)
+    andl(result, is_char ? 0x0000000e : 0x0000000f);  //   tail count (in bytes)
     andl(limit, 0xfffffff0);   // vector count (in bytes)
     jccb(Assembler::zero, COMPARE_TAIL);
 
@@ -6061,12 +6116,26 @@ void MacroAssembler::char_arrays_equals(bool is_array_equ, Register ary1, Regist
   // Compare trailing char (final 2 bytes), if any
   bind(COMPARE_CHAR);
   testl(result, 0x2);   // tail  char
-  jccb(Assembler::zero, TRUE_LABEL);
+  jccb(Assembler::zero, is_char ? TRUE_LABEL : COMPARE_BYTE);
   load_unsigned_short(chr, Address(ary1, 0));
   load_unsigned_short(limit, Address(ary2, 0));
   cmpl(chr, limit);
   jccb(Assembler::notEqual, FALSE_LABEL);
 
+  if (!is_char) {
+    // Compare trailing byte, if any
+    addptr(ary1, 2);
+    addptr(ary2, 2);
+
+    bind(COMPARE_BYTE);
+    testl(result, 0x1);   // tail  byte
+    jccb(Assembler::zero, TRUE_LABEL);
+    load_unsigned_byte(chr, Address(ary1, 0));
+    load_unsigned_byte(limit, Address(ary2, 0));
+    cmpl(chr, limit);
+    jccb(Assembler::notEqual, FALSE_LABEL);
+  }
+
   bind(TRUE_LABEL);
   movl(result, 1);   // return true
   jmpb(DONE);
@@ -6286,7 +6355,8 @@ void MacroAssembler::generate_fill(BasicType t, bool aligned,
 void MacroAssembler::encode_iso_array(Register src, Register dst, Register len,
                                       XMMRegister tmp1Reg, XMMRegister tmp2Reg,
                                       XMMRegister tmp3Reg, XMMRegister tmp4Reg,
-                                      Register tmp5, Register result) {
+                                      Register tmp5, Register result,
+                                      bool ascii) {
   // rsi: src
   // rdi: dst
   // rdx: len
@@ -6296,6 +6366,9 @@ void MacroAssembler::encode_iso_array(Register src, Register dst, Register len,
   assert_different_registers(src, dst, len, tmp5, result);
   Label L_done, L_copy_1_char, L_copy_1_char_exit;
 
+  // chars which can not be encoded have any of these bits set
+  juint mask = ascii ? 0xff80 : 0xff00;
+
   // set result
   xorl(result, result);
   // check for zero length
@@ -6314,7 +6387,7 @@ void MacroAssembler::encode_iso_array(Register src, Register dst, Register len,
 
     if (UseAVX >= 2) {
       Label L_chars_32_check, L_copy_32_chars, L_copy_32_chars_exit;
-      movl(tmp5, 0xff00ff00);   // create mask to test for Unicode chars in vector
+      movl(tmp5, (int)((mask << 16) | mask)); // create mask to test for unencodable chars in vector
       movdl(tmp1Reg, tmp5);
       vpbroadcastd(tmp1Reg, tmp1Reg);
       jmpb(L_chars_32_check);
@@ -6338,7 +6411,7 @@ void MacroAssembler::encode_iso_array(Register src, Register dst, Register len,
       jccb(Assembler::greater, L_copy_16_chars_exit);
 
     } else if (UseSSE42Intrinsics) {
-      movl(tmp5, 0xff00ff00);   // create mask to test for Unicode chars in vector
+      movl(tmp5, (int)((mask << 16) | mask)); // create mask to test for unencodable chars in vector
       movdl(tmp1Reg, tmp5);
       pshufd(tmp1Reg, tmp1Reg, 0);
       jmpb(L_chars_16_check);
@@ -6396,7 +6469,7 @@ void MacroAssembler::encode_iso_array(Register src, Register dst, Register len,
 
   bind(L_copy_1_char);
   load_unsigned_short(tmp5, Address(src, len, Address::times_2, 0));
-  testl(tmp5, 0xff00);      // check if Unicode char
+  testl(tmp5, (int)mask);   // check if unencodable char
   jccb(Assembler::notZero, L_copy_1_char_exit);
   movb(Address(dst, len, Address::times_1, 0), tmp5);
   addptr(len, 1);
@@ -6407,6 +6480,120 @@ void MacroAssembler::encode_iso_array(Register src, Register dst, Register len,
   bind(L_done);
 }
 
+// Inflate bytes in src to chars in dst. If ascii is true then stops at the
+// first negative byte. Returns the number of bytes inflated in result.
+void MacroAssembler::inflate_byte_array(Register src, Register dst, Register len,
+                                        XMMRegister tmp1Reg, XMMRegister tmp2Reg,
+                                        XMMRegister tmp3Reg, Register tmp4,
+                                        Register result, bool ascii) {
+  ShortBranchVerifier sbv(this);
+  assert_different_registers(src, dst, len, tmp4, result);
+  Label L_done, L_copy_1_byte, L_copy_1_byte_exit;
+
+  // set result
+  xorl(result, result);
+  // check for zero length
+  testl(len, len);
+  jcc(Assembler::zero, L_done);
+  movl(result, len);
+
+  // Setup pointers
+  lea(src, Address(src, len, Address::times_1)); // byte[]
+  lea(dst, Address(dst, len, Address::times_2)); // char[]
+  negptr(len);
+
+  if (UseSSE42Intrinsics || UseAVX >= 2) {
+    Label L_bytes_8_check, L_copy_8_bytes, L_copy_8_bytes_exit;
+    Label L_bytes_16_check, L_copy_16_bytes, L_copy_16_bytes_exit;
+
+    if (ascii) {
+      movl(tmp4, 0x80808080);   // create mask to test for negative bytes in vector
+      movdl(tmp1Reg, tmp4);
+      if (UseAVX >= 2) {
+        vpbroadcastd(tmp1Reg, tmp1Reg);
+      } else {
+        pshufd(tmp1Reg, tmp1Reg, 0);
+      }
+    }
+
+    if (UseAVX >= 2) {
+      Label L_bytes_32_check, L_copy_32_bytes, L_copy_32_bytes_exit;
+      jmpb(L_bytes_32_check);
+
+      bind(L_copy_32_bytes);
+      if (ascii) {
+        vmovdqu(tmp2Reg, Address(src, len, Address::times_1, -32));
+        vptest(tmp2Reg, tmp1Reg);     // check for negative bytes in vector
+        jccb(Assembler::notZero, L_copy_32_bytes_exit);
+      }
+      vpmovzxbw(tmp2Reg, Address(src, len, Address::times_1, -32));
+      vpmovzxbw(tmp3Reg, Address(src, len, Address::times_1, -16));
+      vmovdqu(Address(dst, len, Address::times_2, -64), tmp2Reg);
+      vmovdqu(Address(dst, len, Address::times_2, -32), tmp3Reg);
+
+      bind(L_bytes_32_check);
+      addptr(len, 32);
+      jccb(Assembler::lessEqual, L_copy_32_bytes);
+
+      bind(L_copy_32_bytes_exit);
+      // clean upper bits of YMM registers
+      vzeroupper();
+      subptr(len, 16);
+      jccb(Assembler::greater, L_copy_16_bytes_exit);
+    } else {
+      jmpb(L_bytes_16_check);
+    }
+
+    bind(L_copy_16_bytes);
+    if (ascii) {
+      movdqu(tmp2Reg, Address(src, len, Address::times_1, -16));
+      ptest(tmp2Reg, tmp1Reg);        // check for negative bytes in vector
+      jccb(Assembler::notZero, L_copy_16_bytes_exit);
+    }
+    pmovzxbw(tmp2Reg, Address(src, len, Address::times_1, -16));
+    pmovzxbw(tmp3Reg, Address(src, len, Address::times_1, -8));
+    movdqu(Address(dst, len, Address::times_2, -32), tmp2Reg);
+    movdqu(Address(dst, len, Address::times_2, -16), tmp3Reg);
+
+    bind(L_bytes_16_check);
+    addptr(len, 16);
+    jccb(Assembler::lessEqual, L_copy_16_bytes);
+
+    bind(L_copy_16_bytes_exit);
+    subptr(len, 8);
+    jccb(Assembler::greater, L_copy_8_bytes_exit);
+
+    bind(L_copy_8_bytes);
+    if (ascii) {
+      movq(tmp2Reg, Address(src, len, Address::times_1, -8));
+      ptest(tmp2Reg, tmp1Reg);
+      jccb(Assembler::notZero, L_copy_8_bytes_exit);
+    }
+    pmovzxbw(tmp2Reg, Address(src, len, Address::times_1, -8));
+    movdqu(Address(dst, len, Address::times_2, -16), tmp2Reg);
+    addptr(len, 8);
+    jccb(Assembler::lessEqual, L_copy_8_bytes);
+
+    bind(L_copy_8_bytes_exit);
+    subptr(len, 8);
+    jccb(Assembler::zero, L_done);
+  }
+
+  bind(L_copy_1_byte);
+  load_unsigned_byte(tmp4, Address(src, len, Address::times_1, 0));
+  if (ascii) {
+    testl(tmp4, 0x80);        // check if negative byte
+    jccb(Assembler::notZero, L_copy_1_byte_exit);
+  }
+  movw(Address(dst, len, Address::times_2, 0), tmp4);
+  addptr(len, 1);
+  jccb(Assembler::less, L_copy_1_byte);
+
+  bind(L_copy_1_byte_exit);
+  addptr(result, len); // len is negative count of not processed elements
+  bind(L_done);
+}
+
 /**
  * Emits code to update CRC-32 with a byte value according to constants in table
  *
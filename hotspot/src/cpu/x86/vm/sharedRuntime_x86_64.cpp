@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2003, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2003, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -4074,3 +4074,426 @@ void OptoRuntime::generate_exception_blob() {
   _exception_blob =  ExceptionBlob::create(&buffer, oop_maps, SimpleRuntimeFrame::framesize >> 1);
 }
 #endif // COMPILER2
+
+#ifndef _WINDOWS
+
+// BigInteger arithmetic called by the intrinsics of C2.  The int
+// arrays of BigInteger are big-endian, so the 64-bit words are taken
+// from the end of the arrays with their halves swapped.
+//
+// The products are computed with MUL, or with MULX when the CPU
+// supports BMI2.  MULX takes any registers for its result and leaves
+// the flags alone, which saves the moves through RAX and RDX.
+
+// (hi, lo) = a * b + c + d, which cannot overflow
+#define MUL_ADD2_MULQ(A, B, C, D, HI, LO)                                 \
+do {                                                                    \
+  __asm__ ("mul %[b]; add %[c], %%rax; adc $0, %%rdx; "                 \
+           "add %[d], %%rax; adc $0, %%rdx"                             \
+           : "=&d"(HI), "=a"(LO)                                        \
+           : "1"(A), [b]"r"(B), [c]"r"(C), [d]"r"(D) : "cc");           \
+} while (0)
+
+#define MUL_ADD2_MULX(A, B, C, D, HI, LO)                                 \
+do {                                                                    \
+  __asm__ ("mulx %[b], %[lo], %[hi]; add %[c], %[lo]; adc $0, %[hi]; "  \
+           "add %[d], %[lo]; adc $0, %[hi]"                             \
+           : [hi]"=&r"(HI), [lo]"=&r"(LO)                               \
+           : "d"(A), [b]"r"(B), [c]"r"(C), [d]"r"(D) : "cc");           \
+} while (0)
+
+// (t2, t1, t0) += a * b
+#define MACC_MULQ(A, B, T0, T1, T2)                                       \
+do {                                                                    \
+  julong hi, lo;                                                        \
+  __asm__ ("mul %5; add %%rax, %2; adc %%rdx, %3; adc $0, %4"           \
+           : "=&d"(hi), "=a"(lo), "+r"(T0), "+r"(T1), "+g"(T2)          \
+           : "r"(A), "a"(B) : "cc");                                    \
+} while (0)
+
+#define MACC_MULX(A, B, T0, T1, T2)                                       \
+do {                                                                    \
+  julong hi, lo;                                                        \
+  __asm__ ("mulx %5, %1, %0; add %1, %2; adc %0, %3; adc $0, %4"        \
+           : "=&r"(hi), "=&r"(lo), "+r"(T0), "+r"(T1), "+g"(T2)         \
+           : "r"(A), "d"(B) : "cc");                                    \
+} while (0)
+
+// (t2, t1, t0) += 2 * a * b
+#define MACC2_MULQ(A, B, T0, T1, T2)                                      \
+do {                                                                    \
+  julong hi, lo;                                                        \
+  __asm__ ("mul %5; add %%rax, %2; adc %%rdx, %3; adc $0, %4; "         \
+           "add %%rax, %2; adc %%rdx, %3; adc $0, %4"                   \
+           : "=&d"(hi), "=a"(lo), "+r"(T0), "+r"(T1), "+g"(T2)          \
+           : "r"(A), "a"(B) : "cc");                                    \
+} while (0)
+
+#define MACC2_MULX(A, B, T0, T1, T2)                                      \
+do {                                                                    \
+  julong hi, lo;                                                        \
+  __asm__ ("mulx %5, %1, %0; add %1, %2; adc %0, %3; adc $0, %4; "      \
+           "add %1, %2; adc %0, %3; adc $0, %4"                         \
+           : "=&r"(hi), "=&r"(lo), "+r"(T0), "+r"(T1), "+g"(T2)         \
+           : "r"(A), "d"(B) : "cc");                                    \
+} while (0)
+
+// The arithmetic the routines below are instantiated with
+class MulqArith {
+ public:
+  static void mul_add2(julong a, julong b, julong c, julong d, julong& hi, julong& lo) {
+    MUL_ADD2_MULQ(a, b, c, d, hi, lo);
+  }
+  static void macc(julong a, julong b, julong& t0, julong& t1, julong& t2) {
+    MACC_MULQ(a, b, t0, t1, t2);
+  }
+  static void macc2(julong a, julong b, julong& t0, julong& t1, julong& t2) {
+    MACC2_MULQ(a, b, t0, t1, t2);
+  }
+};
+
+class MulxArith {
+ public:
+  static void mul_add2(julong a, julong b, julong c, julong d, julong& hi, julong& lo) {
+    MUL_ADD2_MULX(a, b, c, d, hi, lo);
+  }
+  static void macc(julong a, julong b, julong& t0, julong& t1, julong& t2) {
+    MACC_MULX(a, b, t0, t1, t2);
+  }
+  static void macc2(julong a, julong b, julong& t0, julong& t1, julong& t2) {
+    MACC2_MULX(a, b, t0, t1, t2);
+  }
+};
+
+// The 64-bit word i, counting from the least significant one, of the
+// big-endian int array a of len ints.  The ints before a[0] read as zero.
+static inline julong get_word(const jint* a, int len, int i) {
+  int lo = len - 1 - 2 * i;
+  julong w = 0;
+  if (lo >= 0) {
+    w = (juint)a[lo];
+    if (lo > 0) {
+      w |= (julong)(juint)a[lo - 1] << 32;
+    }
+  }
+  return w;
+}
+
+// Stores the 64-bit word i of a.  The ints that would go before a[0]
+// are dropped, which is only done when they are zero.
+static inline void put_word(jint* a, int len, int i, julong w) {
+  int lo = len - 1 - 2 * i;
+  if (lo >= 0) {
+    a[lo] = (jint)w;
+    if (lo > 0) {
+      a[lo - 1] = (jint)(w >> 32);
+    }
+  }
+}
+
+// z[0 .. xlen+ylen-1] = x * y
+template <class A>
+static void multiply_to_len(jint* x, int xlen, jint* y, int ylen, jint* z) {
+  int xwords = (xlen + 1) / 2;
+  int ywords = (ylen + 1) / 2;
+  int zlen = xlen + ylen;
+
+  for (int i = 0; i < xwords; i++) {
+    julong xi = get_word(x, xlen, i);
+    julong carry = 0;
+    for (int j = 0; j < ywords; j++) {
+      julong zk = (i == 0) ? 0 : get_word(z, zlen, i + j);
+      julong hi, lo;
+      A::mul_add2(xi, get_word(y, ylen, j), zk, carry, hi, lo);
+      put_word(z, zlen, i + j, lo);
+      carry = hi;
+    }
+    put_word(z, zlen, i + ywords, carry);
+  }
+}
+
+// z[0 .. zlen-1] = x * x, where zlen is 2 * len
+template <class A>
+static void square_to_len(jint* x, int len, jint* z, int zlen) {
+  int words = (len + 1) / 2;
+  for (int i = 0; i < zlen; i++) {
+    z[i] = 0;
+  }
+
+  // the products below the diagonal
+  for (int i = 0; i < words; i++) {
+    julong xi = get_word(x, len, i);
+    julong carry = 0;
+    for (int j = i + 1; j < words; j++) {
+      julong hi, lo;
+      A::mul_add2(xi, get_word(x, len, j), get_word(z, zlen, i + j), carry, hi, lo);
+      put_word(z, zlen, i + j, lo);
+      carry = hi;
+    }
+    put_word(z, zlen, i + words, carry);
+  }
+
+  // doubled, plus the squares on the diagonal
+  julong shift = 0;
+  julong carry = 0;
+  for (int i = 0; i < words; i++) {
+    julong w0 = get_word(z, zlen, 2 * i);
+    julong w1 = get_word(z, zlen, 2 * i + 1);
+    julong lo = (w0 << 1) | shift;
+    julong hi = (w1 << 1) | (w0 >> 63);
+    shift = w1 >> 63;
+
+    julong xi = get_word(x, len, i);
+    julong sq_hi, sq_lo;
+    A::mul_add2(xi, xi, 0, 0, sq_hi, sq_lo);
+    lo += carry;
+    julong c = (lo < carry);
+    lo += sq_lo;
+    c += (lo < sq_lo);
+    hi += c;
+    carry = (hi < c);
+    hi += sq_hi;
+    carry += (hi < sq_hi);
+
+    put_word(z, zlen, 2 * i, lo);
+    put_word(z, zlen, 2 * i + 1, hi);
+  }
+}
+
+// Adds in[0 .. len-1] * k to the len ints of out that end before
+// out[end], and returns the carry out of them.
+template <class A>
+static jint mul_add(jint* out, jint* in, int end, int len, juint k) {
+  jint* w = out + end - len;
+  int words = (len + 1) / 2;
+  julong carry = 0;
+  for (int j = 0; j < words; j++) {
+    julong hi, lo;
+    A::mul_add2(get_word(in, len, j), (julong)k, get_word(w, len, j), carry, hi, lo);
+    put_word(w, len, j, lo);
+    carry = hi;
+    if ((len & 1) != 0 && j == words - 1) {
+      // only the low half of the last word is in the window
+      carry = (lo >> 32) | (hi << 32);
+    }
+  }
+  return (jint)carry;
+}
+
+// Subtracts b from a, and the borrow from carry, returning the result
+static julong sub(julong a[], julong b[], julong carry, long len) {
+  long i = 0, cnt = len;
+  julong tmp;
+  __asm__ volatile("clc; "
+                   "0: ; "
+                   "mov (%[b], %[i], 8), %[tmp]; "
+                   "sbb %[tmp], (%[a], %[i], 8); "
+                   "inc %[i]; dec %[cnt]; "
+                   "jne 0b; "
+                   "mov %[carry], %[tmp]; sbb $0, %[tmp]; "
+                   : [i]"+r"(i), [cnt]"+r"(cnt), [tmp]"=&r"(tmp)
+                   : [a]"r"(a), [b]"r"(b), [carry]"r"(carry)
+                   : "memory", "cc");
+  return tmp;
+}
+
+// m = a * b / R mod n, for the little-endian words of len words and
+// R = 2^(64 * len), where inv * n[0] == -1 mod 2^64.  The product and
+// the multiple of n are accumulated a column at a time, as described
+// in "Analyzing and Comparing Montgomery Multiplication Algorithms"
+// by Koc, Acar and Kaliski (product scanning).
+template <class A>
+static void montgomery_multiply(julong a[], julong b[], julong n[],
+                                julong m[], julong inv, int len) {
+  julong t0 = 0, t1 = 0, t2 = 0; // triple-precision accumulator
+  int i;
+
+  assert(inv * n[0] == (julong)-1, "broken inverse in Montgomery multiply");
+
+  for (i = 0; i < len; i++) {
+    int j;
+    for (j = 0; j < i; j++) {
+      A::macc(a[j], b[i-j], t0, t1, t2);
+      A::macc(m[j], n[i-j], t0, t1, t2);
+    }
+    A::macc(a[i], b[0], t0, t1, t2);
+    m[i] = t0 * inv;
+    A::macc(m[i], n[0], t0, t1, t2);
+
+    assert(t0 == 0, "broken Montgomery multiply");
+
+    t0 = t1; t1 = t2; t2 = 0;
+  }
+
+  for (i = len; i < 2*len; i++) {
+    int j;
+    for (j = i-len+1; j < len; j++) {
+      A::macc(a[j], b[i-j], t0, t1, t2);
+      A::macc(m[j], n[i-j], t0, t1, t2);
+    }
+    m[i-len] = t0;
+    t0 = t1; t1 = t2; t2 = 0;
+  }
+
+  while (t0) {
+    t0 = sub(m, n, t0, len);
+  }
+}
+
+// m = a * a / R mod n, as above.  Each product of two different words
+// of a appears twice in a column, and is added once, doubled.
+template <class A>
+static void montgomery_square(julong a[], julong n[],
+                              julong m[], julong inv, int len) {
+  julong t0 = 0, t1 = 0, t2 = 0; // triple-precision accumulator
+  int i;
+
+  assert(inv * n[0] == (julong)-1, "broken inverse in Montgomery square");
+
+  for (i = 0; i < len; i++) {
+    int j;
+    int end = (i+1)/2;
+    for (j = 0; j < end; j++) {
+      A::macc2(a[j], a[i-j], t0, t1, t2);
+      A::macc(m[j], n[i-j], t0, t1, t2);
+    }
+    if ((i & 1) == 0) {
+      A::macc(a[j], a[j], t0, t1, t2);
+    }
+    for (; j < i; j++) {
+      A::macc(m[j], n[i-j], t0, t1, t2);
+    }
+    m[i] = t0 * inv;
+    A::macc(m[i], n[0], t0, t1, t2);
+
+    assert(t0 == 0, "broken Montgomery square");
+
+    t0 = t1; t1 = t2; t2 = 0;
+  }
+
+  for (i = len; i < 2*len; i++) {
+    int start = i-len+1;
+    int end = start + (len - start)/2;
+    int j;
+    for (j = start; j < end; j++) {
+      A::macc2(a[j], a[i-j], t0, t1, t2);
+      A::macc(m[j], n[i-j], t0, t1, t2);
+    }
+    if ((i & 1) == 0) {
+      A::macc(a[j], a[j], t0, t1, t2);
+    }
+    for (; j < len; j++) {
+      A::macc(m[j], n[i-j], t0, t1, t2);
+    }
+    m[i-len] = t0;
+    t0 = t1; t1 = t2; t2 = 0;
+  }
+
+  while (t0) {
+    t0 = sub(m, n, t0, len);
+  }
+}
+
+// Copies len words from the big-endian int array s to d, reversing
+// their order and swapping their halves.  The same conversion turns
+// the little-endian words back into ints.
+static void reverse_words(julong *s, julong *d, int len) {
+  d += len;
+  while (len-- > 0) {
+    d--;
+    julong s_val = *s;
+    *d = (s_val << 32) | (s_val >> 32);
+    s++;
+  }
+}
+
+void SharedRuntime::multiply_to_len(jint *x, jint xlen, jint *y, jint ylen, jint *z) {
+  if (!UseBMI2Instructions) {
+    ::multiply_to_len<MulqArith>(x, xlen, y, ylen, z);
+  } else {
+    ::multiply_to_len<MulxArith>(x, xlen, y, ylen, z);
+  }
+}
+
+void SharedRuntime::square_to_len(jint *x, jint len, jint *z, jint zlen) {
+  assert(zlen == 2 * len, "the square has twice the ints");
+  if (!UseBMI2Instructions) {
+    ::square_to_len<MulqArith>(x, len, z, zlen);
+  } else {
+    ::square_to_len<MulxArith>(x, len, z, zlen);
+  }
+}
+
+jint SharedRuntime::mul_add(jint *out, jint *in, jint end, jint len, jint k) {
+  if (!UseBMI2Instructions) {
+    return ::mul_add<MulqArith>(out, in, end, len, (juint)k);
+  } else {
+    return ::mul_add<MulxArith>(out, in, end, len, (juint)k);
+  }
+}
+
+void SharedRuntime::montgomery_multiply(jint *a_ints, jint *b_ints, jint *n_ints,
+                                        jint len, jlong inv,
+                                        jint *m_ints) {
+  assert(len % 2 == 0, "array length in montgomery_multiply must be even");
+  int longwords = len/2;
+
+  // Make very sure we don't use so much space that the stack might
+  // overflow.  512 jints corresponds to an 16384-bit integer and
+  // will use here a total of 8k bytes of stack space.
+  int total_allocation = longwords * sizeof (julong) * 4;
+  guarantee(total_allocation <= 8192, "must be");
+  julong *scratch = (julong *)alloca(total_allocation);
+
+  // Local scratch arrays
+  julong
+    *a = scratch + 0 * longwords,
+    *b = scratch + 1 * longwords,
+    *n = scratch + 2 * longwords,
+    *m = scratch + 3 * longwords;
+
+  reverse_words((julong *)a_ints, a, longwords);
+  reverse_words((julong *)b_ints, b, longwords);
+  reverse_words((julong *)n_ints, n, longwords);
+
+  if (!UseBMI2Instructions) {
+    ::montgomery_multiply<MulqArith>(a, b, n, m, (julong)inv, longwords);
+  } else {
+    ::montgomery_multiply<MulxArith>(a, b, n, m, (julong)inv, longwords);
+  }
+
+  reverse_words(m, (julong *)m_ints, longwords);
+}
+
+void SharedRuntime::montgomery_square(jint *a_ints, jint *n_ints,
+                                      jint len, jlong inv,
+                                      jint *m_ints) {
+  assert(len % 2 == 0, "array length in montgomery_square must be even");
+  int longwords = len/2;
+
+  // Make very sure we don't use so much space that the stack might
+  // overflow.  512 jints corresponds to an 16384-bit integer and
+  // will use here a total of 6k bytes of stack space.
+  int total_allocation = longwords * sizeof (julong) * 3;
+  guarantee(total_allocation <= 8192, "must be");
+  julong *scratch = (julong *)alloca(total_allocation);
+
+  // Local scratch arrays
+  julong
+    *a = scratch + 0 * longwords,
+    *n = scratch + 1 * longwords,
+    *m = scratch + 2 * longwords;
+
+  reverse_words((julong *)a_ints, a, longwords);
+  reverse_words((julong *)n_ints, n, longwords);
+
+  if (!UseBMI2Instructions) {
+    ::montgomery_square<MulqArith>(a, n, m, (julong)inv, longwords);
+  } else {
+    ::montgomery_square<MulxArith>(a, n, m, (julong)inv, longwords);
+  }
+
+  reverse_words(m, (julong *)m_ints, longwords);
+}
+
+#endif // _WINDOWS
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2003, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2003, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -3622,6 +3622,625 @@ class StubGenerator: public StubCodeGenerator {
     return start;
   }
 
+  // Loads the big-endian form of the 128-bit counter held in ctr_hi:ctr_lo
+  // into xmm_dst and increments the counter.
+  void load_counter_block(XMMRegister xmm_dst, Register ctr_hi, Register ctr_lo, Register tmp) {
+    __ movq(tmp, ctr_hi);
+    __ bswapq(tmp);
+    __ movdq(xmm_dst, tmp);
+    __ movq(tmp, ctr_lo);
+    __ bswapq(tmp);
+    __ pinsrq(xmm_dst, tmp, 1);
+    __ addq(ctr_lo, 1);
+    __ adcq(ctr_hi, 0);
+  }
+
+  // Encrypts the blocks in xmm0 .. xmm(nblocks-1) in place with the expanded
+  // key. The rounds are interleaved across the blocks to hide the latency
+  // of aesenc. 128, 192 and 256-bit keys are handled.
+  void aes_encrypt_blocks(int nblocks, Register key, XMMRegister xmm_key, XMMRegister xmm_key_shuf_mask) {
+    Label L_last_128, L_last_192, L_done;
+    const Address key_len(key, arrayOopDesc::length_offset_in_bytes() - arrayOopDesc::base_offset_in_bytes(T_INT));
+
+    load_key(xmm_key, key, 0x00, xmm_key_shuf_mask);
+    for (int i = 0; i < nblocks; i++) {
+      __ pxor(as_XMMRegister(i), xmm_key);
+    }
+    for (int round = 1; round <= 13; round++) {
+      if (round == 10) {
+        __ cmpl(key_len, 44);
+        __ jcc(Assembler::equal, L_last_128);
+      } else if (round == 12) {
+        __ cmpl(key_len, 52);
+        __ jcc(Assembler::equal, L_last_192);
+      }
+      load_key(xmm_key, key, round * 0x10, xmm_key_shuf_mask);
+      for (int i = 0; i < nblocks; i++) {
+        __ aesenc(as_XMMRegister(i), xmm_key);
+      }
+    }
+    load_key(xmm_key, key, 0xe0, xmm_key_shuf_mask);
+    for (int i = 0; i < nblocks; i++) {
+      __ aesenclast(as_XMMRegister(i), xmm_key);
+    }
+    __ jmp(L_done);
+
+    __ BIND(L_last_192);
+    load_key(xmm_key, key, 0xc0, xmm_key_shuf_mask);
+    for (int i = 0; i < nblocks; i++) {
+      __ aesenclast(as_XMMRegister(i), xmm_key);
+    }
+    __ jmp(L_done);
+
+    __ BIND(L_last_128);
+    load_key(xmm_key, key, 0xa0, xmm_key_shuf_mask);
+    for (int i = 0; i < nblocks; i++) {
+      __ aesenclast(as_XMMRegister(i), xmm_key);
+    }
+
+    __ BIND(L_done);
+  }
+
+  // This is a version of CTR/AES crypt which does 6 blocks in a loop at a time
+  // to hide instruction latency. The keystream only depends on the counter,
+  // so unlike CBC encryption all of the blocks can be in flight at once.
+  //
+  // Arguments:
+  //
+  // Inputs:
+  //   c_rarg0   - source byte array address
+  //   c_rarg1   - destination byte array address
+  //   c_rarg2   - K (key) in little endian int array
+  //   c_rarg3   - counter byte array address, left with the next counter value
+  //   c_rarg4   - input length (must be a multiple of 16)
+  //
+  address generate_counterMode_AESCrypt_Parallel() {
+    assert(UseAES, "need AES instructions and misaligned SSE support");
+    __ align(CodeEntryAlignment);
+    StubCodeMark mark(this, "StubRoutines", "counterMode_AESCrypt");
+    address start = __ pc();
+
+    Label L_multiBlock_loopTop, L_singleBlock_loopTop, L_exit;
+    const Register from        = c_rarg0;  // source array address
+    const Register to          = c_rarg1;  // destination array address
+    const Register key         = c_rarg2;  // key array address
+    const Register counter     = c_rarg3;  // counter byte array address
+#ifndef _WIN64
+    const Register len_reg     = c_rarg4;  // src len (must be multiple of blocksize 16)
+#else
+    const Address  len_mem(rsp, 6 * wordSize);  // length is on stack on Win64
+    const Register len_reg     = r10;      // pick the first volatile windows register
+#endif
+    const Register ctr_hi      = r11;      // counter as two native 64-bit integers
+    const Register ctr_lo      = rax;
+    const Register tmp         = rbx;      // callee saved, pushed below
+
+    const int PARALLEL_FACTOR = 6;
+    const XMMRegister xmm_key           = xmm6;
+    const XMMRegister xmm_key_shuf_mask = xmm7;
+    const XMMRegister xmm_from          = xmm8;
+    const int XMM_REG_LAST = 8;
+
+    __ enter(); // required for proper stackwalking of RuntimeStub frame
+
+#ifdef _WIN64
+    // on win64, fill len_reg from stack position
+    __ movl(len_reg, len_mem);
+    // save the xmm registers which must be preserved 6-8
+    __ subptr(rsp, -rsp_after_call_off * wordSize);
+    for (int i = 6; i <= XMM_REG_LAST; i++) {
+      __ movdqu(xmm_save(i), as_XMMRegister(i));
+    }
+#endif
+    __ push(tmp);
+
+    __ movdqu(xmm_key_shuf_mask, ExternalAddress(StubRoutines::x86::key_shuffle_mask_addr()));
+    __ movq(ctr_hi, Address(counter, 0));
+    __ bswapq(ctr_hi);
+    __ movq(ctr_lo, Address(counter, 8));
+    __ bswapq(ctr_lo);
+
+    __ align(OptoLoopAlignment);
+    __ BIND(L_multiBlock_loopTop);
+    __ cmpl(len_reg, PARALLEL_FACTOR * AESBlockSize);   // see if at least 6 blocks left
+    __ jcc(Assembler::less, L_singleBlock_loopTop);
+
+    for (int i = 0; i < PARALLEL_FACTOR; i++) {
+      load_counter_block(as_XMMRegister(i), ctr_hi, ctr_lo, tmp);
+    }
+    aes_encrypt_blocks(PARALLEL_FACTOR, key, xmm_key, xmm_key_shuf_mask);
+    for (int i = 0; i < PARALLEL_FACTOR; i++) {
+      __ movdqu(xmm_from, Address(from, i * AESBlockSize));
+      __ pxor(as_XMMRegister(i), xmm_from);
+      __ movdqu(Address(to, i * AESBlockSize), as_XMMRegister(i));
+    }
+    __ addptr(from, PARALLEL_FACTOR * AESBlockSize);
+    __ addptr(to, PARALLEL_FACTOR * AESBlockSize);
+    __ subl(len_reg, PARALLEL_FACTOR * AESBlockSize);
+    __ jmp(L_multiBlock_loopTop);
+
+    __ align(OptoLoopAlignment);
+    __ BIND(L_singleBlock_loopTop);
+    __ cmpl(len_reg, 0);             // any blocks left??
+    __ jcc(Assembler::lessEqual, L_exit);
+    load_counter_block(xmm0, ctr_hi, ctr_lo, tmp);
+    aes_encrypt_blocks(1, key, xmm_key, xmm_key_shuf_mask);
+    __ movdqu(xmm_from, Address(from, 0));
+    __ pxor(xmm0, xmm_from);
+    __ movdqu(Address(to, 0), xmm0);
+    __ addptr(from, AESBlockSize);
+    __ addptr(to, AESBlockSize);
+    __ subl(len_reg, AESBlockSize);
+    __ jmp(L_singleBlock_loopTop);
+
+    __ BIND(L_exit);
+    // store the next counter value back into the CounterMode object
+    __ bswapq(ctr_hi);
+    __ movq(Address(counter, 0), ctr_hi);
+    __ bswapq(ctr_lo);
+    __ movq(Address(counter, 8), ctr_lo);
+
+    __ pop(tmp);
+#ifdef _WIN64
+    // restore xmm regs belonging to calling function
+    for (int i = 6; i <= XMM_REG_LAST; i++) {
+      __ movdqu(as_XMMRegister(i), xmm_save(i));
+    }
+#endif
+    __ leave(); // required for proper stackwalking of RuntimeStub frame
+    __ ret(0);
+    return start;
+  }
+
+  // GHASH intrinsic stubs
+  address generate_ghash_long_swap_mask() {
+    __ align(CodeEntryAlignment);
+    StubCodeMark mark(this, "StubRoutines", "ghash_long_swap_mask");
+    address start = __ pc();
+    __ emit_data64(0x0f0e0d0c0b0a0908, relocInfo::none);
+    __ emit_data64(0x0706050403020100, relocInfo::none);
+    return start;
+  }
+
+  address generate_ghash_byte_swap_mask() {
+    __ align(CodeEntryAlignment);
+    StubCodeMark mark(this, "StubRoutines", "ghash_byte_swap_mask");
+    address start = __ pc();
+    __ emit_data64(0x08090a0b0c0d0e0f, relocInfo::none);
+    __ emit_data64(0x0001020304050607, relocInfo::none);
+    return start;
+  }
+
+  // Multiplies the blocks of data into the GHASH state using carry-less
+  // multiplication, following Intel's "Carry-Less Multiplication and Its
+  // Usage for Computing the GCM Mode" white paper (algorithms 1, 4 and 5).
+  //
+  // Arguments:
+  //
+  // Inputs:
+  //   c_rarg0   - long[] state address (updated in place)
+  //   c_rarg1   - long[] subkeyH address
+  //   c_rarg2   - byte[] data address
+  //   c_rarg3   - number of 16-byte blocks (at least one)
+  //
+  address generate_ghash_processBlocks() {
+    assert(UseGHASHIntrinsics, "need CLMUL and SSSE3 instructions");
+    __ align(CodeEntryAlignment);
+    StubCodeMark mark(this, "StubRoutines", "ghash_processBlocks");
+    address start = __ pc();
+
+    Label L_ghash_loop, L_exit;
+    const Register state       = c_rarg0;
+    const Register subkeyH     = c_rarg1;
+    const Register data        = c_rarg2;
+    const Register blocks      = c_rarg3;
+
+    const XMMRegister xmm_temp0  = xmm0;
+    const XMMRegister xmm_temp1  = xmm1;
+    const XMMRegister xmm_temp2  = xmm2;
+    const XMMRegister xmm_temp3  = xmm3;
+    const XMMRegister xmm_temp4  = xmm4;
+    const XMMRegister xmm_temp5  = xmm5;
+    const XMMRegister xmm_temp6  = xmm6;
+    const XMMRegister xmm_temp7  = xmm7;
+    const XMMRegister xmm_temp8  = xmm8;
+    const XMMRegister xmm_temp9  = xmm9;
+    const XMMRegister xmm_temp10 = xmm10;
+    const int XMM_REG_LAST = 10;
+
+    __ enter(); // required for proper stackwalking of RuntimeStub frame
+
+#ifdef _WIN64
+    // save the xmm registers which must be preserved 6-10
+    __ subptr(rsp, -rsp_after_call_off * wordSize);
+    for (int i = 6; i <= XMM_REG_LAST; i++) {
+      __ movdqu(xmm_save(i), as_XMMRegister(i));
+    }
+#endif
+
+    // the state and subkey are two longs, most significant first
+    __ movdqu(xmm_temp10, ExternalAddress(StubRoutines::x86::ghash_long_swap_mask_addr()));
+    __ movdqu(xmm_temp0, Address(state, 0));
+    __ pshufb(xmm_temp0, xmm_temp10);
+    __ movdqu(xmm_temp1, Address(subkeyH, 0));
+    __ pshufb(xmm_temp1, xmm_temp10);
+
+    __ align(OptoLoopAlignment);
+    __ BIND(L_ghash_loop);
+    __ movdqu(xmm_temp2, Address(data, 0));
+    __ pshufb(xmm_temp2, ExternalAddress(StubRoutines::x86::ghash_byte_swap_mask_addr()));
+    __ pxor(xmm_temp0, xmm_temp2);
+
+    //
+    // Multiply with the hash key
+    //
+    __ movdqu(xmm_temp3, xmm_temp0);
+    __ pclmulqdq(xmm_temp3, xmm_temp1, 0);      // xmm3 holds a0*b0
+    __ movdqu(xmm_temp4, xmm_temp0);
+    __ pclmulqdq(xmm_temp4, xmm_temp1, 16);     // xmm4 holds a0*b1
+
+    __ movdqu(xmm_temp5, xmm_temp0);
+    __ pclmulqdq(xmm_temp5, xmm_temp1, 1);      // xmm5 holds a1*b0
+    __ movdqu(xmm_temp6, xmm_temp0);
+    __ pclmulqdq(xmm_temp6, xmm_temp1, 17);     // xmm6 holds a1*b1
+
+    __ pxor(xmm_temp4, xmm_temp5);      // xmm4 holds a0*b1 + a1*b0
+
+    __ movdqu(xmm_temp5, xmm_temp4);    // move the contents of xmm4 to xmm5
+    __ psrldq(xmm_temp4, 8);    // shift by xmm4 64 bits to the right
+    __ pslldq(xmm_temp5, 8);    // shift by xmm5 64 bits to the left
+    __ pxor(xmm_temp3, xmm_temp5);
+    __ pxor(xmm_temp6, xmm_temp4);      // Register pair <xmm6:xmm3> holds the result
+                                        // of the carry-less multiplication of
+                                        // xmm0 by xmm1.
+
+    // We shift the result of the multiplication by one bit position
+    // to the left to cope for the fact that the bits are reversed.
+    __ movdqu(xmm_temp7, xmm_temp3);
+    __ movdqu(xmm_temp8, xmm_temp6);
+    __ pslld(xmm_temp3, 1);
+    __ pslld(xmm_temp6, 1);
+    __ psrld(xmm_temp7, 31);
+    __ psrld(xmm_temp8, 31);
+    __ movdqu(xmm_temp9, xmm_temp7);
+    __ pslldq(xmm_temp8, 4);
+    __ pslldq(xmm_temp7, 4);
+    __ psrldq(xmm_temp9, 12);
+    __ por(xmm_temp3, xmm_temp7);
+    __ por(xmm_temp6, xmm_temp8);
+    __ por(xmm_temp6, xmm_temp9);
+
+    //
+    // First phase of the reduction
+    //
+    // Move xmm3 into xmm7, xmm8, xmm9 in order to perform the shifts
+    // independently.
+    __ movdqu(xmm_temp7, xmm_temp3);
+    __ movdqu(xmm_temp8, xmm_temp3);
+    __ movdqu(xmm_temp9, xmm_temp3);
+    __ pslld(xmm_temp7, 31);    // packed left shift << 31
+    __ pslld(xmm_temp8, 30);    // packed left shift << 30
+    __ pslld(xmm_temp9, 25);    // packed left shift << 25
+    __ pxor(xmm_temp7, xmm_temp8);      // xor the shifted versions
+    __ pxor(xmm_temp7, xmm_temp9);
+    __ movdqu(xmm_temp8, xmm_temp7);
+    __ pslldq(xmm_temp7, 12);
+    __ psrldq(xmm_temp8, 4);
+    __ pxor(xmm_temp3, xmm_temp7);      // first phase of the reduction complete
+
+    //
+    // Second phase of the reduction
+    //
+    // Make 3 copies of xmm3 in xmm2, xmm4, xmm5 for doing these
+    // shift operations.
+    __ movdqu(xmm_temp2, xmm_temp3);
+    __ movdqu(xmm_temp4, xmm_temp3);
+    __ movdqu(xmm_temp5, xmm_temp3);
+    __ psrld(xmm_temp2, 1);     // packed right shift >> 1
+    __ psrld(xmm_temp4, 2);     // packed right shift >> 2
+    __ psrld(xmm_temp5, 7);     // packed right shift >> 7
+    __ pxor(xmm_temp2, xmm_temp4);      // xor the shifted versions
+    __ pxor(xmm_temp2, xmm_temp5);
+    __ pxor(xmm_temp2, xmm_temp8);
+    __ pxor(xmm_temp3, xmm_temp2);
+    __ pxor(xmm_temp6, xmm_temp3);      // the result is in xmm6
+
+    __ decrementl(blocks);
+    __ jcc(Assembler::zero, L_exit);
+    __ movdqu(xmm_temp0, xmm_temp6);
+    __ addptr(data, 16);
+    __ jmp(L_ghash_loop);
+
+    __ BIND(L_exit);
+    __ pshufb(xmm_temp6, xmm_temp10);          // swap the longs back
+    __ movdqu(Address(state, 0), xmm_temp6);   // store the result
+
+#ifdef _WIN64
+    // restore xmm regs belonging to calling function
+    for (int i = 6; i <= XMM_REG_LAST; i++) {
+      __ movdqu(as_XMMRegister(i), xmm_save(i));
+    }
+#endif
+    __ leave(); // required for proper stackwalking of RuntimeStub frame
+    __ ret(0);
+    return start;
+  }
+
+  // SHA-256 intrinsic stubs
+  address generate_pshuffle_byte_flip_mask() {
+    __ align(CodeEntryAlignment);
+    StubCodeMark mark(this, "StubRoutines", "pshuffle_byte_flip_mask");
+    address start = __ pc();
+    __ emit_data64(0x0405060700010203, relocInfo::none);
+    __ emit_data64(0x0c0d0e0f08090a0b, relocInfo::none);
+    return start;
+  }
+
+  // The SHA-256 round constants, each repeated in the eight 32-bit
+  // elements of a 256-bit vector
+  address generate_sha256_k256_x8() {
+    __ align(CodeEntryAlignment);
+    StubCodeMark mark(this, "StubRoutines", "k256_x8");
+    address start = __ pc();
+    for (int i = 0; i < 64; i++) {
+      jlong k = (jlong)StubRoutines::x86::_k256[i];
+      for (int j = 0; j < 4; j++) {
+        __ emit_data64(k | (k << 32), relocInfo::none);
+      }
+    }
+    return start;
+  }
+
+  // Compresses one 64-byte block into the SHA-256 state using the SHA
+  // extensions, following Intel's "Intel SHA Extensions" white paper.
+  //
+  // Arguments:
+  //
+  // Inputs:
+  //   c_rarg0   - byte[] source+offset
+  //   c_rarg1   - int[]  SHA.state
+  //
+  address generate_sha256_implCompress() {
+    assert(UseSHA256Intrinsics, "need SHA and SSSE3 instructions");
+    __ align(CodeEntryAlignment);
+    StubCodeMark mark(this, "StubRoutines", "sha256_implCompress");
+    address start = __ pc();
+
+    const Register buf         = c_rarg0;
+    const Register state       = c_rarg1;
+    const Register k256        = rax;
+
+    const XMMRegister msg      = xmm0;  // implicit operand of sha256rnds2
+    const XMMRegister state0   = xmm1;
+    const XMMRegister state1   = xmm2;
+    const XMMRegister msgtmp[] = { xmm3, xmm4, xmm5, xmm6 };
+    const XMMRegister tmp      = xmm7;
+    const XMMRegister shuf_mask = xmm8;
+    const int XMM_REG_LAST = 8;
+
+    __ enter(); // required for proper stackwalking of RuntimeStub frame
+
+#ifdef _WIN64
+    // save the xmm registers which must be preserved 6-8
+    __ subptr(rsp, -rsp_after_call_off * wordSize);
+    for (int i = 6; i <= XMM_REG_LAST; i++) {
+      __ movdqu(xmm_save(i), as_XMMRegister(i));
+    }
+#endif
+
+    __ movdqu(shuf_mask, ExternalAddress(StubRoutines::x86::pshuffle_byte_flip_mask_addr()));
+    __ lea(k256, ExternalAddress(StubRoutines::x86::k256_addr()));
+
+    // the rounds take the state as ABEF in state0 and CDGH in state1
+    __ movdqu(state0, Address(state, 0));       // DCBA
+    __ movdqu(state1, Address(state, 16));      // HGFE
+    __ movdqa(tmp, state0);
+    __ punpcklqdq(state0, state1);              // FEBA
+    __ punpckhqdq(state1, tmp);                 // DCHG
+    __ pshufd(state0, state0, 0x1B);            // ABEF
+    __ pshufd(state1, state1, 0xB1);            // CDGH
+
+    // four rounds at a time, each computing the schedule four rounds ahead
+    for (int i = 0; i < 64; i += 4) {
+      int j = i / 4;
+      XMMRegister m0 = msgtmp[j % 4];
+      XMMRegister m1 = msgtmp[(j + 1) % 4];
+      XMMRegister m3 = msgtmp[(j + 3) % 4];
+
+      if (i < 16) {
+        __ movdqu(m0, Address(buf, i * 4));
+        __ pshufb(m0, shuf_mask);
+      }
+      __ movdqu(msg, Address(k256, i * 4));
+      __ paddd(msg, m0);
+      __ sha256rnds2(state1, state0);
+      if (i >= 12 && i < 60) {
+        __ movdqa(tmp, m0);
+        __ palignr(tmp, m3, 4);
+        __ paddd(m1, tmp);
+        __ sha256msg2(m1, m0);
+      }
+      __ punpckhqdq(msg, msg);
+      __ sha256rnds2(state0, state1);
+      if (i >= 4 && i < 52) {
+        __ sha256msg1(m3, m0);
+      }
+    }
+
+    // back to DCBA and HGFE, adding the state the block started from
+    __ movdqa(tmp, state0);
+    __ punpcklqdq(state0, state1);              // GHEF
+    __ punpckhqdq(state1, tmp);                 // ABCD
+    __ pshufd(state0, state0, 0xB1);            // HGFE
+    __ pshufd(state1, state1, 0x1B);            // DCBA
+    __ movdqu(tmp, Address(state, 0));
+    __ paddd(state1, tmp);
+    __ movdqu(tmp, Address(state, 16));
+    __ paddd(state0, tmp);
+    __ movdqu(Address(state, 0), state1);
+    __ movdqu(Address(state, 16), state0);
+
+#ifdef _WIN64
+    // restore xmm regs belonging to calling function
+    for (int i = 6; i <= XMM_REG_LAST; i++) {
+      __ movdqu(as_XMMRegister(i), xmm_save(i));
+    }
+#endif
+    __ leave(); // required for proper stackwalking of RuntimeStub frame
+    __ ret(0);
+    return start;
+  }
+
+  // dst = src rotated right by shift in each 32-bit element, trashes tmp
+  void sha256_vrotr(XMMRegister dst, XMMRegister src, int shift, XMMRegister tmp) {
+    __ vpsrld(dst, src, shift, true);
+    __ vpslld(tmp, src, 32 - shift, true);
+    __ vpor(dst, dst, tmp, true);
+  }
+
+  // Compresses eight 64-byte blocks into eight SHA-256 states, one in
+  // each 32-bit element of the AVX2 registers.  Word i of lane l is
+  // element i * 8 + l of the arrays.
+  //
+  // Arguments:
+  //
+  // Inputs:
+  //   c_rarg0   - int[] words (the 16 words of the blocks on entry,
+  //                           the 64 words of the message schedule on exit)
+  //   c_rarg1   - int[] states (updated in place)
+  //
+  address generate_sha256_implCompressLanes() {
+    assert(UseSHA256MultiBufferIntrinsics, "need AVX2 instructions");
+    __ align(CodeEntryAlignment);
+    StubCodeMark mark(this, "StubRoutines", "sha256_implCompressLanes");
+    address start = __ pc();
+
+    Label L_schedule_loop, L_rounds_loop;
+    const Register words       = c_rarg0;
+    const Register states      = c_rarg1;
+    const Register k256        = rax;
+    const Register w           = r10;
+    const Register count       = r11;
+
+    const int row = 8 * BytesPerInt;    // one word of all eight lanes
+
+    // a..h of the eight lanes, renamed rather than moved between rounds
+    XMMRegister v[] = { xmm0, xmm1, xmm2, xmm3, xmm4, xmm5, xmm6, xmm7 };
+    const XMMRegister t1    = xmm8;
+    const XMMRegister t2    = xmm9;
+    const XMMRegister tmp0  = xmm10;
+    const XMMRegister tmp1  = xmm11;
+    const XMMRegister tmp2  = xmm12;
+    const XMMRegister tmp3  = xmm13;
+    const int XMM_REG_LAST = 13;
+
+    __ enter(); // required for proper stackwalking of RuntimeStub frame
+
+#ifdef _WIN64
+    // save the xmm registers which must be preserved 6-13
+    __ subptr(rsp, -rsp_after_call_off * wordSize);
+    for (int i = 6; i <= XMM_REG_LAST; i++) {
+      __ movdqu(xmm_save(i), as_XMMRegister(i));
+    }
+#endif
+
+    // W[t] = s1(W[t-2]) + W[t-7] + s0(W[t-15]) + W[t-16] for t = 16..63
+    __ lea(w, Address(words, 16 * row));
+    __ movl(count, 48);
+    __ align(OptoLoopAlignment);
+    __ BIND(L_schedule_loop);
+    __ vmovdqu(tmp0, Address(w, -15 * row));
+    sha256_vrotr(t1, tmp0, 7, tmp1);
+    sha256_vrotr(tmp2, tmp0, 18, tmp1);
+    __ vpxor(t1, t1, tmp2, true);
+    __ vpsrld(tmp2, tmp0, 3, true);
+    __ vpxor(t1, t1, tmp2, true);               // s0
+    __ vmovdqu(tmp0, Address(w, -2 * row));
+    sha256_vrotr(t2, tmp0, 17, tmp1);
+    sha256_vrotr(tmp2, tmp0, 19, tmp1);
+    __ vpxor(t2, t2, tmp2, true);
+    __ vpsrld(tmp2, tmp0, 10, true);
+    __ vpxor(t2, t2, tmp2, true);               // s1
+    __ vpaddd(t1, t1, t2, true);
+    __ vpaddd(t1, t1, Address(w, -7 * row), true);
+    __ vpaddd(t1, t1, Address(w, -16 * row), true);
+    __ vmovdqu(Address(w, 0), t1);
+    __ addptr(w, row);
+    __ decrementl(count);
+    __ jcc(Assembler::notZero, L_schedule_loop);
+
+    for (int i = 0; i < 8; i++) {
+      __ vmovdqu(v[i], Address(states, i * row));
+    }
+
+    // eight rounds per iteration, after which the names are back in place
+    __ lea(k256, ExternalAddress(StubRoutines::x86::k256_x8_addr()));
+    __ movptr(w, words);
+    __ movl(count, 8);
+    __ align(OptoLoopAlignment);
+    __ BIND(L_rounds_loop);
+    for (int r = 0; r < 8; r++) {
+      XMMRegister a = v[(8 - r) % 8];
+      XMMRegister b = v[(9 - r) % 8];
+      XMMRegister c = v[(10 - r) % 8];
+      XMMRegister d = v[(11 - r) % 8];
+      XMMRegister e = v[(12 - r) % 8];
+      XMMRegister f = v[(13 - r) % 8];
+      XMMRegister g = v[(14 - r) % 8];
+      XMMRegister h = v[(15 - r) % 8];
+
+      // T1 = h + S1(e) + Ch(e, f, g) + K[t] + W[t]
+      sha256_vrotr(t1, e, 6, tmp1);
+      sha256_vrotr(tmp0, e, 11, tmp1);
+      __ vpxor(t1, t1, tmp0, true);
+      sha256_vrotr(tmp0, e, 25, tmp1);
+      __ vpxor(t1, t1, tmp0, true);
+      __ vpxor(tmp0, f, g, true);
+      __ vpand(tmp0, tmp0, e, true);
+      __ vpxor(tmp0, tmp0, g, true);
+      __ vpaddd(t1, t1, tmp0, true);
+      __ vpaddd(t1, t1, h, true);
+      __ vpaddd(t1, t1, Address(k256, r * row), true);
+      __ vpaddd(t1, t1, Address(w, r * row), true);
+
+      // T2 = S0(a) + Maj(a, b, c)
+      sha256_vrotr(t2, a, 2, tmp1);
+      sha256_vrotr(tmp0, a, 13, tmp1);
+      __ vpxor(t2, t2, tmp0, true);
+      sha256_vrotr(tmp0, a, 22, tmp1);
+      __ vpxor(t2, t2, tmp0, true);
+      __ vpxor(tmp0, a, b, true);
+      __ vpand(tmp0, tmp0, c, true);
+      __ vpand(tmp3, a, b, true);
+      __ vpxor(tmp0, tmp0, tmp3, true);
+      __ vpaddd(t2, t2, tmp0, true);
+
+      // d becomes the next e and h the next a
+      __ vpaddd(d, d, t1, true);
+      __ vpaddd(h, t1, t2, true);
+    }
+    __ addptr(k256, 8 * row);
+    __ addptr(w, 8 * row);
+    __ decrementl(count);
+    __ jcc(Assembler::notZero, L_rounds_loop);
+
+    for (int i = 0; i < 8; i++) {
+      __ vpaddd(v[i], v[i], Address(states, i * row), true);
+      __ vmovdqu(Address(states, i * row), v[i]);
+    }
+    __ vzeroupper();
+
+#ifdef _WIN64
+    // restore xmm regs belonging to calling function
+    for (int i = 6; i <= XMM_REG_LAST; i++) {
+      __ movdqu(as_XMMRegister(i), xmm_save(i));
+    }
+#endif
+    __ leave(); // required for proper stackwalking of RuntimeStub frame
+    __ ret(0);
+    return start;
+  }
+
   /**
    *  Arguments:
    *
@@ -3662,6 +4281,78 @@ class StubGenerator: public StubCodeGenerator {
     return start;
   }
 
+  /**
+   *  Arguments:
+   *
+   * Inputs:
+   *   c_rarg0   - byte* src
+   *   c_rarg1   - char* dst
+   *   c_rarg2   - int length
+   *
+   * Ouput:
+   *       rax   - int number of bytes decoded
+   */
+  address generate_decodeArray(const char* name, bool ascii) {
+    assert(UseCharsetIntrinsics, "need SSE4.2 instructions");
+
+    __ align(CodeEntryAlignment);
+    StubCodeMark mark(this, "StubRoutines", name);
+
+    address start = __ pc();
+    const Register src = c_rarg0;  // source java byte array address
+    const Register dst = c_rarg1;  // destination java char array address
+    const Register len = c_rarg2;  // length
+    const Register tmp = r11;
+    assert_different_registers(src, dst, len, tmp, rax);
+
+    BLOCK_COMMENT("Entry:");
+    __ enter(); // required for proper stackwalking of RuntimeStub frame
+
+    __ movslq(len, len);
+    __ inflate_byte_array(src, dst, len, xmm0, xmm1, xmm2, tmp, rax, ascii);
+
+    __ leave(); // required for proper stackwalking of RuntimeStub frame
+    __ ret(0);
+
+    return start;
+  }
+
+  /**
+   *  Arguments:
+   *
+   * Inputs:
+   *   c_rarg0   - char* src
+   *   c_rarg1   - byte* dst
+   *   c_rarg2   - int length
+   *
+   * Ouput:
+   *       rax   - int number of chars encoded
+   */
+  address generate_encodeASCIIArray() {
+    assert(UseCharsetIntrinsics, "need SSE4.2 instructions");
+
+    __ align(CodeEntryAlignment);
+    StubCodeMark mark(this, "StubRoutines", "encodeASCIIArray");
+
+    address start = __ pc();
+    const Register src = c_rarg0;  // source java char array address
+    const Register dst = c_rarg1;  // destination java byte array address
+    const Register len = c_rarg2;  // length
+    const Register tmp = r11;
+    assert_different_registers(src, dst, len, tmp, rax);
+
+    BLOCK_COMMENT("Entry:");
+    __ enter(); // required for proper stackwalking of RuntimeStub frame
+
+    __ movslq(len, len);
+    __ encode_iso_array(src, dst, len, xmm0, xmm1, xmm2, xmm3, tmp, rax, true);
+
+    __ leave(); // required for proper stackwalking of RuntimeStub frame
+    __ ret(0);
+
+    return start;
+  }
+
 #undef __
 #define __ masm->
 
@@ -3893,6 +4584,53 @@ class StubGenerator: public StubCodeGenerator {
       StubRoutines::_aescrypt_decryptBlock = generate_aescrypt_decryptBlock();
       StubRoutines::_cipherBlockChaining_encryptAESCrypt = generate_cipherBlockChaining_encryptAESCrypt();
       StubRoutines::_cipherBlockChaining_decryptAESCrypt = generate_cipherBlockChaining_decryptAESCrypt_Parallel();
+      if (UseAESCTRIntrinsics) {
+        StubRoutines::_counterMode_AESCrypt = generate_counterMode_AESCrypt_Parallel();
+      }
+    }
+
+    // Generate GHASH intrinsics code
+    if (UseGHASHIntrinsics) {
+      StubRoutines::x86::_ghash_long_swap_mask_addr = generate_ghash_long_swap_mask();
+      StubRoutines::x86::_ghash_byte_swap_mask_addr = generate_ghash_byte_swap_mask();
+      StubRoutines::_ghash_processBlocks = generate_ghash_processBlocks();
+    }
+
+    // Generate SHA-256 intrinsics code
+    if (UseSHA256Intrinsics) {
+      StubRoutines::x86::_pshuffle_byte_flip_mask_addr = generate_pshuffle_byte_flip_mask();
+      StubRoutines::_sha256_implCompress = generate_sha256_implCompress();
+    }
+    if (UseSHA256MultiBufferIntrinsics) {
+      StubRoutines::x86::_k256_x8_addr = generate_sha256_k256_x8();
+      StubRoutines::_sha256_implCompressLanes = generate_sha256_implCompressLanes();
+    }
+
+#ifndef _WINDOWS
+    // The BigInteger intrinsics call C++ code in sharedRuntime_x86_64.cpp
+    if (UseMultiplyToLenIntrinsic) {
+      StubRoutines::_multiplyToLen = CAST_FROM_FN_PTR(address, SharedRuntime::multiply_to_len);
+    }
+    if (UseSquareToLenIntrinsic) {
+      StubRoutines::_squareToLen = CAST_FROM_FN_PTR(address, SharedRuntime::square_to_len);
+    }
+    if (UseMulAddIntrinsic) {
+      StubRoutines::_mulAdd = CAST_FROM_FN_PTR(address, SharedRuntime::mul_add);
+    }
+    if (UseMontgomeryMultiplyIntrinsic) {
+      StubRoutines::_montgomeryMultiply
+        = CAST_FROM_FN_PTR(address, SharedRuntime::montgomery_multiply);
+    }
+    if (UseMontgomerySquareIntrinsic) {
+      StubRoutines::_montgomerySquare
+        = CAST_FROM_FN_PTR(address, SharedRuntime::montgomery_square);
+    }
+#endif // _WINDOWS
+
+    if (UseCharsetIntrinsics) {
+      StubRoutines::_decodeASCIIArray = generate_decodeArray("decodeASCIIArray", true);
+      StubRoutines::_decodeISOArray   = generate_decodeArray("decodeISOArray", false);
+      StubRoutines::_encodeASCIIArray = generate_encodeASCIIArray();
     }
 
     // Safefetch stubs.
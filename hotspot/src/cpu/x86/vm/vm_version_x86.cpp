@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1997, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -429,7 +429,7 @@ void VM_Version::get_processor_features() {
   }
 
   char buf[256];
-  jio_snprintf(buf, sizeof(buf), "(%u cores per cpu, %u threads per core) family %d model %d stepping %d%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s",
+  jio_snprintf(buf, sizeof(buf), "(%u cores per cpu, %u threads per core) family %d model %d stepping %d%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s%s",
                cores_per_cpu(), threads_per_core(),
                cpu_family(), _model, _stepping,
                (supports_cmov() ? ", cmov" : ""),
@@ -447,6 +447,8 @@ void VM_Version::get_processor_features() {
                (supports_avx2()   ? ", avx2" : ""),
                (supports_aes()    ? ", aes" : ""),
                (supports_clmul()    ? ", clmul" : ""),
+               (supports_sha()    ? ", sha" : ""),
+               (supports_bmi2()   ? ", bmi2" : ""),
                (supports_erms()   ? ", erms" : ""),
                (supports_mmx_ext() ? ", mmxext" : ""),
                (supports_3dnow_prefetch() ? ", 3dnowpref" : ""),
@@ -523,6 +525,88 @@ void VM_Version::get_processor_features() {
     FLAG_SET_DEFAULT(UseAESIntrinsics, false);
   }
 
+  // The multi-block AES/CTR and GHASH stubs are only generated on x86_64.
+  // AES/CTR builds counter blocks with pinsrq (SSE4.1) and GHASH needs
+  // pshufb (SSSE3) in addition to carry-less multiplication.
+  if (UseAESIntrinsics && supports_sse4_1() LP64_ONLY(&& true) NOT_LP64(&& false)) {
+    if (FLAG_IS_DEFAULT(UseAESCTRIntrinsics)) {
+      UseAESCTRIntrinsics = true;
+    }
+  } else if (UseAESCTRIntrinsics) {
+    if (!FLAG_IS_DEFAULT(UseAESCTRIntrinsics))
+      warning("AES/CTR intrinsics not available on this CPU");
+    FLAG_SET_DEFAULT(UseAESCTRIntrinsics, false);
+  }
+
+  if (UseCLMUL && supports_ssse3() LP64_ONLY(&& true) NOT_LP64(&& false)) {
+    if (FLAG_IS_DEFAULT(UseGHASHIntrinsics)) {
+      UseGHASHIntrinsics = true;
+    }
+  } else if (UseGHASHIntrinsics) {
+    if (!FLAG_IS_DEFAULT(UseGHASHIntrinsics))
+      warning("GHASH intrinsics require CLMUL and SSSE3 instructions (not available on this CPU)");
+    FLAG_SET_DEFAULT(UseGHASHIntrinsics, false);
+  }
+
+  // The SHA-256 stub uses the SHA extensions, with pshufb and palignr
+  // (SSSE3) to order the message and state words. The multi-buffer stub
+  // runs eight messages in the 32-bit lanes of 256-bit AVX2 registers.
+  if (supports_sha() && supports_ssse3() LP64_ONLY(&& true) NOT_LP64(&& false)) {
+    if (FLAG_IS_DEFAULT(UseSHA256Intrinsics)) {
+      UseSHA256Intrinsics = true;
+    }
+  } else if (UseSHA256Intrinsics) {
+    if (!FLAG_IS_DEFAULT(UseSHA256Intrinsics))
+      warning("SHA-256 intrinsics require SHA and SSSE3 instructions (not available on this CPU)");
+    FLAG_SET_DEFAULT(UseSHA256Intrinsics, false);
+  }
+
+  if ((UseAVX > 1) LP64_ONLY(&& true) NOT_LP64(&& false)) {
+    if (FLAG_IS_DEFAULT(UseSHA256MultiBufferIntrinsics)) {
+      UseSHA256MultiBufferIntrinsics = true;
+    }
+  } else if (UseSHA256MultiBufferIntrinsics) {
+    if (!FLAG_IS_DEFAULT(UseSHA256MultiBufferIntrinsics))
+      warning("Multi-buffer SHA-256 intrinsics require AVX2 instructions (not available on this CPU)");
+    FLAG_SET_DEFAULT(UseSHA256MultiBufferIntrinsics, false);
+  }
+
+  if (supports_bmi2()) {
+    if (FLAG_IS_DEFAULT(UseBMI2Instructions)) {
+      UseBMI2Instructions = true;
+    }
+  } else if (UseBMI2Instructions) {
+    if (!FLAG_IS_DEFAULT(UseBMI2Instructions))
+      warning("BMI2 instructions are not available on this CPU");
+    FLAG_SET_DEFAULT(UseBMI2Instructions, false);
+  }
+
+  // The BigInteger intrinsics call C++ kernels in sharedRuntime_x86_64.cpp,
+  // which use MULX when UseBMI2Instructions is set.
+#if defined(COMPILER2) && defined(_LP64) && !defined(_WINDOWS)
+  if (FLAG_IS_DEFAULT(UseMultiplyToLenIntrinsic)) {
+    UseMultiplyToLenIntrinsic = true;
+  }
+  if (FLAG_IS_DEFAULT(UseSquareToLenIntrinsic)) {
+    UseSquareToLenIntrinsic = true;
+  }
+  if (FLAG_IS_DEFAULT(UseMulAddIntrinsic)) {
+    UseMulAddIntrinsic = true;
+  }
+  if (FLAG_IS_DEFAULT(UseMontgomeryMultiplyIntrinsic)) {
+    UseMontgomeryMultiplyIntrinsic = true;
+  }
+  if (FLAG_IS_DEFAULT(UseMontgomerySquareIntrinsic)) {
+    UseMontgomerySquareIntrinsic = true;
+  }
+#else
+  FLAG_SET_DEFAULT(UseMultiplyToLenIntrinsic, false);
+  FLAG_SET_DEFAULT(UseSquareToLenIntrinsic, false);
+  FLAG_SET_DEFAULT(UseMulAddIntrinsic, false);
+  FLAG_SET_DEFAULT(UseMontgomeryMultiplyIntrinsic, false);
+  FLAG_SET_DEFAULT(UseMontgomerySquareIntrinsic, false);
+#endif
+
 #ifdef COMPILER2
   if (UseFPUForSpilling) {
     if (UseSSE < 2) {
@@ -692,6 +776,18 @@ void VM_Version::get_processor_features() {
     }
 #endif // COMPILER2
 
+  // The US-ASCII and ISO-8859-1 array coding stubs are only generated
+  // on x86_64 and use the same SSE4.1 instructions as encodeISOArray.
+  if (UseSSE42Intrinsics LP64_ONLY(&& true) NOT_LP64(&& false)) {
+    if (FLAG_IS_DEFAULT(UseCharsetIntrinsics)) {
+      UseCharsetIntrinsics = true;
+    }
+  } else if (UseCharsetIntrinsics) {
+    if (!FLAG_IS_DEFAULT(UseCharsetIntrinsics))
+      warning("Charset intrinsics are not available on this CPU");
+    FLAG_SET_DEFAULT(UseCharsetIntrinsics, false);
+  }
+
   // Use population count instruction if available.
   if (supports_popcnt()) {
     if (FLAG_IS_DEFAULT(UsePopCountInstruction)) {
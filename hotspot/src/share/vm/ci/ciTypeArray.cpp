@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -46,3 +46,18 @@ jchar ciTypeArray::char_at(int index) {
 #endif //ASSERT
   return c;
 }
+
+// ------------------------------------------------------------------
+// ciTypeArray::byte_at
+//
+// Implementation of the byte_at method.
+jbyte ciTypeArray::byte_at(int index) {
+  VM_ENTRY_MARK;
+  assert(index >= 0 && index < length(), "out of range");
+  jbyte b = get_typeArrayOop()->byte_at(index);
+#ifdef ASSERT
+  jbyte d = element_value(index).as_byte();
+  assert(b == d, "");
+#endif //ASSERT
+  return b;
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1999, 2010, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1999, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -56,6 +56,9 @@ public:
   // array will never change.
   jchar char_at(int index);
 
+  // Return byte at index.
+  jbyte byte_at(int index);
+
 };
 
 #endif // SHARE_VM_CI_CITYPEARRAY_HPP
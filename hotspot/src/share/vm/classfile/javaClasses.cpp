@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1997, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -143,6 +143,7 @@ int java_lang_String::value_offset  = 0;
 int java_lang_String::offset_offset = 0;
 int java_lang_String::count_offset  = 0;
 int java_lang_String::hash_offset   = 0;
+int java_lang_String::coder_offset  = 0;
 
 bool java_lang_String::initialized  = false;
 
@@ -150,43 +151,89 @@ void java_lang_String::compute_offsets() {
   assert(!initialized, "offsets should be initialized only once");
 
   Klass* k = SystemDictionary::String_klass();
-  compute_offset(value_offset,           k, vmSymbols::value_name(),  vmSymbols::char_array_signature());
+  compute_offset(value_offset,           k, vmSymbols::value_name(),  vmSymbols::byte_array_signature());
   compute_optional_offset(offset_offset, k, vmSymbols::offset_name(), vmSymbols::int_signature());
   compute_optional_offset(count_offset,  k, vmSymbols::count_name(),  vmSymbols::int_signature());
   compute_optional_offset(hash_offset,   k, vmSymbols::hash_name(),   vmSymbols::int_signature());
+  compute_optional_offset(coder_offset,  k, vmSymbols::coder_name(),  vmSymbols::byte_signature());
 
   initialized = true;
 }
 
-Handle java_lang_String::basic_create(int length, TRAPS) {
+void java_lang_String::set_compact_strings(bool value) {
+  InstanceKlass* ik = InstanceKlass::cast(SystemDictionary::String_klass());
+  assert(ik->is_initialized(), "String must be initialized");
+  fieldDescriptor fd;
+  if (ik->find_local_field(vmSymbols::compact_strings_name(), vmSymbols::bool_signature(), &fd) &&
+      fd.is_static()) {
+    ik->java_mirror()->bool_field_put(fd.offset(), value);
+  }
+}
+
+Handle java_lang_String::basic_create(int length, bool is_latin1, TRAPS) {
   assert(initialized, "Must be initialized");
+  assert(CompactStrings || !is_latin1, "Must be UTF16 without CompactStrings");
   // Create the String object first, so there's a chance that the String
-  // and the char array it points to end up in the same cache line.
+  // and the byte array it points to end up in the same cache line.
   oop obj;
   obj = InstanceKlass::cast(SystemDictionary::String_klass())->allocate_instance(CHECK_NH);
 
-  // Create the char array.  The String object must be handlized here
+  // Create the byte array.  The String object must be handlized here
   // because GC can happen as a result of the allocation attempt.
   Handle h_obj(THREAD, obj);
-  typeArrayOop buffer;
-    buffer = oopFactory::new_charArray(length, CHECK_NH);
+  int arr_length = is_latin1 ? length : length << 1; // 2 bytes per UTF16 char
+  typeArrayOop buffer = oopFactory::new_byteArray(arr_length, CHECK_NH);
 
-  // Point the String at the char array
+  // Point the String at the byte array
   obj = h_obj();
   set_value(obj, buffer);
   // No need to zero the offset, allocation zero'ed the entire String object
   assert(offset(obj) == 0, "initial String offset should be zero");
 //set_offset(obj, 0);
   set_count(obj, length);
+  set_coder(obj, is_latin1 ? CODER_LATIN1 : CODER_UTF16);
 
   return h_obj;
 }
 
+bool java_lang_String::is_latin1(jchar* chars, int len) {
+  if (!CompactStrings) {
+    return false;
+  }
+  for (int index = 0; index < len; index++) {
+    if (chars[index] > 0xff) {
+      return false;
+    }
+  }
+  return true;
+}
+
+jchar* java_lang_String::unicode_chars(oop java_string, int index, int len) {
+  if (len == 0) {
+    return NULL;
+  }
+  typeArrayOop value  = java_lang_String::value(java_string);
+  int          offset = java_lang_String::offset(java_string);
+  if (!is_latin1(java_string)) {
+    return value->char_at_addr(offset + index);
+  }
+  jchar* result = NEW_RESOURCE_ARRAY(jchar, len);
+  for (int i = 0; i < len; i++) {
+    result[i] = ((jchar) value->byte_at(offset + index + i)) & 0xff;
+  }
+  return result;
+}
+
 Handle java_lang_String::create_from_unicode(jchar* unicode, int length, TRAPS) {
-  Handle h_obj = basic_create(length, CHECK_NH);
+  bool latin1 = is_latin1(unicode, length);
+  Handle h_obj = basic_create(length, latin1, CHECK_NH);
   typeArrayOop buffer = value(h_obj());
   for (int index = 0; index < length; index++) {
-    buffer->char_at_put(index, unicode[index]);
+    if (latin1) {
+      buffer->byte_at_put(index, (jbyte) unicode[index]);
+    } else {
+      buffer->char_at_put(index, unicode[index]);
+    }
   }
   return h_obj;
 }
@@ -200,12 +247,13 @@ Handle java_lang_String::create_from_str(const char* utf8_str, TRAPS) {
   if (utf8_str == NULL) {
     return Handle();
   }
+  ResourceMark rm(THREAD);
   int length = UTF8::unicode_length(utf8_str);
-  Handle h_obj = basic_create(length, CHECK_NH);
+  jchar* chars = NEW_RESOURCE_ARRAY(jchar, length);
   if (length > 0) {
-    UTF8::convert_to_unicode(utf8_str, value(h_obj())->char_at_addr(0), length);
+    UTF8::convert_to_unicode(utf8_str, chars, length);
   }
-  return h_obj;
+  return create_from_unicode(chars, length, THREAD);
 }
 
 oop java_lang_String::create_oop_from_str(const char* utf8_str, TRAPS) {
@@ -214,12 +262,13 @@ oop java_lang_String::create_oop_from_str(const char* utf8_str, TRAPS) {
 }
 
 Handle java_lang_String::create_from_symbol(Symbol* symbol, TRAPS) {
+  ResourceMark rm(THREAD);
   int length = UTF8::unicode_length((char*)symbol->bytes(), symbol->utf8_length());
-  Handle h_obj = basic_create(length, CHECK_NH);
+  jchar* chars = NEW_RESOURCE_ARRAY(jchar, length);
   if (length > 0) {
-    UTF8::convert_to_unicode((char*)symbol->bytes(), value(h_obj())->char_at_addr(0), length);
+    UTF8::convert_to_unicode((char*)symbol->bytes(), chars, length);
   }
-  return h_obj;
+  return create_from_unicode(chars, length, THREAD);
 }
 
 // Converts a C string to a Java String based on current encoding
@@ -280,14 +329,12 @@ char* java_lang_String::as_platform_dependent_str(Handle java_string, TRAPS) {
 Handle java_lang_String::char_converter(Handle java_string, jchar from_char, jchar to_char, TRAPS) {
   oop          obj    = java_string();
   // Typical usage is to convert all '/' to '.' in string.
-  typeArrayOop value  = java_lang_String::value(obj);
-  int          offset = java_lang_String::offset(obj);
   int          length = java_lang_String::length(obj);
 
   // First check if any from_char exist
   int index; // Declared outside, used later
   for (index = 0; index < length; index++) {
-    if (value->char_at(index + offset) == from_char) {
+    if (char_at(obj, index) == from_char) {
       break;
     }
   }
@@ -296,34 +343,24 @@ Handle java_lang_String::char_converter(Handle java_string, jchar from_char, jch
     return java_string;
   }
 
-  // Create new UNICODE buffer. Must handlize value because GC
-  // may happen during String and char array creation.
-  typeArrayHandle h_value(THREAD, value);
-  Handle string = basic_create(length, CHECK_NH);
-
-  typeArrayOop from_buffer = h_value();
-  typeArrayOop to_buffer   = java_lang_String::value(string());
-
-  // Copy contents
+  // Copy into a new UNICODE buffer, from which create_from_unicode picks
+  // the coder of the new String.  No GC can happen before the copy.
+  ResourceMark rm(THREAD);
+  jchar* chars = NEW_RESOURCE_ARRAY(jchar, length);
   for (index = 0; index < length; index++) {
-    jchar c = from_buffer->char_at(index + offset);
-    if (c == from_char) {
-      c = to_char;
-    }
-    to_buffer->char_at_put(index, c);
+    jchar c = char_at(obj, index);
+    chars[index] = (c == from_char) ? to_char : c;
   }
-  return string;
+  return create_from_unicode(chars, length, THREAD);
 }
 
 jchar* java_lang_String::as_unicode_string(oop java_string, int& length, TRAPS) {
-  typeArrayOop value  = java_lang_String::value(java_string);
-  int          offset = java_lang_String::offset(java_string);
                length = java_lang_String::length(java_string);
 
   jchar* result = NEW_RESOURCE_ARRAY_RETURN_NULL(jchar, length);
   if (result != NULL) {
     for (int index = 0; index < length; index++) {
-      result[index] = value->char_at(index + offset);
+      result[index] = char_at(java_string, index);
     }
   } else {
     THROW_MSG_0(vmSymbols::java_lang_OutOfMemoryError(), "could not allocate Unicode string");
@@ -338,15 +375,17 @@ unsigned int java_lang_String::hash_code(oop java_string) {
 
   typeArrayOop value  = java_lang_String::value(java_string);
   int          offset = java_lang_String::offset(java_string);
-  return java_lang_String::hash_code(value->char_at_addr(offset), length);
+  if (is_latin1(java_string)) {
+    return java_lang_String::hash_code((jubyte*) value->byte_at_addr(offset), length);
+  } else {
+    return java_lang_String::hash_code(value->char_at_addr(offset), length);
+  }
 }
 
 char* java_lang_String::as_quoted_ascii(oop java_string) {
-  typeArrayOop value  = java_lang_String::value(java_string);
-  int          offset = java_lang_String::offset(java_string);
   int          length = java_lang_String::length(java_string);
 
-  jchar* base = (length == 0) ? NULL : value->char_at_addr(offset);
+  jchar* base = unicode_chars(java_string, 0, length);
   if (base == NULL) return NULL;
 
   int result_length = UNICODE::quoted_ascii_length(base, length) + 1;
@@ -364,74 +403,63 @@ unsigned int java_lang_String::hash_string(oop java_string) {
     return StringTable::hash_string(NULL, 0);
   }
 
-  typeArrayOop value  = java_lang_String::value(java_string);
-  int          offset = java_lang_String::offset(java_string);
-  return StringTable::hash_string(value->char_at_addr(offset), length);
+  ResourceMark rm;
+  return StringTable::hash_string(unicode_chars(java_string, 0, length), length);
 }
 
 Symbol* java_lang_String::as_symbol(Handle java_string, TRAPS) {
+  ResourceMark rm(THREAD);
   oop          obj    = java_string();
-  typeArrayOop value  = java_lang_String::value(obj);
-  int          offset = java_lang_String::offset(obj);
   int          length = java_lang_String::length(obj);
-  jchar* base = (length == 0) ? NULL : value->char_at_addr(offset);
+  jchar* base = unicode_chars(obj, 0, length);
   Symbol* sym = SymbolTable::lookup_unicode(base, length, THREAD);
   return sym;
 }
 
 Symbol* java_lang_String::as_symbol_or_null(oop java_string) {
-  typeArrayOop value  = java_lang_String::value(java_string);
-  int          offset = java_lang_String::offset(java_string);
+  ResourceMark rm;
   int          length = java_lang_String::length(java_string);
-  jchar* base = (length == 0) ? NULL : value->char_at_addr(offset);
+  jchar* base = unicode_chars(java_string, 0, length);
   return SymbolTable::probe_unicode(base, length);
 }
 
 
 int java_lang_String::utf8_length(oop java_string) {
-  typeArrayOop value  = java_lang_String::value(java_string);
-  int          offset = java_lang_String::offset(java_string);
+  ResourceMark rm;
   int          length = java_lang_String::length(java_string);
-  jchar* position = (length == 0) ? NULL : value->char_at_addr(offset);
+  jchar* position = unicode_chars(java_string, 0, length);
   return UNICODE::utf8_length(position, length);
 }
 
 char* java_lang_String::as_utf8_string(oop java_string) {
-  typeArrayOop value  = java_lang_String::value(java_string);
-  int          offset = java_lang_String::offset(java_string);
   int          length = java_lang_String::length(java_string);
-  jchar* position = (length == 0) ? NULL : value->char_at_addr(offset);
+  jchar* position = unicode_chars(java_string, 0, length);
   return UNICODE::as_utf8(position, length);
 }
 
 char* java_lang_String::as_utf8_string(oop java_string, char* buf, int buflen) {
-  typeArrayOop value  = java_lang_String::value(java_string);
-  int          offset = java_lang_String::offset(java_string);
+  ResourceMark rm;
   int          length = java_lang_String::length(java_string);
-  jchar* position = (length == 0) ? NULL : value->char_at_addr(offset);
+  jchar* position = unicode_chars(java_string, 0, length);
   return UNICODE::as_utf8(position, length, buf, buflen);
 }
 
 char* java_lang_String::as_utf8_string(oop java_string, int start, int len) {
-  typeArrayOop value  = java_lang_String::value(java_string);
-  int          offset = java_lang_String::offset(java_string);
   int          length = java_lang_String::length(java_string);
   assert(start + len <= length, "just checking");
-  jchar* position = value->char_at_addr(offset + start);
+  jchar* position = unicode_chars(java_string, start, len);
   return UNICODE::as_utf8(position, len);
 }
 
 bool java_lang_String::equals(oop java_string, jchar* chars, int len) {
   assert(java_string->klass() == SystemDictionary::String_klass(),
          "must be java_string");
-  typeArrayOop value  = java_lang_String::value(java_string);
-  int          offset = java_lang_String::offset(java_string);
   int          length = java_lang_String::length(java_string);
   if (length != len) {
     return false;
   }
   for (int i = 0; i < len; i++) {
-    if (value->char_at(i + offset) != chars[i]) {
+    if (char_at(java_string, i) != chars[i]) {
       return false;
     }
   }
@@ -443,18 +471,14 @@ bool java_lang_String::equals(oop str1, oop str2) {
          "must be java String");
   assert(str2->klass() == SystemDictionary::String_klass(),
          "must be java String");
-  typeArrayOop value1  = java_lang_String::value(str1);
-  int          offset1 = java_lang_String::offset(str1);
   int          length1 = java_lang_String::length(str1);
-  typeArrayOop value2  = java_lang_String::value(str2);
-  int          offset2 = java_lang_String::offset(str2);
   int          length2 = java_lang_String::length(str2);
 
   if (length1 != length2) {
     return false;
   }
   for (int i = 0; i < length1; i++) {
-    if (value1->char_at(i + offset1) != value2->char_at(i + offset2)) {
+    if (char_at(str1, i) != char_at(str2, i)) {
       return false;
     }
   }
@@ -465,18 +489,16 @@ void java_lang_String::print(Handle java_string, outputStream* st) {
   oop          obj    = java_string();
   assert(obj->klass() == SystemDictionary::String_klass(), "must be java_string");
   typeArrayOop value  = java_lang_String::value(obj);
-  int          offset = java_lang_String::offset(obj);
-  int          length = java_lang_String::length(obj);
 
-  int end = MIN2(length, 100);
   if (value == NULL) {
     // This can happen if, e.g., printing a String
     // object before its initializer has been called
     st->print_cr("NULL");
   } else {
+    int length = java_lang_String::length(obj);
     st->print("\"");
     for (int index = 0; index < length; index++) {
-      st->print("%c", value->char_at(index + offset));
+      st->print("%c", char_at(obj, index));
     }
     st->print("\"");
   }
@@ -870,7 +892,7 @@ void java_lang_Thread::compute_offsets() {
   assert(_group_offset == 0, "offsets should be initialized only once");
 
   Klass* k = SystemDictionary::Thread_klass();
-  compute_offset(_name_offset,      k, vmSymbols::name_name(),      vmSymbols::char_array_signature());
+  compute_offset(_name_offset,      k, vmSymbols::name_name(),      vmSymbols::string_signature());
   compute_offset(_group_offset,     k, vmSymbols::group_name(),     vmSymbols::threadgroup_signature());
   compute_offset(_contextClassLoader_offset, k, vmSymbols::contextClassLoader_name(), vmSymbols::classloader_signature());
   compute_offset(_inheritedAccessControlContext_offset, k, vmSymbols::inheritedAccessControlContext_name(), vmSymbols::accesscontrolcontext_signature());
@@ -900,14 +922,12 @@ void java_lang_Thread::set_thread(oop java_thread, JavaThread* thread) {
 }
 
 
-typeArrayOop java_lang_Thread::name(oop java_thread) {
-  oop name = java_thread->obj_field(_name_offset);
-  assert(name == NULL || (name->is_typeArray() && TypeArrayKlass::cast(name->klass())->element_type() == T_CHAR), "just checking");
-  return typeArrayOop(name);
+oop java_lang_Thread::name(oop java_thread) {
+  return java_thread->obj_field(_name_offset);
 }
 
 
-void java_lang_Thread::set_name(oop java_thread, typeArrayOop name) {
+void java_lang_Thread::set_name(oop java_thread, oop name) {
   assert(java_thread->obj_field(_name_offset) == NULL, "name should be NULL");
   java_thread->obj_field_put(_name_offset, name);
 }
@@ -3399,7 +3419,7 @@ void JavaClasses::check_offsets() {
 
   // java.lang.String
 
-  CHECK_OFFSET("java/lang/String", java_lang_String, value, "[C");
+  CHECK_OFFSET("java/lang/String", java_lang_String, value, "[B");
   if (java_lang_String::has_offset_field()) {
     CHECK_OFFSET("java/lang/String", java_lang_String, offset, "I");
     CHECK_OFFSET("java/lang/String", java_lang_String, count, "I");
@@ -3407,6 +3427,9 @@ void JavaClasses::check_offsets() {
   if (java_lang_String::has_hash_field()) {
     CHECK_OFFSET("java/lang/String", java_lang_String, hash, "I");
   }
+  if (java_lang_String::has_coder_field()) {
+    CHECK_OFFSET("java/lang/String", java_lang_String, coder, "B");
+  }
 
   // java.lang.Class
 
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1997, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -56,15 +56,12 @@ class java_lang_String : AllStatic {
   static int offset_offset;
   static int count_offset;
   static int hash_offset;
+  static int coder_offset;
 
   static bool initialized;
 
-  static Handle basic_create(int length, TRAPS);
+  static Handle basic_create(int length, bool is_latin1, TRAPS);
 
-  static void set_value( oop string, typeArrayOop buffer) {
-    assert(initialized, "Must be initialized");
-    string->obj_field_put(value_offset,  (oop)buffer);
-  }
   static void set_offset(oop string, int offset) {
     assert(initialized, "Must be initialized");
     if (offset_offset > 0) {
@@ -77,9 +74,26 @@ class java_lang_String : AllStatic {
       string->int_field_put(count_offset,  count);
     }
   }
+  static void set_coder(oop string, jbyte coder) {
+    assert(initialized, "Must be initialized");
+    if (coder_offset > 0) {
+      string->byte_field_put(coder_offset, coder);
+    }
+  }
+
+  // Returns the chars of a String starting at index, either in place for
+  // a UTF16 String or inflated into a resource area copy for a Latin1 one.
+  static jchar* unicode_chars(oop java_string, int index, int len);
 
  public:
+  // Coder values of the String.coder field
+  enum {
+    CODER_LATIN1 = 0,
+    CODER_UTF16  = 1
+  };
+
   static void compute_offsets();
+  static void set_compact_strings(bool value);
 
   // Instance creation
   static Handle create_from_unicode(jchar* unicode, int len, TRAPS);
@@ -105,6 +119,11 @@ class java_lang_String : AllStatic {
     return (hash_offset > 0);
   }
 
+  static bool has_coder_field()  {
+    assert(initialized, "Must be initialized");
+    return (coder_offset > 0);
+  }
+
   static int value_offset_in_bytes()  {
     assert(initialized && (value_offset > 0), "Must be initialized");
     return value_offset;
@@ -121,6 +140,15 @@ class java_lang_String : AllStatic {
     assert(initialized && (hash_offset > 0), "Must be initialized");
     return hash_offset;
   }
+  static int coder_offset_in_bytes()  {
+    assert(initialized && (coder_offset > 0), "Must be initialized");
+    return coder_offset;
+  }
+
+  static void set_value( oop string, typeArrayOop buffer) {
+    assert(initialized, "Must be initialized");
+    string->obj_field_put(value_offset,  (oop)buffer);
+  }
 
   // Accessors
   static typeArrayOop value(oop java_string) {
@@ -137,13 +165,42 @@ class java_lang_String : AllStatic {
       return 0;
     }
   }
+  static unsigned int hash(oop java_string) {
+    assert(initialized && (hash_offset > 0), "Must be initialized");
+    assert(is_instance(java_string), "must be java_string");
+    return java_string->int_field(hash_offset);
+  }
+  static jbyte coder(oop java_string) {
+    assert(initialized, "Must be initialized");
+    assert(is_instance(java_string), "must be java_string");
+    if (coder_offset > 0) {
+      return java_string->byte_field(coder_offset);
+    } else {
+      return CODER_UTF16;
+    }
+  }
+  static bool is_latin1(oop java_string) {
+    return coder(java_string) == CODER_LATIN1;
+  }
   static int length(oop java_string) {
     assert(initialized, "Must be initialized");
     assert(is_instance(java_string), "must be java_string");
     if (count_offset > 0) {
       return java_string->int_field(count_offset);
     } else {
-      return ((typeArrayOop)java_string->obj_field(value_offset))->length();
+      // A UTF16 value holds two bytes per char
+      return ((typeArrayOop)java_string->obj_field(value_offset))->length() >> coder(java_string);
+    }
+  }
+  // The char at index, which must be within the String
+  static jchar char_at(oop java_string, int index) {
+    typeArrayOop value = java_lang_String::value(java_string);
+    index += offset(java_string);
+    if (is_latin1(java_string)) {
+      return ((jchar) value->byte_at(index)) & 0xff;
+    } else {
+      // byte[] and char[] elements start at the same offset
+      return value->char_at(index);
     }
   }
   static int utf8_length(oop java_string);
@@ -184,6 +241,9 @@ class java_lang_String : AllStatic {
   static bool equals(oop java_string, jchar* chars, int len);
   static bool equals(oop str1, oop str2);
 
+  // Can all len chars be stored as Latin1?
+  static bool is_latin1(jchar* chars, int len);
+
   // Conversion between '.' and '/' formats
   static Handle externalize_classname(Handle java_string, TRAPS) { return char_converter(java_string, '/', '.', THREAD); }
   static Handle internalize_classname(Handle java_string, TRAPS) { return char_converter(java_string, '.', '/', THREAD); }
@@ -325,8 +385,8 @@ class java_lang_Thread : AllStatic {
   // Set JavaThread for instance
   static void set_thread(oop java_thread, JavaThread* thread);
   // Name
-  static typeArrayOop name(oop java_thread);
-  static void set_name(oop java_thread, typeArrayOop name);
+  static oop name(oop java_thread);
+  static void set_name(oop java_thread, oop name);
   // Priority
   static ThreadPriority priority(oop java_thread);
   static void set_priority(oop java_thread, ThreadPriority priority);
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1997, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -33,15 +33,47 @@
 #include "memory/gcLocker.inline.hpp"
 #include "oops/oop.inline.hpp"
 #include "oops/oop.inline2.hpp"
+#include "runtime/atomic.inline.hpp"
 #include "runtime/mutexLocker.hpp"
 #include "utilities/hashtable.inline.hpp"
+#if INCLUDE_ALL_GCS
+#include "gc_implementation/g1/g1StringDedup.hpp"
+#endif
+
+// --------------------------------------------------------------------------
+
+// The tables are not grown beyond this number of buckets.
+static const int max_resized_table_size = 1 << 24;
+
+// Returns true if a table with the given number of buckets and entries
+// should be replaced by a larger one.
+static bool should_grow_table(int table_size, int number_of_entries) {
+  return ResizeStringAndSymbolTables && !DumpSharedSpaces &&
+         table_size < max_resized_table_size &&
+         (double)number_of_entries > (double)table_size * StringAndSymbolTableMaxLoad;
+}
+
+static int grown_table_size(int table_size) {
+  // Keep the size odd, the tables index by the remainder of the hash.
+  return MIN2(2 * table_size + 1, max_resized_table_size);
+}
+
+// Wake up the service thread, which does the resizing.
+static void notify_service_thread() {
+  MutexLockerEx ml(Service_lock, Mutex::_no_safepoint_check_flag);
+  Service_lock->notify_all();
+}
 
 // --------------------------------------------------------------------------
 
 SymbolTable* SymbolTable::_the_table = NULL;
+SymbolTable* SymbolTable::_retired_table = NULL;
 // Static arena for symbols that are not deallocated
 Arena* SymbolTable::_arena = NULL;
 bool SymbolTable::_needs_rehashing = false;
+volatile bool SymbolTable::_needs_resizing = false;
+volatile int SymbolTable::_parallel_claimed_idx = 0;
+int SymbolTable::_resize_count = 0;
 
 Symbol* SymbolTable::allocate_symbol(const u1* name, int len, bool c_heap, TRAPS) {
   assert (len <= Symbol::max_length(), "should be checked by caller");
@@ -86,13 +118,8 @@ void SymbolTable::symbols_do(SymbolClosure *cl) {
 int SymbolTable::symbols_removed = 0;
 int SymbolTable::symbols_counted = 0;
 
-// Remove unreferenced symbols from the symbol table
-// This is done late during GC.
-void SymbolTable::unlink() {
-  int removed = 0;
-  int total = 0;
-  size_t memory_total = 0;
-  for (int i = 0; i < the_table()->table_size(); ++i) {
+void SymbolTable::buckets_unlink(int start_idx, int end_idx, BucketUnlinkContext* context, size_t* memory_total) {
+  for (int i = start_idx; i < end_idx; ++i) {
     HashtableEntry<Symbol*, mtSymbol>** p = the_table()->bucket_addr(i);
     HashtableEntry<Symbol*, mtSymbol>* entry = the_table()->bucket(i);
     while (entry != NULL) {
@@ -104,16 +131,15 @@ void SymbolTable::unlink() {
         break;
       }
       Symbol* s = entry->literal();
-      memory_total += s->size();
-      total++;
+      context->_num_processed++;
+      *memory_total += s->size();
       assert(s != NULL, "just checking");
       // If reference count is zero, remove.
       if (s->refcount() == 0) {
         assert(!entry->is_shared(), "shared entries should be kept live");
         delete s;
-        removed++;
         *p = entry->next();
-        the_table()->free_entry(entry);
+        context->free_entry(entry);
       } else {
         p = entry->next_addr();
       }
@@ -121,12 +147,57 @@ void SymbolTable::unlink() {
       entry = (HashtableEntry<Symbol*, mtSymbol>*)HashtableEntry<Symbol*, mtSymbol>::make_ptr(*p);
     }
   }
-  symbols_removed += removed;
-  symbols_counted += total;
+}
+
+// Remove unreferenced symbols from the symbol table
+// This is done late during GC.
+void SymbolTable::unlink(int* processed, int* removed) {
+  size_t memory_total = 0;
+  BucketUnlinkContext context;
+  buckets_unlink(0, the_table()->table_size(), &context, &memory_total);
+  the_table()->bulk_free_entries(&context);
+  *processed = context._num_processed;
+  *removed = context._num_removed;
+
+  symbols_removed += context._num_removed;
+  symbols_counted += context._num_processed;
+  // Exclude printing for normal PrintGCDetails because people parse
+  // this output.
+  if (PrintGCDetails && Verbose && WizardMode) {
+    gclog_or_tty->print(" [Symbols=%d size=" SIZE_FORMAT "K] ", *processed,
+                        (memory_total*HeapWordSize)/1024);
+  }
+}
+
+void SymbolTable::possibly_parallel_unlink(int* processed, int* removed) {
+  const int ClaimChunkSize = 32;
+  const int limit = the_table()->table_size();
+
+  size_t memory_total = 0;
+
+  BucketUnlinkContext context;
+  for (;;) {
+    // Grab next set of buckets to scan
+    int start_idx = Atomic::add(ClaimChunkSize, &_parallel_claimed_idx) - ClaimChunkSize;
+    if (start_idx >= limit) {
+      // End of table
+      break;
+    }
+
+    int end_idx = MIN2(limit, start_idx + ClaimChunkSize);
+    buckets_unlink(start_idx, end_idx, &context, &memory_total);
+  }
+
+  the_table()->bulk_free_entries(&context);
+  *processed = context._num_processed;
+  *removed = context._num_removed;
+
+  Atomic::add(context._num_processed, &symbols_counted);
+  Atomic::add(context._num_removed, &symbols_removed);
   // Exclude printing for normal PrintGCDetails because people parse
   // this output.
   if (PrintGCDetails && Verbose && WizardMode) {
-    gclog_or_tty->print(" [Symbols=%d size=" SIZE_FORMAT "K] ", total,
+    gclog_or_tty->print(" [Symbols: scanned=%d removed=%d size=" SIZE_FORMAT "K] ", *processed, *removed,
                         (memory_total*HeapWordSize)/1024);
   }
 }
@@ -137,8 +208,8 @@ void SymbolTable::rehash_table() {
   assert(SafepointSynchronize::is_at_safepoint(), "must be at safepoint");
   // This should never happen with -Xshare:dump but it might in testing mode.
   if (DumpSharedSpaces) return;
-  // Create a new symbol table
-  SymbolTable* new_table = new SymbolTable();
+  // Create a new symbol table of the current size
+  SymbolTable* new_table = new SymbolTable(the_table()->table_size());
 
   the_table()->move_to(new_table);
 
@@ -150,6 +221,49 @@ void SymbolTable::rehash_table() {
   _the_table = new_table;
 }
 
+// Grow the table.  This runs in the service thread concurrently with the
+// lock-free readers.  The entries are copied into a new, larger table,
+// which is then published.  The old table is left intact for readers
+// that are still walking it, and is freed at the next safepoint when no
+// such reader can remain.  Holding SymbolTable_lock keeps out writers,
+// and entries are only ever removed at safepoints.
+void SymbolTable::resize_table() {
+  MutexLocker ml(SymbolTable_lock);
+  if (!_needs_resizing) {
+    return;
+  }
+  assert(_retired_table == NULL, "previous table has not been reclaimed");
+
+  SymbolTable* old_table = the_table();
+  SymbolTable* new_table = new SymbolTable(grown_table_size(old_table->table_size()));
+  old_table->copy_to(new_table);
+
+  _retired_table = old_table;
+  OrderAccess::release_store_ptr(&_the_table, new_table);
+  _needs_resizing = false;
+  _resize_count++;
+}
+
+void SymbolTable::reclaim_retired_table() {
+  assert(SafepointSynchronize::is_at_safepoint(), "must be at safepoint");
+  if (_retired_table != NULL) {
+    // Recycle the entries of the old table in the new one.
+    _retired_table->release_entries_to(the_table());
+    _retired_table->free_buckets();
+    delete _retired_table;
+    _retired_table = NULL;
+  }
+}
+
+// Called with SymbolTable_lock held, after adding entries.
+void SymbolTable::check_resize_table() {
+  if (!_needs_resizing && _retired_table == NULL &&
+      should_grow_table(table_size(), number_of_entries())) {
+    _needs_resizing = true;
+    notify_service_thread();
+  }
+}
+
 // Lookup a symbol in a bucket.
 
 Symbol* SymbolTable::lookup(int index, const char* name,
@@ -190,9 +304,11 @@ unsigned int SymbolTable::hash_symbol(const char* s, int len) {
 
 Symbol* SymbolTable::lookup(const char* name, int len, TRAPS) {
   unsigned int hashValue = hash_symbol(name, len);
-  int index = the_table()->hash_to_index(hashValue);
+  // Read the table once, it may be replaced by a concurrent resize.
+  SymbolTable* table = the_table();
+  int index = table->hash_to_index(hashValue);
 
-  Symbol* s = the_table()->lookup(index, name, len, hashValue);
+  Symbol* s = table->lookup(index, name, len, hashValue);
 
   // Found
   if (s != NULL) return s;
@@ -201,12 +317,12 @@ Symbol* SymbolTable::lookup(const char* name, int len, TRAPS) {
   MutexLocker ml(SymbolTable_lock, THREAD);
 
   // Otherwise, add to symbol to table
-  return the_table()->basic_add(index, (u1*)name, len, hashValue, true, CHECK_NULL);
+  return the_table()->basic_add((u1*)name, len, hashValue, true, CHECK_NULL);
 }
 
 Symbol* SymbolTable::lookup(const Symbol* sym, int begin, int end, TRAPS) {
   char* buffer;
-  int index, len;
+  int len;
   unsigned int hashValue;
   char* name;
   {
@@ -215,8 +331,9 @@ Symbol* SymbolTable::lookup(const Symbol* sym, int begin, int end, TRAPS) {
     name = (char*)sym->base() + begin;
     len = end - begin;
     hashValue = hash_symbol(name, len);
-    index = the_table()->hash_to_index(hashValue);
-    Symbol* s = the_table()->lookup(index, name, len, hashValue);
+    SymbolTable* table = the_table();
+    int index = table->hash_to_index(hashValue);
+    Symbol* s = table->lookup(index, name, len, hashValue);
 
     // Found
     if (s != NULL) return s;
@@ -240,15 +357,16 @@ Symbol* SymbolTable::lookup(const Symbol* sym, int begin, int end, TRAPS) {
   // Grab SymbolTable_lock first.
   MutexLocker ml(SymbolTable_lock, THREAD);
 
-  return the_table()->basic_add(index, (u1*)buffer, len, hashValue, true, CHECK_NULL);
+  return the_table()->basic_add((u1*)buffer, len, hashValue, true, CHECK_NULL);
 }
 
 Symbol* SymbolTable::lookup_only(const char* name, int len,
                                    unsigned int& hash) {
   hash = hash_symbol(name, len);
-  int index = the_table()->hash_to_index(hash);
+  SymbolTable* table = the_table();
+  int index = table->hash_to_index(hash);
 
-  Symbol* s = the_table()->lookup(index, name, len, hash);
+  Symbol* s = table->lookup(index, name, len, hash);
   return s;
 }
 
@@ -257,9 +375,10 @@ Symbol* SymbolTable::lookup_only(const char* name, int len,
 // Do not increment the reference count to keep this alive
 Symbol** SymbolTable::lookup_symbol_addr(Symbol* sym){
   unsigned int hash = hash_symbol((char*)sym->bytes(), sym->utf8_length());
-  int index = the_table()->hash_to_index(hash);
+  SymbolTable* table = the_table();
+  int index = table->hash_to_index(hash);
 
-  for (HashtableEntry<Symbol*, mtSymbol>* e = the_table()->bucket(index); e != NULL; e = e->next()) {
+  for (HashtableEntry<Symbol*, mtSymbol>* e = table->bucket(index); e != NULL; e = e->next()) {
     if (e->hash() == hash) {
       Symbol* literal_sym = e->literal();
       if (sym == literal_sym) {
@@ -317,9 +436,8 @@ void SymbolTable::add(ClassLoaderData* loader_data, constantPoolHandle cp,
   if (!added) {
     // do it the hard way
     for (int i=0; i<names_count; i++) {
-      int index = table->hash_to_index(hashValues[i]);
       bool c_heap = !loader_data->is_the_null_class_loader_data();
-      Symbol* sym = table->basic_add(index, (u1*)names[i], lengths[i], hashValues[i], c_heap, CHECK);
+      Symbol* sym = table->basic_add((u1*)names[i], lengths[i], hashValues[i], c_heap, CHECK);
       cp->symbol_at_put(cp_indices[i], sym);
     }
   }
@@ -335,11 +453,10 @@ Symbol* SymbolTable::new_permanent_symbol(const char* name, TRAPS) {
   MutexLocker ml(SymbolTable_lock, THREAD);
 
   SymbolTable* table = the_table();
-  int index = table->hash_to_index(hash);
-  return table->basic_add(index, (u1*)name, (int)strlen(name), hash, false, THREAD);
+  return table->basic_add((u1*)name, (int)strlen(name), hash, false, THREAD);
 }
 
-Symbol* SymbolTable::basic_add(int index_arg, u1 *name, int len,
+Symbol* SymbolTable::basic_add(u1 *name, int len,
                                unsigned int hashValue_arg, bool c_heap, TRAPS) {
   assert(!Universe::heap()->is_in_reserved(name),
          "proposed name of symbol must be stable");
@@ -354,16 +471,15 @@ Symbol* SymbolTable::basic_add(int index_arg, u1 *name, int len,
   No_Safepoint_Verifier nsv;
 
   // Check if the symbol table has been rehashed, if so, need to recalculate
-  // the hash value and index.
+  // the hash value.  The table may also have been resized since the
+  // lock-free lookup, so always recompute the index.
   unsigned int hashValue;
-  int index;
   if (use_alternate_hashcode()) {
     hashValue = hash_symbol((const char*)name, len);
-    index = hash_to_index(hashValue);
   } else {
     hashValue = hashValue_arg;
-    index = index_arg;
   }
+  int index = hash_to_index(hashValue);
 
   // Since look-up was done lock-free, we need to check if another
   // thread beat us in the race to insert the symbol.
@@ -380,6 +496,7 @@ Symbol* SymbolTable::basic_add(int index_arg, u1 *name, int len,
 
   HashtableEntry<Symbol*, mtSymbol>* entry = new_entry(hashValue, sym);
   add_entry(index, entry);
+  check_resize_table();
   return sym;
 }
 
@@ -431,6 +548,7 @@ bool SymbolTable::basic_add(ClassLoaderData* loader_data, constantPoolHandle cp,
       cp->symbol_at_put(cp_indices[i], sym);
     }
   }
+  check_resize_table();
   return true;
 }
 
@@ -451,6 +569,9 @@ void SymbolTable::verify() {
 
 void SymbolTable::dump(outputStream* st) {
   the_table()->dump_table(st, "SymbolTable");
+  st->print_cr("Number of resizes       : %9d", _resize_count);
+  st->print_cr("Symbols scanned by GC   : %9d", symbols_counted);
+  st->print_cr("Symbols removed by GC   : %9d", symbols_removed);
 }
 
 
@@ -595,11 +716,15 @@ class StableMemoryChecker : public StackObj {
 
 // --------------------------------------------------------------------------
 StringTable* StringTable::_the_table = NULL;
+StringTable* StringTable::_retired_table = NULL;
 
 bool StringTable::_needs_rehashing = false;
+volatile bool StringTable::_needs_resizing = false;
 
 volatile int StringTable::_parallel_claimed_idx = 0;
 
+int StringTable::_resize_count = 0;
+
 // Pick hashing algorithm
 unsigned int StringTable::hash_string(const jchar* s, int len) {
   return use_alternate_hashcode() ? AltHashing::murmur3_32(seed(), s, len) :
@@ -625,7 +750,7 @@ oop StringTable::lookup(int index, jchar* name,
 }
 
 
-oop StringTable::basic_add(int index_arg, Handle string, jchar* name,
+oop StringTable::basic_add(Handle string, jchar* name,
                            int len, unsigned int hashValue_arg, TRAPS) {
 
   assert(java_lang_String::equals(string(), name, len),
@@ -634,16 +759,15 @@ oop StringTable::basic_add(int index_arg, Handle string, jchar* name,
   No_Safepoint_Verifier nsv;
 
   // Check if the symbol table has been rehashed, if so, need to recalculate
-  // the hash value and index before second lookup.
+  // the hash value before second lookup.  The table may also have been
+  // resized since the lock-free lookup, so always recompute the index.
   unsigned int hashValue;
-  int index;
   if (use_alternate_hashcode()) {
     hashValue = hash_string(name, len);
-    index = hash_to_index(hashValue);
   } else {
     hashValue = hashValue_arg;
-    index = index_arg;
   }
+  int index = hash_to_index(hashValue);
 
   // Since look-up was done lock-free, we need to check if another
   // thread beat us in the race to insert the symbol.
@@ -656,6 +780,7 @@ oop StringTable::basic_add(int index_arg, Handle string, jchar* name,
 
   HashtableEntry<oop, mtSymbol>* entry = new_entry(hashValue, string());
   add_entry(index, entry);
+  check_resize_table();
   return string();
 }
 
@@ -670,16 +795,20 @@ oop StringTable::lookup(Symbol* symbol) {
 
 oop StringTable::lookup(jchar* name, int len) {
   unsigned int hash = hash_string(name, len);
-  int index = the_table()->hash_to_index(hash);
-  return the_table()->lookup(index, name, len, hash);
+  // Read the table once, it may be replaced by a concurrent resize.
+  StringTable* table = the_table();
+  int index = table->hash_to_index(hash);
+  return table->lookup(index, name, len, hash);
 }
 
 
 oop StringTable::intern(Handle string_or_null, jchar* name,
                         int len, TRAPS) {
   unsigned int hashValue = hash_string(name, len);
-  int index = the_table()->hash_to_index(hashValue);
-  oop found_string = the_table()->lookup(index, name, len, hashValue);
+  // Read the table once, it may be replaced by a concurrent resize.
+  StringTable* table = the_table();
+  int index = table->hash_to_index(hashValue);
+  oop found_string = table->lookup(index, name, len, hashValue);
 
   // Found
   if (found_string != NULL) return found_string;
@@ -696,12 +825,21 @@ oop StringTable::intern(Handle string_or_null, jchar* name,
     string = java_lang_String::create_from_unicode(name, len, CHECK_NULL);
   }
 
+#if INCLUDE_ALL_GCS
+  if (G1StringDedup::is_enabled()) {
+    // Deduplicate the string before it is interned. Note that we should never
+    // deduplicate a string after it has been interned. Doing so will counteract
+    // compiler optimizations done on e.g. interned string literals.
+    G1StringDedup::deduplicate(string());
+  }
+#endif
+
   // Grab the StringTable_lock before getting the_table() because it could
   // change at safepoint.
   MutexLocker ml(StringTable_lock, THREAD);
 
   // Otherwise, add to symbol to table
-  return the_table()->basic_add(index, string, name, len,
+  return the_table()->basic_add(string, name, len,
                                 hashValue, CHECK_NULL);
 }
 
@@ -739,28 +877,36 @@ oop StringTable::intern(const char* utf8_string, TRAPS) {
   return result;
 }
 
-void StringTable::unlink_or_oops_do(BoolObjectClosure* is_alive, OopClosure* f) {
+void StringTable::unlink_or_oops_do(BoolObjectClosure* is_alive, OopClosure* f, int* processed, int* removed) {
+  BucketUnlinkContext context;
+  buckets_unlink_or_oops_do(is_alive, f, 0, the_table()->table_size(), &context);
+  the_table()->bulk_free_entries(&context);
+  *processed = context._num_processed;
+  *removed = context._num_removed;
+}
+
+void StringTable::possibly_parallel_unlink_or_oops_do(BoolObjectClosure* is_alive, OopClosure* f, int* processed, int* removed) {
   // Readers of the table are unlocked, so we should only be removing
   // entries at a safepoint.
   assert(SafepointSynchronize::is_at_safepoint(), "must be at safepoint");
-  for (int i = 0; i < the_table()->table_size(); ++i) {
-    HashtableEntry<oop, mtSymbol>** p = the_table()->bucket_addr(i);
-    HashtableEntry<oop, mtSymbol>* entry = the_table()->bucket(i);
-    while (entry != NULL) {
-      assert(!entry->is_shared(), "CDS not used for the StringTable");
+  const int ClaimChunkSize = 32;
+  const int limit = the_table()->table_size();
 
-      if (is_alive->do_object_b(entry->literal())) {
-        if (f != NULL) {
-          f->do_oop((oop*)entry->literal_addr());
-        }
-        p = entry->next_addr();
-      } else {
-        *p = entry->next();
-        the_table()->free_entry(entry);
-      }
-      entry = *p;
+  BucketUnlinkContext context;
+  for (;;) {
+    // Grab next set of buckets to scan
+    int start_idx = Atomic::add(ClaimChunkSize, &_parallel_claimed_idx) - ClaimChunkSize;
+    if (start_idx >= limit) {
+      // End of table
+      break;
     }
+
+    int end_idx = MIN2(limit, start_idx + ClaimChunkSize);
+    buckets_unlink_or_oops_do(is_alive, f, start_idx, end_idx, &context);
   }
+  the_table()->bulk_free_entries(&context);
+  *processed = context._num_processed;
+  *removed = context._num_removed;
 }
 
 void StringTable::buckets_do(OopClosure* f, int start_idx, int end_idx) {
@@ -786,6 +932,41 @@ void StringTable::buckets_do(OopClosure* f, int start_idx, int end_idx) {
   }
 }
 
+void StringTable::buckets_unlink_or_oops_do(BoolObjectClosure* is_alive, OopClosure* f, int start_idx, int end_idx, BucketUnlinkContext* context) {
+  // Readers of the table are unlocked, so we should only be removing
+  // entries at a safepoint.
+  assert(SafepointSynchronize::is_at_safepoint(), "must be at safepoint");
+  const int limit = the_table()->table_size();
+
+  assert(0 <= start_idx && start_idx <= limit,
+         err_msg("start_idx (" INT32_FORMAT ") oob?", start_idx));
+  assert(0 <= end_idx && end_idx <= limit,
+         err_msg("end_idx (" INT32_FORMAT ") oob?", end_idx));
+  assert(start_idx <= end_idx,
+         err_msg("Ordering: start_idx=" INT32_FORMAT", end_idx=" INT32_FORMAT,
+                 start_idx, end_idx));
+
+  for (int i = start_idx; i < end_idx; ++i) {
+    HashtableEntry<oop, mtSymbol>** p = the_table()->bucket_addr(i);
+    HashtableEntry<oop, mtSymbol>* entry = the_table()->bucket(i);
+    while (entry != NULL) {
+      assert(!entry->is_shared(), "CDS not used for the StringTable");
+
+      if (is_alive->do_object_b(entry->literal())) {
+        if (f != NULL) {
+          f->do_oop((oop*)entry->literal_addr());
+        }
+        p = entry->next_addr();
+      } else {
+        *p = entry->next();
+        context->free_entry(entry);
+      }
+      context->_num_processed++;
+      entry = *p;
+    }
+  }
+}
+
 void StringTable::oops_do(OopClosure* f) {
   buckets_do(f, 0, the_table()->table_size());
 }
@@ -825,6 +1006,7 @@ void StringTable::verify() {
 
 void StringTable::dump(outputStream* st) {
   the_table()->dump_table(st, "StringTable");
+  st->print_cr("Number of resizes       : %9d", _resize_count);
 }
 
 StringTable::VerifyRetTypes StringTable::compare_entries(
@@ -990,7 +1172,7 @@ void StringTable::rehash_table() {
   assert(SafepointSynchronize::is_at_safepoint(), "must be at safepoint");
   // This should never happen with -Xshare:dump but it might in testing mode.
   if (DumpSharedSpaces) return;
-  StringTable* new_table = new StringTable();
+  StringTable* new_table = new StringTable(the_table()->table_size());
 
   // Rehash the table
   the_table()->move_to(new_table);
@@ -1002,3 +1184,48 @@ void StringTable::rehash_table() {
   _needs_rehashing = false;
   _the_table = new_table;
 }
+
+// Grow the table concurrently with the lock-free readers, see
+// SymbolTable::resize_table().  The oops are copied into the new table
+// without a safepoint in between, so the old and the new table hold the
+// same Strings until the old table is reclaimed at the next safepoint,
+// before the GC could move any of them.
+void StringTable::resize_table() {
+  MutexLocker ml(StringTable_lock);
+  if (!_needs_resizing) {
+    return;
+  }
+  assert(_retired_table == NULL, "previous table has not been reclaimed");
+
+  StringTable* old_table = the_table();
+  StringTable* new_table = new StringTable(grown_table_size(old_table->table_size()));
+  {
+    No_Safepoint_Verifier nsv;
+    old_table->copy_to(new_table);
+  }
+
+  _retired_table = old_table;
+  OrderAccess::release_store_ptr(&_the_table, new_table);
+  _needs_resizing = false;
+  _resize_count++;
+}
+
+void StringTable::reclaim_retired_table() {
+  assert(SafepointSynchronize::is_at_safepoint(), "must be at safepoint");
+  if (_retired_table != NULL) {
+    // Recycle the entries of the old table in the new one.
+    _retired_table->release_entries_to(the_table());
+    _retired_table->free_buckets();
+    delete _retired_table;
+    _retired_table = NULL;
+  }
+}
+
+// Called with StringTable_lock held, after adding an entry.
+void StringTable::check_resize_table() {
+  if (!_needs_resizing && _retired_table == NULL &&
+      should_grow_table(table_size(), number_of_entries())) {
+    _needs_resizing = true;
+    notify_service_thread();
+  }
+}
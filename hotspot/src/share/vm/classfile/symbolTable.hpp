@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1997, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -27,6 +27,7 @@
 
 #include "memory/allocation.inline.hpp"
 #include "oops/symbol.hpp"
+#include "runtime/orderAccess.hpp"
 #include "utilities/hashtable.hpp"
 
 // The symbol table holds all Symbol*s and corresponding interned strings.
@@ -34,7 +35,11 @@
 //
 // The interned strings are created lazily.
 //
-// It is implemented as an open hash table with a fixed number of buckets.
+// Both tables are open hash tables that are read without locks.  Each
+// table instance has a fixed number of buckets, but when the average
+// bucket length grows too large the service thread replaces the table
+// with a larger copy (see resize_table()).  The replaced table is kept
+// intact for the lock-free readers until the next safepoint.
 //
 // %note:
 //  - symbolTableEntrys are allocated in blocks to reduce the space overhead.
@@ -82,17 +87,27 @@ private:
   // The symbol table
   static SymbolTable* _the_table;
 
+  // The table replaced by the last resize, freed at the next safepoint
+  static SymbolTable* _retired_table;
+
   // Set if one bucket is out of balance due to hash algorithm deficiency
   static bool _needs_rehashing;
 
+  // Set if the table should be grown by the service thread
+  static volatile bool _needs_resizing;
+
+  // Claimed high water mark for parallel chunked scanning
+  static volatile int _parallel_claimed_idx;
+
   // For statistics
   static int symbols_removed;
   static int symbols_counted;
+  static int _resize_count;
 
   Symbol* allocate_symbol(const u1* name, int len, bool c_heap, TRAPS); // Assumes no characters larger than 0x7F
 
   // Adding elements
-  Symbol* basic_add(int index, u1* name, int len, unsigned int hashValue,
+  Symbol* basic_add(u1* name, int len, unsigned int hashValue,
                     bool c_heap, TRAPS);
   bool basic_add(ClassLoaderData* loader_data,
                  constantPoolHandle cp, int names_count,
@@ -109,9 +124,18 @@ private:
 
   Symbol* lookup(int index, const char* name, int len, unsigned int hash);
 
+  // Request a resize if the table has become too densely populated
+  void check_resize_table();
+
+  // Release dead symbols in the buckets in the range [start_idx, end_idx)
+  static void buckets_unlink(int start_idx, int end_idx, BucketUnlinkContext* context, size_t* memory_total);
+
   SymbolTable()
     : Hashtable<Symbol*, mtSymbol>(SymbolTableSize, sizeof (HashtableEntry<Symbol*, mtSymbol>)) {}
 
+  SymbolTable(int table_size)
+    : Hashtable<Symbol*, mtSymbol>(table_size, sizeof (HashtableEntry<Symbol*, mtSymbol>)) {}
+
   SymbolTable(HashtableBucket<mtSymbol>* t, int number_of_entries)
     : Hashtable<Symbol*, mtSymbol>(SymbolTableSize, sizeof (HashtableEntry<Symbol*, mtSymbol>), t,
                 number_of_entries) {}
@@ -129,7 +153,9 @@ public:
   };
 
   // The symbol table
-  static SymbolTable* the_table() { return _the_table; }
+  static SymbolTable* the_table() {
+    return (SymbolTable*)OrderAccess::load_ptr_acquire(&_the_table);
+  }
 
   // Size of one bucket in the string table.  Used when checking for rollover.
   static uint bucket_size() { return sizeof(HashtableBucket<mtSymbol>); }
@@ -177,7 +203,14 @@ public:
                   unsigned int* hashValues, TRAPS);
 
   // Release any dead symbols
-  static void unlink();
+  static void unlink() {
+    int processed = 0;
+    int removed = 0;
+    unlink(&processed, &removed);
+  }
+  static void unlink(int* processed, int* removed);
+  // Release any dead symbols, possibly parallel version
+  static void possibly_parallel_unlink(int* processed, int* removed);
 
   // iterate over symbols
   static void symbols_do(SymbolClosure *cl);
@@ -235,6 +268,16 @@ public:
   // Rehash the symbol table if it gets out of balance
   static void rehash_table();
   static bool needs_rehashing()         { return _needs_rehashing; }
+
+  // Grow the symbol table concurrently if it gets too full
+  static void resize_table();
+  static bool needs_resizing()          { return _needs_resizing; }
+  // Free the table replaced by the last resize, at a safepoint
+  static void reclaim_retired_table();
+
+  // Parallel chunked scanning
+  static void clear_parallel_claimed_index() { _parallel_claimed_idx = 0; }
+  static int parallel_claimed_index()        { return _parallel_claimed_idx; }
 };
 
 class StringTable : public Hashtable<oop, mtSymbol> {
@@ -244,31 +287,51 @@ private:
   // The string table
   static StringTable* _the_table;
 
+  // The table replaced by the last resize, freed at the next safepoint
+  static StringTable* _retired_table;
+
   // Set if one bucket is out of balance due to hash algorithm deficiency
   static bool _needs_rehashing;
 
+  // Set if the table should be grown by the service thread
+  static volatile bool _needs_resizing;
+
   // Claimed high water mark for parallel chunked scanning
   static volatile int _parallel_claimed_idx;
 
+  // For statistics
+  static int _resize_count;
+
   static oop intern(Handle string_or_null, jchar* chars, int length, TRAPS);
-  oop basic_add(int index, Handle string_or_null, jchar* name, int len,
+  oop basic_add(Handle string_or_null, jchar* name, int len,
                 unsigned int hashValue, TRAPS);
 
   oop lookup(int index, jchar* chars, int length, unsigned int hashValue);
 
+  // Request a resize if the table has become too densely populated
+  void check_resize_table();
+
   // Apply the give oop closure to the entries to the buckets
   // in the range [start_idx, end_idx).
   static void buckets_do(OopClosure* f, int start_idx, int end_idx);
+  // Unlink or apply the give oop closure to the entries to the buckets
+  // in the range [start_idx, end_idx).
+  static void buckets_unlink_or_oops_do(BoolObjectClosure* is_alive, OopClosure* f, int start_idx, int end_idx, BucketUnlinkContext* context);
 
   StringTable() : Hashtable<oop, mtSymbol>((int)StringTableSize,
                               sizeof (HashtableEntry<oop, mtSymbol>)) {}
 
+  StringTable(int table_size) : Hashtable<oop, mtSymbol>(table_size,
+                              sizeof (HashtableEntry<oop, mtSymbol>)) {}
+
   StringTable(HashtableBucket<mtSymbol>* t, int number_of_entries)
     : Hashtable<oop, mtSymbol>((int)StringTableSize, sizeof (HashtableEntry<oop, mtSymbol>), t,
                      number_of_entries) {}
 public:
   // The string table
-  static StringTable* the_table() { return _the_table; }
+  static StringTable* the_table() {
+    return (StringTable*)OrderAccess::load_ptr_acquire(&_the_table);
+  }
 
   // Size of one bucket in the string table.  Used when checking for rollover.
   static uint bucket_size() { return sizeof(HashtableBucket<mtSymbol>); }
@@ -280,10 +343,23 @@ public:
 
   // GC support
   //   Delete pointers to otherwise-unreachable objects.
-  static void unlink_or_oops_do(BoolObjectClosure* cl, OopClosure* f);
+  static void unlink_or_oops_do(BoolObjectClosure* cl, OopClosure* f) {
+    int processed = 0;
+    int removed = 0;
+    unlink_or_oops_do(cl, f, &processed, &removed);
+  }
   static void unlink(BoolObjectClosure* cl) {
     unlink_or_oops_do(cl, NULL);
   }
+  static void unlink_or_oops_do(BoolObjectClosure* cl, OopClosure* f, int* processed, int* removed);
+  static void unlink(BoolObjectClosure* cl, int* processed, int* removed) {
+    unlink_or_oops_do(cl, NULL, processed, removed);
+  }
+  // Possibly parallel versions of the above
+  static void possibly_parallel_unlink_or_oops_do(BoolObjectClosure* cl, OopClosure* f, int* processed, int* removed);
+  static void possibly_parallel_unlink(BoolObjectClosure* cl, int* processed, int* removed) {
+    possibly_parallel_unlink_or_oops_do(cl, NULL, processed, removed);
+  }
 
   // Serially invoke "f->do_oop" on the locations of all oops in the table.
   static void oops_do(OopClosure* f);
@@ -347,7 +423,14 @@ public:
   static void rehash_table();
   static bool needs_rehashing() { return _needs_rehashing; }
 
+  // Grow the string table concurrently if it gets too full
+  static void resize_table();
+  static bool needs_resizing()  { return _needs_resizing; }
+  // Free the table replaced by the last resize, at a safepoint
+  static void reclaim_retired_table();
+
   // Parallel chunked scanning
   static void clear_parallel_claimed_index() { _parallel_claimed_idx = 0; }
+  static int parallel_claimed_index()        { return _parallel_claimed_idx; }
 };
 #endif // SHARE_VM_CLASSFILE_SYMBOLTABLE_HPP
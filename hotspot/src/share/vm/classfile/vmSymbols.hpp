@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1997, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -367,6 +367,8 @@
   template(offset_name,                               "offset")                                   \
   template(count_name,                                "count")                                    \
   template(hash_name,                                 "hash")                                     \
+  template(coder_name,                                "coder")                                    \
+  template(compact_strings_name,                      "COMPACT_STRINGS")                          \
   template(numberOfLeadingZeros_name,                 "numberOfLeadingZeros")                     \
   template(numberOfTrailingZeros_name,                "numberOfTrailingZeros")                    \
   template(bitCount_name,                             "bitCount")                                 \
@@ -756,11 +758,20 @@
   do_intrinsic(_equalsC,                  java_util_Arrays,       equals_name,    equalsC_signature,             F_S)   \
    do_signature(equalsC_signature,                               "([C[C)Z")                                             \
                                                                                                                         \
-  do_intrinsic(_compareTo,                java_lang_String,       compareTo_name, string_int_signature,          F_R)   \
+  do_class(java_lang_StringLatin1,        "java/lang/StringLatin1")                                                     \
+  do_class(java_lang_StringUTF16,         "java/lang/StringUTF16")                                                      \
+                                                                                                                        \
+  do_intrinsic(_compareToL,               java_lang_StringLatin1, compareTo_name, compareTo_signature,           F_S)   \
+  do_intrinsic(_compareToU,               java_lang_StringUTF16,  compareTo_name, compareTo_signature,           F_S)   \
    do_name(     compareTo_name,                                  "compareTo")                                           \
-  do_intrinsic(_indexOf,                  java_lang_String,       indexOf_name, string_int_signature,            F_R)   \
+   do_signature(compareTo_signature,                             "([B[B)I")                                             \
+  do_intrinsic(_indexOfL,                 java_lang_StringLatin1, indexOf_name,   indexOf_signature,             F_S)   \
+  do_intrinsic(_indexOfU,                 java_lang_StringUTF16,  indexOf_name,   indexOf_signature,             F_S)   \
    do_name(     indexOf_name,                                    "indexOf")                                             \
-  do_intrinsic(_equals,                   java_lang_String,       equals_name, object_boolean_signature,         F_R)   \
+   do_signature(indexOf_signature,                               "([BI[BII)I")                                          \
+  do_intrinsic(_equalsL,                  java_lang_StringLatin1, equals_name,    equalsB_signature,             F_S)   \
+  do_intrinsic(_equalsU,                  java_lang_StringUTF16,  equals_name,    equalsB_signature,             F_S)   \
+   do_signature(equalsB_signature,                               "([B[B)Z")                                             \
                                                                                                                         \
   do_class(java_nio_Buffer,               "java/nio/Buffer")                                                            \
   do_intrinsic(_checkIndex,               java_nio_Buffer,        checkIndex_name, int_int_signature,            F_R)   \
@@ -771,6 +782,17 @@
    do_name(     encodeISOArray_name,                             "encodeISOArray")                                      \
    do_signature(encodeISOArray_signature,                        "([CI[BII)I")                                          \
                                                                                                                         \
+  do_class(sun_nio_cs_iso8859_1_Decoder,  "sun/nio/cs/ISO_8859_1$Decoder")                                              \
+  do_intrinsic(_decodeISOArray,     sun_nio_cs_iso8859_1_Decoder, decodeISOArray_name, decodeArray_signature, F_S)      \
+   do_name(     decodeISOArray_name,                             "decodeISOArray")                                      \
+   do_signature(decodeArray_signature,                           "([BI[CII)I")                                          \
+                                                                                                                        \
+  do_class(sun_nio_cs_US_ASCII,           "sun/nio/cs/US_ASCII")                                                        \
+  do_intrinsic(_decodeASCIIArray,         sun_nio_cs_US_ASCII,    decodeASCIIArray_name, decodeArray_signature,  F_S)   \
+   do_name(     decodeASCIIArray_name,                           "decodeASCIIArray")                                    \
+  do_intrinsic(_encodeASCIIArray,         sun_nio_cs_US_ASCII,    encodeASCIIArray_name, encodeISOArray_signature, F_S) \
+   do_name(     encodeASCIIArray_name,                           "encodeASCIIArray")                                    \
+                                                                                                                        \
   /* java/lang/ref/Reference */                                                                                         \
   do_intrinsic(_Reference_get,            java_lang_ref_Reference, get_name,    void_object_signature, F_R)             \
                                                                                                                         \
@@ -789,6 +811,48 @@
    do_name(     decrypt_name,                                      "decrypt")                                           \
    do_signature(byteArray_int_int_byteArray_int_signature,         "([BII[BI)V")                                        \
                                                                                                                         \
+  do_class(com_sun_crypto_provider_counterMode,                    "com/sun/crypto/provider/CounterMode")               \
+   do_intrinsic(_counterMode_AESCrypt, com_sun_crypto_provider_counterMode, implCrypt_name, byteArray_int_int_byteArray_int_signature, F_R)   \
+   do_name(     implCrypt_name,                                    "implCrypt")                                         \
+                                                                                                                        \
+  do_class(com_sun_crypto_provider_ghash,                          "com/sun/crypto/provider/GHASH")                     \
+   do_intrinsic(_ghash_processBlocks, com_sun_crypto_provider_ghash, processBlocks_name, ghash_processBlocks_signature, F_S)   \
+   do_name(     processBlocks_name,                                "processBlocks")                                     \
+   do_signature(ghash_processBlocks_signature,                     "([BII[J[J)V")                                       \
+                                                                                                                        \
+  /* support for sun.security.provider.SHA2 */                                                                          \
+  do_class(sun_security_provider_sha2,                             "sun/security/provider/SHA2")                        \
+   do_intrinsic(_sha256_implCompress, sun_security_provider_sha2, implCompress0_name, implCompress_signature, F_R)      \
+   do_name(     implCompress0_name,                                "implCompress0")                                     \
+   do_signature(implCompress_signature,                            "([BI)V")                                            \
+                                                                                                                        \
+  do_class(sun_security_provider_sha2MultiBuffer,                  "sun/security/provider/SHA2MultiBuffer")             \
+   do_intrinsic(_sha256_implCompressLanes, sun_security_provider_sha2MultiBuffer, implCompressLanes_name, intArray_intArray_void_signature, F_S) \
+   do_name(     implCompressLanes_name,                            "implCompressLanes")                                 \
+   do_signature(intArray_intArray_void_signature,                  "([I[I)V")                                           \
+                                                                                                                        \
+  /* support for java.math.BigInteger */                                                                               \
+  do_class(java_math_BigInteger,                                   "java/math/BigInteger")                              \
+   do_intrinsic(_multiplyToLen, java_math_BigInteger, multiplyToLen_name, multiplyToLen_signature, F_S)                 \
+   do_name(     multiplyToLen_name,                                "implMultiplyToLen")                                 \
+   do_signature(multiplyToLen_signature,                           "([II[II[I)[I")                                      \
+                                                                                                                        \
+   do_intrinsic(_squareToLen, java_math_BigInteger, squareToLen_name, squareToLen_signature, F_S)                       \
+   do_name(     squareToLen_name,                                  "implSquareToLen")                                   \
+   do_signature(squareToLen_signature,                             "([II[II)[I")                                        \
+                                                                                                                        \
+   do_intrinsic(_mulAdd, java_math_BigInteger, mulAdd_name, mulAdd_signature, F_S)                                      \
+   do_name(     mulAdd_name,                                       "implMulAdd")                                        \
+   do_signature(mulAdd_signature,                                  "([I[IIII)I")                                        \
+                                                                                                                        \
+   do_intrinsic(_montgomeryMultiply, java_math_BigInteger, montgomeryMultiply_name, montgomeryMultiply_signature, F_S)  \
+   do_name(     montgomeryMultiply_name,                           "implMontgomeryMultiply")                            \
+   do_signature(montgomeryMultiply_signature,                      "([I[I[IIJ[I)[I")                                    \
+                                                                                                                        \
+   do_intrinsic(_montgomerySquare, java_math_BigInteger, montgomerySquare_name, montgomerySquare_signature, F_S)        \
+   do_name(     montgomerySquare_name,                             "implMontgomerySquare")                              \
+   do_signature(montgomerySquare_signature,                        "([I[IIJ[I)[I")                                      \
+                                                                                                                        \
   /* support for java.util.zip */                                                                                       \
   do_class(java_util_zip_CRC32,           "java/util/zip/CRC32")                                                        \
   do_intrinsic(_updateCRC32,               java_util_zip_CRC32,   update_name, int2_int_signature,               F_SN)  \
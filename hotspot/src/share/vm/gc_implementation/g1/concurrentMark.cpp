@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2001, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -32,6 +32,7 @@
 #include "gc_implementation/g1/g1Log.hpp"
 #include "gc_implementation/g1/g1OopClosures.inline.hpp"
 #include "gc_implementation/g1/g1RemSet.hpp"
+#include "gc_implementation/g1/g1StringDedup.hpp"
 #include "gc_implementation/g1/heapRegion.inline.hpp"
 #include "gc_implementation/g1/heapRegionRemSet.hpp"
 #include "gc_implementation/g1/heapRegionSeq.inline.hpp"
@@ -2423,6 +2424,71 @@ void G1CMRefProcTaskExecutor::execute(EnqueueTask& enq_task) {
   _g1h->set_par_threads(0);
 }
 
+// Unlinks dead interned strings and unreferenced symbols, with the
+// workers claiming chunks of buckets of both tables.
+class G1StringSymbolTableUnlinkTask : public AbstractGangTask {
+private:
+  BoolObjectClosure* _is_alive;
+
+  int _initial_string_table_size;
+  int _initial_symbol_table_size;
+
+  volatile int _strings_processed;
+  volatile int _strings_removed;
+
+  volatile int _symbols_processed;
+  volatile int _symbols_removed;
+
+public:
+  G1StringSymbolTableUnlinkTask(BoolObjectClosure* is_alive) :
+    AbstractGangTask("String/Symbol Unlinking"),
+    _is_alive(is_alive),
+    _strings_processed(0), _strings_removed(0),
+    _symbols_processed(0), _symbols_removed(0) {
+
+    _initial_string_table_size = StringTable::the_table()->table_size();
+    _initial_symbol_table_size = SymbolTable::the_table()->table_size();
+    StringTable::clear_parallel_claimed_index();
+    SymbolTable::clear_parallel_claimed_index();
+  }
+
+  ~G1StringSymbolTableUnlinkTask() {
+    guarantee(StringTable::parallel_claimed_index() >= _initial_string_table_size,
+              err_msg("claim value %d after unlink less than initial string table size %d",
+                      StringTable::parallel_claimed_index(), _initial_string_table_size));
+    guarantee(SymbolTable::parallel_claimed_index() >= _initial_symbol_table_size,
+              err_msg("claim value %d after unlink less than initial symbol table size %d",
+                      SymbolTable::parallel_claimed_index(), _initial_symbol_table_size));
+
+    if (PrintGCDetails && Verbose && WizardMode) {
+      gclog_or_tty->print(" [Strings: scanned=%d removed=%d]"
+                          " [Symbols: scanned=%d removed=%d] ",
+                          strings_processed(), strings_removed(),
+                          symbols_processed(), symbols_removed());
+    }
+  }
+
+  void work(uint worker_id) {
+    int strings_processed = 0;
+    int strings_removed = 0;
+    StringTable::possibly_parallel_unlink(_is_alive, &strings_processed, &strings_removed);
+    Atomic::add(strings_processed, &_strings_processed);
+    Atomic::add(strings_removed, &_strings_removed);
+
+    int symbols_processed = 0;
+    int symbols_removed = 0;
+    SymbolTable::possibly_parallel_unlink(&symbols_processed, &symbols_removed);
+    Atomic::add(symbols_processed, &_symbols_processed);
+    Atomic::add(symbols_removed, &_symbols_removed);
+  }
+
+  int strings_processed() const { return _strings_processed; }
+  int strings_removed()   const { return _strings_removed; }
+
+  int symbols_processed() const { return _symbols_processed; }
+  int symbols_removed()   const { return _symbols_removed; }
+};
+
 void ConcurrentMark::weakRefsWork(bool clear_all_soft_refs) {
   if (has_overflown()) {
     // Skip processing the discovered references if we have
@@ -2529,10 +2595,21 @@ void ConcurrentMark::weakRefsWork(bool clear_all_soft_refs) {
     assert(!rp->discovery_enabled(), "Post condition");
   }
 
-  // Now clean up stale oops in StringTable
-  StringTable::unlink(&g1_is_alive);
-  // Clean up unreferenced symbols in symbol table.
-  SymbolTable::unlink();
+  // Now clean up stale oops in StringTable and unreferenced symbols
+  // in SymbolTable, in parallel.
+  G1StringSymbolTableUnlinkTask g1_unlink_task(&g1_is_alive);
+  if (G1CollectedHeap::use_parallel_gc_threads()) {
+    uint n_workers = g1h->workers()->active_workers();
+    g1h->set_par_threads((int)n_workers);
+    g1h->workers()->run_task(&g1_unlink_task);
+    g1h->set_par_threads(0);
+  } else {
+    g1_unlink_task.work(0);
+  }
+  // Clean up stale oops in the string deduplication queue and table
+  if (G1StringDedup::is_enabled()) {
+    G1StringDedup::unlink(&g1_is_alive);
+  }
 }
 
 void ConcurrentMark::swapMarkBitMaps() {
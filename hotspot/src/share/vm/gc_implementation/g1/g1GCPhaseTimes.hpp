@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -133,6 +133,7 @@ class G1GCPhaseTimes : public CHeapObj<mtGC> {
   double _cur_strong_code_root_migration_time_ms;
 
   double _cur_clear_ct_time_ms;
+  double _cur_string_dedup_fixup_time_ms;
   double _cur_ref_proc_time_ms;
   double _cur_ref_enq_time_ms;
 
@@ -211,6 +212,10 @@ class G1GCPhaseTimes : public CHeapObj<mtGC> {
     _cur_clear_ct_time_ms = ms;
   }
 
+  void record_string_dedup_fixup_time(double ms) {
+    _cur_string_dedup_fixup_time_ms = ms;
+  }
+
   void record_par_time(double ms) {
     _cur_collection_par_time_ms = ms;
   }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2001, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -31,6 +31,7 @@
 #include "code/icBuffer.hpp"
 #include "gc_implementation/g1/g1Log.hpp"
 #include "gc_implementation/g1/g1MarkSweep.hpp"
+#include "gc_implementation/g1/g1StringDedup.hpp"
 #include "gc_implementation/shared/gcHeapSummary.hpp"
 #include "gc_implementation/shared/gcTimer.hpp"
 #include "gc_implementation/shared/gcTrace.hpp"
@@ -166,6 +167,11 @@ void G1MarkSweep::mark_sweep_phase1(bool& marked_for_unloading,
   // Delete entries for dead interned strings.
   StringTable::unlink(&GenMarkSweep::is_alive);
 
+  // Delete entries for dead strings in the deduplication queue and table.
+  if (G1StringDedup::is_enabled()) {
+    G1StringDedup::unlink(&GenMarkSweep::is_alive);
+  }
+
   // Clean up unreferenced symbols in symbol table.
   SymbolTable::unlink();
 
@@ -324,6 +330,10 @@ void G1MarkSweep::mark_sweep_phase3() {
   // have been cleared if they pointed to non-surviving objects.)
   g1h->g1_process_weak_roots(&GenMarkSweep::adjust_pointer_closure);
 
+  if (G1StringDedup::is_enabled()) {
+    G1StringDedup::oops_do(&GenMarkSweep::adjust_pointer_closure);
+  }
+
   GenMarkSweep::adjust_marks();
 
   G1AdjustPointersClosure blk;
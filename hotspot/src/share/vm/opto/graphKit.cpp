@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2001, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -4060,7 +4060,10 @@ Node* GraphKit::load_String_length(Node* ctrl, Node* str) {
                      basic_plus_adr(str, str, count_offset),
                      TypeInt::INT, T_INT, count_field_idx);
   } else {
-    return load_array_length(load_String_value(ctrl, str));
+    // The value array holds a byte per Latin1 char and two per UTF16 char.
+    Node* len = load_array_length(load_String_value(ctrl, str));
+    Node* coder = load_String_coder(ctrl, str);
+    return _gvn.transform(new (C) RShiftINode(len, coder));
   }
 }
 
@@ -4070,8 +4073,8 @@ Node* GraphKit::load_String_value(Node* ctrl, Node* str) {
                                                      false, NULL, 0);
   const TypePtr* value_field_type = string_type->add_offset(value_offset);
   const TypeAryPtr*  value_type = TypeAryPtr::make(TypePtr::NotNull,
-                                                   TypeAry::make(TypeInt::CHAR,TypeInt::POS),
-                                                   ciTypeArrayKlass::make(T_CHAR), true, 0);
+                                                   TypeAry::make(TypeInt::BYTE,TypeInt::POS),
+                                                   ciTypeArrayKlass::make(T_BYTE), true, 0);
   int value_field_idx = C->get_alias_index(value_field_type);
   Node* load = make_load(ctrl, basic_plus_adr(str, str, value_offset),
                          value_type, T_OBJECT, value_field_idx);
@@ -4082,6 +4085,21 @@ Node* GraphKit::load_String_value(Node* ctrl, Node* str) {
   return load;
 }
 
+Node* GraphKit::load_String_coder(Node* ctrl, Node* str) {
+  if (java_lang_String::has_coder_field()) {
+    int coder_offset = java_lang_String::coder_offset_in_bytes();
+    const TypeInstPtr* string_type = TypeInstPtr::make(TypePtr::NotNull, C->env()->String_klass(),
+                                                       false, NULL, 0);
+    const TypePtr* coder_field_type = string_type->add_offset(coder_offset);
+    int coder_field_idx = C->get_alias_index(coder_field_type);
+    return make_load(ctrl,
+                     basic_plus_adr(str, str, coder_offset),
+                     TypeInt::BYTE, T_BYTE, coder_field_idx);
+  } else {
+    return intcon(java_lang_String::CODER_UTF16);
+  }
+}
+
 void GraphKit::store_String_offset(Node* ctrl, Node* str, Node* value) {
   int offset_offset = java_lang_String::offset_offset_in_bytes();
   const TypeInstPtr* string_type = TypeInstPtr::make(TypePtr::NotNull, C->env()->String_klass(),
@@ -4099,7 +4117,17 @@ void GraphKit::store_String_value(Node* ctrl, Node* str, Node* value) {
   const TypePtr* value_field_type = string_type->add_offset(value_offset);
 
   store_oop_to_object(ctrl, str,  basic_plus_adr(str, value_offset), value_field_type,
-      value, TypeAryPtr::CHARS, T_OBJECT);
+      value, TypeAryPtr::BYTES, T_OBJECT);
+}
+
+void GraphKit::store_String_coder(Node* ctrl, Node* str, Node* value) {
+  int coder_offset = java_lang_String::coder_offset_in_bytes();
+  const TypeInstPtr* string_type = TypeInstPtr::make(TypePtr::NotNull, C->env()->String_klass(),
+                                                     false, NULL, 0);
+  const TypePtr* coder_field_type = string_type->add_offset(coder_offset);
+  int coder_field_idx = C->get_alias_index(coder_field_type);
+  store_to_memory(ctrl, basic_plus_adr(str, coder_offset),
+                  value, T_BYTE, coder_field_idx);
 }
 
 void GraphKit::store_String_length(Node* ctrl, Node* str, Node* value) {
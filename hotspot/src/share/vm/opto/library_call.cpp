@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1999, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1999, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -192,12 +192,11 @@ class LibraryCallKit : public GraphKit {
   }
   Node * load_field_from_object(Node * fromObj, const char * fieldName, const char * fieldTypeString, bool is_exact, bool is_static);
 
-  Node* make_string_method_node(int opcode, Node* str1_start, Node* cnt1, Node* str2_start, Node* cnt2);
-  Node* make_string_method_node(int opcode, Node* str1, Node* str2);
-  bool inline_string_compareTo();
-  bool inline_string_indexOf();
-  Node* string_indexOf(Node* string_object, ciTypeArray* target_array, jint offset, jint cache_i, jint md2_i);
-  bool inline_string_equals();
+  Node* make_string_method_node(int opcode, Node* str1_start, Node* cnt1, Node* str2_start, Node* cnt2, StrIntrinsicNode::ArgEnc ae);
+  Node* string_length(Node* value, StrIntrinsicNode::ArgEnc ae);
+  bool inline_string_compareTo(StrIntrinsicNode::ArgEnc ae);
+  bool inline_string_indexOf(StrIntrinsicNode::ArgEnc ae);
+  bool inline_string_equals(StrIntrinsicNode::ArgEnc ae);
   Node* round_double_node(Node* n);
   bool runtime_math(const TypeFunc* call_type, address funcAddr, const char* funcName);
   bool inline_math_native(vmIntrinsics::ID id);
@@ -303,8 +302,18 @@ class LibraryCallKit : public GraphKit {
   bool inline_aescrypt_Block(vmIntrinsics::ID id);
   bool inline_cipherBlockChaining_AESCrypt(vmIntrinsics::ID id);
   Node* inline_cipherBlockChaining_AESCrypt_predicate(bool decrypting);
+  bool inline_counterMode_AESCrypt();
+  bool inline_ghash_processBlocks();
+  bool inline_sha256_implCompress();
+  bool inline_sha256_implCompressLanes();
+  bool inline_multiplyToLen();
+  bool inline_squareToLen();
+  bool inline_mulAdd();
+  bool inline_montgomeryMultiply();
+  bool inline_montgomerySquare();
   Node* get_key_start_from_aescrypt_object(Node* aescrypt_object);
   bool inline_encodeISOArray();
+  bool inline_charsetArray(vmIntrinsics::ID id);
   bool inline_updateCRC32();
   bool inline_updateBytesCRC32();
   bool inline_updateByteBufferCRC32();
@@ -344,9 +353,12 @@ CallGenerator* Compile::make_vm_intrinsic(ciMethod* m, bool is_virtual) {
   // -XX:-InlineNatives disables nearly all intrinsics:
   if (!InlineNatives) {
     switch (id) {
-    case vmIntrinsics::_indexOf:
-    case vmIntrinsics::_compareTo:
-    case vmIntrinsics::_equals:
+    case vmIntrinsics::_indexOfL:
+    case vmIntrinsics::_indexOfU:
+    case vmIntrinsics::_compareToL:
+    case vmIntrinsics::_compareToU:
+    case vmIntrinsics::_equalsL:
+    case vmIntrinsics::_equalsU:
     case vmIntrinsics::_equalsC:
     case vmIntrinsics::_getAndAddInt:
     case vmIntrinsics::_getAndAddLong:
@@ -368,14 +380,23 @@ CallGenerator* Compile::make_vm_intrinsic(ciMethod* m, bool is_virtual) {
   bool does_virtual_dispatch = false;
 
   switch (id) {
-  case vmIntrinsics::_compareTo:
+  case vmIntrinsics::_compareToL:
+    if (!Matcher::has_latin1_string_intrinsics)  return NULL;
+    // fall through
+  case vmIntrinsics::_compareToU:
     if (!SpecialStringCompareTo)  return NULL;
     if (!Matcher::match_rule_supported(Op_StrComp))  return NULL;
     break;
-  case vmIntrinsics::_indexOf:
+  case vmIntrinsics::_indexOfL:
+    if (!Matcher::has_latin1_string_intrinsics)  return NULL;
+    // fall through
+  case vmIntrinsics::_indexOfU:
     if (!SpecialStringIndexOf)  return NULL;
     break;
-  case vmIntrinsics::_equals:
+  case vmIntrinsics::_equalsL:
+    if (!Matcher::has_latin1_string_intrinsics)  return NULL;
+    // fall through
+  case vmIntrinsics::_equalsU:
     if (!SpecialStringEquals)  return NULL;
     if (!Matcher::match_rule_supported(Op_StrEquals))  return NULL;
     break;
@@ -508,12 +529,56 @@ CallGenerator* Compile::make_vm_intrinsic(ciMethod* m, bool is_virtual) {
     is_predicted = true;
     break;
 
+  case vmIntrinsics::_counterMode_AESCrypt:
+    if (!UseAESCTRIntrinsics) return NULL;
+    // the embedded cipher must be checked, as for CBC
+    is_predicted = true;
+    break;
+
+  case vmIntrinsics::_ghash_processBlocks:
+    if (!UseGHASHIntrinsics) return NULL;
+    break;
+
+  case vmIntrinsics::_sha256_implCompress:
+    if (!UseSHA256Intrinsics) return NULL;
+    break;
+
+  case vmIntrinsics::_sha256_implCompressLanes:
+    if (!UseSHA256MultiBufferIntrinsics) return NULL;
+    break;
+
+  case vmIntrinsics::_multiplyToLen:
+    if (!UseMultiplyToLenIntrinsic) return NULL;
+    break;
+
+  case vmIntrinsics::_squareToLen:
+    if (!UseSquareToLenIntrinsic) return NULL;
+    break;
+
+  case vmIntrinsics::_mulAdd:
+    if (!UseMulAddIntrinsic) return NULL;
+    break;
+
+  case vmIntrinsics::_montgomeryMultiply:
+    if (!UseMontgomeryMultiplyIntrinsic) return NULL;
+    break;
+
+  case vmIntrinsics::_montgomerySquare:
+    if (!UseMontgomerySquareIntrinsic) return NULL;
+    break;
+
   case vmIntrinsics::_updateCRC32:
   case vmIntrinsics::_updateBytesCRC32:
   case vmIntrinsics::_updateByteBufferCRC32:
     if (!UseCRC32Intrinsics) return NULL;
     break;
 
+  case vmIntrinsics::_decodeASCIIArray:
+  case vmIntrinsics::_decodeISOArray:
+  case vmIntrinsics::_encodeASCIIArray:
+    if (!UseCharsetIntrinsics) return NULL;
+    break;
+
   case vmIntrinsics::_incrementExactI:
   case vmIntrinsics::_addExactI:
     if (!Matcher::match_rule_supported(Op_AddExactI) || !UseMathExactIntrinsics) return NULL;
@@ -728,9 +793,12 @@ bool LibraryCallKit::try_to_inline() {
 
   case vmIntrinsics::_arraycopy:                return inline_arraycopy();
 
-  case vmIntrinsics::_compareTo:                return inline_string_compareTo();
-  case vmIntrinsics::_indexOf:                  return inline_string_indexOf();
-  case vmIntrinsics::_equals:                   return inline_string_equals();
+  case vmIntrinsics::_compareToL:               return inline_string_compareTo(StrIntrinsicNode::LL);
+  case vmIntrinsics::_compareToU:               return inline_string_compareTo(StrIntrinsicNode::UU);
+  case vmIntrinsics::_indexOfL:                 return inline_string_indexOf(StrIntrinsicNode::LL);
+  case vmIntrinsics::_indexOfU:                 return inline_string_indexOf(StrIntrinsicNode::UU);
+  case vmIntrinsics::_equalsL:                  return inline_string_equals(StrIntrinsicNode::LL);
+  case vmIntrinsics::_equalsU:                  return inline_string_equals(StrIntrinsicNode::UU);
 
   case vmIntrinsics::_getObject:                return inline_unsafe_access(!is_native_ptr, !is_store, T_OBJECT,  !is_volatile);
   case vmIntrinsics::_getBoolean:               return inline_unsafe_access(!is_native_ptr, !is_store, T_BOOLEAN, !is_volatile);
@@ -872,9 +940,41 @@ bool LibraryCallKit::try_to_inline() {
   case vmIntrinsics::_cipherBlockChaining_decryptAESCrypt:
     return inline_cipherBlockChaining_AESCrypt(intrinsic_id());
 
+  case vmIntrinsics::_counterMode_AESCrypt:
+    return inline_counterMode_AESCrypt();
+
+  case vmIntrinsics::_ghash_processBlocks:
+    return inline_ghash_processBlocks();
+
+  case vmIntrinsics::_sha256_implCompress:
+    return inline_sha256_implCompress();
+
+  case vmIntrinsics::_sha256_implCompressLanes:
+    return inline_sha256_implCompressLanes();
+
+  case vmIntrinsics::_multiplyToLen:
+    return inline_multiplyToLen();
+
+  case vmIntrinsics::_squareToLen:
+    return inline_squareToLen();
+
+  case vmIntrinsics::_mulAdd:
+    return inline_mulAdd();
+
+  case vmIntrinsics::_montgomeryMultiply:
+    return inline_montgomeryMultiply();
+
+  case vmIntrinsics::_montgomerySquare:
+    return inline_montgomerySquare();
+
   case vmIntrinsics::_encodeISOArray:
     return inline_encodeISOArray();
 
+  case vmIntrinsics::_decodeASCIIArray:
+  case vmIntrinsics::_decodeISOArray:
+  case vmIntrinsics::_encodeASCIIArray:
+    return inline_charsetArray(intrinsic_id());
+
   case vmIntrinsics::_updateCRC32:
     return inline_updateCRC32();
   case vmIntrinsics::_updateBytesCRC32:
@@ -909,6 +1009,10 @@ Node* LibraryCallKit::try_to_predicate() {
     return inline_cipherBlockChaining_AESCrypt_predicate(false);
   case vmIntrinsics::_cipherBlockChaining_decryptAESCrypt:
     return inline_cipherBlockChaining_AESCrypt_predicate(true);
+  case vmIntrinsics::_counterMode_AESCrypt:
+    // CTR only needs the embeddedCipher instanceof AESCrypt check, since
+    // CipherCore copies the input when it is also the output buffer
+    return inline_cipherBlockChaining_AESCrypt_predicate(false);
 
   default:
     // If you get here, it may be that someone has added a new intrinsic
@@ -1064,45 +1168,25 @@ Node* LibraryCallKit::generate_current_thread(Node* &tls_output) {
 
 
 //------------------------------make_string_method_node------------------------
-// Helper method for String intrinsic functions. This version is called
-// with str1 and str2 pointing to String object nodes.
+// Helper method for String intrinsic functions. This version is called with
+// str1 and str2 pointing to byte[] elements and cnt1 and cnt2 pointing to Int
+// nodes containing the lengths of str1 and str2 in characters (bytes for
+// Latin1 strings, chars for UTF16 strings).
 //
-Node* LibraryCallKit::make_string_method_node(int opcode, Node* str1, Node* str2) {
-  Node* no_ctrl = NULL;
-
-  // Get start addr of string
-  Node* str1_value   = load_String_value(no_ctrl, str1);
-  Node* str1_offset  = load_String_offset(no_ctrl, str1);
-  Node* str1_start   = array_element_address(str1_value, str1_offset, T_CHAR);
-
-  // Get length of string 1
-  Node* str1_len  = load_String_length(no_ctrl, str1);
-
-  Node* str2_value   = load_String_value(no_ctrl, str2);
-  Node* str2_offset  = load_String_offset(no_ctrl, str2);
-  Node* str2_start   = array_element_address(str2_value, str2_offset, T_CHAR);
-
-  Node* str2_len = NULL;
+Node* LibraryCallKit::make_string_method_node(int opcode, Node* str1_start, Node* cnt1, Node* str2_start, Node* cnt2, StrIntrinsicNode::ArgEnc ae) {
   Node* result = NULL;
-
   switch (opcode) {
   case Op_StrIndexOf:
-    // Get length of string 2
-    str2_len = load_String_length(no_ctrl, str2);
-
-    result = new (C) StrIndexOfNode(control(), memory(TypeAryPtr::CHARS),
-                                 str1_start, str1_len, str2_start, str2_len);
+    result = new (C) StrIndexOfNode(control(), memory(TypeAryPtr::BYTES),
+                                    str1_start, cnt1, str2_start, cnt2, ae);
     break;
   case Op_StrComp:
-    // Get length of string 2
-    str2_len = load_String_length(no_ctrl, str2);
-
-    result = new (C) StrCompNode(control(), memory(TypeAryPtr::CHARS),
-                                 str1_start, str1_len, str2_start, str2_len);
+    result = new (C) StrCompNode(control(), memory(TypeAryPtr::BYTES),
+                                 str1_start, cnt1, str2_start, cnt2, ae);
     break;
   case Op_StrEquals:
-    result = new (C) StrEqualsNode(control(), memory(TypeAryPtr::CHARS),
-                               str1_start, str2_start, str1_len);
+    result = new (C) StrEqualsNode(control(), memory(TypeAryPtr::BYTES),
+                                   str1_start, str2_start, cnt1, ae);
     break;
   default:
     ShouldNotReachHere();
@@ -1115,132 +1199,71 @@ Node* LibraryCallKit::make_string_method_node(int opcode, Node* str1, Node* str2
   return _gvn.transform(result);
 }
 
-// Helper method for String intrinsic functions. This version is called
-// with str1 and str2 pointing to char[] nodes, with cnt1 and cnt2 pointing
-// to Int nodes containing the lenghts of str1 and str2.
-//
-Node* LibraryCallKit::make_string_method_node(int opcode, Node* str1_start, Node* cnt1, Node* str2_start, Node* cnt2) {
-  Node* result = NULL;
-  switch (opcode) {
-  case Op_StrIndexOf:
-    result = new (C) StrIndexOfNode(control(), memory(TypeAryPtr::CHARS),
-                                 str1_start, cnt1, str2_start, cnt2);
-    break;
-  case Op_StrComp:
-    result = new (C) StrCompNode(control(), memory(TypeAryPtr::CHARS),
-                                 str1_start, cnt1, str2_start, cnt2);
-    break;
-  case Op_StrEquals:
-    result = new (C) StrEqualsNode(control(), memory(TypeAryPtr::CHARS),
-                                 str1_start, str2_start, cnt1);
-    break;
-  default:
-    ShouldNotReachHere();
-    return NULL;
+//------------------------------string_length----------------------------------
+// Length in characters of a Latin1 or UTF16 byte[] string value.
+Node* LibraryCallKit::string_length(Node* value, StrIntrinsicNode::ArgEnc ae) {
+  Node* len = load_array_length(value);
+  if (ae == StrIntrinsicNode::UU) {
+    len = _gvn.transform(new (C) RShiftINode(len, intcon(1)));
   }
-
-  // All these intrinsics have checks.
-  C->set_has_split_ifs(true); // Has chance for split-if optimization
-
-  return _gvn.transform(result);
+  return len;
 }
 
 //------------------------------inline_string_compareTo------------------------
-// public int java.lang.String.compareTo(String anotherString);
-bool LibraryCallKit::inline_string_compareTo() {
-  Node* receiver = null_check(argument(0));
-  Node* arg      = null_check(argument(1));
+// static int StringLatin1.compareTo(byte[] value, byte[] other);
+// static int StringUTF16.compareTo(byte[] value, byte[] other);
+bool LibraryCallKit::inline_string_compareTo(StrIntrinsicNode::ArgEnc ae) {
+  Node* arg1 = null_check(argument(0));
+  Node* arg2 = null_check(argument(1));
   if (stopped()) {
     return true;
   }
-  set_result(make_string_method_node(Op_StrComp, receiver, arg));
+
+  Node* arg1_start = array_element_address(arg1, intcon(0), T_BYTE);
+  Node* arg1_cnt   = string_length(arg1, ae);
+  Node* arg2_start = array_element_address(arg2, intcon(0), T_BYTE);
+  Node* arg2_cnt   = string_length(arg2, ae);
+
+  set_result(make_string_method_node(Op_StrComp, arg1_start, arg1_cnt, arg2_start, arg2_cnt, ae));
   return true;
 }
 
 //------------------------------inline_string_equals------------------------
-bool LibraryCallKit::inline_string_equals() {
-  Node* receiver = null_check_receiver();
-  // NOTE: Do not null check argument for String.equals() because spec
-  // allows to specify NULL as argument.
-  Node* argument = this->argument(1);
+// static boolean StringLatin1.equals(byte[] value, byte[] other);
+// static boolean StringUTF16.equals(byte[] value, byte[] other);
+bool LibraryCallKit::inline_string_equals(StrIntrinsicNode::ArgEnc ae) {
+  Node* arg1 = null_check(argument(0));
+  Node* arg2 = null_check(argument(1));
   if (stopped()) {
     return true;
   }
 
   // paths (plus control) merge
-  RegionNode* region = new (C) RegionNode(5);
+  RegionNode* region = new (C) RegionNode(3);
   Node* phi = new (C) PhiNode(region, TypeInt::BOOL);
 
-  // does source == target string?
-  Node* cmp = _gvn.transform(new (C) CmpPNode(receiver, argument));
-  Node* bol = _gvn.transform(new (C) BoolNode(cmp, BoolTest::eq));
+  // Get start addr and length of both arrays
+  Node* arg1_start = array_element_address(arg1, intcon(0), T_BYTE);
+  Node* arg1_cnt   = load_array_length(arg1);
+  Node* arg2_start = array_element_address(arg2, intcon(0), T_BYTE);
+  Node* arg2_cnt   = load_array_length(arg2);
 
-  Node* if_eq = generate_slow_guard(bol, NULL);
-  if (if_eq != NULL) {
-    // receiver == argument
-    phi->init_req(2, intcon(1));
-    region->init_req(2, if_eq);
+  // Check for arg1 length != arg2 length
+  Node* cmp = _gvn.transform(new (C) CmpINode(arg1_cnt, arg2_cnt));
+  Node* bol = _gvn.transform(new (C) BoolNode(cmp, BoolTest::ne));
+  Node* if_ne = generate_slow_guard(bol, NULL);
+  if (if_ne != NULL) {
+    phi->init_req(2, intcon(0));
+    region->init_req(2, if_ne);
   }
 
-  // get String klass for instanceOf
-  ciInstanceKlass* klass = env()->String_klass();
-
-  if (!stopped()) {
-    Node* inst = gen_instanceof(argument, makecon(TypeKlassPtr::make(klass)));
-    Node* cmp  = _gvn.transform(new (C) CmpINode(inst, intcon(1)));
-    Node* bol  = _gvn.transform(new (C) BoolNode(cmp, BoolTest::ne));
-
-    Node* inst_false = generate_guard(bol, NULL, PROB_MIN);
-    //instanceOf == true, fallthrough
-
-    if (inst_false != NULL) {
-      phi->init_req(3, intcon(0));
-      region->init_req(3, inst_false);
-    }
-  }
+  // Check for count == 0 is done by assembler code for StrEquals.
 
   if (!stopped()) {
-    const TypeOopPtr* string_type = TypeOopPtr::make_from_klass(klass);
-
-    // Properly cast the argument to String
-    argument = _gvn.transform(new (C) CheckCastPPNode(control(), argument, string_type));
-    // This path is taken only when argument's type is String:NotNull.
-    argument = cast_not_null(argument, false);
-
-    Node* no_ctrl = NULL;
-
-    // Get start addr of receiver
-    Node* receiver_val    = load_String_value(no_ctrl, receiver);
-    Node* receiver_offset = load_String_offset(no_ctrl, receiver);
-    Node* receiver_start = array_element_address(receiver_val, receiver_offset, T_CHAR);
-
-    // Get length of receiver
-    Node* receiver_cnt  = load_String_length(no_ctrl, receiver);
-
-    // Get start addr of argument
-    Node* argument_val    = load_String_value(no_ctrl, argument);
-    Node* argument_offset = load_String_offset(no_ctrl, argument);
-    Node* argument_start = array_element_address(argument_val, argument_offset, T_CHAR);
-
-    // Get length of argument
-    Node* argument_cnt  = load_String_length(no_ctrl, argument);
-
-    // Check for receiver count != argument count
-    Node* cmp = _gvn.transform(new(C) CmpINode(receiver_cnt, argument_cnt));
-    Node* bol = _gvn.transform(new(C) BoolNode(cmp, BoolTest::ne));
-    Node* if_ne = generate_slow_guard(bol, NULL);
-    if (if_ne != NULL) {
-      phi->init_req(4, intcon(0));
-      region->init_req(4, if_ne);
-    }
-
-    // Check for count == 0 is done by assembler code for StrEquals.
-
-    if (!stopped()) {
-      Node* equals = make_string_method_node(Op_StrEquals, receiver_start, receiver_cnt, argument_start, argument_cnt);
-      phi->init_req(1, equals);
-      region->init_req(1, control());
-    }
+    Node* cnt = string_length(arg1, ae);
+    Node* equals = make_string_method_node(Op_StrEquals, arg1_start, cnt, arg2_start, cnt, ae);
+    phi->init_req(1, equals);
+    region->init_req(1, control());
   }
 
   // post merge
@@ -1259,288 +1282,70 @@ bool LibraryCallKit::inline_array_equals() {
   return true;
 }
 
-// Java version of String.indexOf(constant string)
-// class StringDecl {
-//   StringDecl(char[] ca) {
-//     offset = 0;
-//     count = ca.length;
-//     value = ca;
-//   }
-//   int offset;
-//   int count;
-//   char[] value;
-// }
-//
-// static int string_indexOf_J(StringDecl string_object, char[] target_object,
-//                             int targetOffset, int cache_i, int md2) {
-//   int cache = cache_i;
-//   int sourceOffset = string_object.offset;
-//   int sourceCount = string_object.count;
-//   int targetCount = target_object.length;
-//
-//   int targetCountLess1 = targetCount - 1;
-//   int sourceEnd = sourceOffset + sourceCount - targetCountLess1;
-//
-//   char[] source = string_object.value;
-//   char[] target = target_object;
-//   int lastChar = target[targetCountLess1];
-//
-//  outer_loop:
-//   for (int i = sourceOffset; i < sourceEnd; ) {
-//     int src = source[i + targetCountLess1];
-//     if (src == lastChar) {
-//       // With random strings and a 4-character alphabet,
-//       // reverse matching at this point sets up 0.8% fewer
-//       // frames, but (paradoxically) makes 0.3% more probes.
-//       // Since those probes are nearer the lastChar probe,
-//       // there is may be a net D$ win with reverse matching.
-//       // But, reversing loop inhibits unroll of inner loop
-//       // for unknown reason.  So, does running outer loop from
-//       // (sourceOffset - targetCountLess1) to (sourceOffset + sourceCount)
-//       for (int j = 0; j < targetCountLess1; j++) {
-//         if (target[targetOffset + j] != source[i+j]) {
-//           if ((cache & (1 << source[i+j])) == 0) {
-//             if (md2 < j+1) {
-//               i += j+1;
-//               continue outer_loop;
-//             }
-//           }
-//           i += md2;
-//           continue outer_loop;
-//         }
-//       }
-//       return i - sourceOffset;
-//     }
-//     if ((cache & (1 << src)) == 0) {
-//       i += targetCountLess1;
-//     } // using "i += targetCount;" and an "else i++;" causes a jump to jump.
-//     i++;
-//   }
-//   return -1;
-// }
-
-//------------------------------string_indexOf------------------------
-Node* LibraryCallKit::string_indexOf(Node* string_object, ciTypeArray* target_array, jint targetOffset_i,
-                                     jint cache_i, jint md2_i) {
-
-  Node* no_ctrl  = NULL;
-  float likely   = PROB_LIKELY(0.9);
-  float unlikely = PROB_UNLIKELY(0.9);
-
-  const int nargs = 0; // no arguments to push back for uncommon trap in predicate
-
-  Node* source        = load_String_value(no_ctrl, string_object);
-  Node* sourceOffset  = load_String_offset(no_ctrl, string_object);
-  Node* sourceCount   = load_String_length(no_ctrl, string_object);
-
-  Node* target = _gvn.transform( makecon(TypeOopPtr::make_from_constant(target_array, true)));
-  jint target_length = target_array->length();
-  const TypeAry* target_array_type = TypeAry::make(TypeInt::CHAR, TypeInt::make(0, target_length, Type::WidenMin));
-  const TypeAryPtr* target_type = TypeAryPtr::make(TypePtr::BotPTR, target_array_type, target_array->klass(), true, Type::OffsetBot);
-
-  // String.value field is known to be @Stable.
-  if (UseImplicitStableValues) {
-    target = cast_array_to_stable(target, target_type);
-  }
-
-  IdealKit kit(this, false, true);
-#define __ kit.
-  Node* zero             = __ ConI(0);
-  Node* one              = __ ConI(1);
-  Node* cache            = __ ConI(cache_i);
-  Node* md2              = __ ConI(md2_i);
-  Node* lastChar         = __ ConI(target_array->char_at(target_length - 1));
-  Node* targetCount      = __ ConI(target_length);
-  Node* targetCountLess1 = __ ConI(target_length - 1);
-  Node* targetOffset     = __ ConI(targetOffset_i);
-  Node* sourceEnd        = __ SubI(__ AddI(sourceOffset, sourceCount), targetCountLess1);
-
-  IdealVariable rtn(kit), i(kit), j(kit); __ declarations_done();
-  Node* outer_loop = __ make_label(2 /* goto */);
-  Node* return_    = __ make_label(1);
-
-  __ set(rtn,__ ConI(-1));
-  __ loop(this, nargs, i, sourceOffset, BoolTest::lt, sourceEnd); {
-       Node* i2  = __ AddI(__ value(i), targetCountLess1);
-       // pin to prohibit loading of "next iteration" value which may SEGV (rare)
-       Node* src = load_array_element(__ ctrl(), source, i2, TypeAryPtr::CHARS);
-       __ if_then(src, BoolTest::eq, lastChar, unlikely); {
-         __ loop(this, nargs, j, zero, BoolTest::lt, targetCountLess1); {
-              Node* tpj = __ AddI(targetOffset, __ value(j));
-              Node* targ = load_array_element(no_ctrl, target, tpj, target_type);
-              Node* ipj  = __ AddI(__ value(i), __ value(j));
-              Node* src2 = load_array_element(no_ctrl, source, ipj, TypeAryPtr::CHARS);
-              __ if_then(targ, BoolTest::ne, src2); {
-                __ if_then(__ AndI(cache, __ LShiftI(one, src2)), BoolTest::eq, zero); {
-                  __ if_then(md2, BoolTest::lt, __ AddI(__ value(j), one)); {
-                    __ increment(i, __ AddI(__ value(j), one));
-                    __ goto_(outer_loop);
-                  } __ end_if(); __ dead(j);
-                }__ end_if(); __ dead(j);
-                __ increment(i, md2);
-                __ goto_(outer_loop);
-              }__ end_if();
-              __ increment(j, one);
-         }__ end_loop(); __ dead(j);
-         __ set(rtn, __ SubI(__ value(i), sourceOffset)); __ dead(i);
-         __ goto_(return_);
-       }__ end_if();
-       __ if_then(__ AndI(cache, __ LShiftI(one, src)), BoolTest::eq, zero, likely); {
-         __ increment(i, targetCountLess1);
-       }__ end_if();
-       __ increment(i, one);
-       __ bind(outer_loop);
-  }__ end_loop(); __ dead(i);
-  __ bind(return_);
-
-  // Final sync IdealKit and GraphKit.
-  final_sync(kit);
-  Node* result = __ value(rtn);
-#undef __
-  C->set_has_loops(true);
-  return result;
-}
-
 //------------------------------inline_string_indexOf------------------------
-bool LibraryCallKit::inline_string_indexOf() {
-  Node* receiver = argument(0);
-  Node* arg      = argument(1);
-
-  Node* result;
+// static int StringLatin1.indexOf(byte[] src, int srcCount, byte[] tgt, int tgtCount, int fromIndex);
+// static int StringUTF16.indexOf(byte[] src, int srcCount, byte[] tgt, int tgtCount, int fromIndex);
+//
+// The Java callers have already checked that the target is not empty, that
+// fromIndex is within [0, srcCount] and that the counts fit the arrays.
+bool LibraryCallKit::inline_string_indexOf(StrIntrinsicNode::ArgEnc ae) {
   // Disable the use of pcmpestri until it can be guaranteed that
   // the load doesn't cross into the uncommited space.
-  if (Matcher::has_match_rule(Op_StrIndexOf) &&
-      UseSSE42Intrinsics) {
-    // Generate SSE4.2 version of indexOf
-    // We currently only have match rules that use SSE4.2
+  // We currently only have match rules that use SSE4.2
+  if (!Matcher::has_match_rule(Op_StrIndexOf) || !UseSSE42Intrinsics) {
+    return false;
+  }
 
-    receiver = null_check(receiver);
-    arg      = null_check(arg);
-    if (stopped()) {
-      return true;
-    }
+  Node* src        = null_check(argument(0));
+  Node* src_count  = argument(1);
+  Node* tgt        = null_check(argument(2));
+  Node* tgt_count  = argument(3);
+  Node* from_index = argument(4);
+  if (stopped()) {
+    return true;
+  }
 
-    ciInstanceKlass* str_klass = env()->String_klass();
-    const TypeOopPtr* string_type = TypeOopPtr::make_from_klass(str_klass);
+  // Search only the part of the source after from_index
+  src_count = _gvn.transform(new (C) SubINode(src_count, from_index));
+  Node* src_offset = from_index;
+  if (ae == StrIntrinsicNode::UU) {
+    src_offset = _gvn.transform(new (C) LShiftINode(from_index, intcon(1)));
+  }
+  Node* src_start = array_element_address(src, src_offset, T_BYTE);
+  Node* tgt_start = array_element_address(tgt, intcon(0), T_BYTE);
 
-    // Make the merge point
-    RegionNode* result_rgn = new (C) RegionNode(4);
-    Node*       result_phi = new (C) PhiNode(result_rgn, TypeInt::INT);
-    Node* no_ctrl  = NULL;
-
-    // Get start addr of source string
-    Node* source = load_String_value(no_ctrl, receiver);
-    Node* source_offset = load_String_offset(no_ctrl, receiver);
-    Node* source_start = array_element_address(source, source_offset, T_CHAR);
-
-    // Get length of source string
-    Node* source_cnt  = load_String_length(no_ctrl, receiver);
-
-    // Get start addr of substring
-    Node* substr = load_String_value(no_ctrl, arg);
-    Node* substr_offset = load_String_offset(no_ctrl, arg);
-    Node* substr_start = array_element_address(substr, substr_offset, T_CHAR);
-
-    // Get length of source string
-    Node* substr_cnt  = load_String_length(no_ctrl, arg);
-
-    // Check for substr count > string count
-    Node* cmp = _gvn.transform(new(C) CmpINode(substr_cnt, source_cnt));
-    Node* bol = _gvn.transform(new(C) BoolNode(cmp, BoolTest::gt));
-    Node* if_gt = generate_slow_guard(bol, NULL);
-    if (if_gt != NULL) {
-      result_phi->init_req(2, intcon(-1));
-      result_rgn->init_req(2, if_gt);
-    }
+  // Make the merge point
+  RegionNode* result_rgn = new (C) RegionNode(4);
+  Node*       result_phi = new (C) PhiNode(result_rgn, TypeInt::INT);
 
-    if (!stopped()) {
-      // Check for substr count == 0
-      cmp = _gvn.transform(new(C) CmpINode(substr_cnt, intcon(0)));
-      bol = _gvn.transform(new(C) BoolNode(cmp, BoolTest::eq));
-      Node* if_zero = generate_slow_guard(bol, NULL);
-      if (if_zero != NULL) {
-        result_phi->init_req(3, intcon(0));
-        result_rgn->init_req(3, if_zero);
-      }
-    }
+  // Check for substr count > string count
+  Node* cmp = _gvn.transform(new (C) CmpINode(tgt_count, src_count));
+  Node* bol = _gvn.transform(new (C) BoolNode(cmp, BoolTest::gt));
+  Node* if_gt = generate_slow_guard(bol, NULL);
+  if (if_gt != NULL) {
+    result_phi->init_req(2, intcon(-1));
+    result_rgn->init_req(2, if_gt);
+  }
 
+  if (!stopped()) {
+    Node* result = make_string_method_node(Op_StrIndexOf, src_start, src_count, tgt_start, tgt_count, ae);
+
+    // The result is relative to from_index unless the target was not found.
+    cmp = _gvn.transform(new (C) CmpINode(result, intcon(0)));
+    bol = _gvn.transform(new (C) BoolNode(cmp, BoolTest::lt));
+    Node* if_lt = generate_guard(bol, NULL, PROB_FAIR);
+    if (if_lt != NULL) {
+      result_phi->init_req(3, result);
+      result_rgn->init_req(3, if_lt);
+    }
     if (!stopped()) {
-      result = make_string_method_node(Op_StrIndexOf, source_start, source_cnt, substr_start, substr_cnt);
-      result_phi->init_req(1, result);
+      result_phi->init_req(1, _gvn.transform(new (C) AddINode(result, from_index)));
       result_rgn->init_req(1, control());
     }
-    set_control(_gvn.transform(result_rgn));
-    record_for_igvn(result_rgn);
-    result = _gvn.transform(result_phi);
-
-  } else { // Use LibraryCallKit::string_indexOf
-    // don't intrinsify if argument isn't a constant string.
-    if (!arg->is_Con()) {
-     return false;
-    }
-    const TypeOopPtr* str_type = _gvn.type(arg)->isa_oopptr();
-    if (str_type == NULL) {
-      return false;
-    }
-    ciInstanceKlass* klass = env()->String_klass();
-    ciObject* str_const = str_type->const_oop();
-    if (str_const == NULL || str_const->klass() != klass) {
-      return false;
-    }
-    ciInstance* str = str_const->as_instance();
-    assert(str != NULL, "must be instance");
-
-    ciObject* v = str->field_value_by_offset(java_lang_String::value_offset_in_bytes()).as_object();
-    ciTypeArray* pat = v->as_type_array(); // pattern (argument) character array
-
-    int o;
-    int c;
-    if (java_lang_String::has_offset_field()) {
-      o = str->field_value_by_offset(java_lang_String::offset_offset_in_bytes()).as_int();
-      c = str->field_value_by_offset(java_lang_String::count_offset_in_bytes()).as_int();
-    } else {
-      o = 0;
-      c = pat->length();
-    }
-
-    // constant strings have no offset and count == length which
-    // simplifies the resulting code somewhat so lets optimize for that.
-    if (o != 0 || c != pat->length()) {
-     return false;
-    }
-
-    receiver = null_check(receiver, T_OBJECT);
-    // NOTE: No null check on the argument is needed since it's a constant String oop.
-    if (stopped()) {
-      return true;
-    }
-
-    // The null string as a pattern always returns 0 (match at beginning of string)
-    if (c == 0) {
-      set_result(intcon(0));
-      return true;
-    }
-
-    // Generate default indexOf
-    jchar lastChar = pat->char_at(o + (c - 1));
-    int cache = 0;
-    int i;
-    for (i = 0; i < c - 1; i++) {
-      assert(i < pat->length(), "out of range");
-      cache |= (1 << (pat->char_at(o + i) & (sizeof(cache) * BitsPerByte - 1)));
-    }
-
-    int md2 = c;
-    for (i = 0; i < c - 1; i++) {
-      assert(i < pat->length(), "out of range");
-      if (pat->char_at(o + i) == lastChar) {
-        md2 = (c - 1) - i;
-      }
-    }
-
-    result = string_indexOf(receiver, pat, o, cache, md2);
   }
-  set_result(result);
+  set_control(_gvn.transform(result_rgn));
+  record_for_igvn(result_rgn);
+  set_result(_gvn.transform(result_phi));
   return true;
 }
 
@@ -5711,6 +5516,76 @@ bool LibraryCallKit::inline_encodeISOArray() {
   return true;
 }
 
+//-------------inline_charsetArray-------------------------------------
+// int sun.nio.cs.US_ASCII.decodeASCIIArray(byte[] sa, int sp, char[] da, int dp, int len)
+// int sun.nio.cs.ISO_8859_1$Decoder.decodeISOArray(byte[] sa, int sp, char[] da, int dp, int len)
+// int sun.nio.cs.US_ASCII.encodeASCIIArray(char[] sa, int sp, byte[] da, int dp, int len)
+bool LibraryCallKit::inline_charsetArray(vmIntrinsics::ID id) {
+  assert(UseCharsetIntrinsics, "need SSE4.2 instructions support");
+  assert(callee()->signature()->size() == 5, "charset array coding has 5 parameters");
+  // no receiver since it is static method
+  Node *src         = argument(0);
+  Node *src_offset  = argument(1);
+  Node *dst         = argument(2);
+  Node *dst_offset  = argument(3);
+  Node *length      = argument(4);
+
+  address stubAddr = NULL;
+  const char *stubName = NULL;
+  BasicType src_elem_expected = T_BYTE;
+  BasicType dst_elem_expected = T_CHAR;
+  switch (id) {
+  case vmIntrinsics::_decodeASCIIArray:
+    stubAddr = StubRoutines::decodeASCIIArray();
+    stubName = "decodeASCIIArray";
+    break;
+  case vmIntrinsics::_decodeISOArray:
+    stubAddr = StubRoutines::decodeISOArray();
+    stubName = "decodeISOArray";
+    break;
+  case vmIntrinsics::_encodeASCIIArray:
+    stubAddr = StubRoutines::encodeASCIIArray();
+    stubName = "encodeASCIIArray";
+    src_elem_expected = T_CHAR;
+    dst_elem_expected = T_BYTE;
+    break;
+  default:
+    ShouldNotReachHere();
+  }
+  if (stubAddr == NULL) return false;
+
+  const Type* src_type = src->Value(&_gvn);
+  const Type* dst_type = dst->Value(&_gvn);
+  const TypeAryPtr* top_src = src_type->isa_aryptr();
+  const TypeAryPtr* top_dest = dst_type->isa_aryptr();
+  if (top_src  == NULL || top_src->klass()  == NULL ||
+      top_dest == NULL || top_dest->klass() == NULL) {
+    // failed array check
+    return false;
+  }
+
+  // Figure out the size and type of the elements we will be copying.
+  BasicType src_elem = src_type->isa_aryptr()->klass()->as_array_klass()->element_type()->basic_type();
+  BasicType dst_elem = dst_type->isa_aryptr()->klass()->as_array_klass()->element_type()->basic_type();
+  if (src_elem != src_elem_expected || dst_elem != dst_elem_expected) {
+    return false;
+  }
+  Node* src_start = array_element_address(src, src_offset, src_elem);
+  Node* dst_start = array_element_address(dst, dst_offset, dst_elem);
+  // 'src_start' points to src array + scaled offset
+  // 'dst_start' points to dst array + scaled offset
+
+  // We assume that range check is done by caller.
+
+  // Call the stub.
+  Node* call = make_runtime_call(RC_LEAF|RC_NO_FP, OptoRuntime::charsetArray_Type(),
+                                 stubAddr, stubName, TypePtr::BOTTOM,
+                                 src_start, dst_start, length);
+  Node* result = _gvn.transform(new (C) ProjNode(call, TypeFunc::Parms));
+  set_result(result);
+  return true;
+}
+
 /**
  * Calculate CRC32 for byte.
  * int java.util.zip.CRC32.update(int crc, int b)
@@ -6028,6 +5903,357 @@ bool LibraryCallKit::inline_cipherBlockChaining_AESCrypt(vmIntrinsics::ID id) {
   return true;
 }
 
+//------------------------------inline_counterMode_AESCrypt-----------------------
+// void com.sun.crypto.provider.CounterMode.implCrypt(byte[] in, int inOff, int len, byte[] out, int outOff)
+bool LibraryCallKit::inline_counterMode_AESCrypt() {
+  assert(UseAES, "need AES instruction support");
+
+  address stubAddr = StubRoutines::counterMode_AESCrypt();
+  const char *stubName = "counterMode_AESCrypt";
+  if (stubAddr == NULL) return false;
+
+  Node* counterMode_object = argument(0);
+  Node* src                = argument(1);
+  Node* src_offset         = argument(2);
+  Node* len                = argument(3);
+  Node* dest               = argument(4);
+  Node* dest_offset        = argument(5);
+
+  // (1) src and dest are arrays.
+  const Type* src_type = src->Value(&_gvn);
+  const Type* dest_type = dest->Value(&_gvn);
+  const TypeAryPtr* top_src = src_type->isa_aryptr();
+  const TypeAryPtr* top_dest = dest_type->isa_aryptr();
+  assert (top_src  != NULL && top_src->klass()  != NULL
+          &&  top_dest != NULL && top_dest->klass() != NULL, "args are strange");
+
+  // checks are the responsibility of the caller
+  Node* src_start  = array_element_address(src,  src_offset,  T_BYTE);
+  Node* dest_start = array_element_address(dest, dest_offset, T_BYTE);
+
+  // if we are in this set of code, we "know" the embeddedCipher is an AESCrypt object
+  // (because of the predicated logic executed earlier).
+  // so we cast it here safely.
+  Node* embeddedCipherObj = load_field_from_object(counterMode_object, "embeddedCipher", "Lcom/sun/crypto/provider/SymmetricCipher;", /*is_exact*/ false);
+  if (embeddedCipherObj == NULL) return false;
+
+  // cast it to what we know it will be at runtime
+  const TypeInstPtr* tinst = _gvn.type(counterMode_object)->isa_instptr();
+  assert(tinst != NULL, "CTR obj is null");
+  assert(tinst->klass()->is_loaded(), "CTR obj is not loaded");
+  ciKlass* klass_AESCrypt = tinst->klass()->as_instance_klass()->find_klass(ciSymbol::make("com/sun/crypto/provider/AESCrypt"));
+  if (!klass_AESCrypt->is_loaded()) return false;
+
+  ciInstanceKlass* instklass_AESCrypt = klass_AESCrypt->as_instance_klass();
+  const TypeKlassPtr* aklass = TypeKlassPtr::make(instklass_AESCrypt);
+  const TypeOopPtr* xtype = aklass->as_instance_type();
+  Node* aescrypt_object = new(C) CheckCastPPNode(control(), embeddedCipherObj, xtype);
+  aescrypt_object = _gvn.transform(aescrypt_object);
+
+  // we need to get the start of the aescrypt_object's expanded key array
+  Node* k_start = get_key_start_from_aescrypt_object(aescrypt_object);
+  if (k_start == NULL) return false;
+
+  // similarly, get the start address of the counter, which the stub advances
+  Node* objCounter = load_field_from_object(counterMode_object, "counter", "[B", /*is_exact*/ false);
+  if (objCounter == NULL) return false;
+  Node* counter_start = array_element_address(objCounter, intcon(0), T_BYTE);
+
+  // Call the stub, passing src_start, dest_start, k_start, counter_start and len
+  make_runtime_call(RC_LEAF|RC_NO_FP,
+                    OptoRuntime::counterMode_aescrypt_Type(),
+                    stubAddr, stubName, TypePtr::BOTTOM,
+                    src_start, dest_start, k_start, counter_start, len);
+
+  // return is void so no result needs to be pushed
+
+  return true;
+}
+
+//------------------------------inline_ghash_processBlocks-----------------------
+// static void com.sun.crypto.provider.GHASH.processBlocks(byte[] data, int inOfs, int blocks, long[] st, long[] subH)
+bool LibraryCallKit::inline_ghash_processBlocks() {
+  assert(UseGHASHIntrinsics, "need CLMUL instruction support");
+
+  address stubAddr = StubRoutines::ghash_processBlocks();
+  const char *stubName = "ghash_processBlocks";
+  if (stubAddr == NULL) return false;
+
+  // no receiver since it is static method
+  Node* data    = argument(0);
+  Node* offset  = argument(1);
+  Node* len     = argument(2);
+  Node* state   = argument(3);
+  Node* subkeyH = argument(4);
+
+  // the arrays are checked by GHASH.ghashRangeCheck before this is called
+  Node* state_start   = array_element_address(state,   intcon(0), T_LONG);
+  Node* subkeyH_start = array_element_address(subkeyH, intcon(0), T_LONG);
+  Node* data_start    = array_element_address(data,    offset,    T_BYTE);
+
+  // Call the stub, passing state_start, subkeyH_start, data_start and the block count
+  make_runtime_call(RC_LEAF|RC_NO_FP,
+                    OptoRuntime::ghash_processBlocks_Type(),
+                    stubAddr, stubName, TypePtr::BOTTOM,
+                    state_start, subkeyH_start, data_start, len);
+
+  // return is void so no result needs to be pushed
+
+  return true;
+}
+
+//------------------------------inline_sha256_implCompress-----------------------
+// void sun.security.provider.SHA2.implCompress0(byte[] buf, int ofs)
+bool LibraryCallKit::inline_sha256_implCompress() {
+  assert(UseSHA256Intrinsics, "need SHA instruction support");
+
+  address stubAddr = StubRoutines::sha256_implCompress();
+  const char *stubName = "sha256_implCompress";
+  if (stubAddr == NULL) return false;
+
+  Node* sha2_object = argument(0);
+  Node* src         = argument(1);
+  Node* ofs         = argument(2);
+
+  const Type* src_type = src->Value(&_gvn);
+  const TypeAryPtr* top_src = src_type->isa_aryptr();
+  if (top_src == NULL || top_src->klass() == NULL) {
+    // failed array check
+    return false;
+  }
+
+  // the bounds are checked by SHA2.implCompress before this is called
+  Node* src_start = array_element_address(src, ofs, T_BYTE);
+
+  // the state is the int[8] field of the receiver
+  Node* state = load_field_from_object(sha2_object, "state", "[I", /*is_exact*/ false);
+  if (state == NULL) return false;
+  Node* state_start = array_element_address(state, intcon(0), T_INT);
+
+  // Call the stub, passing src_start and state_start
+  make_runtime_call(RC_LEAF|RC_NO_FP,
+                    OptoRuntime::sha256_implCompress_Type(),
+                    stubAddr, stubName, TypePtr::BOTTOM,
+                    src_start, state_start);
+
+  // return is void so no result needs to be pushed
+
+  return true;
+}
+
+//------------------------------inline_sha256_implCompressLanes-----------------------
+// static void sun.security.provider.SHA2MultiBuffer.implCompressLanes(int[] states, int[] words)
+bool LibraryCallKit::inline_sha256_implCompressLanes() {
+  assert(UseSHA256MultiBufferIntrinsics, "need AVX2 instruction support");
+
+  address stubAddr = StubRoutines::sha256_implCompressLanes();
+  const char *stubName = "sha256_implCompressLanes";
+  if (stubAddr == NULL) return false;
+
+  // no receiver since it is static method
+  Node* states = argument(0);
+  Node* words  = argument(1);
+
+  // the arrays are allocated by SHA2MultiBuffer with the sizes the stub expects
+  Node* states_start = array_element_address(states, intcon(0), T_INT);
+  Node* words_start  = array_element_address(words,  intcon(0), T_INT);
+
+  // Call the stub, passing words_start and states_start
+  make_runtime_call(RC_LEAF|RC_NO_FP,
+                    OptoRuntime::sha256_implCompress_Type(),
+                    stubAddr, stubName, TypePtr::BOTTOM,
+                    words_start, states_start);
+
+  // return is void so no result needs to be pushed
+
+  return true;
+}
+
+// The BigInteger methods below are static and take int arrays which
+// their Java callers have checked and allocated, so the only checks
+// needed here are that the arguments are known to be int arrays.
+static bool is_int_array(PhaseGVN* gvn, Node* n) {
+  const TypeAryPtr* top = n->Value(gvn)->isa_aryptr();
+  if (top == NULL || top->klass() == NULL) {
+    return false;
+  }
+  return top->klass()->as_array_klass()->element_type()->basic_type() == T_INT;
+}
+
+//------------------------------inline_multiplyToLen-----------------------
+// static int[] java.math.BigInteger.implMultiplyToLen(int[] x, int xlen, int[] y, int ylen, int[] z)
+bool LibraryCallKit::inline_multiplyToLen() {
+  assert(UseMultiplyToLenIntrinsic, "not implemented on this platform");
+
+  address stubAddr = StubRoutines::multiplyToLen();
+  const char *stubName = "multiplyToLen";
+  if (stubAddr == NULL) return false;
+
+  Node* x    = argument(0);
+  Node* xlen = argument(1);
+  Node* y    = argument(2);
+  Node* ylen = argument(3);
+  Node* z    = argument(4);
+
+  if (!is_int_array(&_gvn, x) || !is_int_array(&_gvn, y) || !is_int_array(&_gvn, z)) {
+    // failed array check
+    return false;
+  }
+
+  // BigInteger.multiplyToLen allocates z with at least xlen+ylen ints
+  Node* x_start = array_element_address(x, intcon(0), T_INT);
+  Node* y_start = array_element_address(y, intcon(0), T_INT);
+  Node* z_start = array_element_address(z, intcon(0), T_INT);
+
+  make_runtime_call(RC_LEAF,
+                    OptoRuntime::multiplyToLen_Type(),
+                    stubAddr, stubName, TypePtr::BOTTOM,
+                    x_start, xlen, y_start, ylen, z_start);
+
+  set_result(z);
+  return true;
+}
+
+//------------------------------inline_squareToLen-----------------------
+// static int[] java.math.BigInteger.implSquareToLen(int[] x, int len, int[] z, int zlen)
+bool LibraryCallKit::inline_squareToLen() {
+  assert(UseSquareToLenIntrinsic, "not implemented on this platform");
+
+  address stubAddr = StubRoutines::squareToLen();
+  const char *stubName = "squareToLen";
+  if (stubAddr == NULL) return false;
+
+  Node* x    = argument(0);
+  Node* len  = argument(1);
+  Node* z    = argument(2);
+  Node* zlen = argument(3);
+
+  if (!is_int_array(&_gvn, x) || !is_int_array(&_gvn, z)) {
+    // failed array check
+    return false;
+  }
+
+  Node* x_start = array_element_address(x, intcon(0), T_INT);
+  Node* z_start = array_element_address(z, intcon(0), T_INT);
+
+  make_runtime_call(RC_LEAF,
+                    OptoRuntime::squareToLen_Type(),
+                    stubAddr, stubName, TypePtr::BOTTOM,
+                    x_start, len, z_start, zlen);
+
+  set_result(z);
+  return true;
+}
+
+//------------------------------inline_mulAdd-----------------------
+// static int java.math.BigInteger.implMulAdd(int[] out, int[] in, int offset, int len, int k)
+bool LibraryCallKit::inline_mulAdd() {
+  assert(UseMulAddIntrinsic, "not implemented on this platform");
+
+  address stubAddr = StubRoutines::mulAdd();
+  const char *stubName = "mulAdd";
+  if (stubAddr == NULL) return false;
+
+  Node* out    = argument(0);
+  Node* in     = argument(1);
+  Node* offset = argument(2);
+  Node* len    = argument(3);
+  Node* k      = argument(4);
+
+  if (!is_int_array(&_gvn, out) || !is_int_array(&_gvn, in)) {
+    // failed array check
+    return false;
+  }
+
+  // offset counts from the end of out, so pass the number of ints
+  // before it instead
+  Node* out_len    = load_array_length(out);
+  Node* new_offset = _gvn.transform(new (C) SubINode(out_len, offset));
+  Node* out_start  = array_element_address(out, intcon(0), T_INT);
+  Node* in_start   = array_element_address(in, intcon(0), T_INT);
+
+  Node* call = make_runtime_call(RC_LEAF,
+                                 OptoRuntime::mulAdd_Type(),
+                                 stubAddr, stubName, TypePtr::BOTTOM,
+                                 out_start, in_start, new_offset, len, k);
+  Node* result = _gvn.transform(new (C) ProjNode(call, TypeFunc::Parms));
+  set_result(result);
+  return true;
+}
+
+//------------------------------inline_montgomeryMultiply-----------------------
+// static int[] java.math.BigInteger.implMontgomeryMultiply(int[] a, int[] b, int[] n, int len,
+//                                                          long inv, int[] product)
+bool LibraryCallKit::inline_montgomeryMultiply() {
+  assert(UseMontgomeryMultiplyIntrinsic, "not implemented on this platform");
+
+  address stubAddr = StubRoutines::montgomeryMultiply();
+  const char *stubName = "montgomery_multiply";
+  if (stubAddr == NULL) return false;
+
+  Node* a   = argument(0);
+  Node* b   = argument(1);
+  Node* n   = argument(2);
+  Node* len = argument(3);
+  Node* inv = argument(4); // long, which takes two slots
+  Node* m   = argument(6);
+
+  if (!is_int_array(&_gvn, a) || !is_int_array(&_gvn, b) ||
+      !is_int_array(&_gvn, n) || !is_int_array(&_gvn, m)) {
+    // failed array check
+    return false;
+  }
+
+  Node* a_start = array_element_address(a, intcon(0), T_INT);
+  Node* b_start = array_element_address(b, intcon(0), T_INT);
+  Node* n_start = array_element_address(n, intcon(0), T_INT);
+  Node* m_start = array_element_address(m, intcon(0), T_INT);
+
+  make_runtime_call(RC_LEAF,
+                    OptoRuntime::montgomeryMultiply_Type(),
+                    stubAddr, stubName, TypePtr::BOTTOM,
+                    a_start, b_start, n_start, len, inv, top(),
+                    m_start);
+
+  set_result(m);
+  return true;
+}
+
+//------------------------------inline_montgomerySquare-----------------------
+// static int[] java.math.BigInteger.implMontgomerySquare(int[] a, int[] n, int len,
+//                                                        long inv, int[] product)
+bool LibraryCallKit::inline_montgomerySquare() {
+  assert(UseMontgomerySquareIntrinsic, "not implemented on this platform");
+
+  address stubAddr = StubRoutines::montgomerySquare();
+  const char *stubName = "montgomery_square";
+  if (stubAddr == NULL) return false;
+
+  Node* a   = argument(0);
+  Node* n   = argument(1);
+  Node* len = argument(2);
+  Node* inv = argument(3); // long, which takes two slots
+  Node* m   = argument(5);
+
+  if (!is_int_array(&_gvn, a) || !is_int_array(&_gvn, n) || !is_int_array(&_gvn, m)) {
+    // failed array check
+    return false;
+  }
+
+  Node* a_start = array_element_address(a, intcon(0), T_INT);
+  Node* n_start = array_element_address(n, intcon(0), T_INT);
+  Node* m_start = array_element_address(m, intcon(0), T_INT);
+
+  make_runtime_call(RC_LEAF,
+                    OptoRuntime::montgomerySquare_Type(),
+                    stubAddr, stubName, TypePtr::BOTTOM,
+                    a_start, n_start, len, inv, top(),
+                    m_start);
+
+  set_result(m);
+  return true;
+}
+
 //------------------------------get_key_start_from_aescrypt_object-----------------------
 Node * LibraryCallKit::get_key_start_from_aescrypt_object(Node *aescrypt_object) {
   Node* objAESCryptKey = load_field_from_object(aescrypt_object, "K", "[I", /*is_exact*/ false);
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1997, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -388,6 +388,10 @@ public:
   // Optional scaling for the parameter to the ClearArray/CopyArray node.
   static const bool init_array_count_is_in_bytes;
 
+  // Do the StrComp/StrEquals/StrIndexOf match rules handle
+  // Latin1 (byte[]) strings in addition to UTF16 (char) strings?
+  static const bool has_latin1_string_intrinsics;
+
   // Threshold small size (in bytes) for a ClearArray/CopyArray node.
   // Anything this size or smaller may get converted to discrete scalar stores.
   static const int init_array_short_size;
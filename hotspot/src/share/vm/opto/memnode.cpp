@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1997, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -1730,6 +1730,9 @@ const Type *LoadNode::Value( PhaseTransform *phase ) const {
           ciConstant constant = string->as_instance()->field_value(field);
           if (constant.basic_type() == T_INT) {
             return TypeInt::make(constant.as_int());
+          } else if (constant.basic_type() == T_BYTE) {
+            // The String coder
+            return TypeInt::make(constant.as_byte());
           } else if (constant.basic_type() == T_ARRAY) {
             if (adr->bottom_type()->is_ptr_to_narrowoop()) {
               return TypeNarrowOop::make_from_constant(constant.as_object(), true);
@@ -2907,6 +2910,13 @@ uint StrIntrinsicNode::match_edge(uint idx) const {
   return idx == 2 || idx == 3;
 }
 
+uint StrIntrinsicNode::size_of() const { return sizeof(*this); }
+
+// Nodes for different encodings must not be commoned.
+uint StrIntrinsicNode::cmp(const Node& n) const {
+  return _encoding == ((const StrIntrinsicNode&)n)._encoding;
+}
+
 //------------------------------Ideal------------------------------------------
 // Return a node which is more "ideal" than the current node.  Strip out
 // control copies
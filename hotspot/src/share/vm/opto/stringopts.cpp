@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2009, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -597,7 +597,7 @@ PhaseStringOpts::PhaseStringOpts(PhaseGVN* gvn, Unique_Node_List*):
   }
 
   // Collect the types needed to talk about the various slices of memory
-  char_adr_idx = C->get_alias_index(TypeAryPtr::CHARS);
+  byte_adr_idx = C->get_alias_index(TypeAryPtr::BYTES);
 
   // For each locally allocated StringBuffer see if the usages can be
   // collapsed into a single String construction.
@@ -1210,10 +1210,54 @@ Node* PhaseStringOpts::int_stringSize(GraphKit& kit, Node* arg) {
   return final_size;
 }
 
-void PhaseStringOpts::int_getChars(GraphKit& kit, Node* arg, Node* char_array, Node* start, Node* end) {
+Node* PhaseStringOpts::merge_coder(GraphKit& kit, Node* coder, Node* arg_coder) {
+  // Once some argument is known to be UTF16 so is the result, which
+  // keeps the Latin1 copy out of the graph.
+  if (kit.find_int_con(coder, -1) == java_lang_String::CODER_UTF16) {
+    return coder;
+  }
+  if (kit.find_int_con(arg_coder, -1) == java_lang_String::CODER_UTF16) {
+    return arg_coder;
+  }
+  return __ OrI(coder, arg_coder);
+}
+
+Node* PhaseStringOpts::char_coder(GraphKit& kit, Node* arg) {
+  // Adding 0xff00 to the high byte of the char carries into bit 16
+  // unless the high byte is zero, i.e. unless the char is Latin1.
+  Node* hi = __ AndI(arg, __ intcon(0xff00));
+  return __ URShiftI(__ AddI(hi, __ intcon(0xff00)), __ intcon(16));
+}
+
+void PhaseStringOpts::store_char(GraphKit& kit, Node* dst_array, Node* index, Node* ch, jbyte coder) {
+  if (coder == java_lang_String::CODER_LATIN1) {
+    __ store_to_memory(kit.control(), kit.array_element_address(dst_array, index, T_BYTE),
+                       ch, T_BYTE, byte_adr_idx);
+  } else {
+    // Store the two bytes of the char in the native byte order, the
+    // way StringUTF16.putChar does.
+    Node* lo = ch;
+    Node* hi = __ URShiftI(ch, __ intcon(8));
+    Node* first = __ LShiftI(index, __ intcon(1));
+    Node* second = __ AddI(first, __ intcon(1));
+#ifdef VM_LITTLE_ENDIAN
+    __ store_to_memory(kit.control(), kit.array_element_address(dst_array, first, T_BYTE),
+                       lo, T_BYTE, byte_adr_idx);
+    __ store_to_memory(kit.control(), kit.array_element_address(dst_array, second, T_BYTE),
+                       hi, T_BYTE, byte_adr_idx);
+#else
+    __ store_to_memory(kit.control(), kit.array_element_address(dst_array, first, T_BYTE),
+                       hi, T_BYTE, byte_adr_idx);
+    __ store_to_memory(kit.control(), kit.array_element_address(dst_array, second, T_BYTE),
+                       lo, T_BYTE, byte_adr_idx);
+#endif
+  }
+}
+
+void PhaseStringOpts::int_getChars(GraphKit& kit, Node* arg, Node* dst_array, Node* start, Node* end, jbyte coder) {
   RegionNode *final_merge = new (C) RegionNode(4);
   kit.gvn().set_type(final_merge, Type::CONTROL);
-  Node *final_mem = PhiNode::make(final_merge, kit.memory(char_adr_idx), Type::MEMORY, TypeAryPtr::CHARS);
+  Node *final_mem = PhiNode::make(final_merge, kit.memory(byte_adr_idx), Type::MEMORY, TypeAryPtr::BYTES);
   kit.gvn().set_type(final_mem, Type::MEMORY);
 
   // need to handle Integer.MIN_VALUE specially because negating doesn't make it positive
@@ -1223,7 +1267,7 @@ void PhaseStringOpts::int_getChars(GraphKit& kit, Node* arg, Node* char_array, N
                                         __ Bool(__ CmpI(arg, __ intcon(0x80000000)), BoolTest::ne),
                                         PROB_FAIR, COUNT_UNKNOWN);
 
-    Node* old_mem = kit.memory(char_adr_idx);
+    Node* old_mem = kit.memory(byte_adr_idx);
 
     kit.set_control(__ IfFalse(iff));
     if (kit.stopped()) {
@@ -1231,13 +1275,13 @@ void PhaseStringOpts::int_getChars(GraphKit& kit, Node* arg, Node* char_array, N
       final_merge->init_req(3, kit.control());
     } else {
       copy_string(kit, __ makecon(TypeInstPtr::make(C->env()->the_min_jint_string())),
-                  char_array, start);
+                  dst_array, start, coder);
       final_merge->init_req(3, kit.control());
-      final_mem->init_req(3, kit.memory(char_adr_idx));
+      final_mem->init_req(3, kit.memory(byte_adr_idx));
     }
 
     kit.set_control(__ IfTrue(iff));
-    kit.set_memory(old_mem, char_adr_idx);
+    kit.set_memory(old_mem, byte_adr_idx);
   }
 
 
@@ -1302,10 +1346,10 @@ void PhaseStringOpts::int_getChars(GraphKit& kit, Node* arg, Node* char_array, N
     kit.gvn().set_type(i_phi, TypeInt::INT);
     charPos = PhiNode::make(head, charPos);
     kit.gvn().set_type(charPos, TypeInt::INT);
-    Node *mem = PhiNode::make(head, kit.memory(char_adr_idx), Type::MEMORY, TypeAryPtr::CHARS);
+    Node *mem = PhiNode::make(head, kit.memory(byte_adr_idx), Type::MEMORY, TypeAryPtr::BYTES);
     kit.gvn().set_type(mem, Type::MEMORY);
     kit.set_control(head);
-    kit.set_memory(mem, char_adr_idx);
+    kit.set_memory(mem, byte_adr_idx);
 
     Node* q = __ DivI(NULL, i_phi, __ intcon(10));
     Node* r = __ SubI(i_phi, __ AddI(__ LShiftI(q, __ intcon(3)),
@@ -1313,9 +1357,8 @@ void PhaseStringOpts::int_getChars(GraphKit& kit, Node* arg, Node* char_array, N
     Node* m1 = __ SubI(charPos, __ intcon(1));
     Node* ch = __ AddI(r, __ intcon('0'));
 
-    Node* st = __ store_to_memory(kit.control(), kit.array_element_address(char_array, m1, T_CHAR),
-                                  ch, T_CHAR, char_adr_idx);
-
+    store_char(kit, dst_array, m1, ch, coder);
+    Node* st = kit.memory(byte_adr_idx);
 
     IfNode* iff = kit.create_and_map_if(head, __ Bool(__ CmpI(q, __ intcon(0)), BoolTest::ne),
                                         PROB_FAIR, COUNT_UNKNOWN);
@@ -1330,7 +1373,7 @@ void PhaseStringOpts::int_getChars(GraphKit& kit, Node* arg, Node* char_array, N
     charPos = m1;
 
     kit.set_control(eq);
-    kit.set_memory(st, char_adr_idx);
+    kit.set_memory(st, byte_adr_idx);
 
     C->record_for_igvn(head);
     C->record_for_igvn(mem);
@@ -1347,7 +1390,7 @@ void PhaseStringOpts::int_getChars(GraphKit& kit, Node* arg, Node* char_array, N
                                         PROB_FAIR, COUNT_UNKNOWN);
 
     final_merge->init_req(2, __ IfFalse(iff));
-    final_mem->init_req(2, kit.memory(char_adr_idx));
+    final_mem->init_req(2, kit.memory(byte_adr_idx));
 
     kit.set_control(__ IfTrue(iff));
     if (kit.stopped()) {
@@ -1355,15 +1398,14 @@ void PhaseStringOpts::int_getChars(GraphKit& kit, Node* arg, Node* char_array, N
       final_mem->init_req(1, C->top());
     } else {
       Node* m1 = __ SubI(charPos, __ intcon(1));
-      Node* st = __ store_to_memory(kit.control(), kit.array_element_address(char_array, m1, T_CHAR),
-                                    sign, T_CHAR, char_adr_idx);
+      store_char(kit, dst_array, m1, sign, coder);
 
       final_merge->init_req(1, kit.control());
-      final_mem->init_req(1, st);
+      final_mem->init_req(1, kit.memory(byte_adr_idx));
     }
 
     kit.set_control(final_merge);
-    kit.set_memory(final_mem, char_adr_idx);
+    kit.set_memory(final_mem, byte_adr_idx);
 
     C->record_for_igvn(final_merge);
     C->record_for_igvn(final_mem);
@@ -1371,45 +1413,194 @@ void PhaseStringOpts::int_getChars(GraphKit& kit, Node* arg, Node* char_array, N
 }
 
 
-Node* PhaseStringOpts::copy_string(GraphKit& kit, Node* str, Node* char_array, Node* start) {
+void PhaseStringOpts::inflate_string(GraphKit& kit, Node* src_array, Node* dst_array, Node* start, Node* count) {
+  // for (int i = 0; i < count; i++) {
+  //     dst[start + i] = (char)(src[i] & 0xff);
+  // }
+  RegionNode *final_merge = new (C) RegionNode(3);
+  kit.gvn().set_type(final_merge, Type::CONTROL);
+  Node *final_mem = PhiNode::make(final_merge, kit.memory(byte_adr_idx), Type::MEMORY, TypeAryPtr::BYTES);
+  kit.gvn().set_type(final_mem, Type::MEMORY);
+
+  IfNode* iff = kit.create_and_map_if(kit.control(),
+                                      __ Bool(__ CmpI(count, __ intcon(0)), BoolTest::gt),
+                                      PROB_FAIR, COUNT_UNKNOWN);
+  final_merge->init_req(2, __ IfFalse(iff));
+  final_mem->init_req(2, kit.memory(byte_adr_idx));
+
+  kit.set_control(__ IfTrue(iff));
+  if (kit.stopped()) {
+    final_merge->init_req(1, C->top());
+    final_mem->init_req(1, C->top());
+  } else {
+    // Add loop predicate first.
+    kit.add_predicate();
+
+    RegionNode *head = new (C) RegionNode(3);
+    head->init_req(1, kit.control());
+    kit.gvn().set_type(head, Type::CONTROL);
+    Node *i_phi = new (C) PhiNode(head, TypeInt::INT);
+    i_phi->init_req(1, __ intcon(0));
+    kit.gvn().set_type(i_phi, TypeInt::INT);
+    Node *mem = PhiNode::make(head, kit.memory(byte_adr_idx), Type::MEMORY, TypeAryPtr::BYTES);
+    kit.gvn().set_type(mem, Type::MEMORY);
+    kit.set_control(head);
+    kit.set_memory(mem, byte_adr_idx);
+
+    Node* b = kit.make_load(kit.control(), kit.array_element_address(src_array, i_phi, T_BYTE),
+                            TypeInt::BYTE, T_BYTE, byte_adr_idx);
+    Node* ch = __ AndI(b, __ intcon(0xff));
+    store_char(kit, dst_array, __ AddI(start, i_phi), ch, java_lang_String::CODER_UTF16);
+    Node* st = kit.memory(byte_adr_idx);
+    Node* next = __ AddI(i_phi, __ intcon(1));
+
+    IfNode* iff = kit.create_and_map_if(head, __ Bool(__ CmpI(next, count), BoolTest::lt),
+                                        PROB_FAIR, COUNT_UNKNOWN);
+    head->init_req(2, __ IfTrue(iff));
+    mem->init_req(2, st);
+    i_phi->init_req(2, next);
+
+    kit.set_control(__ IfFalse(iff));
+
+    final_merge->init_req(1, kit.control());
+    final_mem->init_req(1, st);
+
+    C->record_for_igvn(head);
+    C->record_for_igvn(mem);
+    C->record_for_igvn(i_phi);
+  }
+
+  kit.set_control(final_merge);
+  kit.set_memory(final_mem, byte_adr_idx);
+
+  C->record_for_igvn(final_merge);
+  C->record_for_igvn(final_mem);
+}
+
+
+void PhaseStringOpts::arraycopy(GraphKit& kit, Node* src_array, Node* dst_array, Node* start, Node* count, jbyte coder) {
+  // Both arrays have the same encoding, so copy whole chars
+  bool latin1 = (coder == java_lang_String::CODER_LATIN1);
+  BasicType bt = latin1 ? T_BYTE : T_CHAR;
+  Node* src_ptr = kit.array_element_address(src_array, __ intcon(0), bt);
+  Node* dst_ptr = kit.array_element_address(dst_array, start, bt);
+  Node* c = count;
+  Node* extra = NULL;
+#ifdef _LP64
+  c = __ ConvI2L(c);
+  extra = C->top();
+#endif
+  kit.make_runtime_call(GraphKit::RC_LEAF|GraphKit::RC_NO_FP,
+                        OptoRuntime::fast_arraycopy_Type(),
+                        latin1 ? CAST_FROM_FN_PTR(address, StubRoutines::jbyte_disjoint_arraycopy())
+                               : CAST_FROM_FN_PTR(address, StubRoutines::jshort_disjoint_arraycopy()),
+                        latin1 ? "jbyte_disjoint_arraycopy" : "jshort_disjoint_arraycopy",
+                        TypeAryPtr::BYTES,
+                        src_ptr, dst_ptr, c, extra);
+}
+
+
+Node* PhaseStringOpts::copy_string(GraphKit& kit, Node* str, Node* dst_array, Node* start, jbyte coder) {
   Node* string = str;
-  Node* offset = kit.load_String_offset(kit.control(), string);
   Node* count  = kit.load_String_length(kit.control(), string);
   Node* value  = kit.load_String_value (kit.control(), string);
+  Node* src_coder = kit.load_String_coder(kit.control(), string);
+  jint src_con = kit.find_int_con(src_coder, -1);
+  assert(coder == java_lang_String::CODER_UTF16 || src_con != java_lang_String::CODER_UTF16,
+         "a UTF16 String cannot be copied into a Latin1 result");
 
   // copy the contents
-  if (offset->is_Con() && count->is_Con() && value->is_Con() && count->get_int() < unroll_string_copy_length) {
+  if (count->is_Con() && value->is_Con() && src_con != -1 && count->get_int() < unroll_string_copy_length) {
     // For small constant strings just emit individual stores.
     // A length of 6 seems like a good space/speed tradeof.
     int c = count->get_int();
-    int o = offset->get_int();
     const TypeOopPtr* t = kit.gvn().type(value)->isa_oopptr();
     ciTypeArray* value_array = t->const_oop()->as_type_array();
-    for (int e = 0; e < c; e++) {
-      __ store_to_memory(kit.control(), kit.array_element_address(char_array, start, T_CHAR),
-                         __ intcon(value_array->char_at(o + e)), T_CHAR, char_adr_idx);
-      start = __ AddI(start, __ intcon(1));
+    if (src_con == coder) {
+      // Same encoding, so copy the bytes as they are
+      Node* index = __ LShiftI(start, __ intcon(coder));
+      for (int e = 0; e < (c << coder); e++) {
+        __ store_to_memory(kit.control(), kit.array_element_address(dst_array, index, T_BYTE),
+                           __ intcon(value_array->byte_at(e)), T_BYTE, byte_adr_idx);
+        index = __ AddI(index, __ intcon(1));
+      }
+      start = __ AddI(start, __ intcon(c));
+    } else {
+      // Inflate the Latin1 chars
+      for (int e = 0; e < c; e++) {
+        store_char(kit, dst_array, start, __ intcon(value_array->byte_at(e) & 0xff), coder);
+        start = __ AddI(start, __ intcon(1));
+      }
     }
   } else {
-    Node* src_ptr = kit.array_element_address(value, offset, T_CHAR);
-    Node* dst_ptr = kit.array_element_address(char_array, start, T_CHAR);
-    Node* c = count;
-    Node* extra = NULL;
-#ifdef _LP64
-    c = __ ConvI2L(c);
-    extra = C->top();
-#endif
-    Node* call = kit.make_runtime_call(GraphKit::RC_LEAF|GraphKit::RC_NO_FP,
-                                       OptoRuntime::fast_arraycopy_Type(),
-                                       CAST_FROM_FN_PTR(address, StubRoutines::jshort_disjoint_arraycopy()),
-                                       "jshort_disjoint_arraycopy", TypeAryPtr::CHARS,
-                                       src_ptr, dst_ptr, c, extra);
+    if (coder == java_lang_String::CODER_LATIN1 || src_con == java_lang_String::CODER_UTF16) {
+      arraycopy(kit, value, dst_array, start, count, coder);
+    } else if (src_con == java_lang_String::CODER_LATIN1) {
+      inflate_string(kit, value, dst_array, start, count);
+    } else {
+      // if (str.coder == LATIN1) inflate the chars, else copy them
+      RegionNode *merge = new (C) RegionNode(3);
+      kit.gvn().set_type(merge, Type::CONTROL);
+      Node *mem = PhiNode::make(merge, kit.memory(byte_adr_idx), Type::MEMORY, TypeAryPtr::BYTES);
+      kit.gvn().set_type(mem, Type::MEMORY);
+
+      IfNode* iff = kit.create_and_map_if(kit.control(),
+                                          __ Bool(__ CmpI(src_coder, __ intcon(java_lang_String::CODER_LATIN1)), BoolTest::eq),
+                                          PROB_FAIR, COUNT_UNKNOWN);
+      Node* old_mem = kit.memory(byte_adr_idx);
+
+      kit.set_control(__ IfTrue(iff));
+      inflate_string(kit, value, dst_array, start, count);
+      merge->init_req(1, kit.control());
+      mem->init_req(1, kit.memory(byte_adr_idx));
+
+      kit.set_control(__ IfFalse(iff));
+      kit.set_memory(old_mem, byte_adr_idx);
+      arraycopy(kit, value, dst_array, start, count, coder);
+      merge->init_req(2, kit.control());
+      mem->init_req(2, kit.memory(byte_adr_idx));
+
+      kit.set_control(merge);
+      kit.set_memory(mem, byte_adr_idx);
+
+      C->record_for_igvn(merge);
+      C->record_for_igvn(mem);
+    }
     start = __ AddI(start, count);
   }
   return start;
 }
 
 
+void PhaseStringOpts::copy_arguments(GraphKit& kit, StringConcat* sc, Node* string_sizes,
+                                     Node* dst_array, jbyte coder) {
+  Node* start = __ intcon(0);
+  for (int argi = 0; argi < sc->num_arguments(); argi++) {
+    Node* arg = sc->argument(argi);
+    switch (sc->mode(argi)) {
+      case StringConcat::IntMode: {
+        Node* end = __ AddI(start, string_sizes->in(argi));
+        // getChars words backwards so pass the ending point as well as the start
+        int_getChars(kit, arg, dst_array, start, end, coder);
+        start = end;
+        break;
+      }
+      case StringConcat::StringNullCheckMode:
+      case StringConcat::StringMode: {
+        start = copy_string(kit, arg, dst_array, start, coder);
+        break;
+      }
+      case StringConcat::CharMode: {
+        store_char(kit, dst_array, start, arg, coder);
+        start = __ AddI(start, __ intcon(1));
+        break;
+      }
+      default:
+        ShouldNotReachHere();
+    }
+  }
+}
+
 void PhaseStringOpts::replace_string_concat(StringConcat* sc) {
   // Log a little info about the transformation
   sc->maybe_log_transform();
@@ -1470,6 +1661,11 @@ void PhaseStringOpts::replace_string_concat(StringConcat* sc) {
   // are need for the copying phase.
   Node* string_sizes = new (C) Node(args);
 
+  // The result can only be Latin1 if every String argument is Latin1
+  // and every char argument fits in a byte; the digits of an int do.
+  Node* coder = __ intcon(CompactStrings ? java_lang_String::CODER_LATIN1
+                                         : java_lang_String::CODER_UTF16);
+
   Node* length = __ intcon(0);
   for (int argi = 0; argi < sc->num_arguments(); argi++) {
     Node* arg = sc->argument(argi);
@@ -1537,11 +1733,13 @@ void PhaseStringOpts::replace_string_concat(StringConcat* sc) {
 
         length = __ AddI(length, count);
         string_sizes->init_req(argi, NULL);
+        coder = merge_coder(kit, coder, kit.load_String_coder(kit.control(), arg));
         break;
       }
       case StringConcat::CharMode: {
         // one character only
         length = __ AddI(length, __ intcon(1));
+        coder = merge_coder(kit, coder, char_coder(kit, arg));
         break;
       }
       default:
@@ -1557,6 +1755,16 @@ void PhaseStringOpts::replace_string_concat(StringConcat* sc) {
     }
   }
 
+  if (kit.find_int_con(coder, -1) != java_lang_String::CODER_LATIN1) {
+    // A UTF16 result takes two bytes per char, so check that the size
+    // of its byte[] hasn't overflowed either
+    IfNode* iff = kit.create_and_map_if(kit.control(),
+                                        __ Bool(__ CmpI(__ LShiftI(length, coder), __ intcon(0)), BoolTest::lt),
+                                        PROB_MIN, COUNT_UNKNOWN);
+    kit.set_control(__ IfFalse(iff));
+    overflow->add_req(__ IfTrue(iff));
+  }
+
   {
     // Hook
     PreserveJVMState pjvms(&kit);
@@ -1570,50 +1778,56 @@ void PhaseStringOpts::replace_string_concat(StringConcat* sc) {
   if (!kit.stopped()) {
 
     // length now contains the number of characters needed for the
-    // char[] so create a new AllocateArray for the char[]
-    Node* char_array = NULL;
+    // result so create a new AllocateArray for its byte[]
+    Node* byte_array = NULL;
     {
       PreserveReexecuteState preexecs(&kit);
       // The original jvms is for an allocation of either a String or
       // StringBuffer so no stack adjustment is necessary for proper
       // reexecution.  If we deoptimize in the slow path the bytecode
-      // will be reexecuted and the char[] allocation will be thrown away.
+      // will be reexecuted and the byte[] allocation will be thrown away.
       kit.jvms()->set_should_reexecute(true);
-      char_array = kit.new_array(__ makecon(TypeKlassPtr::make(ciTypeArrayKlass::make(T_CHAR))),
-                                 length, 1);
+      byte_array = kit.new_array(__ makecon(TypeKlassPtr::make(ciTypeArrayKlass::make(T_BYTE))),
+                                 __ LShiftI(length, coder), 1);
     }
 
     // Mark the allocation so that zeroing is skipped since the code
     // below will overwrite the entire array
-    AllocateArrayNode* char_alloc = AllocateArrayNode::Ideal_array_allocation(char_array, _gvn);
-    char_alloc->maybe_set_complete(_gvn);
-
-    // Now copy the string representations into the final char[]
-    Node* start = __ intcon(0);
-    for (int argi = 0; argi < sc->num_arguments(); argi++) {
-      Node* arg = sc->argument(argi);
-      switch (sc->mode(argi)) {
-        case StringConcat::IntMode: {
-          Node* end = __ AddI(start, string_sizes->in(argi));
-          // getChars words backwards so pass the ending point as well as the start
-          int_getChars(kit, arg, char_array, start, end);
-          start = end;
-          break;
-        }
-        case StringConcat::StringNullCheckMode:
-        case StringConcat::StringMode: {
-          start = copy_string(kit, arg, char_array, start);
-          break;
-        }
-        case StringConcat::CharMode: {
-          __ store_to_memory(kit.control(), kit.array_element_address(char_array, start, T_CHAR),
-                             arg, T_CHAR, char_adr_idx);
-          start = __ AddI(start, __ intcon(1));
-          break;
-        }
-        default:
-          ShouldNotReachHere();
-      }
+    AllocateArrayNode* byte_alloc = AllocateArrayNode::Ideal_array_allocation(byte_array, _gvn);
+    byte_alloc->maybe_set_complete(_gvn);
+
+    // Now copy the string representations into the final byte[]
+    jint coder_con = kit.find_int_con(coder, -1);
+    if (coder_con != -1) {
+      copy_arguments(kit, sc, string_sizes, byte_array, coder_con);
+    } else {
+      // if (coder == LATIN1) copy the arguments as Latin1, else as UTF16
+      RegionNode *merge = new (C) RegionNode(3);
+      kit.gvn().set_type(merge, Type::CONTROL);
+      Node *mem = PhiNode::make(merge, kit.memory(byte_adr_idx), Type::MEMORY, TypeAryPtr::BYTES);
+      kit.gvn().set_type(mem, Type::MEMORY);
+
+      IfNode* iff = kit.create_and_map_if(kit.control(),
+                                          __ Bool(__ CmpI(coder, __ intcon(java_lang_String::CODER_LATIN1)), BoolTest::eq),
+                                          PROB_FAIR, COUNT_UNKNOWN);
+      Node* old_mem = kit.memory(byte_adr_idx);
+
+      kit.set_control(__ IfTrue(iff));
+      copy_arguments(kit, sc, string_sizes, byte_array, java_lang_String::CODER_LATIN1);
+      merge->init_req(1, kit.control());
+      mem->init_req(1, kit.memory(byte_adr_idx));
+
+      kit.set_control(__ IfFalse(iff));
+      kit.set_memory(old_mem, byte_adr_idx);
+      copy_arguments(kit, sc, string_sizes, byte_array, java_lang_String::CODER_UTF16);
+      merge->init_req(2, kit.control());
+      mem->init_req(2, kit.memory(byte_adr_idx));
+
+      kit.set_control(merge);
+      kit.set_memory(mem, byte_adr_idx);
+
+      C->record_for_igvn(merge);
+      C->record_for_igvn(mem);
     }
 
     // If we're not reusing an existing String allocation then allocate one here.
@@ -1632,7 +1846,10 @@ void PhaseStringOpts::replace_string_concat(StringConcat* sc) {
       kit.store_String_offset(kit.control(), result, __ intcon(0));
       kit.store_String_length(kit.control(), result, length);
     }
-    kit.store_String_value(kit.control(), result, char_array);
+    kit.store_String_value(kit.control(), result, byte_array);
+    if (java_lang_String::has_coder_field()) {
+      kit.store_String_coder(kit.control(), result, coder);
+    }
   } else {
     result = C->top();
   }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009, 2012, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2009, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -40,7 +40,7 @@ class PhaseStringOpts : public Phase {
   Unique_Node_List dead_worklist;
 
   // Memory slices needed for code gen
-  int char_adr_idx;
+  int byte_adr_idx;
 
   // Integer.sizeTable - used for int to String conversion
   ciField* size_table_field;
@@ -64,11 +64,33 @@ class PhaseStringOpts : public Phase {
   // Compute the number of characters required to represent the int value
   Node* int_stringSize(GraphKit& kit, Node* value);
 
-  // Copy the characters representing value into char_array starting at start
-  void int_getChars(GraphKit& kit, Node* value, Node* char_array, Node* start, Node* end);
+  // Combine the coder of the result so far with the coder of an argument
+  Node* merge_coder(GraphKit& kit, Node* coder, Node* arg_coder);
 
-  // Copy of the contents of the String str into char_array starting at index start.
-  Node* copy_string(GraphKit& kit, Node* str, Node* char_array, Node* start);
+  // Compute the coder needed to store the char value: Latin1 if it
+  // fits in one byte, UTF16 otherwise
+  Node* char_coder(GraphKit& kit, Node* value);
+
+  // Store the char value at index of dst_array, which is encoded in coder
+  void store_char(GraphKit& kit, Node* dst_array, Node* index, Node* value, jbyte coder);
+
+  // Copy the characters representing value into dst_array starting at start
+  void int_getChars(GraphKit& kit, Node* value, Node* dst_array, Node* start, Node* end, jbyte coder);
+
+  // Copy of the contents of the String str into dst_array starting at index start.
+  Node* copy_string(GraphKit& kit, Node* str, Node* dst_array, Node* start, jbyte coder);
+
+  // Copy count chars of src_array into dst_array starting at index start,
+  // both being encoded in coder.
+  void arraycopy(GraphKit& kit, Node* src_array, Node* dst_array, Node* start, Node* count, jbyte coder);
+
+  // Inflate count Latin1 chars of src_array into the UTF16 dst_array starting at index start.
+  void inflate_string(GraphKit& kit, Node* src_array, Node* dst_array, Node* start, Node* count);
+
+  // Copy the representations of all the arguments of sc into dst_array,
+  // which is encoded in coder
+  void copy_arguments(GraphKit& kit, StringConcat* sc, Node* string_sizes,
+                      Node* dst_array, jbyte coder);
 
   // Clean up any leftover nodes
   void record_dead_node(Node* node);
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1997, 2014, Oracle and/or its affiliates. All rights reserved.
  * Copyright (c) 2012 Red Hat, Inc.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
@@ -3242,7 +3242,13 @@ JNI_QUICK_ENTRY(const jchar*, jni_GetStringChars(
     /* JNI Specification states return NULL on OOM */
     if (buf != NULL) {
       if (s_len > 0) {
-        memcpy(buf, s_value->char_at_addr(s_offset), sizeof(jchar)*s_len);
+        if (!java_lang_String::is_latin1(s)) {
+          memcpy(buf, s_value->char_at_addr(s_offset), sizeof(jchar)*s_len);
+        } else {
+          for (int i = 0; i < s_len; i++) {
+            buf[i] = ((jchar) s_value->byte_at(s_offset + i)) & 0xff;
+          }
+        }
       }
       buf[s_len] = 0;
       //%note jni_5
@@ -4189,7 +4195,13 @@ JNI_ENTRY(void, jni_GetStringRegion(JNIEnv *env, jstring string, jsize start, js
     if (len > 0) {
       int s_offset = java_lang_String::offset(s);
       typeArrayOop s_value = java_lang_String::value(s);
-      memcpy(buf, s_value->char_at_addr(s_offset+start), sizeof(jchar)*len);
+      if (!java_lang_String::is_latin1(s)) {
+        memcpy(buf, s_value->char_at_addr(s_offset+start), sizeof(jchar)*len);
+      } else {
+        for (int i = 0; i < len; i++) {
+          buf[i] = ((jchar) s_value->byte_at(s_offset + start + i)) & 0xff;
+        }
+      }
     }
   }
 JNI_END
@@ -4290,19 +4302,32 @@ JNI_ENTRY(const jchar*, jni_GetStringCritical(JNIEnv *env, jstring string, jbool
   HOTSPOT_JNI_GETSTRINGCRITICAL_ENTRY(
                                       env, string, (uintptr_t *) isCopy);
 #endif /* USDT2 */
-  GC_locker::lock_critical(thread);
-  if (isCopy != NULL) {
-    *isCopy = JNI_FALSE;
-  }
   oop s = JNIHandles::resolve_non_null(string);
   int s_len = java_lang_String::length(s);
   typeArrayOop s_value = java_lang_String::value(s);
   int s_offset = java_lang_String::offset(s);
   const jchar* ret;
-  if (s_len > 0) {
-    ret = s_value->char_at_addr(s_offset);
+  if (!java_lang_String::is_latin1(s)) {
+    GC_locker::lock_critical(thread);
+    if (isCopy != NULL) {
+      *isCopy = JNI_FALSE;
+    }
+    if (s_len > 0) {
+      ret = s_value->char_at_addr(s_offset);
+    } else {
+      ret = (jchar*) s_value->base(T_CHAR);
+    }
   } else {
-    ret = (jchar*) s_value->base(T_CHAR);
+    // A Latin1 String has no jchar array to pin, return an inflated copy
+    jchar* buf = NEW_C_HEAP_ARRAY(jchar, s_len + 1, mtInternal);
+    for (int i = 0; i < s_len; i++) {
+      buf[i] = ((jchar) s_value->byte_at(s_offset + i)) & 0xff;
+    }
+    buf[s_len] = 0;
+    if (isCopy != NULL) {
+      *isCopy = JNI_TRUE;
+    }
+    ret = buf;
   }
 #ifndef USDT2
   DTRACE_PROBE1(hotspot_jni, GetStringCritical__return, ret);
@@ -4322,8 +4347,13 @@ JNI_ENTRY(void, jni_ReleaseStringCritical(JNIEnv *env, jstring str, const jchar
   HOTSPOT_JNI_RELEASESTRINGCRITICAL_ENTRY(
                                           env, str, (uint16_t *) chars);
 #endif /* USDT2 */
-  // The str and chars arguments are ignored
-  GC_locker::unlock_critical(thread);
+  oop s = JNIHandles::resolve_non_null(str);
+  if (java_lang_String::is_latin1(s)) {
+    // Free the inflated copy made by GetStringCritical
+    FREE_C_HEAP_ARRAY(jchar, chars, mtInternal);
+  } else {
+    GC_locker::unlock_critical(thread);
+  }
 #ifndef USDT2
   DTRACE_PROBE(hotspot_jni, ReleaseStringCritical__return);
 #else /* USDT2 */
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2003, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2003, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -1050,20 +1050,32 @@ static jint invoke_string_value_callback(jvmtiStringPrimitiveValueCallback cb,
   int s_len = java_lang_String::length(str);
   typeArrayOop s_value = java_lang_String::value(str);
   int s_offset = java_lang_String::offset(str);
+  bool is_latin1 = java_lang_String::is_latin1(str);
   jchar* value;
-  if (s_len > 0) {
+  if (is_latin1) {
+    // Inflate a Latin1 value into a temporary jchar copy
+    value = NEW_C_HEAP_ARRAY(jchar, s_len + 1, mtInternal);
+    for (int i = 0; i < s_len; i++) {
+      value[i] = ((jchar) s_value->byte_at(s_offset + i)) & 0xff;
+    }
+  } else if (s_len > 0) {
     value = s_value->char_at_addr(s_offset);
   } else {
     value = (jchar*) s_value->base(T_CHAR);
   }
 
   // invoke the callback
-  return (*cb)(wrapper->klass_tag(),
-               wrapper->obj_size(),
-               wrapper->obj_tag_p(),
-               value,
-               (jint)s_len,
-               user_data);
+  jint res = (*cb)(wrapper->klass_tag(),
+                   wrapper->obj_size(),
+                   wrapper->obj_tag_p(),
+                   value,
+                   (jint)s_len,
+                   user_data);
+
+  if (is_latin1) {
+    FREE_C_HEAP_ARRAY(jchar, value, mtInternal);
+  }
+  return res;
 }
 
 // helper function to invoke string primitive value callback
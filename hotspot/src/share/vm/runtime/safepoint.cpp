@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1997, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -523,13 +523,21 @@ void SafepointSynchronize::do_cleanup_tasks() {
     NMethodSweeper::mark_active_nmethods();
   }
 
+  {
+    // No lock-free reader can still be walking a table that was replaced
+    // by a concurrent resize.
+    TraceTime t5("reclaiming resized symbol and string tables", TraceSafepointCleanupTime);
+    SymbolTable::reclaim_retired_table();
+    StringTable::reclaim_retired_table();
+  }
+
   if (SymbolTable::needs_rehashing()) {
-    TraceTime t5("rehashing symbol table", TraceSafepointCleanupTime);
+    TraceTime t6("rehashing symbol table", TraceSafepointCleanupTime);
     SymbolTable::rehash_table();
   }
 
   if (StringTable::needs_rehashing()) {
-    TraceTime t6("rehashing string table", TraceSafepointCleanupTime);
+    TraceTime t7("rehashing string table", TraceSafepointCleanupTime);
     StringTable::rehash_table();
   }
 
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1997, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -2734,13 +2734,7 @@ nmethod *AdapterHandlerLibrary::create_dtrace_nmethod(methodHandle method) {
 
 // the dtrace method needs to convert java lang string to utf8 string.
 void SharedRuntime::get_utf(oopDesc* src, address dst) {
-  typeArrayOop jlsValue  = java_lang_String::value(src);
-  int          jlsOffset = java_lang_String::offset(src);
-  int          jlsLen    = java_lang_String::length(src);
-  jchar*       jlsPos    = (jlsLen == 0) ? NULL :
-                                           jlsValue->char_at_addr(jlsOffset);
-  assert(TypeArrayKlass::cast(jlsValue->klass())->element_type() == T_CHAR, "compressed string");
-  (void) UNICODE::as_utf8(jlsPos, jlsLen, (char *)dst, max_dtrace_string_size);
+  (void) java_lang_String::as_utf8_string(src, (char *)dst, max_dtrace_string_size);
 }
 #endif // ndef HAVE_DTRACE_H
 
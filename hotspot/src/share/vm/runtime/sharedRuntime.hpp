@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1997, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -145,6 +145,15 @@ class SharedRuntime: AllStatic {
   static double dsqrt(double f);
 #endif
 
+  // BigInteger arithmetic called by the intrinsics of C2
+  static void multiply_to_len(jint *x, jint xlen, jint *y, jint ylen, jint *z);
+  static void square_to_len(jint *x, jint len, jint *z, jint zlen);
+  static jint mul_add(jint *out, jint *in, jint end, jint len, jint k);
+  static void montgomery_multiply(jint *a_ints, jint *b_ints, jint *n_ints,
+                                  jint len, jlong inv, jint *m_ints);
+  static void montgomery_square(jint *a_ints, jint *n_ints,
+                                jint len, jlong inv, jint *m_ints);
+
 #ifdef __SOFTFP__
   // C++ compiler generates soft float instructions as well as passing
   // float and double in registers.
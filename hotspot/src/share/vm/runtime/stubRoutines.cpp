@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1997, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1997, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -124,10 +124,24 @@ address StubRoutines::_aescrypt_encryptBlock               = NULL;
 address StubRoutines::_aescrypt_decryptBlock               = NULL;
 address StubRoutines::_cipherBlockChaining_encryptAESCrypt = NULL;
 address StubRoutines::_cipherBlockChaining_decryptAESCrypt = NULL;
+address StubRoutines::_counterMode_AESCrypt                = NULL;
+address StubRoutines::_ghash_processBlocks                 = NULL;
+address StubRoutines::_sha256_implCompress                 = NULL;
+address StubRoutines::_sha256_implCompressLanes            = NULL;
+
+address StubRoutines::_multiplyToLen                       = NULL;
+address StubRoutines::_squareToLen                         = NULL;
+address StubRoutines::_mulAdd                              = NULL;
+address StubRoutines::_montgomeryMultiply                  = NULL;
+address StubRoutines::_montgomerySquare                    = NULL;
 
 address StubRoutines::_updateBytesCRC32 = NULL;
 address StubRoutines::_crc_table_adr = NULL;
 
+address StubRoutines::_decodeASCIIArray = NULL;
+address StubRoutines::_decodeISOArray   = NULL;
+address StubRoutines::_encodeASCIIArray = NULL;
+
 double (* StubRoutines::_intrinsic_log   )(double) = NULL;
 double (* StubRoutines::_intrinsic_log10 )(double) = NULL;
 double (* StubRoutines::_intrinsic_exp   )(double) = NULL;
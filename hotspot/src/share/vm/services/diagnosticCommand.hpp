@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2011, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2011, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -271,6 +271,44 @@ public:
   virtual void execute(DCmdSource source, TRAPS);
 };
 
+class StringtableDCmd : public DCmd {
+public:
+  StringtableDCmd(outputStream* output, bool heap) : DCmd(output, heap) { }
+  static const char* name() { return "VM.stringtable"; }
+  static const char* description() {
+    return "Print statistics about the interned String table.";
+  }
+  static const char* impact() {
+    return "Medium: Depends on the number of interned Strings.";
+  }
+  static const JavaPermission permission() {
+    JavaPermission p = {"java.lang.management.ManagementPermission",
+                        "monitor", NULL};
+    return p;
+  }
+  static int num_arguments() { return 0; }
+  virtual void execute(DCmdSource source, TRAPS);
+};
+
+class SymboltableDCmd : public DCmd {
+public:
+  SymboltableDCmd(outputStream* output, bool heap) : DCmd(output, heap) { }
+  static const char* name() { return "VM.symboltable"; }
+  static const char* description() {
+    return "Print statistics about the JVM internal Symbol table.";
+  }
+  static const char* impact() {
+    return "Medium: Depends on the number of Symbols.";
+  }
+  static const JavaPermission permission() {
+    JavaPermission p = {"java.lang.management.ManagementPermission",
+                        "monitor", NULL};
+    return p;
+  }
+  static int num_arguments() { return 0; }
+  virtual void execute(DCmdSource source, TRAPS);
+};
+
 // Enhanced JMX Agent support
 
 class JMXStartRemoteDCmd : public DCmdWithParser {
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2003, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2003, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -54,6 +54,10 @@
 #include "services/runtimeService.hpp"
 #include "services/threadService.hpp"
 #include "utilities/macros.hpp"
+#if INCLUDE_ALL_GCS
+#include "gc_implementation/g1/g1StringDedup.hpp"
+#include "gc_implementation/g1/g1StringDedupStat.hpp"
+#endif // INCLUDE_ALL_GCS
 
 PerfVariable* Management::_begin_vm_creation_time = NULL;
 PerfVariable* Management::_end_vm_creation_time = NULL;
@@ -949,6 +953,20 @@ JVM_ENTRY(jboolean, jmm_SetBoolAttribute(JNIEnv *env, jmmBoolAttribute att, jboo
 JVM_END
 
 
+// All GC memory managers have the number of GC threads as their first
+// extension attribute. With G1 string deduplication enabled, the totals
+// of the deduplication thread follow as 'J' attributes.
+static const int num_string_dedup_ext_attributes = 3;
+
+static jint num_gc_ext_attributes() {
+#if INCLUDE_ALL_GCS
+  if (G1StringDedup::is_enabled()) {
+    return 1 + num_string_dedup_ext_attributes;
+  }
+#endif // INCLUDE_ALL_GCS
+  return 1;
+}
+
 static jlong get_gc_attribute(GCMemoryManager* mgr, jmmLongAttribute att) {
   switch (att) {
   case JMM_GC_TIME_MS:
@@ -958,8 +976,7 @@ static jlong get_gc_attribute(GCMemoryManager* mgr, jmmLongAttribute att) {
     return mgr->gc_count();
 
   case JMM_GC_EXT_ATTRIBUTE_INFO_SIZE:
-    // current implementation only has 1 ext attribute
-    return 1;
+    return num_gc_ext_attributes();
 
   default:
     assert(0, "Unrecognized GC attribute");
@@ -2018,7 +2035,6 @@ JVM_END
 // -1 if info is not big enough
 //
 JVM_ENTRY(jint, jmm_GetGCExtAttributeInfo(JNIEnv *env, jobject mgr, jmmExtAttributeInfo* info, jint count))
-  // All GC memory managers have 1 attribute (number of GC threads)
   if (count == 0) {
     return 0;
   }
@@ -2027,10 +2043,28 @@ JVM_ENTRY(jint, jmm_GetGCExtAttributeInfo(JNIEnv *env, jobject mgr, jmmExtAttrib
    THROW_(vmSymbols::java_lang_NullPointerException(), 0);
   }
 
+  jint num_attributes = MIN2(count, num_gc_ext_attributes());
+
   info[0].name = "GcThreadCount";
   info[0].type = 'I';
   info[0].description = "Number of GC threads";
-  return 1;
+
+  if (num_attributes > 1) {
+    info[1].name = "StringDedupInspected";
+    info[1].type = 'J';
+    info[1].description = "Number of Strings inspected by string deduplication";
+  }
+  if (num_attributes > 2) {
+    info[2].name = "StringDedupDeduplicated";
+    info[2].type = 'J';
+    info[2].description = "Number of Strings deduplicated";
+  }
+  if (num_attributes > 3) {
+    info[3].name = "StringDedupDeduplicatedBytes";
+    info[3].type = 'J';
+    info[3].description = "Bytes of String value arrays deduplicated";
+  }
+  return num_attributes;
 JVM_END
 
 // verify the given array is an array of java/lang/management/MemoryUsage objects
@@ -2103,9 +2137,6 @@ JVM_ENTRY(void, jmm_GetLastGCStat(JNIEnv *env, jobject obj, jmmGCStat *gc_stat))
   gc_stat->start_time = Management::ticks_to_ms(stat.start_time());
   gc_stat->end_time = Management::ticks_to_ms(stat.end_time());
 
-  // Current implementation does not have GC extension attributes
-  gc_stat->num_gc_ext_attributes = 0;
-
   // Fill the arrays of MemoryUsage objects with before and after GC
   // per pool memory usage
   objArrayOop bu = get_memory_usage_objArray(gc_stat->usage_before_gc,
@@ -2135,11 +2166,26 @@ JVM_ENTRY(void, jmm_GetLastGCStat(JNIEnv *env, jobject obj, jmmGCStat *gc_stat))
     usage_after_gc_ah->obj_at_put(i, after_usage());
   }
 
-  if (gc_stat->gc_ext_attribute_values_size > 0) {
-    // Current implementation only has 1 attribute (number of GC threads)
-    // The type is 'I'
+  jint num_attributes = MIN2(gc_stat->gc_ext_attribute_values_size,
+                             num_gc_ext_attributes());
+  if (num_attributes > 0) {
+    // The number of GC threads, the type is 'I'
     gc_stat->gc_ext_attribute_values[0].i = mgr->num_gc_threads();
   }
+#if INCLUDE_ALL_GCS
+  if (num_attributes > 1) {
+    // The string deduplication totals, the type is 'J'
+    const G1StringDedupStat& dedup_stat = G1StringDedup::total_stat();
+    gc_stat->gc_ext_attribute_values[1].j = (jlong) dedup_stat.inspected();
+    if (num_attributes > 2) {
+      gc_stat->gc_ext_attribute_values[2].j = (jlong) dedup_stat.deduped();
+    }
+    if (num_attributes > 3) {
+      gc_stat->gc_ext_attribute_values[3].j = (jlong) dedup_stat.deduped_bytes();
+    }
+  }
+#endif // INCLUDE_ALL_GCS
+  gc_stat->num_gc_ext_attributes = num_attributes;
 JVM_END
 
 JVM_ENTRY(void, jmm_SetGCNotificationEnabled(JNIEnv *env, jobject obj, jboolean enabled))
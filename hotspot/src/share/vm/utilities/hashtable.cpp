@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2003, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2003, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -29,6 +29,7 @@
 #include "memory/filemap.hpp"
 #include "memory/resourceArea.hpp"
 #include "oops/oop.inline.hpp"
+#include "runtime/atomic.inline.hpp"
 #include "runtime/safepoint.hpp"
 #include "utilities/dtrace.hpp"
 #include "utilities/hashtable.hpp"
@@ -141,6 +142,74 @@ template <class T, MEMFLAGS F> void Hashtable<T, F>::move_to(Hashtable<T, F>* ne
   BasicHashtable<F>::free_buckets();
 }
 
+template <class T, MEMFLAGS F> void Hashtable<T, F>::copy_to(Hashtable<T, F>* new_table) {
+  for (int i = 0; i < this->table_size(); ++i) {
+    for (HashtableEntry<T, F>* p = bucket(i); p != NULL; p = p->next()) {
+      // The hash value does not depend on the size of the table, only the
+      // index does.
+      unsigned int hashValue = p->hash();
+      int index = new_table->hash_to_index(hashValue);
+      new_table->add_entry(index, new_table->new_entry(hashValue, p->literal()));
+    }
+  }
+  assert(new_table->number_of_entries() == this->number_of_entries(),
+         "lost entry on table copy?");
+}
+
+template <MEMFLAGS F> void BasicHashtable<F>::release_entries_to(BasicHashtable<F>* dest) {
+  assert(SafepointSynchronize::is_at_safepoint(), "must be at safepoint");
+  for (int i = 0; i < _table_size; ++i) {
+    BasicHashtableEntry<F>* p = bucket(i);
+    while (p != NULL) {
+      BasicHashtableEntry<F>* next = p->next();
+      // Shared entries live in the CDS archive and are never freed.
+      if (!p->is_shared()) {
+        p->set_next(dest->_free_list);
+        dest->_free_list = p;
+      }
+      p = next;
+    }
+    _buckets[i].clear();
+  }
+  while (_free_list != NULL) {
+    BasicHashtableEntry<F>* p = _free_list;
+    _free_list = p->next();
+    p->set_next(dest->_free_list);
+    dest->_free_list = p;
+  }
+  _number_of_entries = 0;
+}
+
+template <MEMFLAGS F> void BasicHashtable<F>::BucketUnlinkContext::free_entry(BasicHashtableEntry<F>* entry) {
+  entry->set_next(_removed_head);
+  _removed_head = entry;
+  if (_removed_tail == NULL) {
+    _removed_tail = entry;
+  }
+  _num_removed++;
+}
+
+template <MEMFLAGS F> void BasicHashtable<F>::bulk_free_entries(BucketUnlinkContext* context) {
+  if (context->_num_removed == 0) {
+    assert(context->_removed_head == NULL && context->_removed_tail == NULL,
+           "no entries removed, but some are linked in the context");
+    return;
+  }
+
+  // Prepend the list of removed entries to the free list.
+  BasicHashtableEntry<F>* current = _free_list;
+  while (true) {
+    context->_removed_tail->set_next(current);
+    BasicHashtableEntry<F>* old = (BasicHashtableEntry<F>*)
+      Atomic::cmpxchg_ptr(context->_removed_head, &_free_list, current);
+    if (old == current) {
+      break;
+    }
+    current = old;
+  }
+  Atomic::add(-context->_num_removed, &_number_of_entries);
+}
+
 template <MEMFLAGS F> void BasicHashtable<F>::free_buckets() {
   if (NULL != _buckets) {
     // Don't delete the buckets in the shared space.  They aren't
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2003, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2003, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -164,11 +164,11 @@ private:
   // Instance variables
   int               _table_size;
   HashtableBucket<F>*     _buckets;
-  BasicHashtableEntry<F>* _free_list;
+  BasicHashtableEntry<F>* volatile _free_list;
   char*             _first_free_entry;
   char*             _end_block;
   int               _entry_size;
-  int               _number_of_entries;
+  volatile int      _number_of_entries;
 
 protected:
 
@@ -220,6 +220,30 @@ protected:
   // Free the buckets in this hashtable
   void free_buckets();
 
+  // Hand all unshared entries of this table, including the ones on the
+  // free list, over to the free list of dest.  Used to reclaim a table
+  // that has been replaced by a resized copy once no lock-free reader
+  // can be walking it any more.
+  void release_entries_to(BasicHashtable<F>* dest);
+
+  // Entries unlinked by one of possibly several parallel cleaners.  They
+  // are collected locally and then added to the free list in one go.
+  struct BucketUnlinkContext {
+    int _num_processed;
+    int _num_removed;
+    BasicHashtableEntry<F>* _removed_head;
+    BasicHashtableEntry<F>* _removed_tail;
+
+    BucketUnlinkContext() : _num_processed(0), _num_removed(0),
+                            _removed_head(NULL), _removed_tail(NULL) { }
+
+    void free_entry(BasicHashtableEntry<F>* entry);
+  };
+
+  // Add the entries collected in context to the free list.  This is
+  // MT-safe with respect to other calls of this method.
+  void bulk_free_entries(BucketUnlinkContext* context);
+
 public:
   int table_size() { return _table_size; }
   void set_entry(int index, BasicHashtableEntry<F>* entry);
@@ -279,6 +303,11 @@ protected:
 
   // Function to move these elements into the new table.
   void move_to(Hashtable<T, F>* new_table);
+
+  // Function to copy these elements into the new table, which may have a
+  // different size.  Unlike move_to() this table is left untouched, so
+  // lock-free readers that are still walking it see all of its entries.
+  void copy_to(Hashtable<T, F>* new_table);
   static bool use_alternate_hashcode()  { return _seed != 0; }
   static jint seed()                    { return _seed; }
 
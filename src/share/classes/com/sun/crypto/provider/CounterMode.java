@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2002, 201313, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2002, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -39,10 +39,10 @@ import java.security.InvalidKeyException;
  * @author Andreas Sterbenz
  * @since 1.4.2
  */
-final class CounterMode extends FeedbackCipher {
+class CounterMode extends FeedbackCipher {
 
     // current counter value
-    private final byte[] counter;
+    final byte[] counter;
 
     // encrypted bytes of the previous counter value
     private final byte[] encryptedCounter;
@@ -197,18 +197,62 @@ final class CounterMode extends FeedbackCipher {
      * Do the actual encryption/decryption operation.
      * Essentially we XOR the input plaintext/ciphertext stream with a
      * keystream generated by encrypting the counter values. Counter values
-     * are encrypted on demand.
+     * are encrypted on demand. Whole blocks in the middle of the input are
+     * handed to implCrypt, which C2 replaces with a multi-block AES stub.
      */
     private int crypt(byte[] in, int inOff, int len, byte[] out, int outOff) {
         int result = len;
-        while (len-- > 0) {
-            if (used >= blockSize) {
-                embeddedCipher.encryptBlock(counter, 0, encryptedCounter, 0);
-                increment(counter);
-                used = 0;
-            }
+        // use up what is left of the keystream of the previous block
+        while ((len > 0) && (used < blockSize)) {
             out[outOff++] = (byte)(in[inOff++] ^ encryptedCounter[used++]);
+            len--;
+        }
+        int blocksLen = len - (len % blockSize);
+        if (blocksLen > 0) {
+            cryptRangeCheck(in, inOff, out, outOff, blocksLen);
+            implCrypt(in, inOff, blocksLen, out, outOff);
+            inOff += blocksLen;
+            outOff += blocksLen;
+            len -= blocksLen;
+        }
+        if (len > 0) {
+            embeddedCipher.encryptBlock(counter, 0, encryptedCounter, 0);
+            increment(counter);
+            used = 0;
+            while (len-- > 0) {
+                out[outOff++] = (byte)(in[inOff++] ^ encryptedCounter[used++]);
+            }
         }
         return result;
     }
+
+    // The intrinsic does not check array bounds, so do it up front.
+    private static void cryptRangeCheck(byte[] in, int inOff,
+            byte[] out, int outOff, int len) {
+        if ((inOff < 0) || (len > in.length - inOff)) {
+            throw new ArrayIndexOutOfBoundsException(inOff + len - 1);
+        }
+        if ((outOff < 0) || (len > out.length - outOff)) {
+            throw new ArrayIndexOutOfBoundsException(outOff + len - 1);
+        }
+    }
+
+    /*
+     * Encrypts or decrypts len bytes, which must be a multiple of the block
+     * size, and leaves the counter at the value for the next block.
+     *
+     * This is an intrinsified method. The intrinsic is only used when the
+     * embedded cipher is AESCrypt, and it neither reads nor updates
+     * encryptedCounter, which is stale once a whole block has been used.
+     */
+    private void implCrypt(byte[] in, int inOff, int len,
+            byte[] out, int outOff) {
+        for (int end = inOff + len; inOff < end; inOff += blockSize) {
+            embeddedCipher.encryptBlock(counter, 0, encryptedCounter, 0);
+            increment(counter);
+            for (int n = 0; n < blockSize; n++) {
+                out[outOff++] = (byte)(in[inOff + n] ^ encryptedCounter[n]);
+            }
+        }
+    }
 }
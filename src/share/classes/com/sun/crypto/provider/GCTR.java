@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -40,27 +40,28 @@ import static com.sun.crypto.provider.AESConstants.AES_BLOCK_SIZE;
  * of arbitrary length, it processes and returns an output which has
  * the same length as X.
  *
- * <p>This function is used in the implementation of GCM mode.
+ * <p>This function is used in the implementation of GCM mode. Complete
+ * blocks are processed by {@link CounterMode}, so they benefit from the
+ * same AES intrinsic as CTR mode.
  *
  * @since 1.8
  */
-final class GCTR {
-
-    // these fields should not change after the object has been constructed
-    private final SymmetricCipher aes;
-    private final byte[] icb;
-
-    // the current counter value
-    private byte[] counter;
-
-    // needed for save/restore calls
-    private byte[] counterSave = null;
+final class GCTR extends CounterMode {
 
     // NOTE: cipher should already be initialized
     GCTR(SymmetricCipher cipher, byte[] initialCounterBlk) {
-        this.aes = cipher;
-        this.icb = initialCounterBlk;
-        this.counter = icb.clone();
+        super(cipher);
+        if (initialCounterBlk.length != AES_BLOCK_SIZE) {
+            throw new RuntimeException("length of initial counter block (" +
+                initialCounterBlk.length + ") not equal to AES_BLOCK_SIZE");
+        }
+        this.iv = initialCounterBlk;
+        reset();
+    }
+
+    @Override
+    String getFeedback() {
+        return "GCTR";
     }
 
     // input must be multiples of 128-bit blocks when calling update
@@ -74,20 +75,30 @@ final class GCTR {
         if (out.length - outOfs < inLen) {
             throw new RuntimeException("output buffer too small");
         }
+        int result = inLen;
 
-        byte[] encryptedCntr = new byte[AES_BLOCK_SIZE];
-
-        int numOfCompleteBlocks = inLen / AES_BLOCK_SIZE;
-        for (int i = 0; i < numOfCompleteBlocks; i++) {
-            aes.encryptBlock(counter, 0, encryptedCntr, 0);
-            for (int n = 0; n < AES_BLOCK_SIZE; n++) {
-                int index = (i * AES_BLOCK_SIZE + n);
-                out[outOfs + index] =
-                    (byte) ((in[inOfs + index] ^ encryptedCntr[n]));
-            }
-            GaloisCounterMode.increment32(counter);
+        // GCTR only increments the rightmost 32 bits of the counter, while
+        // CounterMode increments all 128. The two differ only when those
+        // 32 bits wrap around, so stop there and undo the carry.
+        long blocksToWrap = (1L << 32) - (getInt32(counter) & 0xFFFFFFFFL);
+        if (inLen / AES_BLOCK_SIZE >= blocksToWrap) {
+            int len = (int) blocksToWrap * AES_BLOCK_SIZE;
+            byte[] prefix = new byte[AES_BLOCK_SIZE - 4];
+            System.arraycopy(counter, 0, prefix, 0, prefix.length);
+            encrypt(in, inOfs, len, out, outOfs);
+            System.arraycopy(prefix, 0, counter, 0, prefix.length);
+            inOfs += len;
+            outOfs += len;
+            inLen -= len;
         }
-        return inLen;
+        encrypt(in, inOfs, inLen, out, outOfs);
+        return result;
+    }
+
+    private static int getInt32(byte[] value) {
+        int n = value.length;
+        return ((value[n - 4] & 0xFF) << 24) | ((value[n - 3] & 0xFF) << 16) |
+               ((value[n - 2] & 0xFF) << 8) | (value[n - 1] & 0xFF);
     }
 
     // input can be arbitrary size when calling doFinal
@@ -104,7 +115,7 @@ final class GCTR {
                 if (lastBlockSize != 0) {
                     // do the last partial block
                     byte[] encryptedCntr = new byte[AES_BLOCK_SIZE];
-                    aes.encryptBlock(counter, 0, encryptedCntr, 0);
+                    embeddedCipher.encryptBlock(counter, 0, encryptedCntr, 0);
                     for (int n = 0; n < lastBlockSize; n++) {
                         out[outOfs + completeBlkLen + n] =
                             (byte) ((in[inOfs + completeBlkLen + n] ^
@@ -117,26 +128,4 @@ final class GCTR {
         }
         return inLen;
     }
-
-    /**
-     * Resets the content of this object to when it's first constructed.
-     */
-    void reset() {
-        System.arraycopy(icb, 0, counter, 0, icb.length);
-        counterSave = null;
-    }
-
-    /**
-     * Save the current content of this object.
-     */
-    void save() {
-        this.counterSave = this.counter.clone();
-    }
-
-    /**
-     * Restores the content of this object to the previous saved one.
-     */
-    void restore() {
-        this.counter = this.counterSave;
-    }
 }
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.net.httpclient;
+
+import java.io.IOException;
+import java.net.ProxySelector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+/**
+ * An asynchronous HTTP/1.1 client. A HttpClient sends {@link HttpRequest}s
+ * and returns their {@link HttpResponse}s through a
+ * {@link java.util.concurrent.CompletableFuture}, without blocking a thread
+ * for the duration of each exchange.
+ * <p>
+ * All network I/O is done without blocking by a small number of selector
+ * threads, which are shared by all the connections of the client. The
+ * number of selector threads is given by the
+ * {@code sun.net.httpclient.selectors} system property, and defaults to two
+ * or the number of processors, whichever is smaller.
+ * <p>
+ * Connections are kept alive and reused for later requests to the same
+ * destination. At most {@code sun.net.httpclient.maxIdlePerRoute} (default
+ * 8) idle connections are kept per destination, each for as long as the
+ * server allows, or {@code sun.net.httpclient.keepAliveTimeout} seconds
+ * (default 30) if it does not say.
+ * <p>
+ * Proxies are selected with the {@link ProxySelector} of the client, which
+ * defaults to the system-wide one, so the {@code http.proxyHost},
+ * {@code https.proxyHost} and {@code http.nonProxyHosts} system properties
+ * are honoured as they are by {@link java.net.HttpURLConnection}. Requests
+ * for "https" URIs are tunneled through HTTP proxies with CONNECT. SOCKS
+ * proxies are not supported.
+ * <p>
+ * Servers and proxies requesting Basic authentication are answered with
+ * credentials obtained from the default {@link java.net.Authenticator}.
+ * Credentials are cached, and shared with {@link java.net.HttpURLConnection},
+ * so that they are sent preemptively to the same protection space.
+ * <p>
+ * Redirects are not followed; 3xx responses are returned to the caller.
+ *
+ * @since 1.9
+ */
+@jdk.Exported
+public abstract class HttpClient {
+
+    /**
+     * Creates a HttpClient.
+     */
+    protected HttpClient () {
+    }
+
+    /**
+     * Creates a HttpClient, with the system-wide proxy selector, the
+     * default SSLContext and a default executor.
+     * @return a new HttpClient
+     * @throws IOException if the selector threads cannot be started
+     */
+    public static HttpClient create () throws IOException {
+        return new sun.net.httpclient.HttpClientImpl();
+    }
+
+    /**
+     * Sets the executor used to complete response futures and to call
+     * the {@link java.net.Authenticator}. The selector threads never run
+     * application code other than {@link HttpResponse.BodyHandler}s and
+     * {@link HttpResponse.BodySubscriber}s, which must therefore not block.
+     * @param executor the executor, or <code>null</code> to use a default
+     *        executor
+     */
+    public abstract void setExecutor (Executor executor);
+
+    /**
+     * Returns the executor set with {@link #setExecutor(Executor)}, or
+     * <code>null</code> if the default executor is used.
+     * @return the executor
+     */
+    public abstract Executor getExecutor ();
+
+    /**
+     * Sets the SSLContext used for "https" requests. New connections use
+     * the SSLContext set at the time they are opened.
+     * @param context the SSLContext, or <code>null</code> to use
+     *        {@link SSLContext#getDefault()}
+     */
+    public abstract void setSSLContext (SSLContext context);
+
+    /**
+     * Returns the SSLContext used for "https" requests.
+     * @return the SSLContext
+     * @throws IOException if the default SSLContext cannot be created
+     */
+    public abstract SSLContext getSSLContext () throws IOException;
+
+    /**
+     * Sets the SSLParameters applied to the SSLEngine of new "https"
+     * connections. Server host name verification is enabled regardless.
+     * @param params the SSLParameters, or <code>null</code> to use those
+     *        of the SSLContext
+     */
+    public abstract void setSSLParameters (SSLParameters params);
+
+    /**
+     * Sets the ProxySelector which chooses the proxy for each request.
+     * @param selector the ProxySelector, or <code>null</code> to use
+     *        {@link ProxySelector#getDefault()}
+     */
+    public abstract void setProxySelector (ProxySelector selector);
+
+    /**
+     * Sets the timeout for establishing new connections, including any
+     * proxy tunnel and SSL handshake.
+     * @param millis the timeout in milliseconds, or zero for no timeout
+     * @throws IllegalArgumentException if <code>millis</code> is negative
+     */
+    public abstract void setConnectTimeout (int millis);
+
+    /**
+     * Sends the given request. The returned future completes once the
+     * response body has been received by the {@link HttpResponse.BodySubscriber}
+     * returned from the given handler, or exceptionally if the exchange
+     * fails.
+     * <p>
+     * A request sent on a reused connection which is found to have been
+     * closed by the server before any response arrives is retried once on
+     * a new connection, if its method is idempotent.
+     * @param <T> the type of the response body
+     * @param request the request to send
+     * @param handler the handler which creates the body subscriber once
+     *        the response status and headers are known
+     * @return a future for the response
+     * @throws IllegalArgumentException if the request URI does not have
+     *         an "http" or "https" scheme and a host
+     * @throws IllegalStateException if this client has been closed
+     */
+    public abstract <T> CompletableFuture<HttpResponse<T>> sendAsync (
+        HttpRequest request, HttpResponse.BodyHandler<T> handler
+    );
+
+    /**
+     * Sends the given request, and blocks until the response body has
+     * been received.
+     * @param <T> the type of the response body
+     * @param request the request to send
+     * @param handler the handler which creates the body subscriber
+     * @return the response
+     * @throws IOException if an I/O error occurs
+     * @throws InterruptedException if the calling thread is interrupted
+     *         while waiting for the response
+     */
+    public <T> HttpResponse<T> send (
+        HttpRequest request, HttpResponse.BodyHandler<T> handler
+    ) throws IOException, InterruptedException {
+        try {
+            return sendAsync (request, handler).get();
+        } catch (ExecutionException e) {
+            Throwable t = e.getCause();
+            if (t instanceof IOException) {
+                throw (IOException)t;
+            }
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException)t;
+            }
+            if (t instanceof Error) {
+                throw (Error)t;
+            }
+            throw new IOException (t);
+        }
+    }
+
+    /**
+     * Closes this client. Idle connections are closed, the selector
+     * threads are stopped, and exchanges in progress fail.
+     */
+    public abstract void close ();
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.net.httpclient;
+
+import java.net.URI;
+import com.sun.net.httpserver.Headers;
+
+/**
+ * A HTTP request, to be sent with {@link HttpClient}. A request consists of
+ * a method, a URI, a set of request headers and an optional body.
+ * <p>
+ * The <code>Host</code>, <code>Content-length</code> and
+ * <code>Transfer-encoding</code> headers are set by the client. A
+ * <code>User-agent</code> header is added unless one is set. Requests may be
+ * sent more than once, but must not be modified while they are being sent.
+ *
+ * @since 1.9
+ */
+@jdk.Exported
+public class HttpRequest {
+
+    private final String method;
+    private final URI uri;
+    private final Headers headers = new Headers();
+    private byte[] body;
+
+    /**
+     * Creates a GET request for the given URI.
+     * @param uri the URI, with an "http" or "https" scheme
+     * @throws NullPointerException if <code>uri</code> is <code>null</code>
+     */
+    public HttpRequest (URI uri) {
+        this ("GET", uri);
+    }
+
+    /**
+     * Creates a request with the given method for the given URI.
+     * @param method the request method, for instance "POST"
+     * @param uri the URI, with an "http" or "https" scheme
+     * @throws NullPointerException if either parameter is <code>null</code>
+     * @throws IllegalArgumentException if the method is empty or contains
+     *         whitespace
+     */
+    public HttpRequest (String method, URI uri) {
+        if (method == null || uri == null) {
+            throw new NullPointerException ("null method or uri");
+        }
+        if (method.isEmpty()) {
+            throw new IllegalArgumentException ("empty method");
+        }
+        for (int i=0; i<method.length(); i++) {
+            if (method.charAt (i) <= ' ') {
+                throw new IllegalArgumentException ("invalid method: " + method);
+            }
+        }
+        this.method = method;
+        this.uri = uri;
+    }
+
+    /**
+     * Returns the request method.
+     * @return the request method
+     */
+    public String getMethod () {
+        return method;
+    }
+
+    /**
+     * Returns the request URI.
+     * @return the request URI
+     */
+    public URI getURI () {
+        return uri;
+    }
+
+    /**
+     * Returns the mutable headers of this request.
+     * @return the request headers
+     */
+    public Headers getHeaders () {
+        return headers;
+    }
+
+    /**
+     * Sets the request body. The array is not copied.
+     * @param body the request body, or <code>null</code> for no body
+     */
+    public void setBody (byte[] body) {
+        this.body = body;
+    }
+
+    /**
+     * Returns the request body.
+     * @return the request body, or <code>null</code> if there is none
+     */
+    public byte[] getBody () {
+        return body;
+    }
+
+    public String toString () {
+        return method + " " + uri;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package com.sun.net.httpclient;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.CompletionStage;
+import com.sun.net.httpserver.Headers;
+import sun.net.httpclient.ResponseSubscribers;
+
+/**
+ * A HTTP response, received by {@link HttpClient}.
+ * <p>
+ * The response body is streamed to a {@link BodySubscriber}, which the
+ * client obtains from the {@link BodyHandler} given to
+ * {@link HttpClient#sendAsync sendAsync} once the status and headers of
+ * the response are known. The subscriber receives the body as a sequence of
+ * ByteBuffers, and controls the rate at which they arrive through its
+ * {@link Subscription}: no more buffers are delivered than it has
+ * requested, and the client stops reading from the connection while there
+ * is no outstanding demand.
+ * <p>
+ * Handlers for the common cases are provided by {@link #asByteArray()},
+ * {@link #asString()} and {@link #discard()}.
+ *
+ * @param <T> the type of the response body
+ * @since 1.9
+ */
+@jdk.Exported
+public abstract class HttpResponse<T> {
+
+    /**
+     * Creates a HttpResponse.
+     */
+    protected HttpResponse () {
+    }
+
+    /**
+     * Returns the response status code.
+     * @return the status code
+     */
+    public abstract int getStatusCode ();
+
+    /**
+     * Returns the response headers.
+     * @return the response headers
+     */
+    public abstract Headers getHeaders ();
+
+    /**
+     * Returns the request this is the response to.
+     * @return the request
+     */
+    public abstract HttpRequest getRequest ();
+
+    /**
+     * Returns the response body, as produced by the body subscriber.
+     * @return the response body
+     */
+    public abstract T getBody ();
+
+    /**
+     * Creates the {@link BodySubscriber} for a response, once its status
+     * and headers have been received. Handlers are called on a selector
+     * thread of the client, and must not block.
+     * @param <T> the type of the response body
+     */
+    @jdk.Exported
+    public interface BodyHandler<T> {
+
+        /**
+         * Returns the subscriber for the body of a response.
+         * @param statusCode the response status code
+         * @param headers the response headers
+         * @return the body subscriber
+         */
+        BodySubscriber<T> apply (int statusCode, Headers headers);
+    }
+
+    /**
+     * Receives the body of a response as a sequence of ByteBuffers.
+     * <p>
+     * {@link #onSubscribe onSubscribe} is called first, followed by at most
+     * as many calls to {@link #onNext onNext} as have been requested through
+     * the subscription, and finally either {@link #onComplete onComplete}
+     * or {@link #onError onError}. Calls are made on a selector thread of
+     * the client, one at a time, and must not block.
+     * @param <T> the type of the response body
+     */
+    @jdk.Exported
+    public interface BodySubscriber<T> {
+
+        /**
+         * Called before any other method, with the subscription through
+         * which the subscriber requests data.
+         * @param subscription the subscription
+         */
+        void onSubscribe (Subscription subscription);
+
+        /**
+         * Called with the next part of the response body. The buffer is
+         * not used by the client afterwards.
+         * @param item the next part of the body
+         */
+        void onNext (ByteBuffer item);
+
+        /**
+         * Called if the exchange fails. No further methods are called.
+         * @param throwable the cause of the failure
+         */
+        void onError (Throwable throwable);
+
+        /**
+         * Called once the whole body has been delivered. No further
+         * methods are called.
+         */
+        void onComplete ();
+
+        /**
+         * Returns a stage which completes with the response body, after
+         * {@link #onComplete()} has been called.
+         * @return the body stage
+         */
+        CompletionStage<T> getBody ();
+    }
+
+    /**
+     * Controls the delivery of the response body to a {@link BodySubscriber}.
+     * The methods of a subscription may be called from any thread.
+     */
+    @jdk.Exported
+    public interface Subscription {
+
+        /**
+         * Adds the given number of buffers to the demand of the subscriber.
+         * @param n the number of buffers, or <code>Long.MAX_VALUE</code>
+         *        for unbounded demand
+         * @throws IllegalArgumentException if <code>n</code> is not positive
+         */
+        void request (long n);
+
+        /**
+         * Stops delivery of the response body. The connection is closed,
+         * and the response future completes exceptionally.
+         */
+        void cancel ();
+    }
+
+    /**
+     * Returns a handler which accumulates the response body in a byte array.
+     * @return the handler
+     */
+    public static BodyHandler<byte[]> asByteArray () {
+        return ResponseSubscribers.byteArrayHandler();
+    }
+
+    /**
+     * Returns a handler which decodes the response body into a String, with
+     * the charset given in the <code>Content-type</code> response header, or
+     * ISO-8859-1 if none is given.
+     * @return the handler
+     */
+    public static BodyHandler<String> asString () {
+        return ResponseSubscribers.stringHandler (null);
+    }
+
+    /**
+     * Returns a handler which decodes the response body into a String with
+     * the given charset.
+     * @param charset the charset
+     * @return the handler
+     */
+    public static BodyHandler<String> asString (Charset charset) {
+        if (charset == null) {
+            throw new NullPointerException ("null charset");
+        }
+        return ResponseSubscribers.stringHandler (charset);
+    }
+
+    /**
+     * Returns a handler which reads and discards the response body.
+     * @return the handler
+     */
+    public static BodyHandler<Void> discard () {
+        return ResponseSubscribers.discardHandler();
+    }
+}
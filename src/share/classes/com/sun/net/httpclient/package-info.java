@@ -0,0 +1,23 @@
+/**
+   Provides an asynchronous HTTP/1.1 client API. Both "http" and "https"
+   are supported.
+   <p>
+   A {@link com.sun.net.httpclient.HttpClient} sends
+   {@link com.sun.net.httpclient.HttpRequest}s and completes a
+   {@link java.util.concurrent.CompletableFuture} with each
+   {@link com.sun.net.httpclient.HttpResponse}, so that many requests can be
+   outstanding at once without tying up a thread for each of them.
+   <p>
+   A simple example, which sends requests to several servers at once
+   and prints the responses as they arrive, is shown below:
+   <blockquote><pre>
+   HttpClient client = HttpClient.create();
+   for (URI uri : uris) {
+       client.sendAsync(new HttpRequest(uri), HttpResponse.asString())
+             .thenAccept(r -&gt; System.out.println(uri + ": " + r.getBody()));
+   }
+   </pre></blockquote>
+   @since 1.9
+ */
+@jdk.Exported
+package com.sun.net.httpclient;
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -185,6 +185,182 @@ public abstract class HttpExchange {
      */
     public abstract void sendResponseHeaders (int rCode, long responseLength) throws IOException ;
 
+    /**
+     * Sends a complete response whose body is the given region of a file.
+     * This is equivalent to calling {@link #sendResponseHeaders(int,long)}
+     * with the given response code and length, writing the region to the
+     * stream returned from {@link #getResponseBody()} and closing it, and
+     * terminates the exchange in the same way.
+     * <p>
+     * Implementations may transfer the region directly from the file to
+     * the underlying connection without copying it through the response
+     * stream, for instance with {@link FileChannel#transferTo
+     * FileChannel.transferTo}. The region is copied through the response
+     * stream if a filter has replaced it with {@link #setStreams}.
+     * <p>
+     * No response body is sent if the request method is HEAD, if
+     * <code>count</code> is zero, or if the response code does not permit
+     * a response body.
+     * <p>
+     * The default implementation copies the region through the response
+     * stream.
+     * @param rCode the response code to send
+     * @param src the file channel to read the response body from. Its
+     *        position is not changed.
+     * @param position the position in the file of the first byte to send
+     * @param count the number of bytes to send
+     * @throws IOException if an I/O error occurs, or if the file has fewer
+     *         than <code>position + count</code> bytes
+     * @throws IllegalArgumentException if <code>position</code> or
+     *         <code>count</code> is negative
+     * @since 1.9
+     */
+    public void sendFile (int rCode, FileChannel src, long position, long count)
+        throws IOException
+    {
+        if (position < 0 || count < 0) {
+            throw new IllegalArgumentException ("negative position or count");
+        }
+        sendResponseHeaders (rCode, count == 0 ? -1 : count);
+        if (count == 0 || "HEAD".equals (getRequestMethod())
+            || (rCode >= 100 && rCode < 200) || rCode == 204 || rCode == 304)
+        {
+            return;
+        }
+        OutputStream os = getResponseBody();
+        byte[] b = new byte [8192];
+        ByteBuffer buf = ByteBuffer.wrap (b);
+        while (count > 0) {
+            buf.clear();
+            if (count < buf.capacity()) {
+                buf.limit ((int)count);
+            }
+            int n = src.read (buf, position);
+            if (n == -1) {
+                throw new EOFException ("unexpected end of file");
+            }
+            os.write (b, 0, n);
+            position += n;
+            count -= n;
+        }
+        os.close();
+    }
+
+    /**
+     * Sends a complete response whose body is the given region of a file,
+     * or the part of it selected by the <code>Range</code> header of the
+     * request.
+     * <p>
+     * If the request is a GET with a single byte range
+     * (<code>bytes=first-last</code>, <code>bytes=first-</code> or
+     * <code>bytes=-suffix</code>) that overlaps the region, then only that
+     * part is sent, with response code 206 (Partial Content) and a
+     * <code>Content-range</code> header. If the range lies beyond the end of
+     * the region, a 416 (Range Not Satisfiable) response is sent without a
+     * body. Otherwise, including for requests with several ranges or a
+     * malformed <code>Range</code> header, the whole region is sent with
+     * response code 200.
+     * <p>
+     * An <code>If-range</code> request header is honoured by comparing it
+     * with the <code>ETag</code> or <code>Last-modified</code> response
+     * header, which should therefore be set before calling this method. If
+     * they do not match, the whole region is sent.
+     * <p>
+     * The <code>Accept-ranges: bytes</code> response header is always set.
+     * The body is sent with {@link #sendFile(int,FileChannel,long,long)}.
+     * @param src the file channel to read the response body from
+     * @param position the position in the file of the start of the region
+     * @param count the size of the region
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalArgumentException if <code>position</code> or
+     *         <code>count</code> is negative
+     * @since 1.9
+     */
+    public void sendFile (FileChannel src, long position, long count)
+        throws IOException
+    {
+        if (position < 0 || count < 0) {
+            throw new IllegalArgumentException ("negative position or count");
+        }
+        Headers rspHdrs = getResponseHeaders();
+        rspHdrs.set ("Accept-ranges", "bytes");
+        long[] range = null;
+        if ("GET".equals (getRequestMethod())) {
+            Headers reqHdrs = getRequestHeaders();
+            String r = reqHdrs.getFirst ("Range");
+            if (r != null && ifRangeMatches (reqHdrs.getFirst ("If-range"))) {
+                range = parseRange (r, count);
+            }
+        }
+        if (range == null) {
+            sendFile (200, src, position, count);
+        } else if (range[0] >= count) {
+            rspHdrs.set ("Content-range", "bytes */" + count);
+            sendResponseHeaders (416, -1);
+        } else {
+            long first = range[0];
+            long last = Math.min (range[1], count - 1);
+            rspHdrs.set ("Content-range",
+                         "bytes " + first + "-" + last + "/" + count);
+            sendFile (206, src, position + first, last - first + 1);
+        }
+    }
+
+    /* If-range only matches a strong entity tag or the last modified
+     * date of the response exactly
+     */
+    private boolean ifRangeMatches (String ifRange) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith ("W/")) {
+            return false;
+        }
+        Headers rspHdrs = getResponseHeaders();
+        String validator = ifRange.startsWith ("\"")
+            ? rspHdrs.getFirst ("ETag") : rspHdrs.getFirst ("Last-modified");
+        return ifRange.equals (validator);
+    }
+
+    /* Parses a single byte range. Returns {first, last}, with first >= size
+     * if the range is not satisfiable, or null if the header is to be
+     * ignored.
+     */
+    private static long[] parseRange (String r, long size) {
+        r = r.trim();
+        if (!r.regionMatches (true, 0, "bytes=", 0, 6) || r.indexOf (',') != -1) {
+            return null;
+        }
+        String spec = r.substring (6).trim();
+        int dash = spec.indexOf ('-');
+        if (dash == -1) {
+            return null;
+        }
+        try {
+            String f = spec.substring (0, dash).trim();
+            String l = spec.substring (dash + 1).trim();
+            if (f.isEmpty()) {
+                /* suffix range */
+                long n = Long.parseLong (l);
+                if (n < 0) {
+                    return null;
+                }
+                if (n == 0) {
+                    return new long[] {size, size};
+                }
+                return new long[] {Math.max (size - n, 0), size - 1};
+            }
+            long first = Long.parseLong (f);
+            long last = l.isEmpty() ? Long.MAX_VALUE : Long.parseLong (l);
+            if (first < 0 || last < first) {
+                return null;
+            }
+            return new long[] {first, last};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     /**
      * Returns the address of the remote entity invoking this request
      * @return the InetSocketAddress of the caller
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1994, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1994, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -310,29 +310,56 @@ public final class Integer extends Number implements Comparable<Integer> {
         // assert shift > 0 && shift <=5 : "Illegal shift value";
         int mag = Integer.SIZE - Integer.numberOfLeadingZeros(val);
         int chars = Math.max(((mag + (shift - 1)) / shift), 1);
-        char[] buf = new char[chars];
-
-        formatUnsignedInt(val, shift, buf, 0, chars);
 
         // Use special constructor which takes over "buf".
-        return new String(buf, true);
+        if (String.COMPACT_STRINGS) {
+            byte[] buf = new byte[chars];
+            formatUnsignedInt(val, shift, buf, 0, chars);
+            return new String(buf, String.LATIN1);
+        } else {
+            byte[] buf = StringUTF16.newBytesFor(chars);
+            formatUnsignedIntUTF16(val, shift, buf, 0, chars);
+            return new String(buf, String.UTF16);
+        }
     }
 
     /**
-     * Format a long (treated as unsigned) into a character buffer.
+     * Format an int (treated as unsigned) into a byte buffer, one Latin1
+     * byte per character.
      * @param val the unsigned int to format
      * @param shift the log2 of the base to format in (4 for hex, 3 for octal, 1 for binary)
-     * @param buf the character buffer to write to
+     * @param buf the byte buffer to write to
      * @param offset the offset in the destination buffer to start at
      * @param len the number of characters to write
      * @return the lowest character  location used
      */
-     static int formatUnsignedInt(int val, int shift, char[] buf, int offset, int len) {
+     static int formatUnsignedInt(int val, int shift, byte[] buf, int offset, int len) {
         int charPos = len;
         int radix = 1 << shift;
         int mask = radix - 1;
         do {
-            buf[offset + --charPos] = Integer.digits[val & mask];
+            buf[offset + --charPos] = (byte)Integer.digits[val & mask];
+            val >>>= shift;
+        } while (val != 0 && charPos > 0);
+
+        return charPos;
+    }
+
+    /**
+     * Format an int (treated as unsigned) into a UTF16 byte buffer.
+     * @param val the unsigned int to format
+     * @param shift the log2 of the base to format in (4 for hex, 3 for octal, 1 for binary)
+     * @param buf the byte buffer to write to
+     * @param offset the offset, in characters, in the destination buffer to start at
+     * @param len the number of characters to write
+     * @return the lowest character  location used
+     */
+     private static int formatUnsignedIntUTF16(int val, int shift, byte[] buf, int offset, int len) {
+        int charPos = len;
+        int radix = 1 << shift;
+        int mask = radix - 1;
+        do {
+            StringUTF16.putChar(buf, offset + --charPos, Integer.digits[val & mask]);
             val >>>= shift;
         } while (val != 0 && charPos > 0);
 
@@ -398,9 +425,15 @@ public final class Integer extends Number implements Comparable<Integer> {
         if (i == Integer.MIN_VALUE)
             return "-2147483648";
         int size = (i < 0) ? stringSize(-i) + 1 : stringSize(i);
-        char[] buf = new char[size];
-        getChars(i, size, buf);
-        return new String(buf, true);
+        if (String.COMPACT_STRINGS) {
+            byte[] buf = new byte[size];
+            getChars(i, size, buf);
+            return new String(buf, String.LATIN1);
+        } else {
+            byte[] buf = StringUTF16.newBytesFor(size);
+            StringUTF16.getChars(i, 0, size, buf);
+            return new String(buf, String.UTF16);
+        }
     }
 
     /**
@@ -423,17 +456,17 @@ public final class Integer extends Number implements Comparable<Integer> {
 
     /**
      * Places characters representing the integer i into the
-     * character array buf. The characters are placed into
-     * the buffer backwards starting with the least significant
+     * byte array buf, one Latin1 byte per character. The characters
+     * are placed into the buffer backwards starting with the least significant
      * digit at the specified index (exclusive), and working
      * backwards from there.
      *
      * Will fail if i == Integer.MIN_VALUE
      */
-    static void getChars(int i, int index, char[] buf) {
+    static void getChars(int i, int index, byte[] buf) {
         int q, r;
         int charPos = index;
-        char sign = 0;
+        byte sign = 0;
 
         if (i < 0) {
             sign = '-';
@@ -446,8 +479,8 @@ public final class Integer extends Number implements Comparable<Integer> {
         // really: r = i - (q * 100);
             r = i - ((q << 6) + (q << 5) + (q << 2));
             i = q;
-            buf [--charPos] = DigitOnes[r];
-            buf [--charPos] = DigitTens[r];
+            buf [--charPos] = (byte)DigitOnes[r];
+            buf [--charPos] = (byte)DigitTens[r];
         }
 
         // Fall thru to fast mode for smaller numbers
@@ -455,7 +488,7 @@ public final class Integer extends Number implements Comparable<Integer> {
         for (;;) {
             q = (i * 52429) >>> (16+3);
             r = i - ((q << 3) + (q << 1));  // r = i-(q*10) ...
-            buf [--charPos] = digits [r];
+            buf [--charPos] = (byte)digits [r];
             i = q;
             if (i == 0) break;
         }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2000, 2012, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2000, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -42,6 +42,13 @@ import sun.misc.MessageUtils;
 import sun.nio.cs.HistoricallyNamedCharset;
 import sun.nio.cs.ArrayDecoder;
 import sun.nio.cs.ArrayEncoder;
+import sun.nio.cs.ISO_8859_1;
+import sun.nio.cs.US_ASCII;
+import sun.nio.cs.UTF_8;
+
+import static java.lang.String.COMPACT_STRINGS;
+import static java.lang.String.LATIN1;
+import static java.lang.String.UTF16;
 
 /**
  * Utility class for string encoding and decoding.
@@ -79,14 +86,13 @@ class StringCoding {
             return Arrays.copyOf(ba, len);
     }
 
-    // Trim the given char array to the given length
-    //
-    private static char[] safeTrim(char[] ca, int len,
-                                   Charset cs, boolean isTrusted) {
-        if (len == ca.length && (isTrusted || System.getSecurityManager() == null))
-            return ca;
-        else
-            return Arrays.copyOf(ca, len);
+    private static boolean hasNegatives(byte[] ba, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            if (ba[i] < 0) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private static int scale(int len, float expansionFactor) {
@@ -118,6 +124,55 @@ class StringCoding {
     }
 
 
+    // The value and coder of a decoded String
+    static class Result {
+        byte[] value;
+        byte coder;
+
+        Result with() {
+            coder = COMPACT_STRINGS ? LATIN1 : UTF16;
+            value = new byte[0];
+            return this;
+        }
+
+        Result with(char[] val, int off, int len) {
+            if (COMPACT_STRINGS) {
+                byte[] bs = StringUTF16.compress(val, off, len);
+                if (bs != null) {
+                    value = bs;
+                    coder = LATIN1;
+                    return this;
+                }
+            }
+            coder = UTF16;
+            value = StringUTF16.toBytes(val, off, len);
+            return this;
+        }
+
+        // The bytes are Latin1 characters
+        Result with(byte[] val, int off, int len) {
+            if (COMPACT_STRINGS) {
+                value = Arrays.copyOfRange(val, off, off + len);
+                coder = LATIN1;
+            } else {
+                value = StringUTF16.newBytesFor(len);
+                StringLatin1.inflate(val, off, value, 0, len);
+                coder = UTF16;
+            }
+            return this;
+        }
+    }
+
+    // Whether the bytes decode to the same Latin1 characters, which
+    // is the case for ISO-8859-1 and for ASCII input to US-ASCII or UTF-8.
+    private static boolean isLatin1Identity(Charset cs, byte[] ba, int off, int len) {
+        Class<?> clazz = cs.getClass();
+        if (clazz == ISO_8859_1.class)
+            return true;
+        return (clazz == US_ASCII.class || clazz == UTF_8.class)
+               && !hasNegatives(ba, off, len);
+    }
+
     // -- Decoding --
     private static class StringDecoder {
         private final String requestedCharsetName;
@@ -144,14 +199,17 @@ class StringCoding {
             return requestedCharsetName;
         }
 
-        char[] decode(byte[] ba, int off, int len) {
+        Result decode(byte[] ba, int off, int len) {
+            Result result = new Result();
+            if (len == 0)
+                return result.with();
+            if (isLatin1Identity(cs, ba, off, len))
+                return result.with(ba, off, len);
             int en = scale(len, cd.maxCharsPerByte());
             char[] ca = new char[en];
-            if (len == 0)
-                return ca;
             if (cd instanceof ArrayDecoder) {
                 int clen = ((ArrayDecoder)cd).decode(ba, off, len, ca);
-                return safeTrim(ca, clen, cs, isTrusted);
+                return result.with(ca, 0, clen);
             } else {
                 cd.reset();
                 ByteBuffer bb = ByteBuffer.wrap(ba, off, len);
@@ -168,12 +226,12 @@ class StringCoding {
                     // so this shouldn't happen
                     throw new Error(x);
                 }
-                return safeTrim(ca, cb.position(), cs, isTrusted);
+                return result.with(ca, 0, cb.position());
             }
         }
     }
 
-    static char[] decode(String charsetName, byte[] ba, int off, int len)
+    static Result decode(String charsetName, byte[] ba, int off, int len)
         throws UnsupportedEncodingException
     {
         StringDecoder sd = deref(decoder);
@@ -193,7 +251,7 @@ class StringCoding {
         return sd.decode(ba, off, len);
     }
 
-    static char[] decode(Charset cs, byte[] ba, int off, int len) {
+    static Result decode(Charset cs, byte[] ba, int off, int len) {
         // (1)We never cache the "external" cs, the only benefit of creating
         // an additional StringDe/Encoder object to wrap it is to share the
         // de/encode() method. These SD/E objects are short-lifed, the young-gen
@@ -210,11 +268,14 @@ class StringCoding {
         // check (... && (isTrusted || SM == null || getClassLoader0())) in trim
         // but it then can be argued that the SM is null when the opertaion
         // is started...
+        Result result = new Result();
+        if (len == 0)
+            return result.with();
+        if (isLatin1Identity(cs, ba, off, len))
+            return result.with(ba, off, len);
         CharsetDecoder cd = cs.newDecoder();
         int en = scale(len, cd.maxCharsPerByte());
         char[] ca = new char[en];
-        if (len == 0)
-            return ca;
         boolean isTrusted = false;
         if (System.getSecurityManager() != null) {
             if (!(isTrusted = (cs.getClass().getClassLoader0() == null))) {
@@ -227,7 +288,7 @@ class StringCoding {
           .reset();
         if (cd instanceof ArrayDecoder) {
             int clen = ((ArrayDecoder)cd).decode(ba, off, len, ca);
-            return safeTrim(ca, clen, cs, isTrusted);
+            return result.with(ca, 0, clen);
         } else {
             ByteBuffer bb = ByteBuffer.wrap(ba, off, len);
             CharBuffer cb = CharBuffer.wrap(ca);
@@ -243,11 +304,11 @@ class StringCoding {
                 // so this shouldn't happen
                 throw new Error(x);
             }
-            return safeTrim(ca, cb.position(), cs, isTrusted);
+            return result.with(ca, 0, cb.position());
         }
     }
 
-    static char[] decode(byte[] ba, int off, int len) {
+    static Result decode(byte[] ba, int off, int len) {
         String csn = Charset.defaultCharset().name();
         try {
             // use charset name decode() variant which provides caching.
@@ -269,6 +330,40 @@ class StringCoding {
         }
     }
 
+    // Encodes Latin1 characters without going through the encoder when
+    // the charset is ISO-8859-1, US-ASCII or UTF-8; returns null otherwise.
+    private static byte[] encodeLatin1(Charset cs, byte[] val) {
+        Class<?> clazz = cs.getClass();
+        if (clazz == ISO_8859_1.class) {
+            return Arrays.copyOf(val, val.length);
+        }
+        if (clazz == US_ASCII.class) {
+            byte[] dst = new byte[val.length];
+            for (int i = 0; i < val.length; i++) {
+                // unmappable characters are replaced with '?'
+                dst[i] = (val[i] < 0) ? (byte)'?' : val[i];
+            }
+            return dst;
+        }
+        if (clazz == UTF_8.class) {
+            if (!hasNegatives(val, 0, val.length)) {
+                return Arrays.copyOf(val, val.length);
+            }
+            int dp = 0;
+            byte[] dst = new byte[val.length << 1];
+            for (byte c : val) {
+                if (c < 0) {
+                    dst[dp++] = (byte)(0xc0 | ((c & 0xff) >> 6));
+                    dst[dp++] = (byte)(0x80 | (c & 0x3f));
+                } else {
+                    dst[dp++] = c;
+                }
+            }
+            return (dp == dst.length) ? dst : Arrays.copyOf(dst, dp);
+        }
+        return null;
+    }
+
     // -- Encoding --
     private static class StringEncoder {
         private Charset cs;
@@ -295,6 +390,17 @@ class StringCoding {
             return requestedCharsetName;
         }
 
+        byte[] encode(byte coder, byte[] val) {
+            if (coder == LATIN1) {
+                byte[] ba = encodeLatin1(cs, val);
+                if (ba != null)
+                    return ba;
+            }
+            char[] ca = (coder == LATIN1) ? StringLatin1.toChars(val)
+                                          : StringUTF16.toChars(val);
+            return encode(ca, 0, ca.length);
+        }
+
         byte[] encode(char[] ca, int off, int len) {
             int en = scale(len, ce.maxBytesPerChar());
             byte[] ba = new byte[en];
@@ -324,7 +430,7 @@ class StringCoding {
         }
     }
 
-    static byte[] encode(String charsetName, char[] ca, int off, int len)
+    static byte[] encode(String charsetName, byte coder, byte[] val)
         throws UnsupportedEncodingException
     {
         StringEncoder se = deref(encoder);
@@ -341,10 +447,19 @@ class StringCoding {
                 throw new UnsupportedEncodingException (csn);
             set(encoder, se);
         }
-        return se.encode(ca, off, len);
+        return se.encode(coder, val);
     }
 
-    static byte[] encode(Charset cs, char[] ca, int off, int len) {
+    static byte[] encode(Charset cs, byte coder, byte[] val) {
+        if (coder == LATIN1) {
+            byte[] ba = encodeLatin1(cs, val);
+            if (ba != null)
+                return ba;
+        }
+        char[] ca = (coder == LATIN1) ? StringLatin1.toChars(val)
+                                      : StringUTF16.toChars(val);
+        int off = 0;
+        int len = ca.length;
         CharsetEncoder ce = cs.newEncoder();
         int en = scale(len, ce.maxBytesPerChar());
         byte[] ba = new byte[en];
@@ -352,10 +467,7 @@ class StringCoding {
             return ba;
         boolean isTrusted = false;
         if (System.getSecurityManager() != null) {
-            if (!(isTrusted = (cs.getClass().getClassLoader0() == null))) {
-                ca =  Arrays.copyOfRange(ca, off, off + len);
-                off = 0;
-            }
+            isTrusted = (cs.getClass().getClassLoader0() == null);
         }
         ce.onMalformedInput(CodingErrorAction.REPLACE)
           .onUnmappableCharacter(CodingErrorAction.REPLACE)
@@ -380,16 +492,16 @@ class StringCoding {
         }
     }
 
-    static byte[] encode(char[] ca, int off, int len) {
+    static byte[] encode(byte coder, byte[] val) {
         String csn = Charset.defaultCharset().name();
         try {
             // use charset name encode() variant which provides caching.
-            return encode(csn, ca, off, len);
+            return encode(csn, coder, val);
         } catch (UnsupportedEncodingException x) {
             warnUnsupportedCharset(csn);
         }
         try {
-            return encode("ISO-8859-1", ca, off, len);
+            return encode("ISO-8859-1", coder, val);
         } catch (UnsupportedEncodingException x) {
             // If this code is hit during VM initialization, MessageUtils is
             // the only way we will be able to get any kind of error message.
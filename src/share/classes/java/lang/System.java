@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1994, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1994, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -1257,8 +1257,13 @@ public final class System {
             public StackTraceElement getStackTraceElement(Throwable t, int i) {
                 return t.getStackTraceElement(i);
             }
-            public String newStringUnsafe(char[] chars) {
-                return new String(chars, true);
+            public String newStringLatin1Unsafe(byte[] bytes) {
+                if (String.COMPACT_STRINGS) {
+                    return new String(bytes, String.LATIN1);
+                }
+                byte[] buf = StringUTF16.newBytesFor(bytes.length);
+                StringLatin1.inflate(bytes, 0, buf, 0, bytes.length);
+                return new String(buf, String.UTF16);
             }
             public Thread newThreadWithAcc(Runnable target, AccessControlContext acc) {
                 return new Thread(target, acc);
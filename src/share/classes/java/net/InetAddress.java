@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1995, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1995, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -25,14 +25,16 @@
 
 package java.net;
 
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.Random;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.ServiceLoader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.security.AccessController;
 import java.io.ObjectStreamException;
 import java.io.ObjectStreamField;
@@ -43,6 +45,7 @@ import java.io.ObjectOutputStream;
 import java.io.ObjectOutputStream.PutField;
 import sun.security.action.*;
 import sun.net.InetAddressCachePolicy;
+import sun.net.InetAddressCacheStats;
 import sun.net.util.IPAddressUtil;
 import sun.net.spi.nameservice.*;
 
@@ -174,6 +177,17 @@ import sun.net.spi.nameservice.*;
  * A value of 0 indicates "never cache".
  * A value of -1 indicates "cache forever".
  * </dd>
+ * <dt><b>networkaddress.cache.stale.ttl</b> (default: 0)</dt>
+ * <dd>Indicates for how long, in seconds, an expired successful lookup
+ * may still be returned while the name is looked up again in the
+ * background. It only applies if successful lookups are cached for a
+ * limited time, so that a lookup of a name in frequent use does not
+ * wait for the name service each time its cache entry expires. If the
+ * name service fails, the expired addresses are used until this time
+ * has also passed.
+ * <p>
+ * A value of 0 indicates "never use expired lookups".
+ * </dd>
  * </dl>
  * </blockquote>
  *
@@ -712,13 +726,18 @@ class InetAddress implements java.io.Serializable {
 
     private static Cache negativeCache = new Cache(Cache.Type.Negative);
 
-    private static boolean addressCacheInit = false;
+    private static volatile boolean addressCacheInit = false;
 
     static InetAddress[]    unknown_array; // put THIS in cache
 
     static InetAddressImpl  impl;
 
-    private static final HashMap<String, Void> lookupTable = new HashMap<>();
+    /*
+     * Hosts being looked up, each with a latch released once the
+     * lookup has completed.
+     */
+    private static final ConcurrentHashMap<String, CountDownLatch> lookupTable
+        = new ConcurrentHashMap<>();
 
     /**
      * Represents a cache entry
@@ -730,17 +749,24 @@ class InetAddress implements java.io.Serializable {
             this.expiration = expiration;
         }
 
-        InetAddress[] addresses;
-        long expiration;
+        final InetAddress[] addresses;
+        final long expiration;
+
+        boolean isExpired(long now) {
+            return expiration >= 0 && expiration < now;
+        }
     }
 
     /**
      * A cache that manages entries based on a policy specified
-     * at creation time.
+     * at creation time. Lookups do not lock, and entries are replaced
+     * rather than modified.
      */
     static final class Cache {
-        private LinkedHashMap<String, CacheEntry> cache;
-        private Type type;
+        private final ConcurrentHashMap<String, CacheEntry> cache;
+        private final Type type;
+        /* the time of the next sweep for expired entries */
+        private volatile long nextPurge;
 
         enum Type {Positive, Negative};
 
@@ -749,7 +775,7 @@ class InetAddress implements java.io.Serializable {
          */
         public Cache(Type type) {
             this.type = type;
-            cache = new LinkedHashMap<String, CacheEntry>();
+            cache = new ConcurrentHashMap<String, CacheEntry>();
         }
 
         private int getPolicy() {
@@ -760,6 +786,15 @@ class InetAddress implements java.io.Serializable {
             }
         }
 
+        /* how long an expired entry may still be used, in milliseconds */
+        private long getStaleTime() {
+            if (type == Type.Positive) {
+                return InetAddressCachePolicy.getStale() * 1000L;
+            } else {
+                return 0;
+            }
+        }
+
         /**
          * Add an entry to the cache. If there's already an
          * entry then for this host then the entry will be
@@ -771,47 +806,56 @@ class InetAddress implements java.io.Serializable {
                 return this;
             }
 
-            // purge any expired entries
-
-            if (policy != InetAddressCachePolicy.FOREVER) {
-
-                // As we iterate in insertion order we can
-                // terminate when a non-expired entry is found.
-                LinkedList<String> expired = new LinkedList<>();
-                long now = System.currentTimeMillis();
-                for (String key : cache.keySet()) {
-                    CacheEntry entry = cache.get(key);
-
-                    if (entry.expiration >= 0 && entry.expiration < now) {
-                        expired.add(key);
-                    } else {
-                        break;
-                    }
-                }
-
-                for (String key : expired) {
-                    cache.remove(key);
-                }
-            }
-
-            // create new entry and add it to the cache
-            // -- as a HashMap replaces existing entries we
-            //    don't need to explicitly check if there is
-            //    already an entry for this host.
+            long now = System.currentTimeMillis();
             long expiration;
             if (policy == InetAddressCachePolicy.FOREVER) {
                 expiration = -1;
             } else {
-                expiration = System.currentTimeMillis() + (policy * 1000);
+                expiration = now + (policy * 1000L);
+            }
+            cache.put(host, new CacheEntry(addresses, expiration));
+
+            // purge expired entries, at most once a second
+            if (policy != InetAddressCachePolicy.FOREVER && now >= nextPurge) {
+                nextPurge = now + 1000;
+                long stale = getStaleTime();
+                for (Iterator<CacheEntry> i = cache.values().iterator();
+                     i.hasNext(); ) {
+                    CacheEntry entry = i.next();
+                    if (entry.isExpired(now - stale)) {
+                        i.remove();
+                    }
+                }
+            }
+
+            // keep the negative cache bounded, dropping the entries
+            // closest to expiry first
+            if (type == Type.Negative) {
+                int max = InetAddressCachePolicy.getNegativeMaxEntries();
+                while (cache.size() > max) {
+                    String oldest = null;
+                    long oldestExpiration = Long.MAX_VALUE;
+                    for (Map.Entry<String, CacheEntry> e : cache.entrySet()) {
+                        long exp = e.getValue().expiration;
+                        if (exp < oldestExpiration && !e.getKey().equals(host)) {
+                            oldest = e.getKey();
+                            oldestExpiration = exp;
+                        }
+                    }
+                    if (oldest == null) {
+                        break;
+                    }
+                    cache.remove(oldest);
+                }
             }
-            CacheEntry entry = new CacheEntry(addresses, expiration);
-            cache.put(host, entry);
             return this;
         }
 
         /**
          * Query the cache for the specific host. If found then
-         * return its CacheEntry, or null if not found.
+         * return its CacheEntry, or null if not found. The entry
+         * may have expired if it can still be used while it is
+         * refreshed.
          */
         public CacheEntry get(String host) {
             int policy = getPolicy();
@@ -822,9 +866,8 @@ class InetAddress implements java.io.Serializable {
 
             // check if entry has expired
             if (entry != null && policy != InetAddressCachePolicy.FOREVER) {
-                if (entry.expiration >= 0 &&
-                    entry.expiration < System.currentTimeMillis()) {
-                    cache.remove(host);
+                if (entry.isExpired(System.currentTimeMillis() - getStaleTime())) {
+                    cache.remove(host, entry);
                     entry = null;
                 }
             }
@@ -833,22 +876,101 @@ class InetAddress implements java.io.Serializable {
         }
     }
 
+    /*
+     * Refreshes expired cache entries in the background, so that they
+     * can still be used in the meantime, and looks up the hosts of the
+     * sun.net.inetaddr.prewarm property. The thread exits once it has
+     * been idle for a minute.
+     */
+    private static final class Refresher implements Runnable {
+        private static final ConcurrentHashMap<String, Boolean> pending =
+            new ConcurrentHashMap<>();
+        private static final LinkedBlockingQueue<String> queue =
+            new LinkedBlockingQueue<>();
+        private static Thread thread;   // guarded by Refresher.class
+
+        static void refresh(String host) {
+            if (pending.putIfAbsent(host, Boolean.TRUE) == null) {
+                queue.add(host);
+                startIfNeeded();
+            }
+        }
+
+        private static synchronized void startIfNeeded() {
+            if (thread != null) {
+                return;
+            }
+            java.security.AccessController.doPrivileged(
+                new java.security.PrivilegedAction<Void>() {
+                public Void run() {
+                    // We want to create the refresher thread in the
+                    // system thread group
+                    ThreadGroup grp = Thread.currentThread().getThreadGroup();
+                    ThreadGroup parent = null;
+                    while ((parent = grp.getParent()) != null) {
+                        grp = parent;
+                    }
+                    thread = new Thread(grp, new Refresher(),
+                                        "InetAddress-Cache-Refresher");
+                    thread.setDaemon(true);
+                    // Set the context class loader to null in order to avoid
+                    // keeping a strong reference to an application classloader.
+                    thread.setContextClassLoader(null);
+                    thread.start();
+                    return null;
+                }
+            });
+        }
+
+        public void run() {
+            for (;;) {
+                String host;
+                try {
+                    host = queue.poll(60, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    host = null;
+                }
+                if (host == null) {
+                    synchronized (Refresher.class) {
+                        if (queue.isEmpty()) {
+                            thread = null;
+                            return;
+                        }
+                    }
+                    continue;
+                }
+                try {
+                    getAddressesFromNameService(host, null);
+                    InetAddressCacheStats.refreshed();
+                } catch (UnknownHostException | RuntimeException e) {
+                    // the stale entry is used until it can no longer be
+                } finally {
+                    pending.remove(host);
+                }
+            }
+        }
+    }
+
     /*
      * Initialize cache and insert anyLocalAddress into the
      * unknown array with no expiry.
      */
     private static void cacheInitIfNeeded() {
-        assert Thread.holdsLock(addressCache);
         if (addressCacheInit) {
             return;
         }
-        unknown_array = new InetAddress[1];
-        unknown_array[0] = impl.anyLocalAddress();
+        synchronized (addressCache) {
+            if (addressCacheInit) {
+                return;
+            }
+            unknown_array = new InetAddress[1];
+            unknown_array[0] = impl.anyLocalAddress();
 
-        addressCache.put(impl.anyLocalAddress().getHostName(),
-                         unknown_array);
+            addressCache.put(impl.anyLocalAddress().getHostName(),
+                             unknown_array);
 
-        addressCacheInit = true;
+            addressCacheInit = true;
+        }
     }
 
     /*
@@ -858,36 +980,38 @@ class InetAddress implements java.io.Serializable {
                                        InetAddress[] addresses,
                                        boolean success) {
         hostname = hostname.toLowerCase();
-        synchronized (addressCache) {
-            cacheInitIfNeeded();
-            if (success) {
-                addressCache.put(hostname, addresses);
-            } else {
-                negativeCache.put(hostname, addresses);
-            }
+        cacheInitIfNeeded();
+        if (success) {
+            addressCache.put(hostname, addresses);
+        } else {
+            negativeCache.put(hostname, addresses);
         }
     }
 
     /*
      * Lookup hostname in cache (positive & negative cache). If
-     * found return addresses, null if not found.
+     * found return addresses, null if not found. An expired entry
+     * that may still be used is returned, and refreshed in the
+     * background.
      */
     private static InetAddress[] getCachedAddresses(String hostname) {
         hostname = hostname.toLowerCase();
 
         // search both positive & negative caches
 
-        synchronized (addressCache) {
-            cacheInitIfNeeded();
+        cacheInitIfNeeded();
 
-            CacheEntry entry = addressCache.get(hostname);
-            if (entry == null) {
-                entry = negativeCache.get(hostname);
-            }
-
-            if (entry != null) {
-                return entry.addresses;
+        CacheEntry entry = addressCache.get(hostname);
+        if (entry != null) {
+            if (entry.isExpired(System.currentTimeMillis())) {
+                InetAddressCacheStats.staleHit();
+                Refresher.refresh(hostname);
             }
+            return entry.addresses;
+        }
+        entry = negativeCache.get(hostname);
+        if (entry != null) {
+            return entry.addresses;
         }
 
         // not found
@@ -974,6 +1098,11 @@ class InetAddress implements java.io.Serializable {
             NameService ns = createNSProvider("default");
             nameServices.add(ns);
         }
+
+        // look up the hosts to pre-warm the cache with in the background
+        for (String host : InetAddressCachePolicy.getPrewarmHosts()) {
+            Refresher.refresh(host.toLowerCase());
+        }
     }
 
     /**
@@ -1252,7 +1381,10 @@ class InetAddress implements java.io.Serializable {
 
         /* If no entry in cache, then do the host lookup */
         if (addresses == null) {
+            InetAddressCacheStats.miss();
             addresses = getAddressesFromNameService(host, reqAddr);
+        } else {
+            InetAddressCacheStats.hit();
         }
 
         if (addresses == unknown_array)
@@ -1291,6 +1423,7 @@ class InetAddress implements java.io.Serializable {
                 // This is the first thread which looks up the addresses
                 // this host or the cache entry for this host has been
                 // expired so this thread should do the lookup.
+                long start = System.nanoTime();
                 for (NameService nameService : nameServices) {
                     try {
                         /*
@@ -1316,6 +1449,7 @@ class InetAddress implements java.io.Serializable {
                         }
                     }
                 }
+                InetAddressCacheStats.lookedUp(System.nanoTime() - start, success);
 
                 // More to do?
                 if (reqAddr != null && addresses.length > 1 && !addresses[0].equals(reqAddr)) {
@@ -1344,8 +1478,8 @@ class InetAddress implements java.io.Serializable {
                     throw ex;
 
             } finally {
-                // Delete host from the lookupTable and notify
-                // all threads waiting on the lookupTable monitor.
+                // Delete host from the lookupTable and release
+                // all threads waiting for the lookup.
                 updateLookupTable(host);
             }
         }
@@ -1355,45 +1489,50 @@ class InetAddress implements java.io.Serializable {
 
 
     private static InetAddress[] checkLookupTable(String host) {
-        synchronized (lookupTable) {
-            // If the host isn't in the lookupTable, add it in the
-            // lookuptable and return null. The caller should do
-            // the lookup.
-            if (lookupTable.containsKey(host) == false) {
-                lookupTable.put(host, null);
-                return null;
-            }
+        boolean interrupted = false;
+        try {
+            for (;;) {
+                // If the host isn't in the lookupTable, add it in the
+                // lookuptable and return null. The caller should do
+                // the lookup.
+                CountDownLatch latch = lookupTable.putIfAbsent(
+                    host, new CountDownLatch(1));
+                if (latch == null) {
+                    return null;
+                }
 
-            // If the host is in the lookupTable, it means that another
-            // thread is trying to look up the addresses of this host.
-            // This thread should wait.
-            while (lookupTable.containsKey(host)) {
-                try {
-                    lookupTable.wait();
-                } catch (InterruptedException e) {
+                // If the host is in the lookupTable, it means that another
+                // thread is trying to look up the addresses of this host.
+                // This thread should wait.
+                for (;;) {
+                    try {
+                        latch.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
                 }
-            }
-        }
 
-        // The other thread has finished looking up the addresses of
-        // the host. This thread should retry to get the addresses
-        // from the addressCache. If it doesn't get the addresses from
-        // the cache, it will try to look up the addresses itself.
-        InetAddress[] addresses = getCachedAddresses(host);
-        if (addresses == null) {
-            synchronized (lookupTable) {
-                lookupTable.put(host, null);
-                return null;
+                // The other thread has finished looking up the addresses of
+                // the host. This thread should retry to get the addresses
+                // from the addressCache. If it doesn't get the addresses from
+                // the cache, it will try to look up the addresses itself.
+                InetAddress[] addresses = getCachedAddresses(host);
+                if (addresses != null) {
+                    return addresses;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
             }
         }
-
-        return addresses;
     }
 
     private static void updateLookupTable(String host) {
-        synchronized (lookupTable) {
-            lookupTable.remove(host);
-            lookupTable.notifyAll();
+        CountDownLatch latch = lookupTable.remove(host);
+        if (latch != null) {
+            latch.countDown();
         }
     }
 
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2013, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -68,7 +68,20 @@ class FileTreeIterator implements Iterator<Event>, Closeable {
     FileTreeIterator(Path start, int maxDepth, FileVisitOption... options)
         throws IOException
     {
-        this.walker = new FileTreeWalker(Arrays.asList(options), maxDepth);
+        this(start, maxDepth, true, options);
+    }
+
+    /**
+     * Creates a new iterator to walk the file tree starting at the given file.
+     * If {@code needAttributes} is false then only the file type of the
+     * attributes in each event may be used.
+     */
+    FileTreeIterator(Path start, int maxDepth, boolean needAttributes,
+                     FileVisitOption... options)
+        throws IOException
+    {
+        this.walker = new FileTreeWalker(Arrays.asList(options), maxDepth,
+                                         needAttributes);
         this.next = walker.walk(start);
         assert next.type() == FileTreeWalker.EventType.ENTRY ||
                next.type() == FileTreeWalker.EventType.START_DIRECTORY;
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package java.nio.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import sun.nio.fs.FileTypeHolder;
+
+/**
+ * A {@code Spliterator} over the files in a file tree that splits by handing
+ * directories that are yet to be read to the new {@code Spliterator}, so that
+ * the directories of a file tree can be read in parallel.
+ *
+ * <p> Each directory is read completely, and closed, when the spliterator
+ * first needs its entries, so no file system resources are held between
+ * invocations. A directory is always encountered before its entries but
+ * otherwise there is no defined encounter order.
+ *
+ * @see Files#parallelWalk
+ */
+
+class FileTreeSpliterator implements Spliterator<Path> {
+    private final boolean followLinks;
+    private final LinkOption[] linkOptions;
+    private final int maxDepth;
+
+    // directories that remain to be read, the most recently found first
+    private final ArrayDeque<DirectoryNode> directories;
+
+    // entries read but not yet consumed
+    private final ArrayDeque<Path> entries;
+
+    /**
+     * A directory that remains to be read, with the ancestors that were
+     * walked to reach it so that cycles can be detected.
+     */
+    private static class DirectoryNode {
+        final Path dir;
+        final Object key;
+        final int depth;
+        final DirectoryNode parent;
+
+        DirectoryNode(Path dir, Object key, int depth, DirectoryNode parent) {
+            this.dir = dir;
+            this.key = key;
+            this.depth = depth;
+            this.parent = parent;
+        }
+    }
+
+    private FileTreeSpliterator(boolean followLinks, LinkOption[] linkOptions,
+                                int maxDepth, ArrayDeque<DirectoryNode> directories)
+    {
+        this.followLinks = followLinks;
+        this.linkOptions = linkOptions;
+        this.maxDepth = maxDepth;
+        this.directories = directories;
+        this.entries = new ArrayDeque<>();
+    }
+
+    /**
+     * Creates a new spliterator over the file tree starting at the given file.
+     *
+     * @throws  IllegalArgumentException
+     *          if {@code maxDepth} is negative
+     * @throws  IOException
+     *          if an I/O errors occurs reading the attributes of the
+     *          starting file
+     * @throws  SecurityException
+     *          if the security manager denies access to the starting file
+     */
+    FileTreeSpliterator(Path start, int maxDepth, FileVisitOption... options)
+        throws IOException
+    {
+        boolean fl = false;
+        for (FileVisitOption option: options) {
+            // will throw NPE if options contains null
+            switch (option) {
+                case FOLLOW_LINKS : fl = true; break;
+                default:
+                    throw new AssertionError("Should not get here");
+            }
+        }
+        if (maxDepth < 0)
+            throw new IllegalArgumentException("'maxDepth' is negative");
+
+        this.followLinks = fl;
+        this.linkOptions = (fl) ? new LinkOption[0] :
+            new LinkOption[] { LinkOption.NOFOLLOW_LINKS };
+        this.maxDepth = maxDepth;
+        this.directories = new ArrayDeque<>();
+        this.entries = new ArrayDeque<>();
+
+        BasicFileAttributes attrs = readAttributes(start);
+        entries.add(start);
+        if (attrs.isDirectory() && maxDepth > 0)
+            directories.add(new DirectoryNode(start, attrs.fileKey(), 0, null));
+    }
+
+    /**
+     * Returns the attributes of the given file, taking into account whether
+     * links are followed.
+     */
+    private BasicFileAttributes readAttributes(Path file) throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class, linkOptions);
+        } catch (IOException ioe) {
+            if (!followLinks)
+                throw ioe;
+            // link target might not exist
+            return Files.readAttributes(file,
+                                        BasicFileAttributes.class,
+                                        LinkOption.NOFOLLOW_LINKS);
+        }
+    }
+
+    /**
+     * Returns true if walking into the given directory would result in a
+     * file system loop/cycle.
+     */
+    private static boolean wouldLoop(Path dir, Object key, DirectoryNode parent) {
+        for (DirectoryNode ancestor = parent; ancestor != null;
+             ancestor = ancestor.parent)
+        {
+            if (key != null && ancestor.key != null) {
+                if (key.equals(ancestor.key))
+                    return true;
+            } else {
+                try {
+                    if (Files.isSameFile(dir, ancestor.dir))
+                        return true;
+                } catch (IOException | SecurityException x) {
+                    // ignore
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the given directory, adding its entries to the entries to be
+     * consumed and its subdirectories to the directories to be read.
+     */
+    private void read(DirectoryNode node) {
+        int depth = node.depth + 1;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(node.dir)) {
+            for (Path entry: stream) {
+                entries.add(entry);
+                if (depth >= maxDepth)
+                    continue;
+
+                // the file type from the directory entry is sufficient
+                // unless following links, or unless there is a security
+                // manager, which must check read access to the entry
+                int type = (entry instanceof FileTypeHolder &&
+                            System.getSecurityManager() == null) ?
+                    ((FileTypeHolder)entry).fileType() : FileTypeHolder.TYPE_UNKNOWN;
+                if (type == FileTypeHolder.TYPE_REGULAR_FILE ||
+                    type == FileTypeHolder.TYPE_OTHER ||
+                    (!followLinks && type != FileTypeHolder.TYPE_UNKNOWN))
+                {
+                    if (type == FileTypeHolder.TYPE_DIRECTORY)
+                        directories.addFirst(new DirectoryNode(entry, null, depth, node));
+                    continue;
+                }
+
+                BasicFileAttributes attrs;
+                try {
+                    attrs = readAttributes(entry);
+                } catch (SecurityException se) {
+                    entries.removeLast();
+                    continue;
+                }
+                if (!attrs.isDirectory())
+                    continue;
+                if (followLinks && wouldLoop(entry, attrs.fileKey(), node))
+                    throw new FileSystemLoopException(entry.toString());
+                directories.addFirst(new DirectoryNode(entry, attrs.fileKey(), depth, node));
+            }
+        } catch (DirectoryIteratorException x) {
+            throw new UncheckedIOException(x.getCause());
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        } catch (SecurityException se) {
+            // directory is ignored
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Path> action) {
+        if (action == null)
+            throw new NullPointerException();
+        for (;;) {
+            Path entry = entries.pollFirst();
+            if (entry != null) {
+                action.accept(entry);
+                return true;
+            }
+            DirectoryNode node = directories.pollFirst();
+            if (node == null)
+                return false;
+            read(node);
+        }
+    }
+
+    @Override
+    public Spliterator<Path> trySplit() {
+        // read a directory if there is only one so that its subdirectories
+        // can be split off
+        if (directories.size() == 1 && entries.isEmpty())
+            read(directories.pollFirst());
+        int n = directories.size();
+        if (n == 0)
+            return null;
+
+        // hand off the directories found first as they are nearest the top
+        // of the tree and so likely to have the most below them
+        ArrayDeque<DirectoryNode> split = new ArrayDeque<>();
+        for (int i = 0; i < (n + 1) / 2; i++)
+            split.addFirst(directories.pollLast());
+        return new FileTreeSpliterator(followLinks, linkOptions, maxDepth, split);
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.DISTINCT | Spliterator.NONNULL;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2007, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2007, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -26,12 +26,14 @@
 package java.nio.file;
 
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Iterator;
 import sun.nio.fs.BasicFileAttributesHolder;
+import sun.nio.fs.FileTypeHolder;
 
 /**
  * Walks a file tree, generating a sequence of events corresponding to the files
@@ -58,6 +60,7 @@ class FileTreeWalker implements Closeable {
     private final boolean followLinks;
     private final LinkOption[] linkOptions;
     private final int maxDepth;
+    private final boolean needAttributes;
     private final ArrayDeque<DirectoryNode> stack = new ArrayDeque<>();
     private boolean closed;
 
@@ -175,6 +178,18 @@ class FileTreeWalker implements Closeable {
      *          array contains a {@code null} element
      */
     FileTreeWalker(Collection<FileVisitOption> options, int maxDepth) {
+        this(options, maxDepth, true);
+    }
+
+    /**
+     * Creates a {@code FileTreeWalker}. If {@code needAttributes} is false
+     * then the consumer of the events only uses the file type of the
+     * attributes in each event, which allows the walker to avoid reading
+     * the attributes of files when the type is already known.
+     */
+    FileTreeWalker(Collection<FileVisitOption> options, int maxDepth,
+                   boolean needAttributes)
+    {
         boolean fl = false;
         for (FileVisitOption option: options) {
             // will throw NPE if options contains null
@@ -191,6 +206,7 @@ class FileTreeWalker implements Closeable {
         this.linkOptions = (fl) ? new LinkOption[0] :
             new LinkOption[] { LinkOption.NOFOLLOW_LINKS };
         this.maxDepth = maxDepth;
+        this.needAttributes = needAttributes;
     }
 
     /**
@@ -201,6 +217,23 @@ class FileTreeWalker implements Closeable {
     private BasicFileAttributes getAttributes(Path file, boolean canUseCached)
         throws IOException
     {
+        // if only the file type is needed and the directory entry has it
+        // then there is no need to read the attributes. When following
+        // links the type is only sufficient if the file is not a link or
+        // directory (as the file key is needed to detect cycles)
+        if (canUseCached && !needAttributes &&
+            (file instanceof FileTypeHolder) &&
+            (System.getSecurityManager() == null))
+        {
+            int type = ((FileTypeHolder)file).fileType();
+            if ((type != FileTypeHolder.TYPE_UNKNOWN) &&
+                (!followLinks || type == FileTypeHolder.TYPE_REGULAR_FILE ||
+                 type == FileTypeHolder.TYPE_OTHER))
+            {
+                return new FileTypeAttributes(type);
+            }
+        }
+
         // if attributes are cached then use them if possible
         if (canUseCached &&
             (file instanceof BasicFileAttributesHolder) &&
@@ -229,6 +262,63 @@ class FileTreeWalker implements Closeable {
         return attrs;
     }
 
+    /**
+     * The attributes of a file whose type is known from its directory entry.
+     * Only the file type is available.
+     */
+    private static class FileTypeAttributes implements BasicFileAttributes {
+        private final int type;
+
+        FileTypeAttributes(int type) {
+            this.type = type;
+        }
+
+        @Override
+        public boolean isRegularFile() {
+            return type == FileTypeHolder.TYPE_REGULAR_FILE;
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return type == FileTypeHolder.TYPE_DIRECTORY;
+        }
+
+        @Override
+        public boolean isSymbolicLink() {
+            return type == FileTypeHolder.TYPE_SYMBOLIC_LINK;
+        }
+
+        @Override
+        public boolean isOther() {
+            return type == FileTypeHolder.TYPE_OTHER;
+        }
+
+        @Override
+        public Object fileKey() {
+            return null;
+        }
+
+        @Override
+        public FileTime lastModifiedTime() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileTime lastAccessTime() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public FileTime creationTime() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long size() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     /**
      * Returns true if walking into the given directory would result in a
      * file system loop/cycle.
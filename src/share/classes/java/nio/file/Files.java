@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2007, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2007, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -3568,7 +3568,9 @@ public final class Files {
                                     FileVisitOption... options)
         throws IOException
     {
-        FileTreeIterator iterator = new FileTreeIterator(start, maxDepth, options);
+        // only the files are used so the walk need not read attributes
+        FileTreeIterator iterator =
+            new FileTreeIterator(start, maxDepth, false, options);
         try {
             return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.DISTINCT), false)
                                 .onClose(iterator::close)
@@ -3622,6 +3624,65 @@ public final class Files {
         return walk(start, Integer.MAX_VALUE, options);
     }
 
+    /**
+     * Return a parallel {@code Stream} that is lazily populated with {@code
+     * Path} by walking the file tree rooted at a given starting file. The
+     * elements in the stream are {@link Path} objects that are obtained as if
+     * by {@link Path#resolve(Path) resolving} the relative path against
+     * {@code start}.
+     *
+     * <p> This method finds the same files as the {@link #walk(Path, int,
+     * FileVisitOption...) walk} method but the stream splits the work of
+     * reading the file tree by directory so that several directories may be
+     * read concurrently. The file tree is not traversed in any particular
+     * order except that a directory is always encountered before its entries.
+     * Links are followed, and cycles are detected, as specified by the {@code
+     * walk} method.
+     *
+     * <p> Each directory is opened, read, and closed before any of its
+     * entries are consumed from the stream, so the returned stream does not
+     * hold open file system resources between operations and need not be
+     * closed.
+     *
+     * <p> When a security manager is installed and it denies access to a file
+     * (or directory), then it is ignored and not included in the stream.
+     *
+     * <p> If an {@link IOException} is thrown when accessing a directory
+     * after this method has returned, it is wrapped in an {@link
+     * UncheckedIOException} which will be thrown from the method that caused
+     * the access to take place.
+     *
+     * @param   start
+     *          the starting file
+     * @param   maxDepth
+     *          the maximum number of directory levels to visit
+     * @param   options
+     *          options to configure the traversal
+     *
+     * @return  the parallel {@link Stream} of {@link Path}
+     *
+     * @throws  IllegalArgumentException
+     *          if the {@code maxDepth} parameter is negative
+     * @throws  SecurityException
+     *          If the security manager denies access to the starting file.
+     *          In the case of the default provider, the {@link
+     *          SecurityManager#checkRead(String) checkRead} method is invoked
+     *          to check read access to the directory.
+     * @throws  IOException
+     *          if an I/O error is thrown when accessing the starting file.
+     *
+     * @see     #walk(Path, int, FileVisitOption...)
+     * @since   1.9
+     */
+    public static Stream<Path> parallelWalk(Path start,
+                                            int maxDepth,
+                                            FileVisitOption... options)
+        throws IOException
+    {
+        return StreamSupport.stream(
+            new FileTreeSpliterator(start, maxDepth, options), true);
+    }
+
     /**
      * Return a {@code Stream} that is lazily populated with {@code
      * Path} by searching for files in a file tree rooted at a given starting
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1996, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1996, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -83,6 +83,12 @@ import sun.security.jca.GetInstance.Instance;
  * for example, if they need to read from /dev/random on various Unix-like
  * operating systems.
  *
+ * <p> SecureRandom objects are safe for use by multiple concurrent threads.
+ * Calls to {@code nextBytes} and {@code setSeed} are serialized on the
+ * object unless the service of the implementation is registered with the
+ * {@code ThreadSafe} attribute set to {@code "true"}, in which case the
+ * implementation itself must be safe for concurrent use.
+ *
  * @see java.security.SecureRandomSpi
  * @see java.util.Random
  *
@@ -116,6 +122,10 @@ public class SecureRandom extends java.util.Random {
      */
     private String algorithm;
 
+    // whether the service of the SPI is registered with the ThreadSafe
+    // attribute, in which case nextBytes and setSeed do not lock
+    private transient boolean threadSafe;
+
     // Seed Generator
     private static volatile SecureRandom seedGenerator = null;
 
@@ -214,6 +224,7 @@ public class SecureRandom extends java.util.Random {
         // algorithm value as it would be inaccurate.
         if (getClass() == SecureRandom.class) {
             this.algorithm = prng;
+            this.threadSafe = isThreadSafe(provider, prng);
         }
     }
 
@@ -234,6 +245,15 @@ public class SecureRandom extends java.util.Random {
         this.secureRandomSpi = secureRandomSpi;
         this.provider = provider;
         this.algorithm = algorithm;
+        this.threadSafe = isThreadSafe(provider, algorithm);
+    }
+
+    private static boolean isThreadSafe(Provider provider, String algorithm) {
+        if (provider == null || algorithm == null) {
+            return false;
+        }
+        Service s = provider.getService("SecureRandom", algorithm);
+        return s != null && "true".equalsIgnoreCase(s.getAttribute("ThreadSafe"));
     }
 
     /**
@@ -412,8 +432,14 @@ public class SecureRandom extends java.util.Random {
      *
      * @see #getSeed
      */
-    synchronized public void setSeed(byte[] seed) {
-        secureRandomSpi.engineSetSeed(seed);
+    public void setSeed(byte[] seed) {
+        if (threadSafe) {
+            secureRandomSpi.engineSetSeed(seed);
+        } else {
+            synchronized (this) {
+                secureRandomSpi.engineSetSeed(seed);
+            }
+        }
     }
 
     /**
@@ -453,8 +479,14 @@ public class SecureRandom extends java.util.Random {
      * @param bytes the array to be filled in with random bytes.
      */
     @Override
-    synchronized public void nextBytes(byte[] bytes) {
-        secureRandomSpi.engineNextBytes(bytes);
+    public void nextBytes(byte[] bytes) {
+        if (threadSafe) {
+            secureRandomSpi.engineNextBytes(bytes);
+        } else {
+            synchronized (this) {
+                secureRandomSpi.engineNextBytes(bytes);
+            }
+        }
     }
 
     /**
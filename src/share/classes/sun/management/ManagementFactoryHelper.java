@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2003, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2003, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -35,6 +35,7 @@ import javax.management.MBeanRegistrationException;
 import javax.management.NotCompliantMBeanException;
 import javax.management.ObjectName;
 import javax.management.RuntimeOperationsException;
+import javax.management.StandardMBean;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
@@ -45,6 +46,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import com.sun.management.DiagnosticCommandMBean;
 import com.sun.management.HotSpotDiagnosticMXBean;
 
@@ -207,11 +209,15 @@ public class ManagementFactoryHelper {
     private static List<BufferPoolMXBean> bufferPools = null;
     public static synchronized List<BufferPoolMXBean> getBufferPoolMXBeans() {
         if (bufferPools == null) {
-            bufferPools = new ArrayList<>(2);
+            bufferPools = new ArrayList<>(4);
             bufferPools.add(createBufferPoolMXBean(sun.misc.SharedSecrets.getJavaNioAccess()
                 .getDirectBufferPool()));
+            bufferPools.add(createBufferPoolMXBean(sun.nio.ch.Util
+                .getTemporaryBufferPool()));
             bufferPools.add(createBufferPoolMXBean(sun.nio.ch.FileChannelImpl
                 .getMappedBufferPool()));
+            bufferPools.add(createBufferPoolMXBean(sun.nio.ch.DirectBufferAllocator
+                .getBufferPool()));
         }
         return bufferPools;
     }
@@ -268,6 +274,240 @@ public class ManagementFactoryHelper {
     private static HotspotMemory hsMemoryMBean = null;
     private static DiagnosticCommandImpl hsDiagCommandMBean = null;
 
+    private static sun.net.www.http.KeepAliveCacheMXBean keepAliveCacheMBean = null;
+    public static synchronized sun.net.www.http.KeepAliveCacheMXBean
+            getKeepAliveCacheMXBean() {
+        if (keepAliveCacheMBean == null) {
+            keepAliveCacheMBean = new sun.net.www.http.KeepAliveCacheMXBean() {
+                private final ObjectName objname =
+                    Util.newObjectName(KEEP_ALIVE_CACHE_MXBEAN_NAME);
+                @Override
+                public ObjectName getObjectName() {
+                    return objname;
+                }
+                @Override
+                public int getIdleCount() {
+                    return sun.net.www.http.KeepAliveCache.getIdleCount();
+                }
+                @Override
+                public long getCreatedCount() {
+                    return sun.net.www.http.KeepAliveCache.getCreatedCount();
+                }
+                @Override
+                public long getLeasedCount() {
+                    return sun.net.www.http.KeepAliveCache.getLeasedCount();
+                }
+                @Override
+                public long getEvictedCount() {
+                    return sun.net.www.http.KeepAliveCache.getEvictedCount();
+                }
+                @Override
+                public int getMaxIdlePerRoute() {
+                    return sun.net.www.http.KeepAliveCache.getMaxIdlePerRoute();
+                }
+            };
+        }
+        return keepAliveCacheMBean;
+    }
+
+    private final static String KEEP_ALIVE_CACHE_MXBEAN_NAME =
+        "sun.net:type=KeepAliveCache";
+
+    private static sun.net.InetAddressCacheMXBean inetAddressCacheMBean = null;
+    public static synchronized sun.net.InetAddressCacheMXBean
+            getInetAddressCacheMXBean() {
+        if (inetAddressCacheMBean == null) {
+            inetAddressCacheMBean = new sun.net.InetAddressCacheMXBean() {
+                private final ObjectName objname =
+                    Util.newObjectName(INET_ADDRESS_CACHE_MXBEAN_NAME);
+                @Override
+                public ObjectName getObjectName() {
+                    return objname;
+                }
+                @Override
+                public long getHitCount() {
+                    return sun.net.InetAddressCacheStats.getHitCount();
+                }
+                @Override
+                public long getStaleHitCount() {
+                    return sun.net.InetAddressCacheStats.getStaleHitCount();
+                }
+                @Override
+                public long getMissCount() {
+                    return sun.net.InetAddressCacheStats.getMissCount();
+                }
+                @Override
+                public long getLookupCount() {
+                    return sun.net.InetAddressCacheStats.getLookupCount();
+                }
+                @Override
+                public long getFailedLookupCount() {
+                    return sun.net.InetAddressCacheStats.getFailedLookupCount();
+                }
+                @Override
+                public long getRefreshCount() {
+                    return sun.net.InetAddressCacheStats.getRefreshCount();
+                }
+                @Override
+                public long getTotalLookupTime() {
+                    return sun.net.InetAddressCacheStats.getTotalLookupTime();
+                }
+                @Override
+                public long getMaxLookupTime() {
+                    return sun.net.InetAddressCacheStats.getMaxLookupTime();
+                }
+            };
+        }
+        return inetAddressCacheMBean;
+    }
+
+    private final static String INET_ADDRESS_CACHE_MXBEAN_NAME =
+        "sun.net:type=InetAddressCache";
+
+    private static sun.rmi.transport.tcp.TCPTransportMXBean
+        tcpTransportMBean = null;
+    public static synchronized sun.rmi.transport.tcp.TCPTransportMXBean
+            getTCPTransportMXBean() {
+        if (tcpTransportMBean == null) {
+            tcpTransportMBean = new sun.rmi.transport.tcp.TCPTransportMXBean() {
+                private final ObjectName objname =
+                    Util.newObjectName(TCP_TRANSPORT_MXBEAN_NAME);
+                @Override
+                public ObjectName getObjectName() {
+                    return objname;
+                }
+                @Override
+                public int getIdleConnectionCount() {
+                    return sun.rmi.transport.tcp.TCPTransport.getIdleConnectionCount();
+                }
+                @Override
+                public Map<String,Long> getOutboundCallCounts() {
+                    return sun.rmi.transport.tcp.CallStatistics.getOutboundCallCounts();
+                }
+                @Override
+                public Map<String,Long> getOutboundCallTimes() {
+                    return sun.rmi.transport.tcp.CallStatistics.getOutboundCallTimes();
+                }
+                @Override
+                public Map<String,Long> getOutboundMaxCallTimes() {
+                    return sun.rmi.transport.tcp.CallStatistics.getOutboundMaxCallTimes();
+                }
+                @Override
+                public Map<String,Long> getInboundCallCounts() {
+                    return sun.rmi.transport.tcp.CallStatistics.getInboundCallCounts();
+                }
+                @Override
+                public Map<String,Long> getInboundCallTimes() {
+                    return sun.rmi.transport.tcp.CallStatistics.getInboundCallTimes();
+                }
+                @Override
+                public Map<String,Long> getInboundMaxCallTimes() {
+                    return sun.rmi.transport.tcp.CallStatistics.getInboundMaxCallTimes();
+                }
+            };
+        }
+        return tcpTransportMBean;
+    }
+
+    private final static String TCP_TRANSPORT_MXBEAN_NAME =
+        "sun.rmi:type=TCPTransport";
+
+    private static sun.security.ssl.SSLHandshakeMXBean
+        sslHandshakeMBean = null;
+    public static synchronized sun.security.ssl.SSLHandshakeMXBean
+            getSSLHandshakeMXBean() {
+        if (sslHandshakeMBean == null) {
+            sslHandshakeMBean = new sun.security.ssl.SSLHandshakeMXBean() {
+                private final ObjectName objname =
+                    Util.newObjectName(SSL_HANDSHAKE_MXBEAN_NAME);
+                @Override
+                public ObjectName getObjectName() {
+                    return objname;
+                }
+                @Override
+                public long getServerFullHandshakeCount() {
+                    return sun.security.ssl.HandshakeStatistics.getServerFullHandshakeCount();
+                }
+                @Override
+                public long getServerResumedHandshakeCount() {
+                    return sun.security.ssl.HandshakeStatistics.getServerResumedHandshakeCount();
+                }
+                @Override
+                public long getServerTicketResumedHandshakeCount() {
+                    return sun.security.ssl.HandshakeStatistics.getServerTicketResumedHandshakeCount();
+                }
+                @Override
+                public long getClientFullHandshakeCount() {
+                    return sun.security.ssl.HandshakeStatistics.getClientFullHandshakeCount();
+                }
+                @Override
+                public long getClientResumedHandshakeCount() {
+                    return sun.security.ssl.HandshakeStatistics.getClientResumedHandshakeCount();
+                }
+                @Override
+                public long getIssuedTicketCount() {
+                    return sun.security.ssl.HandshakeStatistics.getIssuedTicketCount();
+                }
+                @Override
+                public long getRejectedTicketCount() {
+                    return sun.security.ssl.HandshakeStatistics.getRejectedTicketCount();
+                }
+            };
+        }
+        return sslHandshakeMBean;
+    }
+
+    private final static String SSL_HANDSHAKE_MXBEAN_NAME =
+        "sun.security.ssl:type=Handshake";
+
+    private static sun.security.ssl.SSLSessionCacheMXBean
+        sslSessionCacheMBean = null;
+    public static synchronized sun.security.ssl.SSLSessionCacheMXBean
+            getSSLSessionCacheMXBean() {
+        if (sslSessionCacheMBean == null) {
+            sslSessionCacheMBean = new sun.security.ssl.SSLSessionCacheMXBean() {
+                private final ObjectName objname =
+                    Util.newObjectName(SSL_SESSION_CACHE_MXBEAN_NAME);
+                @Override
+                public ObjectName getObjectName() {
+                    return objname;
+                }
+                @Override
+                public List<sun.security.ssl.SessionCacheInfo> getSessionCaches() {
+                    return sun.security.ssl.SessionCacheStatistics.getSessionCaches();
+                }
+                @Override
+                public int getSize() {
+                    return sun.security.ssl.SessionCacheStatistics.getSize();
+                }
+                @Override
+                public long getHitCount() {
+                    return sun.security.ssl.SessionCacheStatistics.getHitCount();
+                }
+                @Override
+                public long getMissCount() {
+                    return sun.security.ssl.SessionCacheStatistics.getMissCount();
+                }
+                @Override
+                public double getHitRate() {
+                    return sun.security.ssl.SessionCacheStatistics.getHitRate();
+                }
+                @Override
+                public long getEvictionCount() {
+                    return sun.security.ssl.SessionCacheStatistics.getEvictionCount();
+                }
+                @Override
+                public long getExpirationCount() {
+                    return sun.security.ssl.SessionCacheStatistics.getExpirationCount();
+                }
+            };
+        }
+        return sslSessionCacheMBean;
+    }
+
+    private final static String SSL_SESSION_CACHE_MXBEAN_NAME =
+        "sun.security.ssl:type=SessionCache";
+
     public static synchronized HotSpotDiagnosticMXBean getDiagnosticMXBean() {
         if (hsDiagMBean == null) {
             hsDiagMBean = new HotSpotDiagnostic();
@@ -386,9 +626,29 @@ public class ManagementFactoryHelper {
         if (diagMBean != null) {
             map.put(Util.newObjectName(HOTSPOT_DIAGNOSTIC_COMMAND_MBEAN_NAME), diagMBean);
         }
+        putMXBean(map, getKeepAliveCacheMXBean(),
+            sun.net.www.http.KeepAliveCacheMXBean.class);
+        putMXBean(map, getInetAddressCacheMXBean(),
+            sun.net.InetAddressCacheMXBean.class);
+        putMXBean(map, getTCPTransportMXBean(),
+            sun.rmi.transport.tcp.TCPTransportMXBean.class);
+        putMXBean(map, getSSLHandshakeMXBean(),
+            sun.security.ssl.SSLHandshakeMXBean.class);
+        putMXBean(map, getSSLSessionCacheMXBean(),
+            sun.security.ssl.SSLSessionCacheMXBean.class);
         return map;
     }
 
+    /*
+     * Adds an MXBean of a sun.* interface, which is not a PlatformComponent
+     * and so is registered in the platform MBeanServer as a DynamicMBean.
+     */
+    private static <T extends PlatformManagedObject> void putMXBean(
+            Map<ObjectName, DynamicMBean> map, T mxbean, Class<T> mxbeanInterface) {
+        map.put(mxbean.getObjectName(),
+                new StandardMBean(mxbean, mxbeanInterface, true));
+    }
+
     static void registerInternalMBeans(MBeanServer mbs) {
         // register all internal MBeans if not registered
         // No exception is thrown if a MBean with that object name
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2003, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2003, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -113,14 +113,16 @@ public interface JavaLangAccess {
     StackTraceElement getStackTraceElement(Throwable t, int i);
 
     /**
-     * Returns a new string backed by the provided character array. The
-     * character array is not copied and must never be modified after the
-     * String is created, in order to fulfill String's contract.
+     * Returns a new string backed by the provided byte array, which holds
+     * one Latin1 character per byte. The byte array is not copied and must
+     * never be modified after the String is created, in order to fulfill
+     * String's contract. If String compaction is disabled the characters
+     * are inflated into a new array instead.
      *
-     * @param chars the character array to back the string
-     * @return a newly created string whose content is the character array
+     * @param bytes the Latin1 characters to back the string
+     * @return a newly created string whose content is the byte array
      */
-    String newStringUnsafe(char[] chars);
+    String newStringLatin1Unsafe(byte[] bytes);
 
     /**
      * Returns a new Thread with the given Runnable and an
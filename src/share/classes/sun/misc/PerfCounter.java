@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2009, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2009, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -133,6 +133,16 @@ public class PerfCounter {
         static final PerfCounter zfot  = newPerfCounter("sun.zip.zipFile.openTime");
     }
 
+    static class NioCounters {
+        static final PerfCounter tbcm  = newPerfCounter("sun.nio.ch.tempBufferCache.misses");
+        static final PerfCounter tbco  = newPerfCounter("sun.nio.ch.tempBufferCache.oversized");
+        static final PerfCounter tbce  = newPerfCounter("sun.nio.ch.tempBufferCache.evictions");
+        static final PerfCounter ine   = newPerfCounter("sun.nio.fs.inotify.events");
+        static final PerfCounter inc   = newPerfCounter("sun.nio.fs.inotify.coalescedEvents");
+        static final PerfCounter ino   = newPerfCounter("sun.nio.fs.inotify.overflows");
+        static final PerfCounter pdl   = newPerfCounter("sun.nio.ch.pooledDirect.leaks");
+    }
+
     static class WindowsClientCounters {
         static final PerfCounter d3dAvailable = newConstantPerfCounter("sun.java2d.d3d.available");
     }
@@ -182,6 +192,60 @@ public class PerfCounter {
         return CoreCounters.zfot;
     }
 
+    /**
+     * Number of temporary direct buffers allocated because no
+     * suitable buffer was cached
+     */
+    public static PerfCounter getTempBufferCacheMisses() {
+        return NioCounters.tbcm;
+    }
+
+    /**
+     * Number of temporary direct buffers allocated that were too
+     * large to be cached
+     */
+    public static PerfCounter getTempBufferCacheOversized() {
+        return NioCounters.tbco;
+    }
+
+    /**
+     * Number of cached temporary direct buffers freed because the
+     * cache was full or the buffer was idle
+     */
+    public static PerfCounter getTempBufferCacheEvictions() {
+        return NioCounters.tbce;
+    }
+
+    /**
+     * Number of events read from inotify by watch services
+     */
+    public static PerfCounter getInotifyEvents() {
+        return NioCounters.ine;
+    }
+
+    /**
+     * Number of inotify events merged into an earlier event for the
+     * same file
+     */
+    public static PerfCounter getInotifyCoalescedEvents() {
+        return NioCounters.inc;
+    }
+
+    /**
+     * Number of times that the inotify event queue overflowed
+     */
+    public static PerfCounter getInotifyOverflows() {
+        return NioCounters.ino;
+    }
+
+    /**
+     * Number of pooled direct buffers that became unreachable
+     * without being released
+     */
+    public static PerfCounter getPooledDirectLeaks() {
+        return NioCounters.pdl;
+    }
+
     /**
      * D3D graphic pipeline available
      */
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.net;
+
+import java.lang.management.PlatformManagedObject;
+
+/**
+ * The management interface for the name lookup cache of
+ * {@link java.net.InetAddress}.
+ *
+ * <p> The {@code ObjectName} for uniquely identifying the MXBean within
+ * an MBeanServer is {@code sun.net:type=InetAddressCache}.
+ */
+public interface InetAddressCacheMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns the number of host name lookups answered from the cache,
+     * including those answered with an expired entry.
+     *
+     * @return the number of cache hits
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of host name lookups answered with an expired
+     * entry while it was looked up again in the background, as allowed
+     * by the {@code networkaddress.cache.stale.ttl} security property.
+     *
+     * @return the number of stale cache hits
+     */
+    long getStaleHitCount();
+
+    /**
+     * Returns the number of host name lookups not found in the cache.
+     *
+     * @return the number of cache misses
+     */
+    long getMissCount();
+
+    /**
+     * Returns the number of lookups made by the name service, including
+     * background refreshes.
+     *
+     * @return the number of name service lookups
+     */
+    long getLookupCount();
+
+    /**
+     * Returns the number of name service lookups which failed.
+     *
+     * @return the number of failed name service lookups
+     */
+    long getFailedLookupCount();
+
+    /**
+     * Returns the number of lookups made in the background, to refresh
+     * expired entries or to pre-warm the cache with the hosts of the
+     * {@code sun.net.inetaddr.prewarm} system property.
+     *
+     * @return the number of background refreshes
+     */
+    long getRefreshCount();
+
+    /**
+     * Returns the total time spent in name service lookups.
+     *
+     * @return the total lookup time in milliseconds
+     */
+    long getTotalLookupTime();
+
+    /**
+     * Returns the longest time taken by a name service lookup.
+     *
+     * @return the maximum lookup time in milliseconds
+     */
+    long getMaxLookupTime();
+}
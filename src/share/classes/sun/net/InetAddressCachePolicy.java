@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1998, 2010, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1998, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -41,6 +41,19 @@ public final class InetAddressCachePolicy {
     private static final String negativeCachePolicyPropFallback =
         "sun.net.inetaddr.negative.ttl";
 
+    // Controls how long a successful lookup may be used after it expired
+    private static final String staleCachePolicyProp =
+        "networkaddress.cache.stale.ttl";
+    private static final String staleCachePolicyPropFallback =
+        "sun.net.inetaddr.stale.ttl";
+
+    // Limits the number of negative lookups cached
+    private static final String negativeCacheMaxProp =
+        "sun.net.inetaddr.negative.maxEntries";
+
+    // Host names to look up ahead of their first use
+    private static final String prewarmProp = "sun.net.inetaddr.prewarm";
+
     public static final int FOREVER = -1;
     public static final int NEVER = 0;
 
@@ -68,6 +81,23 @@ public final class InetAddressCachePolicy {
      */
     private static int negativeCachePolicy = NEVER;
 
+    /* The Java-level namelookup cache policy for expired lookups:
+     *
+     * any positive value: the number of seconds after its expiry for
+     * which a successful lookup is still used, while it is looked up
+     * again in the background
+     *
+     * default value is 0, expired lookups are never used. It only
+     * applies if successful lookups are cached for a limited time.
+     */
+    private static int staleCachePolicy = NEVER;
+
+    /* The maximum number of negative lookups cached. */
+    private static int negativeCacheMax = 1024;
+
+    /* The host names to look up when the cache is first used. */
+    private static String[] prewarmHosts = new String[0];
+
     /*
      * Whether or not the cache policy for successful lookups was set
      * using a property (cmd line).
@@ -151,6 +181,43 @@ public final class InetAddressCachePolicy {
                 propertyNegativeSet = true;
             }
         }
+
+        tmp = getIntProperty(staleCachePolicyProp, staleCachePolicyPropFallback);
+        if (tmp != null && tmp.intValue() > 0) {
+            staleCachePolicy = tmp.intValue();
+        }
+
+        tmp = java.security.AccessController.doPrivileged
+            (new sun.security.action.GetIntegerAction(negativeCacheMaxProp));
+        if (tmp != null && tmp.intValue() > 0) {
+            negativeCacheMax = tmp.intValue();
+        }
+
+        String hosts = java.security.AccessController.doPrivileged
+            (new sun.security.action.GetPropertyAction(prewarmProp));
+        if (hosts != null && !hosts.trim().isEmpty()) {
+            prewarmHosts = hosts.trim().split("\\s*,\\s*");
+        }
+    }
+
+    /*
+     * Returns the security property, or else the system property, as an
+     * Integer, or null if neither is set to an integer.
+     */
+    private static Integer getIntProperty(final String prop, String fallback) {
+        try {
+            return new Integer(
+              java.security.AccessController.doPrivileged (
+                new PrivilegedAction<String>() {
+                  public String run() {
+                      return Security.getProperty(prop);
+                  }
+              }));
+        } catch (NumberFormatException e) {
+            // ignore
+        }
+        return java.security.AccessController.doPrivileged
+            (new sun.security.action.GetIntegerAction(fallback));
     }
 
     public static synchronized int get() {
@@ -161,6 +228,30 @@ public final class InetAddressCachePolicy {
         return negativeCachePolicy;
     }
 
+    /**
+     * Returns the number of seconds for which an expired successful
+     * lookup may still be used while it is refreshed, or 0 if expired
+     * lookups are not to be used.
+     */
+    public static synchronized int getStale() {
+        return cachePolicy > 0 ? staleCachePolicy : NEVER;
+    }
+
+    /**
+     * Returns the maximum number of negative lookups to cache.
+     */
+    public static int getNegativeMaxEntries() {
+        return negativeCacheMax;
+    }
+
+    /**
+     * Returns the host names to look up in the background when the
+     * cache is first used.
+     */
+    public static String[] getPrewarmHosts() {
+        return prewarmHosts.clone();
+    }
+
     /**
      * Sets the cache policy for successful lookups if the user has not
      * already specified a cache policy for it using a
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.net;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters kept by the name lookup cache of java.net.InetAddress, and
+ * reported by the InetAddressCacheMXBean.
+ */
+public final class InetAddressCacheStats {
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder staleHits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder lookups = new LongAdder();
+    private static final LongAdder failedLookups = new LongAdder();
+    private static final LongAdder refreshes = new LongAdder();
+    private static final LongAdder lookupNanos = new LongAdder();
+    private static final AtomicLong maxLookupNanos = new AtomicLong();
+
+    private InetAddressCacheStats() { }
+
+    /**
+     * Records a lookup answered from the cache.
+     */
+    public static void hit() {
+        hits.increment();
+    }
+
+    /**
+     * Records a lookup answered with an expired entry, which is being
+     * refreshed in the background.
+     */
+    public static void staleHit() {
+        staleHits.increment();
+    }
+
+    /**
+     * Records a lookup not found in the cache.
+     */
+    public static void miss() {
+        misses.increment();
+    }
+
+    /**
+     * Records a lookup by the name service, which took the given time.
+     */
+    public static void lookedUp(long nanos, boolean success) {
+        lookups.increment();
+        if (!success) {
+            failedLookups.increment();
+        }
+        lookupNanos.add(nanos);
+        long max;
+        while (nanos > (max = maxLookupNanos.get())) {
+            if (maxLookupNanos.compareAndSet(max, nanos)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Records a background lookup.
+     */
+    public static void refreshed() {
+        refreshes.increment();
+    }
+
+    public static long getHitCount() {
+        return hits.sum();
+    }
+
+    public static long getStaleHitCount() {
+        return staleHits.sum();
+    }
+
+    public static long getMissCount() {
+        return misses.sum();
+    }
+
+    public static long getLookupCount() {
+        return lookups.sum();
+    }
+
+    public static long getFailedLookupCount() {
+        return failedLookups.sum();
+    }
+
+    public static long getRefreshCount() {
+        return refreshes.sum();
+    }
+
+    public static long getTotalLookupTime() {
+        return lookupNanos.sum() / 1000000;
+    }
+
+    public static long getMaxLookupTime() {
+        return maxLookupNanos.get() / 1000000;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.net.httpclient;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The idle connections of a HttpClientImpl, kept per route in LIFO order
+ * so that the most recently used connection is reused first.
+ * <p>
+ * While a connection is idle, its selector thread watches it with an
+ * IdleListener, so that a connection closed by the server is dropped from
+ * the pool. Each selector thread also expires its own idle connections.
+ */
+class ConnectionPool {
+
+    private final int maxIdlePerRoute;
+    /* guarded by this */
+    private final HashMap<String,ArrayDeque<HttpConnection>> routes =
+        new HashMap<>();
+
+    ConnectionPool (int maxIdlePerRoute) {
+        this.maxIdlePerRoute = maxIdlePerRoute;
+    }
+
+    /**
+     * Takes the most recently used idle connection for the given route,
+     * or returns null if there is none.
+     */
+    synchronized HttpConnection get (String key) {
+        ArrayDeque<HttpConnection> q = routes.get (key);
+        if (q == null) {
+            return null;
+        }
+        HttpConnection c = q.pollFirst();
+        if (q.isEmpty()) {
+            routes.remove (key);
+        }
+        return c;
+    }
+
+    /**
+     * Adds an idle connection, which expires at the given time. Must be
+     * called on the selector thread of the connection. Returns false,
+     * having closed the connection, if the route already has the maximum
+     * number of idle connections.
+     */
+    boolean put (HttpConnection c, long expiry) {
+        c.expiry = expiry;
+        c.setListener (new IdleListener (c));
+        synchronized (this) {
+            ArrayDeque<HttpConnection> q = routes.get (c.key);
+            if (q == null) {
+                q = new ArrayDeque<>();
+                routes.put (c.key, q);
+            }
+            if (q.size() < maxIdlePerRoute) {
+                q.addFirst (c);
+                return true;
+            }
+        }
+        c.close();
+        return false;
+    }
+
+    /* removes the connection, returns false if it is not idle */
+    synchronized boolean remove (HttpConnection c) {
+        ArrayDeque<HttpConnection> q = routes.get (c.key);
+        if (q == null || !q.remove (c)) {
+            return false;
+        }
+        if (q.isEmpty()) {
+            routes.remove (c.key);
+        }
+        return true;
+    }
+
+    /**
+     * Closes the idle connections of the given selector thread which
+     * have expired.
+     */
+    void expire (long now, SelectorManager sel) {
+        List<HttpConnection> expired = null;
+        synchronized (this) {
+            Iterator<ArrayDeque<HttpConnection>> it = routes.values().iterator();
+            while (it.hasNext()) {
+                ArrayDeque<HttpConnection> q = it.next();
+                Iterator<HttpConnection> qi = q.iterator();
+                while (qi.hasNext()) {
+                    HttpConnection c = qi.next();
+                    if (c.sel == sel && c.expiry <= now) {
+                        qi.remove();
+                        if (expired == null) {
+                            expired = new ArrayList<>();
+                        }
+                        expired.add (c);
+                    }
+                }
+                if (q.isEmpty()) {
+                    it.remove();
+                }
+            }
+        }
+        if (expired != null) {
+            for (HttpConnection c : expired) {
+                c.close();
+            }
+        }
+    }
+
+    /**
+     * Closes all idle connections.
+     */
+    void closeAll () {
+        List<HttpConnection> all = new ArrayList<>();
+        synchronized (this) {
+            for (ArrayDeque<HttpConnection> q : routes.values()) {
+                all.addAll (q);
+            }
+            routes.clear();
+        }
+        for (final HttpConnection c : all) {
+            c.sel.execute (new Runnable() {
+                public void run () {
+                    c.close();
+                }
+            });
+        }
+    }
+
+    /**
+     * Watches an idle connection. Any input or end of stream makes it
+     * unusable, so it is closed, unless it has just been taken from the
+     * pool, in which case the new user finds it stale.
+     */
+    private class IdleListener implements HttpConnection.Listener {
+        private final HttpConnection c;
+
+        IdleListener (HttpConnection c) {
+            this.c = c;
+        }
+
+        public void connected () {
+        }
+
+        public boolean input (ByteBuffer buf) {
+            buf.position (buf.limit());
+            dropped();
+            return true;
+        }
+
+        public boolean eof () {
+            dropped();
+            return true;
+        }
+
+        public void failed (Throwable t) {
+            remove (c);
+        }
+
+        private void dropped () {
+            c.stale = true;
+            if (remove (c)) {
+                c.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,465 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.net.httpclient;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import com.sun.net.httpclient.HttpResponse.BodySubscriber;
+import com.sun.net.httpclient.HttpResponse.Subscription;
+import com.sun.net.httpserver.Headers;
+
+/**
+ * One HTTP/1.1 request and its response on a HttpConnection. The request
+ * is sent as soon as the exchange starts; the response is parsed as it
+ * arrives. Once the headers are complete, the owning MultiExchange is told,
+ * and the input is held back until it calls subscribe() with the subscriber
+ * for the body, which is then delivered as far as the subscriber's demand
+ * allows. All methods except those of Subscription are called on the
+ * selector thread of the connection.
+ */
+class Exchange implements HttpConnection.Listener, Subscription {
+
+    /* limit on the size of the status line and headers, and of the trailers */
+    private static final int MAX_HEADER_SIZE = 64 * 1024;
+    /* limit on the length of a chunk size line */
+    private static final int MAX_CHUNK_LINE = 1024;
+
+    /* parser states */
+    private static final int STATUS = 0;
+    private static final int HEADERS = 1;
+    private static final int WAIT = 2;       // waiting for subscribe()
+    private static final int FIXED = 3;
+    private static final int CHUNK_SIZE = 4;
+    private static final int CHUNK_DATA = 5;
+    private static final int CHUNK_END = 6;
+    private static final int TRAILERS = 7;
+    private static final int UNTIL_EOF = 8;
+    private static final int DONE = 9;
+
+    private final MultiExchange<?> owner;
+    final HttpConnection conn;
+    private final String method;
+    final boolean isConnect;
+
+    private int state = STATUS;
+    private final StringBuilder line = new StringBuilder();
+    private int headerSize;     // bytes of the headers or trailers so far
+    private long remaining;
+    private boolean noBody, chunked, untilEof;
+
+    String statusLine;
+    String protocol;
+    int statusCode;
+    Headers headers = new Headers();
+    /* whether the connection may be reused after this exchange */
+    boolean keepAlive;
+    /* idle timeout announced by the server, or -1 */
+    long keepAliveTimeout = -1;
+    /* true once any part of the response has been received */
+    boolean received;
+
+    private BodySubscriber<?> subscriber;
+    private final AtomicLong demand = new AtomicLong();
+    private boolean finished;
+
+    private final Runnable resumer = new Runnable() {
+        public void run () {
+            if (!finished) {
+                conn.resume();
+            }
+        }
+    };
+
+    Exchange (MultiExchange<?> owner, HttpConnection conn, String method,
+              boolean isConnect)
+    {
+        this.owner = owner;
+        this.conn = conn;
+        this.method = method;
+        this.isConnect = isConnect;
+    }
+
+    /**
+     * Sends the request and starts reading the response.
+     */
+    void start (ByteBuffer... request) {
+        conn.setListener (this);
+        if (conn.stale || conn.isClosed()) {
+            conn.close();
+            failed (new IOException ("connection closed by server"));
+            return;
+        }
+        conn.send (request);
+    }
+
+    boolean hasSubscriber () {
+        return subscriber != null;
+    }
+
+    public void connected () {
+    }
+
+    public boolean input (ByteBuffer buf) throws IOException {
+        if (buf.hasRemaining()) {
+            received = true;
+        }
+        for (;;) {
+            String l;
+            switch (state) {
+            case STATUS:
+                if ((l = readLine (buf)) == null) {
+                    return true;
+                }
+                if (!l.isEmpty()) {
+                    parseStatusLine (l);
+                    state = HEADERS;
+                }
+                break;
+            case HEADERS:
+                if ((l = readLine (buf)) == null) {
+                    return true;
+                }
+                if (!l.isEmpty()) {
+                    parseHeader (l);
+                } else if (statusCode < 200 && statusCode != 101) {
+                    /* interim response, wait for the final one */
+                    headers = new Headers();
+                    state = STATUS;
+                } else {
+                    headersComplete();
+                }
+                break;
+            case WAIT:
+                return false;
+            case FIXED:
+            case CHUNK_DATA:
+            case UNTIL_EOF:
+                if (!buf.hasRemaining()) {
+                    return true;
+                }
+                if (!deliver (buf)) {
+                    return false;
+                }
+                break;
+            case CHUNK_SIZE:
+                if ((l = readChunkLine (buf)) == null) {
+                    return true;
+                }
+                remaining = parseChunkSize (l);
+                if (remaining == 0) {
+                    headerSize = 0;
+                    state = TRAILERS;
+                } else {
+                    state = CHUNK_DATA;
+                }
+                break;
+            case CHUNK_END:
+                if ((l = readChunkLine (buf)) == null) {
+                    return true;
+                }
+                if (!l.isEmpty()) {
+                    throw new IOException ("invalid chunked encoding");
+                }
+                state = CHUNK_SIZE;
+                break;
+            case TRAILERS:
+                if ((l = readLine (buf)) == null) {
+                    return true;
+                }
+                if (l.isEmpty()) {
+                    complete();
+                }
+                break;
+            case DONE:
+                if (buf.hasRemaining() && conn.listener() == this) {
+                    /* more than the response, the connection is unusable */
+                    conn.stale = true;
+                    buf.position (buf.limit());
+                }
+                return true;
+            default:
+                throw new InternalError();
+            }
+        }
+    }
+
+    public boolean eof () throws IOException {
+        if (state == WAIT) {
+            return false; // until there is a subscriber
+        }
+        if (state == UNTIL_EOF) {
+            complete();
+        } else if (state != DONE) {
+            throw new IOException (
+                received ? "premature end of response"
+                         : "connection closed by server");
+        }
+        return true;
+    }
+
+    public void failed (Throwable t) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (subscriber != null) {
+            try {
+                subscriber.onError (t);
+            } catch (RuntimeException ignore) {}
+        }
+        owner.exchangeFailed (this, t);
+    }
+
+    /* returns the next status, header or trailer line, without CRLF, or
+     * null if incomplete */
+    private String readLine (ByteBuffer buf) throws IOException {
+        return readLine (buf, true);
+    }
+
+    /* returns the next line of the chunked encoding, without CRLF, or
+     * null if incomplete */
+    private String readChunkLine (ByteBuffer buf) throws IOException {
+        return readLine (buf, false);
+    }
+
+    private String readLine (ByteBuffer buf, boolean header) throws IOException {
+        while (buf.hasRemaining()) {
+            char c = (char)(buf.get() & 0xff);
+            if (header) {
+                if (++headerSize > MAX_HEADER_SIZE) {
+                    throw new IOException ("response header too large");
+                }
+            } else if (line.length() >= MAX_CHUNK_LINE) {
+                throw new IOException ("invalid chunked encoding");
+            }
+            if (c == '\n') {
+                int len = line.length();
+                if (len > 0 && line.charAt (len-1) == '\r') {
+                    line.setLength (len-1);
+                }
+                String s = line.toString();
+                line.setLength (0);
+                return s;
+            }
+            line.append (c);
+        }
+        return null;
+    }
+
+    private void parseStatusLine (String l) throws IOException {
+        int sp1 = l.indexOf (' ');
+        int sp2 = sp1 == -1 ? -1 : l.indexOf (' ', sp1+1);
+        if (sp2 == -1) {
+            sp2 = l.length();
+        }
+        if (!l.startsWith ("HTTP/1.") || sp1 == -1 || sp2 - sp1 != 4) {
+            throw new IOException ("invalid status line: \"" + l + "\"");
+        }
+        try {
+            statusCode = Integer.parseInt (l.substring (sp1+1, sp2));
+        } catch (NumberFormatException e) {
+            throw new IOException ("invalid status line: \"" + l + "\"");
+        }
+        statusLine = l;
+        protocol = l.substring (0, sp1);
+    }
+
+    private String lastName;
+
+    private void parseHeader (String l) throws IOException {
+        char c = l.charAt (0);
+        if ((c == ' ' || c == '\t') && lastName != null) {
+            /* obsolete line folding, append to the previous value */
+            List<String> values = headers.get (lastName);
+            int i = values.size() - 1;
+            values.set (i, values.get (i) + " " + l.trim());
+            return;
+        }
+        int colon = l.indexOf (':');
+        if (colon <= 0) {
+            throw new IOException ("invalid response header: \"" + l + "\"");
+        }
+        lastName = l.substring (0, colon).trim();
+        headers.add (lastName, l.substring (colon+1).trim());
+    }
+
+    private static long parseChunkSize (String l) throws IOException {
+        int semi = l.indexOf (';');
+        String s = (semi == -1 ? l : l.substring (0, semi)).trim();
+        try {
+            long size = Long.parseLong (s, 16);
+            if (size >= 0) {
+                return size;
+            }
+        } catch (NumberFormatException e) {
+        }
+        throw new IOException ("invalid chunk size: \"" + l + "\"");
+    }
+
+    /* works out the framing of the body, then hands over to the owner */
+    private void headersComplete () throws IOException {
+        headerSize = 0;
+        String te = headers.getFirst ("Transfer-encoding");
+        String cl = headers.getFirst ("Content-length");
+        if ((isConnect && statusCode / 100 == 2)
+            || method.equals ("HEAD") || statusCode == 204
+            || statusCode == 304)
+        {
+            noBody = true;
+        } else if (te != null && hasToken (headers.get ("Transfer-encoding"), "chunked")) {
+            chunked = true;
+        } else if (cl != null) {
+            try {
+                remaining = Long.parseLong (cl.trim());
+            } catch (NumberFormatException e) {
+                remaining = -1;
+            }
+            if (remaining < 0) {
+                throw new IOException ("invalid Content-length: " + cl);
+            }
+            noBody = remaining == 0;
+        } else {
+            untilEof = true;
+        }
+        List<String> connection = headers.get ("Connection");
+        if (protocol.equals ("HTTP/1.0")) {
+            keepAlive = hasToken (connection, "keep-alive");
+        } else {
+            keepAlive = !hasToken (connection, "close");
+        }
+        keepAlive &= !untilEof;
+        String ka = headers.getFirst ("Keep-alive");
+        if (ka != null) {
+            String t = new sun.net.www.HeaderParser (ka).findValue ("timeout");
+            if (t != null) {
+                try {
+                    keepAliveTimeout = Long.parseLong (t.trim()) * 1000;
+                } catch (NumberFormatException ignore) {}
+            }
+        }
+        state = WAIT;
+        owner.headersReceived (this);
+    }
+
+    static boolean hasToken (List<String> values, String token) {
+        if (values != null) {
+            for (String v : values) {
+                for (String t : v.split (",")) {
+                    if (t.trim().equalsIgnoreCase (token)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts delivering the body to the given subscriber.
+     */
+    void subscribe (BodySubscriber<?> s) {
+        assert state == WAIT;
+        subscriber = s;
+        if (noBody) {
+            state = FIXED;
+            s.onSubscribe (this);
+            complete();
+            return;
+        }
+        state = chunked ? CHUNK_SIZE : untilEof ? UNTIL_EOF : FIXED;
+        s.onSubscribe (this);
+        conn.resume();
+    }
+
+    /* hands part of the body to the subscriber, if it wants it */
+    private boolean deliver (ByteBuffer buf) {
+        long d = demand.get();
+        if (d == 0 || finished) {
+            return false;
+        }
+        int n = buf.remaining();
+        if (state != UNTIL_EOF && remaining < n) {
+            n = (int)remaining;
+        }
+        ByteBuffer item = ByteBuffer.allocate (n);
+        ByteBuffer src = buf.duplicate();
+        src.limit (src.position() + n);
+        item.put (src);
+        item.flip();
+        buf.position (buf.position() + n);
+        if (d != Long.MAX_VALUE) {
+            demand.decrementAndGet();
+        }
+        remaining -= n;
+        subscriber.onNext (item);
+        if (remaining == 0) {
+            if (state == FIXED) {
+                complete();
+            } else if (state == CHUNK_DATA) {
+                state = CHUNK_END;
+            }
+        }
+        return true;
+    }
+
+    private void complete () {
+        state = DONE;
+        finished = true;
+        owner.exchangeDone (this);
+        subscriber.onComplete();
+    }
+
+    /* Subscription */
+
+    public void request (long n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException ("non-positive request: " + n);
+        }
+        long prev, next;
+        do {
+            prev = demand.get();
+            next = prev + n;
+            if (next < 0) {
+                next = Long.MAX_VALUE;
+            }
+        } while (!demand.compareAndSet (prev, next));
+        if (prev == 0) {
+            conn.sel.execute (resumer);
+        }
+    }
+
+    public void cancel () {
+        conn.sel.execute (new Runnable() {
+            public void run () {
+                if (!finished) {
+                    conn.fail (new IOException ("response body cancelled"));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.net.httpclient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.security.AccessController;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivilegedAction;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import com.sun.net.httpclient.HttpClient;
+import com.sun.net.httpclient.HttpRequest;
+import com.sun.net.httpclient.HttpResponse;
+import sun.security.action.GetIntegerAction;
+import sun.security.action.GetPropertyAction;
+
+/**
+ * The HttpClient implementation. Connections are spread over a fixed
+ * number of SelectorManagers, and idle connections are shared through a
+ * ConnectionPool.
+ */
+public class HttpClientImpl extends HttpClient {
+
+    static final String USER_AGENT;
+
+    private static final int SELECTORS;
+    private static final int MAX_IDLE_PER_ROUTE;
+    private static final long KEEP_ALIVE_TIMEOUT;
+
+    static {
+        String version = AccessController.doPrivileged (
+            new GetPropertyAction ("java.version"));
+        String agent = AccessController.doPrivileged (
+            new GetPropertyAction ("http.agent"));
+        USER_AGENT = agent == null ? "Java/" + version
+                                   : agent + " Java/" + version;
+        int n = AccessController.doPrivileged (
+            new GetIntegerAction ("sun.net.httpclient.selectors",
+                Math.min (2, Runtime.getRuntime().availableProcessors())));
+        SELECTORS = Math.max (n, 1);
+        n = AccessController.doPrivileged (
+            new GetIntegerAction ("sun.net.httpclient.maxIdlePerRoute", 8));
+        MAX_IDLE_PER_ROUTE = Math.max (n, 0);
+        n = AccessController.doPrivileged (
+            new GetIntegerAction ("sun.net.httpclient.keepAliveTimeout", 30));
+        KEEP_ALIVE_TIMEOUT = Math.max (n, 0) * 1000L;
+    }
+
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    private final Logger logger = Logger.getLogger ("sun.net.httpclient");
+    private final SelectorManager[] selectors;
+    private final AtomicInteger nextSelector = new AtomicInteger();
+    private final ConnectionPool pool = new ConnectionPool (MAX_IDLE_PER_ROUTE);
+
+    private volatile Executor executor;
+    private ExecutorService defaultExecutor;    // guarded by this
+    private volatile SSLContext sslContext;
+    private volatile SSLParameters sslParams;
+    private volatile ProxySelector proxySelector;
+    private volatile int connectTimeout;
+    private volatile boolean closed;
+
+    public HttpClientImpl () throws IOException {
+        int id = nextId.incrementAndGet();
+        selectors = new SelectorManager [SELECTORS];
+        try {
+            for (int i=0; i<SELECTORS; i++) {
+                selectors[i] = new SelectorManager (this, id + "-" + i);
+            }
+        } catch (IOException e) {
+            for (SelectorManager s : selectors) {
+                if (s != null) {
+                    s.close();
+                }
+            }
+            throw e;
+        }
+        for (SelectorManager s : selectors) {
+            s.start();
+        }
+    }
+
+    public void setExecutor (Executor executor) {
+        this.executor = executor;
+    }
+
+    public Executor getExecutor () {
+        return executor;
+    }
+
+    public void setSSLContext (SSLContext context) {
+        sslContext = context;
+    }
+
+    public SSLContext getSSLContext () throws IOException {
+        SSLContext ctx = sslContext;
+        if (ctx == null) {
+            try {
+                ctx = SSLContext.getDefault();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IOException ("cannot create default SSLContext", e);
+            }
+        }
+        return ctx;
+    }
+
+    public void setSSLParameters (SSLParameters params) {
+        sslParams = params;
+    }
+
+    public void setProxySelector (ProxySelector selector) {
+        proxySelector = selector;
+    }
+
+    public void setConnectTimeout (int millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException ("negative timeout");
+        }
+        connectTimeout = millis;
+    }
+
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync (
+        HttpRequest request, HttpResponse.BodyHandler<T> handler
+    ) {
+        if (request == null || handler == null) {
+            throw new NullPointerException();
+        }
+        if (closed) {
+            throw new IllegalStateException ("HttpClient closed");
+        }
+        MultiExchange<T> m = new MultiExchange<T> (this, request, handler);
+        m.start();
+        return m.result;
+    }
+
+    public void close () {
+        ExecutorService e;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            e = defaultExecutor;
+        }
+        pool.closeAll();
+        for (SelectorManager s : selectors) {
+            s.close();
+        }
+        if (e != null) {
+            e.shutdown();
+        }
+    }
+
+    /* package-private accessors for the rest of the implementation */
+
+    ConnectionPool pool () {
+        return pool;
+    }
+
+    SSLParameters sslParameters () {
+        SSLParameters p = sslParams;
+        if (p == null) {
+            return null;
+        }
+        /* copy, since the endpoint identification is set on it */
+        SSLParameters copy = new SSLParameters (p.getCipherSuites(),
+                                                p.getProtocols());
+        copy.setAlgorithmConstraints (p.getAlgorithmConstraints());
+        copy.setServerNames (p.getServerNames());
+        copy.setSNIMatchers (p.getSNIMatchers());
+        copy.setUseCipherSuitesOrder (p.getUseCipherSuitesOrder());
+        if (p.getNeedClientAuth()) {
+            copy.setNeedClientAuth (true);
+        } else if (p.getWantClientAuth()) {
+            copy.setWantClientAuth (true);
+        }
+        return copy;
+    }
+
+    ProxySelector proxySelector () {
+        ProxySelector ps = proxySelector;
+        if (ps == null) {
+            ps = AccessController.doPrivileged (
+                new PrivilegedAction<ProxySelector>() {
+                    public ProxySelector run () {
+                        return ProxySelector.getDefault();
+                    }
+                });
+        }
+        return ps;
+    }
+
+    int connectTimeout () {
+        return connectTimeout;
+    }
+
+    long keepAliveTimeout () {
+        return KEEP_ALIVE_TIMEOUT;
+    }
+
+    /**
+     * Creates a connection to the given address, on the next selector
+     * thread in turn.
+     */
+    HttpConnection newConnection (String key, InetSocketAddress addr)
+        throws IOException
+    {
+        if (closed) {
+            throw new IOException ("HttpClient closed");
+        }
+        int i = (nextSelector.getAndIncrement() & Integer.MAX_VALUE)
+                % selectors.length;
+        return new HttpConnection (selectors[i], key, addr);
+    }
+
+    /**
+     * Returns the executor set by the application, or else the default
+     * executor, which is created on first use.
+     */
+    Executor internalExecutor () {
+        Executor e = executor;
+        if (e != null) {
+            return e;
+        }
+        synchronized (this) {
+            if (defaultExecutor == null) {
+                defaultExecutor = Executors.newCachedThreadPool (
+                    new ThreadFactory() {
+                        final AtomicInteger n = new AtomicInteger();
+                        public Thread newThread (Runnable r) {
+                            Thread t = new Thread (r,
+                                "HttpClient-Worker-" + n.incrementAndGet());
+                            t.setDaemon (true);
+                            return t;
+                        }
+                    });
+            }
+            return defaultExecutor;
+        }
+    }
+
+    /**
+     * Completes the given future on the executor, so that dependent
+     * actions of the application do not run on a selector thread.
+     */
+    <T> void complete (final CompletableFuture<T> f, final T value) {
+        try {
+            internalExecutor().execute (new Runnable() {
+                public void run () {
+                    f.complete (value);
+                }
+            });
+        } catch (RuntimeException e) {
+            f.complete (value);
+        }
+    }
+
+    <T> void completeExceptionally (final CompletableFuture<T> f,
+                                    final Throwable t)
+    {
+        debug ("exchange failed", t);
+        try {
+            internalExecutor().execute (new Runnable() {
+                public void run () {
+                    f.completeExceptionally (t);
+                }
+            });
+        } catch (RuntimeException e) {
+            f.completeExceptionally (t);
+        }
+    }
+
+    void debug (String msg, Throwable t) {
+        if (logger.isLoggable (Level.FINER)) {
+            logger.log (Level.FINER, msg, t);
+        }
+    }
+}
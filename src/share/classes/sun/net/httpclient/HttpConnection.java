@@ -0,0 +1,557 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.net.httpclient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+
+/**
+ * A non-blocking connection to a server or proxy, optionally secured with
+ * an SSLEngine. A connection belongs to one SelectorManager, and all its
+ * methods except the constructor must be called on that selector thread.
+ * <p>
+ * The connection is driven by process(), which makes as much progress as
+ * it can on the SSL handshake, on writing queued output and on reading
+ * input, and then waits for the channel to become ready again. Input is
+ * handed to the current Listener, which may refuse it to stop the
+ * connection from reading until resume() is called.
+ */
+class HttpConnection {
+
+    /**
+     * Receives the events of a connection.
+     */
+    interface Listener {
+
+        /**
+         * Called once the connection is established, or once the SSL
+         * handshake has completed after startTls().
+         */
+        void connected () throws IOException;
+
+        /**
+         * Called with input. Returns false to stop reading until resume()
+         * is called, in which case the remaining input is offered again.
+         * Otherwise any input left is offered to the listener again,
+         * which may have been changed in the meantime.
+         */
+        boolean input (ByteBuffer buf) throws IOException;
+
+        /**
+         * Called when the peer has closed the connection, once all input
+         * has been consumed. Returns false to be called again after
+         * resume().
+         */
+        boolean eof () throws IOException;
+
+        /**
+         * Called when the connection has failed and been closed.
+         */
+        void failed (Throwable t);
+    }
+
+    private static final int BUFSIZE = 16 * 1024;
+    /* number of reads or unwraps per call of process() */
+    private static final int MAX_ROUNDS = 16;
+    private static final ByteBuffer[] NO_DATA = { ByteBuffer.allocate (0) };
+
+    final SelectorManager sel;
+    final String key;
+    private final InetSocketAddress address;
+    private final SocketChannel chan;
+    private SelectionKey skey;
+    private Listener listener;
+    private long deadline;
+
+    private SSLEngine engine;
+    private ByteBuffer netIn, netOut;
+    private boolean handshaking;
+    private boolean runningTask;
+
+    /* pending output, plain text */
+    private final ArrayDeque<ByteBuffer> pendingOut = new ArrayDeque<>();
+    /* input not yet consumed by the listener, in read mode */
+    private ByteBuffer appIn;
+
+    private boolean connected;
+    private boolean processing, again;
+    private boolean eof, eofAcked;
+    private boolean closed;
+    /* set if the connection cannot be used for another request */
+    boolean stale;
+    /* the time at which the connection expires, while idle */
+    long expiry;
+    /* true once the connection has carried a complete exchange */
+    boolean reused;
+
+    HttpConnection (SelectorManager sel, String key, InetSocketAddress address)
+        throws IOException
+    {
+        this.sel = sel;
+        this.key = key;
+        this.address = address;
+        this.chan = SocketChannel.open();
+        appIn = ByteBuffer.allocate (BUFSIZE);
+        appIn.flip();
+    }
+
+    SocketChannel channel () {
+        return chan;
+    }
+
+    long deadline () {
+        return deadline;
+    }
+
+    boolean isClosed () {
+        return closed;
+    }
+
+    boolean isSecure () {
+        return engine != null;
+    }
+
+    void setListener (Listener l) {
+        listener = l;
+    }
+
+    Listener listener () {
+        return listener;
+    }
+
+    /**
+     * Starts connecting. The listener is called once connected.
+     */
+    void connect (Listener l, int timeout) {
+        listener = l;
+        try {
+            chan.configureBlocking (false);
+            chan.setOption (StandardSocketOptions.TCP_NODELAY, true);
+            if (timeout > 0) {
+                deadline = System.currentTimeMillis() + timeout;
+            }
+            sel.addConnecting (this);
+            if (chan.connect (address)) {
+                skey = sel.register (this, 0);
+                finishConnect();
+            } else {
+                skey = sel.register (this, SelectionKey.OP_CONNECT);
+            }
+        } catch (IOException | RuntimeException e) {
+            fail (e);
+        }
+    }
+
+    private void finishConnect () throws IOException {
+        if (engine == null) {
+            sel.removeConnecting (this);
+        }
+        connected = true;
+        listener.connected();
+        process();
+    }
+
+    /**
+     * Starts an SSL handshake on this connection, which must be connected.
+     * The listener is called once the handshake has completed.
+     */
+    void startTls (SSLEngine e, Listener l) {
+        assert engine == null;
+        listener = l;
+        engine = e;
+        try {
+            netIn = ByteBuffer.allocate (e.getSession().getPacketBufferSize());
+            netOut = ByteBuffer.allocate (e.getSession().getPacketBufferSize());
+            handshaking = true;
+            sel.addConnecting (this);
+            engine.beginHandshake();
+            process();
+        } catch (IOException | RuntimeException x) {
+            fail (x);
+        }
+    }
+
+    /**
+     * Queues output. The buffers must not be modified afterwards.
+     */
+    void send (ByteBuffer... bufs) {
+        for (ByteBuffer b : bufs) {
+            if (b.hasRemaining()) {
+                pendingOut.add (b);
+            }
+        }
+        process();
+    }
+
+    /**
+     * Offers input to the listener again after it refused it.
+     */
+    void resume () {
+        process();
+    }
+
+    void handleEvent (int ops) {
+        try {
+            if (!connected && (ops & SelectionKey.OP_CONNECT) != 0) {
+                if (!chan.finishConnect()) {
+                    return;
+                }
+                finishConnect();
+                return;
+            }
+        } catch (IOException | RuntimeException e) {
+            fail (e);
+            return;
+        }
+        process();
+    }
+
+    /**
+     * Makes as much progress as possible, then updates the interest set.
+     * Listeners may call back into the connection, in which case the
+     * work is picked up by the outermost call.
+     */
+    void process () {
+        if (processing) {
+            again = true;
+            return;
+        }
+        processing = true;
+        try {
+            do {
+                again = false;
+                processOnce();
+            } while (again && !closed);
+        } finally {
+            processing = false;
+        }
+    }
+
+    private void processOnce () {
+        if (closed) {
+            return;
+        }
+        if (sel.isClosed()) {
+            fail (new IOException ("HttpClient closed"));
+            return;
+        }
+        if (!connected) {
+            return;
+        }
+        try {
+            if (engine == null) {
+                flushPlain();
+                readPlain();
+            } else {
+                processTls();
+            }
+            if (!closed) {
+                updateInterest();
+            }
+        } catch (IOException | RuntimeException e) {
+            fail (e);
+        }
+    }
+
+    private void flushPlain () throws IOException {
+        while (!pendingOut.isEmpty()) {
+            ByteBuffer[] bufs = pendingOut.toArray (new ByteBuffer [pendingOut.size()]);
+            chan.write (bufs);
+            while (!pendingOut.isEmpty() && !pendingOut.peek().hasRemaining()) {
+                pendingOut.poll();
+            }
+            if (!pendingOut.isEmpty()) {
+                return; // socket buffer full, wait for OP_WRITE
+            }
+        }
+    }
+
+    private void readPlain () throws IOException {
+        if (!deliver()) {
+            return;
+        }
+        if (eof) {
+            if (!eofAcked) {
+                eofAcked = listener.eof();
+            }
+            return;
+        }
+        /* input is level triggered, so anything left is picked up later */
+        for (int i=0; i<MAX_ROUNDS && !closed; i++) {
+            appIn.clear();
+            int n = chan.read (appIn);
+            appIn.flip();
+            if (n == -1) {
+                inputClosed();
+                return;
+            }
+            if (n == 0 || !deliver()) {
+                return;
+            }
+        }
+    }
+
+    /* offer the input to the listener, returns false if refused */
+    private boolean deliver () throws IOException {
+        while (appIn.hasRemaining() && !closed) {
+            if (!listener.input (appIn)) {
+                return false;
+            }
+        }
+        return !closed;
+    }
+
+    private void inputClosed () throws IOException {
+        eof = true;
+        stale = true;
+        if (engine != null) {
+            try {
+                engine.closeInbound();
+            } catch (SSLException e) {
+                // closed without close_notify, let the listener decide
+            }
+        }
+        eofAcked = listener.eof();
+    }
+
+    private void processTls () throws IOException {
+        for (int i=0; i<MAX_ROUNDS && !closed && !runningTask; i++) {
+            boolean progress = false;
+
+            if (appIn.hasRemaining()) {
+                if (!deliver()) {
+                    flushTls(); // the handshake may still have output
+                    return;
+                }
+                progress = true;
+            }
+            if (eof && !eofAcked) {
+                eofAcked = listener.eof();
+                return;
+            }
+
+            HandshakeStatus hs = engine.getHandshakeStatus();
+            if (hs == HandshakeStatus.NEED_TASK) {
+                runTasks();
+                return;
+            }
+            if (hs == HandshakeStatus.NEED_WRAP
+                || (hs == HandshakeStatus.NOT_HANDSHAKING && !pendingOut.isEmpty()))
+            {
+                progress |= wrap();
+            }
+            progress |= flushTls();
+
+            hs = engine.getHandshakeStatus();
+            if (!eof && (hs == HandshakeStatus.NEED_UNWRAP
+                         || hs == HandshakeStatus.NOT_HANDSHAKING))
+            {
+                progress |= unwrap();
+            }
+
+            if (handshaking && !closed
+                && engine.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING)
+            {
+                handshaking = false;
+                sel.removeConnecting (this);
+                listener.connected();
+                progress = true;
+            }
+            if (!progress) {
+                return;
+            }
+        }
+        if (!closed && !runningTask) {
+            /* more to do, but give the other connections a turn */
+            sel.execute (new Runnable() {
+                public void run () {
+                    process();
+                }
+            });
+        }
+    }
+
+    /* wraps pending output (or handshake data) into netOut */
+    private boolean wrap () throws IOException {
+        ByteBuffer[] src = pendingOut.isEmpty() ? NO_DATA
+            : pendingOut.toArray (new ByteBuffer [pendingOut.size()]);
+        SSLEngineResult r = engine.wrap (src, netOut);
+        while (!pendingOut.isEmpty() && !pendingOut.peek().hasRemaining()) {
+            pendingOut.poll();
+        }
+        switch (r.getStatus()) {
+        case BUFFER_OVERFLOW:
+            if (netOut.position() == 0) {
+                /* not even one record fits, grow the buffer */
+                ByteBuffer b = ByteBuffer.allocate (
+                    engine.getSession().getPacketBufferSize());
+                netOut = b;
+                return true;
+            }
+            return false; // flush first
+        case CLOSED:
+            throw new SSLException ("SSLEngine closed");
+        default:
+            return r.bytesProduced() > 0 || r.bytesConsumed() > 0;
+        }
+    }
+
+    private boolean flushTls () throws IOException {
+        if (netOut.position() == 0) {
+            return false;
+        }
+        netOut.flip();
+        int n = chan.write (netOut);
+        netOut.compact();
+        return n > 0;
+    }
+
+    /* unwraps data from netIn into appIn, reading from the channel if needed */
+    private boolean unwrap () throws IOException {
+        netIn.flip();
+        appIn.clear();
+        SSLEngineResult r;
+        try {
+            r = engine.unwrap (netIn, appIn);
+        } finally {
+            netIn.compact();
+            appIn.flip();
+        }
+        switch (r.getStatus()) {
+        case BUFFER_UNDERFLOW:
+            int size = engine.getSession().getPacketBufferSize();
+            if (netIn.capacity() < size) {
+                ByteBuffer b = ByteBuffer.allocate (size);
+                netIn.flip();
+                b.put (netIn);
+                netIn = b;
+            }
+            int n = chan.read (netIn);
+            if (n == -1) {
+                inputClosed();
+                return false;
+            }
+            return n > 0;
+        case BUFFER_OVERFLOW:
+            size = engine.getSession().getApplicationBufferSize();
+            if (appIn.capacity() < size) {
+                appIn = ByteBuffer.allocate (size);
+                appIn.flip();
+            }
+            return true;
+        case CLOSED:
+            /* close_notify from the peer */
+            if (!eof) {
+                inputClosed();
+            }
+            return false;
+        default:
+            return r.bytesProduced() > 0 || r.bytesConsumed() > 0;
+        }
+    }
+
+    /* runs the delegated tasks of the SSLEngine on the executor */
+    private void runTasks () {
+        runningTask = true;
+        final Runnable resume = new Runnable() {
+            public void run () {
+                runningTask = false;
+                process();
+            }
+        };
+        sel.client.internalExecutor().execute (new Runnable() {
+            public void run () {
+                Runnable task;
+                while ((task = engine.getDelegatedTask()) != null) {
+                    task.run();
+                }
+                sel.execute (resume);
+            }
+        });
+    }
+
+    private void updateInterest () {
+        int ops = 0;
+        if (!connected) {
+            ops = SelectionKey.OP_CONNECT;
+        } else if (!runningTask) {
+            if (engine == null ? !pendingOut.isEmpty() : netOut.position() > 0) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            if (!eof && !appIn.hasRemaining()) {
+                ops |= SelectionKey.OP_READ;
+            }
+        }
+        if (skey.interestOps() != ops) {
+            skey.interestOps (ops);
+        }
+    }
+
+    /**
+     * Closes the connection.
+     */
+    void close () {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        stale = true;
+        sel.removeConnecting (this);
+        if (skey != null) {
+            skey.cancel();
+        }
+        try {
+            chan.close();
+        } catch (IOException ignore) {}
+    }
+
+    /**
+     * Closes the connection and reports the failure to the listener.
+     */
+    void fail (Throwable t) {
+        if (closed) {
+            return;
+        }
+        close();
+        if (listener != null) {
+            listener.failed (t);
+        }
+    }
+
+    public String toString () {
+        return "HttpConnection[" + key + ", " + chan + "]";
+    }
+}
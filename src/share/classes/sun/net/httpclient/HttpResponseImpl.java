@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.net.httpclient;
+
+import com.sun.net.httpclient.HttpRequest;
+import com.sun.net.httpclient.HttpResponse;
+import com.sun.net.httpserver.Headers;
+
+class HttpResponseImpl<T> extends HttpResponse<T> {
+
+    private final HttpRequest request;
+    private final int statusCode;
+    private final Headers headers;
+    private final T body;
+
+    HttpResponseImpl (HttpRequest request, int statusCode, Headers headers,
+                      T body)
+    {
+        this.request = request;
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    public int getStatusCode () {
+        return statusCode;
+    }
+
+    public Headers getHeaders () {
+        return headers;
+    }
+
+    public HttpRequest getRequest () {
+        return request;
+    }
+
+    public T getBody () {
+        return body;
+    }
+
+    public String toString () {
+        return "(" + request.getMethod() + " " + request.getURI() + ") "
+            + statusCode;
+    }
+}
@@ -0,0 +1,505 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.net.httpclient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import com.sun.net.httpclient.HttpRequest;
+import com.sun.net.httpclient.HttpResponse;
+import com.sun.net.httpclient.HttpResponse.BodyHandler;
+import com.sun.net.httpclient.HttpResponse.BodySubscriber;
+import sun.net.www.protocol.http.AuthenticationSupport;
+
+/**
+ * Carries out one HttpRequest of a HttpClientImpl, which may take several
+ * exchanges: a CONNECT to tunnel through a proxy, retries after an
+ * authentication challenge, and one retry if a reused connection turns out
+ * to have been closed by the server.
+ * <p>
+ * While a new connection is being set up, this is its listener. Apart
+ * from start(), which runs on the calling thread, and the authentication
+ * and connection steps which run on the executor, everything happens on
+ * the selector thread of the current connection.
+ */
+class MultiExchange<T> implements HttpConnection.Listener {
+
+    /* limit on authentication attempts per request */
+    private static final int MAX_AUTH_ATTEMPTS = 3;
+
+    private final HttpClientImpl client;
+    private final HttpRequest request;
+    private final BodyHandler<T> handler;
+    final CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+
+    private final String method;
+    private final URI uri;
+    private final URL url;
+    private final boolean https;
+    private final String host;      // without brackets
+    private final int port;
+    private final String hostHeader;
+    private InetSocketAddress proxy;
+    private String routeKey;
+    private final boolean closeRequested;
+
+    private String serverAuth;
+    private String proxyAuth;
+    private int authAttempts;
+    private boolean retried;
+    /* set when the current exchange is to be followed by another */
+    private boolean retryPending;
+
+    private HttpConnection conn;
+    private boolean tunneled;
+
+    MultiExchange (HttpClientImpl client, HttpRequest request,
+                   BodyHandler<T> handler)
+    {
+        this.client = client;
+        this.request = request;
+        this.handler = handler;
+        this.method = request.getMethod();
+        this.uri = request.getURI();
+        String scheme = uri.getScheme();
+        String h = uri.getHost();
+        if (scheme == null || h == null) {
+            throw new IllegalArgumentException ("unsupported URI: " + uri);
+        }
+        scheme = scheme.toLowerCase();
+        if (!scheme.equals ("http") && !scheme.equals ("https")) {
+            throw new IllegalArgumentException ("unsupported URI: " + uri);
+        }
+        https = scheme.equals ("https");
+        int defaultPort = https ? 443 : 80;
+        port = uri.getPort() == -1 ? defaultPort : uri.getPort();
+        hostHeader = port == defaultPort ? h : h + ":" + port;
+        if (h.startsWith ("[") && h.endsWith ("]")) {
+            h = h.substring (1, h.length()-1);
+        }
+        host = h;
+        try {
+            url = uri.toURL();
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException (e);
+        }
+        for (Map.Entry<String,List<String>> e : request.getHeaders().entrySet()) {
+            checkHeader (e.getKey());
+            for (String v : e.getValue()) {
+                checkHeader (v);
+            }
+        }
+        closeRequested = Exchange.hasToken (
+            request.getHeaders().get ("Connection"), "close");
+    }
+
+    /* refuse header names and values which would split the request */
+    private static void checkHeader (String s) {
+        if (s != null && (s.indexOf ('\r') != -1 || s.indexOf ('\n') != -1)) {
+            throw new IllegalArgumentException ("illegal character in header");
+        }
+    }
+
+    /**
+     * Selects the proxy and starts the first exchange.
+     */
+    void start () {
+        try {
+            ProxySelector ps = client.proxySelector();
+            Proxy p = Proxy.NO_PROXY;
+            if (ps != null) {
+                List<Proxy> proxies = ps.select (uri);
+                if (proxies != null && !proxies.isEmpty()) {
+                    p = proxies.get (0);
+                }
+            }
+            if (p.type() == Proxy.Type.SOCKS) {
+                throw new IOException ("SOCKS proxies are not supported");
+            }
+            if (p.type() == Proxy.Type.HTTP) {
+                InetSocketAddress a = (InetSocketAddress)p.address();
+                proxy = new InetSocketAddress (a.getHostString(), a.getPort());
+                proxyAuth = AuthenticationSupport.getProxyAuthorization (
+                    proxy.getHostString(), proxy.getPort());
+            }
+            routeKey = (https ? "https://" : "http://") + host + ":" + port
+                + (proxy == null ? "" : " via " + proxy.getHostString()
+                                        + ":" + proxy.getPort());
+            if (request.getHeaders().getFirst ("Authorization") == null) {
+                serverAuth = AuthenticationSupport.getServerAuthorization (
+                    url, method);
+            }
+            attempt();
+        } catch (IOException | RuntimeException e) {
+            client.completeExceptionally (result, e);
+        }
+    }
+
+    /* sends the request on an idle connection, or opens a new one */
+    private void attempt () {
+        final HttpConnection c = client.pool().get (routeKey);
+        if (c != null) {
+            c.sel.execute (new Runnable() {
+                public void run () {
+                    sendRequest (c);
+                }
+            });
+            return;
+        }
+        try {
+            InetSocketAddress addr = proxy != null ? proxy
+                : new InetSocketAddress (host, port);
+            if (addr.isUnresolved()) {
+                throw new java.net.UnknownHostException (addr.getHostString());
+            }
+            final HttpConnection nc = client.newConnection (routeKey, addr);
+            nc.sel.execute (new Runnable() {
+                public void run () {
+                    conn = nc;
+                    tunneled = false;
+                    nc.connect (MultiExchange.this, client.connectTimeout());
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            client.completeExceptionally (result, e);
+        }
+    }
+
+    /* runs attempt() on the executor, which may block on name lookups */
+    private void retry () {
+        client.internalExecutor().execute (new Runnable() {
+            public void run () {
+                attempt();
+            }
+        });
+    }
+
+    /* HttpConnection.Listener, while setting up a new connection */
+
+    public void connected () throws IOException {
+        if (https && !conn.isSecure()) {
+            if (proxy != null && !tunneled) {
+                sendConnect();
+            } else {
+                conn.startTls (createEngine(), this);
+            }
+            return;
+        }
+        sendRequest (conn);
+    }
+
+    public boolean input (ByteBuffer buf) throws IOException {
+        throw new IOException ("unexpected data from " +
+                               (proxy != null ? "proxy" : "server"));
+    }
+
+    public boolean eof () throws IOException {
+        throw new IOException ("connection closed by " +
+                               (proxy != null ? "proxy" : "server"));
+    }
+
+    public void failed (Throwable t) {
+        client.completeExceptionally (result, t);
+    }
+
+    private SSLEngine createEngine () throws IOException {
+        SSLEngine engine = client.getSSLContext().createSSLEngine (host, port);
+        engine.setUseClientMode (true);
+        SSLParameters params = client.sslParameters();
+        if (params == null) {
+            params = engine.getSSLParameters();
+        }
+        params.setEndpointIdentificationAlgorithm ("HTTPS");
+        engine.setSSLParameters (params);
+        return engine;
+    }
+
+    private void sendConnect () {
+        StringBuilder sb = new StringBuilder();
+        String target = uri.getHost() + ":" + port;
+        sb.append ("CONNECT ").append (target).append (" HTTP/1.1\r\n");
+        sb.append ("Host: ").append (target).append ("\r\n");
+        sb.append ("User-Agent: ").append (HttpClientImpl.USER_AGENT).append ("\r\n");
+        if (proxyAuth != null) {
+            sb.append ("Proxy-Authorization: ").append (proxyAuth).append ("\r\n");
+        }
+        sb.append ("\r\n");
+        new Exchange (this, conn, "CONNECT", true).start (encode (sb));
+    }
+
+    private void sendRequest (HttpConnection c) {
+        conn = c;
+        StringBuilder sb = new StringBuilder();
+        String path = uri.getRawPath();
+        if (path == null || path.isEmpty()) {
+            path = "/";
+        }
+        String query = uri.getRawQuery();
+        if (query != null) {
+            path = path + "?" + query;
+        }
+        sb.append (method).append (' ');
+        if (proxy != null && !https) {
+            sb.append ("http://").append (hostHeader);
+        }
+        sb.append (path).append (" HTTP/1.1\r\n");
+
+        boolean hasAgent = false;
+        for (Map.Entry<String,List<String>> e : request.getHeaders().entrySet()) {
+            String name = e.getKey();
+            if (name.equalsIgnoreCase ("Host")
+                || name.equalsIgnoreCase ("Content-length")
+                || name.equalsIgnoreCase ("Transfer-encoding")) {
+                continue;
+            }
+            if (name.equalsIgnoreCase ("User-agent")) {
+                hasAgent = true;
+            }
+            for (String v : e.getValue()) {
+                sb.append (name).append (": ").append (v).append ("\r\n");
+            }
+        }
+        sb.append ("Host: ").append (hostHeader).append ("\r\n");
+        if (!hasAgent) {
+            sb.append ("User-Agent: ").append (HttpClientImpl.USER_AGENT).append ("\r\n");
+        }
+        if (serverAuth != null) {
+            sb.append ("Authorization: ").append (serverAuth).append ("\r\n");
+        }
+        if (proxy != null && !https && proxyAuth != null) {
+            sb.append ("Proxy-Authorization: ").append (proxyAuth).append ("\r\n");
+        }
+        byte[] body = request.getBody();
+        if (body != null) {
+            sb.append ("Content-Length: ").append (body.length).append ("\r\n");
+        } else if (method.equals ("POST") || method.equals ("PUT")) {
+            sb.append ("Content-Length: 0\r\n");
+        }
+        sb.append ("\r\n");
+
+        Exchange e = new Exchange (this, c, method, false);
+        if (body != null && body.length > 0) {
+            e.start (encode (sb), ByteBuffer.wrap (body).asReadOnlyBuffer());
+        } else {
+            e.start (encode (sb));
+        }
+    }
+
+    private static ByteBuffer encode (StringBuilder sb) {
+        return ByteBuffer.wrap (sb.toString().getBytes (StandardCharsets.ISO_8859_1));
+    }
+
+    /* called by the exchange once the response headers are in */
+    void headersReceived (final Exchange e) {
+        final int code = e.statusCode;
+        final boolean proxyChallenge = code == 407 && proxy != null
+            && (e.isConnect || !https);
+        if ((code == 401 && !e.isConnect || proxyChallenge)
+            && authAttempts < MAX_AUTH_ATTEMPTS)
+        {
+            final List<String> challenges = e.headers.get (
+                proxyChallenge ? "Proxy-authenticate" : "WWW-authenticate");
+            if (challenges != null) {
+                authAttempts++;
+                authenticate (e, proxyChallenge, challenges);
+                return;
+            }
+        }
+        if (e.isConnect) {
+            if (code / 100 == 2) {
+                tunneled = true;
+                e.subscribe (ResponseSubscribers.discardHandler().apply (code, e.headers));
+            } else {
+                e.conn.close();
+                client.completeExceptionally (result, new IOException (
+                    "Unable to tunnel through proxy. Proxy returns \""
+                    + e.statusLine + "\""));
+            }
+            return;
+        }
+        deliverResponse (e);
+    }
+
+    /* hands the response to the application's body subscriber */
+    private void deliverResponse (final Exchange e) {
+        final BodySubscriber<T> s;
+        try {
+            s = handler.apply (e.statusCode, e.headers);
+        } catch (RuntimeException x) {
+            e.conn.close();
+            client.completeExceptionally (result, x);
+            return;
+        }
+        if (s == null) {
+            e.conn.close();
+            client.completeExceptionally (result,
+                new NullPointerException ("null body subscriber"));
+            return;
+        }
+        s.getBody().whenComplete (new BiConsumer<T,Throwable>() {
+            public void accept (T body, Throwable t) {
+                if (t != null) {
+                    client.completeExceptionally (result, t);
+                } else {
+                    client.complete (result, new HttpResponseImpl<T>(
+                        request, e.statusCode, e.headers, body));
+                }
+            }
+        });
+        e.subscribe (s);
+    }
+
+    /*
+     * Asks for credentials on the executor, since the Authenticator may
+     * block. If there are none, the challenge is returned to the caller,
+     * otherwise its body is discarded and the request sent again.
+     */
+    private void authenticate (final Exchange e, final boolean isProxy,
+                               final List<String> challenges)
+    {
+        final String sent = isProxy ? proxyAuth : serverAuth;
+        client.internalExecutor().execute (new Runnable() {
+            public void run () {
+                String auth = null;
+                try {
+                    if (isProxy) {
+                        auth = AuthenticationSupport.authenticateProxy (
+                            proxy.getHostString(), proxy.getPort(), url,
+                            challenges, sent);
+                    } else {
+                        auth = AuthenticationSupport.authenticateServer (
+                            url, challenges, sent);
+                    }
+                } catch (RuntimeException x) {
+                    client.debug ("authentication failed", x);
+                }
+                final String value = auth;
+                e.conn.sel.execute (new Runnable() {
+                    public void run () {
+                        if (value == null) {
+                            if (e.isConnect) {
+                                e.conn.close();
+                                client.completeExceptionally (result, new IOException (
+                                    "Unable to tunnel through proxy. Proxy returns \""
+                                    + e.statusLine + "\""));
+                            } else {
+                                deliverResponse (e);
+                            }
+                            return;
+                        }
+                        if (isProxy) {
+                            proxyAuth = value;
+                        } else {
+                            serverAuth = value;
+                        }
+                        if (e.isConnect) {
+                            /* the connection is not reusable for the tunnel */
+                            e.conn.close();
+                            retry();
+                            return;
+                        }
+                        retryPending = true;
+                        e.subscribe (ResponseSubscribers.discardHandler()
+                                     .apply (e.statusCode, e.headers));
+                    }
+                });
+            }
+        });
+    }
+
+    /* called by the exchange once the response body has been received */
+    void exchangeDone (Exchange e) {
+        HttpConnection c = e.conn;
+        if (e.isConnect) {
+            if (!c.isClosed()) {
+                try {
+                    c.startTls (createEngine(), this);
+                } catch (IOException | RuntimeException x) {
+                    c.fail (x);
+                }
+            }
+            return;
+        }
+        release (e);
+        if (retryPending) {
+            retryPending = false;
+            retry();
+        }
+    }
+
+    /* returns the connection to the pool, or closes it */
+    private void release (Exchange e) {
+        HttpConnection c = e.conn;
+        if (!e.keepAlive || closeRequested || c.stale || c.isClosed()) {
+            c.close();
+            return;
+        }
+        c.reused = true;
+        long timeout = e.keepAliveTimeout >= 0 ? e.keepAliveTimeout
+            : client.keepAliveTimeout();
+        client.pool().put (c, System.currentTimeMillis() + timeout);
+    }
+
+    /* called by the exchange if it fails */
+    void exchangeFailed (Exchange e, Throwable t) {
+        e.conn.close();
+        if (!e.hasSubscriber() && !e.received && e.conn.reused && !retried
+            && isIdempotent())
+        {
+            /* the server closed the idle connection, try a new one */
+            retried = true;
+            retry();
+            return;
+        }
+        client.completeExceptionally (result, t);
+    }
+
+    private boolean isIdempotent () {
+        switch (method) {
+        case "GET":
+        case "HEAD":
+        case "PUT":
+        case "DELETE":
+        case "OPTIONS":
+        case "TRACE":
+            return true;
+        default:
+            return false;
+        }
+    }
+}
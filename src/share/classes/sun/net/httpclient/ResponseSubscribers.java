@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.net.httpclient;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import com.sun.net.httpclient.HttpResponse.BodyHandler;
+import com.sun.net.httpclient.HttpResponse.BodySubscriber;
+import com.sun.net.httpclient.HttpResponse.Subscription;
+import com.sun.net.httpserver.Headers;
+import sun.net.www.HeaderParser;
+
+/**
+ * The body handlers provided by com.sun.net.httpclient.HttpResponse.
+ */
+public final class ResponseSubscribers {
+
+    private ResponseSubscribers () {}
+
+    public static BodyHandler<byte[]> byteArrayHandler () {
+        return new BodyHandler<byte[]>() {
+            public BodySubscriber<byte[]> apply (int code, Headers headers) {
+                return new ByteArraySubscriber();
+            }
+        };
+    }
+
+    public static BodyHandler<String> stringHandler (final Charset charset) {
+        return new BodyHandler<String>() {
+            public BodySubscriber<String> apply (int code, Headers headers) {
+                Charset cs = charset;
+                if (cs == null) {
+                    cs = charsetOf (headers.getFirst ("Content-type"));
+                }
+                return new StringSubscriber (cs);
+            }
+        };
+    }
+
+    public static BodyHandler<Void> discardHandler () {
+        return new BodyHandler<Void>() {
+            public BodySubscriber<Void> apply (int code, Headers headers) {
+                return new DiscardingSubscriber();
+            }
+        };
+    }
+
+    /* the charset parameter of a Content-type, or ISO-8859-1 */
+    static Charset charsetOf (String contentType) {
+        if (contentType != null) {
+            int i = contentType.indexOf (';');
+            if (i != -1) {
+                HeaderParser p = new HeaderParser (contentType.substring (i+1));
+                String cs = p.findValue ("charset");
+                if (cs != null) {
+                    try {
+                        return Charset.forName (cs);
+                    } catch (IllegalArgumentException e) {
+                        // unknown or illegal, use the default
+                    }
+                }
+            }
+        }
+        return StandardCharsets.ISO_8859_1;
+    }
+
+    /**
+     * Collects the whole body, then converts it.
+     */
+    static abstract class CollectingSubscriber<T> implements BodySubscriber<T> {
+
+        private final CompletableFuture<T> body = new CompletableFuture<>();
+        private final List<ByteBuffer> received = new ArrayList<>();
+        private int size;
+
+        public void onSubscribe (Subscription subscription) {
+            subscription.request (Long.MAX_VALUE);
+        }
+
+        public void onNext (ByteBuffer item) {
+            received.add (item);
+            size += item.remaining();
+            if (size < 0) {
+                throw new OutOfMemoryError ("response body too large");
+            }
+        }
+
+        public void onError (Throwable throwable) {
+            received.clear();
+            body.completeExceptionally (throwable);
+        }
+
+        public void onComplete () {
+            byte[] b = new byte [size];
+            int off = 0;
+            for (ByteBuffer buf : received) {
+                int n = buf.remaining();
+                buf.get (b, off, n);
+                off += n;
+            }
+            received.clear();
+            try {
+                body.complete (convert (b));
+            } catch (RuntimeException e) {
+                body.completeExceptionally (e);
+            }
+        }
+
+        public CompletionStage<T> getBody () {
+            return body;
+        }
+
+        abstract T convert (byte[] b);
+    }
+
+    static class ByteArraySubscriber extends CollectingSubscriber<byte[]> {
+        byte[] convert (byte[] b) {
+            return b;
+        }
+    }
+
+    static class StringSubscriber extends CollectingSubscriber<String> {
+        private final Charset charset;
+
+        StringSubscriber (Charset charset) {
+            this.charset = charset;
+        }
+
+        String convert (byte[] b) {
+            return new String (b, charset);
+        }
+    }
+
+    static class DiscardingSubscriber implements BodySubscriber<Void> {
+
+        private final CompletableFuture<Void> body = new CompletableFuture<>();
+
+        public void onSubscribe (Subscription subscription) {
+            subscription.request (Long.MAX_VALUE);
+        }
+
+        public void onNext (ByteBuffer item) {
+        }
+
+        public void onError (Throwable throwable) {
+            body.completeExceptionally (throwable);
+        }
+
+        public void onComplete () {
+            body.complete (null);
+        }
+
+        public CompletionStage<Void> getBody () {
+            return body;
+        }
+    }
+}
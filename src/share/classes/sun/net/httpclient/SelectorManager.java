@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.net.httpclient;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A selector thread of a HttpClientImpl. Each HttpConnection belongs to
+ * one SelectorManager, and all of its state is only touched by that
+ * thread. Other threads hand work to it with execute().
+ */
+class SelectorManager implements Runnable {
+
+    final HttpClientImpl client;
+    private final Selector selector;
+    private final Thread thread;
+    private final Object lock = new Object();
+    /* tasks from other threads, guarded by lock */
+    private List<Runnable> tasks = new ArrayList<>();
+    /* connections which have not finished connecting */
+    private final List<HttpConnection> connecting = new ArrayList<>();
+    private volatile boolean closed;
+
+    SelectorManager (HttpClientImpl client, String id) throws IOException {
+        this.client = client;
+        selector = Selector.open();
+        thread = new Thread (this, "HttpClient-Selector-" + id);
+        thread.setDaemon (true);
+    }
+
+    void start () {
+        thread.start();
+    }
+
+    boolean isClosed () {
+        return closed;
+    }
+
+    void close () {
+        closed = true;
+        selector.wakeup();
+    }
+
+    /**
+     * Runs the given task on the selector thread. Once the selector is
+     * closed, the task is run by the caller instead, so that it can fail
+     * whatever it was waiting for.
+     */
+    void execute (Runnable task) {
+        synchronized (lock) {
+            if (!closed) {
+                tasks.add (task);
+                selector.wakeup();
+                return;
+            }
+        }
+        task.run();
+    }
+
+    SelectionKey register (HttpConnection c, int ops) throws IOException {
+        assert Thread.currentThread() == thread;
+        return c.channel().register (selector, ops, c);
+    }
+
+    void addConnecting (HttpConnection c) {
+        connecting.add (c);
+    }
+
+    void removeConnecting (HttpConnection c) {
+        connecting.remove (c);
+    }
+
+    public void run () {
+        long nextCheck = 0;
+        try {
+            while (!closed) {
+                List<Runnable> list;
+                synchronized (lock) {
+                    list = tasks;
+                    tasks = new ArrayList<>();
+                }
+                for (Runnable r : list) {
+                    r.run();
+                }
+
+                long now = System.currentTimeMillis();
+                if (now >= nextCheck) {
+                    client.pool().expire (now, this);
+                    checkConnectTimeouts (now);
+                    nextCheck = now + 1000;
+                }
+
+                selector.select (1000);
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    HttpConnection c = (HttpConnection)key.attachment();
+                    if (key.isValid()) {
+                        c.handleEvent (key.readyOps());
+                    }
+                }
+            }
+        } catch (Throwable t) {
+            client.debug ("selector failed", t);
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void checkConnectTimeouts (long now) {
+        if (connecting.isEmpty()) {
+            return;
+        }
+        List<HttpConnection> expired = null;
+        for (HttpConnection c : connecting) {
+            if (c.deadline() != 0 && now >= c.deadline()) {
+                if (expired == null) {
+                    expired = new ArrayList<>();
+                }
+                expired.add (c);
+            }
+        }
+        if (expired != null) {
+            for (HttpConnection c : expired) {
+                c.fail (new SocketTimeoutException ("connect timed out"));
+            }
+        }
+    }
+
+    /* fail everything that is still in progress */
+    private void shutdown () {
+        List<Runnable> list;
+        synchronized (lock) {
+            closed = true;
+            list = tasks;
+            tasks = new ArrayList<>();
+        }
+        for (Runnable r : list) {
+            r.run();
+        }
+        IOException e = new IOException ("HttpClient closed");
+        for (SelectionKey key : selector.keys()) {
+            ((HttpConnection)key.attachment()).fail (e);
+        }
+        for (HttpConnection c : new ArrayList<>(connecting)) {
+            c.fail (e);
+        }
+        try {
+            selector.close();
+        } catch (IOException ignore) {}
+    }
+}
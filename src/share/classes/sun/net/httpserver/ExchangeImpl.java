@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2005, 2010, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -27,6 +27,7 @@ package sun.net.httpserver;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.FileChannel;
 import javax.net.ssl.*;
 import java.util.*;
 import java.util.logging.Logger;
@@ -269,6 +270,53 @@ class ExchangeImpl {
         server.logReply (rCode, req.requestLine(), null);
     }
 
+    /* sends the given file region as the response body. Unless a filter
+     * has replaced the response stream, the region is written directly
+     * to the connection rather than through the stream.
+     */
+    void sendFile (int rCode, FileChannel src, long position, long count)
+    throws IOException
+    {
+        if (position < 0 || count < 0) {
+            throw new IllegalArgumentException ("negative position or count");
+        }
+        sendResponseHeaders (rCode, count == 0 ? -1 : count);
+        if (closed) {
+            /* no response body */
+            return;
+        }
+        if (uos != uos_orig
+            || !(uos_orig.wrapped instanceof FixedLengthOutputStream))
+        {
+            copy (src, position, count, uos);
+            return;
+        }
+        FixedLengthOutputStream os = (FixedLengthOutputStream)uos_orig.wrapped;
+        os.transferFrom (src, position, count);
+        uos.close();
+    }
+
+    private static void copy (
+        FileChannel src, long position, long count, OutputStream os
+    ) throws IOException {
+        byte[] b = new byte [8192];
+        java.nio.ByteBuffer buf = java.nio.ByteBuffer.wrap (b);
+        while (count > 0) {
+            buf.clear();
+            if (count < buf.capacity()) {
+                buf.limit ((int)count);
+            }
+            int n = src.read (buf, position);
+            if (n == -1) {
+                throw new EOFException ("unexpected end of file");
+            }
+            os.write (b, 0, n);
+            position += n;
+            count -= n;
+        }
+        os.close();
+    }
+
     void write (Headers map, OutputStream os) throws IOException {
         Set<Map.Entry<String,List<String>>> entries = map.entrySet();
         for (Map.Entry<String,List<String>> entry : entries) {
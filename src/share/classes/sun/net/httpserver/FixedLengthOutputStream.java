@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2005, 2006, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -27,6 +27,9 @@ package sun.net.httpserver;
 
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import javax.net.ssl.SSLEngineResult;
 import com.sun.net.httpserver.*;
 import com.sun.net.httpserver.spi.*;
 
@@ -79,6 +82,61 @@ class FixedLengthOutputStream extends FilterOutputStream
         remaining -= len;
     }
 
+    /**
+     * writes count bytes of the given file region directly to the
+     * connection. On plain connections the region is transferred with
+     * FileChannel.transferTo(), which avoids copying it through the
+     * Java heap where the platform supports it. On SSL connections the
+     * file is read into a buffer which is encrypted in place of the
+     * stream's own buffer.
+     */
+    void transferFrom (FileChannel src, long position, long count)
+        throws IOException
+    {
+        if (closed) {
+            throw new IOException ("stream closed");
+        }
+        if (count > remaining) {
+            throw new IOException ("too many bytes to write to stream");
+        }
+        out.flush();
+        HttpConnection c = t.getConnection();
+        SSLStreams ssl = c.sslStreams;
+        if (ssl == null) {
+            SocketChannel chan = c.getChannel();
+            while (count > 0) {
+                long n = src.transferTo (position, count, chan);
+                if (n == 0 && position >= src.size()) {
+                    throw new EOFException ("unexpected end of file");
+                }
+                position += n;
+                count -= n;
+                remaining -= n;
+            }
+            return;
+        }
+        int size = c.getSSLEngine().getSession().getApplicationBufferSize();
+        ByteBuffer buf = ByteBuffer.allocate (size);
+        while (count > 0) {
+            buf.clear();
+            if (count < size) {
+                buf.limit ((int)count);
+            }
+            int n = src.read (buf, position);
+            if (n == -1) {
+                throw new EOFException ("unexpected end of file");
+            }
+            buf.flip();
+            SSLStreams.WrapperResult r = ssl.sendData (buf);
+            if (r.result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                throw new IOException ("output stream is closed");
+            }
+            position += n;
+            count -= n;
+            remaining -= n;
+        }
+    }
+
     public void close () throws IOException {
         if (closed) {
             return;
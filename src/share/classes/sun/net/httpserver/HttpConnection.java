@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2005, 2010, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -51,10 +51,16 @@ class HttpConnection {
     InputStream raw;
     OutputStream rawout;
 
+    /* stream which reads ahead the request header, when the connection
+     * is served by an I/O loop (see ServerImpl.IOLoop) */
+    Request.ReadStream readStream;
+    ServerImpl.IOLoop loop;
+
     SocketChannel chan;
     SelectionKey selectionKey;
     String protocol;
     long time;
+    int wheelSlot = -1; // slot in the idle TimerWheel
     volatile long creationTime; // time this connection was created
     volatile long rspStartedTime; // time we started writing the response
     int remaining;
@@ -134,6 +140,14 @@ class HttpConnection {
         } catch (IOException e) {
             ServerImpl.dprint (e);
         }
+        try {
+            /* releases the read ahead buffer if no exchange was started */
+            if (readStream != null) {
+                readStream.close();
+            }
+        } catch (IOException e) {
+            ServerImpl.dprint (e);
+        }
         try {
             if (rawout != null) {
                 rawout.close();
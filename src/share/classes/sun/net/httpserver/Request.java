@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -215,6 +215,12 @@ class Request {
 
     /**
      * Implements blocking reading semantics on top of a non-blocking channel
+     *
+     * When the server runs with several I/O loops, the loop reads ahead
+     * into a pooled buffer without blocking (see readAhead()) until the
+     * whole request header is buffered. Reads are satisfied from that
+     * buffer first, which also holds any pipelined requests that were
+     * read along with the header.
      */
 
     static class ReadStream extends InputStream {
@@ -230,6 +236,13 @@ class Request {
         ServerImpl server;
         final static int BUFSIZE = 8 * 1024;
 
+        /* bytes read ahead by readAhead(), in read mode. Returned to
+         * the server's pool once drained */
+        ByteBuffer prefetched;
+        /* state of the scan for the end of the request header */
+        int scanned;
+        boolean lineHasData, seenRequestLine, headerBuffered;
+
         public ReadStream (ServerImpl server, SocketChannel chan) throws IOException {
             this.channel = chan;
             this.server = server;
@@ -276,6 +289,20 @@ class Request {
                 if (canreturn == willreturn) {
                     reset = false;
                 }
+            } else if (prefetched != null) { /* satisfy from read ahead */
+                canreturn = prefetched.remaining ();
+                willreturn = canreturn>srclen ? srclen : canreturn;
+                prefetched.get(b, off, willreturn);
+                if (canreturn == willreturn) {
+                    releasePrefetched();
+                }
+                if (marked) { /* copy into markBuf */
+                    try {
+                        markBuf.put (b, off, willreturn);
+                    } catch (BufferOverflowException e) {
+                        marked = false;
+                    }
+                }
             } else { /* satisfy from channel */
                 chanbuf.clear ();
                 if (srclen <  BUFSIZE) {
@@ -317,6 +344,9 @@ class Request {
             if (reset)
                 return markBuf.remaining();
 
+            if (prefetched != null)
+                return prefetched.remaining();
+
             return chanbuf.remaining();
         }
 
@@ -326,6 +356,88 @@ class Request {
             }
             channel.close ();
             closed = true;
+            synchronized (this) {
+                releasePrefetched();
+            }
+        }
+
+        private void releasePrefetched () {
+            if (prefetched != null) {
+                server.releaseBuffer (prefetched);
+                prefetched = null;
+            }
+        }
+
+        /**
+         * Reads whatever is available from the non-blocking channel
+         * into the read ahead buffer. Returns the number of bytes read,
+         * or -1 at end of stream.
+         */
+        synchronized int readAhead () throws IOException {
+            assert !channel.isBlocking();
+            if (closed)
+                throw new IOException ("Stream closed");
+            if (prefetched == null) {
+                prefetched = server.getBuffer();
+                prefetched.flip();
+            }
+            prefetched.compact();
+            int n = channel.read (prefetched);
+            prefetched.flip();
+            if (n == -1) {
+                eof = true;
+            }
+            return n;
+        }
+
+        /**
+         * Returns true once the read ahead buffer holds a complete request
+         * header, i.e. the request line and header lines up to the empty
+         * line. Empty lines before the request line are skipped, as
+         * Request does.
+         */
+        synchronized boolean requestHeaderBuffered () {
+            if (headerBuffered) {
+                return true;
+            }
+            if (prefetched == null) {
+                return false;
+            }
+            int start = prefetched.position();
+            int end = prefetched.limit();
+            for (int i = start + scanned; i < end; i++) {
+                byte c = prefetched.get (i);
+                if (c == LF) {
+                    if (lineHasData) {
+                        seenRequestLine = true;
+                    } else if (seenRequestLine) {
+                        headerBuffered = true;
+                        return true;
+                    }
+                    lineHasData = false;
+                } else if (c != CR) {
+                    lineHasData = true;
+                }
+            }
+            scanned = end - start;
+            return false;
+        }
+
+        /**
+         * Returns true if the read ahead buffer is full. The rest of an
+         * oversized header is then read in blocking mode.
+         */
+        synchronized boolean readAheadFull () {
+            return prefetched != null &&
+                   prefetched.remaining() == prefetched.capacity();
+        }
+
+        /**
+         * Starts the scan for a new request header.
+         */
+        synchronized void resetScan () {
+            scanned = 0;
+            lineHasData = seenRequestLine = headerBuffered = false;
         }
 
         public synchronized void mark (int readlimit) {
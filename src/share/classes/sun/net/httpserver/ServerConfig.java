@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2005, 2012, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -46,6 +46,7 @@ class ServerConfig {
     private static final long DEFAULT_TIMER_MILLIS = 1000;
     private static final int  DEFAULT_MAX_REQ_HEADERS = 200;
     private static final long DEFAULT_DRAIN_AMOUNT = 64 * 1024;
+    private static final int  DEFAULT_SELECTORS = 0; // single dispatcher
 
     private static int clockTick;
     private static long idleInterval;
@@ -63,6 +64,11 @@ class ServerConfig {
     // the value of the TCP_NODELAY socket-level option
     private static boolean noDelay;
 
+    // number of I/O loops (each with its own selector) that read requests.
+    // 0 means the dispatcher thread does this itself. A negative value
+    // means one loop per available processor.
+    private static int selectors;
+
     static {
         java.security.AccessController.doPrivileged(
             new PrivilegedAction<Void>() {
@@ -98,6 +104,12 @@ class ServerConfig {
 
                     noDelay = Boolean.getBoolean("sun.net.httpserver.nodelay");
 
+                    selectors = Integer.getInteger("sun.net.httpserver.selectors",
+                            DEFAULT_SELECTORS);
+                    if (selectors < 0) {
+                        selectors = Runtime.getRuntime().availableProcessors();
+                    }
+
                     return null;
                 }
             });
@@ -180,4 +192,8 @@ class ServerConfig {
     static boolean noDelay() {
         return noDelay;
     }
+
+    static int getSelectors() {
+        return selectors;
+    }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2005, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2005, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -27,6 +27,7 @@ package sun.net.httpserver;
 
 import java.net.*;
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.channels.*;
 import java.util.*;
 import java.util.concurrent.*;
@@ -79,10 +80,19 @@ class ServerImpl implements TimeSource {
     final static long MAX_REQ_TIME=getTimeMillis(ServerConfig.getMaxReqTime());
     final static long MAX_RSP_TIME=getTimeMillis(ServerConfig.getMaxRspTime());
     final static boolean timer1Enabled = MAX_REQ_TIME != -1 || MAX_RSP_TIME != -1;
+    final static int SELECTORS = ServerConfig.getSelectors();
+    final static int BUFFER_POOL_SIZE = 256;
 
     private Timer timer, timer1;
     private Logger logger;
 
+    /* the I/O loops, or null if the Dispatcher serves all connections */
+    private IOLoop[] loops;
+    private int nextLoop;
+    /* pool of buffers which request headers are read ahead into */
+    private final ArrayBlockingQueue<ByteBuffer> bufferPool =
+        new ArrayBlockingQueue<ByteBuffer>(BUFFER_POOL_SIZE);
+
     ServerImpl (
         HttpServer wrapper, String protocol, InetSocketAddress addr, int backlog
     ) throws IOException {
@@ -104,6 +114,12 @@ class ServerImpl implements TimeSource {
         schan.configureBlocking (false);
         listenerKey = schan.register (selector, SelectionKey.OP_ACCEPT);
         dispatcher = new Dispatcher();
+        if (SELECTORS > 0) {
+            loops = new IOLoop[SELECTORS];
+            for (int i=0; i<SELECTORS; i++) {
+                loops[i] = new IOLoop();
+            }
+        }
         idleConnections = Collections.synchronizedSet (new HashSet<HttpConnection>());
         allConnections = Collections.synchronizedSet (new HashSet<HttpConnection>());
         reqConnections = Collections.synchronizedSet (new HashSet<HttpConnection>());
@@ -144,6 +160,13 @@ class ServerImpl implements TimeSource {
         Thread t = new Thread (dispatcher);
         started = true;
         t.start();
+        if (loops != null) {
+            for (int i=0; i<loops.length; i++) {
+                Thread lt = new Thread (loops[i], "HTTP-IOLoop-" + i);
+                lt.setDaemon (t.isDaemon());
+                lt.start();
+            }
+        }
     }
 
     public void setExecutor (Executor executor) {
@@ -194,6 +217,11 @@ class ServerImpl implements TimeSource {
         }
         finished = true;
         selector.wakeup();
+        if (loops != null) {
+            for (IOLoop loop : loops) {
+                loop.selector.wakeup();
+            }
+        }
         synchronized (allConnections) {
             for (HttpConnection c : allConnections) {
                 c.close();
@@ -261,12 +289,42 @@ class ServerImpl implements TimeSource {
     }
 
     void addEvent (Event r) {
+        IOLoop loop = r.exchange.getConnection().loop;
+        if (loop != null) {
+            loop.addEvent (r);
+            return;
+        }
         synchronized (lolock) {
             events.add (r);
             selector.wakeup();
         }
     }
 
+    /* number of idle (keep-alive) connections */
+    private int idleCount () {
+        if (loops == null) {
+            return idleConnections.size();
+        }
+        int n = 0;
+        for (IOLoop loop : loops) {
+            n += loop.idleCount;
+        }
+        return n;
+    }
+
+    ByteBuffer getBuffer () {
+        ByteBuffer buf = bufferPool.poll();
+        if (buf == null) {
+            buf = ByteBuffer.allocate (Request.ReadStream.BUFSIZE);
+        }
+        buf.clear();
+        return buf;
+    }
+
+    void releaseBuffer (ByteBuffer buf) {
+        bufferPool.offer (buf);
+    }
+
     /* main server listener task */
 
     class Dispatcher implements Runnable {
@@ -286,7 +344,7 @@ class ServerImpl implements TimeSource {
                     if (!is.isEOF()) {
                         t.close = true;
                     }
-                    if (t.close || idleConnections.size() >= MAX_IDLE_CONNECTIONS) {
+                    if (t.close || idleCount() >= MAX_IDLE_CONNECTIONS) {
                         c.close();
                         allConnections.remove (c);
                     } else {
@@ -372,13 +430,19 @@ class ServerImpl implements TimeSource {
                                 continue; /* cancel something ? */
                             }
                             chan.configureBlocking (false);
-                            SelectionKey newkey = chan.register (selector, SelectionKey.OP_READ);
                             HttpConnection c = new HttpConnection ();
-                            c.selectionKey = newkey;
                             c.setChannel (chan);
-                            newkey.attach (c);
                             requestStarted (c);
                             allConnections.add (c);
+                            if (loops != null) {
+                                /* hand it over to the next I/O loop */
+                                nextLoop = (nextLoop + 1) % loops.length;
+                                loops[nextLoop].register (c);
+                                continue;
+                            }
+                            SelectionKey newkey = chan.register (selector, SelectionKey.OP_READ);
+                            c.selectionKey = newkey;
+                            newkey.attach (c);
                         } else {
                             try {
                                 if (key.isReadable()) {
@@ -439,6 +503,212 @@ class ServerImpl implements TimeSource {
         }
     }
 
+    /* I/O loop, used when sun.net.httpserver.selectors is set. The
+     * Dispatcher then only accepts connections and hands each to one of
+     * the loops, which serves it until it is closed. A loop reads the
+     * request header without blocking into a pooled buffer, and only
+     * hands the exchange to the executor once the whole header has
+     * arrived, so that slow clients do not tie up executor threads.
+     * Requests pipelined behind it stay buffered and are handed to the
+     * executor as soon as the previous response is finished. Idle
+     * connections are expired with a TimerWheel.
+     *
+     * HTTPS connections are handed to the executor as soon as they are
+     * readable, as with the Dispatcher, since the SSL handshake needs
+     * blocking reads.
+     */
+    class IOLoop implements Runnable {
+
+        final Selector selector;
+        private final TimerWheel idleWheel;
+        private final Object lock = new Object();
+        /* connections and events from other threads, guarded by lock */
+        private List<HttpConnection> newConnections =
+                new LinkedList<HttpConnection>();
+        private List<Event> loopEvents = new LinkedList<Event>();
+        /* connections to re-register once their response is sent */
+        private final LinkedList<HttpConnection> connsToRegister =
+                new LinkedList<HttpConnection>();
+        volatile int idleCount;
+
+        IOLoop () throws IOException {
+            selector = Selector.open();
+            idleWheel = new TimerWheel (
+                CLOCK_TICK, IDLE_INTERVAL, System.currentTimeMillis()
+            );
+        }
+
+        void register (HttpConnection c) {
+            c.loop = this;
+            synchronized (lock) {
+                newConnections.add (c);
+            }
+            selector.wakeup();
+        }
+
+        void addEvent (Event r) {
+            synchronized (lock) {
+                loopEvents.add (r);
+            }
+            selector.wakeup();
+        }
+
+        private void handleEvent (Event r) {
+            ExchangeImpl t = r.exchange;
+            HttpConnection c = t.getConnection();
+            try {
+                if (r instanceof WriteFinishedEvent) {
+
+                    int exchanges = endExchange();
+                    if (terminating && exchanges == 0) {
+                        finished = true;
+                    }
+                    responseCompleted (c);
+                    LeftOverInputStream is = t.getOriginalInputStream();
+                    if (!is.isEOF()) {
+                        t.close = true;
+                    }
+                    if (t.close || idleCount() >= MAX_IDLE_CONNECTIONS) {
+                        c.close();
+                        allConnections.remove (c);
+                    } else {
+                        if (is.isDataBuffered()) {
+                            /* pipelined request, just handle it */
+                            requestStarted (c);
+                            dispatcher.handle (c.getChannel(), c);
+                        } else {
+                            connsToRegister.add (c);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                logger.log (
+                    Level.FINER, "IOLoop (1)", e
+                );
+                c.close();
+            }
+        }
+
+        private void register (HttpConnection c, boolean idle) {
+            try {
+                SocketChannel chan = c.getChannel();
+                chan.configureBlocking (false);
+                SelectionKey key = chan.register (selector, SelectionKey.OP_READ);
+                key.attach (c);
+                c.selectionKey = key;
+                if (c.readStream == null && !https) {
+                    c.readStream = new Request.ReadStream (ServerImpl.this, chan);
+                } else if (c.readStream != null) {
+                    c.readStream.resetScan();
+                }
+                if (idle) {
+                    c.time = System.currentTimeMillis() + IDLE_INTERVAL;
+                    idleWheel.add (c);
+                    idleCount = idleWheel.size();
+                }
+            } catch (IOException e) {
+                dprint(e);
+                logger.log(Level.FINER, "IOLoop (2)", e);
+                closeConnection (c);
+            }
+        }
+
+        public void run () {
+            List<HttpConnection> expired = new ArrayList<HttpConnection>();
+            while (!finished) {
+                try {
+                    List<HttpConnection> conns = null;
+                    List<Event> list = null;
+                    synchronized (lock) {
+                        if (newConnections.size() > 0) {
+                            conns = newConnections;
+                            newConnections = new LinkedList<HttpConnection>();
+                        }
+                        if (loopEvents.size() > 0) {
+                            list = loopEvents;
+                            loopEvents = new LinkedList<Event>();
+                        }
+                    }
+
+                    if (conns != null) {
+                        for (HttpConnection c : conns) {
+                            register (c, false);
+                        }
+                    }
+                    if (list != null) {
+                        for (Event r: list) {
+                            handleEvent (r);
+                        }
+                    }
+                    for (HttpConnection c : connsToRegister) {
+                        register (c, true);
+                    }
+                    connsToRegister.clear();
+
+                    idleWheel.expire (System.currentTimeMillis(), expired);
+                    for (HttpConnection c : expired) {
+                        closeConnection (c);
+                    }
+                    expired.clear();
+                    idleCount = idleWheel.size();
+
+                    selector.select(1000);
+
+                    Set<SelectionKey> selected = selector.selectedKeys();
+                    Iterator<SelectionKey> iter = selected.iterator();
+                    while (iter.hasNext()) {
+                        SelectionKey key = iter.next();
+                        iter.remove ();
+                        try {
+                            if (key.isReadable()) {
+                                read (key);
+                            } else {
+                                assert false;
+                            }
+                        } catch (CancelledKeyException e) {
+                            closeConnection ((HttpConnection)key.attachment());
+                        } catch (IOException e) {
+                            logger.log (Level.FINER, "IOLoop (3)", e);
+                            closeConnection ((HttpConnection)key.attachment());
+                        }
+                    }
+                    idleCount = idleWheel.size();
+                    // call the selector just to process the cancelled keys
+                    selector.selectNow();
+                } catch (IOException e) {
+                    logger.log (Level.FINER, "IOLoop (4)", e);
+                } catch (Exception e) {
+                    logger.log (Level.FINER, "IOLoop (5)", e);
+                }
+            }
+            try {selector.close(); } catch (Exception e) {}
+        }
+
+        private void read (SelectionKey key) throws IOException {
+            SocketChannel chan = (SocketChannel)key.channel();
+            HttpConnection conn = (HttpConnection)key.attachment();
+            if (conn.getState() == State.IDLE) {
+                idleWheel.remove (conn);
+                requestStarted (conn);
+            }
+            Request.ReadStream rs = conn.readStream;
+            if (rs != null) {
+                if (rs.readAhead() == -1) {
+                    key.cancel();
+                    closeConnection (conn);
+                    return;
+                }
+                if (!rs.requestHeaderBuffered() && !rs.readAheadFull()) {
+                    /* wait for the rest of the header */
+                    return;
+                }
+            }
+            key.cancel();
+            chan.configureBlocking (true);
+            dispatcher.handle (chan, conn);
+        }
+    }
+
     static boolean debug = ServerConfig.debugEnabled ();
 
     static synchronized void dprint (String s) {
@@ -522,10 +792,11 @@ class ServerImpl implements TimeSource {
                         engine = sslStreams.getSSLEngine();
                         connection.sslStreams = sslStreams;
                     } else {
-                        rawin = new BufferedInputStream(
-                            new Request.ReadStream (
-                                ServerImpl.this, chan
-                        ));
+                        Request.ReadStream rs = connection.readStream;
+                        if (rs == null) {
+                            rs = new Request.ReadStream (ServerImpl.this, chan);
+                        }
+                        rawin = new BufferedInputStream(rs);
                         rawout = new Request.WriteStream (
                             ServerImpl.this, chan
                         );
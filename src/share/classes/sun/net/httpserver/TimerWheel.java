@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.net.httpserver;
+
+import java.util.*;
+
+/**
+ * A hashed timing wheel of idle connections. Each connection is kept in
+ * the slot of the tick in which its deadline (HttpConnection.time) falls,
+ * so adding and removing a connection are constant time operations, and
+ * each tick only looks at the connections of one slot instead of at all
+ * idle connections. Deadlines further away than the wheel covers simply
+ * stay in their slot for more than one turn.
+ *
+ * Not thread safe: a wheel is owned by one I/O loop.
+ */
+class TimerWheel {
+
+    private final static int MAX_SLOTS = 4096;
+
+    private final long tick;
+    private final List<Set<HttpConnection>> slots;
+    private long lastTick; /* the last tick that was expired */
+    private int size;
+
+    TimerWheel (long tick, long maxDelay, long now) {
+        this.tick = tick;
+        int n = (int)Math.min (maxDelay / tick + 2, MAX_SLOTS);
+        slots = new ArrayList<Set<HttpConnection>>(n);
+        for (int i=0; i<n; i++) {
+            slots.add (new HashSet<HttpConnection>());
+        }
+        lastTick = now / tick;
+    }
+
+    private int slotFor (long time) {
+        return (int)((time / tick) % slots.size());
+    }
+
+    /**
+     * Adds c, which expires at c.time
+     */
+    void add (HttpConnection c) {
+        assert c.wheelSlot == -1;
+        /* never into a slot that has already been expired for this tick */
+        long time = Math.max (c.time, (lastTick + 1) * tick);
+        int slot = slotFor (time);
+        slots.get(slot).add (c);
+        c.wheelSlot = slot;
+        size ++;
+    }
+
+    /**
+     * Removes c, if it is in the wheel
+     */
+    void remove (HttpConnection c) {
+        if (c.wheelSlot != -1) {
+            if (slots.get(c.wheelSlot).remove (c)) {
+                size --;
+            }
+            c.wheelSlot = -1;
+        }
+    }
+
+    int size () {
+        return size;
+    }
+
+    /**
+     * Removes the connections which expire in or before the tick of
+     * the given time and adds them to expired
+     */
+    void expire (long now, List<HttpConnection> expired) {
+        long nowTick = now / tick;
+        long ticks = Math.min (nowTick - lastTick, slots.size());
+        for (long t = nowTick - ticks + 1; t <= nowTick; t++) {
+            Set<HttpConnection> slot = slots.get ((int)(t % slots.size()));
+            Iterator<HttpConnection> iter = slot.iterator();
+            while (iter.hasNext()) {
+                HttpConnection c = iter.next();
+                if (c.time / tick <= nowTick) {
+                    iter.remove();
+                    c.wheelSlot = -1;
+                    size --;
+                    expired.add (c);
+                }
+            }
+        }
+        if (nowTick > lastTick) {
+            lastTick = nowTick;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1994, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1994, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -398,6 +398,41 @@ public class HttpClient extends NetworkClient {
         return available;
     }
 
+    /* Returns true if this idle connection cannot be reused, because
+     * the server has closed it or sent data that was not asked for.
+     * Blocks for at most 1 ms.
+     */
+    synchronized boolean isStale() {
+        if (serverSocket == null || serverInput == null
+                || serverSocket.isClosed() || serverSocket.isInputShutdown()) {
+            return true;
+        }
+        int old = -1;
+        try {
+            try {
+                if (serverInput.available() > 0) {
+                    return true;
+                }
+                old = serverSocket.getSoTimeout();
+                serverSocket.setSoTimeout(1);
+                /* any byte read here would be lost, so it is stale anyway */
+                serverSocket.getInputStream().read();
+                logFinest("HttpClient.isStale(): " +
+                        "unexpected data or EOF: stale");
+                return true;
+            } catch (SocketTimeoutException e) {
+                return false;
+            } finally {
+                if (old != -1)
+                    serverSocket.setSoTimeout(old);
+            }
+        } catch (IOException e) {
+            logFinest("HttpClient.isStale(): " +
+                        "IOException: stale");
+            return true;
+        }
+    }
+
     protected synchronized void putInKeepAliveCache() {
         if (inCache) {
             assert false : "Duplicate put to keep alive cache";
@@ -430,6 +465,7 @@ public class HttpClient extends NetworkClient {
     @Override
     public void openServer(String server, int port) throws IOException {
         serverSocket = doConnect(server, port);
+        KeepAliveCache.connectionCreated();
         try {
             OutputStream out = serverSocket.getOutputStream();
             if (capture != null) {
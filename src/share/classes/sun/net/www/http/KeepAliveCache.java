@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1996, 2011, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1996, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -25,22 +25,37 @@
 
 package sun.net.www.http;
 
-import java.io.IOException;
-import java.io.NotSerializableException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.net.URL;
 
 /**
  * A class that implements a cache of idle Http connections for keep-alive
  *
+ * Idle connections are kept per destination in a LIFO stack, so that the
+ * most recently used (and least likely to have been closed by the server)
+ * connection is reused first. The stacks are held in a concurrent map, so
+ * lookups for different destinations do not contend.
+ *
+ * Idle connections are expired by the Keep-Alive-Timer thread, which only
+ * runs while there are idle connections. Rather than scanning every
+ * connection, it keeps them in a timer wheel of one second slots, indexed
+ * by the time at which they expire, and only looks at the slots whose time
+ * has come.
+ *
+ * A connection that has been idle for longer than
+ * http.keepAlive.validateAfterInactivity ms (default 2000) is checked
+ * before it is reused, so that a connection closed by the server is not
+ * handed out.
+ *
  * @author Stephen R. Pietrowicz (NCSA)
  * @author Dave Brown
  */
-public class KeepAliveCache
-    extends HashMap<KeepAliveKey, ClientVector>
-    implements Runnable {
-    private static final long serialVersionUID = -2937172892064557949L;
+public class KeepAliveCache implements Runnable {
 
     /* maximum # keep-alive connections to maintain at once
      * This should be 2 by the HTTP spec, but because we don't support pipe-lining
@@ -64,230 +79,324 @@ public class KeepAliveCache
 
     static final int LIFETIME = 5000;
 
+    /* idle time after which a connection is checked before reuse,
+     * a negative value disables the check
+     */
+    static final int VALIDATE_AFTER_INACTIVITY =
+        java.security.AccessController.doPrivileged(
+            new sun.security.action.GetIntegerAction(
+                "http.keepAlive.validateAfterInactivity", 2000)).intValue();
+
+    /* timer wheel geometry */
+    private static final int TICK = 1000;
+    private static final int WHEEL_SIZE = 64;
+
+    /* statistics, reported by KeepAliveCacheMXBean */
+    private static final AtomicInteger idleCount = new AtomicInteger();
+    private static final AtomicLong createdCount = new AtomicLong();
+    private static final AtomicLong leasedCount = new AtomicLong();
+    private static final AtomicLong evictedCount = new AtomicLong();
+
+    private final ConcurrentHashMap<KeepAliveKey, ClientVector> routes =
+        new ConcurrentHashMap<>();
+
+    /* the timer wheel, guarded by itself */
+    private final ArrayList<ArrayDeque<KeepAliveEntry>> wheel;
+    private int wheelCount;
+    private long lastTick;
+
     private Thread keepAliveTimer = null;
 
     /**
      * Constructor
      */
-    public KeepAliveCache() {}
+    public KeepAliveCache() {
+        wheel = new ArrayList<>(WHEEL_SIZE);
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayDeque<KeepAliveEntry>());
+        }
+        lastTick = System.currentTimeMillis() / TICK;
+    }
 
     /**
      * Register this URL and HttpClient (that supports keep-alive) with the cache
      * @param url  The URL contains info about the host and port
      * @param http The HttpClient to be cached
      */
-    public synchronized void put(final URL url, Object obj, HttpClient http) {
-        boolean startThread = (keepAliveTimer == null);
-        if (!startThread) {
-            if (!keepAliveTimer.isAlive()) {
-                startThread = true;
+    public void put(final URL url, Object obj, HttpClient http) {
+        KeepAliveKey key = new KeepAliveKey(url, obj);
+        int keepAliveTimeout = http.getKeepAliveTimeout();
+        long now = System.currentTimeMillis();
+        KeepAliveEntry e = new KeepAliveEntry(http, now);
+        e.expiry = now + (keepAliveTimeout > 0 ?
+                          keepAliveTimeout*1000 : LIFETIME);
+        for (;;) {
+            ClientVector v = routes.get(key);
+            if (v == null) {
+                v = new ClientVector(key);
+                ClientVector prev = routes.putIfAbsent(key, v);
+                if (prev != null) {
+                    v = prev;
+                }
             }
+            synchronized (v) {
+                if (v.retired) {
+                    continue; // removed by the timer, try again
+                }
+                e.owner = v;
+                if (!v.put(e)) {
+                    evictedCount.incrementAndGet();
+                    return;
+                }
+            }
+            break;
         }
-        if (startThread) {
-            clear();
-            /* Unfortunately, we can't always believe the keep-alive timeout we got
-             * back from the server.  If I'm connected through a Netscape proxy
-             * to a server that sent me a keep-alive
-             * time of 15 sec, the proxy unilaterally terminates my connection
-             * The robustness to get around this is in HttpClient.parseHTTP()
-             */
-            final KeepAliveCache cache = this;
-            java.security.AccessController.doPrivileged(
-                new java.security.PrivilegedAction<Void>() {
-                public Void run() {
-                   // We want to create the Keep-Alive-Timer in the
-                    // system threadgroup
-                    ThreadGroup grp = Thread.currentThread().getThreadGroup();
-                    ThreadGroup parent = null;
-                    while ((parent = grp.getParent()) != null) {
-                        grp = parent;
-                    }
+        idleCount.incrementAndGet();
+        schedule(e);
+        startTimer();
+    }
 
-                    keepAliveTimer = new Thread(grp, cache, "Keep-Alive-Timer");
-                    keepAliveTimer.setDaemon(true);
-                    keepAliveTimer.setPriority(Thread.MAX_PRIORITY - 2);
-                    // Set the context class loader to null in order to avoid
-                    // keeping a strong reference to an application classloader.
-                    keepAliveTimer.setContextClassLoader(null);
-                    keepAliveTimer.start();
-                    return null;
-                }
-            });
+    private synchronized void startTimer() {
+        if (keepAliveTimer != null) {
+            return;
         }
+        /* Unfortunately, we can't always believe the keep-alive timeout we got
+         * back from the server.  If I'm connected through a Netscape proxy
+         * to a server that sent me a keep-alive
+         * time of 15 sec, the proxy unilaterally terminates my connection
+         * The robustness to get around this is in HttpClient.parseHTTP()
+         */
+        final KeepAliveCache cache = this;
+        java.security.AccessController.doPrivileged(
+            new java.security.PrivilegedAction<Void>() {
+            public Void run() {
+               // We want to create the Keep-Alive-Timer in the
+                // system threadgroup
+                ThreadGroup grp = Thread.currentThread().getThreadGroup();
+                ThreadGroup parent = null;
+                while ((parent = grp.getParent()) != null) {
+                    grp = parent;
+                }
 
-        KeepAliveKey key = new KeepAliveKey(url, obj);
-        ClientVector v = super.get(key);
-
-        if (v == null) {
-            int keepAliveTimeout = http.getKeepAliveTimeout();
-            v = new ClientVector(keepAliveTimeout > 0?
-                                 keepAliveTimeout*1000 : LIFETIME);
-            v.put(http);
-            super.put(key, v);
-        } else {
-            v.put(http);
+                keepAliveTimer = new Thread(grp, cache, "Keep-Alive-Timer");
+                keepAliveTimer.setDaemon(true);
+                keepAliveTimer.setPriority(Thread.MAX_PRIORITY - 2);
+                // Set the context class loader to null in order to avoid
+                // keeping a strong reference to an application classloader.
+                keepAliveTimer.setContextClassLoader(null);
+                keepAliveTimer.start();
+                return null;
+            }
+        });
+    }
+
+    /* adds an entry to the wheel slot of its expiry time */
+    private void schedule(KeepAliveEntry e) {
+        synchronized (wheel) {
+            long tick = Math.max(e.expiry / TICK, lastTick + 1);
+            wheel.get((int)(tick % WHEEL_SIZE)).add(e);
+            wheelCount++;
         }
     }
 
     /* remove an obsolete HttpClient from its VectorCache */
-    public synchronized void remove (HttpClient h, Object obj) {
+    public void remove (HttpClient h, Object obj) {
         KeepAliveKey key = new KeepAliveKey(h.url, obj);
-        ClientVector v = super.get(key);
+        ClientVector v = routes.get(key);
         if (v != null) {
-            v.remove(h);
-            if (v.empty()) {
-                removeVector(key);
+            synchronized (v) {
+                if (v.remove(h)) {
+                    idleCount.decrementAndGet();
+                }
             }
         }
     }
 
-    /* called by a clientVector thread when all its connections have timed out
-     * and that vector of connections should be removed.
-     */
-    synchronized void removeVector(KeepAliveKey k) {
-        super.remove(k);
-    }
-
     /**
      * Check to see if this URL has a cached HttpClient
      */
-    public synchronized HttpClient get(URL url, Object obj) {
+    public HttpClient get(URL url, Object obj) {
 
         KeepAliveKey key = new KeepAliveKey(url, obj);
-        ClientVector v = super.get(key);
+        ClientVector v = routes.get(key);
         if (v == null) { // nothing in cache yet
             return null;
         }
-        return v.get();
+        for (;;) {
+            KeepAliveEntry e;
+            synchronized (v) {
+                e = v.get();
+            }
+            if (e == null) {
+                return null;
+            }
+            idleCount.decrementAndGet();
+            long now = System.currentTimeMillis();
+            if (now > e.expiry
+                || (VALIDATE_AFTER_INACTIVITY >= 0
+                    && now - e.idleStartTime > VALIDATE_AFTER_INACTIVITY
+                    && e.hc.isStale()))
+            {
+                e.hc.closeServer();
+                evictedCount.incrementAndGet();
+                continue;
+            }
+            leasedCount.incrementAndGet();
+            return e.hc;
+        }
     }
 
-    /* Sleeps for an alloted timeout, then checks for timed out connections.
-     * Errs on the side of caution (leave connections idle for a relatively
-     * short time).
+    /* Wakes up every tick and closes the connections in the wheel slots
+     * that have come due. Exits when there are no idle connections left.
      */
     @Override
     public void run() {
-        do {
+        ArrayList<KeepAliveEntry> due = new ArrayList<>();
+        for (;;) {
             try {
-                Thread.sleep(LIFETIME);
+                Thread.sleep(TICK);
             } catch (InterruptedException e) {}
-            synchronized (this) {
-                /* Remove all unused HttpClients.  Starting from the
-                 * bottom of the stack (the least-recently used first).
-                 * REMIND: It'd be nice to not remove *all* connections
-                 * that aren't presently in use.  One could have been added
-                 * a second ago that's still perfectly valid, and we're
-                 * needlessly axing it.  But it's not clear how to do this
-                 * cleanly, and doing it right may be more trouble than it's
-                 * worth.
-                 */
-
-                long currentTime = System.currentTimeMillis();
-
-                ArrayList<KeepAliveKey> keysToRemove
-                    = new ArrayList<KeepAliveKey>();
-
-                for (KeepAliveKey key : keySet()) {
-                    ClientVector v = get(key);
-                    synchronized (v) {
-                        int i;
-
-                        for (i = 0; i < v.size(); i++) {
-                            KeepAliveEntry e = v.elementAt(i);
-                            if ((currentTime - e.idleStartTime) > v.nap) {
-                                HttpClient h = e.hc;
-                                h.closeServer();
-                            } else {
-                                break;
-                            }
-                        }
-                        v.subList(0, i).clear();
 
-                        if (v.size() == 0) {
-                            keysToRemove.add(key);
+            long now = System.currentTimeMillis();
+            synchronized (wheel) {
+                long nowTick = now / TICK;
+                long first = Math.max(lastTick + 1, nowTick - WHEEL_SIZE + 1);
+                for (long t = first; t <= nowTick; t++) {
+                    Iterator<KeepAliveEntry> it =
+                        wheel.get((int)(t % WHEEL_SIZE)).iterator();
+                    while (it.hasNext()) {
+                        KeepAliveEntry e = it.next();
+                        if (e.expiry / TICK <= nowTick) {
+                            it.remove();
+                            wheelCount--;
+                            due.add(e);
                         }
                     }
                 }
+                lastTick = Math.max(lastTick, nowTick);
+            }
 
-                for (KeepAliveKey key : keysToRemove) {
-                    removeVector(key);
+            for (KeepAliveEntry e : due) {
+                ClientVector v = e.owner;
+                boolean expired;
+                synchronized (v) {
+                    /* false if it was reused or removed in the meantime */
+                    expired = v.removeEntry(e);
+                    if (v.empty() && !v.retired) {
+                        v.retired = true;
+                        routes.remove(v.key, v);
+                    }
+                }
+                if (expired) {
+                    idleCount.decrementAndGet();
+                    evictedCount.incrementAndGet();
+                    e.hc.closeServer();
                 }
             }
-        } while (size() > 0);
+            due.clear();
+
+            synchronized (this) {
+                synchronized (wheel) {
+                    if (wheelCount == 0) {
+                        keepAliveTimer = null;
+                        return;
+                    }
+                }
+            }
+        }
+    }
 
-        return;
+    /* called when a new connection to a server has been opened */
+    static void connectionCreated() {
+        createdCount.incrementAndGet();
     }
 
-    /*
-     * Do not serialize this class!
+    /**
+     * Returns the number of idle connections in the cache.
      */
-    private void writeObject(java.io.ObjectOutputStream stream)
-    throws IOException {
-        throw new NotSerializableException();
+    public static int getIdleCount() {
+        return idleCount.get();
     }
 
-    private void readObject(java.io.ObjectInputStream stream)
-    throws IOException, ClassNotFoundException {
-        throw new NotSerializableException();
+    /**
+     * Returns the number of connections that have been opened.
+     */
+    public static long getCreatedCount() {
+        return createdCount.get();
     }
-}
 
-/* FILO order for recycling HttpClients, should run in a thread
- * to time them out.  If > maxConns are in use, block.
- */
+    /**
+     * Returns the number of times an idle connection has been taken
+     * from the cache for reuse.
+     */
+    public static long getLeasedCount() {
+        return leasedCount.get();
+    }
 
+    /**
+     * Returns the number of idle connections that have been closed by
+     * the cache, because they expired, failed validation or exceeded the
+     * maximum number per destination.
+     */
+    public static long getEvictedCount() {
+        return evictedCount.get();
+    }
 
-class ClientVector extends java.util.Stack<KeepAliveEntry> {
-    private static final long serialVersionUID = -8680532108106489459L;
+    /**
+     * Returns the maximum number of idle connections per destination.
+     */
+    public static int getMaxIdlePerRoute() {
+        return getMaxConnections();
+    }
+}
 
-    // sleep time in milliseconds, before cache clear
-    int nap;
+/* FILO order for recycling HttpClients. Guarded by its own monitor.
+ */
+class ClientVector {
 
+    final KeepAliveKey key;
+    /* set once removed from the cache, after which it must not be used */
+    boolean retired;
+    private final ArrayDeque<KeepAliveEntry> stack = new ArrayDeque<>();
 
+    ClientVector (KeepAliveKey key) {
+        this.key = key;
+    }
 
-    ClientVector (int nap) {
-        this.nap = nap;
+    boolean empty() {
+        return stack.isEmpty();
     }
 
-    synchronized HttpClient get() {
-        if (empty()) {
-            return null;
-        } else {
-            // Loop until we find a connection that has not timed out
-            HttpClient hc = null;
-            long currentTime = System.currentTimeMillis();
-            do {
-                KeepAliveEntry e = pop();
-                if ((currentTime - e.idleStartTime) > nap) {
-                    e.hc.closeServer();
-                } else {
-                    hc = e.hc;
-                }
-            } while ((hc== null) && (!empty()));
-            return hc;
-        }
+    /* returns the most recently used entry, or null */
+    KeepAliveEntry get() {
+        return stack.pollFirst();
     }
 
-    /* return a still valid, unused HttpClient */
-    synchronized void put(HttpClient h) {
-        if (size() >= KeepAliveCache.getMaxConnections()) {
-            h.closeServer(); // otherwise the connection remains in limbo
-        } else {
-            push(new KeepAliveEntry(h, System.currentTimeMillis()));
+    /* return a still valid, unused HttpClient, returns false if it
+     * was closed instead
+     */
+    boolean put(KeepAliveEntry e) {
+        if (stack.size() >= KeepAliveCache.getMaxConnections()) {
+            e.hc.closeServer(); // otherwise the connection remains in limbo
+            return false;
         }
+        stack.addFirst(e);
+        return true;
     }
 
-    /*
-     * Do not serialize this class!
-     */
-    private void writeObject(java.io.ObjectOutputStream stream)
-    throws IOException {
-        throw new NotSerializableException();
+    boolean removeEntry(KeepAliveEntry e) {
+        return stack.removeFirstOccurrence(e);
     }
 
-    private void readObject(java.io.ObjectInputStream stream)
-    throws IOException, ClassNotFoundException {
-        throw new NotSerializableException();
+    boolean remove(HttpClient h) {
+        Iterator<KeepAliveEntry> it = stack.iterator();
+        while (it.hasNext()) {
+            if (it.next().hc == h) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
     }
 }
 
@@ -339,6 +448,8 @@ class KeepAliveKey {
 class KeepAliveEntry {
     HttpClient hc;
     long idleStartTime;
+    long expiry;
+    ClientVector owner;
 
     KeepAliveEntry(HttpClient hc, long idleStartTime) {
         this.hc = hc;
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.net.www.http;
+
+import java.lang.management.PlatformManagedObject;
+
+/**
+ * The management interface for the cache of idle keep-alive connections
+ * used by HttpURLConnection for http and https URLs.
+ *
+ * <p> The {@code ObjectName} for uniquely identifying the MXBean within
+ * an MBeanServer is {@code sun.net:type=KeepAliveCache}.
+ */
+public interface KeepAliveCacheMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns the number of idle connections currently in the cache.
+     *
+     * @return the number of idle connections
+     */
+    int getIdleCount();
+
+    /**
+     * Returns the number of connections opened to servers or proxies.
+     *
+     * @return the number of connections opened
+     */
+    long getCreatedCount();
+
+    /**
+     * Returns the number of times an idle connection was taken from
+     * the cache for reuse.
+     *
+     * @return the number of connections reused
+     */
+    long getLeasedCount();
+
+    /**
+     * Returns the number of idle connections closed by the cache because
+     * they timed out, failed validation before reuse, or exceeded the
+     * maximum number of idle connections per destination.
+     *
+     * @return the number of connections evicted
+     */
+    long getEvictedCount();
+
+    /**
+     * Returns the maximum number of idle connections kept per destination,
+     * as set by the {@code http.maxConnections} system property.
+     *
+     * @return the maximum number of idle connections per destination
+     */
+    int getMaxIdlePerRoute();
+}
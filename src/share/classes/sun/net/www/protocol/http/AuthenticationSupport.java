@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.net.www.protocol.http;
+
+import java.net.Authenticator.RequestorType;
+import java.net.InetAddress;
+import java.net.PasswordAuthentication;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.List;
+import sun.net.www.HeaderParser;
+
+/**
+ * Gives the HTTP client in sun.net.httpclient access to the Basic
+ * authentication cache of HttpURLConnection, so that credentials are
+ * shared between the two. Other schemes keep state per connection and
+ * are only supported by HttpURLConnection.
+ */
+public final class AuthenticationSupport {
+
+    private AuthenticationSupport() { }
+
+    /**
+     * Returns the Authorization header value to send preemptively to
+     * the given URL, or null if none is cached.
+     */
+    public static String getServerAuthorization(URL url, String method) {
+        AuthenticationInfo a = AuthenticationInfo.getServerAuth(url);
+        if (a instanceof BasicAuthentication) {
+            return a.getHeaderValue(url, method);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the Proxy-Authorization header value to send preemptively
+     * to the given proxy, or null if none is cached.
+     */
+    public static String getProxyAuthorization(String host, int port) {
+        AuthenticationInfo a = AuthenticationInfo.getProxyAuth(host, port);
+        if (a instanceof BasicAuthentication) {
+            return a.getHeaderValue(null, null);
+        }
+        return null;
+    }
+
+    /**
+     * Answers a server challenge. Returns the Authorization header value
+     * to retry with, or null if there is no Basic challenge or no
+     * credentials. If the request was sent with the cached credentials,
+     * they have been rejected and are removed from the cache. May call
+     * the Authenticator, and so may block.
+     *
+     * @param url the request URL
+     * @param challenges the WWW-Authenticate header values
+     * @param sent the Authorization header value of the request, or null
+     */
+    public static String authenticateServer(URL url, List<String> challenges,
+                                            String sent) {
+        String realm = basicRealm(challenges);
+        if (realm == null) {
+            return null;
+        }
+        String key = AuthenticationInfo.getServerAuthKey(url, realm,
+                                                         AuthScheme.BASIC);
+        try {
+            AuthenticationInfo a = AuthenticationInfo.getServerAuth(key);
+            if (a != null && a.getHeaderValue(url, null).equals(sent)) {
+                a.removeFromCache();
+                a = null;
+            }
+            if (a == null) {
+                int port = url.getPort();
+                if (port == -1) {
+                    port = url.getDefaultPort();
+                }
+                PasswordAuthentication pw =
+                    HttpURLConnection.privilegedRequestPasswordAuthentication(
+                        url.getHost(), resolve(url.getHost()), port,
+                        url.getProtocol(), realm, "Basic", url,
+                        RequestorType.SERVER);
+                if (pw == null) {
+                    return null;
+                }
+                a = new BasicAuthentication(false, url, realm, pw);
+                a.addToCache();
+            }
+            return a.getHeaderValue(url, null);
+        } finally {
+            AuthenticationInfo.endAuthRequest(key);
+        }
+    }
+
+    /**
+     * Answers a proxy challenge, as authenticateServer does for servers.
+     */
+    public static String authenticateProxy(String host, int port, URL url,
+                                           List<String> challenges,
+                                           String sent) {
+        String realm = basicRealm(challenges);
+        if (realm == null) {
+            return null;
+        }
+        String key = AuthenticationInfo.getProxyAuthKey(host, port, realm,
+                                                        AuthScheme.BASIC);
+        try {
+            AuthenticationInfo a = AuthenticationInfo.getProxyAuth(key);
+            if (a != null && a.getHeaderValue(null, null).equals(sent)) {
+                a.removeFromCache();
+                a = null;
+            }
+            if (a == null) {
+                PasswordAuthentication pw =
+                    HttpURLConnection.privilegedRequestPasswordAuthentication(
+                        host, resolve(host), port, "http", realm, "Basic",
+                        url, RequestorType.PROXY);
+                if (pw == null) {
+                    return null;
+                }
+                a = new BasicAuthentication(true, host, port, realm, pw);
+                a.addToCache();
+            }
+            return a.getHeaderValue(null, null);
+        } finally {
+            AuthenticationInfo.endAuthRequest(key);
+        }
+    }
+
+    /* returns the realm of the Basic challenge, or null if there is none */
+    private static String basicRealm(List<String> challenges) {
+        for (String c : challenges) {
+            HeaderParser p = new HeaderParser(c);
+            if (p.findKey(0) != null && p.findKey(0).equalsIgnoreCase("Basic")) {
+                String realm = p.findValue("realm");
+                return realm == null ? "" : realm;
+            }
+        }
+        return null;
+    }
+
+    private static InetAddress resolve(final String host) {
+        try {
+            return java.security.AccessController.doPrivileged(
+                new java.security.PrivilegedExceptionAction<InetAddress>() {
+                    public InetAddress run() throws UnknownHostException {
+                        return InetAddress.getByName(host);
+                    }
+                });
+        } catch (java.security.PrivilegedActionException ignored) {
+            // the Authenticator gets a null address
+            return null;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1995, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1995, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -400,7 +400,7 @@ public class HttpURLConnection extends java.net.HttpURLConnection {
      * privileged request password authentication
      *
      */
-    private static PasswordAuthentication
+    static PasswordAuthentication
     privilegedRequestPasswordAuthentication(
                             final String host,
                             final InetAddress addr,
@@ -0,0 +1,474 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.nio.ch;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.security.AccessController;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import sun.misc.JavaNioAccess;
+import sun.misc.PerfCounter;
+import sun.misc.SharedSecrets;
+import sun.misc.Unsafe;
+import sun.misc.VM;
+import sun.security.action.GetPropertyAction;
+import sun.util.logging.PlatformLogger;
+
+
+/**
+ * A pooled allocator of direct byte buffers that must be released
+ * explicitly.
+ *
+ * <p> {@link ByteBuffer#allocateDirect ByteBuffer.allocateDirect} allocates
+ * each buffer with its own malloc and Cleaner and, when the direct memory
+ * limit is reached, invokes System.gc() and waits for buffers to be
+ * reclaimed. This allocator instead carves buffers of up to {@link
+ * #MAX_POOLED_SIZE} bytes from large slabs, one slab per power-of-two size
+ * class, and recycles them through per-thread caches and per-class free
+ * lists when they are {@link #release released}. Larger buffers are
+ * allocated individually but are also freed by {@code release}. When the
+ * limit on pooled memory would be exceeded then {@code allocate} fails
+ * immediately with {@code OutOfMemoryError}.
+ *
+ * <p> The content of a new buffer is undefined. Only the buffer returned by
+ * {@code allocate} can be released, not a slice or duplicate of it, and no
+ * view of the buffer may be used after it has been released.
+ *
+ * <p> A buffer that becomes unreachable without being released has its
+ * memory returned to the pool. Such leaks are counted by the performance
+ * counter {@code sun.nio.ch.pooledDirect.leaks} and logged as warnings to
+ * the {@code sun.nio.ch} platform logger. If the system property {@code
+ * sun.nio.ch.pooledDirect.leakDetection} is set to {@code paranoid} then
+ * the allocator also records where each buffer was allocated and logs
+ * that stack trace with the warning.
+ *
+ * <p> Usage is reported through the BufferPoolMXBean named "pooled".
+ */
+
+public final class DirectBufferAllocator {
+
+    private DirectBufferAllocator() { }
+
+    private static final Unsafe unsafe = Unsafe.getUnsafe();
+
+    private static final JavaNioAccess nioAccess =
+        SharedSecrets.getJavaNioAccess();
+
+    // Size classes are the powers of two from 2^MIN_SHIFT to 2^MAX_SHIFT
+    private static final int MIN_SHIFT = 8;
+    private static final int MAX_SHIFT = 16;
+    private static final int NUM_CLASSES = MAX_SHIFT - MIN_SHIFT + 1;
+
+    /**
+     * The largest buffer that is carved from a slab.
+     */
+    public static final int MAX_POOLED_SIZE = 1 << MAX_SHIFT;
+
+    // Per-thread cache size, per size class
+    private static final int THREAD_CACHE_SIZE = 32;
+
+    // The size of a slab; must be a multiple of MAX_POOLED_SIZE
+    private static final int SLAB_SIZE;
+
+    // The maximum memory that the allocator may reserve
+    private static final long MAX_MEMORY;
+
+    // Whether to record the allocation site of each buffer
+    private static final boolean PARANOID_LEAK_DETECTION;
+
+    // -- Statistics --
+
+    // memory reserved for slabs and unpooled buffers
+    private static final AtomicLong reservedMemory = new AtomicLong();
+    private static final LongAdder count = new LongAdder();
+    private static final LongAdder totalCapacity = new LongAdder();
+
+    // -- Free lists --
+
+    // Free blocks of a size class, a stack of addresses
+    private static final class FreeList {
+        private long[] addresses = new long[64];
+        private int size;
+
+        synchronized void push(long address) {
+            if (size == addresses.length) {
+                long[] a = new long[size << 1];
+                System.arraycopy(addresses, 0, a, 0, size);
+                addresses = a;
+            }
+            addresses[size++] = address;
+        }
+
+        // moves up to n blocks to the given thread cache
+        synchronized int popTo(long[] dst, int n) {
+            int m = Math.min(n, size);
+            size -= m;
+            System.arraycopy(addresses, size, dst, 0, m);
+            return m;
+        }
+
+        synchronized void pushFrom(long[] src, int off, int n) {
+            for (int i = 0; i < n; i++)
+                push(src[off + i]);
+        }
+    }
+
+    private static final FreeList[] freeLists = new FreeList[NUM_CLASSES];
+    static {
+        for (int i = 0; i < NUM_CLASSES; i++)
+            freeLists[i] = new FreeList();
+    }
+
+    // -- Thread caches --
+
+    // Accessed only by the owning thread until that thread terminates
+    private static final class ThreadCache {
+        final WeakReference<Thread> owner;
+        final long[][] blocks = new long[NUM_CLASSES][THREAD_CACHE_SIZE];
+        final int[] sizes = new int[NUM_CLASSES];
+
+        ThreadCache(Thread owner) {
+            this.owner = new WeakReference<>(owner);
+        }
+
+        boolean isOwnerAlive() {
+            Thread t = owner.get();
+            return (t != null) && t.isAlive();
+        }
+
+        void drain() {
+            for (int i = 0; i < NUM_CLASSES; i++) {
+                if (sizes[i] > 0) {
+                    freeLists[i].pushFrom(blocks[i], 0, sizes[i]);
+                    sizes[i] = 0;
+                }
+            }
+        }
+    }
+
+    private static final List<ThreadCache> threadCaches = new ArrayList<>();
+
+    private static final ThreadLocal<ThreadCache> threadCache =
+        new ThreadLocal<ThreadCache>()
+    {
+        @Override
+        protected ThreadCache initialValue() {
+            ThreadCache cache = new ThreadCache(Thread.currentThread());
+            synchronized (threadCaches) {
+                threadCaches.add(cache);
+            }
+            return cache;
+        }
+    };
+
+    // Returns the blocks cached by threads that have terminated to the
+    // free lists
+    private static void reclaimThreadCaches() {
+        synchronized (threadCaches) {
+            Iterator<ThreadCache> i = threadCaches.iterator();
+            while (i.hasNext()) {
+                ThreadCache cache = i.next();
+                if (!cache.isOwnerAlive()) {
+                    cache.drain();
+                    i.remove();
+                }
+            }
+        }
+    }
+
+    // -- Blocks --
+
+    // The attachment of each buffer returned by allocate, records where the
+    // memory came from
+    private static final class Block {
+        final long address;
+        final int sizeClass;            // -1 if not pooled
+        final int capacity;
+        LeakTracker tracker;
+        boolean released;
+
+        Block(long address, int sizeClass, int capacity) {
+            this.address = address;
+            this.sizeClass = sizeClass;
+            this.capacity = capacity;
+        }
+    }
+
+    // Notices when a buffer becomes unreachable without being released
+    private static final class LeakTracker extends PhantomReference<ByteBuffer> {
+        final Block block;
+        final Throwable allocationSite;     // null unless paranoid
+
+        LeakTracker(ByteBuffer bb, Block block) {
+            super(bb, leakQueue);
+            this.block = block;
+            this.allocationSite = PARANOID_LEAK_DETECTION ?
+                new Throwable("Buffer allocated") : null;
+        }
+    }
+
+    private static final ReferenceQueue<ByteBuffer> leakQueue =
+        new ReferenceQueue<>();
+
+    // Trackers of unreleased buffers, keeps the phantom references reachable
+    private static final Set<LeakTracker> trackers =
+        ConcurrentHashMap.newKeySet();
+
+    // Returns the memory of buffers that were never released
+    private static void reclaimLeaks() {
+        LeakTracker tracker;
+        while ((tracker = (LeakTracker)leakQueue.poll()) != null) {
+            if (!trackers.remove(tracker))
+                continue;
+            PerfCounter.getPooledDirectLeaks().increment();
+            PlatformLogger logger = PlatformLogger.getLogger("sun.nio.ch");
+            if (logger.isLoggable(PlatformLogger.Level.WARNING)) {
+                String msg = "Direct buffer of " + tracker.block.capacity +
+                             " bytes was not released";
+                if (tracker.allocationSite != null) {
+                    logger.warning(msg, tracker.allocationSite);
+                } else {
+                    logger.warning(msg);
+                }
+            }
+            free(tracker.block);
+        }
+    }
+
+    // -- Allocation --
+
+    private static int sizeClass(int size) {
+        if (size <= (1 << MIN_SHIFT))
+            return 0;
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+
+    private static void reserve(long size) {
+        for (;;) {
+            long r = reservedMemory.get();
+            if (r + size > MAX_MEMORY)
+                throw new OutOfMemoryError("Pooled direct buffer memory");
+            if (reservedMemory.compareAndSet(r, r + size))
+                return;
+        }
+    }
+
+    // Carves a new slab into blocks of the given size class, pushing all
+    // but one onto the free list. Returns the address of the remaining block.
+    private static long newSlab(int sc) {
+        try {
+            reserve(SLAB_SIZE);
+        } catch (OutOfMemoryError e) {
+            // terminated threads may be holding on to free blocks
+            reclaimThreadCaches();
+            long[] a = new long[1];
+            if (freeLists[sc].popTo(a, 1) == 1)
+                return a[0];
+            throw e;
+        }
+        long base;
+        try {
+            base = unsafe.allocateMemory(SLAB_SIZE);
+        } catch (OutOfMemoryError e) {
+            reservedMemory.addAndGet(-SLAB_SIZE);
+            throw e;
+        }
+        int blockSize = 1 << (sc + MIN_SHIFT);
+        FreeList freeList = freeLists[sc];
+        synchronized (freeList) {
+            for (int off = SLAB_SIZE - blockSize; off > 0; off -= blockSize)
+                freeList.push(base + off);
+        }
+        return base;
+    }
+
+    private static long allocateBlock(int sc) {
+        ThreadCache cache = threadCache.get();
+        long[] blocks = cache.blocks[sc];
+        int n = cache.sizes[sc];
+        if (n == 0) {
+            // refill half of the cache from the free list
+            n = freeLists[sc].popTo(blocks, THREAD_CACHE_SIZE / 2);
+            if (n == 0) {
+                reclaimThreadCaches();
+                return newSlab(sc);
+            }
+        }
+        cache.sizes[sc] = n - 1;
+        return blocks[n - 1];
+    }
+
+    private static void freeBlock(long address, int sc) {
+        ThreadCache cache = threadCache.get();
+        long[] blocks = cache.blocks[sc];
+        int n = cache.sizes[sc];
+        if (n == THREAD_CACHE_SIZE) {
+            // return half of the cache to the free list
+            int half = THREAD_CACHE_SIZE / 2;
+            freeLists[sc].pushFrom(blocks, half, half);
+            n = half;
+        }
+        blocks[n] = address;
+        cache.sizes[sc] = n + 1;
+    }
+
+    /**
+     * Allocates a direct byte buffer with the given capacity. The buffer's
+     * position is zero, its limit is its capacity and its byte order is
+     * BIG_ENDIAN; its content is undefined.
+     *
+     * @throws IllegalArgumentException
+     *         If the capacity is negative
+     * @throws OutOfMemoryError
+     *         If the limit on pooled memory would be exceeded
+     */
+    public static ByteBuffer allocate(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Negative capacity");
+        reclaimLeaks();
+
+        long address;
+        int sc;
+        if (capacity <= MAX_POOLED_SIZE) {
+            sc = sizeClass(capacity);
+            address = allocateBlock(sc);
+        } else {
+            sc = -1;
+            reserve(capacity);
+            try {
+                address = unsafe.allocateMemory(capacity);
+            } catch (OutOfMemoryError e) {
+                reservedMemory.addAndGet(-capacity);
+                throw e;
+            }
+        }
+
+        Block block = new Block(address, sc, capacity);
+        ByteBuffer bb = nioAccess.newDirectByteBuffer(address, capacity, block);
+        block.tracker = new LeakTracker(bb, block);
+        trackers.add(block.tracker);
+        count.increment();
+        totalCapacity.add(capacity);
+        return bb;
+    }
+
+    private static void free(Block block) {
+        if (block.sizeClass >= 0) {
+            freeBlock(block.address, block.sizeClass);
+        } else {
+            unsafe.freeMemory(block.address);
+            reservedMemory.addAndGet(-block.capacity);
+        }
+        count.decrement();
+        totalCapacity.add(-block.capacity);
+    }
+
+    /**
+     * Releases a buffer obtained from {@link #allocate allocate}, returning
+     * its memory to the pool.
+     *
+     * @throws IllegalArgumentException
+     *         If the buffer was not returned by {@code allocate}
+     * @throws IllegalStateException
+     *         If the buffer has already been released
+     */
+    public static void release(ByteBuffer bb) {
+        Object att = (bb instanceof DirectBuffer) ?
+            ((DirectBuffer)bb).attachment() : null;
+        if (!(att instanceof Block))
+            throw new IllegalArgumentException("Buffer not allocated by pool");
+        Block block = (Block)att;
+        synchronized (block) {
+            if (block.released)
+                throw new IllegalStateException("Buffer already released");
+            block.released = true;
+        }
+        trackers.remove(block.tracker);
+        block.tracker.clear();
+        free(block);
+    }
+
+    /**
+     * Invoked by sun.management.ManagementFactoryHelper to create the
+     * management interface for pooled buffers.
+     */
+    public static sun.misc.JavaNioAccess.BufferPool getBufferPool() {
+        return new sun.misc.JavaNioAccess.BufferPool() {
+            @Override
+            public String getName() {
+                return "pooled";
+            }
+            @Override
+            public long getCount() {
+                return count.sum();
+            }
+            @Override
+            public long getTotalCapacity() {
+                return totalCapacity.sum();
+            }
+            @Override
+            public long getMemoryUsed() {
+                return reservedMemory.get();
+            }
+        };
+    }
+
+    static {
+        String s = AccessController.doPrivileged(
+            new GetPropertyAction("sun.nio.ch.pooledDirect.slabSize"));
+        int slabSize = 1024 * 1024;
+        if (s != null) {
+            try {
+                slabSize = Integer.parseInt(s);
+            } catch (NumberFormatException ignore) { }
+        }
+        // round up to a multiple of the largest size class
+        slabSize = Math.max(slabSize, MAX_POOLED_SIZE);
+        SLAB_SIZE = (slabSize + MAX_POOLED_SIZE - 1) & -MAX_POOLED_SIZE;
+
+        s = AccessController.doPrivileged(
+            new GetPropertyAction("sun.nio.ch.pooledDirect.maxMemory"));
+        long max = VM.maxDirectMemory();
+        if (s != null) {
+            try {
+                max = Long.parseLong(s);
+            } catch (NumberFormatException ignore) { }
+        }
+        MAX_MEMORY = max;
+
+        s = AccessController.doPrivileged(
+            new GetPropertyAction("sun.nio.ch.pooledDirect.leakDetection"));
+        PARANOID_LEAK_DETECTION = "paranoid".equalsIgnoreCase(s);
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2000, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2000, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -643,6 +643,124 @@ public class FileChannelImpl
         }
     }
 
+    // Assume at first that the underlying kernel supports splice();
+    // set this to false if we find out later that it doesn't
+    //
+    private static volatile boolean spliceSupported = true;
+
+    private long transferFromDirectly(ReadableByteChannel src,
+                                      long position, long count)
+        throws IOException
+    {
+        if (!spliceSupported || !Splice.isSupported())
+            return IOStatus.UNSUPPORTED;
+        if (!(src instanceof Splice.Source))
+            return IOStatus.UNSUPPORTED;
+
+        // The source splices into a pipe, which we then splice into the
+        // file. This keeps the blocking read from the source outside of
+        // this channel's begin/end so that each channel is closed and
+        // interrupted independently.
+        Splice.Source source = (Splice.Source)src;
+        Splice.Pipe pipe = Splice.acquirePipe();
+        boolean empty = true;
+        long tw = 0;
+        try {
+            while (tw < count) {
+                long nr = source.spliceTo(pipe.sink(), -1,
+                                          Math.min(count - tw, Splice.PIPE_SIZE));
+                if (nr == IOStatus.UNSUPPORTED)
+                    spliceSupported = false;
+                if ((nr == IOStatus.UNSUPPORTED) ||
+                    (nr == IOStatus.UNSUPPORTED_CASE))
+                    return (tw > 0) ? tw : nr;
+                if (nr <= 0)
+                    break;
+                empty = false;
+                long nw = writeFromPipe(pipe.source(), position + tw, nr);
+                if (nw > 0)
+                    tw += nw;
+                if (nw != nr)
+                    break;
+                empty = true;
+            }
+            return tw;
+        } catch (IOException x) {
+            if (tw > 0)
+                return tw;
+            throw x;
+        } finally {
+            if (empty) {
+                Splice.releasePipe(pipe);
+            } else {
+                Splice.closePipe(pipe);
+            }
+        }
+    }
+
+    // Writes len bytes from the given pipe to this file at the given
+    // position, falling back to a copy if the file doesn't support splice
+    private long writeFromPipe(FileDescriptor pfd, long position, long len)
+        throws IOException
+    {
+        long tw = 0;
+        long n = 0;
+        int ti = -1;
+        try {
+            begin();
+            ti = threads.add();
+            if (!isOpen())
+                return -1;
+            while (tw < len) {
+                do {
+                    n = nd.splice(pfd, fd, position + tw, len - tw);
+                } while ((n == IOStatus.INTERRUPTED) && isOpen());
+                if (n == IOStatus.UNSUPPORTED_CASE ||
+                    n == IOStatus.UNSUPPORTED) {
+                    // e.g. file opened for append; drain the pipe the slow way
+                    n = copyFromPipe(pfd, position + tw, len - tw);
+                }
+                if (n <= 0)
+                    break;
+                tw += n;
+            }
+            return tw;
+        } finally {
+            threads.remove(ti);
+            end(tw > 0);
+            assert IOStatus.check(n);
+        }
+    }
+
+    private long copyFromPipe(FileDescriptor pfd, long position, long len)
+        throws IOException
+    {
+        ByteBuffer bb = Util.getTemporaryDirectBuffer(
+            (int)Math.min(len, TRANSFER_SIZE));
+        long tw = 0;
+        try {
+            while (tw < len) {
+                bb.clear();
+                bb.limit((int)Math.min(len - tw, (long)bb.capacity()));
+                int nr = IOUtil.read(pfd, bb, -1, nd);
+                if (nr <= 0)
+                    break;
+                bb.flip();
+                while (bb.hasRemaining()) {
+                    int nw = IOUtil.write(fd, bb, position + tw, nd);
+                    if (nw == IOStatus.INTERRUPTED && isOpen())
+                        continue;
+                    if (nw <= 0)
+                        return tw;
+                    tw += nw;
+                }
+            }
+            return tw;
+        } finally {
+            Util.releaseTemporaryDirectBuffer(bb);
+        }
+    }
+
     public long transferFrom(ReadableByteChannel src,
                              long position, long count)
         throws IOException
@@ -660,6 +778,12 @@ public class FileChannelImpl
            return transferFromFileChannel((FileChannelImpl)src,
                                           position, count);
 
+        long n;
+
+        // Attempt a direct transfer, if the kernel supports it
+        if ((n = transferFromDirectly(src, position, count)) >= 0)
+            return n;
+
         return transferFromArbitraryChannel(src, position, count);
     }
 
@@ -753,10 +877,10 @@ public class FileChannelImpl
 
         private volatile long address;
         private final long size;
-        private final int cap;
+        private final long cap;
         private final FileDescriptor fd;
 
-        private Unmapper(long address, long size, int cap,
+        private Unmapper(long address, long size, long cap,
                          FileDescriptor fd)
         {
             assert (address != 0);
@@ -924,6 +1048,115 @@ public class FileChannelImpl
         }
     }
 
+    /**
+     * Maps a region of this channel's file into memory. Unlike {@link #map}
+     * the region may be larger than Integer.MAX_VALUE bytes and may be
+     * unmapped explicitly.
+     */
+    MappedRegion mapRegion(MapMode mode, long position, long size)
+        throws IOException
+    {
+        ensureOpen();
+        if (mode == null)
+            throw new NullPointerException("Mode is null");
+        if (position < 0L)
+            throw new IllegalArgumentException("Negative position");
+        if (size <= 0L)
+            throw new IllegalArgumentException("Size must be positive");
+        if (position + size < 0)
+            throw new IllegalArgumentException("Position + size overflow");
+
+        int imode = -1;
+        if (mode == MapMode.READ_ONLY)
+            imode = MAP_RO;
+        else if (mode == MapMode.READ_WRITE)
+            imode = MAP_RW;
+        else if (mode == MapMode.PRIVATE)
+            imode = MAP_PV;
+        assert (imode >= 0);
+        if ((mode != MapMode.READ_ONLY) && !writable)
+            throw new NonWritableChannelException();
+        if (!readable)
+            throw new NonReadableChannelException();
+
+        long addr = -1;
+        int ti = -1;
+        try {
+            begin();
+            ti = threads.add();
+            if (!isOpen())
+                return null;
+
+            long filesize;
+            do {
+                filesize = nd.size(fd);
+            } while ((filesize == IOStatus.INTERRUPTED) && isOpen());
+            if (!isOpen())
+                return null;
+
+            if (filesize < position + size) { // Extend file size
+                if (!writable) {
+                    throw new IOException("Channel not open for writing " +
+                        "- cannot extend file to required size");
+                }
+                int rv;
+                do {
+                    rv = nd.truncate(fd, position + size);
+                } while ((rv == IOStatus.INTERRUPTED) && isOpen());
+                if (!isOpen())
+                    return null;
+            }
+
+            int pagePosition = (int)(position % allocationGranularity);
+            long mapPosition = position - pagePosition;
+            long mapSize = size + pagePosition;
+            try {
+                addr = map0(imode, mapPosition, mapSize);
+            } catch (OutOfMemoryError x) {
+                // a large mapping may fail for want of address space held
+                // by unreachable buffers, so force gc and re-attempt map
+                System.gc();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException y) {
+                    Thread.currentThread().interrupt();
+                }
+                try {
+                    addr = map0(imode, mapPosition, mapSize);
+                } catch (OutOfMemoryError y) {
+                    throw new IOException("Map failed", y);
+                }
+            }
+
+            FileDescriptor mfd;
+            try {
+                mfd = nd.duplicateForMapping(fd);
+            } catch (IOException ioe) {
+                unmap0(addr, mapSize);
+                throw ioe;
+            }
+
+            assert (IOStatus.checkAll(addr));
+            assert (addr % allocationGranularity == 0);
+            Unmapper um = new Unmapper(addr, mapSize, size, mfd);
+            boolean readOnly = (!writable) || (imode == MAP_RO);
+            return new MappedRegion(addr + pagePosition, size, readOnly,
+                                    mfd, um);
+        } finally {
+            threads.remove(ti);
+            end(IOStatus.checkAll(addr));
+        }
+    }
+
+    // Gives advice about the use of a range of a mapping, address and
+    // length need not be page aligned
+    static void advise(long address, long length, int advice)
+        throws IOException
+    {
+        long pageAddress = address - (address % allocationGranularity);
+        madvise0(pageAddress, length + (address - pageAddress), advice);
+    }
+
     /**
      * Invoked by sun.management.ManagementFactoryHelper to create the management
      * interface for mapped buffers.
@@ -1160,6 +1393,11 @@ public class FileChannelImpl
     // Removes an existing mapping
     private static native int unmap0(long address, long length);
 
+    // Gives advice about the expected use of a mapping, advice is the
+    // ordinal of a MappedRegion.Advice
+    private static native int madvise0(long address, long length, int advice)
+        throws IOException;
+
     // Transfers from src to dst, or returns -2 if kernel can't do that
     private native long transferTo0(int src, long position, long count, int dst);
 
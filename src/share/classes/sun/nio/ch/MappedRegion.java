@@ -0,0 +1,545 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.nio.ch;
+
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.ReadOnlyBufferException;
+import java.security.AccessController;
+import sun.misc.Cleaner;
+import sun.misc.Unsafe;
+import sun.security.action.GetPropertyAction;
+
+
+/**
+ * A memory-mapped region of a file that, unlike a {@link MappedByteBuffer},
+ * may be larger than {@code Integer.MAX_VALUE} bytes and can be unmapped
+ * explicitly.
+ *
+ * <p> Values are read and written at {@code long} indexes, relative to the
+ * start of the region, in the byte order of the region, which is initially
+ * {@link ByteOrder#BIG_ENDIAN BIG_ENDIAN}. A region is safe for use by
+ * multiple concurrent threads; {@link #close close} waits for accesses in
+ * progress to finish and any later access fails with {@link
+ * IllegalStateException}.
+ *
+ * <p> {@link #slice slice} returns a {@code MappedByteBuffer} view of part of
+ * the region. A view keeps the mapping alive until it is {@link #release
+ * released}, as a buffer cannot be invalidated when the memory under it is
+ * unmapped. The memory is unmapped when the region has been closed and all
+ * views have been released, by whichever of {@code close} and {@code
+ * release} comes last. A view that becomes unreachable without being
+ * released is released when it is garbage collected.
+ */
+
+public final class MappedRegion implements AutoCloseable {
+
+    private static final Unsafe unsafe = Unsafe.getUnsafe();
+
+    private static final long arrayBaseOffset =
+        (long)unsafe.arrayBaseOffset(byte[].class);
+
+    // Whether unaligned accesses are permitted on this platform
+    private static final boolean unaligned;
+
+    private static final boolean nativeBigEndian =
+        (ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN);
+
+    /**
+     * Hints for {@link #advise advise}, corresponding to the madvise(2)
+     * values of the same name. Hints that are not supported by the operating
+     * system are ignored.
+     */
+    public static enum Advice {
+        NORMAL, SEQUENTIAL, RANDOM, WILLNEED, DONTNEED, HUGEPAGE;
+    }
+
+    private final long address;         // address of the first byte
+    private final long size;
+    private final boolean readOnly;
+    private final FileDescriptor fd;    // for views, see newMappedByteBuffer
+    private final Releaser releaser;
+    private final Cleaner cleaner;
+
+    private volatile boolean bigEndian = true;
+
+    // Number of accesses in progress, CLOSED is set once close is invoked
+    private volatile int state;
+    private static final int CLOSED = 0x80000000;
+    private static final long stateOffset;
+
+    MappedRegion(long address, long size, boolean readOnly,
+                 FileDescriptor fd, Runnable unmapper)
+    {
+        this.address = address;
+        this.size = size;
+        this.readOnly = readOnly;
+        this.fd = fd;
+        this.releaser = new Releaser(unmapper);
+        this.cleaner = Cleaner.create(this, releaser);
+    }
+
+    /**
+     * Maps a region of the given channel's file into memory.
+     *
+     * @param  ch
+     *         A file channel, obtained from FileChannel.open or from a
+     *         FileInputStream, FileOutputStream or RandomAccessFile
+     * @param  mode
+     *         As for {@link FileChannel#map FileChannel.map}
+     * @param  position
+     *         The position within the file at which the region is to start
+     * @param  size
+     *         The size of the region, which must be positive
+     *
+     * @throws UnsupportedOperationException
+     *         If the channel is not provided by the default file system
+     */
+    public static MappedRegion map(FileChannel ch, MapMode mode,
+                                   long position, long size)
+        throws IOException
+    {
+        if (!(ch instanceof FileChannelImpl))
+            throw new UnsupportedOperationException();
+        MappedRegion r = ((FileChannelImpl)ch).mapRegion(mode, position, size);
+        if (r == null)
+            throw new ClosedChannelException();
+        return r;
+    }
+
+    // Drops a reference to the mapping and unmaps it when the region has
+    // been closed or is unreachable and no views remain
+    private static class Releaser implements Runnable {
+        private final Runnable unmapper;
+        private int refs = 1;
+
+        Releaser(Runnable unmapper) {
+            this.unmapper = unmapper;
+        }
+
+        synchronized void retain() {
+            refs++;
+        }
+
+        public void run() {
+            synchronized (this) {
+                if (--refs > 0)
+                    return;
+            }
+            unmapper.run();
+        }
+    }
+
+    // -- Access --
+
+    private void begin() {
+        for (;;) {
+            int s = state;
+            if ((s & CLOSED) != 0)
+                throw new IllegalStateException("Region is closed");
+            if (unsafe.compareAndSwapInt(this, stateOffset, s, s + 1))
+                return;
+        }
+    }
+
+    private void end() {
+        unsafe.getAndAddInt(this, stateOffset, -1);
+    }
+
+    private long checkIndex(long index, long nb) {
+        if (index < 0 || nb < 0 || nb > size - index)
+            throw new IndexOutOfBoundsException();
+        return address + index;
+    }
+
+    private void checkWritable() {
+        if (readOnly)
+            throw new ReadOnlyBufferException();
+    }
+
+    /**
+     * Returns the size of this region.
+     */
+    public long size() {
+        return size;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public boolean isOpen() {
+        return (state & CLOSED) == 0;
+    }
+
+    public ByteOrder order() {
+        return bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    /**
+     * Sets the byte order used by the typed get and put methods.
+     */
+    public MappedRegion order(ByteOrder bo) {
+        bigEndian = (bo == ByteOrder.BIG_ENDIAN);
+        return this;
+    }
+
+    public byte get(long index) {
+        long a = checkIndex(index, 1);
+        begin();
+        try {
+            return unsafe.getByte(a);
+        } finally {
+            end();
+        }
+    }
+
+    public MappedRegion put(long index, byte b) {
+        checkWritable();
+        long a = checkIndex(index, 1);
+        begin();
+        try {
+            unsafe.putByte(a, b);
+        } finally {
+            end();
+        }
+        return this;
+    }
+
+    /**
+     * Copies {@code length} bytes, starting at {@code index}, into the given
+     * array.
+     */
+    public MappedRegion get(long index, byte[] dst, int offset, int length) {
+        if ((offset | length | (offset + length) |
+             (dst.length - (offset + length))) < 0)
+            throw new IndexOutOfBoundsException();
+        long a = checkIndex(index, length);
+        begin();
+        try {
+            unsafe.copyMemory(null, a, dst, arrayBaseOffset + offset, length);
+        } finally {
+            end();
+        }
+        return this;
+    }
+
+    /**
+     * Copies {@code length} bytes from the given array into this region,
+     * starting at {@code index}.
+     */
+    public MappedRegion put(long index, byte[] src, int offset, int length) {
+        checkWritable();
+        if ((offset | length | (offset + length) |
+             (src.length - (offset + length))) < 0)
+            throw new IndexOutOfBoundsException();
+        long a = checkIndex(index, length);
+        begin();
+        try {
+            unsafe.copyMemory(src, arrayBaseOffset + offset, null, a, length);
+        } finally {
+            end();
+        }
+        return this;
+    }
+
+    // Reads an n-byte big-endian value byte by byte, for platforms that
+    // do not permit unaligned access
+    private static long getBytes(long a, int n) {
+        long x = 0;
+        for (int i = 0; i < n; i++)
+            x = (x << 8) | (unsafe.getByte(a + i) & 0xff);
+        return x;
+    }
+
+    private static void putBytes(long a, int n, long x) {
+        for (int i = n - 1; i >= 0; i--) {
+            unsafe.putByte(a + i, (byte)x);
+            x >>>= 8;
+        }
+    }
+
+    public short getShort(long index) {
+        long a = checkIndex(index, 2);
+        boolean swap = (bigEndian != nativeBigEndian);
+        begin();
+        try {
+            if (unaligned || (a & 1) == 0) {
+                short x = unsafe.getShort(a);
+                return swap ? Short.reverseBytes(x) : x;
+            }
+            short x = (short)getBytes(a, 2);
+            return bigEndian ? x : Short.reverseBytes(x);
+        } finally {
+            end();
+        }
+    }
+
+    public MappedRegion putShort(long index, short value) {
+        checkWritable();
+        long a = checkIndex(index, 2);
+        boolean swap = (bigEndian != nativeBigEndian);
+        begin();
+        try {
+            if (unaligned || (a & 1) == 0) {
+                unsafe.putShort(a, swap ? Short.reverseBytes(value) : value);
+            } else {
+                putBytes(a, 2, bigEndian ? value : Short.reverseBytes(value));
+            }
+        } finally {
+            end();
+        }
+        return this;
+    }
+
+    public char getChar(long index) {
+        return (char)getShort(index);
+    }
+
+    public MappedRegion putChar(long index, char value) {
+        return putShort(index, (short)value);
+    }
+
+    public int getInt(long index) {
+        long a = checkIndex(index, 4);
+        boolean swap = (bigEndian != nativeBigEndian);
+        begin();
+        try {
+            if (unaligned || (a & 3) == 0) {
+                int x = unsafe.getInt(a);
+                return swap ? Integer.reverseBytes(x) : x;
+            }
+            int x = (int)getBytes(a, 4);
+            return bigEndian ? x : Integer.reverseBytes(x);
+        } finally {
+            end();
+        }
+    }
+
+    public MappedRegion putInt(long index, int value) {
+        checkWritable();
+        long a = checkIndex(index, 4);
+        boolean swap = (bigEndian != nativeBigEndian);
+        begin();
+        try {
+            if (unaligned || (a & 3) == 0) {
+                unsafe.putInt(a, swap ? Integer.reverseBytes(value) : value);
+            } else {
+                putBytes(a, 4, bigEndian ? value : Integer.reverseBytes(value));
+            }
+        } finally {
+            end();
+        }
+        return this;
+    }
+
+    public long getLong(long index) {
+        long a = checkIndex(index, 8);
+        boolean swap = (bigEndian != nativeBigEndian);
+        begin();
+        try {
+            if (unaligned || (a & 7) == 0) {
+                long x = unsafe.getLong(a);
+                return swap ? Long.reverseBytes(x) : x;
+            }
+            long x = getBytes(a, 8);
+            return bigEndian ? x : Long.reverseBytes(x);
+        } finally {
+            end();
+        }
+    }
+
+    public MappedRegion putLong(long index, long value) {
+        checkWritable();
+        long a = checkIndex(index, 8);
+        boolean swap = (bigEndian != nativeBigEndian);
+        begin();
+        try {
+            if (unaligned || (a & 7) == 0) {
+                unsafe.putLong(a, swap ? Long.reverseBytes(value) : value);
+            } else {
+                putBytes(a, 8, bigEndian ? value : Long.reverseBytes(value));
+            }
+        } finally {
+            end();
+        }
+        return this;
+    }
+
+    public float getFloat(long index) {
+        return Float.intBitsToFloat(getInt(index));
+    }
+
+    public MappedRegion putFloat(long index, float value) {
+        return putInt(index, Float.floatToRawIntBits(value));
+    }
+
+    public double getDouble(long index) {
+        return Double.longBitsToDouble(getLong(index));
+    }
+
+    public MappedRegion putDouble(long index, double value) {
+        return putLong(index, Double.doubleToRawLongBits(value));
+    }
+
+    // -- Views --
+
+    /**
+     * Returns a buffer whose content is the given range of this region. The
+     * buffer's byte order is BIG_ENDIAN, as for any new buffer.
+     */
+    public MappedByteBuffer slice(long index, int length) {
+        if (length < 0)
+            throw new IllegalArgumentException("Negative length");
+        long a = checkIndex(index, length);
+        begin();
+        try {
+            releaser.retain();
+            if (readOnly) {
+                return Util.newMappedByteBufferR(length, a, fd, releaser);
+            } else {
+                return Util.newMappedByteBuffer(length, a, fd, releaser);
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * Releases a view returned by {@link #slice slice}. Neither the view nor
+     * any buffer derived from it may be used after it has been released. If
+     * the region has been closed and this is its last view then the memory
+     * is unmapped before this method returns. Releasing a view that has
+     * already been released has no effect.
+     *
+     * @throws IllegalArgumentException
+     *         If the buffer is not a view returned by {@code slice} for this
+     *         region
+     */
+    public void release(MappedByteBuffer view) {
+        Cleaner c = null;
+        long a = 0L;
+        if (view instanceof DirectBuffer) {
+            c = ((DirectBuffer)view).cleaner();
+            a = ((DirectBuffer)view).address();
+        }
+        // slices and duplicates of a view have no cleaner
+        if (c == null || a < address || view.capacity() > size - (a - address))
+            throw new IllegalArgumentException("Not a view of this region");
+        c.clean();
+    }
+
+    // -- Hints and synchronization --
+
+    /**
+     * Advises the operating system of the expected use of the given range
+     * of this region.
+     */
+    public void advise(Advice advice, long index, long length)
+        throws IOException
+    {
+        if (advice == null)
+            throw new NullPointerException();
+        long a = checkIndex(index, length);
+        if (length == 0)
+            return;
+        begin();
+        try {
+            FileChannelImpl.advise(a, length, advice.ordinal());
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * Forces any changes made to the given range of this region to be
+     * written to the storage device containing the file.
+     *
+     * @see MappedByteBuffer#force
+     */
+    public void force(long index, long length) {
+        long a = checkIndex(index, length);
+        if (readOnly)
+            return;
+        begin();
+        try {
+            // MappedByteBuffer.force pages-aligns the range and handles the
+            // platform differences, so force through temporary views
+            while (length > 0) {
+                int n = (int)Math.min(length, Integer.MAX_VALUE);
+                Util.newMappedByteBuffer(n, a, fd, null).force();
+                a += n;
+                length -= n;
+            }
+        } finally {
+            end();
+        }
+    }
+
+    public void force() {
+        force(0, size);
+    }
+
+    /**
+     * Closes this region. Accesses in progress by other threads complete
+     * before the memory is unmapped. If all views of the region have been
+     * released then the memory is unmapped before this method returns,
+     * otherwise when the last view is released. Invoking this method on a
+     * closed region has no effect.
+     */
+    public void close() {
+        for (;;) {
+            int s = state;
+            if ((s & CLOSED) != 0)
+                return;
+            if (unsafe.compareAndSwapInt(this, stateOffset, s, s | CLOSED))
+                break;
+        }
+        while (state != CLOSED)
+            Thread.yield();
+        cleaner.clean();
+    }
+
+    static {
+        String arch = AccessController.doPrivileged(
+            new GetPropertyAction("os.arch"));
+        unaligned = arch.equals("i386") || arch.equals("x86")
+            || arch.equals("amd64") || arch.equals("x86_64")
+            || arch.equals("ppc64") || arch.equals("ppc64le");
+        try {
+            stateOffset = unsafe.objectFieldOffset(
+                MappedRegion.class.getDeclaredField("state"));
+        } catch (NoSuchFieldException e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2000, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2000, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -67,6 +67,21 @@ abstract class NativeDispatcher
     abstract long writev(FileDescriptor fd, long address, int len)
         throws IOException;
 
+    /**
+     * Transfers up to {@code len} bytes from {@code src} to {@code dst}
+     * without copying them through user space. One of the file descriptors
+     * must be a pipe. If {@code position} is not {@code -1} then {@code dst}
+     * is a file and the bytes are written at the given position.
+     *
+     * @return  the number of bytes transferred or one of the IOStatus
+     *          codes; IOStatus.UNSUPPORTED if not supported on this platform
+     */
+    long splice(FileDescriptor src, FileDescriptor dst, long position, long len)
+        throws IOException
+    {
+        return IOStatus.UNSUPPORTED;
+    }
+
     abstract void close(FileDescriptor fd) throws IOException;
 
     // Prepare the given fd for closing by duping it to a known internal fd
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2000, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2000, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -41,7 +41,7 @@ import sun.net.NetHooks;
 
 class SocketChannelImpl
     extends SocketChannel
-    implements SelChImpl
+    implements SelChImpl, Splice.Source, Splice.Sink
 {
 
     // Used to make native read and write calls
@@ -513,6 +513,69 @@ class SocketChannelImpl
         }
     }
 
+    // -- Splice.Source and Splice.Sink --
+
+    public long spliceTo(FileDescriptor dst, long position, long len)
+        throws IOException
+    {
+        synchronized (readLock) {
+            if (!ensureReadOpen())
+                return -1;
+            long n = 0;
+            try {
+                begin();
+                synchronized (stateLock) {
+                    if (!isOpen())
+                        return 0;
+                    readerThread = NativeThread.current();
+                }
+                for (;;) {
+                    n = nd.splice(fd, dst, position, len);
+                    if ((n == IOStatus.INTERRUPTED) && isOpen())
+                        continue;
+                    return IOStatus.normalize(n);
+                }
+            } finally {
+                readerCleanup();
+                end(n > 0 || (n == IOStatus.UNAVAILABLE));
+                synchronized (stateLock) {
+                    if ((n <= 0) && (!isInputOpen))
+                        return IOStatus.EOF;
+                }
+                assert IOStatus.check(n);
+            }
+        }
+    }
+
+    public long spliceFrom(FileDescriptor src, long len) throws IOException {
+        synchronized (writeLock) {
+            ensureWriteOpen();
+            long n = 0;
+            try {
+                begin();
+                synchronized (stateLock) {
+                    if (!isOpen())
+                        return 0;
+                    writerThread = NativeThread.current();
+                }
+                for (;;) {
+                    n = nd.splice(src, fd, -1, len);
+                    if ((n == IOStatus.INTERRUPTED) && isOpen())
+                        continue;
+                    return IOStatus.normalize(n);
+                }
+            } finally {
+                writerCleanup();
+                end((n > 0) || (n == IOStatus.UNAVAILABLE));
+                synchronized (stateLock) {
+                    if ((n <= 0) && (!isOutputOpen))
+                        throw new AsynchronousCloseException();
+                }
+                assert IOStatus.check(n);
+            }
+        }
+    }
+
     // package-private
     int sendOutOfBandData(byte b) throws IOException {
         synchronized (writeLock) {
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.nio.ch;
+
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.security.AccessController;
+import java.util.ArrayDeque;
+import sun.security.action.GetPropertyAction;
+
+
+/**
+ * Support for moving bytes between channels with splice(2), using an
+ * intermediate pipe so that the data never has to be copied into user space.
+ * Used by FileChannelImpl.transferFrom and to forward bytes between sockets.
+ */
+
+public class Splice {
+
+    private Splice() { }
+
+    /**
+     * Implemented by channels that can splice their input to a file
+     * descriptor.
+     */
+    interface Source {
+        /**
+         * Splices up to {@code len} bytes from this channel to {@code dst},
+         * writing at {@code position} or, if it is {@code -1}, at the current
+         * offset of {@code dst}.
+         *
+         * @return  the number of bytes transferred, -1 at end-of-stream, or
+         *          IOStatus.UNSUPPORTED[_CASE]
+         */
+        long spliceTo(FileDescriptor dst, long position, long len)
+            throws IOException;
+    }
+
+    /**
+     * Implemented by channels that can splice their output from a pipe.
+     */
+    interface Sink {
+        /**
+         * Splices up to {@code len} bytes from the pipe {@code src} to this
+         * channel.
+         *
+         * @return  the number of bytes transferred or IOStatus.UNSUPPORTED[_CASE]
+         */
+        long spliceFrom(FileDescriptor src, long len) throws IOException;
+    }
+
+    // Splice is only implemented on Linux; -Dsun.nio.ch.disableSplice turns
+    // it off there as well
+    private static final boolean supported;
+
+    // Default capacity of a pipe, and so the most we splice at once
+    static final int PIPE_SIZE = 64 * 1024;
+
+    // Maximum number of idle pipes that we keep
+    private static final int MAX_CACHED_PIPES = 16;
+
+    private static final NativeDispatcher nd = new FileDispatcherImpl();
+
+    static boolean isSupported() {
+        return supported;
+    }
+
+    // -- Pipes --
+
+    static final class Pipe {
+        private final FileDescriptor source;
+        private final FileDescriptor sink;
+
+        private Pipe(FileDescriptor source, FileDescriptor sink) {
+            this.source = source;
+            this.sink = sink;
+        }
+
+        FileDescriptor source() { return source; }
+        FileDescriptor sink()   { return sink; }
+    }
+
+    private static final ArrayDeque<Pipe> pipes = new ArrayDeque<>();
+
+    /**
+     * Returns an empty pipe, from the cache if possible.
+     */
+    static Pipe acquirePipe() throws IOException {
+        synchronized (pipes) {
+            Pipe p = pipes.pollFirst();
+            if (p != null)
+                return p;
+        }
+        long fds = IOUtil.makePipe(true);
+        return new Pipe(IOUtil.newFD((int)(fds >>> 32)), IOUtil.newFD((int)fds));
+    }
+
+    /**
+     * Returns a pipe to the cache. The pipe must be empty.
+     */
+    static void releasePipe(Pipe p) {
+        synchronized (pipes) {
+            if (pipes.size() < MAX_CACHED_PIPES) {
+                pipes.addFirst(p);
+                return;
+            }
+        }
+        closePipe(p);
+    }
+
+    /**
+     * Closes a pipe that cannot be reused, e.g. because bytes remain in it.
+     */
+    static void closePipe(Pipe p) {
+        try {
+            nd.close(p.source);
+        } catch (IOException ignore) { }
+        try {
+            nd.close(p.sink);
+        } catch (IOException ignore) { }
+    }
+
+    // -- Socket forwarding --
+
+    /**
+     * Transfers up to {@code count} bytes from {@code src} to {@code dst},
+     * returning when {@code count} bytes have been transferred or
+     * {@code src} reaches end-of-stream. Where supported the bytes are moved
+     * with splice(2); otherwise they are copied through a temporary direct
+     * buffer.
+     *
+     * <p> The target channel must be in blocking mode so that every byte read
+     * from the source is written before this method returns.
+     *
+     * @return  the number of bytes transferred, possibly zero, or -1 if
+     *          {@code src} is at end-of-stream and nothing was transferred
+     *
+     * @throws  IllegalBlockingModeException
+     *          if {@code dst} is in non-blocking mode
+     */
+    public static long transfer(SocketChannel src, SocketChannel dst,
+                                long count)
+        throws IOException
+    {
+        if (count < 0)
+            throw new IllegalArgumentException();
+        if (!dst.isBlocking())
+            throw new IllegalBlockingModeException();
+        if (count == 0)
+            return 0;
+        if (supported && (src instanceof Source) && (dst instanceof Sink)) {
+            long n = spliceTransfer((Source)src, (Sink)dst, count);
+            if (n != IOStatus.UNSUPPORTED_CASE)
+                return n;
+        }
+        return copyTransfer(src, dst, count);
+    }
+
+    private static long spliceTransfer(Source src, Sink dst, long count)
+        throws IOException
+    {
+        Pipe p = acquirePipe();
+        boolean empty = true;
+        long tw = 0;
+        try {
+            while (tw < count) {
+                long nr = src.spliceTo(p.sink, -1,
+                                       Math.min(count - tw, PIPE_SIZE));
+                if (nr < 0 && tw == 0 && nr != IOStatus.EOF)
+                    return IOStatus.UNSUPPORTED_CASE;
+                if (nr == IOStatus.EOF && tw == 0)
+                    return IOStatus.EOF;
+                if (nr <= 0)
+                    break;
+                empty = false;
+                long nw = 0;
+                while (nw < nr) {
+                    long n = dst.spliceFrom(p.source, nr - nw);
+                    if (n < 0) {
+                        // e.g. the target doesn't support splice; drain
+                        // the pipe the slow way
+                        n = drain(p, (WritableByteChannel)dst, nr - nw);
+                    }
+                    nw += n;
+                }
+                empty = true;
+                tw += nw;
+            }
+            return tw;
+        } catch (IOException x) {
+            if (tw > 0)
+                return tw;
+            throw x;
+        } finally {
+            if (empty) {
+                releasePipe(p);
+            } else {
+                closePipe(p);
+            }
+        }
+    }
+
+    private static long drain(Pipe p, WritableByteChannel dst, long len)
+        throws IOException
+    {
+        ByteBuffer bb = Util.getTemporaryDirectBuffer((int)len);
+        try {
+            int nr = IOUtil.read(p.source, bb, -1, nd);
+            if (nr <= 0)
+                throw new IOException("Unable to drain pipe");
+            bb.flip();
+            while (bb.hasRemaining())
+                dst.write(bb);
+            return nr;
+        } finally {
+            Util.releaseTemporaryDirectBuffer(bb);
+        }
+    }
+
+    private static final int TRANSFER_SIZE = 8192;
+
+    private static long copyTransfer(ReadableByteChannel src,
+                                     WritableByteChannel dst, long count)
+        throws IOException
+    {
+        ByteBuffer bb = Util.getTemporaryDirectBuffer(
+            (int)Math.min(count, TRANSFER_SIZE));
+        long tw = 0;
+        try {
+            while (tw < count) {
+                bb.limit((int)Math.min(count - tw, bb.capacity()));
+                int nr = src.read(bb);
+                if (nr < 0 && tw == 0)
+                    return -1;
+                if (nr <= 0)
+                    break;
+                bb.flip();
+                while (bb.hasRemaining())
+                    dst.write(bb);
+                tw += nr;
+                bb.clear();
+            }
+            return tw;
+        } finally {
+            Util.releaseTemporaryDirectBuffer(bb);
+        }
+    }
+
+    static {
+        String osname = AccessController.doPrivileged(
+            new GetPropertyAction("os.name"));
+        String disable = AccessController.doPrivileged(
+            new GetPropertyAction("sun.nio.ch.disableSplice"));
+        supported = "Linux".equals(osname) &&
+            (disable == null || disable.equalsIgnoreCase("false"));
+    }
+}
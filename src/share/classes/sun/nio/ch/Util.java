@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2000, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2000, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -35,6 +35,10 @@ import java.nio.channels.*;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import sun.misc.PerfCounter;
 import sun.misc.Unsafe;
 import sun.misc.Cleaner;
 import sun.security.action.GetPropertyAction;
@@ -44,170 +48,187 @@ public class Util {
 
     // -- Caches --
 
-    // The number of temp buffers in our pool
-    private static final int TEMP_BUF_POOL_SIZE = IOUtil.IOV_MAX;
+    // Temporary direct buffers are cached in a shared cache with one stack
+    // of buffers per power-of-two size class. Buffers larger than
+    // MAX_CACHED_BUFFER_SIZE are freed when released rather than cached, the
+    // cache holds at most TEMP_BUF_CACHE_LIMIT bytes, and buffers that have
+    // been idle for TEMP_BUF_IDLE_TIMEOUT are freed.
 
-    // Per-thread cache of temporary direct buffers
-    private static ThreadLocal<BufferCache> bufferCache =
-        new ThreadLocal<BufferCache>()
-    {
-        @Override
-        protected BufferCache initialValue() {
-            return new BufferCache();
-        }
-    };
+    // The smallest size class
+    private static final int MIN_CACHED_BUFFER_SIZE = 4096;
+
+    // The largest buffer that is cached
+    private static final int MAX_CACHED_BUFFER_SIZE;
+
+    // The maximum number of bytes held by the cache
+    private static final long TEMP_BUF_CACHE_LIMIT;
+
+    // Cached buffers that are unused for this long are freed (nanoseconds)
+    private static final long TEMP_BUF_IDLE_TIMEOUT;
+
+    private static final BufferCache[] bufferCaches;
+
+    // Number of buffers and bytes in the cache
+    private static final AtomicInteger cachedCount = new AtomicInteger();
+    private static final AtomicLong cachedBytes = new AtomicLong();
+
+    // Time that the cache was last trimmed of idle buffers
+    private static volatile long lastTrimTime = System.nanoTime();
 
     /**
-     * A simple cache of direct buffers.
+     * A stack of cached direct buffers of one size class, with the time that
+     * each was returned to the cache. The bottom of the stack is the buffer
+     * that has been idle longest.
      */
     private static class BufferCache {
-        // the array of buffers
-        private ByteBuffer[] buffers;
-
-        // the number of buffers in the cache
+        private final int bufferSize;
+        private ByteBuffer[] buffers = new ByteBuffer[8];
+        private long[] times = new long[8];
         private int count;
 
-        // the index of the first valid buffer (undefined if count == 0)
-        private int start;
-
-        private int next(int i) {
-            return (i + 1) % TEMP_BUF_POOL_SIZE;
+        BufferCache(int bufferSize) {
+            this.bufferSize = bufferSize;
         }
 
-        BufferCache() {
-            buffers = new ByteBuffer[TEMP_BUF_POOL_SIZE];
+        int bufferSize() {
+            return bufferSize;
         }
 
-        /**
-         * Removes and returns a buffer from the cache of at least the given
-         * size (or null if no suitable buffer is found).
-         */
-        ByteBuffer get(int size) {
+        synchronized ByteBuffer poll() {
             if (count == 0)
-                return null;  // cache is empty
-
-            ByteBuffer[] buffers = this.buffers;
-
-            // search for suitable buffer (often the first buffer will do)
-            ByteBuffer buf = buffers[start];
-            if (buf.capacity() < size) {
-                buf = null;
-                int i = start;
-                while ((i = next(i)) != start) {
-                    ByteBuffer bb = buffers[i];
-                    if (bb == null)
-                        break;
-                    if (bb.capacity() >= size) {
-                        buf = bb;
-                        break;
-                    }
-                }
-                if (buf == null)
-                    return null;
-                // move first element to here to avoid re-packing
-                buffers[i] = buffers[start];
-            }
-
-            // remove first element
-            buffers[start] = null;
-            start = next(start);
-            count--;
-
-            // prepare the buffer and return it
-            buf.rewind();
-            buf.limit(size);
+                return null;
+            ByteBuffer buf = buffers[--count];
+            buffers[count] = null;
             return buf;
         }
 
-        boolean offerFirst(ByteBuffer buf) {
-            if (count >= TEMP_BUF_POOL_SIZE) {
-                return false;
-            } else {
-                start = (start + TEMP_BUF_POOL_SIZE - 1) % TEMP_BUF_POOL_SIZE;
-                buffers[start] = buf;
-                count++;
-                return true;
-            }
-        }
-
-        boolean offerLast(ByteBuffer buf) {
-            if (count >= TEMP_BUF_POOL_SIZE) {
-                return false;
-            } else {
-                int next = (start + count) % TEMP_BUF_POOL_SIZE;
-                buffers[next] = buf;
-                count++;
-                return true;
+        synchronized void push(ByteBuffer buf, long now) {
+            if (count == buffers.length) {
+                buffers = Arrays.copyOf(buffers, count << 1);
+                times = Arrays.copyOf(times, count << 1);
             }
+            buffers[count] = buf;
+            times[count] = now;
+            count++;
         }
 
-        boolean isEmpty() {
-            return count == 0;
+        // removes and returns the buffers returned to the cache before the
+        // given time
+        synchronized List<ByteBuffer> removeIdle(long before) {
+            int n = 0;
+            while (n < count && times[n] - before < 0)
+                n++;
+            if (n == 0)
+                return Collections.emptyList();
+            List<ByteBuffer> idle = new ArrayList<>(n);
+            for (int i = 0; i < n; i++)
+                idle.add(buffers[i]);
+            System.arraycopy(buffers, n, buffers, 0, count - n);
+            System.arraycopy(times, n, times, 0, count - n);
+            Arrays.fill(buffers, count - n, count, null);
+            count -= n;
+            return idle;
         }
+    }
 
-        ByteBuffer removeFirst() {
-            assert count > 0;
-            ByteBuffer buf = buffers[start];
-            buffers[start] = null;
-            start = next(start);
-            count--;
-            return buf;
+    // Returns the cache for buffers of the given size, null if too large
+    private static BufferCache cacheFor(int size) {
+        if (size > MAX_CACHED_BUFFER_SIZE)
+            return null;
+        int sc = 0;
+        if (size > MIN_CACHED_BUFFER_SIZE) {
+            sc = Integer.numberOfLeadingZeros(MIN_CACHED_BUFFER_SIZE - 1) -
+                 Integer.numberOfLeadingZeros(size - 1);
         }
+        return bufferCaches[sc];
     }
 
     /**
      * Returns a temporary buffer of at least the given size
      */
     public static ByteBuffer getTemporaryDirectBuffer(int size) {
-        BufferCache cache = bufferCache.get();
-        ByteBuffer buf = cache.get(size);
+        BufferCache cache = cacheFor(size);
+        if (cache == null) {
+            // too large to cache
+            PerfCounter.getTempBufferCacheOversized().increment();
+            return ByteBuffer.allocateDirect(size);
+        }
+        ByteBuffer buf = cache.poll();
         if (buf != null) {
+            cachedCount.decrementAndGet();
+            cachedBytes.addAndGet(-buf.capacity());
+            // prepare the buffer and return it
+            buf.rewind();
+            buf.limit(size);
             return buf;
-        } else {
-            // No suitable buffer in the cache so we need to allocate a new
-            // one. To avoid the cache growing then we remove the first
-            // buffer from the cache and free it.
-            if (!cache.isEmpty()) {
-                buf = cache.removeFirst();
-                free(buf);
-            }
-            return ByteBuffer.allocateDirect(size);
         }
+        PerfCounter.getTempBufferCacheMisses().increment();
+        buf = ByteBuffer.allocateDirect(cache.bufferSize());
+        buf.limit(size);
+        return buf;
     }
 
     /**
      * Releases a temporary buffer by returning to the cache or freeing it.
      */
     public static void releaseTemporaryDirectBuffer(ByteBuffer buf) {
-        offerFirstTemporaryDirectBuffer(buf);
+        assert buf != null;
+        int cap = buf.capacity();
+        BufferCache cache = cacheFor(cap);
+        if (cache == null || cache.bufferSize() != cap) {
+            // not allocated by getTemporaryDirectBuffer
+            free(buf);
+            return;
+        }
+        if (cachedBytes.addAndGet(cap) > TEMP_BUF_CACHE_LIMIT) {
+            // cache is full
+            cachedBytes.addAndGet(-cap);
+            PerfCounter.getTempBufferCacheEvictions().increment();
+            free(buf);
+        } else {
+            long now = System.nanoTime();
+            cache.push(buf, now);
+            cachedCount.incrementAndGet();
+            if (now - lastTrimTime > TEMP_BUF_IDLE_TIMEOUT)
+                trimTemporaryDirectBuffers(now);
+        }
     }
 
     /**
-     * Releases a temporary buffer by returning to the cache or freeing it. If
-     * returning to the cache then insert it at the start so that it is
-     * likely to be returned by a subsequent call to getTemporaryDirectBuffer.
+     * Releases a temporary buffer by returning to the cache or freeing it.
+     * Buffers are cached by size class so the order in which they are
+     * released does not matter.
      */
     static void offerFirstTemporaryDirectBuffer(ByteBuffer buf) {
-        assert buf != null;
-        BufferCache cache = bufferCache.get();
-        if (!cache.offerFirst(buf)) {
-            // cache is full
-            free(buf);
-        }
+        releaseTemporaryDirectBuffer(buf);
     }
 
     /**
-     * Releases a temporary buffer by returning to the cache or freeing it. If
-     * returning to the cache then insert it at the end. This makes it
-     * suitable for scatter/gather operations where the buffers are returned to
-     * cache in same order that they were obtained.
+     * Releases a temporary buffer by returning to the cache or freeing it.
+     * Used by scatter/gather operations.
      */
     static void offerLastTemporaryDirectBuffer(ByteBuffer buf) {
-        assert buf != null;
-        BufferCache cache = bufferCache.get();
-        if (!cache.offerLast(buf)) {
-            // cache is full
-            free(buf);
+        releaseTemporaryDirectBuffer(buf);
+    }
+
+    /**
+     * Frees the cached buffers that have been idle for longer than the idle
+     * timeout.
+     */
+    private static void trimTemporaryDirectBuffers(long now) {
+        synchronized (bufferCaches) {
+            if (now - lastTrimTime <= TEMP_BUF_IDLE_TIMEOUT)
+                return;     // trimmed by another thread
+            lastTrimTime = now;
+        }
+        long before = now - TEMP_BUF_IDLE_TIMEOUT;
+        for (BufferCache cache : bufferCaches) {
+            for (ByteBuffer buf : cache.removeIdle(before)) {
+                cachedCount.decrementAndGet();
+                cachedBytes.addAndGet(-buf.capacity());
+                PerfCounter.getTempBufferCacheEvictions().increment();
+                free(buf);
+            }
         }
     }
 
@@ -218,6 +239,61 @@ public class Util {
         ((DirectBuffer)buf).cleaner().clean();
     }
 
+    /**
+     * Invoked by sun.management.ManagementFactoryHelper to create the
+     * management interface for the cache of temporary direct buffers.
+     */
+    public static sun.misc.JavaNioAccess.BufferPool getTemporaryBufferPool() {
+        return new sun.misc.JavaNioAccess.BufferPool() {
+            @Override
+            public String getName() {
+                return "direct-cached";
+            }
+            @Override
+            public long getCount() {
+                return cachedCount.get();
+            }
+            @Override
+            public long getTotalCapacity() {
+                return cachedBytes.get();
+            }
+            @Override
+            public long getMemoryUsed() {
+                return cachedBytes.get();
+            }
+        };
+    }
+
+    private static long longProperty(String name, long defaultValue) {
+        String s = AccessController.doPrivileged(new GetPropertyAction(name));
+        if (s != null) {
+            try {
+                long value = Long.parseLong(s);
+                if (value >= 0)
+                    return value;
+            } catch (NumberFormatException ignore) { }
+        }
+        return defaultValue;
+    }
+
+    static {
+        long max = longProperty("jdk.nio.maxCachedBufferSize", 1024 * 1024);
+        max = Math.max(max, MIN_CACHED_BUFFER_SIZE);
+        // round down to a size class
+        MAX_CACHED_BUFFER_SIZE =
+            Integer.highestOneBit((int)Math.min(max, 1 << 30));
+        TEMP_BUF_CACHE_LIMIT =
+            longProperty("sun.nio.ch.tempBufferCacheLimit", 16 * 1024 * 1024);
+        TEMP_BUF_IDLE_TIMEOUT = TimeUnit.MILLISECONDS.toNanos(
+            longProperty("sun.nio.ch.tempBufferIdleTimeout", 30 * 1000));
+
+        int n = Integer.numberOfLeadingZeros(MIN_CACHED_BUFFER_SIZE) -
+                Integer.numberOfLeadingZeros(MAX_CACHED_BUFFER_SIZE) + 1;
+        bufferCaches = new BufferCache[n];
+        for (int i = 0; i < n; i++)
+            bufferCaches[i] = new BufferCache(MIN_CACHED_BUFFER_SIZE << i);
+    }
+
 
     // -- Random stuff --
 
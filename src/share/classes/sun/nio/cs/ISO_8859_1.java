@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2000, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2000, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -33,7 +33,7 @@ import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
 import java.util.Arrays;
 
-class ISO_8859_1
+public class ISO_8859_1
     extends Charset
     implements HistoricallyNamedCharset
 {
@@ -65,6 +65,15 @@ class ISO_8859_1
             super(cs, 1.0f, 1.0f);
         }
 
+        // intrinsic for decoding, callers check the array bounds
+        private static int decodeISOArray(byte[] sa, int sp,
+                                          char[] da, int dp, int len)
+        {
+            for (int i = 0; i < len; i++)
+                da[dp++] = (char)(sa[sp++] & 0xff);
+            return len;
+        }
+
         private CoderResult decodeArrayLoop(ByteBuffer src,
                                             CharBuffer dst)
         {
@@ -80,13 +89,12 @@ class ISO_8859_1
             dp = (dp <= dl ? dp : dl);
 
             try {
-                while (sp < sl) {
-                    byte b = sa[sp];
-                    if (dp >= dl)
-                        return CoderResult.OVERFLOW;
-                    da[dp++] = (char)(b & 0xff);
-                    sp++;
-                }
+                int len = Math.min(sl - sp, dl - dp);
+                decodeISOArray(sa, sp, da, dp, len);
+                sp += len;
+                dp += len;
+                if (sp < sl)
+                    return CoderResult.OVERFLOW;
                 return CoderResult.UNDERFLOW;
             } finally {
                 src.position(sp - src.arrayOffset());
@@ -124,10 +132,7 @@ class ISO_8859_1
         public int decode(byte[] src, int sp, int len, char[] dst) {
             if (len > dst.length)
                 len = dst.length;
-            int dp = 0;
-            while (dp < len)
-                dst[dp++] = (char)(src[sp++] & 0xff);
-            return dp;
+            return decodeISOArray(src, sp, dst, 0, len);
         }
     }
 
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2000, 2004, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2000, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -58,6 +58,37 @@ public class US_ASCII
         return new Encoder(this);
     }
 
+    // Copies the leading ASCII bytes of sa[sp..sp+len) to da[dp..] as chars
+    // and returns the number of bytes copied. The callers, including the
+    // UTF-8 coder, check the array bounds. Intrinsified by the compiler.
+    static int decodeASCIIArray(byte[] sa, int sp,
+                                char[] da, int dp, int len)
+    {
+        int i = 0;
+        for (; i < len; i++) {
+            byte b = sa[sp++];
+            if (b < 0)
+                break;
+            da[dp++] = (char)b;
+        }
+        return i;
+    }
+
+    // Copies the leading ASCII chars of sa[sp..sp+len) to da[dp..] as bytes
+    // and returns the number of chars copied. The callers, including the
+    // UTF-8 coder, check the array bounds. Intrinsified by the compiler.
+    static int encodeASCIIArray(char[] sa, int sp,
+                                byte[] da, int dp, int len)
+    {
+        int i = 0;
+        for (; i < len; i++) {
+            char c = sa[sp++];
+            if (c >= '\u0080')
+                break;
+            da[dp++] = (byte)c;
+        }
+        return i;
+    }
     private static class Decoder extends CharsetDecoder
                                  implements ArrayDecoder {
 
@@ -80,16 +111,14 @@ public class US_ASCII
             dp = (dp <= dl ? dp : dl);
 
             try {
-                while (sp < sl) {
-                    byte b = sa[sp];
-                    if (b >= 0) {
-                        if (dp >= dl)
-                            return CoderResult.OVERFLOW;
-                        da[dp++] = (char)b;
-                        sp++;
-                        continue;
-                    }
-                    return CoderResult.malformedForLength(1);
+                int n = decodeASCIIArray(sa, sp, da, dp,
+                                         Math.min(sl - sp, dl - dp));
+                sp += n;
+                dp += n;
+                if (sp < sl) {
+                    if (sa[sp] < 0)
+                        return CoderResult.malformedForLength(1);
+                    return CoderResult.OVERFLOW;
                 }
                 return CoderResult.UNDERFLOW;
             } finally {
@@ -138,11 +167,13 @@ public class US_ASCII
             int dp = 0;
             len = Math.min(len, dst.length);
             while (dp < len) {
-                byte b = src[sp++];
-                if (b >= 0)
-                    dst[dp++] = (char)b;
-                else
+                int n = decodeASCIIArray(src, sp, dst, dp, len - dp);
+                sp += n;
+                dp += n;
+                if (dp < len) {
                     dst[dp++] = repl;
+                    sp++;
+                }
             }
             return dp;
         }
@@ -180,15 +211,14 @@ public class US_ASCII
             dp = (dp <= dl ? dp : dl);
 
             try {
-                while (sp < sl) {
+                int n = encodeASCIIArray(sa, sp, da, dp,
+                                         Math.min(sl - sp, dl - dp));
+                sp += n;
+                dp += n;
+                if (sp < sl) {
                     char c = sa[sp];
-                    if (c < 0x80) {
-                        if (dp >= dl)
-                            return CoderResult.OVERFLOW;
-                        da[dp] = (byte)c;
-                        sp++; dp++;
-                        continue;
-                    }
+                    if (c < 0x80)
+                        return CoderResult.OVERFLOW;
                     if (sgp.parse(c, sa, sp, sl) < 0)
                         return sgp.error();
                     return sgp.unmappableResult();
@@ -240,22 +270,25 @@ public class US_ASCII
 
         public int encode(char[] src, int sp, int len, byte[] dst) {
             int dp = 0;
-            int sl = sp + Math.min(len, dst.length);
+            int slen = Math.min(len, dst.length);
+            int sl = sp + slen;
             while (sp < sl) {
-                char c = src[sp++];
-                if (c < 0x80) {
-                    dst[dp++] = (byte)c;
-                    continue;
-                }
-                if (Character.isHighSurrogate(c) && sp < sl &&
-                    Character.isLowSurrogate(src[sp])) {
-                    if (len > dst.length) {
-                        sl++;
-                        len--;
+                int ret = encodeASCIIArray(src, sp, dst, dp, slen);
+                sp = sp + ret;
+                dp = dp + ret;
+                if (ret != slen) {
+                    char c = src[sp++];
+                    if (Character.isHighSurrogate(c) && sp < sl &&
+                        Character.isLowSurrogate(src[sp])) {
+                        if (len > dst.length) {
+                            sl++;
+                            len--;
+                        }
+                        sp++;
                     }
-                    sp++;
+                    dst[dp++] = repl;
+                    slen = Math.min((sl - sp), (dst.length - dp));
                 }
-                dst[dp++] = repl;
             }
             return dp;
         }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2000, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2000, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -54,7 +54,7 @@ import java.nio.charset.CodingErrorAction;
  *
  */
 
-class UTF_8 extends Unicode
+public class UTF_8 extends Unicode
 {
     public UTF_8() {
         super("UTF-8", StandardCharsets.aliases_UTF_8);
@@ -221,19 +221,22 @@ class UTF_8 extends Unicode
             char[] da = dst.array();
             int dp = dst.arrayOffset() + dst.position();
             int dl = dst.arrayOffset() + dst.limit();
-            int dlASCII = dp + Math.min(sl - sp, dl - dp);
 
-            // ASCII only loop
-            while (dp < dlASCII && sa[sp] >= 0)
-                da[dp++] = (char) sa[sp++];
+            // ASCII only prefix
+            int n = US_ASCII.decodeASCIIArray(sa, sp, da, dp,
+                                              Math.min(sl - sp, dl - dp));
+            sp += n;
+            dp += n;
             while (sp < sl) {
                 int b1 = sa[sp];
                 if (b1 >= 0) {
-                    // 1 byte, 7 bits: 0xxxxxxx
+                    // 1 byte, 7 bits: 0xxxxxxx, and the ASCII run after it
                     if (dp >= dl)
                         return xflow(src, sp, sl, dst, dp, 1);
-                    da[dp++] = (char) b1;
-                    sp++;
+                    n = US_ASCII.decodeASCIIArray(sa, sp, da, dp,
+                                                  Math.min(sl - sp, dl - dp));
+                    sp += n;
+                    dp += n;
                 } else if ((b1 >> 5) == -2 && (b1 & 0x1e) != 0) {
                     // 2 bytes, 11 bits: 110xxxxx 10xxxxxx
                     //                   [C2..DF] [80..BF]
@@ -417,18 +420,23 @@ class UTF_8 extends Unicode
         public int decode(byte[] sa, int sp, int len, char[] da) {
             final int sl = sp + len;
             int dp = 0;
-            int dlASCII = Math.min(len, da.length);
             ByteBuffer bb = null;  // only necessary if malformed
 
-            // ASCII only optimized loop
-            while (dp < dlASCII && sa[sp] >= 0)
-                da[dp++] = (char) sa[sp++];
+            // ASCII only optimized prefix
+            int n = US_ASCII.decodeASCIIArray(sa, sp, da, dp,
+                                              Math.min(len, da.length));
+            sp += n;
+            dp += n;
 
             while (sp < sl) {
                 int b1 = sa[sp++];
                 if (b1 >= 0) {
-                    // 1 byte, 7 bits: 0xxxxxxx
+                    // 1 byte, 7 bits: 0xxxxxxx, and the ASCII run after it
                     da[dp++] = (char) b1;
+                    n = US_ASCII.decodeASCIIArray(sa, sp, da, dp,
+                                                  Math.min(sl - sp, da.length - dp));
+                    sp += n;
+                    dp += n;
                 } else if ((b1 >> 5) == -2 && (b1 & 0x1e) != 0) {
                     // 2 bytes, 11 bits: 110xxxxx 10xxxxxx
                     if (sp < sl) {
@@ -578,11 +586,12 @@ class UTF_8 extends Unicode
             byte[] da = dst.array();
             int dp = dst.arrayOffset() + dst.position();
             int dl = dst.arrayOffset() + dst.limit();
-            int dlASCII = dp + Math.min(sl - sp, dl - dp);
 
-            // ASCII only loop
-            while (dp < dlASCII && sa[sp] < '\u0080')
-                da[dp++] = (byte) sa[sp++];
+            // ASCII only prefix
+            int n = US_ASCII.encodeASCIIArray(sa, sp, da, dp,
+                                              Math.min(sl - sp, dl - dp));
+            sp += n;
+            dp += n;
             while (sp < sl) {
                 char c = sa[sp];
                 if (c < 0x80) {
@@ -692,11 +701,12 @@ class UTF_8 extends Unicode
         public int encode(char[] sa, int sp, int len, byte[] da) {
             int sl = sp + len;
             int dp = 0;
-            int dlASCII = dp + Math.min(len, da.length);
 
-            // ASCII only optimized loop
-            while (dp < dlASCII && sa[sp] < '\u0080')
-                da[dp++] = (byte) sa[sp++];
+            // ASCII only optimized prefix
+            int n = US_ASCII.encodeASCIIArray(sa, sp, da, dp,
+                                              Math.min(len, da.length));
+            sp += n;
+            dp += n;
 
             while (sp < sl) {
                 char c = sa[sp++];
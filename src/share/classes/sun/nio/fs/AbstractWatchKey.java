@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2008, 2011, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -101,8 +101,16 @@ abstract class AbstractWatchKey implements WatchKey {
     /**
      * Adds the event to this key and signals it.
      */
-    @SuppressWarnings("unchecked")
     final void signalEvent(WatchEvent.Kind<?> kind, Object context) {
+        signalEvent(kind, context, 1);
+    }
+
+    /**
+     * Adds an event that has occurred {@code count} times to this key and
+     * signals it.
+     */
+    @SuppressWarnings("unchecked")
+    final void signalEvent(WatchEvent.Kind<?> kind, Object context, int count) {
         boolean isModify = (kind == StandardWatchEventKinds.ENTRY_MODIFY);
         synchronized (this) {
             int size = events.size();
@@ -114,7 +122,7 @@ abstract class AbstractWatchKey implements WatchKey {
                     ((kind == prev.kind() &&
                      Objects.equals(context, prev.context()))))
                 {
-                    ((Event<?>)prev).increment();
+                    ((Event<?>)prev).increment(count);
                     return;
                 }
 
@@ -125,7 +133,7 @@ abstract class AbstractWatchKey implements WatchKey {
                         WatchEvent<?> ev = lastModifyEvents.get(context);
                         if (ev != null) {
                             assert ev.kind() == StandardWatchEventKinds.ENTRY_MODIFY;
-                            ((Event<?>)ev).increment();
+                            ((Event<?>)ev).increment(count);
                             return;
                         }
                     } else {
@@ -147,6 +155,8 @@ abstract class AbstractWatchKey implements WatchKey {
             // non-repeated event
             Event<Object> ev =
                 new Event<Object>((WatchEvent.Kind<Object>)kind, context);
+            if (kind != StandardWatchEventKinds.OVERFLOW)
+                ev.increment(count - 1);
             if (isModify) {
                 lastModifyEvents.put(context, ev);
             } else if (kind == StandardWatchEventKinds.OVERFLOW) {
@@ -216,8 +226,8 @@ abstract class AbstractWatchKey implements WatchKey {
         }
 
         // for repeated events
-        void increment() {
-            count++;
+        void increment(int n) {
+            count += n;
         }
     }
 }
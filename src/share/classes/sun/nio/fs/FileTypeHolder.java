@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.nio.fs;
+
+/**
+ * Implemented by objects that may know the type of a file without reading
+ * its attributes, for example a directory entry for which the file system
+ * returned the file type.
+ */
+
+public interface FileTypeHolder {
+    static final int TYPE_UNKNOWN        = 0;
+    static final int TYPE_DIRECTORY      = 1;
+    static final int TYPE_REGULAR_FILE   = 2;
+    static final int TYPE_SYMBOLIC_LINK  = 3;
+    static final int TYPE_OTHER          = 4;
+
+    /**
+     * Returns the type of the file, one of the TYPE_* values, or TYPE_UNKNOWN
+     * if not known. If the file is a symbolic link then the type is
+     * TYPE_SYMBOLIC_LINK and not the type of the final target of the link.
+     */
+    int fileType();
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.rmi.transport.tcp;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CallStatistics counts the calls made to or served on one endpoint,
+ * and the time they took.  Outbound calls are timed from when the
+ * connection is obtained from the channel until it is freed, and
+ * inbound calls while they are serviced.  The statistics are reported
+ * by the TCPTransportMXBean, keyed by "host:port".
+ */
+public final class CallStatistics {
+
+    private static final ConcurrentHashMap<String,CallStatistics> outbound =
+        new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String,CallStatistics> inbound =
+        new ConcurrentHashMap<>();
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private CallStatistics() { }
+
+    /**
+     * Returns the statistics for calls to the given remote endpoint.
+     */
+    static CallStatistics outbound(TCPEndpoint ep) {
+        return get(outbound, ep);
+    }
+
+    /**
+     * Returns the statistics for calls served on the given local endpoint.
+     */
+    static CallStatistics inbound(TCPEndpoint ep) {
+        return get(inbound, ep);
+    }
+
+    private static CallStatistics get(
+        ConcurrentHashMap<String,CallStatistics> map, TCPEndpoint ep)
+    {
+        String key = ep.getHost() + ":" + ep.getPort();
+        CallStatistics stats = map.get(key);
+        if (stats == null) {
+            CallStatistics newStats = new CallStatistics();
+            stats = map.putIfAbsent(key, newStats);
+            if (stats == null) {
+                stats = newStats;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Records a call which took the given number of nanoseconds.
+     */
+    void record(long elapsed) {
+        count.increment();
+        nanos.add(elapsed);
+        long max;
+        while (elapsed > (max = maxNanos.get())) {
+            if (maxNanos.compareAndSet(max, elapsed)) {
+                break;
+            }
+        }
+    }
+
+    private static final int COUNT = 0;
+    private static final int TIME = 1;
+    private static final int MAX_TIME = 2;
+
+    /* returns the given value, in milliseconds for times, per endpoint */
+    private static Map<String,Long> snapshot(
+        ConcurrentHashMap<String,CallStatistics> map, int what)
+    {
+        Map<String,Long> result = new TreeMap<>();
+        for (Map.Entry<String,CallStatistics> e : map.entrySet()) {
+            CallStatistics s = e.getValue();
+            long value;
+            switch (what) {
+            case COUNT:
+                value = s.count.sum();
+                break;
+            case TIME:
+                value = s.nanos.sum() / 1000000;
+                break;
+            default:
+                value = s.maxNanos.get() / 1000000;
+                break;
+            }
+            result.put(e.getKey(), value);
+        }
+        return result;
+    }
+
+    public static Map<String,Long> getOutboundCallCounts() {
+        return snapshot(outbound, COUNT);
+    }
+
+    public static Map<String,Long> getOutboundCallTimes() {
+        return snapshot(outbound, TIME);
+    }
+
+    public static Map<String,Long> getOutboundMaxCallTimes() {
+        return snapshot(outbound, MAX_TIME);
+    }
+
+    public static Map<String,Long> getInboundCallCounts() {
+        return snapshot(inbound, COUNT);
+    }
+
+    public static Map<String,Long> getInboundCallTimes() {
+        return snapshot(inbound, TIME);
+    }
+
+    public static Map<String,Long> getInboundMaxCallTimes() {
+        return snapshot(inbound, MAX_TIME);
+    }
+}
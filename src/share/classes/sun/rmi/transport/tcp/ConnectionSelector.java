@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.rmi.transport.tcp;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import sun.rmi.runtime.Log;
+
+/**
+ * ConnectionSelector holds accepted connections while they wait for
+ * their next message, so that idle connections do not each occupy a
+ * thread.  A connection is registered together with the handler for its
+ * messages.  Once input arrives, or the connection is closed by the
+ * client, the connection is put back into blocking mode and the handler
+ * is run by the executor; it reads and services the messages as it
+ * would on a dedicated thread, then registers the connection again.
+ *
+ * Connections that stay idle for longer than the given timeout are
+ * closed, as they would be by the read timeout of a dedicated thread.
+ */
+final class ConnectionSelector implements Runnable {
+
+    /** interval at which idle connections are checked for timeout */
+    private static final long SWEEP_INTERVAL = 60000;
+
+    private final Selector selector;
+    private final Executor executor;
+    private final long idleTimeout;
+
+    /** connections to register, added by other threads */
+    private final ConcurrentLinkedQueue<Registration> pending =
+        new ConcurrentLinkedQueue<>();
+
+    /** registered connections, attached to their selection keys */
+    private static final class Registration {
+        final SocketChannel channel;
+        final Runnable handler;
+        long since;
+
+        Registration(SocketChannel channel, Runnable handler) {
+            this.channel = channel;
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * Creates a ConnectionSelector. The run() method must then be called
+     * in a thread created for it.
+     */
+    ConnectionSelector(Executor executor, long idleTimeout)
+        throws IOException
+    {
+        this.selector = Selector.open();
+        this.executor = executor;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Waits for input on the given connection, then runs the handler
+     * in the executor with the connection in blocking mode.
+     */
+    void register(SocketChannel channel, Runnable handler)
+        throws IOException
+    {
+        channel.configureBlocking(false);
+        pending.add(new Registration(channel, handler));
+        selector.wakeup();
+    }
+
+    /**
+     * Returns the number of connections waiting for input.
+     */
+    int size() {
+        return selector.keys().size() + pending.size();
+    }
+
+    public void run() {
+        long nextSweep = System.currentTimeMillis() + SWEEP_INTERVAL;
+        List<Registration> ready = new ArrayList<>();
+
+        while (true) {
+            try {
+                selector.select(SWEEP_INTERVAL);
+
+                long now = System.currentTimeMillis();
+                Registration r;
+                while ((r = pending.poll()) != null) {
+                    r.since = now;
+                    try {
+                        r.channel.register(selector, SelectionKey.OP_READ, r);
+                    } catch (ClosedChannelException e) {
+                        // closed while being handed over
+                    }
+                }
+
+                Iterator<SelectionKey> iter =
+                    selector.selectedKeys().iterator();
+                while (iter.hasNext()) {
+                    SelectionKey key = iter.next();
+                    iter.remove();
+                    key.cancel();
+                    ready.add((Registration) key.attachment());
+                }
+
+                if (idleTimeout > 0 && now >= nextSweep) {
+                    nextSweep = now + SWEEP_INTERVAL;
+                    for (SelectionKey key : selector.keys()) {
+                        Registration idle = (Registration) key.attachment();
+                        if (key.isValid() && now - idle.since >= idleTimeout) {
+                            TCPTransport.tcpLog.log(Log.BRIEF,
+                                "idle connection timed out");
+                            key.cancel();
+                            closeChannel(idle.channel);
+                        }
+                    }
+                }
+
+                if (!ready.isEmpty()) {
+                    // deregister the cancelled keys, so that the
+                    // channels can be put back into blocking mode
+                    selector.selectNow();
+                    for (Registration rr : ready) {
+                        dispatch(rr);
+                    }
+                    ready.clear();
+                }
+
+            } catch (Throwable t) {
+                try {
+                    if (TCPTransport.tcpLog.isLoggable(Level.WARNING)) {
+                        TCPTransport.tcpLog.log(Level.WARNING,
+                            "connection selector throws", t);
+                    }
+                } catch (Throwable tt) {
+                }
+                for (Registration rr : ready) {
+                    closeChannel(rr.channel);
+                }
+                ready.clear();
+                if (t instanceof Error && !(t instanceof OutOfMemoryError)) {
+                    throw (Error) t;
+                }
+            }
+        }
+    }
+
+    private void dispatch(final Registration r) {
+        try {
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        r.channel.configureBlocking(true);
+                    } catch (IOException e) {
+                        closeChannel(r.channel);
+                        return;
+                    }
+                    r.handler.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            TCPTransport.tcpLog.log(Log.BRIEF,
+                "rejected message on " + r.channel);
+            closeChannel(r.channel);
+        }
+    }
+
+    private static void closeChannel(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // eat exception
+        }
+    }
+}
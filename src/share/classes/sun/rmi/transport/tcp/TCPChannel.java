@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1996, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1996, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -40,6 +40,7 @@ import java.util.ListIterator;
 import java.util.WeakHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import sun.rmi.runtime.Log;
 import sun.rmi.runtime.NewThreadAction;
@@ -101,6 +102,19 @@ public class TCPChannel implements Channel {
         AccessController.doPrivileged(
             new GetIntegerAction("sun.rmi.transport.tcp.responseTimeout", 0));
 
+    /** maximum number of connections in use per endpoint */
+    private static final int maxConnectionsPerEndpoint = // default no limit
+        AccessController.doPrivileged(
+            new GetIntegerAction(
+                "sun.rmi.transport.tcp.maxConnectionsPerEndpoint", 0));
+
+    /** permits for connections in use, if limited (otherwise null) */
+    private final Semaphore permits = maxConnectionsPerEndpoint > 0 ?
+        new Semaphore(maxConnectionsPerEndpoint, true) : null;
+
+    /** latency of calls over this channel (created on demand) */
+    private volatile CallStatistics statistics = null;
+
     /** thread pool for scheduling delayed tasks */
     private static final ScheduledExecutorService scheduler =
         AccessController.doPrivileged(
@@ -161,6 +175,40 @@ public class TCPChannel implements Channel {
      * be one retrieved from a cache of idle connections.
      */
     public Connection newConnection() throws RemoteException {
+        if (permits != null) {
+            /*
+             * Wait for a connection in use to be freed, but not forever:
+             * calls that reenter this endpoint while holding connections
+             * would otherwise deadlock.
+             */
+            boolean acquired = false;
+            try {
+                acquired = permits.tryAcquire(handshakeTimeout,
+                                              TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!acquired) {
+                throw new ConnectIOException(
+                    "timed out waiting for a free connection to " + ep);
+            }
+        }
+        boolean done = false;
+        try {
+            Connection conn = newConnection0();
+            if (conn instanceof TCPConnection) {
+                ((TCPConnection) conn).setLeaseTime(System.nanoTime());
+                done = true;
+            }
+            return conn;
+        } finally {
+            if (!done && permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    private Connection newConnection0() throws RemoteException {
         TCPConnection conn;
 
         // loop until we find a free live connection (in which case
@@ -329,6 +377,21 @@ public class TCPChannel implements Channel {
     public void free(Connection conn, boolean reuse) {
         if (conn == null) return;
 
+        if (conn instanceof TCPConnection &&
+            ((TCPConnection) conn).endLease())
+        {
+            long time = System.nanoTime() -
+                ((TCPConnection) conn).getLeaseTime();
+            CallStatistics stats = statistics;
+            if (stats == null) {
+                statistics = stats = CallStatistics.outbound(ep);
+            }
+            stats.record(time);
+            if (permits != null) {
+                permits.release();
+            }
+        }
+
         if (reuse && conn.isReusable()) {
             long lastuse = System.currentTimeMillis();
             TCPConnection tcpConnection = (TCPConnection) conn;
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1996, 2001, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1996, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -44,6 +44,8 @@ public class TCPConnection implements Connection {
     private long expiration = Long.MAX_VALUE;
     private long lastuse = Long.MIN_VALUE;
     private long roundtrip = 5; // round-trip time for ping
+    private boolean leased = false;
+    private long leaseTime;     // System.nanoTime() when leased
 
     /**
      * Constructor used for creating a connection to accept call
@@ -146,6 +148,38 @@ public class TCPConnection implements Connection {
         lastuse = time;
     }
 
+    /**
+     * Marks this connection as handed out by its channel for a call,
+     * at the given System.nanoTime() value.
+     */
+    void setLeaseTime(long time)
+    {
+        leased = true;
+        leaseTime = time;
+    }
+
+    /**
+     * Marks this connection as returned to its channel.  Returns false
+     * if the connection was not handed out for a call; otherwise returns
+     * true, and the System.nanoTime() value at which it was handed out
+     * is available from getLeaseTime.
+     */
+    boolean endLease()
+    {
+        boolean wasLeased = leased;
+        leased = false;
+        return wasLeased;
+    }
+
+    /**
+     * Returns the System.nanoTime() value at which this connection was
+     * last handed out for a call.
+     */
+    long getLeaseTime()
+    {
+        return leaseTime;
+    }
+
     /**
      * Returns true if the timeout has expired on this connection;
      * otherwise returns false.
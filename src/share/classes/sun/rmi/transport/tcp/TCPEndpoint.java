@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1996, 2012, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1996, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -30,8 +30,10 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
 import java.rmi.ConnectIOException;
 import java.rmi.RemoteException;
 import java.rmi.server.RMIClientSocketFactory;
@@ -659,11 +661,25 @@ public class TCPEndpoint implements Endpoint {
                 "creating server socket on " + this);
         }
 
-        RMIServerSocketFactory serverFactory = ssf;
-        if (serverFactory == null) {
-            serverFactory = chooseFactory();
+        ServerSocket server;
+        if (ssf == null && RMISocketFactory.getSocketFactory() == null &&
+            TCPTransport.useSelectors())
+        {
+            // accepted sockets need channels to wait for input on selectors
+            server = ServerSocketChannel.open().socket();
+            try {
+                server.bind(new InetSocketAddress(listenPort), 50);
+            } catch (IOException e) {
+                server.close();
+                throw e;
+            }
+        } else {
+            RMIServerSocketFactory serverFactory = ssf;
+            if (serverFactory == null) {
+                serverFactory = chooseFactory();
+            }
+            server = serverFactory.createServerSocket(listenPort);
         }
-        ServerSocket server = serverFactory.createServerSocket(listenPort);
 
         // if we listened on an anonymous port, set the default port
         // (for this socket factory)
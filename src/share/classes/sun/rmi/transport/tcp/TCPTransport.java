@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1996, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1996, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -55,7 +55,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
 import java.util.logging.Level;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
@@ -92,11 +92,16 @@ public class TCPTransport extends Transport {
         LogStream.parseLevel(AccessController.doPrivileged(
             new GetPropertyAction("sun.rmi.transport.tcp.logLevel"))));
 
+    /** number of threads waiting for input on idle accepted connections */
+    private static final int selectorCount =            // default none
+        AccessController.doPrivileged(
+            new GetIntegerAction("sun.rmi.transport.tcp.selectors", 0));
+
     /** maximum number of connection handler threads */
     private static final int maxConnectionThreads =     // default no limit
-        AccessController.doPrivileged(
+        AccessController.doPrivileged(                  // (256 with selectors)
             new GetIntegerAction("sun.rmi.transport.tcp.maxConnectionThreads",
-                                 Integer.MAX_VALUE));
+                                 selectorCount > 0 ? 256 : Integer.MAX_VALUE));
 
     /** keep alive time for idle connection handler threads */
     private static final long threadKeepAliveTime =     // default 1 minute
@@ -105,16 +110,39 @@ public class TCPTransport extends Transport {
                               60000));
 
     /** thread pool for connection handlers */
-    private static final ExecutorService connectionThreadPool =
-        new ThreadPoolExecutor(0, maxConnectionThreads,
+    private static final ThreadPoolExecutor connectionThreadPool =
+        newConnectionThreadPool();
+
+    /**
+     * Without selectors, each connection handler occupies a thread for
+     * the lifetime of its connection, so connections are refused once
+     * maxConnectionThreads is reached.  With selectors, handlers only
+     * run while there is input, and wait in a queue for a free thread.
+     */
+    private static ThreadPoolExecutor newConnectionThreadPool() {
+        ThreadFactory factory = new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                return AccessController.doPrivileged(new NewThreadAction(
+                    runnable, "TCP Connection(idle)", true, true));
+            }
+        };
+        if (selectorCount > 0) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                maxConnectionThreads, maxConnectionThreads,
+                threadKeepAliveTime, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), factory);
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+        return new ThreadPoolExecutor(0, maxConnectionThreads,
             threadKeepAliveTime, TimeUnit.MILLISECONDS,
-            new SynchronousQueue<Runnable>(),
-            new ThreadFactory() {
-                public Thread newThread(Runnable runnable) {
-                    return AccessController.doPrivileged(new NewThreadAction(
-                        runnable, "TCP Connection(idle)", true, true));
-                }
-            });
+            new SynchronousQueue<Runnable>(), factory);
+    }
+
+    /** selectors for idle accepted connections (created on demand) */
+    private static ConnectionSelector[] selectors = null;
+    /** index of the selector for the next accepted connection */
+    private static final AtomicInteger nextSelector = new AtomicInteger(0);
 
     /** total connections handled */
     private static final AtomicInteger connectionCount = new AtomicInteger(0);
@@ -129,6 +157,8 @@ public class TCPTransport extends Transport {
     private int exportCount = 0;
     /** server socket for this transport */
     private ServerSocket server = null;
+    /** latency of calls served by this transport (created on demand) */
+    private volatile CallStatistics statistics = null;
     /** table mapping endpoints to channels */
     private final Map<TCPEndpoint,Reference<TCPChannel>> channelTable =
         new WeakHashMap<>();
@@ -147,6 +177,61 @@ public class TCPTransport extends Transport {
             new GetIntegerAction("sun.rmi.transport.tcp.readTimeout",
                                  2 * 3600 * 1000));
 
+    /**
+     * Returns the selector for the next accepted connection, starting
+     * the selector threads if necessary, or null if accepted connections
+     * are not to wait for input on selectors.
+     */
+    private static ConnectionSelector nextSelector() throws IOException {
+        if (selectorCount <= 0) {
+            return null;
+        }
+        synchronized (TCPTransport.class) {
+            if (selectors == null) {
+                ConnectionSelector[] s = new ConnectionSelector[selectorCount];
+                for (int i = 0; i < s.length; i++) {
+                    s[i] = new ConnectionSelector(connectionThreadPool,
+                                                  connectionReadTimeout);
+                }
+                for (int i = 0; i < s.length; i++) {
+                    AccessController.doPrivileged(
+                        new NewThreadAction(s[i], "RMI TCP Selector-" + i,
+                                            true)).start();
+                }
+                selectors = s;
+            }
+        }
+        int i = nextSelector.getAndIncrement() & Integer.MAX_VALUE;
+        return selectors[i % selectors.length];
+    }
+
+    /**
+     * Returns true if accepted connections wait for input on selectors,
+     * in which case server sockets are created with channels when the
+     * default socket factory is used.
+     */
+    static boolean useSelectors() {
+        return selectorCount > 0;
+    }
+
+    /**
+     * Returns the number of accepted connections waiting for input on
+     * selectors.
+     */
+    public static int getIdleConnectionCount() {
+        ConnectionSelector[] s;
+        synchronized (TCPTransport.class) {
+            s = selectors;
+        }
+        int count = 0;
+        if (s != null) {
+            for (ConnectionSelector cs : s) {
+                count += cs.size();
+            }
+        }
+        return count;
+    }
+
     /**
      * Constructs a TCPTransport.
      */
@@ -398,11 +483,21 @@ public class TCPTransport extends Transport {
 
                     /*
                      * Execute connection handler in the thread pool,
-                     * which uses non-system threads.
+                     * which uses non-system threads, once the client
+                     * has sent its transport header.
                      */
                     try {
-                        connectionThreadPool.execute(
-                            new ConnectionHandler(socket, clientHost));
+                        ConnectionSelector selector = null;
+                        if (socket.getChannel() != null) {
+                            selector = nextSelector();
+                        }
+                        ConnectionHandler handler =
+                            new ConnectionHandler(socket, clientHost, selector);
+                        if (selector != null) {
+                            selector.register(socket.getChannel(), handler);
+                        } else {
+                            connectionThreadPool.execute(handler);
+                        }
                     } catch (RejectedExecutionException e) {
                         closeSocket(socket);
                         tcpLog.log(Log.BRIEF,
@@ -536,43 +631,9 @@ public class TCPTransport extends Transport {
         try {
             DataInputStream in = new DataInputStream(conn.getInputStream());
             do {
-                int op = in.read();     // transport op
-                if (op == -1) {
-                    if (tcpLog.isLoggable(Log.BRIEF)) {
-                        tcpLog.log(Log.BRIEF, "(port " +
-                            port + ") connection closed");
-                    }
+                if (!handleMessage(conn, in, port)) {
                     break;
                 }
-
-                if (tcpLog.isLoggable(Log.BRIEF)) {
-                    tcpLog.log(Log.BRIEF, "(port " + port +
-                        ") op = " + op);
-                }
-
-                switch (op) {
-                case TransportConstants.Call:
-                    // service incoming RMI call
-                    RemoteCall call = new StreamRemoteCall(conn);
-                    if (serviceCall(call) == false)
-                        return;
-                    break;
-
-                case TransportConstants.Ping:
-                    // send ack for ping
-                    DataOutputStream out =
-                        new DataOutputStream(conn.getOutputStream());
-                    out.writeByte(TransportConstants.PingAck);
-                    conn.releaseOutputStream();
-                    break;
-
-                case TransportConstants.DGCAck:
-                    DGCAckHandler.received(UID.read(in));
-                    break;
-
-                default:
-                    throw new IOException("unknown transport op " + op);
-                }
             } while (persistent);
 
         } catch (IOException e) {
@@ -590,6 +651,99 @@ public class TCPTransport extends Transport {
         }
     }
 
+    /**
+     * handleAvailableMessages is like handleMessages for a persistent
+     * connection, but returns once no more input is available instead of
+     * waiting for it.  If wait is true, one message is read even if that
+     * blocks.  Returns true if the connection remains open, in which case
+     * the caller must arrange to call this method again once input
+     * arrives; otherwise the connection has been closed.
+     */
+    boolean handleAvailableMessages(Connection conn, boolean wait) {
+        int port = getEndpoint().getPort();
+        boolean open = false;
+
+        try {
+            DataInputStream in = new DataInputStream(conn.getInputStream());
+            while (wait || in.available() > 0) {
+                wait = false;
+                if (!handleMessage(conn, in, port)) {
+                    return false;
+                }
+            }
+            open = true;
+            return true;
+
+        } catch (IOException e) {
+            // exception during processing causes connection to close (below)
+            if (tcpLog.isLoggable(Log.BRIEF)) {
+                tcpLog.log(Log.BRIEF, "(port " + port +
+                    ") exception: ", e);
+            }
+            return false;
+        } finally {
+            if (!open) {
+                try {
+                    conn.close();
+                } catch (IOException ex) {
+                    // eat exception
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads and handles one message.  Returns false if the connection
+     * has been closed by the client or can not be used any further.
+     */
+    private boolean handleMessage(Connection conn, DataInputStream in,
+                                  int port)
+        throws IOException
+    {
+        int op = in.read();     // transport op
+        if (op == -1) {
+            if (tcpLog.isLoggable(Log.BRIEF)) {
+                tcpLog.log(Log.BRIEF, "(port " +
+                    port + ") connection closed");
+            }
+            return false;
+        }
+
+        if (tcpLog.isLoggable(Log.BRIEF)) {
+            tcpLog.log(Log.BRIEF, "(port " + port +
+                ") op = " + op);
+        }
+
+        switch (op) {
+        case TransportConstants.Call:
+            // service incoming RMI call
+            long start = System.nanoTime();
+            RemoteCall call = new StreamRemoteCall(conn);
+            boolean ok = serviceCall(call);
+            CallStatistics stats = statistics;
+            if (stats == null) {
+                statistics = stats = CallStatistics.inbound(getEndpoint());
+            }
+            stats.record(System.nanoTime() - start);
+            return ok;
+
+        case TransportConstants.Ping:
+            // send ack for ping
+            DataOutputStream out =
+                new DataOutputStream(conn.getOutputStream());
+            out.writeByte(TransportConstants.PingAck);
+            conn.releaseOutputStream();
+            return true;
+
+        case TransportConstants.DGCAck:
+            DGCAckHandler.received(UID.read(in));
+            return true;
+
+        default:
+            throw new IOException("unknown transport op " + op);
+        }
+    }
+
     /**
      * Returns the client host for the current thread's connection.  Throws
      * ServerNotActiveException if no connection is active for this thread.
@@ -623,9 +777,17 @@ public class TCPTransport extends Transport {
         private Socket socket;
         private String remoteHost;
 
-        ConnectionHandler(Socket socket, String remoteHost) {
+        /** selector on which the connection waits for input, or null */
+        private final ConnectionSelector selector;
+        /** connection after the handshake, if it waits on the selector */
+        private TCPConnection selectableConn = null;
+
+        ConnectionHandler(Socket socket, String remoteHost,
+                          ConnectionSelector selector)
+        {
             this.socket = socket;
             this.remoteHost = remoteHost;
+            this.selector = selector;
         }
 
         String getClientHost() {
@@ -668,12 +830,39 @@ public class TCPTransport extends Transport {
                 t.setName("RMI TCP Connection(" +
                           connectionCount.incrementAndGet() +
                           ")-" + remoteHost);
-                run0();
+                if (selectableConn == null) {
+                    run0();
+                } else {
+                    threadConnectionHandler.set(this);
+                    handleInput(true);
+                }
             } finally {
+                if (selector != null) {
+                    threadConnectionHandler.remove();
+                }
                 t.setName(name);
             }
         }
 
+        /**
+         * Handles the messages available on a selectable connection,
+         * then registers the connection with its selector to wait for
+         * the next message.  Returns true if the connection remains open.
+         */
+        private boolean handleInput(boolean wait) {
+            if (!handleAvailableMessages(selectableConn, wait)) {
+                return false;
+            }
+            try {
+                selector.register(socket.getChannel(), this);
+                return true;
+            } catch (IOException e) {
+                tcpLog.log(Log.BRIEF, "terminated with exception:", e);
+                closeSocket(socket);
+                return false;
+            }
+        }
+
         private void run0() {
             TCPEndpoint endpoint = getEndpoint();
             int port = endpoint.getPort();
@@ -696,6 +885,7 @@ public class TCPTransport extends Transport {
                 // too bad, continue anyway
             }
 
+            boolean waiting = false;
             try {
                 InputStream sockIn = socket.getInputStream();
                 InputStream bufIn = sockIn.markSupported()
@@ -809,7 +999,13 @@ public class TCPTransport extends Transport {
                     conn = new TCPConnection(ch, socket, bufIn, bufOut);
 
                     // read input messages
-                    handleMessages(conn, true);
+                    if (selector != null && socket.getChannel() != null) {
+                        // wait for them without holding this thread
+                        selectableConn = conn;
+                        waiting = handleInput(false);
+                    } else {
+                        handleMessages(conn, true);
+                    }
                     break;
 
                 case TransportConstants.MultiplexProtocol:
@@ -864,7 +1060,9 @@ public class TCPTransport extends Transport {
                 // socket in unknown state: destroy socket
                 tcpLog.log(Log.BRIEF, "terminated with exception:", e);
             } finally {
-                closeSocket(socket);
+                if (!waiting) {
+                    closeSocket(socket);
+                }
             }
         }
     }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.rmi.transport.tcp;
+
+import java.lang.management.PlatformManagedObject;
+import java.util.Map;
+
+/**
+ * The management interface for the JRMP transport of RMI.
+ *
+ * <p> The {@code ObjectName} for uniquely identifying the MXBean within
+ * an MBeanServer is {@code sun.rmi:type=TCPTransport}.
+ *
+ * <p> Call statistics are kept per endpoint, keyed by "host:port".
+ * Outbound calls are made by this VM to the remote endpoint, and timed
+ * from when a connection is obtained for the call until it is released.
+ * Inbound calls are made to objects exported on the local endpoint, and
+ * timed while they are serviced.
+ */
+public interface TCPTransportMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns the number of accepted connections waiting for their next
+     * call without a thread, when
+     * {@code sun.rmi.transport.tcp.selectors} is set.
+     *
+     * @return the number of idle accepted connections
+     */
+    int getIdleConnectionCount();
+
+    /**
+     * Returns the number of calls made to each remote endpoint.
+     *
+     * @return the number of calls, per endpoint
+     */
+    Map<String,Long> getOutboundCallCounts();
+
+    /**
+     * Returns the total time taken by the calls made to each remote
+     * endpoint.
+     *
+     * @return the total time in milliseconds, per endpoint
+     */
+    Map<String,Long> getOutboundCallTimes();
+
+    /**
+     * Returns the longest time taken by a call made to each remote
+     * endpoint.
+     *
+     * @return the maximum time in milliseconds, per endpoint
+     */
+    Map<String,Long> getOutboundMaxCallTimes();
+
+    /**
+     * Returns the number of calls served on each local endpoint.
+     *
+     * @return the number of calls, per endpoint
+     */
+    Map<String,Long> getInboundCallCounts();
+
+    /**
+     * Returns the total time taken to serve the calls on each local
+     * endpoint.
+     *
+     * @return the total time in milliseconds, per endpoint
+     */
+    Map<String,Long> getInboundCallTimes();
+
+    /**
+     * Returns the longest time taken to serve a call on each local
+     * endpoint.
+     *
+     * @return the maximum time in milliseconds, per endpoint
+     */
+    Map<String,Long> getInboundMaxCallTimes();
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.security.provider;
+
+/**
+ * The state and the common steps of the deterministic random bit
+ * generators of NIST SP 800-90A Rev. 1: instantiation, reseeding, and the
+ * generation of random bytes in requests of at most 2^19 bits, with
+ * prediction resistance and a reseed interval.
+ *
+ * <p>An instance is not thread-safe.  The DRBG SecureRandom gives every
+ * thread an instance of its own, seeded by a shared instance which the
+ * threads lock while taking entropy input from it.
+ *
+ * @see DRBG
+ */
+abstract class AbstractDrbg {
+
+    // max_number_of_bits_per_request of all the mechanisms, in bytes
+    static final int MAX_REQUEST = 1 << 16;
+
+    // the SP 800-90A limit of the reseed interval
+    static final long MAX_RESEED_INTERVAL = 1L << 48;
+
+    // the security strength of the instance, in bits
+    final int securityStrength;
+
+    private final boolean predictionResistance;
+    private final long reseedInterval;
+
+    // the number of requests since instantiation or the last reseed,
+    // plus 1, as used by Hash_DRBG
+    long reseedCounter;
+
+    // the DRBG that supplies the entropy input and nonce, or null to take
+    // them from the entropy source of the SUN provider
+    private AbstractDrbg seeder;
+
+    AbstractDrbg(int securityStrength, boolean predictionResistance,
+            long reseedInterval) {
+        this.securityStrength = securityStrength;
+        this.predictionResistance = predictionResistance;
+        this.reseedInterval = reseedInterval;
+    }
+
+    /**
+     * Takes the entropy input and nonce of this DRBG from the given DRBG,
+     * which must have at least the security strength of this one, instead
+     * of the entropy source.  Must be called before instantiation.
+     */
+    final void setSeeder(AbstractDrbg seeder) {
+        this.seeder = seeder;
+    }
+
+    /**
+     * Instantiates the DRBG with entropy input and a nonce from the
+     * entropy source, and the given personalization string.
+     */
+    final void instantiate(byte[] personalizationString) {
+        byte[] entropyInput = getEntropyInput(entropyLength());
+        int nonceLength = nonceLength();
+        byte[] nonce = nonceLength == 0 ? null : getEntropyInput(nonceLength);
+        instantiateAlgorithm(entropyInput, nonce, personalizationString);
+        reseedCounter = 1;
+    }
+
+    /**
+     * Reseeds the DRBG with new entropy input from the entropy source, and
+     * the optional additional input.
+     */
+    final void reseed(byte[] additionalInput) {
+        byte[] entropyInput = getEntropyInput(entropyLength());
+        reseedAlgorithm(entropyInput, additionalInput);
+        reseedCounter = 1;
+    }
+
+    /**
+     * Fills result with random bytes, in as many requests as needed.  The
+     * optional additional input goes into the first request.  The DRBG is
+     * reseeded before each request if prediction resistance is enabled,
+     * and before the first request once the reseed interval has passed.
+     */
+    final void generate(byte[] result, byte[] additionalInput) {
+        for (int offset = 0; offset < result.length; offset += MAX_REQUEST) {
+            if (predictionResistance || reseedCounter > reseedInterval) {
+                reseed(additionalInput);
+                additionalInput = null;
+            }
+            int len = Math.min(MAX_REQUEST, result.length - offset);
+            generateAlgorithm(result, offset, len, additionalInput);
+            additionalInput = null;
+            reseedCounter++;
+        }
+    }
+
+    /**
+     * Returns the number of bytes of entropy input used to instantiate
+     * and reseed, one byte per bit of entropy.
+     */
+    int entropyLength() {
+        return securityStrength / 8;
+    }
+
+    /**
+     * Returns the number of bytes of the nonce taken from the entropy
+     * source at instantiation, half the security strength, or 0 if the
+     * mechanism uses no nonce.
+     */
+    int nonceLength() {
+        return securityStrength / 16;
+    }
+
+    /**
+     * Returns entropy input from the seeder, or from the entropy source of
+     * the SUN provider if there is none.
+     */
+    byte[] getEntropyInput(int numBytes) {
+        byte[] b = new byte[numBytes];
+        if (seeder != null) {
+            synchronized (seeder) {
+                seeder.generate(b, null);
+            }
+        } else {
+            SeedGenerator.generateSeed(b);
+        }
+        return b;
+    }
+
+    abstract void instantiateAlgorithm(byte[] entropyInput, byte[] nonce,
+            byte[] personalizationString);
+
+    abstract void reseedAlgorithm(byte[] entropyInput,
+            byte[] additionalInput);
+
+    abstract void generateAlgorithm(byte[] result, int offset, int len,
+            byte[] additionalInput);
+
+    /**
+     * Returns the concatenation of the non-null arrays.
+     */
+    static byte[] concat(byte[]... inputs) {
+        int len = 0;
+        for (byte[] b : inputs) {
+            if (b != null) {
+                len += b.length;
+            }
+        }
+        byte[] result = new byte[len];
+        int pos = 0;
+        for (byte[] b : inputs) {
+            if (b != null) {
+                System.arraycopy(b, 0, result, pos, b.length);
+                pos += b.length;
+            }
+        }
+        return result;
+    }
+
+    static boolean isEmpty(byte[] b) {
+        return b == null || b.length == 0;
+    }
+}
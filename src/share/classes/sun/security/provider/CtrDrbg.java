@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.security.provider;
+
+import java.security.GeneralSecurityException;
+import java.security.ProviderException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * CTR_DRBG of NIST SP 800-90A Rev. 1, section 10.2.1, over AES-128,
+ * AES-192 or AES-256, with or without the derivation function.
+ */
+final class CtrDrbg extends AbstractDrbg {
+
+    private static final int BLOCK_LEN = 16;
+
+    private final Cipher cipher;
+    private final boolean useDf;
+    private final int keyLen;
+    private final int seedLen;
+
+    private byte[] k;
+    private byte[] v;
+
+    CtrDrbg(String algorithm, int securityStrength, boolean useDf,
+            boolean predictionResistance, long reseedInterval) {
+        super(securityStrength, predictionResistance, reseedInterval);
+        try {
+            cipher = Cipher.getInstance("AES/ECB/NoPadding");
+        } catch (GeneralSecurityException e) {
+            throw new ProviderException(e);
+        }
+        this.useDf = useDf;
+        // "AES-128", "AES-192" or "AES-256"
+        keyLen = Integer.parseInt(algorithm.substring(4)) / 8;
+        seedLen = keyLen + BLOCK_LEN;
+    }
+
+    @Override
+    int entropyLength() {
+        return useDf ? super.entropyLength() : seedLen;
+    }
+
+    @Override
+    int nonceLength() {
+        return useDf ? super.nonceLength() : 0;
+    }
+
+    @Override
+    void instantiateAlgorithm(byte[] entropyInput, byte[] nonce,
+            byte[] personalizationString) {
+        byte[] seed = useDf
+                ? df(concat(entropyInput, nonce, personalizationString))
+                : xorPadded(entropyInput, personalizationString);
+        k = new byte[keyLen];
+        v = new byte[BLOCK_LEN];
+        update(seed);
+    }
+
+    @Override
+    void reseedAlgorithm(byte[] entropyInput, byte[] additionalInput) {
+        byte[] seed = useDf
+                ? df(concat(entropyInput, additionalInput))
+                : xorPadded(entropyInput, additionalInput);
+        update(seed);
+    }
+
+    @Override
+    void generateAlgorithm(byte[] result, int offset, int len,
+            byte[] additionalInput) {
+        byte[] additional;
+        if (isEmpty(additionalInput)) {
+            additional = new byte[seedLen];
+        } else {
+            additional = useDf
+                    ? df(additionalInput)
+                    : xorPadded(new byte[seedLen], additionalInput);
+            update(additional);
+        }
+
+        // encrypt all the counter blocks of the request in one call
+        byte[] counters = new byte[roundUp(len)];
+        for (int pos = 0; pos < counters.length; pos += BLOCK_LEN) {
+            increment(v);
+            System.arraycopy(v, 0, counters, pos, BLOCK_LEN);
+        }
+        byte[] out = encrypt(k, counters);
+        System.arraycopy(out, 0, result, offset, len);
+
+        update(additional);
+    }
+
+    // CTR_DRBG_Update
+    private void update(byte[] providedData) {
+        byte[] counters = new byte[roundUp(seedLen)];
+        for (int pos = 0; pos < counters.length; pos += BLOCK_LEN) {
+            increment(v);
+            System.arraycopy(v, 0, counters, pos, BLOCK_LEN);
+        }
+        byte[] temp = encrypt(k, counters);
+        for (int i = 0; i < seedLen; i++) {
+            temp[i] ^= providedData[i];
+        }
+        k = new byte[keyLen];
+        System.arraycopy(temp, 0, k, 0, keyLen);
+        v = new byte[BLOCK_LEN];
+        System.arraycopy(temp, keyLen, v, 0, BLOCK_LEN);
+    }
+
+    /**
+     * Block_Cipher_df, returning seedlen bytes.
+     */
+    private byte[] df(byte[] input) {
+        // S = L || N || input || 0x80, padded with zeros to the block length
+        int sLen = 4 + 4 + input.length + 1;
+        byte[] s = new byte[roundUp(sLen)];
+        putInt(s, 0, input.length);
+        putInt(s, 4, seedLen);
+        System.arraycopy(input, 0, s, 8, input.length);
+        s[8 + input.length] = (byte)0x80;
+
+        byte[] key = new byte[keyLen];
+        for (int i = 0; i < keyLen; i++) {
+            key[i] = (byte)i;
+        }
+        byte[] temp = new byte[roundUp(seedLen)];
+        byte[] iv = new byte[BLOCK_LEN];
+        for (int i = 0, pos = 0; pos < temp.length; i++, pos += BLOCK_LEN) {
+            putInt(iv, 0, i);
+            byte[] bcc = bcc(key, iv, s);
+            System.arraycopy(bcc, 0, temp, pos, BLOCK_LEN);
+        }
+
+        System.arraycopy(temp, 0, key, 0, keyLen);
+        byte[] x = new byte[BLOCK_LEN];
+        System.arraycopy(temp, keyLen, x, 0, BLOCK_LEN);
+        byte[] result = new byte[seedLen];
+        init(key);
+        for (int pos = 0; pos < seedLen; pos += BLOCK_LEN) {
+            x = doFinal(x);
+            System.arraycopy(x, 0, result, pos,
+                    Math.min(BLOCK_LEN, seedLen - pos));
+        }
+        return result;
+    }
+
+    // BCC(key, iv || s), with iv a single block
+    private byte[] bcc(byte[] key, byte[] iv, byte[] s) {
+        init(key);
+        byte[] chain = doFinal(iv);
+        byte[] block = new byte[BLOCK_LEN];
+        for (int pos = 0; pos < s.length; pos += BLOCK_LEN) {
+            for (int i = 0; i < BLOCK_LEN; i++) {
+                block[i] = (byte)(chain[i] ^ s[pos + i]);
+            }
+            chain = doFinal(block);
+        }
+        return chain;
+    }
+
+    private byte[] encrypt(byte[] key, byte[] data) {
+        init(key);
+        return doFinal(data);
+    }
+
+    private void init(byte[] key) {
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"));
+        } catch (GeneralSecurityException e) {
+            throw new ProviderException(e);
+        }
+    }
+
+    private byte[] doFinal(byte[] data) {
+        try {
+            return cipher.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new ProviderException(e);
+        }
+    }
+
+    /**
+     * Returns seed XOR (input padded with zeros to seedlen bytes).  The
+     * no_df mechanism takes inputs of at most seedlen bytes.
+     */
+    private byte[] xorPadded(byte[] seed, byte[] input) {
+        byte[] result = seed.clone();
+        if (input != null) {
+            if (input.length > seedLen) {
+                throw new IllegalArgumentException(
+                        "Input longer than " + seedLen + " bytes");
+            }
+            for (int i = 0; i < input.length; i++) {
+                result[i] ^= input[i];
+            }
+        }
+        return result;
+    }
+
+    private static int roundUp(int len) {
+        return (len + BLOCK_LEN - 1) / BLOCK_LEN * BLOCK_LEN;
+    }
+
+    private static void increment(byte[] b) {
+        for (int i = b.length - 1; i >= 0 && ++b[i] == 0; i--);
+    }
+
+    private static void putInt(byte[] b, int off, int n) {
+        b[off] = (byte)(n >> 24);
+        b[off + 1] = (byte)(n >> 16);
+        b[off + 2] = (byte)(n >> 8);
+        b[off + 3] = (byte)n;
+    }
+}
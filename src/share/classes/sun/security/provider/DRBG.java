@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.security.provider;
+
+import java.security.AccessController;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivilegedAction;
+import java.security.ProviderException;
+import java.security.Security;
+import java.security.SecureRandomSpi;
+import java.util.Locale;
+
+/**
+ * A SecureRandom implementation based on the deterministic random bit
+ * generators of NIST SP 800-90A Rev. 1: Hash_DRBG, HMAC_DRBG and CTR_DRBG.
+ *
+ * <p>The mechanism is chosen by the "securerandom.drbg.config" security
+ * property, a comma-separated list of any of
+ * <ul>
+ * <li>the mechanism: Hash_DRBG (default), HMAC_DRBG or CTR_DRBG,
+ * <li>the algorithm: SHA-224, SHA-256 (default for Hash_DRBG and
+ *     HMAC_DRBG), SHA-384 or SHA-512, or AES-128 (default for CTR_DRBG),
+ *     AES-192 or AES-256,
+ * <li>the security strength: 112, 128 (default), 192 or 256,
+ * <li>the capability: none or reseed_only (default), which reseed after
+ *     the reseed interval, or pr_and_reseed, which reseeds for every
+ *     request to provide prediction resistance,
+ * <li>for CTR_DRBG, use_df (default) or no_df.
+ * </ul>
+ * The "securerandom.drbg.reseedInterval" security property is the number
+ * of generate requests between reseeds, 1048576 by default.
+ *
+ * <p>Each thread has a DRBG instance of its own, instantiated on first use
+ * with the thread identity and the time as the personalization string.
+ * Threads therefore only contend for a lock when they instantiate or
+ * reseed, and all DRBG objects share the per-thread instances: the seed
+ * given to {@link #engineSetSeed} reseeds the instance of the calling
+ * thread, with the seed as additional input.
+ *
+ * <p>The entropy source of the SUN provider (see SeedGenerator) may block,
+ * e.g. on /dev/random.  It is only read once to instantiate a root DRBG,
+ * and by the root when it reseeds after the reseed interval; the
+ * per-thread instances take their entropy input and nonce from the root.
+ * With prediction resistance, which needs fresh entropy for every
+ * request, the per-thread instances read the entropy source directly.
+ *
+ * <p>As the state is not shared between threads, a deserialized object
+ * does not restore the output sequence of the original object.
+ */
+public final class DRBG extends SecureRandomSpi
+        implements java.io.Serializable {
+
+    private static final long serialVersionUID = 9052295643209497014L;
+
+    private static final String PROP_CONFIG = "securerandom.drbg.config";
+    private static final String PROP_RESEED_INTERVAL =
+            "securerandom.drbg.reseedInterval";
+
+    private static final long DEFAULT_RESEED_INTERVAL = 1L << 20;
+
+    private static final String mechanism;
+    private static final String algorithm;
+    private static final int strength;
+    private static final boolean predictionResistance;
+    private static final boolean useDf;
+    private static final long reseedInterval;
+
+    // the error in the configuration, thrown by the constructor
+    private static final ProviderException configError;
+
+    static {
+        String[] props = AccessController.doPrivileged(
+                new PrivilegedAction<String[]>() {
+            @Override
+            public String[] run() {
+                return new String[] {
+                    Security.getProperty(PROP_CONFIG),
+                    Security.getProperty(PROP_RESEED_INTERVAL)
+                };
+            }
+        });
+
+        String mech = "Hash_DRBG";
+        String alg = null;
+        int str = -1;
+        boolean pr = false;
+        boolean df = true;
+        long interval = DEFAULT_RESEED_INTERVAL;
+        ProviderException error = null;
+        try {
+            if (props[0] != null) {
+                for (String s : props[0].split(",")) {
+                    s = s.trim();
+                    switch (s.toLowerCase(Locale.ROOT)) {
+                    case "":
+                        break;
+                    case "hash_drbg":
+                        mech = "Hash_DRBG";
+                        break;
+                    case "hmac_drbg":
+                        mech = "HMAC_DRBG";
+                        break;
+                    case "ctr_drbg":
+                        mech = "CTR_DRBG";
+                        break;
+                    case "sha-224":
+                    case "sha-256":
+                    case "sha-384":
+                    case "sha-512":
+                    case "aes-128":
+                    case "aes-192":
+                    case "aes-256":
+                        alg = s.toUpperCase(Locale.ROOT);
+                        break;
+                    case "112":
+                    case "128":
+                    case "192":
+                    case "256":
+                        str = Integer.parseInt(s);
+                        break;
+                    case "none":
+                    case "reseed_only":
+                        pr = false;
+                        break;
+                    case "pr_and_reseed":
+                        pr = true;
+                        break;
+                    case "use_df":
+                        df = true;
+                        break;
+                    case "no_df":
+                        df = false;
+                        break;
+                    default:
+                        throw new ProviderException(
+                                "Unknown " + PROP_CONFIG + " entry: " + s);
+                    }
+                }
+            }
+
+            boolean ctr = mech.equals("CTR_DRBG");
+            if (alg == null) {
+                alg = ctr ? (str > 128 ? "AES-" + str : "AES-128")
+                          : "SHA-256";
+            } else if (ctr != alg.startsWith("AES-")) {
+                throw new ProviderException(
+                        alg + " cannot be used with " + mech);
+            }
+            // the highest strength supported by the algorithm
+            int max = alg.equals("SHA-224") ? 192
+                    : ctr ? Integer.parseInt(alg.substring(4))
+                    : 256;
+            if (str == -1) {
+                str = Math.min(128, max);
+            } else if (str > max) {
+                throw new ProviderException(
+                        alg + " does not support security strength " + str);
+            }
+
+            if (props[1] != null) {
+                try {
+                    interval = Long.parseLong(props[1].trim());
+                } catch (NumberFormatException e) {
+                    interval = -1;
+                }
+                if (interval < 1
+                        || interval > AbstractDrbg.MAX_RESEED_INTERVAL) {
+                    throw new ProviderException("Invalid "
+                            + PROP_RESEED_INTERVAL + ": " + props[1]);
+                }
+            }
+        } catch (ProviderException e) {
+            error = e;
+        }
+
+        mechanism = mech;
+        algorithm = alg;
+        strength = str;
+        predictionResistance = pr;
+        useDf = df;
+        reseedInterval = interval;
+        configError = error;
+    }
+
+    /**
+     * The DRBG that seeds the per-thread instances, instantiated from the
+     * entropy source when the first thread needs it.
+     */
+    private static class Root {
+        static final AbstractDrbg SEEDER = newDrbg(false);
+        static {
+            SEEDER.instantiate(personalizationString());
+        }
+    }
+
+    private static final ThreadLocal<AbstractDrbg> drbgs =
+            new ThreadLocal<AbstractDrbg>() {
+        @Override
+        protected AbstractDrbg initialValue() {
+            AbstractDrbg drbg = newDrbg(predictionResistance);
+            if (!predictionResistance) {
+                drbg.setSeeder(Root.SEEDER);
+            }
+            drbg.instantiate(personalizationString());
+            return drbg;
+        }
+    };
+
+    /**
+     * Returns the identity of the calling thread and the time.
+     */
+    private static byte[] personalizationString() {
+        long[] pers = {
+            Thread.currentThread().getId(),
+            System.nanoTime(),
+            System.currentTimeMillis()
+        };
+        byte[] b = new byte[pers.length * 8];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte)(pers[i / 8] >>> (56 - (i % 8) * 8));
+        }
+        return b;
+    }
+
+    /**
+     * Returns an uninstantiated DRBG of the configured mechanism.
+     */
+    static AbstractDrbg newDrbg(boolean pr) {
+        switch (mechanism) {
+        case "Hash_DRBG":
+            return new HashDrbg(algorithm, strength, pr, reseedInterval);
+        case "HMAC_DRBG":
+            return new HmacDrbg(algorithm, strength, pr, reseedInterval);
+        default:
+            return new CtrDrbg(algorithm, strength, useDf, pr,
+                    reseedInterval);
+        }
+    }
+
+    /**
+     * Returns the SecureRandom that JDK components needing a default
+     * source of randomness should use: a DRBG object of the SUN provider
+     * if "new SecureRandom()" would come from the SUN provider, and
+     * "new SecureRandom()" otherwise, so that a preferred third-party
+     * provider is still honored.
+     */
+    public static java.security.SecureRandom newSecureRandom() {
+        java.security.SecureRandom random = new java.security.SecureRandom();
+        if (configError == null && random.getProvider() != null
+                && random.getProvider().getName().equals("SUN")) {
+            try {
+                return java.security.SecureRandom.getInstance(
+                        "DRBG", random.getProvider());
+            } catch (NoSuchAlgorithmException e) {
+                // not registered in this SUN provider, use the default
+            }
+        }
+        return random;
+    }
+
+    /**
+     * Creates a DRBG object.  The per-thread instances are instantiated
+     * when a thread first uses the object.
+     *
+     * @throws ProviderException if the "securerandom.drbg.config" or
+     *         "securerandom.drbg.reseedInterval" security property is
+     *         invalid
+     */
+    public DRBG() {
+        if (configError != null) {
+            throw configError;
+        }
+    }
+
+    /**
+     * Reseeds the DRBG instance of the calling thread, with the seed as
+     * additional input.  The seed supplements, rather than replaces, the
+     * entropy of the instance.
+     *
+     * @param seed the seed.
+     */
+    @Override
+    protected void engineSetSeed(byte[] seed) {
+        drbgs.get().reseed(seed);
+    }
+
+    /**
+     * Generates random bytes with the DRBG instance of the calling thread.
+     *
+     * @param result the array to be filled in with random bytes.
+     */
+    @Override
+    protected void engineNextBytes(byte[] result) {
+        drbgs.get().generate(result, null);
+    }
+
+    /**
+     * Returns the given number of seed bytes from the entropy source,
+     * computed using the seed generation algorithm that this class uses to
+     * seed itself.
+     *
+     * @param numBytes the number of seed bytes to generate.
+     *
+     * @return the seed bytes.
+     */
+    @Override
+    protected byte[] engineGenerateSeed(int numBytes) {
+        byte[] b = new byte[numBytes];
+        SeedGenerator.generateSeed(b);
+        return b;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.security.provider;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.ProviderException;
+
+/**
+ * Hash_DRBG of NIST SP 800-90A Rev. 1, section 10.1.1, over SHA-224,
+ * SHA-256, SHA-384 or SHA-512.
+ */
+final class HashDrbg extends AbstractDrbg {
+
+    private final MessageDigest digest;
+    private final int outLen;
+    private final int seedLen;
+
+    private byte[] v;
+    private byte[] c;
+
+    HashDrbg(String algorithm, int securityStrength,
+            boolean predictionResistance, long reseedInterval) {
+        super(securityStrength, predictionResistance, reseedInterval);
+        try {
+            digest = MessageDigest.getInstance(algorithm, "SUN");
+        } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
+            throw new ProviderException(e);
+        }
+        outLen = digest.getDigestLength();
+        // 440 bits for SHA-224 and SHA-256, 888 bits for SHA-384 and SHA-512
+        seedLen = outLen <= 32 ? 55 : 111;
+    }
+
+    @Override
+    void instantiateAlgorithm(byte[] entropyInput, byte[] nonce,
+            byte[] personalizationString) {
+        byte[] seed = hashDf(seedLen,
+                entropyInput, nonce, personalizationString);
+        update(seed);
+    }
+
+    @Override
+    void reseedAlgorithm(byte[] entropyInput, byte[] additionalInput) {
+        byte[] seed = hashDf(seedLen,
+                new byte[] {1}, v, entropyInput, additionalInput);
+        update(seed);
+    }
+
+    // V = seed, C = Hash_df(0x00 || V, seedlen)
+    private void update(byte[] seed) {
+        v = seed;
+        c = hashDf(seedLen, new byte[] {0}, v);
+    }
+
+    @Override
+    void generateAlgorithm(byte[] result, int offset, int len,
+            byte[] additionalInput) {
+        if (!isEmpty(additionalInput)) {
+            digest.update((byte)2);
+            digest.update(v);
+            digest.update(additionalInput);
+            addTo(v, digest.digest());
+        }
+
+        // Hashgen, which needs a copy of V only for multiple blocks
+        byte[] data = len <= outLen ? v : v.clone();
+        for (int pos = 0; pos < len; pos += outLen) {
+            byte[] w = digest.digest(data);
+            System.arraycopy(w, 0, result, offset + pos,
+                    Math.min(outLen, len - pos));
+            if (pos + outLen < len) {
+                addTo(data, 1);
+            }
+        }
+
+        digest.update((byte)3);
+        digest.update(v);
+        byte[] h = digest.digest();
+        addTo(v, h);
+        addTo(v, c);
+        addTo(v, reseedCounter);
+    }
+
+    /**
+     * Hash_df: derives len bytes from the concatenation of the non-null
+     * inputs.
+     */
+    private byte[] hashDf(int len, byte[]... inputs) {
+        byte[] result = new byte[len];
+        int bits = len * 8;
+        byte counter = 1;
+        for (int pos = 0; pos < len; pos += outLen) {
+            digest.update(counter++);
+            digest.update((byte)(bits >> 24));
+            digest.update((byte)(bits >> 16));
+            digest.update((byte)(bits >> 8));
+            digest.update((byte)bits);
+            for (byte[] input : inputs) {
+                if (input != null) {
+                    digest.update(input);
+                }
+            }
+            byte[] w = digest.digest();
+            System.arraycopy(w, 0, result, pos, Math.min(outLen, len - pos));
+        }
+        return result;
+    }
+
+    /**
+     * Adds the big-endian number b to the big-endian number a, modulo
+     * 2^(8 * a.length).
+     */
+    private static void addTo(byte[] a, byte[] b) {
+        int carry = 0;
+        int i = a.length - 1;
+        for (int j = b.length - 1; i >= 0; i--, j--) {
+            int sum = (a[i] & 0xff) + carry + (j >= 0 ? b[j] & 0xff : 0);
+            a[i] = (byte)sum;
+            carry = sum >>> 8;
+            if (j < 0 && carry == 0) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Adds n to the big-endian number a, modulo 2^(8 * a.length).
+     */
+    private static void addTo(byte[] a, long n) {
+        long carry = n;
+        for (int i = a.length - 1; i >= 0 && carry != 0; i--) {
+            long sum = (a[i] & 0xff) + (carry & 0xff);
+            a[i] = (byte)sum;
+            carry = (carry >>> 8) + (sum >>> 8);
+        }
+    }
+}
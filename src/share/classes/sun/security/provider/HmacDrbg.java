@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.security.provider;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.ProviderException;
+import java.util.Arrays;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * HMAC_DRBG of NIST SP 800-90A Rev. 1, section 10.1.2, over HmacSHA224,
+ * HmacSHA256, HmacSHA384 or HmacSHA512.
+ */
+final class HmacDrbg extends AbstractDrbg {
+
+    private final Mac mac;
+    private final String macAlgorithm;
+    private final int outLen;
+
+    private byte[] k;
+    private byte[] v;
+
+    HmacDrbg(String algorithm, int securityStrength,
+            boolean predictionResistance, long reseedInterval) {
+        super(securityStrength, predictionResistance, reseedInterval);
+        macAlgorithm = "Hmac" + algorithm.replace("-", "");
+        try {
+            mac = Mac.getInstance(macAlgorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new ProviderException(e);
+        }
+        outLen = mac.getMacLength();
+    }
+
+    @Override
+    void instantiateAlgorithm(byte[] entropyInput, byte[] nonce,
+            byte[] personalizationString) {
+        k = new byte[outLen];
+        v = new byte[outLen];
+        Arrays.fill(v, (byte)1);
+        update(entropyInput, nonce, personalizationString);
+    }
+
+    @Override
+    void reseedAlgorithm(byte[] entropyInput, byte[] additionalInput) {
+        update(entropyInput, additionalInput);
+    }
+
+    @Override
+    void generateAlgorithm(byte[] result, int offset, int len,
+            byte[] additionalInput) {
+        if (!isEmpty(additionalInput)) {
+            update(additionalInput);
+        }
+        for (int pos = 0; pos < len; pos += outLen) {
+            v = mac.doFinal(v);
+            System.arraycopy(v, 0, result, offset + pos,
+                    Math.min(outLen, len - pos));
+        }
+        update(additionalInput);
+    }
+
+    /**
+     * HMAC_DRBG_Update with the concatenation of the non-null inputs as
+     * the provided data.
+     */
+    private void update(byte[]... inputs) {
+        boolean empty = true;
+        for (byte[] input : inputs) {
+            empty &= isEmpty(input);
+        }
+        updateKey((byte)0, inputs);
+        v = mac.doFinal(v);
+        if (!empty) {
+            updateKey((byte)1, inputs);
+            v = mac.doFinal(v);
+        }
+    }
+
+    // K = HMAC(K, V || b || provided_data), then rekeys the Mac with K
+    private void updateKey(byte b, byte[][] inputs) {
+        initMac();
+        mac.update(v);
+        mac.update(b);
+        for (byte[] input : inputs) {
+            if (input != null) {
+                mac.update(input);
+            }
+        }
+        k = mac.doFinal();
+        initMac();
+    }
+
+    private void initMac() {
+        try {
+            mac.init(new SecretKeySpec(k, macAlgorithm));
+        } catch (InvalidKeyException e) {
+            throw new ProviderException(e);
+        }
+    }
+}
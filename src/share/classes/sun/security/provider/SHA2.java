@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2002, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2002, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -42,9 +42,9 @@ import static sun.security.provider.ByteArrayAccess.*;
  */
 abstract class SHA2 extends DigestBase {
 
-    private static final int ITERATION = 64;
-    // Constants for each round
-    private static final int[] ROUND_CONSTS = {
+    static final int ITERATION = 64;
+    // Constants for each round, also used by SHA2MultiBuffer
+    static final int[] ROUND_CONSTS = {
         0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5,
         0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
         0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3,
@@ -182,10 +182,32 @@ abstract class SHA2 extends DigestBase {
         return lf_S(x, 17) ^ lf_S(x, 19) ^ lf_R(x, 10);
     }
 
+    /**
+     * Continues a hash from the given state, after the given number of
+     * bytes, a multiple of the block size, have been compressed.  Used by
+     * SHA2MultiBuffer to finish long messages one at a time.
+     */
+    void implResume(int[] savedState, long bytes) {
+        System.arraycopy(savedState, 0, state, 0, state.length);
+        bytesProcessed = bytes;
+    }
+
     /**
      * Process the current block to update the state variable state.
      */
     void implCompress(byte[] buf, int ofs) {
+        if ((ofs < 0) || ((buf.length - ofs) < 64)) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        implCompress0(buf, ofs);
+    }
+
+    /*
+     * This is an intrinsified method. The method's argument list must match
+     * the hotspot signature. The intrinsic reads the block from buf and
+     * updates state directly, and does not use W.
+     */
+    private void implCompress0(byte[] buf, int ofs) {
         b2iBig64(buf, ofs, W);
 
         // The first 16 ints are from the byte stream, compute the rest of
@@ -237,7 +259,7 @@ abstract class SHA2 extends DigestBase {
      * SHA-224 implementation class.
      */
     public static final class SHA224 extends SHA2 {
-        private static final int[] INITIAL_HASHES = {
+        static final int[] INITIAL_HASHES = {
             0xc1059ed8, 0x367cd507, 0x3070dd17, 0xf70e5939,
             0xffc00b31, 0x68581511, 0x64f98fa7, 0xbefa4fa4
         };
@@ -251,7 +273,7 @@ abstract class SHA2 extends DigestBase {
      * SHA-256 implementation class.
      */
     public static final class SHA256 extends SHA2 {
-        private static final int[] INITIAL_HASHES = {
+        static final int[] INITIAL_HASHES = {
             0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a,
             0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
         };
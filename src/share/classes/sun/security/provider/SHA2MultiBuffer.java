@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.security.provider;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.util.Arrays;
+
+import sun.security.jca.Providers;
+
+import static sun.security.provider.ByteArrayAccess.*;
+
+/**
+ * Computes the SHA-224 or SHA-256 digests of many independent messages at
+ * once, as needed to hash the blobs of a content-addressed store.
+ *
+ * <p>The messages are hashed eight at a time, one per lane.  The hash
+ * values and the message blocks of the lanes are kept word-interleaved,
+ * word i of lane l at index i * LANES + l, so that C2 can replace
+ * implCompressLanes with a stub that runs the eight compression functions
+ * in the 32-bit elements of AVX2 registers.  A lane that finishes its
+ * message takes the next one.  Once no messages are left to take and only
+ * a few lanes are still busy, their messages are finished one at a time
+ * by SHA2, which has an intrinsic of its own.
+ *
+ * <p>Other algorithms are hashed one message at a time by the
+ * MessageDigest of the SUN provider.
+ */
+public final class SHA2MultiBuffer {
+
+    // the number of messages hashed together
+    static final int LANES = 8;
+
+    // finish the messages one at a time once no more than this many
+    // lanes are busy
+    private static final int MIN_BUSY_LANES = 2;
+
+    private SHA2MultiBuffer() {
+        // empty
+    }
+
+    /**
+     * Returns the digests of the messages.
+     *
+     * @param algorithm the name of the digest algorithm, as for
+     *        MessageDigest
+     * @param messages the messages, which are not modified
+     * @return the digests, in the order of the messages
+     * @throws NoSuchAlgorithmException if the SUN provider does not
+     *         support the algorithm
+     */
+    public static byte[][] digest(String algorithm, byte[]... messages)
+            throws NoSuchAlgorithmException {
+        Provider sun = Providers.getSunProvider();
+        Provider.Service service = sun.getService("MessageDigest", algorithm);
+        if (service == null) {
+            throw new NoSuchAlgorithmException(
+                    algorithm + " MessageDigest not available");
+        }
+        String name = service.getAlgorithm();
+        byte[][] digests = new byte[messages.length][];
+        if (name.equals("SHA-256") || name.equals("SHA-224")) {
+            digestLanes(name, messages, digests);
+        } else {
+            MessageDigest md = MessageDigest.getInstance(name, sun);
+            for (int i = 0; i < messages.length; i++) {
+                digests[i] = md.digest(messages[i]);
+            }
+        }
+        return digests;
+    }
+
+    private static void digestLanes(String algorithm, byte[][] messages,
+            byte[][] digests) {
+        boolean sha224 = algorithm.equals("SHA-224");
+        int[] initialHashes = sha224 ? SHA2.SHA224.INITIAL_HASHES
+                                     : SHA2.SHA256.INITIAL_HASHES;
+        int digestLength = sha224 ? 28 : 32;
+
+        int[] states = new int[8 * LANES];
+        // the blocks, and space for the message schedules of the Java code
+        int[] words = new int[SHA2.ITERATION * LANES];
+        int[] block = new int[16];
+        byte[] lastBlocks = new byte[128];
+
+        // the message of each lane, -1 if none, and the offset of its
+        // next block in the padded message
+        int[] lane = new int[LANES];
+        int[] pos = new int[LANES];
+        Arrays.fill(lane, -1);
+
+        int next = 0;
+        int busy = 0;
+        while (true) {
+            for (int l = 0; l < LANES && next < messages.length; l++) {
+                if (lane[l] < 0) {
+                    lane[l] = next++;
+                    pos[l] = 0;
+                    for (int i = 0; i < 8; i++) {
+                        states[i * LANES + l] = initialHashes[i];
+                    }
+                    busy++;
+                }
+            }
+            if (busy == 0) {
+                break;
+            }
+            if (next == messages.length && busy <= MIN_BUSY_LANES) {
+                for (int l = 0; l < LANES; l++) {
+                    if (lane[l] >= 0) {
+                        digests[lane[l]] = finish(sha224, messages[lane[l]],
+                                pos[l], states, words, l, block, lastBlocks,
+                                digestLength);
+                    }
+                }
+                break;
+            }
+
+            for (int l = 0; l < LANES; l++) {
+                if (lane[l] >= 0) {
+                    loadBlock(messages[lane[l]], pos[l], words, l,
+                            block, lastBlocks);
+                }
+            }
+            // idle lanes compress stale words, and their results are unused
+            implCompressLanes(states, words);
+            for (int l = 0; l < LANES; l++) {
+                if (lane[l] >= 0) {
+                    pos[l] += 64;
+                    if (pos[l] == paddedLength(messages[lane[l]].length)) {
+                        digests[lane[l]] =
+                                getDigest(states, l, digestLength);
+                        lane[l] = -1;
+                        busy--;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finishes the message of lane l alone.  If the next block still
+     * starts within the message, SHA2 resumes from the state of the lane.
+     * Otherwise only the last padding block is left.
+     */
+    private static byte[] finish(boolean sha224, byte[] message, int pos,
+            int[] states, int[] words, int l, int[] block,
+            byte[] lastBlocks, int digestLength) {
+        if (pos <= message.length) {
+            int[] state = new int[8];
+            for (int i = 0; i < 8; i++) {
+                state[i] = states[i * LANES + l];
+            }
+            SHA2 sha = sha224 ? new SHA2.SHA224() : new SHA2.SHA256();
+            sha.implResume(state, pos);
+            sha.engineUpdate(message, pos, message.length - pos);
+            return sha.engineDigest();
+        }
+        loadBlock(message, pos, words, l, block, lastBlocks);
+        compressLane(states, words, l);
+        return getDigest(states, l, digestLength);
+    }
+
+    /**
+     * Returns the length of the message padded with 0x80, zeros and the
+     * 64-bit length to a multiple of 64 bytes.
+     */
+    private static int paddedLength(int length) {
+        return (length + 8 + 64) & ~63;
+    }
+
+    /**
+     * Stores the block at pos of the padded message into lane l of words.
+     */
+    private static void loadBlock(byte[] message, int pos, int[] words,
+            int l, int[] block, byte[] lastBlocks) {
+        int length = message.length;
+        if (pos + 64 <= length) {
+            b2iBig64(message, pos, block);
+        } else {
+            // the one or two blocks holding the end of the message and the
+            // padding, of which lastBlocks holds the last
+            int padded = paddedLength(length);
+            int start = padded - 128;
+            Arrays.fill(lastBlocks, (byte)0);
+            int from = Math.max(start, 0);
+            System.arraycopy(message, from, lastBlocks, from - start,
+                    length - from);
+            lastBlocks[length - start] = (byte)0x80;
+            long bits = (long)length << 3;
+            i2bBig4((int)(bits >>> 32), lastBlocks, 120);
+            i2bBig4((int)bits, lastBlocks, 124);
+            b2iBig64(lastBlocks, pos - start, block);
+        }
+        for (int i = 0; i < 16; i++) {
+            words[i * LANES + l] = block[i];
+        }
+    }
+
+    private static byte[] getDigest(int[] states, int l, int digestLength) {
+        byte[] digest = new byte[digestLength];
+        for (int i = 0; i < digestLength / 4; i++) {
+            i2bBig4(states[i * LANES + l], digest, i * 4);
+        }
+        return digest;
+    }
+
+    /*
+     * This is an intrinsified method. The method's argument list must match
+     * the hotspot signature. Compresses the block of each lane in words
+     * into the state of the lane in states. The intrinsic only reads the
+     * first 16 * LANES words, and keeps the message schedules elsewhere.
+     */
+    private static void implCompressLanes(int[] states, int[] words) {
+        for (int l = 0; l < LANES; l++) {
+            compressLane(states, words, l);
+        }
+    }
+
+    private static void compressLane(int[] states, int[] words, int l) {
+        int[] k = SHA2.ROUND_CONSTS;
+        for (int t = 16; t < SHA2.ITERATION; t++) {
+            int w2 = words[(t - 2) * LANES + l];
+            int w15 = words[(t - 15) * LANES + l];
+            int delta1 = Integer.rotateRight(w2, 17)
+                    ^ Integer.rotateRight(w2, 19) ^ (w2 >>> 10);
+            int delta0 = Integer.rotateRight(w15, 7)
+                    ^ Integer.rotateRight(w15, 18) ^ (w15 >>> 3);
+            words[t * LANES + l] = delta1 + words[(t - 7) * LANES + l]
+                    + delta0 + words[(t - 16) * LANES + l];
+        }
+
+        int a = states[l];
+        int b = states[LANES + l];
+        int c = states[2 * LANES + l];
+        int d = states[3 * LANES + l];
+        int e = states[4 * LANES + l];
+        int f = states[5 * LANES + l];
+        int g = states[6 * LANES + l];
+        int h = states[7 * LANES + l];
+
+        for (int t = 0; t < SHA2.ITERATION; t++) {
+            int sigma1 = Integer.rotateRight(e, 6)
+                    ^ Integer.rotateRight(e, 11) ^ Integer.rotateRight(e, 25);
+            int ch = (e & f) ^ (~e & g);
+            int T1 = h + sigma1 + ch + k[t] + words[t * LANES + l];
+            int sigma0 = Integer.rotateRight(a, 2)
+                    ^ Integer.rotateRight(a, 13) ^ Integer.rotateRight(a, 22);
+            int maj = (a & b) ^ (a & c) ^ (b & c);
+            int T2 = sigma0 + maj;
+            h = g;
+            g = f;
+            f = e;
+            e = d + T1;
+            d = c;
+            c = b;
+            b = a;
+            a = T1 + T2;
+        }
+        states[l] += a;
+        states[LANES + l] += b;
+        states[2 * LANES + l] += c;
+        states[3 * LANES + l] += d;
+        states[4 * LANES + l] += e;
+        states[5 * LANES + l] += f;
+        states[6 * LANES + l] += g;
+        states[7 * LANES + l] += h;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1996, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1996, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -45,6 +45,11 @@ import java.security.*;
  *   identifier strings "OID.1.3.14.3.2.13", "OID.1.3.14.3.2.27" and
  *   "OID.1.2.840.10040.4.3".
  *
+ * - DRBG is the SecureRandom based on the deterministic random bit
+ *   generators of NIST SP 800-90A: Hash_DRBG, HMAC_DRBG and CTR_DRBG.
+ *   Its ThreadSafe attribute notes that its objects may be used by
+ *   several threads without locking.
+ *
  * - SHA-2 is a set of message digest schemes described in FIPS 180-2.
  *   SHA-2 family of hash functions includes SHA-224, SHA-256, SHA-384,
  *   and SHA-512.
@@ -107,6 +112,10 @@ final class SunEntries {
             map.put("SecureRandom.NativePRNG",
                 "sun.security.provider.NativePRNG");
         }
+        // registered after SHA1PRNG and NativePRNG, so that it does not
+        // become the algorithm of "new SecureRandom()"
+        map.put("SecureRandom.DRBG", "sun.security.provider.DRBG");
+        map.put("SecureRandom.DRBG ThreadSafe", "true");
 
         if (NativePRNG.Blocking.isAvailable()) {
             map.put("SecureRandom.NativePRNGBlocking",
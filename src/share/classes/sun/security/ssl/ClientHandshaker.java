@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1996, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1996, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -94,6 +94,12 @@ final class ClientHandshaker extends Handshaker {
 
     private boolean serverNamesAccepted = false;
 
+    // did we send the session_ticket extension?
+    private boolean sessionTicketRequested = false;
+
+    // did the server announce a NewSessionTicket message?
+    private boolean expectingSessionTicket = false;
+
     /*
      * Constructors
      */
@@ -131,8 +137,12 @@ final class ClientHandshaker extends Handshaker {
      */
     @Override
     void processMessage(byte type, int messageLen) throws IOException {
+        // The NewSessionTicket message comes late in the handshake,
+        // despite its low type.
         if (state >= type
-                && (type != HandshakeMessage.ht_hello_request)) {
+                && (type != HandshakeMessage.ht_hello_request)
+                && (type != HandshakeMessage.ht_new_session_ticket ||
+                        !expectingSessionTicket)) {
             throw new SSLProtocolException(
                     "Handshake message sequence violation, " + type);
         }
@@ -142,6 +152,14 @@ final class ClientHandshaker extends Handshaker {
             this.serverHelloRequest(new HelloRequest(input));
             break;
 
+        case HandshakeMessage.ht_new_session_ticket:
+            if (!expectingSessionTicket) {
+                fatalSE(Alerts.alert_unexpected_message,
+                    "Server sent an unannounced NewSessionTicket message");
+            }
+            this.newSessionTicket(new NewSessionTicket(input));
+            break;
+
         case HandshakeMessage.ht_server_hello:
             this.serverHello(new ServerHello(input, messageLen));
             break;
@@ -480,6 +498,16 @@ final class ClientHandshaker extends Handshaker {
             // NOTREACHED
         }
 
+        // check the "session_ticket" extension
+        expectingSessionTicket = false;
+        if (mesg.extensions.get(ExtensionType.EXT_SESSION_TICKET) != null) {
+            if (!sessionTicketRequested) {
+                fatalSE(Alerts.alert_unsupported_extension,
+                    "Server sent an unrequested session_ticket extension");
+            }
+            expectingSessionTicket = true;
+        }
+
         // so far so good, let's look at the session
         if (session != null) {
             // we tried to resume, let's see what the server decided
@@ -574,16 +602,25 @@ final class ClientHandshaker extends Handshaker {
             } else if ((type != ExtensionType.EXT_ELLIPTIC_CURVES)
                     && (type != ExtensionType.EXT_EC_POINT_FORMATS)
                     && (type != ExtensionType.EXT_SERVER_NAME)
-                    && (type != ExtensionType.EXT_RENEGOTIATION_INFO)) {
+                    && (type != ExtensionType.EXT_RENEGOTIATION_INFO)
+                    && (type != ExtensionType.EXT_SESSION_TICKET)) {
                 fatalSE(Alerts.alert_unsupported_extension,
                     "Server sent an unsupported extension: " + type);
             }
         }
 
+        // A server which sends session tickets need not assign a session
+        // ID.  We then make up our own, which the server will echo when it
+        // resumes the session from the ticket (RFC 5077, section 3.4).
+        SessionId sessionId = mesg.sessionId;
+        if (expectingSessionTicket && sessionId.length() == 0) {
+            sessionId = new SessionId(true, sslContext.getSecureRandom());
+        }
+
         // Create a new session, we need to do the full handshake
         session = new SSLSessionImpl(protocolVersion, cipherSuite,
                             getLocalSupportedSignAlgs(),
-                            mesg.sessionId, getHostSE(), getPortSE());
+                            sessionId, getHostSE(), getPortSE());
         session.setRequestedServerNames(requestedServerNames);
         setHandshakeSessionSE(session);
         if (debug != null && Debug.isOn("handshake")) {
@@ -591,6 +628,23 @@ final class ClientHandshaker extends Handshaker {
         }
     }
 
+    /*
+     * The server sends a new session ticket just before its
+     * change_cipher_spec record, in both the full and the abbreviated
+     * handshake.  We present it when we next resume the session.
+     */
+    private void newSessionTicket(NewSessionTicket mesg) throws IOException {
+        if (debug != null && Debug.isOn("handshake")) {
+            mesg.print(System.out);
+        }
+        expectingSessionTicket = false;
+
+        // an empty ticket means the server has no ticket for us after all
+        if (mesg.getTicket().length != 0) {
+            session.setSessionTicket(mesg.getTicket(), mesg.getLifetimeHint());
+        }
+    }
+
     /*
      * Server's own key was either a signing-only key, or was too
      * large for export rules ... this message holds an ephemeral
@@ -1077,6 +1131,7 @@ final class ClientHandshaker extends Handshaker {
             input.digestNow();
             sendChangeCipherAndFinish(true);
         }
+        HandshakeStatistics.clientHandshake(resumingSession);
         session.setLastAccessedTime(System.currentTimeMillis());
 
         if (!resumingSession) {
@@ -1290,6 +1345,16 @@ final class ClientHandshaker extends Handshaker {
             }
         }
 
+        // add session_ticket extension, with the ticket of the session
+        // we try to resume if we have one
+        sessionTicketRequested = false;
+        if (SessionTickets.enableClient &&
+                maxProtocolVersion.v >= ProtocolVersion.TLS10.v) {
+            byte[] ticket = (session != null) ? session.getSessionTicket() : null;
+            clientHelloMessage.addSessionTicketExtension(ticket);
+            sessionTicketRequested = true;
+        }
+
         // reset the client random cookie
         clnt_random = clientHelloMessage.clnt_random;
 
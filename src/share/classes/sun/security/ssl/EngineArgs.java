@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004, 2012, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2004, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -147,15 +147,17 @@ class EngineArgs {
     /*
      * Given spaceLeft bytes to transfer, gather up that much data
      * from the appData buffers (starting at offset in the array),
-     * and transfer it into the netData buffer.
+     * and transfer it into the dstData buffer.  dstData is either
+     * the netData buffer itself, or a record staging buffer which
+     * is later transferred into netData.
      *
      * The user has already ensured there is enough room.
      */
-    void gather(int spaceLeft) {
+    void gather(ByteBuffer dstData, int spaceLeft) {
         for (int i = offset; (i < (offset + len)) && (spaceLeft > 0); i++) {
             int amount = Math.min(appData[i].remaining(), spaceLeft);
             appData[i].limit(appData[i].position() + amount);
-            netData.put(appData[i]);
+            dstData.put(appData[i]);
             appRemaining -= amount;
             spaceLeft -= amount;
         }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2003, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2003, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -59,6 +59,14 @@ final class EngineInputRecord extends InputRecord {
      */
     private boolean internalData;
 
+    /*
+     * Heap buffer that application data records are moved into when
+     * the caller's network buffer is not backed by an accessible
+     * array, e.g. a direct buffer from a NIO channel, or a read-only
+     * buffer.  Lazily allocated.
+     */
+    private ByteBuffer stagingBB;
+
     EngineInputRecord(SSLEngineImpl engine) {
         super();
         this.engine = engine;
@@ -194,6 +202,26 @@ final class EngineInputRecord extends InputRecord {
             return tmpBB;
         }
 
+        /*
+         * For a buffer without an accessible array, the ByteBuffer
+         * methods of Cipher and Mac copy it in and out through newly
+         * allocated temporary arrays of at most 4K (see
+         * CipherSpi.bufferCrypt()), and a read-only buffer cannot be
+         * decrypted in place at all.  Move the record into the staging
+         * buffer with a single bulk get and work on it there; the
+         * plaintext is scattered to the application from it.
+         */
+        if (!bb.hasArray()) {
+            int len = bb.remaining();
+            if ((stagingBB == null) || (stagingBB.capacity() < len)) {
+                stagingBB = ByteBuffer.allocate(Math.max(len, maxRecordSize));
+            }
+            stagingBB.clear();
+            stagingBB.put(bb);
+            stagingBB.flip();
+            bb = stagingBB;
+        }
+
         BadPaddingException reservedBPE = null;
         int tagLen =
             (authenticator instanceof MAC) ? ((MAC)authenticator).MAClen() : 0;
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2003, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2003, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -47,6 +47,13 @@ final class EngineOutputRecord extends OutputRecord {
 
     private boolean finishedMsg = false;
 
+    /*
+     * Heap buffer used to assemble application data records when the
+     * caller's network buffer is not backed by an accessible array,
+     * e.g. a direct buffer from a NIO channel.  Lazily allocated.
+     */
+    private ByteBuffer stagingBB;
+
     /*
      * All handshake hashing is done by the superclass
      */
@@ -225,15 +232,62 @@ final class EngineOutputRecord extends OutputRecord {
             write(ea, authenticator, writeCipher, length);
         }
 
+        /*
+         * Keep producing full records while there is application data
+         * left and the network buffer can take another maximum sized
+         * record, rather than handing control back to the caller for
+         * every 16K of data.  Records after the first one of this wrap
+         * need not be split: all of their plaintext was supplied before
+         * any of the preceding ciphertext was visible to the peer.
+         *
+         * Stop early if the sequence number is getting large, so that
+         * the renegotiation check in the SSLEngine gets to run.
+         */
+        while ((ea.getAppRemaining() > 0) &&
+                (ea.netData.remaining() >= maxRecordSize) &&
+                !authenticator.seqNumIsHuge()) {
+            ea.resetLim();
+            write(ea, authenticator, writeCipher,
+                    Math.min(ea.getAppRemaining(), maxDataSize));
+        }
+
         return;
     }
 
     void write(EngineArgs ea, Authenticator authenticator,
             CipherBox writeCipher, int length) throws IOException {
+
+        ByteBuffer netBB = ea.netData;
+        if (netBB.hasArray()) {
+            write(ea, netBB, authenticator, writeCipher, length);
+            return;
+        }
+
+        /*
+         * CipherBox and MAC already use the ByteBuffer methods of Cipher
+         * and Mac, but for a buffer without an accessible array the
+         * providers fall back to CipherSpi.bufferCrypt() and
+         * MacSpi.engineUpdate(ByteBuffer), which copy it in and out
+         * through newly allocated temporary arrays of at most 4K.  Build
+         * the record in the staging buffer instead, and transfer it with
+         * a single bulk put.  The SSLEngine has already verified that
+         * netBB has room for a maximum sized record.
+         */
+        if (stagingBB == null) {
+            stagingBB = ByteBuffer.allocate(maxRecordSize);
+        }
+        stagingBB.clear();
+        write(ea, stagingBB, authenticator, writeCipher, length);
+        stagingBB.flip();
+        netBB.put(stagingBB);
+    }
+
+    private void write(EngineArgs ea, ByteBuffer dstBB,
+            Authenticator authenticator, CipherBox writeCipher,
+            int length) throws IOException {
         /*
          * Copy out existing buffer values.
          */
-        ByteBuffer dstBB = ea.netData;
         int dstPos = dstBB.position();
         int dstLim = dstBB.limit();
 
@@ -249,7 +303,7 @@ final class EngineOutputRecord extends OutputRecord {
         /*
          * transfer application data into the network data buffer
          */
-        ea.gather(length);
+        ea.gather(dstBB, length);
         dstBB.limit(dstBB.position());
         dstBB.position(dstData);
 
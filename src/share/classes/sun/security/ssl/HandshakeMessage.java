@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1996, 2012, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1996, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -79,6 +79,7 @@ public abstract class HandshakeMessage {
     static final byte   ht_hello_request = 0;
     static final byte   ht_client_hello = 1;
     static final byte   ht_server_hello = 2;
+    static final byte   ht_new_session_ticket = 4;
 
     static final byte   ht_certificate = 11;
     static final byte   ht_server_key_exchange = 12;
@@ -270,6 +271,12 @@ static final class ClientHello extends HandshakeMessage {
         }
     }
 
+    // add session_ticket extension, empty if there is no ticket
+    void addSessionTicketExtension(byte[] ticket) {
+        extensions.add(ticket == null ? new SessionTicketExtension() :
+                                        new SessionTicketExtension(ticket));
+    }
+
     // add signature_algorithm extension
     void addSignatureAlgorithmsExtension(
             Collection<SignatureAndHashAlgorithm> algorithms) {
@@ -1837,6 +1844,70 @@ static final class CertificateVerify extends HandshakeMessage {
 }
 
 
+/*
+ * NewSessionTicket ... SERVER --> CLIENT
+ *
+ * Defined in RFC 5077.  When the server has included the session_ticket
+ * extension in its ServerHello, it sends this message just before its
+ * change_cipher_spec record.  The ticket is opaque to the client, which
+ * presents it in the session_ticket extension of a later ClientHello to
+ * resume the session.  The lifetime hint is in seconds; zero means that
+ * the lifetime is unspecified.
+ *
+ *      struct {
+ *          uint32 ticket_lifetime_hint;
+ *          opaque ticket<0..2^16-1>;
+ *      } NewSessionTicket;
+ */
+static final class NewSessionTicket extends HandshakeMessage {
+
+    private final long lifetimeHint;
+    private final byte[] ticket;
+
+    NewSessionTicket(long lifetimeHint, byte[] ticket) {
+        this.lifetimeHint = lifetimeHint;
+        this.ticket = ticket;
+    }
+
+    NewSessionTicket(HandshakeInStream input) throws IOException {
+        lifetimeHint = input.getInt32() & 0xFFFFFFFFL;
+        ticket = input.getBytes16();
+    }
+
+    long getLifetimeHint() {
+        return lifetimeHint;
+    }
+
+    byte[] getTicket() {
+        return ticket;
+    }
+
+    @Override
+    int messageType() { return ht_new_session_ticket; }
+
+    @Override
+    int messageLength() {
+        return 4 + 2 + ticket.length;
+    }
+
+    @Override
+    void send(HandshakeOutStream out) throws IOException {
+        out.putInt32((int)lifetimeHint);
+        out.putBytes16(ticket);
+    }
+
+    @Override
+    void print(PrintStream s) throws IOException {
+        s.println("*** NewSessionTicket");
+        if (debug != null && Debug.isOn("verbose")) {
+            s.println("ticket_lifetime_hint: " + lifetimeHint);
+            s.println("ticket: <" + ticket.length + " bytes>");
+            s.println("***");
+        }
+    }
+}
+
+
 /*
  * FINISHED ... sent by both CLIENT and SERVER
  *
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.security.ssl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the handshakes completed by SunJSSE, and of the session
+ * tickets it issued, reported by the SSLHandshakeMXBean.
+ */
+public final class HandshakeStatistics {
+
+    private static final LongAdder serverFull = new LongAdder();
+    private static final LongAdder serverResumed = new LongAdder();
+    private static final LongAdder serverTicketResumed = new LongAdder();
+    private static final LongAdder clientFull = new LongAdder();
+    private static final LongAdder clientResumed = new LongAdder();
+    private static final LongAdder ticketsIssued = new LongAdder();
+    private static final LongAdder ticketsRejected = new LongAdder();
+
+    private HandshakeStatistics() { }
+
+    /**
+     * Records a handshake completed by a server, which resumed a session
+     * from the session cache or from a session ticket, or created a new
+     * session.
+     */
+    static void serverHandshake(boolean resumed, boolean fromTicket) {
+        if (!resumed) {
+            serverFull.increment();
+        } else if (fromTicket) {
+            serverTicketResumed.increment();
+        } else {
+            serverResumed.increment();
+        }
+    }
+
+    /**
+     * Records a handshake completed by a client.
+     */
+    static void clientHandshake(boolean resumed) {
+        if (resumed) {
+            clientResumed.increment();
+        } else {
+            clientFull.increment();
+        }
+    }
+
+    /**
+     * Records a session ticket sent by a server.
+     */
+    static void ticketIssued() {
+        ticketsIssued.increment();
+    }
+
+    /**
+     * Records a session ticket which a server could not resume a session
+     * from.
+     */
+    static void ticketRejected() {
+        ticketsRejected.increment();
+    }
+
+    public static long getServerFullHandshakeCount() {
+        return serverFull.sum();
+    }
+
+    public static long getServerResumedHandshakeCount() {
+        return serverResumed.sum();
+    }
+
+    public static long getServerTicketResumedHandshakeCount() {
+        return serverTicketResumed.sum();
+    }
+
+    public static long getClientFullHandshakeCount() {
+        return clientFull.sum();
+    }
+
+    public static long getClientResumedHandshakeCount() {
+        return clientResumed.sum();
+    }
+
+    public static long getIssuedTicketCount() {
+        return ticketsIssued.sum();
+    }
+
+    public static long getRejectedTicketCount() {
+        return ticketsRejected.sum();
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2001, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2001, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -313,7 +313,7 @@ final class JsseJce {
 
     static SecureRandom getSecureRandom() throws KeyManagementException {
         if (cryptoProvider == null) {
-            return new SecureRandom();
+            return sun.security.provider.DRBG.newSecureRandom();
         }
         // Try "PKCS11" first. If that is not supported, iterate through
         // the provider and return the first working implementation.
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1999, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1999, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -29,6 +29,7 @@ import java.net.Socket;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.security.*;
 import java.security.cert.*;
 import java.security.cert.Certificate;
@@ -42,6 +43,9 @@ public abstract class SSLContextImpl extends SSLContextSpi {
 
     private static final Debug debug = Debug.getInstance("ssl");
 
+    // numbers the contexts, to tell their session caches apart
+    private static final AtomicInteger contextCount = new AtomicInteger();
+
     private final EphemeralKeyManager ephemeralKeyManager;
     private final SSLSessionContextImpl clientCache;
     private final SSLSessionContextImpl serverCache;
@@ -68,8 +72,10 @@ public abstract class SSLContextImpl extends SSLContextSpi {
 
     SSLContextImpl() {
         ephemeralKeyManager = new EphemeralKeyManager();
-        clientCache = new SSLSessionContextImpl();
-        serverCache = new SSLSessionContextImpl();
+        String name = getClass().getSimpleName() + "-" +
+                contextCount.incrementAndGet();
+        clientCache = new SSLSessionContextImpl(name, false);
+        serverCache = new SSLSessionContextImpl(name, true);
     }
 
     @Override
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.security.ssl;
+
+import java.lang.management.PlatformManagedObject;
+
+/**
+ * The management interface for the TLS handshakes of the SunJSSE
+ * provider.
+ *
+ * <p> The {@code ObjectName} for uniquely identifying the MXBean within
+ * an MBeanServer is {@code sun.security.ssl:type=Handshake}.
+ *
+ * <p> The counts cover the handshakes which completed, whether initial
+ * handshakes or renegotiations, in all SSL contexts of the virtual
+ * machine.
+ */
+public interface SSLHandshakeMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns the number of full handshakes completed as a server, which
+     * created new sessions.
+     *
+     * @return the number of full server handshakes
+     */
+    long getServerFullHandshakeCount();
+
+    /**
+     * Returns the number of abbreviated handshakes completed as a server,
+     * which resumed sessions from the server session cache.
+     *
+     * @return the number of server handshakes resumed by session ID
+     */
+    long getServerResumedHandshakeCount();
+
+    /**
+     * Returns the number of abbreviated handshakes completed as a server,
+     * which resumed sessions from the RFC 5077 session tickets presented
+     * by clients.
+     *
+     * @return the number of server handshakes resumed from tickets
+     */
+    long getServerTicketResumedHandshakeCount();
+
+    /**
+     * Returns the number of full handshakes completed as a client.
+     *
+     * @return the number of full client handshakes
+     */
+    long getClientFullHandshakeCount();
+
+    /**
+     * Returns the number of abbreviated handshakes completed as a client.
+     *
+     * @return the number of resumed client handshakes
+     */
+    long getClientResumedHandshakeCount();
+
+    /**
+     * Returns the number of session tickets sent to clients.
+     *
+     * @return the number of tickets issued
+     */
+    long getIssuedTicketCount();
+
+    /**
+     * Returns the number of session tickets presented by clients which
+     * did not resume a session, because they were not valid, had
+     * expired, were protected by a key no longer in use, or did not match
+     * the requested parameters.
+     *
+     * @return the number of tickets rejected
+     */
+    long getRejectedTicketCount();
+}
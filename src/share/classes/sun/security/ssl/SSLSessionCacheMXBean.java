@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.security.ssl;
+
+import java.lang.management.PlatformManagedObject;
+import java.util.List;
+
+/**
+ * The management interface for the SSL session caches of the SunJSSE
+ * provider.
+ *
+ * <p> The {@code ObjectName} for uniquely identifying the MXBean within
+ * an MBeanServer is {@code sun.security.ssl:type=SessionCache}.
+ *
+ * <p> Each SSL context has a client and a server session cache.  The
+ * totals cover the caches of all the SSL contexts of the virtual machine
+ * which have not been garbage collected.
+ */
+public interface SSLSessionCacheMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns a snapshot of the client and server session caches of each
+     * SSL context.
+     *
+     * @return the session caches, in the order their contexts were
+     *         created
+     */
+    List<SessionCacheInfo> getSessionCaches();
+
+    /**
+     * Returns the number of sessions in all session caches.
+     *
+     * @return the number of cached sessions
+     */
+    int getSize();
+
+    /**
+     * Returns the number of session lookups which found a session to
+     * resume.
+     *
+     * @return the number of hits
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of session lookups which did not find a session.
+     *
+     * @return the number of misses
+     */
+    long getMissCount();
+
+    /**
+     * Returns the ratio of hits to lookups over all session caches.
+     *
+     * @return the hit rate, between 0 and 1, or 0 if there was no lookup
+     */
+    double getHitRate();
+
+    /**
+     * Returns the number of sessions removed to keep the caches within
+     * their capacity, or because the garbage collector needed the memory.
+     *
+     * @return the number of evictions
+     */
+    long getEvictionCount();
+
+    /**
+     * Returns the number of sessions removed because they timed out.
+     *
+     * @return the number of expirations
+     */
+    long getExpirationCount();
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1999, 2012, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1999, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -34,24 +34,46 @@ import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSessionContext;
 
 import sun.security.util.Cache;
+import sun.security.util.ConcurrentMemoryCache;
 
 
 final class SSLSessionContextImpl implements SSLSessionContext {
-    private Cache<SessionId, SSLSessionImpl> sessionCache;
+    private ConcurrentMemoryCache<SessionId, SSLSessionImpl> sessionCache;
                                         // session cache, session id as key
-    private Cache<String, SSLSessionImpl> sessionHostPortCache;
+    private ConcurrentMemoryCache<String, SSLSessionImpl> sessionHostPortCache;
                                         // session cache, "host:port" as key
-    private int cacheLimit;             // the max cache size
-    private int timeout;                // timeout in seconds
+    private volatile int cacheLimit;    // the max cache size
+    private volatile int timeout;       // timeout in seconds
+    private SessionTickets sessionTickets;
+                                        // server session tickets, on demand
+    private final String contextName;   // name of the SSL context
+    private final boolean server;       // server or client session cache
 
     // package private
-    SSLSessionContextImpl() {
+    SSLSessionContextImpl(String contextName, boolean server) {
         cacheLimit = getDefaultCacheLimit();    // default cache size
         timeout = 86400;                        // default, 24 hours
 
-        // use soft reference
-        sessionCache = Cache.newSoftMemoryCache(cacheLimit, timeout);
-        sessionHostPortCache = Cache.newSoftMemoryCache(cacheLimit, timeout);
+        // use soft reference, lock striped as handshakes look up and
+        // add sessions concurrently
+        sessionCache = new ConcurrentMemoryCache<>(true, cacheLimit, timeout);
+        sessionHostPortCache =
+                new ConcurrentMemoryCache<>(true, cacheLimit, timeout);
+
+        this.contextName = contextName;
+        this.server = server;
+        SessionCacheStatistics.register(this);
+    }
+
+    /**
+     * Returns the protection of the session tickets issued for this
+     * server session context.
+     */
+    synchronized SessionTickets getSessionTickets() {
+        if (sessionTickets == null) {
+            sessionTickets = new SessionTickets(this);
+        }
+        return sessionTickets;
     }
 
     /**
@@ -187,15 +209,27 @@ final class SSLSessionContextImpl implements SSLSessionContext {
     }
 
     // package-private method, remove a cached SSLSession
-    void remove(SessionId key) {
-        SSLSessionImpl s = sessionCache.get(key);
-        if (s != null) {
-            sessionCache.remove(key);
+    //
+    // Only the entries still mapped to the session are removed, a newer
+    // session for the same host and port stays cached.
+    void remove(SSLSessionImpl s) {
+        if (sessionCache.remove(s.getSessionId(), s)) {
             sessionHostPortCache.remove(
-                        getKey(s.getPeerHost(), s.getPeerPort()));
+                        getKey(s.getPeerHost(), s.getPeerPort()), s);
         }
     }
 
+    // package-private method, used ONLY by SessionCacheStatistics
+    SessionCacheInfo getSessionCacheInfo() {
+        // a side looks sessions up by one key, but caches them by both
+        return new SessionCacheInfo(contextName, server,
+            sessionCache.size(), cacheLimit, timeout,
+            sessionCache.getHitCount() + sessionHostPortCache.getHitCount(),
+            sessionCache.getMissCount() + sessionHostPortCache.getMissCount(),
+            sessionCache.getEvictionCount(),
+            sessionCache.getExpirationCount());
+    }
+
     private int getDefaultCacheLimit() {
         int cacheLimit = 0;
         try {
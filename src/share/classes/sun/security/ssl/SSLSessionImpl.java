@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1996, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1996, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -96,7 +96,7 @@ final class SSLSessionImpl extends ExtendedSSLSession {
      * Information not part of the SSLv3 protocol spec, but used
      * to support session management policies.
      */
-    private final long          creationTime = System.currentTimeMillis();
+    private long                creationTime = System.currentTimeMillis();
     private long                lastUsedTime = 0;
     private final String        host;
     private final int           port;
@@ -109,6 +109,13 @@ final class SSLSessionImpl extends ExtendedSSLSession {
     private String[]            peerSupportedSignAlgs;
     private List<SNIServerName>    requestedServerNames;
 
+    /*
+     * The RFC 5077 session ticket received from the server for client
+     * sessions, and the time at which the server stops accepting it.
+     */
+    private byte[]              sessionTicket;
+    private long                sessionTicketExpiration;
+
 
     // Principals for non-certificate based cipher suites
     private Principal peerPrincipal;
@@ -204,12 +211,56 @@ final class SSLSessionImpl extends ExtendedSSLSession {
         localPrivateKey = privateKey;
     }
 
+    /**
+     * Returns the local certificate chain without cloning it, or null.
+     */
+    X509Certificate[] getLocalCertificateChain() {
+        return localCerts;
+    }
+
+    /**
+     * Returns the local private key, or null.
+     */
+    PrivateKey getLocalPrivateKey() {
+        return localPrivateKey;
+    }
+
     void setPeerSupportedSignatureAlgorithms(
             Collection<SignatureAndHashAlgorithm> algorithms) {
         peerSupportedSignAlgs =
             SignatureAndHashAlgorithm.getAlgorithmNames(algorithms);
     }
 
+    /**
+     * Sets the creation time of a server session whose state has been
+     * restored from a session ticket.
+     */
+    void setCreationTime(long time) {
+        creationTime = time;
+    }
+
+    /**
+     * Sets the session ticket received from the server, with the lifetime
+     * hint in seconds (zero if unspecified).
+     */
+    synchronized void setSessionTicket(byte[] ticket, long lifetimeHint) {
+        sessionTicket = ticket;
+        sessionTicketExpiration = (lifetimeHint == 0) ? Long.MAX_VALUE :
+            System.currentTimeMillis() + lifetimeHint * 1000;
+    }
+
+    /**
+     * Returns the session ticket to present to the server when resuming
+     * this session, or null if there is none or it has expired.
+     */
+    synchronized byte[] getSessionTicket() {
+        if (sessionTicket != null &&
+                System.currentTimeMillis() >= sessionTicketExpiration) {
+            sessionTicket = null;
+        }
+        return sessionTicket;
+    }
+
     void setRequestedServerNames(List<SNIServerName> requestedServerNames) {
         this.requestedServerNames = new ArrayList<>(requestedServerNames);
     }
@@ -627,7 +678,7 @@ final class SSLSessionImpl extends ExtendedSSLSession {
             System.out.println("%% Invalidated:  " + this);
         }
         if (context != null) {
-            context.remove(sessionId);
+            context.remove(this);
             context = null;
         }
     }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 1996, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 1996, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -69,6 +69,12 @@ final class ServerHandshaker extends Handshaker {
     // flag to check for clientCertificateVerify message
     private boolean             needClientVerify = false;
 
+    // is the session resumed from a session ticket?
+    private boolean             resumingFromTicket = false;
+
+    // will we send a NewSessionTicket message?
+    private boolean             sendSessionTicket = false;
+
     /*
      * For exportable ciphersuites using non-exportable key sizes, we use
      * ephemeral RSA keys. We could also do anonymous RSA in the same way
@@ -523,17 +529,53 @@ final class ServerHandshaker extends Handshaker {
         m1.svr_random = svr_random;
 
         session = null; // forget about the current session
+        resumingFromTicket = false;
+
+        // the session ticket extension, if we support session tickets
+        SessionTicketExtension clientHelloTicket = null;
+        if (SessionTickets.enableServer &&
+                protocolVersion.v >= ProtocolVersion.TLS10.v) {
+            clientHelloTicket = (SessionTicketExtension)
+                    mesg.extensions.get(ExtensionType.EXT_SESSION_TICKET);
+        }
+        boolean ticketPresented =
+                (clientHelloTicket != null) && !clientHelloTicket.isEmpty();
+
         //
         // Here we go down either of two paths:  (a) the fast one, where
         // the client's asked to rejoin an existing session, and the server
         // permits this; (b) the other one, where a new session is created.
         //
-        if (mesg.sessionId.length() != 0) {
+        if (mesg.sessionId.length() != 0 || ticketPresented) {
             // client is trying to resume a session, let's see...
 
-            SSLSessionImpl previous = ((SSLSessionContextImpl)sslContext
-                        .engineGetServerSessionContext())
-                        .get(mesg.sessionId.getId());
+            SSLSessionContextImpl serverContext = (SSLSessionContextImpl)
+                        sslContext.engineGetServerSessionContext();
+            SSLSessionImpl previous = null;
+
+            // The session in a ticket takes precedence over any cached
+            // session with the ID sent along with it.  The client may send
+            // an empty session ID with a ticket, and then learns that the
+            // ticket was accepted from our ChangeCipherSpec rather than
+            // from the ServerHello (RFC 5077, section 3.4).  We give such
+            // a session an ID of our own, so that it can be cached and
+            // resumed like any other.
+            if (ticketPresented) {
+                SessionId sessionId = mesg.sessionId;
+                if (sessionId.length() == 0) {
+                    sessionId = new SessionId(
+                            true, sslContext.getSecureRandom());
+                }
+                previous = serverContext.getSessionTickets().restore(
+                        clientHelloTicket.getTicket(), sessionId,
+                        getLocalSupportedSignAlgs(),
+                        getHostAddressSE(), getPortSE(),
+                        sslContext.getSecureRandom());
+                resumingFromTicket = (previous != null);
+            }
+            if (previous == null && mesg.sessionId.length() != 0) {
+                previous = serverContext.get(mesg.sessionId.getId());
+            }
             //
             // Check if we can use the fast path, resuming a session.  We
             // can do so iff we have a valid record for that session, and
@@ -649,12 +691,19 @@ final class ServerHandshaker extends Handshaker {
                     session = previous;
                     if (debug != null &&
                         (Debug.isOn("handshake") || Debug.isOn("session"))) {
-                        System.out.println("%% Resuming " + session);
+                        System.out.println("%% Resuming " + session +
+                            (resumingFromTicket ? " from session ticket" : ""));
                     }
+                } else {
+                    resumingFromTicket = false;
                 }
             }
         } // else client did not try to resume
 
+        if (ticketPresented && !resumingFromTicket) {
+            HandshakeStatistics.ticketRejected();
+        }
+
         //
         // If client hasn't specified a session we can resume, start a
         // new one and choose its cipher suite and compression options.
@@ -740,6 +789,19 @@ final class ServerHandshaker extends Handshaker {
         m1.sessionId = session.getSessionId();
         m1.compression_method = session.getCompression();
 
+        // Send a new session ticket to a client asking for one, unless the
+        // ticket it presented is protected by our current key anyway.
+        // Kerberos sessions are not kept in tickets.
+        sendSessionTicket = (clientHelloTicket != null) &&
+                (cipherSuite.keyExchange != K_KRB5) &&
+                (cipherSuite.keyExchange != K_KRB5_EXPORT) &&
+                !(resumingFromTicket && ((SSLSessionContextImpl)sslContext
+                        .engineGetServerSessionContext()).getSessionTickets()
+                        .isCurrent(clientHelloTicket.getTicket()));
+        if (sendSessionTicket) {
+            m1.extensions.add(new SessionTicketExtension());
+        }
+
         if (secureRenegotiation) {
             // For ServerHellos that are initial handshakes, then the
             // "renegotiated_connection" field in "renegotiation_info"
@@ -1661,6 +1723,9 @@ final class ServerHandshaker extends Handshaker {
             sendChangeCipherAndFinish(true);
         }
 
+        HandshakeStatistics.serverHandshake(
+                resumingSession, resumingFromTicket);
+
         /*
          * Update the session cache only after the handshake completed, else
          * we're open to an attack against a partially completed handshake.
@@ -1688,6 +1753,14 @@ final class ServerHandshaker extends Handshaker {
     private void sendChangeCipherAndFinish(boolean finishedTag)
             throws IOException {
 
+        /*
+         * The NewSessionTicket message we announced in the ServerHello
+         * precedes the change_cipher_spec record.
+         */
+        if (sendSessionTicket) {
+            sendSessionTicket();
+        }
+
         output.flush();
 
         Finished mesg = new Finished(protocolVersion, handshakeHash,
@@ -1719,6 +1792,29 @@ final class ServerHandshaker extends Handshaker {
     }
 
 
+    /*
+     * Sends a session ticket holding the state of the session.  If the
+     * session can not be kept in a ticket, an empty ticket is sent
+     * instead, as RFC 5077 requires once the ticket has been announced.
+     */
+    private void sendSessionTicket() throws IOException {
+        SessionTickets tickets = ((SSLSessionContextImpl)sslContext
+                .engineGetServerSessionContext()).getSessionTickets();
+        byte[] ticket = tickets.protect(session, sslContext.getSecureRandom());
+        if (ticket != null) {
+            HandshakeStatistics.ticketIssued();
+        } else {
+            ticket = new byte[0];
+        }
+
+        NewSessionTicket mesg =
+                new NewSessionTicket(tickets.getLifetimeHint(), ticket);
+        if (debug != null && Debug.isOn("handshake")) {
+            mesg.print(System.out);
+        }
+        mesg.write(output);
+    }
+
     /*
      * Returns a HelloRequest message to kickstart renegotiations
      */
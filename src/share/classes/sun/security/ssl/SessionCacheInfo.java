@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.security.ssl;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * A snapshot of the session cache of one side, client or server, of an
+ * SSL context, as reported by the SSLSessionCacheMXBean.
+ */
+public final class SessionCacheInfo {
+
+    private final String context;
+    private final boolean server;
+    private final int size;
+    private final int capacity;
+    private final int timeout;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long expirationCount;
+
+    @ConstructorProperties({"context", "server", "size", "capacity",
+            "timeout", "hitCount", "missCount", "evictionCount",
+            "expirationCount"})
+    public SessionCacheInfo(String context, boolean server, int size,
+            int capacity, int timeout, long hitCount, long missCount,
+            long evictionCount, long expirationCount) {
+        this.context = context;
+        this.server = server;
+        this.size = size;
+        this.capacity = capacity;
+        this.timeout = timeout;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.expirationCount = expirationCount;
+    }
+
+    /**
+     * Returns the name of the SSL context, made of the name of its
+     * implementation class and a sequence number.
+     */
+    public String getContext() {
+        return context;
+    }
+
+    /**
+     * Returns true for the server session cache of the context, false for
+     * its client session cache.
+     */
+    public boolean isServer() {
+        return server;
+    }
+
+    /**
+     * Returns the number of sessions in the cache.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of sessions in the cache, or 0 if it is
+     * unbounded.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the session timeout of the cache in seconds, or 0 if
+     * sessions do not time out.
+     */
+    public int getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Returns the number of session lookups which found a session to
+     * resume.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of session lookups which did not find a session.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the ratio of hits to lookups, or 0 if there was no lookup.
+     */
+    public double getHitRate() {
+        long lookups = hitCount + missCount;
+        return (lookups == 0) ? 0.0d : (double)hitCount / lookups;
+    }
+
+    /**
+     * Returns the number of sessions removed to keep the cache within its
+     * capacity, or because the garbage collector needed the memory.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of sessions removed because they timed out.
+     */
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+}
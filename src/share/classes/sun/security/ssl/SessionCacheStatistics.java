@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.security.ssl;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The session caches of the live SSL contexts, reported by the
+ * SSLSessionCacheMXBean.  The contexts are only weakly referenced, and
+ * drop out of the statistics once they have been garbage collected.
+ */
+public final class SessionCacheStatistics {
+
+    private static final List<WeakReference<SSLSessionContextImpl>>
+        contexts = new ArrayList<>();
+
+    private SessionCacheStatistics() { }
+
+    /**
+     * Adds a session context to the ones reported.
+     */
+    static void register(SSLSessionContextImpl context) {
+        synchronized (contexts) {
+            purge();
+            contexts.add(new WeakReference<>(context));
+        }
+    }
+
+    // removes the contexts that have been garbage collected
+    private static void purge() {
+        Iterator<WeakReference<SSLSessionContextImpl>> it =
+            contexts.iterator();
+        while (it.hasNext()) {
+            if (it.next().get() == null) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of each session cache, in the order the SSL
+     * contexts were created.
+     */
+    public static List<SessionCacheInfo> getSessionCaches() {
+        List<SSLSessionContextImpl> live = new ArrayList<>();
+        synchronized (contexts) {
+            purge();
+            for (WeakReference<SSLSessionContextImpl> ref : contexts) {
+                SSLSessionContextImpl context = ref.get();
+                if (context != null) {
+                    live.add(context);
+                }
+            }
+        }
+        List<SessionCacheInfo> caches = new ArrayList<>(live.size());
+        for (SSLSessionContextImpl context : live) {
+            caches.add(context.getSessionCacheInfo());
+        }
+        return caches;
+    }
+
+    public static int getSize() {
+        int size = 0;
+        for (SessionCacheInfo info : getSessionCaches()) {
+            size += info.getSize();
+        }
+        return size;
+    }
+
+    public static long getHitCount() {
+        long count = 0;
+        for (SessionCacheInfo info : getSessionCaches()) {
+            count += info.getHitCount();
+        }
+        return count;
+    }
+
+    public static long getMissCount() {
+        long count = 0;
+        for (SessionCacheInfo info : getSessionCaches()) {
+            count += info.getMissCount();
+        }
+        return count;
+    }
+
+    public static double getHitRate() {
+        long hits = 0;
+        long lookups = 0;
+        for (SessionCacheInfo info : getSessionCaches()) {
+            hits += info.getHitCount();
+            lookups += info.getHitCount() + info.getMissCount();
+        }
+        return (lookups == 0) ? 0.0d : (double)hits / lookups;
+    }
+
+    public static long getEvictionCount() {
+        long count = 0;
+        for (SessionCacheInfo info : getSessionCaches()) {
+            count += info.getEvictionCount();
+        }
+        return count;
+    }
+
+    public static long getExpirationCount() {
+        long count = 0;
+        for (SessionCacheInfo info : getSessionCaches()) {
+            count += info.getExpirationCount();
+        }
+        return count;
+    }
+}
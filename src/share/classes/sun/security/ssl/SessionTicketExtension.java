@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.security.ssl;
+
+import java.io.IOException;
+
+/*
+ * RFC 5077 defines the "session_ticket" extension (with extension type
+ * 35), which lets a server keep its session state in an encrypted ticket
+ * held by the client instead of in its session cache.
+ *
+ * In the ClientHello, the "extension data" field holds the ticket the
+ * client received earlier, or is empty if the client has no ticket but
+ * would like to receive one.  In the ServerHello, the field is always
+ * empty, and indicates that the server will send a NewSessionTicket
+ * handshake message before its ChangeCipherSpec message.
+ */
+final class SessionTicketExtension extends HelloExtension {
+    private final byte[] ticket;
+
+    SessionTicketExtension() {
+        this(new byte[0]);
+    }
+
+    SessionTicketExtension(byte[] ticket) {
+        super(ExtensionType.EXT_SESSION_TICKET);
+        this.ticket = ticket;
+    }
+
+    SessionTicketExtension(HandshakeInStream s, int len) throws IOException {
+        super(ExtensionType.EXT_SESSION_TICKET);
+
+        ticket = new byte[len];
+        if (len != 0) {
+            s.read(ticket, 0, len);
+        }
+    }
+
+    // Length of the encoded extension, including the type and length fields
+    @Override
+    int length() {
+        return 4 + ticket.length;
+    }
+
+    @Override
+    void send(HandshakeOutStream s) throws IOException {
+        s.putInt16(type.id);
+        s.putInt16(ticket.length);
+        s.write(ticket, 0, ticket.length);
+    }
+
+    boolean isEmpty() {
+        return ticket.length == 0;
+    }
+
+    byte[] getTicket() {
+        return ticket;
+    }
+
+    @Override
+    public String toString() {
+        return "Extension " + type + ", ticket: " +
+                    (ticket.length == 0 ? "<empty>" :
+                    "<" + ticket.length + " bytes>");
+    }
+}
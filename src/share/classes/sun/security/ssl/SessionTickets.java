@@ -0,0 +1,628 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.security.ssl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.AccessController;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PrivilegedAction;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+import java.security.SecureRandom;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.net.ssl.SNIHostName;
+import javax.net.ssl.SNIServerName;
+import javax.net.ssl.StandardConstants;
+
+import sun.security.action.GetPropertyAction;
+
+import static sun.security.ssl.CipherSuite.KeyExchange.*;
+
+/**
+ * SessionTickets keeps the state of server sessions in the RFC 5077
+ * session tickets sent to clients, and restores sessions from the tickets
+ * that clients present, so that sessions can be resumed without a server
+ * session cache.  There is one instance per server session context.
+ *
+ * Tickets have the structure recommended in section 4 of RFC 5077:
+ *
+ *      struct {
+ *          opaque key_name[16];
+ *          opaque iv[16];
+ *          opaque encrypted_state<0..2^16-1>;
+ *          opaque mac[32];
+ *      } ticket;
+ *
+ * The state is encrypted with AES-128 in CBC mode, and the MAC is the
+ * HMAC-SHA256 of the preceding fields.  The state holds the master secret
+ * and the parameters of the session, the client certificates and the
+ * requested server names.  It identifies the server certificate chain by
+ * its digest only, so a ticket is accepted only once the server has used
+ * the same chain in a full handshake.
+ *
+ * By default each context generates its own keys, and changes the key
+ * for new tickets once per session timeout, while still accepting the
+ * tickets protected by the previous key.  Servers share keys, and thus
+ * resume each other's sessions, through the file named by the
+ * jdk.tls.server.sessionTicketKeyFile system property.  Each line of the
+ * file holds one key in hexadecimal: the 16 byte key name, the 16 byte
+ * AES key and the 32 byte HMAC key.  The first key protects new tickets;
+ * all keys are accepted.  The file is read again when it is modified, so
+ * the keys can be rotated by adding a new key at the top and later
+ * removing the oldest one.
+ */
+final class SessionTickets {
+
+    // whether the server sends tickets to clients that ask for them
+    static final boolean enableServer = Debug.getBooleanProperty(
+            "jdk.tls.server.enableSessionTicketExtension", true);
+
+    // whether the client asks for tickets
+    static final boolean enableClient = Debug.getBooleanProperty(
+            "jdk.tls.client.enableSessionTicketExtension", true);
+
+    // the file holding the keys shared by servers, or null
+    private static final String keyFile = AccessController.doPrivileged(
+            new GetPropertyAction("jdk.tls.server.sessionTicketKeyFile"));
+
+    private static final int KEY_NAME_LENGTH = 16;
+    private static final int AES_KEY_LENGTH = 16;
+    private static final int MAC_KEY_LENGTH = 32;
+    private static final int IV_LENGTH = 16;
+    private static final int MAC_LENGTH = 32;
+
+    // version of the encoding of the session state
+    private static final int STATE_VERSION = 1;
+
+    // interval at which the key file is checked for changes
+    private static final long KEY_FILE_CHECK_INTERVAL = 10 * 1000L;
+
+    // key lifetime if sessions do not time out
+    private static final long DEFAULT_KEY_LIFETIME = 24 * 60 * 60 * 1000L;
+
+    // maximum number of server certificate chains remembered
+    private static final int MAX_LOCAL_IDENTITIES = 32;
+
+    private static final Debug debug = Debug.getInstance("ssl");
+
+    private final SSLSessionContextImpl context;
+
+    // the keys, the one protecting new tickets first (guarded by this)
+    private List<TicketKey> keys = Collections.<TicketKey>emptyList();
+
+    // time at which the keys are rotated or reloaded (guarded by this)
+    private long nextKeyUpdate = 0;
+
+    // modification time of the key file last read (guarded by this)
+    private long keyFileModified = 0;
+
+    // server certificate chains and keys, by the digest of the chain
+    private final Map<String, LocalIdentity> identities =
+            new ConcurrentHashMap<>();
+
+    // the identity of the most recently protected session
+    private volatile LocalIdentity lastIdentity;
+
+    SessionTickets(SSLSessionContextImpl context) {
+        this.context = context;
+    }
+
+    /**
+     * Returns the lifetime hint for new tickets in seconds, zero if the
+     * sessions do not time out.
+     */
+    long getLifetimeHint() {
+        return context.getSessionTimeout();
+    }
+
+    /**
+     * Returns a ticket holding the state of the given session, or null if
+     * the session can not be resumed from a ticket.
+     */
+    byte[] protect(SSLSessionImpl session, SecureRandom random) {
+        TicketKey key = currentKey(random);
+        if (key == null) {
+            return null;
+        }
+
+        byte[] state = encodeState(session);
+        if (state == null) {
+            return null;
+        }
+
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            random.nextBytes(iv);
+
+            Cipher cipher = JsseJce.getCipher("AES/CBC/PKCS5Padding");
+            cipher.init(Cipher.ENCRYPT_MODE, key.aesKey,
+                    new IvParameterSpec(iv), random);
+            byte[] encrypted = cipher.doFinal(state);
+
+            int macOffset = KEY_NAME_LENGTH + IV_LENGTH + 2 + encrypted.length;
+            byte[] ticket = new byte[macOffset + MAC_LENGTH];
+            System.arraycopy(key.name, 0, ticket, 0, KEY_NAME_LENGTH);
+            System.arraycopy(iv, 0, ticket, KEY_NAME_LENGTH, IV_LENGTH);
+            int offset = KEY_NAME_LENGTH + IV_LENGTH;
+            ticket[offset++] = (byte)(encrypted.length >> 8);
+            ticket[offset++] = (byte)encrypted.length;
+            System.arraycopy(encrypted, 0, ticket, offset, encrypted.length);
+
+            Mac mac = JsseJce.getMac("HmacSHA256");
+            mac.init(key.macKey);
+            mac.update(ticket, 0, macOffset);
+            mac.doFinal(ticket, macOffset);
+
+            return ticket;
+        } catch (GeneralSecurityException e) {
+            if (debug != null && Debug.isOn("session")) {
+                System.out.println("%% Cannot protect session ticket: " + e);
+            }
+            return null;
+        } finally {
+            Arrays.fill(state, (byte)0);
+        }
+    }
+
+    /**
+     * Restores a session from the given ticket, with the session ID
+     * which the client sent along with the ticket.  Returns null if
+     * the ticket is not valid or has expired.
+     */
+    SSLSessionImpl restore(byte[] ticket, SessionId sessionId,
+            Collection<SignatureAndHashAlgorithm> algorithms,
+            String host, int port, SecureRandom random) {
+
+        if (ticket.length < KEY_NAME_LENGTH + IV_LENGTH + 2 + MAC_LENGTH) {
+            return null;
+        }
+
+        TicketKey key = null;
+        for (TicketKey k : getKeys(random)) {
+            if (k.matches(ticket)) {
+                key = k;
+                break;
+            }
+        }
+        if (key == null) {
+            if (debug != null && Debug.isOn("session")) {
+                System.out.println("%% Session ticket with unknown key");
+            }
+            return null;
+        }
+
+        int offset = KEY_NAME_LENGTH + IV_LENGTH;
+        int length = ((ticket[offset] & 0xFF) << 8) |
+                (ticket[offset + 1] & 0xFF);
+        offset += 2;
+        int macOffset = offset + length;
+        if (macOffset + MAC_LENGTH != ticket.length) {
+            return null;
+        }
+
+        byte[] state = null;
+        try {
+            Mac mac = JsseJce.getMac("HmacSHA256");
+            mac.init(key.macKey);
+            mac.update(ticket, 0, macOffset);
+            byte[] expected = mac.doFinal();
+            if (!MessageDigest.isEqual(expected, Arrays.copyOfRange(
+                    ticket, macOffset, ticket.length))) {
+                if (debug != null && Debug.isOn("session")) {
+                    System.out.println("%% Session ticket MAC mismatch");
+                }
+                return null;
+            }
+
+            Cipher cipher = JsseJce.getCipher("AES/CBC/PKCS5Padding");
+            cipher.init(Cipher.DECRYPT_MODE, key.aesKey,
+                    new IvParameterSpec(ticket, KEY_NAME_LENGTH, IV_LENGTH));
+            state = cipher.doFinal(ticket, offset, length);
+
+            return decodeState(state, sessionId, algorithms, host, port);
+        } catch (GeneralSecurityException | IOException e) {
+            if (debug != null && Debug.isOn("session")) {
+                System.out.println("%% Invalid session ticket: " + e);
+            }
+            return null;
+        } finally {
+            if (state != null) {
+                Arrays.fill(state, (byte)0);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the given ticket is protected by the key which
+     * protects new tickets, so that it need not be replaced.
+     */
+    synchronized boolean isCurrent(byte[] ticket) {
+        return !keys.isEmpty() && keys.get(0).matches(ticket);
+    }
+
+    private byte[] encodeState(SSLSessionImpl session) {
+        CipherSuite suite = session.getSuite();
+        if (suite.keyExchange == K_KRB5 || suite.keyExchange == K_KRB5_EXPORT) {
+            // the Kerberos principals are not kept in tickets
+            return null;
+        }
+
+        byte[] secret = session.getMasterSecret().getEncoded();
+        if (secret == null) {
+            // the master secret can not be extracted from its provider
+            return null;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            ProtocolVersion version = session.getProtocolVersion();
+            out.writeByte(STATE_VERSION);
+            out.writeByte(version.major);
+            out.writeByte(version.minor);
+            out.writeShort(suite.id);
+            out.writeLong(session.getCreationTime());
+            out.writeByte(secret.length);
+            out.write(secret);
+
+            X509Certificate[] localCerts = session.getLocalCertificateChain();
+            if (localCerts == null) {
+                out.writeByte(0);
+            } else {
+                byte[] digest = rememberIdentity(
+                        localCerts, session.getLocalPrivateKey());
+                out.writeByte(digest.length);
+                out.write(digest);
+            }
+
+            X509Certificate[] peerCerts = null;
+            try {
+                peerCerts = session.getCertificateChain();
+            } catch (javax.net.ssl.SSLPeerUnverifiedException e) {
+                // no client authentication
+            }
+            if (peerCerts == null) {
+                out.writeByte(0);
+            } else {
+                out.writeByte(peerCerts.length);
+                for (X509Certificate cert : peerCerts) {
+                    byte[] encoded = cert.getEncoded();
+                    out.writeInt(encoded.length);
+                    out.write(encoded);
+                }
+            }
+
+            List<SNIServerName> serverNames = session.getRequestedServerNames();
+            out.writeByte(serverNames.size());
+            for (SNIServerName serverName : serverNames) {
+                if (serverName.getType() != StandardConstants.SNI_HOST_NAME) {
+                    return null;
+                }
+                byte[] encoded = serverName.getEncoded();
+                out.writeShort(encoded.length);
+                out.write(encoded);
+            }
+            out.flush();
+        } catch (IOException | GeneralSecurityException e) {
+            if (debug != null && Debug.isOn("session")) {
+                System.out.println("%% Cannot encode session ticket: " + e);
+            }
+            return null;
+        } finally {
+            Arrays.fill(secret, (byte)0);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private SSLSessionImpl decodeState(byte[] state, SessionId sessionId,
+            Collection<SignatureAndHashAlgorithm> algorithms,
+            String host, int port) throws IOException, GeneralSecurityException {
+
+        DataInputStream in =
+                new DataInputStream(new ByteArrayInputStream(state));
+        if (in.readUnsignedByte() != STATE_VERSION) {
+            return null;
+        }
+        ProtocolVersion version = ProtocolVersion.valueOf(
+                in.readUnsignedByte(), in.readUnsignedByte());
+        int id = in.readUnsignedShort();
+        CipherSuite suite = CipherSuite.valueOf(id >> 8, id & 0xFF);
+        long creationTime = in.readLong();
+
+        int timeout = context.getSessionTimeout();
+        if (timeout > 0 &&
+                System.currentTimeMillis() - creationTime > timeout * 1000L) {
+            if (debug != null && Debug.isOn("session")) {
+                System.out.println("%% Session ticket has expired");
+            }
+            return null;
+        }
+
+        byte[] secret = new byte[in.readUnsignedByte()];
+        in.readFully(secret);
+
+        LocalIdentity identity = null;
+        int digestLength = in.readUnsignedByte();
+        if (digestLength != 0) {
+            byte[] digest = new byte[digestLength];
+            in.readFully(digest);
+            identity = identities.get(Base64.getEncoder().encodeToString(digest));
+            if (identity == null) {
+                if (debug != null && Debug.isOn("session")) {
+                    System.out.println("%% Session ticket for unknown " +
+                        "server certificates");
+                }
+                Arrays.fill(secret, (byte)0);
+                return null;
+            }
+        }
+
+        X509Certificate[] peerCerts = null;
+        int count = in.readUnsignedByte();
+        if (count != 0) {
+            CertificateFactory cf = CertificateFactory.getInstance("X.509");
+            peerCerts = new X509Certificate[count];
+            for (int i = 0; i < count; i++) {
+                byte[] encoded = new byte[in.readInt()];
+                in.readFully(encoded);
+                peerCerts[i] = (X509Certificate)cf.generateCertificate(
+                        new ByteArrayInputStream(encoded));
+            }
+        }
+
+        count = in.readUnsignedByte();
+        List<SNIServerName> serverNames = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] encoded = new byte[in.readUnsignedShort()];
+            in.readFully(encoded);
+            serverNames.add(new SNIHostName(encoded));
+        }
+
+        SSLSessionImpl session = new SSLSessionImpl(version, suite,
+                algorithms, sessionId, host, port);
+        session.setMasterSecret(new SecretKeySpec(secret, "TlsMasterSecret"));
+        Arrays.fill(secret, (byte)0);
+        session.setCreationTime(creationTime);
+        if (identity != null) {
+            session.setLocalCertificates(identity.certs);
+            session.setLocalPrivateKey(identity.privateKey);
+        }
+        if (peerCerts != null) {
+            session.setPeerCertificates(peerCerts);
+        }
+        session.setRequestedServerNames(serverNames);
+        return session;
+    }
+
+    /*
+     * Remembers the given server certificate chain and private key, and
+     * returns the digest which identifies them in tickets.
+     */
+    private byte[] rememberIdentity(X509Certificate[] certs,
+            PrivateKey privateKey) throws GeneralSecurityException {
+        LocalIdentity identity = lastIdentity;
+        if (identity != null && identity.certs == certs &&
+                identity.privateKey == privateKey) {
+            return identity.digest;
+        }
+
+        MessageDigest md = JsseJce.getMessageDigest("SHA-256");
+        for (X509Certificate cert : certs) {
+            md.update(cert.getEncoded());
+        }
+        identity = new LocalIdentity(certs, privateKey, md.digest());
+        String name = Base64.getEncoder().encodeToString(identity.digest);
+        if (!identities.containsKey(name)) {
+            if (identities.size() >= MAX_LOCAL_IDENTITIES) {
+                identities.clear();
+            }
+            identities.put(name, identity);
+        }
+        lastIdentity = identity;
+        return identity.digest;
+    }
+
+    private TicketKey currentKey(SecureRandom random) {
+        List<TicketKey> k = getKeys(random);
+        return k.isEmpty() ? null : k.get(0);
+    }
+
+    /*
+     * Returns the keys, after rotating them or reading the key file again
+     * if it is time to do so.
+     */
+    private synchronized List<TicketKey> getKeys(SecureRandom random) {
+        long now = System.currentTimeMillis();
+        if (now < nextKeyUpdate) {
+            return keys;
+        }
+
+        if (keyFile != null) {
+            nextKeyUpdate = now + KEY_FILE_CHECK_INTERVAL;
+            readKeyFile();
+        } else {
+            long lifetime = context.getSessionTimeout() * 1000L;
+            if (lifetime == 0) {
+                lifetime = DEFAULT_KEY_LIFETIME;
+            }
+            byte[] material = new byte[
+                    KEY_NAME_LENGTH + AES_KEY_LENGTH + MAC_KEY_LENGTH];
+            random.nextBytes(material);
+            List<TicketKey> newKeys = new ArrayList<>(2);
+            newKeys.add(new TicketKey(material));
+            Arrays.fill(material, (byte)0);
+            if (!keys.isEmpty()) {
+                // keep accepting the tickets protected by the previous key
+                newKeys.add(keys.get(0));
+            }
+            keys = newKeys;
+            nextKeyUpdate = now + lifetime;
+        }
+        return keys;
+    }
+
+    /*
+     * Reads the keys from the key file if it has been modified.  The
+     * current keys are kept if the file can not be read.
+     */
+    private void readKeyFile() {
+        final File file = new File(keyFile);
+        long modified = AccessController.doPrivileged(
+            new PrivilegedAction<Long>() {
+                @Override
+                public Long run() {
+                    return file.lastModified();
+                }
+            });
+        if (modified == keyFileModified) {
+            return;
+        }
+
+        try {
+            List<String> lines = AccessController.doPrivileged(
+                new PrivilegedExceptionAction<List<String>>() {
+                    @Override
+                    public List<String> run() throws IOException {
+                        return Files.readAllLines(
+                                file.toPath(), StandardCharsets.US_ASCII);
+                    }
+                });
+
+            List<TicketKey> newKeys = new ArrayList<>();
+            for (String line : lines) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                newKeys.add(new TicketKey(parseHex(line)));
+            }
+            if (newKeys.isEmpty()) {
+                throw new IOException("no keys in " + keyFile);
+            }
+            keys = newKeys;
+            keyFileModified = modified;
+            if (debug != null && Debug.isOn("session")) {
+                System.out.println("%% Read " + newKeys.size() +
+                    " session ticket keys from " + keyFile);
+            }
+        } catch (PrivilegedActionException | IOException e) {
+            if (debug != null && Debug.isOn("session")) {
+                System.out.println("%% Cannot read session ticket keys: " +
+                    (e instanceof PrivilegedActionException ?
+                        e.getCause() : e));
+            }
+        }
+    }
+
+    private static byte[] parseHex(String s) throws IOException {
+        int length = KEY_NAME_LENGTH + AES_KEY_LENGTH + MAC_KEY_LENGTH;
+        if (s.length() != length * 2) {
+            throw new IOException("session ticket key must have " +
+                (length * 2) + " hexadecimal digits");
+        }
+        byte[] b = new byte[length];
+        for (int i = 0; i < length; i++) {
+            int hi = Character.digit(s.charAt(2 * i), 16);
+            int lo = Character.digit(s.charAt(2 * i + 1), 16);
+            if (hi < 0 || lo < 0) {
+                throw new IOException("invalid session ticket key");
+            }
+            b[i] = (byte)((hi << 4) | lo);
+        }
+        return b;
+    }
+
+    /*
+     * A key name with the keys for encryption and MAC.
+     */
+    private static final class TicketKey {
+        final byte[] name;
+        final SecretKey aesKey;
+        final SecretKey macKey;
+
+        TicketKey(byte[] material) {
+            name = Arrays.copyOf(material, KEY_NAME_LENGTH);
+            aesKey = new SecretKeySpec(material,
+                    KEY_NAME_LENGTH, AES_KEY_LENGTH, "AES");
+            macKey = new SecretKeySpec(material,
+                    KEY_NAME_LENGTH + AES_KEY_LENGTH, MAC_KEY_LENGTH,
+                    "HmacSHA256");
+        }
+
+        boolean matches(byte[] ticket) {
+            if (ticket.length < KEY_NAME_LENGTH) {
+                return false;
+            }
+            for (int i = 0; i < KEY_NAME_LENGTH; i++) {
+                if (ticket[i] != name[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /*
+     * A server certificate chain and its private key.
+     */
+    private static final class LocalIdentity {
+        final X509Certificate[] certs;
+        final PrivateKey privateKey;
+        final byte[] digest;
+
+        LocalIdentity(X509Certificate[] certs, PrivateKey privateKey,
+                byte[] digest) {
+            this.certs = certs;
+            this.privateKey = privateKey;
+            this.digest = digest;
+        }
+    }
+}
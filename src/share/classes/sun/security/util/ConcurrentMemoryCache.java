@@ -0,0 +1,523 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.security.util;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.lang.ref.*;
+
+/**
+ * A memory cache for heavily shared caches, such as the SSL session caches.
+ * It has the same properties as the caches created by the factory methods
+ * of Cache, with the following differences:
+ *
+ *  . the entries are spread over a number of segments, each guarded by
+ *    its own lock, so that operations on different keys rarely contend.
+ *
+ *  . the maximum size is enforced over the whole cache, but the entry
+ *    replaced when it is exceeded is the least recently used entry of one
+ *    segment, not of the whole cache.
+ *
+ *  . expired entries are found through a timer wheel in each segment,
+ *    with one second slots indexed by the expiration time, rather than by
+ *    scanning all entries.  The wheel is advanced by the operations on
+ *    the segment; there is no background thread.  An entry removed for
+ *    any other reason is unlinked from its slot at once.
+ *
+ *  . the reference queue of a SoftReference cache is only checked by put,
+ *    and checking an empty queue does not take a lock.
+ *
+ *  . the number of hits, misses, evictions and expirations is counted.
+ */
+public final class ConcurrentMemoryCache<K,V> extends Cache<K,V> {
+
+    // timer wheel geometry, the slots of a wheel are allocated on demand
+    private final static int TICK = 1000;
+    private final static int WHEEL_SIZE = 256;
+
+    private final static int MAX_SEGMENTS = 64;
+
+    private final Segment<K,V>[] segments;
+    private final int segmentMask;
+
+    // ReferenceQueue is of type V instead of Cache<K,V>
+    // to allow CacheEntry to extend SoftReference<V>
+    private final ReferenceQueue<V> queue;
+
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicInteger evictionCursor = new AtomicInteger();
+    private volatile int maxSize;
+    private volatile long lifetime;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public ConcurrentMemoryCache(boolean soft, int maxSize) {
+        this(soft, maxSize, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentMemoryCache(boolean soft, int maxSize, int lifetime) {
+        this.maxSize = maxSize > 0 ? maxSize : 0;
+        this.lifetime = lifetime > 0 ? lifetime * 1000L : 0L;
+        if (soft)
+            this.queue = new ReferenceQueue<>();
+        else
+            this.queue = null;
+
+        int n = 1;
+        int cpus = Runtime.getRuntime().availableProcessors();
+        while (n < cpus * 2 && n < MAX_SEGMENTS) {
+            n <<= 1;
+        }
+        segments = (Segment<K,V>[])new Segment<?,?>[n];
+        for (int i = 0; i < n; i++) {
+            segments[i] = new Segment<>();
+        }
+        segmentMask = n - 1;
+    }
+
+    private Segment<K,V> segmentFor(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    /**
+     * Remove the entries whose values have been cleared by the garbage
+     * collector.
+     */
+    private void emptyQueue() {
+        if (queue == null) {
+            return;
+        }
+        while (true) {
+            @SuppressWarnings("unchecked")
+            CacheEntry<K,V> entry = (CacheEntry<K,V>)queue.poll();
+            if (entry == null) {
+                break;
+            }
+            K key = entry.key;
+            if (key == null) {
+                // key is null, entry has already been removed
+                continue;
+            }
+            Segment<K,V> segment = segmentFor(key);
+            synchronized (segment) {
+                if (segment.unlink(entry)) {
+                    count.decrementAndGet();
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        emptyQueue();
+        return count.get();
+    }
+
+    public void clear() {
+        for (Segment<K,V> segment : segments) {
+            synchronized (segment) {
+                for (CacheEntry<K,V> entry : segment.map.values()) {
+                    entry.invalidate();
+                }
+                count.addAndGet(-segment.map.size());
+                segment.map.clear();
+                segment.wheel = null;
+                segment.scheduled = 0;
+            }
+        }
+        if (queue != null) {
+            while (queue.poll() != null) {
+                // empty
+            }
+        }
+    }
+
+    public void put(K key, V value) {
+        emptyQueue();
+        long now = System.currentTimeMillis();
+        long time = lifetime;
+        long expirationTime = (time == 0) ? 0 : now + time;
+        CacheEntry<K,V> newEntry =
+            new CacheEntry<>(key, value, expirationTime, queue);
+        Segment<K,V> segment = segmentFor(key);
+        synchronized (segment) {
+            expire(segment, now);
+            CacheEntry<K,V> oldEntry = segment.map.put(key, newEntry);
+            if (oldEntry != null) {
+                segment.deschedule(oldEntry);
+                oldEntry.invalidate();
+            } else {
+                count.incrementAndGet();
+            }
+            if (expirationTime != 0) {
+                segment.schedule(newEntry);
+            }
+        }
+        int limit = maxSize;
+        if (limit > 0 && count.get() > limit) {
+            evict(limit, newEntry);
+        }
+    }
+
+    /**
+     * Removes least recently used entries, taking one from each segment in
+     * turn, until the cache is down to the limit.  The entry just added is
+     * only removed if there is nothing else to remove.
+     */
+    private void evict(int limit, CacheEntry<K,V> keep) {
+        int idle = 0;
+        while (count.get() > limit && idle <= segments.length) {
+            Segment<K,V> segment =
+                segments[evictionCursor.getAndIncrement() & segmentMask];
+            boolean removed = false;
+            synchronized (segment) {
+                Iterator<CacheEntry<K,V>> t = segment.map.values().iterator();
+                if (t.hasNext()) {
+                    CacheEntry<K,V> lruEntry = t.next();
+                    if (lruEntry != keep || idle == segments.length) {
+                        t.remove();
+                        segment.deschedule(lruEntry);
+                        lruEntry.invalidate();
+                        count.decrementAndGet();
+                        removed = true;
+                    }
+                }
+            }
+            if (removed) {
+                evictions.increment();
+                idle = 0;
+            } else {
+                idle++;
+            }
+        }
+    }
+
+    public V get(Object key) {
+        long now = System.currentTimeMillis();
+        Segment<K,V> segment = segmentFor(key);
+        V value = null;
+        CacheEntry<K,V> invalid = null;
+        synchronized (segment) {
+            expire(segment, now);
+            CacheEntry<K,V> entry = segment.map.get(key);
+            if (entry != null) {
+                value = entry.getValue();
+                if (value == null || !entry.isValid(now)) {
+                    segment.unlink(entry);
+                    count.decrementAndGet();
+                    invalid = entry;
+                }
+            }
+        }
+        if (invalid == null && value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        if (invalid != null) {
+            if (value == null) {
+                // cleared by the garbage collector
+                evictions.increment();
+            } else {
+                expirations.increment();
+            }
+            invalid.invalidate();
+        }
+        return null;
+    }
+
+    public void remove(Object key) {
+        Segment<K,V> segment = segmentFor(key);
+        synchronized (segment) {
+            CacheEntry<K,V> entry = segment.map.remove(key);
+            if (entry != null) {
+                segment.deschedule(entry);
+                entry.invalidate();
+                count.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes the entry for the key only if it is currently mapped to the
+     * given value.
+     *
+     * @return true if the entry was removed
+     */
+    public boolean remove(Object key, V value) {
+        Segment<K,V> segment = segmentFor(key);
+        synchronized (segment) {
+            CacheEntry<K,V> entry = segment.map.get(key);
+            if (entry != null && entry.getValue() == value) {
+                segment.unlink(entry);
+                count.decrementAndGet();
+                entry.invalidate();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void setCapacity(int size) {
+        maxSize = size > 0 ? size : 0;
+        if (size > 0 && count.get() > size) {
+            evict(size, null);
+        }
+    }
+
+    public void setTimeout(int timeout) {
+        lifetime = timeout > 0 ? timeout * 1000L : 0L;
+    }
+
+    // it is a heavyweight method.
+    public void accept(CacheVisitor<K,V> visitor) {
+        emptyQueue();
+        long now = System.currentTimeMillis();
+        Map<K,V> cached = new HashMap<>(count.get());
+        for (Segment<K,V> segment : segments) {
+            synchronized (segment) {
+                expire(segment, now);
+                for (CacheEntry<K,V> entry : segment.map.values()) {
+                    V value = entry.getValue();
+                    if (value != null && entry.isValid(now)) {
+                        cached.put(entry.key, value);
+                    }
+                }
+            }
+        }
+
+        visitor.visit(cached);
+    }
+
+    /**
+     * Returns the maximum number of entries, or 0 if it is unbounded.
+     */
+    public int getCapacity() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of lookups which found a valid entry.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups which did not find a valid entry.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of entries removed because the cache was full
+     * or, for a SoftReference cache, because their values were cleared by
+     * the garbage collector.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns the number of entries removed because their lifetime had
+     * passed.
+     */
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    /**
+     * Returns the number of entries in the timer wheels, for testing.
+     */
+    int scheduledCount() {
+        int n = 0;
+        for (Segment<K,V> segment : segments) {
+            synchronized (segment) {
+                n += segment.scheduled;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Removes the entries of the segment whose lifetime has passed.  The
+     * caller holds the lock of the segment.
+     */
+    private void expire(Segment<K,V> segment, long now) {
+        int expired = segment.expire(now);
+        if (expired != 0) {
+            count.addAndGet(-expired);
+            expirations.add(expired);
+        }
+    }
+
+    /**
+     * A part of the cache, guarded by its own monitor.
+     */
+    private static final class Segment<K,V> {
+
+        // access ordered, the eldest entry is the least recently used one
+        final LinkedHashMap<K, CacheEntry<K,V>> map =
+            new LinkedHashMap<>(16, 0.75f, true);
+
+        // the first entry of each slot of entries by expiration time,
+        // the slots are doubly-linked lists through the entries
+        CacheEntry<K,V>[] wheel;
+        long lastTick;
+
+        // the number of entries in the wheel
+        int scheduled;
+
+        /**
+         * Removes the entry if it is still the one mapped to its key.
+         */
+        boolean unlink(CacheEntry<K,V> entry) {
+            if (entry.key != null && map.remove(entry.key, entry)) {
+                deschedule(entry);
+                return true;
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        void schedule(CacheEntry<K,V> entry) {
+            if (wheel == null) {
+                wheel = (CacheEntry<K,V>[])new CacheEntry<?,?>[WHEEL_SIZE];
+                lastTick = System.currentTimeMillis() / TICK;
+            }
+            long tick = Math.max(entry.expirationTime / TICK, lastTick + 1);
+            int slot = (int)(tick % WHEEL_SIZE);
+            CacheEntry<K,V> head = wheel[slot];
+            entry.slot = slot;
+            entry.prev = null;
+            entry.next = head;
+            if (head != null) {
+                head.prev = entry;
+            }
+            wheel[slot] = entry;
+            scheduled++;
+        }
+
+        /**
+         * Removes the entry from its wheel slot, if it is in one.
+         */
+        void deschedule(CacheEntry<K,V> entry) {
+            if (entry.slot < 0) {
+                return;
+            }
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                wheel[entry.slot] = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            entry.slot = -1;
+            scheduled--;
+        }
+
+        /**
+         * Removes the entries in the wheel slots which have come due since
+         * the last call, and returns how many of them were still cached.
+         * Entries which are due in a later turn of the wheel are left in
+         * their slot.
+         */
+        int expire(long now) {
+            long nowTick = now / TICK;
+            if (wheel == null || nowTick <= lastTick) {
+                return 0;
+            }
+            int expired = 0;
+            long first = Math.max(lastTick + 1, nowTick - WHEEL_SIZE + 1);
+            for (long t = first; t <= nowTick; t++) {
+                CacheEntry<K,V> entry = wheel[(int)(t % WHEEL_SIZE)];
+                while (entry != null) {
+                    CacheEntry<K,V> next = entry.next;
+                    if (entry.expirationTime / TICK <= nowTick) {
+                        deschedule(entry);
+                        if (unlink(entry)) {
+                            expired++;
+                        }
+                        entry.invalidate();
+                    }
+                    entry = next;
+                }
+            }
+            lastTick = nowTick;
+            return expired;
+        }
+    }
+
+    /**
+     * A cache entry.  The value of a SoftReference cache entry is only
+     * softly reachable, the value of other entries is also held in the
+     * hard field.
+     */
+    private static class CacheEntry<K,V> extends SoftReference<V> {
+
+        private K key;
+        private V hard;
+        private long expirationTime;
+
+        // the wheel slot of the entry, or -1, and its neighbours there
+        private int slot = -1;
+        private CacheEntry<K,V> prev, next;
+
+        CacheEntry(K key, V value, long expirationTime,
+                ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+            this.hard = (queue == null) ? value : null;
+            this.expirationTime = expirationTime;
+        }
+
+        V getValue() {
+            return get();
+        }
+
+        boolean isValid(long currentTime) {
+            return (expirationTime == 0 || currentTime <= expirationTime);
+        }
+
+        void invalidate() {
+            clear();
+            key = null;
+            hard = null;
+            expirationTime = -1;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2002, 2011, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2002, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -32,7 +32,10 @@ import java.security.cert.*;
 
 import javax.security.auth.x500.X500Principal;
 import sun.security.action.GetBooleanAction;
+import sun.security.action.GetIntegerAction;
 import sun.security.provider.certpath.AlgorithmChecker;
+import sun.security.util.Cache;
+import sun.security.util.ConcurrentMemoryCache;
 
 /**
  * Validator implementation built on the PKIX CertPath API. This
@@ -46,6 +49,18 @@ import sun.security.provider.certpath.AlgorithmChecker;
  * {@code PKIXValidator} objects are immutable once they have been created.
  * Please DO NOT add methods that can change the state of an instance once
  * it has been created.
+ * <p>
+ * Chains that pass the PKIX validator are remembered, so that the same
+ * chain presented again, typically by the same TLS peer, is not validated
+ * again while all its certificates are still within their validity period.
+ * The algorithm constraints of the caller are still checked each time.
+ * Chains are not remembered when revocation checking is enabled, as the
+ * CertPath API does not tell how long the CRLs and OCSP responses used
+ * stay fresh, nor when the parameters have certification path checkers,
+ * a validation date or target constraints. The number of chains and how
+ * long they are remembered are set by the system properties
+ * "jdk.security.validator.cacheSize" (0 disables the cache) and
+ * "jdk.security.validator.cacheLifetime" (in seconds).
  *
  * @author Andreas Sterbenz
  */
@@ -63,6 +78,13 @@ public final class PKIXValidator extends Validator {
     // enable use of the validator if possible
     private final static boolean TRY_VALIDATOR = true;
 
+    // the number of validated chains each instance remembers, and for how
+    // many seconds
+    private final static int CACHE_SIZE = AccessController.doPrivileged(
+        new GetIntegerAction("jdk.security.validator.cacheSize", 1024));
+    private final static int CACHE_LIFETIME = AccessController.doPrivileged(
+        new GetIntegerAction("jdk.security.validator.cacheLifetime", 600));
+
     private final Set<X509Certificate> trustedCerts;
     private final PKIXBuilderParameters parameterTemplate;
     private int certPathLength = -1;
@@ -73,6 +95,13 @@ public final class PKIXValidator extends Validator {
 
     private final boolean plugin;
 
+    // chains validated by doValidate(), or null if disabled
+    private final Cache<List<Object>, ValidationResult> validationCache =
+        (CACHE_SIZE > 0) ?
+            new ConcurrentMemoryCache<List<Object>, ValidationResult>(
+                true, CACHE_SIZE, Math.max(CACHE_LIFETIME, 0)) :
+            null;
+
     PKIXValidator(String variant, Collection<X509Certificate> trustedCerts) {
         super(TYPE_PKIX, variant);
         if (trustedCerts instanceof Set) {
@@ -246,7 +275,7 @@ public final class PKIXValidator extends Validator {
                     // Remove and call validator on partial chain [0 .. i-1]
                     X509Certificate[] newChain = new X509Certificate[i];
                     System.arraycopy(chain, 0, newChain, 0, i);
-                    return doValidate(newChain, pkixParameters);
+                    return doValidate(newChain, pkixParameters, constraints);
                 }
                 prevIssuer = cert.getIssuerX500Principal();
             }
@@ -257,7 +286,7 @@ public final class PKIXValidator extends Validator {
             X500Principal subject = last.getSubjectX500Principal();
             if (trustedSubjects.containsKey(issuer) &&
                     isSignatureValid(trustedSubjects.get(issuer), last)) {
-                return doValidate(chain, pkixParameters);
+                return doValidate(chain, pkixParameters, constraints);
             }
 
             // don't fallback to builder if called from plugin/webstart
@@ -279,7 +308,7 @@ public final class PKIXValidator extends Validator {
                         // should never occur, but ...
                         throw new CertificateException(iape);
                     }
-                    doValidate(newChain, pkixParameters);
+                    doValidate(newChain, pkixParameters, constraints);
                 }
                 // if the rest of the chain is valid, throw exception
                 // indicating no trust anchor was found
@@ -335,10 +364,24 @@ public final class PKIXValidator extends Validator {
     }
 
     private X509Certificate[] doValidate(X509Certificate[] chain,
-            PKIXBuilderParameters params) throws CertificateException {
+            PKIXBuilderParameters params, AlgorithmConstraints constraints)
+            throws CertificateException {
         try {
             setDate(params);
 
+            List<Object> key = getCacheKey(chain, params);
+            if (key != null) {
+                ValidationResult cached = validationCache.get(key);
+                if (cached != null) {
+                    if (cached.isCurrent(System.currentTimeMillis())) {
+                        certPathLength = chain.length;
+                        checkAlgorithms(chain, constraints);
+                        return cached.trustedChain.clone();
+                    }
+                    validationCache.remove(key);
+                }
+            }
+
             // do the validation
             CertPathValidator validator = CertPathValidator.getInstance("PKIX");
             CertPath path = factory.generateCertPath(Arrays.asList(chain));
@@ -346,13 +389,97 @@ public final class PKIXValidator extends Validator {
             PKIXCertPathValidatorResult result =
                 (PKIXCertPathValidatorResult)validator.validate(path, params);
 
-            return toArray(path, result.getTrustAnchor());
+            X509Certificate[] trustedChain =
+                toArray(path, result.getTrustAnchor());
+            if (key != null) {
+                validationCache.put(key,
+                    new ValidationResult(chain, trustedChain.clone()));
+            }
+            return trustedChain;
         } catch (GeneralSecurityException e) {
             throw new ValidatorException
                 ("PKIX path validation failed: " + e.toString(), e);
         }
     }
 
+    /**
+     * Returns the key under which the result of validating the chain with
+     * the parameters is cached, or null if it must not be cached. The key
+     * holds everything besides the chain that the outcome depends on. The
+     * certification path checkers the parameters may hold are only allowed
+     * to be the AlgorithmChecker added by engineValidate(), which is run
+     * again on each hit.
+     */
+    private List<Object> getCacheKey(X509Certificate[] chain,
+            PKIXBuilderParameters params) {
+        if (validationCache == null ||
+                params.isRevocationEnabled() ||
+                params.getDate() != null ||
+                params.getTargetCertConstraints() != null) {
+            return null;
+        }
+        for (PKIXCertPathChecker checker : params.getCertPathCheckers()) {
+            if (!(checker instanceof AlgorithmChecker)) {
+                return null;
+            }
+        }
+        int flags = (params.isExplicitPolicyRequired() ? 1 : 0) |
+                    (params.isPolicyMappingInhibited() ? 2 : 0) |
+                    (params.isAnyPolicyInhibited() ? 4 : 0) |
+                    (params.getPolicyQualifiersRejected() ? 8 : 0);
+        return Arrays.<Object>asList(Arrays.asList(chain.clone()),
+                                     params.getTrustAnchors(),
+                                     params.getInitialPolicies(),
+                                     flags,
+                                     params.getSigProvider());
+    }
+
+    /**
+     * Checks the chain against the algorithm constraints, from the
+     * certificate closest to the anchor, as the AlgorithmChecker added by
+     * engineValidate() would have during the validation.
+     */
+    private static void checkAlgorithms(X509Certificate[] chain,
+            AlgorithmConstraints constraints)
+            throws CertPathValidatorException {
+        if (constraints == null) {
+            return;
+        }
+        AlgorithmChecker checker = new AlgorithmChecker(constraints);
+        checker.init(false);
+        Set<String> unresolvedCritExts = Collections.<String>emptySet();
+        for (int i = chain.length - 1; i >= 0; i--) {
+            checker.check(chain[i], unresolvedCritExts);
+        }
+    }
+
+    /**
+     * The outcome of validating a chain, good while the current time is
+     * within the validity period of all its certificates.
+     */
+    private static final class ValidationResult {
+        final X509Certificate[] trustedChain;
+        private final long notBefore;
+        private final long notAfter;
+
+        ValidationResult(X509Certificate[] chain,
+                X509Certificate[] trustedChain) {
+            this.trustedChain = trustedChain;
+            long start = Long.MIN_VALUE;
+            long end = Long.MAX_VALUE;
+            for (X509Certificate cert : chain) {
+                start = Math.max(start, cert.getNotBefore().getTime());
+                end = Math.min(end, cert.getNotAfter().getTime());
+            }
+            this.notBefore = start;
+            this.notAfter = end;
+        }
+
+        boolean isCurrent(long now) {
+            return now >= notBefore && now <= notAfter;
+        }
+    }
+
     private X509Certificate[] doBuild(X509Certificate[] chain,
         Collection<X509Certificate> otherCerts,
         PKIXBuilderParameters params) throws CertificateException {
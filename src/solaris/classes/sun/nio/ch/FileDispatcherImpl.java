@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2000, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2000, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -72,6 +72,12 @@ class FileDispatcherImpl extends FileDispatcher
         return writev0(fd, address, len);
     }
 
+    long splice(FileDescriptor src, FileDescriptor dst, long position, long len)
+        throws IOException
+    {
+        return splice0(src, dst, position, len);
+    }
+
     int force(FileDescriptor fd, boolean metaData) throws IOException {
         return force0(fd, metaData);
     }
@@ -128,6 +134,9 @@ class FileDispatcherImpl extends FileDispatcher
     static native long writev0(FileDescriptor fd, long address, int len)
         throws IOException;
 
+    static native long splice0(FileDescriptor src, FileDescriptor dst,
+                               long position, long len) throws IOException;
+
     static native int force0(FileDescriptor fd, boolean metaData)
         throws IOException;
 
@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.nio.ch;
+
+import java.io.IOException;
+import java.security.AccessController;
+import sun.misc.Unsafe;
+import sun.security.action.GetPropertyAction;
+
+/**
+ * Provides access to the Linux io_uring facility. An instance of this class
+ * encapsulates a submission queue (SQ) and completion queue (CQ) that are
+ * shared with the kernel.
+ *
+ * Submission queue entries are filled in and published by threads holding
+ * the ring's submit lock; completion queue entries are consumed by a single
+ * thread at a time (the polling thread of the owning port).
+ */
+
+final class IoUring {
+    private static final Unsafe unsafe = Unsafe.getUnsafe();
+
+    /**
+     * struct io_uring_sqe {
+     *     __u8    opcode;
+     *     __u8    flags;
+     *     __u16   ioprio;
+     *     __s32   fd;
+     *     __u64   off;
+     *     __u64   addr;
+     *     __u32   len;
+     *     union {
+     *         __kernel_rwf_t  rw_flags;
+     *         __u16           poll_events;
+     *         ...
+     *     };
+     *     __u64   user_data;
+     *     __u16   buf_index;
+     *     ...
+     * };
+     */
+    private static final int SIZEOF_SQE             = 64;
+    private static final int OFFSETOF_SQE_OPCODE    = 0;
+    private static final int OFFSETOF_SQE_FD        = 4;
+    private static final int OFFSETOF_SQE_OFF       = 8;
+    private static final int OFFSETOF_SQE_ADDR      = 16;
+    private static final int OFFSETOF_SQE_LEN       = 24;
+    private static final int OFFSETOF_SQE_OP_FLAGS  = 28;
+    private static final int OFFSETOF_SQE_USER_DATA = 32;
+    private static final int OFFSETOF_SQE_BUF_INDEX = 40;
+
+    /**
+     * struct io_uring_cqe {
+     *     __u64   user_data;
+     *     __s32   res;
+     *     __u32   flags;
+     * };
+     */
+    private static final int SIZEOF_CQE             = 16;
+    private static final int OFFSETOF_CQE_USER_DATA = 0;
+    private static final int OFFSETOF_CQE_RES       = 8;
+
+    // opcodes
+    static final byte IORING_OP_NOP             = 0;
+    static final byte IORING_OP_READ_FIXED      = 4;
+    static final byte IORING_OP_WRITE_FIXED     = 5;
+    static final byte IORING_OP_POLL_ADD        = 6;
+    static final byte IORING_OP_POLL_REMOVE     = 7;
+    static final byte IORING_OP_ASYNC_CANCEL    = 14;
+    static final byte IORING_OP_READ            = 22;
+    static final byte IORING_OP_WRITE           = 23;
+
+    // io_uring_enter flags
+    static final int IORING_ENTER_GETEVENTS     = 1;
+
+    // errors (negated in cqe->res)
+    static final int EINTR      = 4;
+    static final int EAGAIN     = 11;
+    static final int ENOENT     = 2;
+    static final int ECANCELED  = 125;
+
+    // indexes into the layout array populated by setup
+    static final int LAYOUT_RING_FD         = 0;
+    static final int LAYOUT_SQ_HEAD         = 1;
+    static final int LAYOUT_SQ_TAIL         = 2;
+    static final int LAYOUT_SQ_MASK         = 3;
+    static final int LAYOUT_SQ_ENTRIES      = 4;
+    static final int LAYOUT_SQ_ARRAY        = 5;
+    static final int LAYOUT_SQES            = 6;
+    static final int LAYOUT_CQ_HEAD         = 7;
+    static final int LAYOUT_CQ_TAIL         = 8;
+    static final int LAYOUT_CQ_MASK         = 9;
+    static final int LAYOUT_CQ_ENTRIES      = 10;
+    static final int LAYOUT_CQES            = 11;
+    static final int LAYOUT_SQ_RING_PTR     = 12;
+    static final int LAYOUT_SQ_RING_SIZE    = 13;
+    static final int LAYOUT_CQ_RING_PTR     = 14;
+    static final int LAYOUT_CQ_RING_SIZE    = 15;
+    static final int LAYOUT_SQES_SIZE       = 16;
+    static final int LAYOUT_SIZE            = 17;
+
+    // the io_uring file descriptor
+    private final int ringFd;
+
+    // mapped ring memory, retained so that it can be unmapped
+    private final long[] layout;
+
+    // submission queue
+    private final long sqHead;
+    private final long sqTail;
+    private final int sqMask;
+    private final int sqEntries;
+    private final long sqes;
+
+    // completion queue
+    private final long cqHead;
+    private final long cqTail;
+    private final int cqMask;
+    private final long cqes;
+
+    // guards the SQ tail and the count of published but unsubmitted entries
+    private final Object submitLock = new Object();
+    private int localSqTail;
+    private int toSubmit;
+    private boolean flushing;
+
+    // true when closed
+    private boolean closed;
+
+    IoUring(int entries) throws IOException {
+        long[] layout = new long[LAYOUT_SIZE];
+        setup(entries, layout);
+        this.layout = layout;
+        this.ringFd = (int)layout[LAYOUT_RING_FD];
+        this.sqHead = layout[LAYOUT_SQ_HEAD];
+        this.sqTail = layout[LAYOUT_SQ_TAIL];
+        this.sqMask = unsafe.getInt(layout[LAYOUT_SQ_MASK]);
+        this.sqEntries = unsafe.getInt(layout[LAYOUT_SQ_ENTRIES]);
+        this.sqes = layout[LAYOUT_SQES];
+        this.cqHead = layout[LAYOUT_CQ_HEAD];
+        this.cqTail = layout[LAYOUT_CQ_TAIL];
+        this.cqMask = unsafe.getInt(layout[LAYOUT_CQ_MASK]);
+        this.cqes = layout[LAYOUT_CQES];
+        this.localSqTail = unsafe.getIntVolatile(null, sqTail);
+
+        // SQ array maps ring slots to SQEs; use an identity mapping
+        long sqArray = layout[LAYOUT_SQ_ARRAY];
+        for (int i=0; i<sqEntries; i++) {
+            unsafe.putInt(sqArray + 4*i, i);
+        }
+    }
+
+    /**
+     * Returns the io_uring file descriptor.
+     */
+    int fd() {
+        return ringFd;
+    }
+
+    /**
+     * Queues a submission queue entry, flushing the submission queue to the
+     * kernel unless another thread is already doing so. Entries queued by
+     * several threads concurrently are submitted with a single call to
+     * io_uring_enter.
+     */
+    void submit(byte opcode, int fd, long off, long addr, int len,
+                int opFlags, int bufIndex, long userData)
+        throws IOException
+    {
+        boolean flushNow;
+        synchronized (submitLock) {
+            if (closed)
+                throw new IOException("io_uring closed");
+
+            // submission queue full; submit what is queued and retry
+            while (localSqTail - unsafe.getIntVolatile(null, sqHead) == sqEntries) {
+                if (toSubmit > 0 && !flushing) {
+                    int n = enter(ringFd, toSubmit, 0, 0);
+                    toSubmit -= n;
+                } else {
+                    try {
+                        submitLock.wait(1);
+                    } catch (InterruptedException x) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+
+            long sqe = sqes + (long)SIZEOF_SQE * (localSqTail & sqMask);
+            unsafe.setMemory(sqe, SIZEOF_SQE, (byte)0);
+            unsafe.putByte(sqe + OFFSETOF_SQE_OPCODE, opcode);
+            unsafe.putInt(sqe + OFFSETOF_SQE_FD, fd);
+            unsafe.putLong(sqe + OFFSETOF_SQE_OFF, off);
+            unsafe.putLong(sqe + OFFSETOF_SQE_ADDR, addr);
+            unsafe.putInt(sqe + OFFSETOF_SQE_LEN, len);
+            if (opcode == IORING_OP_POLL_ADD) {
+                unsafe.putShort(sqe + OFFSETOF_SQE_OP_FLAGS, (short)opFlags);
+            } else {
+                unsafe.putInt(sqe + OFFSETOF_SQE_OP_FLAGS, opFlags);
+            }
+            unsafe.putLong(sqe + OFFSETOF_SQE_USER_DATA, userData);
+            unsafe.putShort(sqe + OFFSETOF_SQE_BUF_INDEX, (short)bufIndex);
+
+            // publish entry
+            localSqTail++;
+            unsafe.putIntVolatile(null, sqTail, localSqTail);
+            toSubmit++;
+
+            flushNow = !flushing;
+            if (flushNow)
+                flushing = true;
+        }
+        if (flushNow)
+            flush();
+    }
+
+    /**
+     * Submits all published entries, including those published by other
+     * threads while this thread is in io_uring_enter.
+     */
+    private void flush() throws IOException {
+        try {
+            for (;;) {
+                int n;
+                synchronized (submitLock) {
+                    n = toSubmit;
+                    if (n == 0 || closed) {
+                        flushing = false;
+                        submitLock.notifyAll();
+                        return;
+                    }
+                }
+                int submitted = enter(ringFd, n, 0, 0);
+                synchronized (submitLock) {
+                    toSubmit -= submitted;
+                }
+                if (submitted < n)
+                    Thread.yield();     // CQ overflow, wait for reaper
+            }
+        } catch (IOException x) {
+            synchronized (submitLock) {
+                flushing = false;
+                submitLock.notifyAll();
+            }
+            throw x;
+        }
+    }
+
+    /**
+     * Waits for at least one completion queue entry.
+     */
+    void awaitCompletions() throws IOException {
+        if (unsafe.getIntVolatile(null, cqTail) == unsafe.getInt(cqHead))
+            enter(ringFd, 0, 1, IORING_ENTER_GETEVENTS);
+    }
+
+    /**
+     * Returns the number of completion queue entries ready to be consumed.
+     */
+    int completionsReady() {
+        return unsafe.getIntVolatile(null, cqTail) - unsafe.getInt(cqHead);
+    }
+
+    /**
+     * Returns the address of the i-th completion queue entry that is ready
+     * to be consumed.
+     */
+    long getCompletion(int i) {
+        int head = unsafe.getInt(cqHead);
+        return cqes + (long)SIZEOF_CQE * ((head + i) & cqMask);
+    }
+
+    /**
+     * Returns cqe->user_data
+     */
+    static long getUserData(long cqe) {
+        return unsafe.getLong(cqe + OFFSETOF_CQE_USER_DATA);
+    }
+
+    /**
+     * Returns cqe->res
+     */
+    static int getResult(long cqe) {
+        return unsafe.getInt(cqe + OFFSETOF_CQE_RES);
+    }
+
+    /**
+     * Releases {@code n} completion queue entries back to the kernel.
+     */
+    void consumeCompletions(int n) {
+        int head = unsafe.getInt(cqHead);
+        unsafe.putIntVolatile(null, cqHead, head + n);
+    }
+
+    /**
+     * Registers the given buffers with the kernel so that they can be used
+     * with IORING_OP_READ_FIXED and IORING_OP_WRITE_FIXED.
+     *
+     * @param   iovecs  address of an array of struct iovec
+     * @return  0 if the buffers are registered, otherwise the errno value
+     */
+    int registerBuffers(long iovecs, int count) {
+        return registerBuffers0(ringFd, iovecs, count);
+    }
+
+    /**
+     * Unmaps the rings and closes the io_uring file descriptor.
+     */
+    void close() {
+        synchronized (submitLock) {
+            if (closed)
+                return;
+            closed = true;
+        }
+        unmap(layout);
+        close0(ringFd);
+    }
+
+    /**
+     * Returns {@code true} if the kernel supports io_uring and the operations
+     * used by this implementation, and its use has not been disabled with
+     * the {@code sun.nio.ch.disableIoUring} property.
+     */
+    static boolean isSupported() {
+        return supported;
+    }
+
+    // -- Native methods --
+
+    static native String strerror(int errno);
+
+    private static native boolean isSupported0();
+
+    private static native void setup(int entries, long[] layout)
+        throws IOException;
+
+    private static native int enter(int ringFd, int toSubmit, int minComplete,
+                                    int flags) throws IOException;
+
+    private static native int registerBuffers0(int ringFd, long iovecs, int count);
+
+    private static native void unmap(long[] layout);
+
+    private static native void close0(int ringFd);
+
+    private static final boolean supported;
+    static {
+        IOUtil.load();
+        String propValue = AccessController.doPrivileged(
+            new GetPropertyAction("sun.nio.ch.disableIoUring", "false"));
+        boolean disabled = (propValue.length() == 0) ?
+            true : Boolean.valueOf(propValue);
+        supported = !disabled && isSupported0();
+    }
+}
@@ -0,0 +1,471 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.nio.ch;
+
+import java.nio.channels.*;
+import java.util.concurrent.*;
+import java.nio.ByteBuffer;
+import java.nio.BufferOverflowException;
+import java.io.IOException;
+import java.io.FileDescriptor;
+import java.util.HashSet;
+import java.util.Set;
+import sun.misc.Unsafe;
+import static sun.nio.ch.IoUring.*;
+
+/**
+ * Linux implementation of AsynchronousFileChannel that submits read and write
+ * operations to an io_uring. File locking and the size, truncate and force
+ * methods are implemented by the super class.
+ */
+
+public class IoUringAsynchronousFileChannelImpl
+    extends SimpleAsynchronousFileChannelImpl
+    implements Groupable
+{
+    private static final Unsafe unsafe = Unsafe.getUnsafe();
+    private static final long arrayBaseOffset = unsafe.arrayBaseOffset(byte[].class);
+
+    // Lazy initialization of default port, null if io_uring cannot be setup
+    private static class DefaultPortHolder {
+        static final IoUringPort defaultPort = defaultPort();
+        private static IoUringPort defaultPort() {
+            try {
+                return new IoUringPort(null, ThreadPool.createDefault()).start();
+            } catch (IOException ioe) {
+                return null;
+            }
+        }
+    }
+
+    // file descriptor used in submission queue entries
+    private final int fdVal;
+
+    // port (group) that completes the I/O operations
+    private final IoUringPort port;
+
+    private final boolean isDefaultPort;
+
+    // user_data of the operations in progress, for cancellation at close
+    private final Set<Long> pendingOps = new HashSet<Long>();
+
+    // set to true when the port has been released (pendingOps)
+    private boolean detached;
+
+
+    private IoUringAsynchronousFileChannelImpl(FileDescriptor fdObj,
+                                               boolean reading,
+                                               boolean writing,
+                                               IoUringPort port,
+                                               boolean isDefaultPort)
+    {
+        super(fdObj, reading, writing, port.executor());
+        this.fdVal = IOUtil.fdVal(fdObj);
+        this.port = port;
+        this.isDefaultPort = isDefaultPort;
+    }
+
+    public static AsynchronousFileChannel open(FileDescriptor fdo,
+                                               boolean reading,
+                                               boolean writing,
+                                               ThreadPool pool)
+    {
+        // fallback to the portable implementation if io_uring is not usable
+        if (!IoUring.isSupported())
+            return SimpleAsynchronousFileChannelImpl.open(fdo, reading, writing, pool);
+
+        IoUringPort port;
+        boolean isDefaultPort;
+        if (pool == null) {
+            port = DefaultPortHolder.defaultPort;
+            isDefaultPort = true;
+        } else {
+            try {
+                port = new IoUringPort(null, pool).start();
+            } catch (IOException x) {
+                port = null;
+            }
+            isDefaultPort = false;
+        }
+        if (port == null)
+            return SimpleAsynchronousFileChannelImpl.open(fdo, reading, writing, pool);
+        return new
+            IoUringAsynchronousFileChannelImpl(fdo, reading, writing, port, isDefaultPort);
+    }
+
+    @Override
+    public AsynchronousChannelGroupImpl group() {
+        return port;
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+
+        // cancel outstanding operations and wait up to 50ms for them to
+        // complete. The buffers of operations that do not complete in time
+        // remain referenced by their handlers until they do complete.
+        synchronized (pendingOps) {
+            for (Long userData: pendingOps) {
+                port.cancel(userData);
+            }
+            if (!pendingOps.isEmpty()) {
+                try {
+                    pendingOps.wait(50);
+                } catch (InterruptedException x) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            // for the non-default group close the port
+            if (!isDefaultPort && !detached) {
+                detached = true;
+                port.detachFromThreadPool();
+            }
+        }
+    }
+
+    /**
+     * Translates Throwable to IOException
+     */
+    private static IOException toIOException(Throwable x) {
+        if (x instanceof IOException) {
+            if (x instanceof ClosedChannelException)
+                x = new AsynchronousCloseException();
+            return (IOException)x;
+        }
+        return new IOException(x);
+    }
+
+    /**
+     * Invoked by a task when its operation has completed.
+     */
+    private void completed(Task<?> task) {
+        synchronized (pendingOps) {
+            pendingOps.remove(task.userData);
+            if (pendingOps.isEmpty())
+                pendingOps.notifyAll();
+        }
+    }
+
+    /**
+     * Base class for read and write tasks. Heap buffers are substituted by a
+     * registered buffer when one is available so that the operation can use
+     * IORING_OP_READ_FIXED/IORING_OP_WRITE_FIXED; otherwise a temporary
+     * direct buffer is used.
+     */
+    private abstract class Task<A> implements IoUringPort.ResultHandler {
+        final ByteBuffer bb;
+        final int pos, rem;             // buffer position/remaining
+        final long position;            // file position
+        final PendingFuture<Integer,A> result;
+
+        // user_data of the submitted operation (pendingOps)
+        long userData;
+
+        // set when substituting a heap buffer
+        int fixedIndex = -1;
+        ByteBuffer buf;
+
+        Task(ByteBuffer bb, int pos, int rem, long position,
+             PendingFuture<Integer,A> result)
+        {
+            this.bb = bb;
+            this.pos = pos;
+            this.rem = rem;
+            this.position = position;
+            this.result = result;
+        }
+
+        /**
+         * Returns the address of the memory for the operation, substituting
+         * a native buffer if the buffer is not direct.
+         */
+        long address() {
+            if (bb instanceof DirectBuffer)
+                return ((DirectBuffer)bb).address() + pos;
+            if (bb.hasArray())
+                fixedIndex = port.acquireFixedBuffer(rem);
+            if (fixedIndex >= 0)
+                return port.fixedBufferAddress(fixedIndex);
+            buf = Util.getTemporaryDirectBuffer(rem);
+            return ((DirectBuffer)buf).address();
+        }
+
+        void releaseBufferIfSubstituted() {
+            if (fixedIndex >= 0) {
+                port.releaseFixedBuffer(fixedIndex);
+                fixedIndex = -1;
+            } else if (buf != null) {
+                Util.releaseTemporaryDirectBuffer(buf);
+                buf = null;
+            }
+        }
+
+        void start(byte opcode, byte fixedOpcode) {
+            long address = address();
+            int bufIndex = port.fixedBufferIndex(address, rem);
+            try {
+                begin();
+
+                // synchronize with the handler thread in case the operation
+                // completes before it is recorded as pending
+                synchronized (pendingOps) {
+                    if (bufIndex >= 0) {
+                        userData = port.submit(fixedOpcode, fdVal, position,
+                                               address, rem, bufIndex, this);
+                    } else {
+                        userData = port.submit(opcode, fdVal, position,
+                                               address, rem, 0, this);
+                    }
+                    pendingOps.add(userData);
+                }
+                return;
+            } catch (Throwable x) {
+                // failed to initiate I/O
+                releaseBufferIfSubstituted();
+                result.setFailure(toIOException(x));
+            } finally {
+                end();
+            }
+
+            // invoke completion handler
+            Invoker.invoke(result);
+        }
+
+        abstract int updatePosition(int res);
+
+        /**
+         * Executed when the I/O has completed
+         */
+        @Override
+        public void completed(int res, boolean canInvokeDirect) {
+            IoUringAsynchronousFileChannelImpl.this.completed(this);
+            int n = updatePosition(res);
+
+            // return native buffer if substituted
+            releaseBufferIfSubstituted();
+
+            // release waiters and invoke completion handler
+            result.setResult(n);
+            if (canInvokeDirect) {
+                Invoker.invokeUnchecked(result);
+            } else {
+                Invoker.invoke(result);
+            }
+        }
+
+        @Override
+        public void failed(int errno, IOException x) {
+            IoUringAsynchronousFileChannelImpl.this.completed(this);
+
+            // return native buffer if substituted
+            releaseBufferIfSubstituted();
+
+            // release waiters and invoke completion handler
+            if (isOpen() && errno != ECANCELED) {
+                result.setFailure(x);
+            } else {
+                result.setFailure(new AsynchronousCloseException());
+            }
+            Invoker.invoke(result);
+        }
+    }
+
+    /**
+     * Task that initiates read operation and handles completion result.
+     */
+    private class ReadTask<A> extends Task<A> {
+        ReadTask(ByteBuffer dst, int pos, int rem, long position,
+                 PendingFuture<Integer,A> result)
+        {
+            super(dst, pos, rem, position, result);
+        }
+
+        @Override
+        int updatePosition(int res) {
+            // pread returns 0 at end of file
+            if (res == 0)
+                return -1;
+            if (fixedIndex >= 0) {
+                unsafe.copyMemory(null, port.fixedBufferAddress(fixedIndex),
+                                  bb.array(),
+                                  arrayBaseOffset + bb.arrayOffset() + pos,
+                                  res);
+                try {
+                    bb.position(pos + res);
+                } catch (IllegalArgumentException x) {
+                    // someone has changed the position; ignore
+                }
+            } else if (buf != null) {
+                buf.position(res).flip();
+                try {
+                    bb.put(buf);
+                } catch (BufferOverflowException x) {
+                    // someone has changed the position; ignore
+                }
+            } else {
+                try {
+                    bb.position(pos + res);
+                } catch (IllegalArgumentException x) {
+                    // someone has changed the position; ignore
+                }
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Task that initiates write operation and handles completion result.
+     */
+    private class WriteTask<A> extends Task<A> {
+        WriteTask(ByteBuffer src, int pos, int rem, long position,
+                  PendingFuture<Integer,A> result)
+        {
+            super(src, pos, rem, position, result);
+        }
+
+        @Override
+        long address() {
+            long address = super.address();
+            if (fixedIndex >= 0) {
+                unsafe.copyMemory(bb.array(),
+                                  arrayBaseOffset + bb.arrayOffset() + pos,
+                                  null, address, rem);
+            } else if (buf != null) {
+                buf.put(bb);
+                buf.flip();
+                // temporarily restore position as we don't know how many bytes
+                // will be written
+                bb.position(pos);
+            }
+            return address;
+        }
+
+        @Override
+        int updatePosition(int res) {
+            // if the I/O succeeded then adjust buffer position
+            if (res > 0) {
+                try {
+                    bb.position(pos + res);
+                } catch (IllegalArgumentException x) {
+                    // someone has changed the position
+                }
+            }
+            return res;
+        }
+    }
+
+    @Override
+    <A> Future<Integer> implRead(ByteBuffer dst,
+                                 long position,
+                                 A attachment,
+                                 CompletionHandler<Integer,? super A> handler)
+    {
+        if (!reading)
+            throw new NonReadableChannelException();
+        if (position < 0)
+            throw new IllegalArgumentException("Negative position");
+        if (dst.isReadOnly())
+            throw new IllegalArgumentException("Read-only buffer");
+
+        // check if channel is closed
+        if (!isOpen()) {
+            Throwable exc = new ClosedChannelException();
+            if (handler == null)
+                return CompletedFuture.withFailure(exc);
+            Invoker.invoke(this, handler, attachment, null, exc);
+            return null;
+        }
+
+        int pos = dst.position();
+        int lim = dst.limit();
+        assert (pos <= lim);
+        int rem = (pos <= lim ? lim - pos : 0);
+
+        // no space remaining
+        if (rem == 0) {
+            if (handler == null)
+                return CompletedFuture.withResult(0);
+            Invoker.invoke(this, handler, attachment, 0, null);
+            return null;
+        }
+
+        // create Future and task that initiates read
+        PendingFuture<Integer,A> result =
+            new PendingFuture<Integer,A>(this, handler, attachment);
+        ReadTask<A> readTask = new ReadTask<A>(dst, pos, rem, position, result);
+        result.setContext(readTask);
+
+        // initiate I/O
+        readTask.start(IORING_OP_READ, IORING_OP_READ_FIXED);
+        return result;
+    }
+
+    @Override
+    <A> Future<Integer> implWrite(ByteBuffer src,
+                                  long position,
+                                  A attachment,
+                                  CompletionHandler<Integer,? super A> handler)
+    {
+        if (!writing)
+            throw new NonWritableChannelException();
+        if (position < 0)
+            throw new IllegalArgumentException("Negative position");
+
+        // check if channel is closed
+        if (!isOpen()) {
+            Throwable exc = new ClosedChannelException();
+            if (handler == null)
+                return CompletedFuture.withFailure(exc);
+            Invoker.invoke(this, handler, attachment, null, exc);
+            return null;
+        }
+
+        int pos = src.position();
+        int lim = src.limit();
+        assert (pos <= lim);
+        int rem = (pos <= lim ? lim - pos : 0);
+
+        // nothing to write
+        if (rem == 0) {
+            if (handler == null)
+                return CompletedFuture.withResult(0);
+            Invoker.invoke(this, handler, attachment, 0, null);
+            return null;
+        }
+
+        // create Future and task to initiate write
+        PendingFuture<Integer,A> result =
+            new PendingFuture<Integer,A>(this, handler, attachment);
+        WriteTask<A> writeTask = new WriteTask<A>(src, pos, rem, position, result);
+        result.setContext(writeTask);
+
+        // initiate I/O
+        writeTask.start(IORING_OP_WRITE, IORING_OP_WRITE_FIXED);
+        return result;
+    }
+}
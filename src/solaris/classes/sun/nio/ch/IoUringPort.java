@@ -0,0 +1,549 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+package sun.nio.ch;
+
+import java.nio.channels.spi.AsynchronousChannelProvider;
+import java.io.IOException;
+import java.security.AccessController;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import sun.misc.Unsafe;
+import sun.security.action.GetIntegerAction;
+import static sun.nio.ch.IoUring.*;
+
+/**
+ * AsynchronousChannelGroup implementation based on the Linux io_uring
+ * facility.
+ *
+ * Channels that are "pollable" (sockets) are polled by queuing one-shot
+ * IORING_OP_POLL_ADD requests so that they work as they do with epoll.
+ * Channels that can submit operations directly (files) queue read and write
+ * requests with {@link #submit submit} and are notified by way of a
+ * {@link ResultHandler} when the completion queue entry is consumed.
+ */
+
+final class IoUringPort
+    extends Port
+{
+    private static final Unsafe unsafe = Unsafe.getUnsafe();
+
+    // number of submission queue entries
+    private static final int RING_ENTRIES = AccessController.doPrivileged(
+        new GetIntegerAction("sun.nio.ch.ioUring.entries", 256));
+
+    // number and size of buffers registered with the kernel
+    private static final int FIXED_BUFFER_COUNT = AccessController.doPrivileged(
+        new GetIntegerAction("sun.nio.ch.ioUring.fixedBufferCount", 16));
+    private static final int FIXED_BUFFER_SIZE = AccessController.doPrivileged(
+        new GetIntegerAction("sun.nio.ch.ioUring.fixedBufferSize", 64*1024));
+
+    // maximum number of completions to consume at a time
+    private static final int MAX_COMPLETIONS = 512;
+
+    // user_data values and tags
+    private static final long WAKEUP    = 0L;
+    private static final long IGNORE    = 1L;
+    private static final long POLL_TAG  = 1L << 62;
+    private static final long OP_TAG    = 1L << 61;
+
+    // the submission and completion queues
+    private final IoUring ring;
+
+    // true if port closed
+    private boolean closed;
+
+    // outstanding poll request for each file descriptor (synchronize on map)
+    private final Map<Integer,PollRequest> pollRequests =
+        new HashMap<Integer,PollRequest>();
+    private int nextPollGeneration;
+
+    // operations submitted by channels, keyed by user_data
+    private final Map<Long,ResultHandler> pendingOps =
+        new ConcurrentHashMap<Long,ResultHandler>();
+    private final AtomicLong nextOpId = new AtomicLong();
+
+    // registered buffers (0L if buffers could not be registered)
+    private final long fixedBuffers;
+    private final ArrayDeque<Integer> freeFixedBuffers = new ArrayDeque<Integer>();
+
+    /**
+     * The handler for consuming the result of an operation submitted with
+     * {@link #submit submit}.
+     */
+    interface ResultHandler {
+        /**
+         * Invoked if the operation completes successfully.
+         */
+        void completed(int res, boolean canInvokeDirect);
+
+        /**
+         * Invoked if the operation fails.
+         */
+        void failed(int errno, IOException x);
+    }
+
+    // outstanding IORING_OP_POLL_ADD request
+    private static class PollRequest {
+        final long userData;
+        final int events;
+        PollRequest(long userData, int events) {
+            this.userData = userData;
+            this.events = events;
+        }
+    }
+
+    // encapsulates an event for a channel or the result of an operation
+    static class Event {
+        final PollableChannel channel;
+        final int events;
+        final ResultHandler handler;
+
+        Event(PollableChannel channel, int events) {
+            this.channel = channel;
+            this.events = events;
+            this.handler = null;
+        }
+
+        Event(ResultHandler handler, int res) {
+            this.channel = null;
+            this.events = res;
+            this.handler = handler;
+        }
+
+        PollableChannel channel()   { return channel; }
+        int events()                { return events; }
+        ResultHandler handler()     { return handler; }
+    }
+
+    // queue of events for cases that a polling thread dequeues more than one
+    // event
+    private final ArrayBlockingQueue<Event> queue;
+    private final Event NEED_TO_POLL = new Event((PollableChannel)null, 0);
+    private final Event EXECUTE_TASK_OR_SHUTDOWN = new Event((PollableChannel)null, 0);
+
+    IoUringPort(AsynchronousChannelProvider provider, ThreadPool pool)
+        throws IOException
+    {
+        super(provider, pool);
+
+        // setup the rings
+        this.ring = new IoUring(RING_ENTRIES);
+
+        // register buffers, continuing without them if the kernel refuses
+        // (RLIMIT_MEMLOCK for example)
+        this.fixedBuffers = registerFixedBuffers(ring);
+
+        // create the queue and offer the special event to ensure that the first
+        // threads polls
+        this.queue = new ArrayBlockingQueue<Event>(MAX_COMPLETIONS);
+        this.queue.offer(NEED_TO_POLL);
+    }
+
+    IoUringPort start() {
+        startThreads(new EventHandlerTask());
+        return this;
+    }
+
+    private long registerFixedBuffers(IoUring ring) {
+        if (FIXED_BUFFER_COUNT <= 0 || FIXED_BUFFER_SIZE <= 0)
+            return 0L;
+        long size = (long)FIXED_BUFFER_COUNT * FIXED_BUFFER_SIZE;
+        long base = unsafe.allocateMemory(size);
+
+        // struct iovec { void *iov_base; size_t iov_len; }
+        int addressSize = unsafe.addressSize();
+        long iovecs = unsafe.allocateMemory(FIXED_BUFFER_COUNT * 2 * addressSize);
+        try {
+            for (int i=0; i<FIXED_BUFFER_COUNT; i++) {
+                long iov = iovecs + i * 2 * addressSize;
+                unsafe.putAddress(iov, base + (long)i * FIXED_BUFFER_SIZE);
+                unsafe.putAddress(iov + addressSize, FIXED_BUFFER_SIZE);
+            }
+            if (ring.registerBuffers(iovecs, FIXED_BUFFER_COUNT) != 0) {
+                unsafe.freeMemory(base);
+                return 0L;
+            }
+        } finally {
+            unsafe.freeMemory(iovecs);
+        }
+        for (int i=0; i<FIXED_BUFFER_COUNT; i++) {
+            freeFixedBuffers.add(i);
+        }
+        return base;
+    }
+
+    /**
+     * Release all resources
+     */
+    private void implClose() {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+        }
+        ring.close();
+        if (fixedBuffers != 0L)
+            unsafe.freeMemory(fixedBuffers);
+    }
+
+    private void wakeup() {
+        // a NOP completion wakes up the polling thread
+        try {
+            ring.submit(IORING_OP_NOP, -1, 0L, 0L, 0, 0, 0, WAKEUP);
+        } catch (IOException x) {
+            throw new AssertionError(x);
+        }
+    }
+
+    @Override
+    void executeOnHandlerTask(Runnable task) {
+        synchronized (this) {
+            if (closed)
+                throw new RejectedExecutionException();
+            offerTask(task);
+            wakeup();
+        }
+    }
+
+    @Override
+    void shutdownHandlerTasks() {
+        /*
+         * If no tasks are running then just release resources; otherwise
+         * submit a NOP to wakeup each of the polling threads.
+         */
+        int nThreads = threadCount();
+        if (nThreads == 0) {
+            implClose();
+        } else {
+            // send interrupt to each thread
+            while (nThreads-- > 0) {
+                wakeup();
+            }
+        }
+    }
+
+    // invoke by clients to register a file descriptor
+    @Override
+    void startPoll(int fd, int events) {
+        synchronized (pollRequests) {
+            PollRequest previous = pollRequests.get(fd);
+            if (previous != null) {
+                // already polling for these events
+                if ((previous.events & events) == events)
+                    return;
+                events |= previous.events;
+            }
+            long userData = pollUserData(nextPollGeneration++, fd);
+            pollRequests.put(fd, new PollRequest(userData, events));
+            try {
+                // replace the existing poll request (like EPOLL_CTL_MOD)
+                if (previous != null) {
+                    ring.submit(IORING_OP_POLL_REMOVE, -1, 0L,
+                                previous.userData, 0, 0, 0, IGNORE);
+                }
+                ring.submit(IORING_OP_POLL_ADD, fd, 0L, 0L, 0, events, 0, userData);
+            } catch (IOException x) {
+                throw new AssertionError(x);     // should not happen
+            }
+        }
+    }
+
+    // cancel any outstanding poll so that io_uring drops its reference to
+    // the file before the channel closes the file descriptor
+    @Override
+    void stopPoll(int fd) {
+        synchronized (pollRequests) {
+            PollRequest previous = pollRequests.remove(fd);
+            if (previous != null) {
+                try {
+                    ring.submit(IORING_OP_POLL_REMOVE, -1, 0L,
+                                previous.userData, 0, 0, 0, IGNORE);
+                } catch (IOException ignore) { }
+            }
+        }
+    }
+
+    /**
+     * Submits an operation on behalf of a channel. The handler is invoked
+     * by a handler thread when the operation completes.
+     *
+     * @return  the user_data that identifies the operation, for use with
+     *          {@link #cancel cancel}
+     */
+    long submit(byte opcode, int fd, long position, long address, int len,
+                int bufIndex, ResultHandler handler)
+        throws IOException
+    {
+        long userData = OP_TAG | (nextOpId.getAndIncrement() & (OP_TAG - 1));
+        pendingOps.put(userData, handler);
+        try {
+            ring.submit(opcode, fd, position, address, len, 0, bufIndex, userData);
+        } catch (IOException x) {
+            pendingOps.remove(userData);
+            throw x;
+        }
+        return userData;
+    }
+
+    /**
+     * Attempts to cancel an operation submitted with {@link #submit submit}.
+     * If cancelled then the operation's handler is invoked with ECANCELED.
+     */
+    void cancel(long userData) {
+        if (pendingOps.containsKey(userData)) {
+            try {
+                ring.submit(IORING_OP_ASYNC_CANCEL, -1, 0L, userData, 0, 0, 0, IGNORE);
+            } catch (IOException ignore) { }
+        }
+    }
+
+    /**
+     * Returns the index of the registered buffer that contains the given
+     * memory region, or -1 if the region is not in a registered buffer.
+     */
+    int fixedBufferIndex(long address, int len) {
+        if (fixedBuffers == 0L || address < fixedBuffers)
+            return -1;
+        long offset = address - fixedBuffers;
+        long index = offset / FIXED_BUFFER_SIZE;
+        if (index >= FIXED_BUFFER_COUNT ||
+            offset + len > (index + 1) * FIXED_BUFFER_SIZE)
+            return -1;
+        return (int)index;
+    }
+
+    /**
+     * Returns the address of the given registered buffer.
+     */
+    long fixedBufferAddress(int index) {
+        return fixedBuffers + (long)index * FIXED_BUFFER_SIZE;
+    }
+
+    /**
+     * Acquires a registered buffer of at least the given size, returning its
+     * index or -1 if there are no free buffers of that size.
+     */
+    int acquireFixedBuffer(int size) {
+        if (fixedBuffers == 0L || size > FIXED_BUFFER_SIZE)
+            return -1;
+        synchronized (freeFixedBuffers) {
+            Integer index = freeFixedBuffers.pollFirst();
+            return (index != null) ? index : -1;
+        }
+    }
+
+    /**
+     * Releases a registered buffer acquired with {@link #acquireFixedBuffer}.
+     */
+    void releaseFixedBuffer(int index) {
+        synchronized (freeFixedBuffers) {
+            freeFixedBuffers.addFirst(index);
+        }
+    }
+
+    /**
+     * Returns the user_data for a poll request. The generation distinguishes
+     * a poll request from the one it replaces; it is truncated to 29 bits so
+     * that it stays clear of OP_TAG and POLL_TAG.
+     */
+    static long pollUserData(int generation, int fd) {
+        return POLL_TAG |
+            ((long)(generation & 0x1fffffff) << 32) |
+            (fd & 0xffffffffL);
+    }
+
+    static boolean isPollUserData(long userData) {
+        return (userData & POLL_TAG) != 0;
+    }
+
+    static boolean isOpUserData(long userData) {
+        return (userData & (POLL_TAG | OP_TAG)) == OP_TAG;
+    }
+
+    /**
+     * Maps a completion queue entry to an event, returning null if there is
+     * nothing to dispatch. The caller holds the fdToChannel read lock.
+     */
+    private Event toEvent(long userData, int res) {
+        if (userData == WAKEUP)
+            return EXECUTE_TASK_OR_SHUTDOWN;
+
+        if (isOpUserData(userData)) {
+            ResultHandler handler = pendingOps.remove(userData);
+            return (handler != null) ? new Event(handler, res) : null;
+        }
+
+        if (isPollUserData(userData)) {
+            int fd = (int)userData;
+            synchronized (pollRequests) {
+                PollRequest request = pollRequests.get(fd);
+                if (request != null && request.userData == userData)
+                    pollRequests.remove(fd);
+            }
+            // poll request replaced or removed
+            if (res == -ECANCELED || res == -ENOENT)
+                return null;
+            PollableChannel channel = fdToChannel.get(fd);
+            if (channel != null) {
+                int events = (res < 0) ? POLLERR : res;
+                return new Event(channel, events);
+            }
+        }
+
+        // IGNORE or channel no longer registered
+        return null;
+    }
+
+    /*
+     * Task to process completions from the completion queue and dispatch to
+     * the channel's onEvent handler or the operation's result handler.
+     *
+     * Completions are consumed in batch and offered to a BlockingQueue where
+     * they are consumed by handler threads. A special "NEED_TO_POLL" event is
+     * used to signal one consumer to re-poll when all events have been
+     * consumed.
+     */
+    private class EventHandlerTask implements Runnable {
+        private Event poll() throws IOException {
+            try {
+                for (;;) {
+                    int n = ring.completionsReady();
+                    if (n == 0) {
+                        ring.awaitCompletions();
+                        continue;
+                    }
+                    if (n > MAX_COMPLETIONS)
+                        n = MAX_COMPLETIONS;
+
+                    /*
+                     * 'n' completions are ready. Here we map them to events
+                     * in batch and queue all but the last so that they can be
+                     * handled by other handler threads. The last event is
+                     * handled by this thread (and so is not queued).
+                     */
+                    Event last = null;
+                    fdToChannelLock.readLock().lock();
+                    try {
+                        for (int i=0; i<n; i++) {
+                            long cqe = ring.getCompletion(i);
+                            Event ev = toEvent(getUserData(cqe), getResult(cqe));
+                            if (ev != null) {
+                                if (last != null)
+                                    queue.offer(last);
+                                last = ev;
+                            }
+                        }
+                    } finally {
+                        fdToChannelLock.readLock().unlock();
+                    }
+                    ring.consumeCompletions(n);
+                    if (last != null)
+                        return last;
+                }
+            } finally {
+                // to ensure that some thread will poll when all events have
+                // been consumed
+                queue.offer(NEED_TO_POLL);
+            }
+        }
+
+        public void run() {
+            Invoker.GroupAndInvokeCount myGroupAndInvokeCount =
+                Invoker.getGroupAndInvokeCount();
+            final boolean isPooledThread = (myGroupAndInvokeCount != null);
+            boolean replaceMe = false;
+            Event ev;
+            try {
+                for (;;) {
+                    // reset invoke count
+                    if (isPooledThread)
+                        myGroupAndInvokeCount.resetInvokeCount();
+
+                    try {
+                        replaceMe = false;
+                        ev = queue.take();
+
+                        // no events and this thread has been "selected" to
+                        // poll for more.
+                        if (ev == NEED_TO_POLL) {
+                            try {
+                                ev = poll();
+                            } catch (IOException x) {
+                                x.printStackTrace();
+                                return;
+                            }
+                        }
+                    } catch (InterruptedException x) {
+                        continue;
+                    }
+
+                    // handle wakeup to execute task or shutdown
+                    if (ev == EXECUTE_TASK_OR_SHUTDOWN) {
+                        Runnable task = pollTask();
+                        if (task == null) {
+                            // shutdown request
+                            return;
+                        }
+                        // run task (may throw error/exception)
+                        replaceMe = true;
+                        task.run();
+                        continue;
+                    }
+
+                    // process event
+                    try {
+                        ResultHandler handler = ev.handler();
+                        if (handler == null) {
+                            ev.channel().onEvent(ev.events(), isPooledThread);
+                        } else {
+                            int res = ev.events();
+                            if (res >= 0) {
+                                handler.completed(res, isPooledThread);
+                            } else {
+                                handler.failed(-res, new IOException(strerror(-res)));
+                            }
+                        }
+                    } catch (Error x) {
+                        replaceMe = true; throw x;
+                    } catch (RuntimeException x) {
+                        replaceMe = true; throw x;
+                    }
+                }
+            } finally {
+                // last handler to exit when shutdown releases resources
+                int remaining = threadExit(this, replaceMe);
+                if (remaining == 0 && isShutdown()) {
+                    implClose();
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -34,19 +34,34 @@ import java.io.IOException;
 public class LinuxAsynchronousChannelProvider
     extends AsynchronousChannelProvider
 {
-    private static volatile EPollPort defaultPort;
+    private static volatile Port defaultPort;
 
-    private EPollPort defaultEventPort() throws IOException {
+    private Port defaultEventPort() throws IOException {
         if (defaultPort == null) {
             synchronized (LinuxAsynchronousChannelProvider.class) {
                 if (defaultPort == null) {
-                    defaultPort = new EPollPort(this, ThreadPool.getDefault()).start();
+                    defaultPort = newPort(ThreadPool.getDefault());
                 }
             }
         }
         return defaultPort;
     }
 
+    /**
+     * Creates a port based on io_uring when supported by the kernel, falling
+     * back to epoll otherwise.
+     */
+    private Port newPort(ThreadPool pool) throws IOException {
+        if (IoUring.isSupported()) {
+            try {
+                return new IoUringPort(this, pool).start();
+            } catch (IOException x) {
+                // io_uring_setup can fail with resource limits; use epoll
+            }
+        }
+        return new EPollPort(this, pool).start();
+    }
+
     public LinuxAsynchronousChannelProvider() {
     }
 
@@ -54,21 +69,21 @@ public class LinuxAsynchronousChannelProvider
     public AsynchronousChannelGroup openAsynchronousChannelGroup(int nThreads, ThreadFactory factory)
         throws IOException
     {
-        return new EPollPort(this, ThreadPool.create(nThreads, factory)).start();
+        return newPort(ThreadPool.create(nThreads, factory));
     }
 
     @Override
     public AsynchronousChannelGroup openAsynchronousChannelGroup(ExecutorService executor, int initialSize)
         throws IOException
     {
-        return new EPollPort(this, ThreadPool.wrap(executor, initialSize)).start();
+        return newPort(ThreadPool.wrap(executor, initialSize));
     }
 
     private Port toPort(AsynchronousChannelGroup group) throws IOException {
         if (group == null) {
             return defaultEventPort();
         } else {
-            if (!(group instanceof EPollPort))
+            if (!(group instanceof EPollPort) && !(group instanceof IoUringPort))
                 throw new IllegalChannelGroupException();
             return (Port)group;
         }
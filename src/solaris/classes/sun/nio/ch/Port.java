@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2008, 2009, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -94,6 +94,9 @@ abstract class Port extends AsynchronousChannelGroupImpl {
             fdToChannelLock.writeLock().unlock();
         }
 
+        // release any polling state for the file descriptor
+        stopPoll(fd);
+
         // continue shutdown
         if (checkForShutdown && isShutdown()) {
             try {
@@ -107,6 +110,12 @@ abstract class Port extends AsynchronousChannelGroupImpl {
      */
     abstract void startPoll(int fd, int events);
 
+    /**
+     * Invoked when a file descriptor is unregistered, before the channel
+     * closes it. The default implementation does nothing.
+     */
+    void stopPoll(int fd) { }
+
     @Override
     final boolean isEmpty() {
         fdToChannelLock.writeLock().lock();
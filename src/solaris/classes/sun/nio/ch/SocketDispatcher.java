@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2000, 2009, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2000, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -51,6 +51,12 @@ class SocketDispatcher extends NativeDispatcher
         return FileDispatcherImpl.writev0(fd, address, len);
     }
 
+    long splice(FileDescriptor src, FileDescriptor dst, long position, long len)
+        throws IOException
+    {
+        return FileDispatcherImpl.splice0(src, dst, position, len);
+    }
+
     void close(FileDescriptor fd) throws IOException {
         FileDispatcherImpl.close0(fd);
     }
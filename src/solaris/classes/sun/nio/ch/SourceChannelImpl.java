@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2000, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2000, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -33,7 +33,7 @@ import java.nio.channels.spi.*;
 
 class SourceChannelImpl
     extends Pipe.SourceChannel
-    implements SelChImpl
+    implements SelChImpl, Splice.Source
 {
 
     // Used to make native read and write calls
@@ -176,6 +176,29 @@ class SourceChannelImpl
         }
     }
 
+    public long spliceTo(FileDescriptor dst, long position, long len)
+        throws IOException
+    {
+        ensureOpen();
+        synchronized (lock) {
+            long n = 0;
+            try {
+                begin();
+                if (!isOpen())
+                    return 0;
+                thread = NativeThread.current();
+                do {
+                    n = nd.splice(fd, dst, position, len);
+                } while ((n == IOStatus.INTERRUPTED) && isOpen());
+                return IOStatus.normalize(n);
+            } finally {
+                thread = 0;
+                end((n > 0) || (n == IOStatus.UNAVAILABLE));
+                assert IOStatus.check(n);
+            }
+        }
+    }
+
     public long read(ByteBuffer[] dsts, int offset, int length)
         throws IOException
     {
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2008, 2012, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -28,8 +28,12 @@ package sun.nio.fs;
 import java.nio.file.*;
 import java.nio.file.attribute.*;
 import java.nio.file.spi.FileTypeDetector;
+import java.nio.channels.AsynchronousFileChannel;
+import java.io.FileDescriptor;
 import java.io.IOException;
 import java.security.AccessController;
+import sun.nio.ch.IoUringAsynchronousFileChannelImpl;
+import sun.nio.ch.ThreadPool;
 import sun.security.action.GetPropertyAction;
 
 /**
@@ -51,6 +55,16 @@ public class LinuxFileSystemProvider extends UnixFileSystemProvider {
         return new LinuxFileStore(path);
     }
 
+    @Override
+    AsynchronousFileChannel newAsynchronousFileChannel(FileDescriptor fdObj,
+                                                       boolean reading,
+                                                       boolean writing,
+                                                       ThreadPool pool)
+    {
+        // uses io_uring when supported by the kernel
+        return IoUringAsynchronousFileChannelImpl.open(fdObj, reading, writing, pool);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public <V extends FileAttributeView> V getFileAttributeView(Path obj,
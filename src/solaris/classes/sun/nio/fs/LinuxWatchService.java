@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2008, 2012, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -29,8 +29,12 @@ import java.nio.file.*;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.io.IOException;
+import com.sun.nio.file.ExtendedWatchEventModifier;
+import sun.misc.PerfCounter;
 import sun.misc.Unsafe;
+import sun.security.action.GetPropertyAction;
 
 import static sun.nio.fs.UnixNativeDispatcher.*;
 import static sun.nio.fs.UnixConstants.*;
@@ -42,6 +46,21 @@ import static sun.nio.fs.UnixConstants.*;
  * mechanism. Requests to add or remove a watch, or close the watch service,
  * cause the thread to wakeup and process the request. Events are processed
  * by the thread which causes it to signal/queue the corresponding watch keys.
+ *
+ * The FILE_TREE modifier is supported by watching every directory in the
+ * tree. Directories created or moved into the tree are watched as their
+ * events arrive, and the tree is rescanned for directories that were missed
+ * if the inotify queue overflows.
+ *
+ * A directory is watched by at most one key. Registering a directory that
+ * is part of a watched file tree fails, as does registering a file tree
+ * that contains a directory that is registered on its own. A directory
+ * that is registered on its own and later moved into a watched file tree
+ * remains outside of that tree: its events are queued to its own key only.
+ *
+ * If the sun.nio.fs.inotify.coalesceWindow property is set to a number of
+ * milliseconds then events are held by the background thread for that long
+ * so that repeated events for the same file are delivered as one event.
  */
 
 class LinuxWatchService
@@ -105,6 +124,20 @@ class LinuxWatchService
         // watch descriptor
         private volatile int wd;
 
+        // The following fields are accessed only by the poller thread
+
+        // the inotify events that were registered for
+        private int mask;
+        // true if registered with the FILE_TREE modifier
+        private boolean fileTree;
+        // maps the watch descriptor of each subdirectory in the tree to the
+        // directory's path relative to the registered directory
+        private final Map<Integer,UnixPath> subdirs =
+            new HashMap<Integer,UnixPath>();
+        // maps a context to its latest event held for coalescing
+        private final Map<Object,PendingEvent> pendingEvents =
+            new HashMap<Object,PendingEvent>();
+
         LinuxWatchKey(UnixPath dir, LinuxWatchService watcher, int ifd, int wd) {
             super(dir, watcher);
             this.ifd = ifd;
@@ -122,10 +155,32 @@ class LinuxWatchService
                 } catch (UnixException x) {
                     // ignore
                 }
+                removeSubdirs(null);
             }
+            subdirs.clear();
             wd = -1;
         }
 
+        // Removes the watches on the subdirectories of the given relative
+        // path or all subdirectories if null, returning their descriptors
+        List<Integer> removeSubdirs(UnixPath dir) {
+            List<Integer> removed = new ArrayList<>();
+            Iterator<Map.Entry<Integer,UnixPath>> i = subdirs.entrySet().iterator();
+            while (i.hasNext()) {
+                Map.Entry<Integer,UnixPath> e = i.next();
+                if (dir == null || e.getValue().startsWith(dir)) {
+                    try {
+                        inotifyRmWatch(ifd, e.getKey());
+                    } catch (UnixException x) {
+                        // ignore
+                    }
+                    removed.add(e.getKey());
+                    i.remove();
+                }
+            }
+            return removed;
+        }
+
         @Override
         public boolean isValid() {
             return (wd != -1);
@@ -140,6 +195,27 @@ class LinuxWatchService
         }
     }
 
+    /**
+     * An event held by the poller thread while repeated events for the same
+     * context are coalesced into it.
+     */
+    private static class PendingEvent {
+        final LinuxWatchKey key;
+        final WatchEvent.Kind<?> kind;
+        final Object context;
+        final long time;
+        int count = 1;
+
+        PendingEvent(LinuxWatchKey key, WatchEvent.Kind<?> kind,
+                     Object context, long time)
+        {
+            this.key = key;
+            this.kind = kind;
+            this.context = context;
+            this.time = time;
+        }
+    }
+
     /**
      * Background thread to read from inotify
      */
@@ -170,9 +246,18 @@ class LinuxWatchService
         private static final int IN_Q_OVERFLOW      = 0x00004000;
         private static final int IN_IGNORED         = 0x00008000;
 
+        private static final int IN_MASK_ADD        = 0x20000000;
+        private static final int IN_ISDIR           = 0x40000000;
+
+        // events that are needed to maintain the watches on a file tree
+        private static final int TREE_MASK = IN_CREATE | IN_MOVED_TO | IN_MOVED_FROM;
+
         // sizeof buffer for when polling inotify
         private static final int BUFFER_SIZE = 8192;
 
+        // time to hold events for coalescing, in nanoseconds, 0 to disable
+        private static final long COALESCE_WINDOW = coalesceWindow();
+
         private final UnixFileSystem fs;
         private final LinuxWatchService watcher;
 
@@ -184,6 +269,8 @@ class LinuxWatchService
         private final Map<Integer,LinuxWatchKey> wdToKey;
         // address of read buffer
         private final long address;
+        // events held for coalescing, in the order that they occurred
+        private final ArrayDeque<PendingEvent> pendingEvents;
 
         Poller(UnixFileSystem fs, LinuxWatchService watcher, int ifd, int[] sp) {
             this.fs = fs;
@@ -192,6 +279,20 @@ class LinuxWatchService
             this.socketpair = sp;
             this.wdToKey = new HashMap<Integer,LinuxWatchKey>();
             this.address = unsafe.allocateMemory(BUFFER_SIZE);
+            this.pendingEvents = new ArrayDeque<PendingEvent>();
+        }
+
+        private static long coalesceWindow() {
+            String s = AccessController.doPrivileged(
+                new GetPropertyAction("sun.nio.fs.inotify.coalesceWindow"));
+            if (s != null) {
+                try {
+                    long ms = Long.parseLong(s);
+                    if (ms > 0)
+                        return TimeUnit.MILLISECONDS.toNanos(ms);
+                } catch (NumberFormatException ignore) { }
+            }
+            return 0L;
         }
 
         @Override
@@ -227,9 +328,12 @@ class LinuxWatchService
                 }
             }
 
-            // no modifiers supported at this time
-            if (modifiers.length > 0) {
-                for (WatchEvent.Modifier modifier: modifiers) {
+            // FILE_TREE modifier allowed
+            boolean fileTree = false;
+            for (WatchEvent.Modifier modifier: modifiers) {
+                if (modifier == ExtendedWatchEventModifier.FILE_TREE) {
+                    fileTree = true;
+                } else {
                     if (modifier == null)
                         return new NullPointerException();
                     if (modifier instanceof com.sun.nio.file.SensitivityWatchEventModifier)
@@ -252,13 +356,7 @@ class LinuxWatchService
             // register with inotify (replaces existing mask if already registered)
             int wd = -1;
             try {
-                NativeBuffer buffer =
-                    NativeBuffers.asNativeBuffer(dir.getByteArrayForSysCalls());
-                try {
-                    wd = inotifyAddWatch(ifd, buffer.address(), mask);
-                } finally {
-                    buffer.release();
-                }
+                wd = addWatch(dir, fileTree ? (mask | TREE_MASK) : mask);
             } catch (UnixException x) {
                 if (x.errno() == ENOSPC) {
                     return new IOException("User limit of inotify watches reached");
@@ -268,19 +366,174 @@ class LinuxWatchService
 
             // ensure watch descriptor is in map
             LinuxWatchKey key = wdToKey.get(wd);
-            if (key == null) {
+            if (key != null && key.subdirs.containsKey(wd)) {
+                // restore the watch for the file tree that includes it
+                try {
+                    addWatch(dir, key.mask | TREE_MASK);
+                } catch (UnixException ignore) { }
+                return new IOException("Directory is registered as part of " +
+                    "the file tree of " + key.watchable());
+            }
+            boolean newKey = (key == null);
+            if (newKey) {
                 key = new LinuxWatchKey(dir, watcher, ifd, wd);
                 wdToKey.put(wd, key);
             }
+            int oldMask = key.mask;
+            key.mask = mask;
+            if (fileTree) {
+                boolean wasFileTree = key.fileTree;
+                key.fileTree = true;
+                LinuxWatchKey other = null;
+                try {
+                    other = watchSubdirs(key, null, false, !wasFileTree);
+                } catch (UnixException x) {
+                    if (x.errno() == ENOSPC) {
+                        implCancelKey(key);
+                        return new IOException("User limit of inotify watches reached");
+                    }
+                    // the tree is changing as we walk it, ignore
+                }
+                if (other != null) {
+                    // undo the registration
+                    if (newKey) {
+                        implCancelKey(key);
+                    } else {
+                        key.mask = oldMask;
+                        key.fileTree = false;
+                        for (Integer subdir: key.removeSubdirs(null))
+                            wdToKey.remove(subdir);
+                        try {
+                            addWatch(dir, oldMask);
+                        } catch (UnixException ignore) { }
+                    }
+                    return new IOException("File tree contains " +
+                        other.watchable() + " which is already registered");
+                }
+            } else if (key.fileTree) {
+                // no longer watching the tree
+                key.fileTree = false;
+                for (Integer subdir: key.removeSubdirs(null))
+                    wdToKey.remove(subdir);
+            }
             return key;
         }
 
+        private int addWatch(UnixPath dir, int mask) throws UnixException {
+            NativeBuffer buffer =
+                NativeBuffers.asNativeBuffer(dir.getByteArrayForSysCalls());
+            try {
+                return inotifyAddWatch(ifd, buffer.address(), mask);
+            } finally {
+                buffer.release();
+            }
+        }
+
+        /**
+         * Watches the subdirectories of the given directory in a FILE_TREE
+         * registration, or of the registered directory if {@code start} is
+         * null. Directories that are already watched are skipped. If
+         * {@code signal} is true then ENTRY_CREATE events are signalled for
+         * the entries found in directories not already watched, as they may
+         * have been created before the watch was added.
+         *
+         * If {@code exclusive} is true then the walk stops at the first
+         * directory that is watched by another key, and that key is
+         * returned; otherwise such directories are skipped and null is
+         * returned.
+         */
+        private LinuxWatchKey watchSubdirs(LinuxWatchKey key, UnixPath start,
+                                           boolean signal, boolean exclusive)
+            throws UnixException
+        {
+            UnixPath top = (UnixPath)key.watchable();
+            boolean signalCreate = signal && ((key.mask & IN_CREATE) != 0);
+            ArrayDeque<UnixPath> stack = new ArrayDeque<>();
+            stack.push((start == null) ? new UnixPath(fs, new byte[0]) : start);
+            while (!stack.isEmpty()) {
+                UnixPath rel = stack.pop();
+                UnixPath dir = top.resolve(rel);
+                long dp;
+                try {
+                    dp = opendir(dir);
+                } catch (UnixException x) {
+                    continue;   // deleted or not accessible
+                }
+                try {
+                    byte[] name;
+                    while ((name = readdir(dp)) != null) {
+                        if (isSelfOrParent(name))
+                            continue;
+                        UnixPath child = rel.resolve(name);
+                        boolean isDir;
+                        try {
+                            isDir = UnixFileAttributes.get(top.resolve(child), false)
+                                .isDirectory();
+                        } catch (UnixException x) {
+                            continue;   // deleted
+                        }
+                        if (signalCreate)
+                            signalEvent(key, StandardWatchEventKinds.ENTRY_CREATE, child);
+                        if (!isDir)
+                            continue;
+                        int wd;
+                        try {
+                            wd = addWatch(top.resolve(child),
+                                          key.mask | TREE_MASK | IN_MASK_ADD);
+                        } catch (UnixException x) {
+                            if (x.errno() == ENOSPC)
+                                throw x;
+                            continue;   // deleted or not accessible
+                        }
+                        LinuxWatchKey other = wdToKey.get(wd);
+                        if (other == null) {
+                            wdToKey.put(wd, key);
+                            key.subdirs.put(wd, child);
+                            stack.push(child);
+                        } else if (other == key) {
+                            if (key.subdirs.containsKey(wd) &&
+                                !key.subdirs.get(wd).equals(child)) {
+                                // directory was moved within the tree
+                                key.subdirs.put(wd, child);
+                            }
+                        } else if (exclusive) {
+                            // restore the events of the other key's watch
+                            int mask = other.mask;
+                            if (other.fileTree)
+                                mask |= TREE_MASK;
+                            try {
+                                addWatch(top.resolve(child), mask);
+                            } catch (UnixException ignore) { }
+                            return other;
+                        }
+                        // else watched by another key which continues to
+                        // receive its events
+                    }
+                } finally {
+                    closedir(dp);
+                }
+            }
+            return null;
+        }
+
+        private static boolean isSelfOrParent(byte[] name) {
+            if (name[0] == '.') {
+                if ((name.length == 1) ||
+                    (name.length == 2 && name[1] == '.')) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
         // cancel single key
         @Override
         void implCancelKey(WatchKey obj) {
             LinuxWatchKey key = (LinuxWatchKey)obj;
             if (key.isValid()) {
                 wdToKey.remove(key.descriptor());
+                for (Integer subdir: key.subdirs.keySet())
+                    wdToKey.remove(subdir);
                 key.invalidate(true);
             }
         }
@@ -289,10 +542,11 @@ class LinuxWatchService
         @Override
         void implCloseAll() {
             // invalidate all keys
-            for (Map.Entry<Integer,LinuxWatchKey> entry: wdToKey.entrySet()) {
-                entry.getValue().invalidate(true);
+            for (LinuxWatchKey key: new HashSet<>(wdToKey.values())) {
+                key.invalidate(true);
             }
             wdToKey.clear();
+            pendingEvents.clear();
 
             // free resources
             unsafe.freeMemory(address);
@@ -310,8 +564,9 @@ class LinuxWatchService
                 for (;;) {
                     int nReady, bytesRead;
 
-                    // wait for close or inotify event
-                    nReady = poll(ifd, socketpair[0]);
+                    // wait for close or inotify event, or until the next
+                    // held event is due
+                    nReady = poll(ifd, socketpair[0], pollTimeout());
 
                     // read from inotify
                     try {
@@ -337,6 +592,7 @@ class LinuxWatchService
 
                     // iterate over buffer to decode events
                     int offset = 0;
+                    int count = 0;
                     while (offset < bytesRead) {
                         long event = address + offset;
                         int wd = unsafe.getInt(event + OFFSETOF_WD);
@@ -366,15 +622,76 @@ class LinuxWatchService
 
                         // process event
                         processEvent(wd, mask, name);
+                        count++;
 
                         offset += (SIZEOF_INOTIFY_EVENT + len);
                     }
+                    if (count > 0)
+                        PerfCounter.getInotifyEvents().add(count);
+
+                    // deliver held events that are due
+                    flushPendingEvents(false);
                 }
             } catch (UnixException x) {
                 x.printStackTrace();
             }
         }
 
+        /**
+         * Returns the time to wait for events, in milliseconds, before the
+         * first held event is due or -1 if there are no held events.
+         */
+        private int pollTimeout() {
+            PendingEvent first = pendingEvents.peekFirst();
+            if (first == null)
+                return -1;
+            long remaining = first.time + COALESCE_WINDOW - System.nanoTime();
+            if (remaining <= 0)
+                return 0;
+            return (int)Math.min(Integer.MAX_VALUE,
+                                 TimeUnit.NANOSECONDS.toMillis(remaining) + 1);
+        }
+
+        /**
+         * Queues an event to the key or, if coalescing, holds it so that
+         * repeated events can be merged into it.
+         */
+        private void signalEvent(LinuxWatchKey key, WatchEvent.Kind<?> kind,
+                                 Object context)
+        {
+            if (COALESCE_WINDOW == 0L) {
+                key.signalEvent(kind, context);
+                return;
+            }
+            PendingEvent last = key.pendingEvents.get(context);
+            if (last != null && last.kind == kind) {
+                last.count++;
+                PerfCounter.getInotifyCoalescedEvents().increment();
+                return;
+            }
+            PendingEvent ev = new PendingEvent(key, kind, context, System.nanoTime());
+            key.pendingEvents.put(context, ev);
+            pendingEvents.addLast(ev);
+        }
+
+        /**
+         * Queues the held events that are due, or all held events, to their
+         * keys.
+         */
+        private void flushPendingEvents(boolean all) {
+            long now = System.nanoTime();
+            PendingEvent ev;
+            while ((ev = pendingEvents.peekFirst()) != null) {
+                if (!all && (now - ev.time) < COALESCE_WINDOW)
+                    break;
+                pendingEvents.removeFirst();
+                LinuxWatchKey key = ev.key;
+                if (key.pendingEvents.get(ev.context) == ev)
+                    key.pendingEvents.remove(ev.context);
+                if (key.isValid())
+                    key.signalEvent(ev.kind, ev.context, ev.count);
+            }
+        }
 
         /**
          * map inotify event to WatchEvent.Kind
@@ -399,11 +716,20 @@ class LinuxWatchService
          * Process event from inotify
          */
         private void processEvent(int wd, int mask, final UnixPath name) {
-            // overflow - signal all keys
+            // overflow - rescan file trees for directories created while
+            // events were lost, then signal all keys
             if ((mask & IN_Q_OVERFLOW) > 0) {
-                for (Map.Entry<Integer,LinuxWatchKey> entry: wdToKey.entrySet()) {
-                    entry.getValue()
-                        .signalEvent(StandardWatchEventKinds.OVERFLOW, null);
+                PerfCounter.getInotifyOverflows().increment();
+                flushPendingEvents(true);
+                for (LinuxWatchKey key: new HashSet<>(wdToKey.values())) {
+                    if (key.fileTree) {
+                        try {
+                            watchSubdirs(key, null, false, false);
+                        } catch (UnixException x) {
+                            // watch limit reached, nothing we can do
+                        }
+                    }
+                    key.signalEvent(StandardWatchEventKinds.OVERFLOW, null);
                 }
                 return;
             }
@@ -413,10 +739,19 @@ class LinuxWatchService
             if (key == null)
                 return; // should not happen
 
+            // event for a subdirectory of a file tree
+            UnixPath subdir = (wd == key.descriptor()) ? null : key.subdirs.get(wd);
+
             // file deleted
             if ((mask & IN_IGNORED) > 0) {
                 wdToKey.remove(wd);
-                key.invalidate(false);
+                if (subdir != null) {
+                    key.subdirs.remove(wd);
+                    return;
+                }
+                for (Integer sd: key.subdirs.keySet())
+                    wdToKey.remove(sd);
+                key.invalidate(true);
                 key.signal();
                 return;
             }
@@ -425,10 +760,50 @@ class LinuxWatchService
             if (name == null)
                 return;
 
+            UnixPath context = (subdir == null) ? name : subdir.resolve(name);
+
+            // maintain the watches on the file tree
+            if (key.fileTree && (mask & IN_ISDIR) != 0) {
+                if ((mask & (IN_CREATE | IN_MOVED_TO)) != 0) {
+                    int nwd = -1;
+                    try {
+                        nwd = addWatch(((UnixPath)key.watchable()).resolve(context),
+                                       key.mask | TREE_MASK | IN_MASK_ADD);
+                    } catch (UnixException x) {
+                        // deleted already or watch limit reached
+                    }
+                    if (nwd != -1 && !wdToKey.containsKey(nwd)) {
+                        wdToKey.put(nwd, key);
+                        key.subdirs.put(nwd, context);
+                    }
+                    if ((mask & key.mask) != 0)
+                        signalEvent(key, maskToEventKind(mask), context);
+                    // entries created before the watch was added
+                    if (nwd != -1 && key.subdirs.containsKey(nwd)) {
+                        try {
+                            watchSubdirs(key, context, true, false);
+                        } catch (UnixException x) {
+                            // watch limit reached
+                        }
+                    }
+                    return;
+                }
+                if ((mask & IN_MOVED_FROM) != 0) {
+                    // moved out of the tree, or to be re-watched at its new
+                    // path by the IN_MOVED_TO event that follows
+                    for (Integer sd: key.removeSubdirs(context))
+                        wdToKey.remove(sd);
+                }
+            }
+
+            // ignore events that were only requested to maintain the tree
+            if ((mask & key.mask) == 0)
+                return;
+
             // map to event and queue to key
             WatchEvent.Kind<?> kind = maskToEventKind(mask);
             if (kind != null) {
-                key.signalEvent(kind, name);
+                signalEvent(key, kind, context);
             }
         }
     }
@@ -454,7 +829,8 @@ class LinuxWatchService
 
     private static native void socketpair(int[] sv) throws UnixException;
 
-    private static native int poll(int fd1, int fd2) throws UnixException;
+    private static native int poll(int fd1, int fd2, int timeout)
+        throws UnixException;
 
     static {
         AccessController.doPrivileged(new PrivilegedAction<Void>() {
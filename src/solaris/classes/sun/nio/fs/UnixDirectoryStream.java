@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2008, 2010, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -26,6 +26,7 @@
 package sun.nio.fs;
 
 import java.nio.file.*;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.concurrent.locks.*;
@@ -160,12 +161,19 @@ class UnixDirectoryStream
 
             for (;;) {
                 byte[] nameAsBytes = null;
+                int type = FileTypeHolder.TYPE_UNKNOWN;
 
                 // prevent close while reading
                 readLock().lock();
                 try {
                     if (isOpen()) {
-                        nameAsBytes = readdir(dp);
+                        // name followed by the type of the entry
+                        byte[] entry = readdirWithType(dp);
+                        if (entry != null) {
+                            int len = entry.length - 1;
+                            type = entry[len];
+                            nameAsBytes = Arrays.copyOf(entry, len);
+                        }
                     }
                 } catch (UnixException x) {
                     IOException ioe = x.asIOException(dir);
@@ -182,7 +190,7 @@ class UnixDirectoryStream
 
                 // ignore "." and ".."
                 if (!isSelfOrParent(nameAsBytes)) {
-                    Path entry = dir.resolve(nameAsBytes);
+                    Path entry = dir.resolveEntry(nameAsBytes, type);
 
                     // return entry if no filter or filter accepts it
                     try {
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2008, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -32,11 +32,13 @@ import java.nio.channels.*;
 import java.net.URI;
 import java.util.concurrent.ExecutorService;
 import java.io.IOException;
+import java.io.FileDescriptor;
 import java.io.FilePermission;
 import java.util.*;
 import java.security.AccessController;
 
 import sun.nio.ch.ThreadPool;
+import sun.nio.ch.SimpleAsynchronousFileChannelImpl;
 import sun.security.util.SecurityConstants;
 import static sun.nio.fs.UnixNativeDispatcher.*;
 import static sun.nio.fs.UnixConstants.*;
@@ -199,6 +201,19 @@ public abstract class UnixFileSystemProvider
     }
 
 
+    /**
+     * Creates an asynchronous file channel for the given open file. This
+     * implementation uses the portable implementation; platforms that
+     * support asynchronous file I/O override it.
+     */
+    AsynchronousFileChannel newAsynchronousFileChannel(FileDescriptor fdObj,
+                                                       boolean reading,
+                                                       boolean writing,
+                                                       ThreadPool pool)
+    {
+        return SimpleAsynchronousFileChannelImpl.open(fdObj, reading, writing, pool);
+    }
+
     @Override
     public SeekableByteChannel newByteChannel(Path obj,
                                               Set<? extends OpenOption> options,
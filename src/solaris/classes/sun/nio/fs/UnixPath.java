@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2008, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -405,6 +405,39 @@ class UnixPath
         return resolve(new UnixPath(getFileSystem(), other));
     }
 
+    /**
+     * Resolves the name of an entry read from this directory, recording the
+     * type of the entry if it is known.
+     */
+    UnixPath resolveEntry(byte[] name, int type) {
+        byte[] result = resolve(path, name);
+        if (type == FileTypeHolder.TYPE_UNKNOWN)
+            return new UnixPath(getFileSystem(), result);
+        return new UnixPathWithType(getFileSystem(), result, type);
+    }
+
+    /**
+     * Special implementation with the file type read from the directory (used
+     * to quicken file tree traversal)
+     */
+    private static class UnixPathWithType
+        extends UnixPath implements FileTypeHolder
+    {
+        private final int type;
+
+        UnixPathWithType(UnixFileSystem fs, byte[] path, int type) {
+            super(fs, path);
+            this.type = type;
+        }
+
+        @Override
+        public int fileType() {
+            return type;
+        }
+
+        // no need to override equals/hashCode.
+    }
+
     @Override
     public UnixPath relativize(Path obj) {
         UnixPath other = toUnixPath(obj);
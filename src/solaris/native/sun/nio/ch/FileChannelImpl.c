@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2000, 2012, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2000, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -122,6 +122,46 @@ Java_sun_nio_ch_FileChannelImpl_unmap0(JNIEnv *env, jobject this,
 }
 
 
+/* Order of the constants in sun.nio.ch.MappedRegion.Advice */
+#define ADVICE_NORMAL       0
+#define ADVICE_SEQUENTIAL   1
+#define ADVICE_RANDOM       2
+#define ADVICE_WILLNEED     3
+#define ADVICE_DONTNEED     4
+#define ADVICE_HUGEPAGE     5
+
+JNIEXPORT jint JNICALL
+Java_sun_nio_ch_FileChannelImpl_madvise0(JNIEnv *env, jclass clazz,
+                                         jlong address, jlong len,
+                                         jint advice)
+{
+    void *a = (void *)jlong_to_ptr(address);
+    int flag;
+
+    switch (advice) {
+        case ADVICE_NORMAL:     flag = MADV_NORMAL; break;
+        case ADVICE_SEQUENTIAL: flag = MADV_SEQUENTIAL; break;
+        case ADVICE_RANDOM:     flag = MADV_RANDOM; break;
+        case ADVICE_WILLNEED:   flag = MADV_WILLNEED; break;
+        case ADVICE_DONTNEED:   flag = MADV_DONTNEED; break;
+#ifdef MADV_HUGEPAGE
+        case ADVICE_HUGEPAGE:   flag = MADV_HUGEPAGE; break;
+#endif
+        default:
+            /* not supported on this platform, ignore the hint */
+            return 0;
+    }
+    if (madvise((caddr_t)a, (size_t)len, flag) == -1) {
+        /* transparent huge pages may not be configured */
+        if (errno == EINVAL && advice == ADVICE_HUGEPAGE)
+            return 0;
+        JNU_ThrowIOExceptionWithLastError(env, "madvise failed");
+        return IOS_THROWN;
+    }
+    return 0;
+}
+
+
 JNIEXPORT jlong JNICALL
 Java_sun_nio_ch_FileChannelImpl_position0(JNIEnv *env, jobject this,
                                           jobject fdo, jlong offset)
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2000, 2012, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2000, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -126,6 +126,38 @@ Java_sun_nio_ch_FileDispatcherImpl_writev0(JNIEnv *env, jclass clazz,
     return convertLongReturnVal(env, writev(fd, iov, len), JNI_FALSE);
 }
 
+JNIEXPORT jlong JNICALL
+Java_sun_nio_ch_FileDispatcherImpl_splice0(JNIEnv *env, jclass clazz,
+                                           jobject fdi, jobject fdo,
+                                           jlong position, jlong len)
+{
+#ifdef __linux__
+    jint in = fdval(env, fdi);
+    jint out = fdval(env, fdo);
+    loff_t offset = (loff_t)position;
+    ssize_t n;
+
+    n = splice(in, NULL, out, (position < 0) ? NULL : &offset, (size_t)len,
+               SPLICE_F_MOVE);
+    if (n < 0) {
+        if (errno == EAGAIN)
+            return IOS_UNAVAILABLE;
+        if (errno == EINTR)
+            return IOS_INTERRUPTED;
+        /* file descriptor type, file system or open mode not supported */
+        if (errno == EINVAL || errno == ENOSYS)
+            return IOS_UNSUPPORTED_CASE;
+        JNU_ThrowIOExceptionWithLastError(env, "splice failed");
+        return IOS_THROWN;
+    }
+    if (n == 0 && len > 0)
+        return IOS_EOF;
+    return n;
+#else
+    return IOS_UNSUPPORTED;
+#endif
+}
+
 static jlong
 handle(JNIEnv *env, jlong rv, char *msg)
 {
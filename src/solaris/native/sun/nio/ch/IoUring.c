@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+
+#include "jni.h"
+#include "jni_util.h"
+#include "jvm.h"
+#include "jlong.h"
+#include "nio_util.h"
+
+#include "sun_nio_ch_IoUring.h"
+
+#include <errno.h>
+#include <stdlib.h>
+#include <string.h>
+#include <unistd.h>
+#include <sys/mman.h>
+#include <sys/syscall.h>
+#include <sys/types.h>
+#include <sys/uio.h>
+
+/*
+ * io_uring was added in Linux 5.1 and the build system may not have the
+ * header file or glibc wrappers so the kernel interface is defined here.
+ */
+
+#ifndef __NR_io_uring_setup
+#define __NR_io_uring_setup     425
+#endif
+#ifndef __NR_io_uring_enter
+#define __NR_io_uring_enter     426
+#endif
+#ifndef __NR_io_uring_register
+#define __NR_io_uring_register  427
+#endif
+
+#define IORING_OFF_SQ_RING      0ULL
+#define IORING_OFF_CQ_RING      0x8000000ULL
+#define IORING_OFF_SQES         0x10000000ULL
+
+#define IORING_FEAT_SINGLE_MMAP (1U << 0)
+
+#define IORING_REGISTER_BUFFERS 0
+#define IORING_REGISTER_PROBE   8
+
+#define IO_URING_OP_SUPPORTED   (1U << 0)
+
+#define SIZEOF_SQE              64
+#define SIZEOF_CQE              16
+
+struct uring_sqring_offsets {
+    jint head;
+    jint tail;
+    jint ring_mask;
+    jint ring_entries;
+    jint flags;
+    jint dropped;
+    jint array;
+    jint resv1;
+    jlong resv2;
+};
+
+struct uring_cqring_offsets {
+    jint head;
+    jint tail;
+    jint ring_mask;
+    jint ring_entries;
+    jint overflow;
+    jint cqes;
+    jint flags;
+    jint resv1;
+    jlong resv2;
+};
+
+struct uring_params {
+    jint sq_entries;
+    jint cq_entries;
+    jint flags;
+    jint sq_thread_cpu;
+    jint sq_thread_idle;
+    jint features;
+    jint wq_fd;
+    jint resv[3];
+    struct uring_sqring_offsets sq_off;
+    struct uring_cqring_offsets cq_off;
+};
+
+struct uring_probe_op {
+    unsigned char op;
+    unsigned char resv;
+    unsigned short flags;
+    jint resv2;
+};
+
+struct uring_probe {
+    unsigned char last_op;
+    unsigned char ops_len;
+    unsigned short resv;
+    jint resv2[3];
+    struct uring_probe_op ops[256];
+};
+
+static int uring_setup(unsigned entries, struct uring_params *p) {
+    return (int)syscall(__NR_io_uring_setup, entries, p);
+}
+
+static int uring_enter(int fd, unsigned to_submit, unsigned min_complete,
+                       unsigned flags) {
+    return (int)syscall(__NR_io_uring_enter, fd, to_submit, min_complete,
+                        flags, NULL, 0);
+}
+
+static int uring_register(int fd, unsigned opcode, void *arg, unsigned nr_args) {
+    return (int)syscall(__NR_io_uring_register, fd, opcode, arg, nr_args);
+}
+
+JNIEXPORT jboolean JNICALL
+Java_sun_nio_ch_IoUring_isSupported0(JNIEnv *env, jclass c)
+{
+    /* opcodes that must be supported */
+    static const unsigned char required[] = { 0, 4, 5, 6, 7, 14, 22, 23 };
+    struct uring_params p;
+    struct uring_probe probe;
+    jboolean supported = JNI_FALSE;
+    int fd;
+    size_t i;
+
+    memset(&p, 0, sizeof(p));
+    fd = uring_setup(1, &p);
+    if (fd < 0) {
+        /* ENOSYS if not supported, EPERM if disabled by sysctl/seccomp */
+        return JNI_FALSE;
+    }
+
+    /* IORING_REGISTER_PROBE is Linux 5.6, the same release as IORING_OP_READ */
+    memset(&probe, 0, sizeof(probe));
+    if (uring_register(fd, IORING_REGISTER_PROBE, &probe, 256) == 0) {
+        supported = JNI_TRUE;
+        for (i = 0; i < sizeof(required); i++) {
+            unsigned char op = required[i];
+            if (op > probe.last_op ||
+                (probe.ops[op].flags & IO_URING_OP_SUPPORTED) == 0) {
+                supported = JNI_FALSE;
+                break;
+            }
+        }
+    }
+    close(fd);
+    return supported;
+}
+
+JNIEXPORT void JNICALL
+Java_sun_nio_ch_IoUring_setup(JNIEnv *env, jclass c, jint entries,
+                              jlongArray layout)
+{
+    struct uring_params p;
+    jlong values[sun_nio_ch_IoUring_LAYOUT_SIZE];
+    size_t sq_size, cq_size, sqes_size;
+    char *sq_ptr, *cq_ptr, *sqes;
+    int fd;
+
+    memset(&p, 0, sizeof(p));
+    fd = uring_setup((unsigned)entries, &p);
+    if (fd < 0) {
+        JNU_ThrowIOExceptionWithLastError(env, "io_uring_setup failed");
+        return;
+    }
+
+    sq_size = p.sq_off.array + p.sq_entries * sizeof(unsigned);
+    cq_size = p.cq_off.cqes + p.cq_entries * SIZEOF_CQE;
+    if (p.features & IORING_FEAT_SINGLE_MMAP) {
+        if (cq_size > sq_size)
+            sq_size = cq_size;
+        cq_size = sq_size;
+    }
+
+    sq_ptr = mmap(NULL, sq_size, PROT_READ | PROT_WRITE,
+                  MAP_SHARED | MAP_POPULATE, fd, IORING_OFF_SQ_RING);
+    if (sq_ptr == MAP_FAILED) {
+        JNU_ThrowIOExceptionWithLastError(env, "mmap failed");
+        close(fd);
+        return;
+    }
+    if (p.features & IORING_FEAT_SINGLE_MMAP) {
+        cq_ptr = sq_ptr;
+    } else {
+        cq_ptr = mmap(NULL, cq_size, PROT_READ | PROT_WRITE,
+                      MAP_SHARED | MAP_POPULATE, fd, IORING_OFF_CQ_RING);
+        if (cq_ptr == MAP_FAILED) {
+            JNU_ThrowIOExceptionWithLastError(env, "mmap failed");
+            munmap(sq_ptr, sq_size);
+            close(fd);
+            return;
+        }
+    }
+    sqes_size = p.sq_entries * SIZEOF_SQE;
+    sqes = mmap(NULL, sqes_size, PROT_READ | PROT_WRITE,
+                MAP_SHARED | MAP_POPULATE, fd, IORING_OFF_SQES);
+    if (sqes == MAP_FAILED) {
+        JNU_ThrowIOExceptionWithLastError(env, "mmap failed");
+        if (cq_ptr != sq_ptr)
+            munmap(cq_ptr, cq_size);
+        munmap(sq_ptr, sq_size);
+        close(fd);
+        return;
+    }
+
+    values[sun_nio_ch_IoUring_LAYOUT_RING_FD] = (jlong)fd;
+    values[sun_nio_ch_IoUring_LAYOUT_SQ_HEAD] = ptr_to_jlong(sq_ptr + p.sq_off.head);
+    values[sun_nio_ch_IoUring_LAYOUT_SQ_TAIL] = ptr_to_jlong(sq_ptr + p.sq_off.tail);
+    values[sun_nio_ch_IoUring_LAYOUT_SQ_MASK] = ptr_to_jlong(sq_ptr + p.sq_off.ring_mask);
+    values[sun_nio_ch_IoUring_LAYOUT_SQ_ENTRIES] = ptr_to_jlong(sq_ptr + p.sq_off.ring_entries);
+    values[sun_nio_ch_IoUring_LAYOUT_SQ_ARRAY] = ptr_to_jlong(sq_ptr + p.sq_off.array);
+    values[sun_nio_ch_IoUring_LAYOUT_SQES] = ptr_to_jlong(sqes);
+    values[sun_nio_ch_IoUring_LAYOUT_CQ_HEAD] = ptr_to_jlong(cq_ptr + p.cq_off.head);
+    values[sun_nio_ch_IoUring_LAYOUT_CQ_TAIL] = ptr_to_jlong(cq_ptr + p.cq_off.tail);
+    values[sun_nio_ch_IoUring_LAYOUT_CQ_MASK] = ptr_to_jlong(cq_ptr + p.cq_off.ring_mask);
+    values[sun_nio_ch_IoUring_LAYOUT_CQ_ENTRIES] = ptr_to_jlong(cq_ptr + p.cq_off.ring_entries);
+    values[sun_nio_ch_IoUring_LAYOUT_CQES] = ptr_to_jlong(cq_ptr + p.cq_off.cqes);
+    values[sun_nio_ch_IoUring_LAYOUT_SQ_RING_PTR] = ptr_to_jlong(sq_ptr);
+    values[sun_nio_ch_IoUring_LAYOUT_SQ_RING_SIZE] = (jlong)sq_size;
+    values[sun_nio_ch_IoUring_LAYOUT_CQ_RING_PTR] = ptr_to_jlong(cq_ptr);
+    values[sun_nio_ch_IoUring_LAYOUT_CQ_RING_SIZE] = (jlong)cq_size;
+    values[sun_nio_ch_IoUring_LAYOUT_SQES_SIZE] = (jlong)sqes_size;
+
+    (*env)->SetLongArrayRegion(env, layout, 0, sun_nio_ch_IoUring_LAYOUT_SIZE, values);
+}
+
+JNIEXPORT jint JNICALL
+Java_sun_nio_ch_IoUring_enter(JNIEnv *env, jclass c, jint fd, jint toSubmit,
+                              jint minComplete, jint flags)
+{
+    int res;
+
+    RESTARTABLE(uring_enter(fd, (unsigned)toSubmit, (unsigned)minComplete,
+                            (unsigned)flags), res);
+    if (res < 0) {
+        /* completion queue overflow or out of memory; caller retries */
+        if (errno == EBUSY || errno == EAGAIN)
+            return 0;
+        JNU_ThrowIOExceptionWithLastError(env, "io_uring_enter failed");
+    }
+    return res;
+}
+
+JNIEXPORT jint JNICALL
+Java_sun_nio_ch_IoUring_registerBuffers0(JNIEnv *env, jclass c, jint fd,
+                                         jlong iovecs, jint count)
+{
+    struct iovec *iov = jlong_to_ptr(iovecs);
+    int res = uring_register(fd, IORING_REGISTER_BUFFERS, iov, (unsigned)count);
+    return (res == 0) ? 0 : errno;
+}
+
+JNIEXPORT void JNICALL
+Java_sun_nio_ch_IoUring_unmap(JNIEnv *env, jclass c, jlongArray layout)
+{
+    jlong values[sun_nio_ch_IoUring_LAYOUT_SIZE];
+    void *sq_ptr, *cq_ptr;
+
+    (*env)->GetLongArrayRegion(env, layout, 0, sun_nio_ch_IoUring_LAYOUT_SIZE, values);
+    sq_ptr = jlong_to_ptr(values[sun_nio_ch_IoUring_LAYOUT_SQ_RING_PTR]);
+    cq_ptr = jlong_to_ptr(values[sun_nio_ch_IoUring_LAYOUT_CQ_RING_PTR]);
+    munmap(jlong_to_ptr(values[sun_nio_ch_IoUring_LAYOUT_SQES]),
+           (size_t)values[sun_nio_ch_IoUring_LAYOUT_SQES_SIZE]);
+    if (cq_ptr != sq_ptr)
+        munmap(cq_ptr, (size_t)values[sun_nio_ch_IoUring_LAYOUT_CQ_RING_SIZE]);
+    munmap(sq_ptr, (size_t)values[sun_nio_ch_IoUring_LAYOUT_SQ_RING_SIZE]);
+}
+
+JNIEXPORT void JNICALL
+Java_sun_nio_ch_IoUring_close0(JNIEnv *env, jclass c, jint fd) {
+    int res;
+    RESTARTABLE(close(fd), res);
+}
+
+JNIEXPORT jstring JNICALL
+Java_sun_nio_ch_IoUring_strerror(JNIEnv *env, jclass c, jint error)
+{
+    char *msg = strerror(error);
+    return JNU_NewStringPlatform(env, msg);
+}
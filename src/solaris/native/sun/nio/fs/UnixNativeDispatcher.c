@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2008, 2013, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2008, 2014, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * This code is free software; you can redistribute it and/or modify it
@@ -660,8 +660,33 @@ Java_sun_nio_fs_UnixNativeDispatcher_closedir(JNIEnv* env, jclass this, jlong di
     }
 }
 
-JNIEXPORT jbyteArray JNICALL
-Java_sun_nio_fs_UnixNativeDispatcher_readdir(JNIEnv* env, jclass this, jlong value) {
+/* Entry types, must match the TYPE_* values in sun.nio.fs.FileTypeHolder */
+#define ENTRY_TYPE_UNKNOWN          0
+#define ENTRY_TYPE_DIRECTORY        1
+#define ENTRY_TYPE_REGULAR_FILE     2
+#define ENTRY_TYPE_SYMBOLIC_LINK    3
+#define ENTRY_TYPE_OTHER            4
+
+static jbyte entryType(struct dirent64* ptr) {
+#if defined(DT_UNKNOWN) && !defined(__solaris__)
+    switch (ptr->d_type) {
+        case DT_UNKNOWN : return ENTRY_TYPE_UNKNOWN;
+        case DT_DIR     : return ENTRY_TYPE_DIRECTORY;
+        case DT_REG     : return ENTRY_TYPE_REGULAR_FILE;
+        case DT_LNK     : return ENTRY_TYPE_SYMBOLIC_LINK;
+        default         : return ENTRY_TYPE_OTHER;
+    }
+#else
+    /* d_type not available */
+    return ENTRY_TYPE_UNKNOWN;
+#endif
+}
+
+/**
+ * Reads the next entry, returning its name, followed by its type if
+ * withType is true, or NULL at the end of the directory.
+ */
+static jbyteArray readdirImpl(JNIEnv* env, jlong value, jboolean withType) {
     struct dirent64* result;
     struct {
         struct dirent64 buf;
@@ -682,15 +707,31 @@ Java_sun_nio_fs_UnixNativeDispatcher_readdir(JNIEnv* env, jclass this, jlong val
             return NULL;
         } else {
             jsize len = strlen(ptr->d_name);
-            jbyteArray bytes = (*env)->NewByteArray(env, len);
+            jbyteArray bytes = (*env)->NewByteArray(env, withType ? len + 1 : len);
             if (bytes != NULL) {
                 (*env)->SetByteArrayRegion(env, bytes, 0, len, (jbyte*)(ptr->d_name));
+                if (withType) {
+                    jbyte type = entryType(ptr);
+                    (*env)->SetByteArrayRegion(env, bytes, len, 1, &type);
+                }
             }
             return bytes;
         }
     }
 }
 
+JNIEXPORT jbyteArray JNICALL
+Java_sun_nio_fs_UnixNativeDispatcher_readdir(JNIEnv* env, jclass this, jlong value) {
+    return readdirImpl(env, value, JNI_FALSE);
+}
+
+JNIEXPORT jbyteArray JNICALL
+Java_sun_nio_fs_UnixNativeDispatcher_readdirWithType(JNIEnv* env, jclass this,
+    jlong value)
+{
+    return readdirImpl(env, value, JNI_TRUE);
+}
+
 JNIEXPORT void JNICALL
 Java_sun_nio_fs_UnixNativeDispatcher_mkdir0(JNIEnv* env, jclass this,
     jlong pathAddress, jint mode)
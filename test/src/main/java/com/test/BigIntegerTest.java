@@ -0,0 +1,132 @@
+package com.test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * BigInteger.modPow against square-and-multiply, and the throughput of
+ * modPow with full-size exponents, as in RSA private key operations, and
+ * with the public exponent 65537.
+ */
+public class BigIntegerTest {
+
+    private static final long TIME = 5L * 1000 * 1000 * 1000;
+
+    // modulus sizes in bits: word boundaries, RSA sizes, and sizes around
+    // 512 ints, the largest operands of the Montgomery intrinsics
+    private static final int[] CHECK_SIZES = {
+        1, 2, 31, 32, 33, 63, 64, 65, 95, 127, 128, 129, 521, 1023, 1024,
+        1025, 2048, 3072, 4096, 511 * 32, 511 * 32 + 1, 512 * 32 - 1,
+        512 * 32, 512 * 32 + 1, 513 * 32, 513 * 32 + 1
+    };
+
+    public static void main(String[] args) throws Exception {
+        testModPowReference();
+        int[] sizes = {1024, 2048, 4096};
+        for (int size : sizes) {
+            testModPow(size, size);
+            testModPow(size, 17);
+        }
+    }
+
+    public static void testModPowReference() {
+        Random random = new Random(2014);
+
+        // enough rounds for C2 to compile modPow and its intrinsics
+        for (int round = 0; round < 3000; round++) {
+            int size = 1 + random.nextInt(2100);
+            checkModPow(random, size, Math.min(size, 300), random.nextBoolean());
+        }
+        for (int size : CHECK_SIZES) {
+            int expBits = size <= 4096 ? Math.min(size, 512) : 64;
+            for (int i = 0; i < (size <= 4096 ? 50 : 5); i++) {
+                checkModPow(random, size, expBits, true);
+                checkModPow(random, size, expBits, false);
+            }
+        }
+
+        // trivial cases and operands outside [0, m)
+        BigInteger m = new BigInteger(1024, random).setBit(1023).setBit(0);
+        BigInteger e = new BigInteger(100, random);
+        BigInteger[] bases = {
+            BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE.negate(), m, m.add(BigInteger.ONE),
+            m.negate().subtract(BigInteger.TEN), m.shiftLeft(100).add(e)
+        };
+        for (BigInteger base : bases) {
+            for (BigInteger exp : new BigInteger[] {BigInteger.ZERO, BigInteger.ONE, e}) {
+                for (BigInteger mod : new BigInteger[] {BigInteger.ONE, m, m.add(BigInteger.ONE)}) {
+                    check(base, exp, mod);
+                }
+            }
+        }
+        System.out.println("modPow against square-and-multiply: OK");
+    }
+
+    static void checkModPow(Random random, int size, int expBits, boolean odd) {
+        BigInteger mod = new BigInteger(size, random).setBit(size - 1);
+        mod = odd ? mod.setBit(0) : mod.clearBit(0);
+        if (mod.signum() == 0) {
+            mod = BigInteger.valueOf(2);
+        }
+        BigInteger base = new BigInteger(size + random.nextInt(3) - 1, random);
+        if (random.nextInt(8) == 0) {
+            base = base.negate();
+        }
+        BigInteger exp = new BigInteger(1 + random.nextInt(expBits), random);
+        check(base, exp, mod);
+    }
+
+    static void check(BigInteger base, BigInteger exp, BigInteger mod) {
+        BigInteger expected = reference(base, exp, mod);
+        BigInteger result = base.modPow(exp, mod);
+        if (!result.equals(expected)) {
+            throw new RuntimeException("modPow(" + base.toString(16) + ", " + exp.toString(16)
+                    + ", " + mod.toString(16) + ") = " + result.toString(16)
+                    + ", expected " + expected.toString(16));
+        }
+    }
+
+    // left-to-right binary exponentiation, reducing after every product
+    static BigInteger reference(BigInteger base, BigInteger exp, BigInteger mod) {
+        BigInteger b = base.mod(mod);
+        BigInteger result = BigInteger.ONE.mod(mod);
+        for (int i = exp.bitLength() - 1; i >= 0; i--) {
+            result = result.multiply(result).mod(mod);
+            if (exp.testBit(i)) {
+                result = result.multiply(b).mod(mod);
+            }
+        }
+        return result;
+    }
+
+    public static void testModPow(int size, int expBits) throws Exception {
+        Random random = new Random(size);
+        BigInteger mod = new BigInteger(size, random).setBit(size - 1).setBit(0);
+        BigInteger exp = expBits == 17 ? BigInteger.valueOf(65537)
+                                       : new BigInteger(expBits, random).setBit(expBits - 1);
+        BigInteger[] bases = new BigInteger[16];
+        for (int i = 0; i < bases.length; i++) {
+            bases[i] = new BigInteger(size - 1, random);
+        }
+
+        // warm up so that C2 has compiled the intrinsics; each modPow
+        // makes thousands of calls to the Montgomery multiplication
+        for (int i = 0; i < 200; i++) {
+            bases[i % bases.length].modPow(exp, mod);
+        }
+
+        long ops = 0;
+        long start = System.nanoTime();
+        long time;
+        do {
+            for (BigInteger base : bases) {
+                base.modPow(exp, mod);
+            }
+            ops += bases.length;
+            time = System.nanoTime() - start;
+        } while (time < TIME);
+        System.out.println("modPow:" + size + ":" + (expBits == 17 ? "65537" : "full") + ":"
+                + (ops * 1000L * 1000 * 1000 / time) + " ops/s");
+    }
+
+}
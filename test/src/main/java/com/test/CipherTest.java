@@ -0,0 +1,203 @@
+package com.test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+public class CipherTest {
+
+    // {key, IV, plaintext, AAD, ciphertext, tag}: COUNT = 0 of
+    // gcmEncryptExtIV128.rsp from NIST CAVP, and test cases 1 to 4, 6 and
+    // 16 of the GCM specification submitted to NIST (McGrew and Viega)
+    private static final String P = "d9313225f88406e5a55909c5aff5269a86a7a9531534f7da2e4c303d"
+            + "8a318a721c3c0c95956809532fcf0e2449a6b525b16aedf5aa0de657ba637b39";
+    private static final String A = "feedfacedeadbeeffeedfacedeadbeefabaddad2";
+    private static final String[][] GCM_VECTORS = {
+        {"11754cd72aec309bf52f7687212e8957", "3c819d9a9bed087615030b65", "", "",
+         "", "250327c674aaf477aef2675748cf6971"},
+        {"00000000000000000000000000000000", "000000000000000000000000", "", "",
+         "", "58e2fccefa7e3061367f1d57a4e7455a"},
+        {"00000000000000000000000000000000", "000000000000000000000000",
+         "00000000000000000000000000000000", "",
+         "0388dace60b6a392f328c2b971b2fe78", "ab6e47d42cec13bdf53a67b21257bddf"},
+        {"feffe9928665731c6d6a8f9467308308", "cafebabefacedbaddecaf888",
+         P + "1aafd255", "",
+         "42831ec2217774244b7221b784d0d49ce3aa212f2c02a4e035c17e2329aca12e"
+         + "21d514b25466931c7d8f6a5aac84aa051ba30b396a0aac973d58e091473f5985",
+         "4d5c2af327cd64a62cf35abd2ba6fab4"},
+        {"feffe9928665731c6d6a8f9467308308", "cafebabefacedbaddecaf888", P, A,
+         "42831ec2217774244b7221b784d0d49ce3aa212f2c02a4e035c17e2329aca12e"
+         + "21d514b25466931c7d8f6a5aac84aa051ba30b396a0aac973d58e091",
+         "5bc94fbc3221a5db94fae95ae7121a47"},
+        {"feffe9928665731c6d6a8f9467308308",
+         "9313225df88406e555909c5aff5269aa6a7a9538534f7da1e4c303d2a318a728"
+         + "c3c0c95156809539fcf0e2429a6b525416aedbf5a0de6a57a637b39b", P, A,
+         "8ce24998625615b603a033aca13fb894be9112a5c3a211a8ba262a3cca7e2ca7"
+         + "01e4a9a4fba43c90ccdcb281d48c7c6fd62875d2aca417034c34aee5",
+         "619cc5aefffe0bfa462af43c1699d050"},
+        {"feffe9928665731c6d6a8f9467308308feffe9928665731c6d6a8f9467308308",
+         "cafebabefacedbaddecaf888", P, A,
+         "522dc1f099567d07f47f37a32a84427d643a8cdcbfe5c0c97598a2bd2555d1aa"
+         + "8cb08e48590dbb3da7b08b1056828838c5f61e6393ba7a0abcc9f662",
+         "76fc6ece0f4e1768cddf8853bb2d551b"},
+    };
+
+    public static void main(String[] args) throws Exception {
+        testGCMKnownAnswers();
+        testGCMCounterWrap();
+        int[] sizes = {1024, 16 * 1024, 64 * 1024, 1024 * 1024};
+        for (int size : sizes) {
+            testGCM(size);
+            testCTR(size);
+        }
+    }
+
+    public static void testGCMKnownAnswers() throws Exception {
+        // repeat so that the known answers are also checked once C2 has
+        // compiled the intrinsics; a Cipher refuses to encrypt twice with
+        // the same key and IV, so take a new one each time
+        for (int round = 0; round < 5000; round++) {
+            for (String[] v : GCM_VECTORS) {
+                Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                SecretKeySpec key = new SecretKeySpec(hex(v[0]), "AES");
+                GCMParameterSpec spec = new GCMParameterSpec(128, hex(v[1]));
+                byte[] expected = hex(v[4] + v[5]);
+                cipher.init(Cipher.ENCRYPT_MODE, key, spec);
+                cipher.updateAAD(hex(v[3]));
+                byte[] result = cipher.doFinal(hex(v[2]));
+                if (!Arrays.equals(result, expected)) {
+                    throw new RuntimeException("GCM encryption, key " + v[0] + ", IV " + v[1]);
+                }
+                cipher.init(Cipher.DECRYPT_MODE, key, spec);
+                cipher.updateAAD(hex(v[3]));
+                if (!Arrays.equals(cipher.doFinal(expected), hex(v[2]))) {
+                    throw new RuntimeException("GCM decryption, key " + v[0] + ", IV " + v[1]);
+                }
+            }
+        }
+        System.out.println("AES/GCM known answers: OK");
+    }
+
+    /**
+     * GCM increments only the low 32 bits of the counter block. The IV
+     * below is 16 bytes long, so the initial counter block is its GHASH,
+     * which was chosen to be 00112233445566778899aabbfffffff8: the low 32
+     * bits wrap after the eighth block of a single update. The ciphertext
+     * is compared with AES/ECB applied to counter blocks computed here,
+     * and the tag with the one computed by OpenSSL.
+     */
+    public static void testGCMCounterWrap() throws Exception {
+        byte[] key = new byte[16];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = (byte) i;
+        }
+        byte[] iv = hex("94444c2cccc6aaa10610402e8d9f1dae");
+        byte[] data = new byte[4096 + 13];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 7);
+        }
+        byte[] aad = "counter wrap".getBytes("US-ASCII");
+        byte[] tag = hex("1b541235b5b935c9436d68a6dca5a276");
+
+        // the key stream, from the counter block after the initial one
+        SecretKeySpec keySpec = new SecretKeySpec(key, "AES");
+        Cipher ecb = Cipher.getInstance("AES/ECB/NoPadding");
+        ecb.init(Cipher.ENCRYPT_MODE, keySpec);
+        byte[] counter = hex("00112233445566778899aabbfffffff8");
+        byte[] expected = new byte[data.length + 16];
+        for (int off = 0; off < data.length; off += 16) {
+            for (int i = 15; i >= 12 && ++counter[i] == 0; i--) {
+                // carry within the low 32 bits only
+            }
+            byte[] keyStream = ecb.doFinal(counter);
+            for (int i = 0; i < 16 && off + i < data.length; i++) {
+                expected[off + i] = (byte) (data[off + i] ^ keyStream[i]);
+            }
+        }
+        System.arraycopy(tag, 0, expected, data.length, 16);
+
+        for (int round = 0; round < 2000; round++) {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, keySpec, new GCMParameterSpec(128, iv));
+            cipher.updateAAD(aad);
+            byte[] result = new byte[expected.length];
+            int n = cipher.update(data, 0, data.length, result, 0);
+            n += cipher.doFinal(result, n);
+            if (n != expected.length || !Arrays.equals(result, expected)) {
+                throw new RuntimeException("GCM counter wrap, round " + round);
+            }
+            cipher.init(Cipher.DECRYPT_MODE, keySpec, new GCMParameterSpec(128, iv));
+            cipher.updateAAD(aad);
+            if (!Arrays.equals(cipher.doFinal(expected), data)) {
+                throw new RuntimeException("GCM counter wrap decryption, round " + round);
+            }
+        }
+        System.out.println("AES/GCM counter wrap: OK");
+    }
+
+    static byte[] hex(String s) {
+        byte[] b = new byte[s.length() / 2];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) Integer.parseInt(s.substring(i * 2, i * 2 + 2), 16);
+        }
+        return b;
+    }
+
+    public static void testGCM(int size) throws Exception {
+        SecureRandom random = new SecureRandom();
+        byte[] key = new byte[16];
+        byte[] iv = new byte[12];
+        byte[] data = new byte[size];
+        random.nextBytes(key);
+        random.nextBytes(data);
+        SecretKeySpec keySpec = new SecretKeySpec(key, "AES");
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+
+        // warm up so that C2 has compiled the intrinsics
+        for (int i = 0; i < 2000; i++) {
+            random.nextBytes(iv);
+            cipher.init(Cipher.ENCRYPT_MODE, keySpec, new GCMParameterSpec(128, iv));
+            cipher.doFinal(data, 0, Math.min(size, 4096));
+        }
+
+        long bytes = 0;
+        long start = System.nanoTime();
+        while (bytes < 512L * 1024 * 1024) {
+            random.nextBytes(iv);
+            cipher.init(Cipher.ENCRYPT_MODE, keySpec, new GCMParameterSpec(128, iv));
+            cipher.doFinal(data);
+            bytes += size;
+        }
+        long time = System.nanoTime() - start;
+        System.out.println("AES/GCM:" + size + ":" + (bytes * 1000 / time) + " MB/s");
+    }
+
+    public static void testCTR(int size) throws Exception {
+        SecureRandom random = new SecureRandom();
+        byte[] key = new byte[16];
+        byte[] iv = new byte[16];
+        byte[] data = new byte[size];
+        random.nextBytes(key);
+        random.nextBytes(iv);
+        random.nextBytes(data);
+        Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+
+        for (int i = 0; i < 2000; i++) {
+            cipher.doFinal(data, 0, Math.min(size, 4096));
+        }
+
+        long bytes = 0;
+        long start = System.nanoTime();
+        while (bytes < 512L * 1024 * 1024) {
+            cipher.doFinal(data);
+            bytes += size;
+        }
+        long time = System.nanoTime() - start;
+        System.out.println("AES/CTR:" + size + ":" + (bytes * 1000 / time) + " MB/s");
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.test;
+
+import java.lang.reflect.Method;
+
+import sun.security.util.ConcurrentMemoryCache;
+
+/**
+ * Checks that the entries removed from a ConcurrentMemoryCache, for any
+ * reason, leave the timer wheel at once instead of waiting for their slot
+ * to come due.
+ */
+public class ConcurrentMemoryCacheTest {
+
+    private static Method scheduledCount;
+
+    public static void main(String[] args) throws Exception {
+        scheduledCount = ConcurrentMemoryCache.class.getDeclaredMethod("scheduledCount");
+        scheduledCount.setAccessible(true);
+
+        ConcurrentMemoryCache<Integer, String> cache =
+            new ConcurrentMemoryCache<>(false, 0, 86400);
+        String[] values = new String[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = "value" + i;
+            cache.put(i, values[i]);
+        }
+        check(cache, 1000, "put");
+
+        for (int i = 0; i < 100; i++) {
+            cache.remove(i);
+        }
+        check(cache, 900, "remove(key)");
+
+        for (int i = 100; i < 200; i++) {
+            if (!cache.remove(i, values[i])) {
+                throw new RuntimeException("remove(key, value) failed for " + i);
+            }
+        }
+        check(cache, 800, "remove(key, value)");
+
+        for (int i = 200; i < 300; i++) {
+            cache.put(i, "replaced" + i);
+        }
+        check(cache, 800, "replacing put");
+
+        cache.setCapacity(500);
+        check(cache, 500, "eviction");
+
+        cache.clear();
+        check(cache, 0, "clear");
+
+        // entries which expire are removed by the operations on their segment
+        ConcurrentMemoryCache<Integer, String> shortLived =
+            new ConcurrentMemoryCache<>(false, 0, 1);
+        for (int i = 0; i < 1000; i++) {
+            shortLived.put(i, values[i]);
+        }
+        Thread.sleep(2500);
+        for (int i = 0; i < 1000; i++) {
+            if (shortLived.get(i) != null) {
+                throw new RuntimeException("entry " + i + " did not expire");
+            }
+        }
+        check(shortLived, 0, "expiration");
+
+        System.out.println("OK");
+    }
+
+    private static void check(ConcurrentMemoryCache<?, ?> cache, int expected, String what)
+            throws Exception {
+        int size = cache.size();
+        int scheduled = (Integer) scheduledCount.invoke(cache);
+        if (size != expected || scheduled != expected) {
+            throw new RuntimeException(what + ": size " + size + ", scheduled " + scheduled
+                    + ", expected " + expected);
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.test;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import sun.security.provider.SHA2MultiBuffer;
+
+/**
+ * SHA2MultiBuffer digests against MessageDigest, and the SHA-256
+ * throughput of MessageDigest, one message at a time, against
+ * SHA2MultiBuffer hashing a batch of messages together.
+ */
+public class DigestTest {
+
+    private static final long TOTAL = 256L * 1024 * 1024;
+
+    // the lengths at which the padding of SHA-224/256 (55, 56, 63, 64) and
+    // of SHA-384/512 (111, 112) needs one more block, and block multiples
+    private static final int[] LENGTHS = {
+        0, 1, 55, 56, 57, 63, 64, 65, 111, 112, 119, 120, 127, 128, 129,
+        191, 192, 1000, 4096
+    };
+
+    public static void main(String[] args) throws Exception {
+        testCorrectness();
+        int[] sizes = {64, 256, 1024, 1024 * 1024};
+        for (int size : sizes) {
+            byte[][] messages = messages(size, size < 1024 * 1024 ? 64 : 8);
+            testMessageDigest(messages);
+            testMultiBuffer(messages);
+        }
+    }
+
+    static byte[][] messages(int size, int count) {
+        Random random = new Random(size);
+        byte[][] messages = new byte[count][size];
+        for (byte[] message : messages) {
+            random.nextBytes(message);
+        }
+        return messages;
+    }
+
+    public static void testCorrectness() throws Exception {
+        Random random = new Random(42);
+        for (String algorithm : new String[] {"SHA-224", "SHA-256", "SHA-512"}) {
+            MessageDigest md = MessageDigest.getInstance(algorithm);
+
+            // batches of one length, from fewer messages than lanes to
+            // several rounds of lanes with a partial last round
+            for (int length : LENGTHS) {
+                for (int count : new int[] {1, 2, 3, 8, 9, 17, 64}) {
+                    check(md, filled(random, count, length));
+                }
+            }
+
+            // batches in which the lanes finish at different blocks and
+            // take new messages mid-batch
+            for (int round = 0; round < 200; round++) {
+                byte[][] messages = new byte[1 + random.nextInt(40)][];
+                for (int i = 0; i < messages.length; i++) {
+                    int length = random.nextBoolean()
+                            ? LENGTHS[random.nextInt(LENGTHS.length)]
+                            : random.nextInt(2048);
+                    messages[i] = new byte[length];
+                    random.nextBytes(messages[i]);
+                }
+                check(md, messages);
+            }
+            System.out.println("SHA2MultiBuffer:" + algorithm + ": OK");
+        }
+    }
+
+    static byte[][] filled(Random random, int count, int length) {
+        byte[][] messages = new byte[count][length];
+        for (byte[] message : messages) {
+            random.nextBytes(message);
+        }
+        return messages;
+    }
+
+    static void check(MessageDigest md, byte[][] messages) throws Exception {
+        byte[][] copies = new byte[messages.length][];
+        for (int i = 0; i < messages.length; i++) {
+            copies[i] = messages[i].clone();
+        }
+        byte[][] digests = SHA2MultiBuffer.digest(md.getAlgorithm(), messages);
+        if (digests.length != messages.length) {
+            throw new RuntimeException("got " + digests.length + " digests for "
+                    + messages.length + " messages");
+        }
+        for (int i = 0; i < messages.length; i++) {
+            if (!Arrays.equals(digests[i], md.digest(messages[i]))) {
+                throw new RuntimeException(md.getAlgorithm() + " digest of message " + i
+                        + " of " + messages.length + ", " + messages[i].length + " bytes");
+            }
+            if (!Arrays.equals(messages[i], copies[i])) {
+                throw new RuntimeException("message " + i + " modified");
+            }
+        }
+    }
+
+    public static void testMessageDigest(byte[][] messages) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        int size = messages[0].length;
+
+        // warm up so that C2 has compiled the intrinsics
+        for (int i = 0; i < 20000; i++) {
+            md.digest(messages[i % messages.length]);
+        }
+
+        long bytes = 0;
+        long start = System.nanoTime();
+        while (bytes < TOTAL) {
+            for (byte[] message : messages) {
+                md.digest(message);
+            }
+            bytes += (long) size * messages.length;
+        }
+        long time = System.nanoTime() - start;
+        System.out.println("MessageDigest:" + size + ":" + (bytes * 1000 / time) + " MB/s");
+    }
+
+    public static void testMultiBuffer(byte[][] messages) throws Exception {
+        int size = messages[0].length;
+
+        for (int i = 0; i < 20000 / messages.length; i++) {
+            SHA2MultiBuffer.digest("SHA-256", messages);
+        }
+
+        long bytes = 0;
+        long start = System.nanoTime();
+        while (bytes < TOTAL) {
+            SHA2MultiBuffer.digest("SHA-256", messages);
+            bytes += (long) size * messages.length;
+        }
+        long time = System.nanoTime() - start;
+        System.out.println("SHA2MultiBuffer:" + size + ":" + (bytes * 1000 / time) + " MB/s");
+    }
+
+}
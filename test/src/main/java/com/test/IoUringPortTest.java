@@ -0,0 +1,45 @@
+package com.test;
+
+import java.lang.reflect.Method;
+
+/**
+ * Checks that the user_data of io_uring poll requests is recognized as a
+ * poll completion, and never as an operation completion, once the poll
+ * generation counter passes 2^29 and wraps around.
+ */
+public class IoUringPortTest {
+
+    public static void main(String[] args) throws Exception {
+        Class<?> c = Class.forName("sun.nio.ch.IoUringPort");
+        Method pollUserData = c.getDeclaredMethod("pollUserData", int.class, int.class);
+        Method isPoll = c.getDeclaredMethod("isPollUserData", long.class);
+        Method isOp = c.getDeclaredMethod("isOpUserData", long.class);
+        pollUserData.setAccessible(true);
+        isPoll.setAccessible(true);
+        isOp.setAccessible(true);
+
+        int[] starts = {0, (1 << 29) - 2, (1 << 30) - 2, Integer.MAX_VALUE - 2, -2};
+        int[] fds = {0, 5, 1023, Integer.MAX_VALUE};
+        for (int start : starts) {
+            long previous = -1L;
+            for (int gen = start; gen != start + 5; gen++) {
+                for (int fd : fds) {
+                    long userData = (Long) pollUserData.invoke(null, gen, fd);
+                    if (!(Boolean) isPoll.invoke(null, userData))
+                        throw new RuntimeException("not a poll: gen=" + gen + " fd=" + fd);
+                    if ((Boolean) isOp.invoke(null, userData))
+                        throw new RuntimeException("taken for an op: gen=" + gen + " fd=" + fd);
+                    if ((int) userData != fd)
+                        throw new RuntimeException("fd lost: gen=" + gen + " fd=" + fd);
+                }
+                // a poll request must not have the user_data of the one it replaces
+                long userData = (Long) pollUserData.invoke(null, gen, 5);
+                if (userData == previous)
+                    throw new RuntimeException("generation not distinguished: " + gen);
+                previous = userData;
+            }
+        }
+        System.out.println("OK");
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.test;
+
+import sun.nio.ch.MappedRegion;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * MappedRegion beyond 2GB, madvise hints, and close/release of regions
+ * and their views. Needs space for a sparse 3GB file in the temporary
+ * directory.
+ */
+public class MappedRegionTest {
+
+    private static final long SIZE = 3L << 30;
+
+    public static void main(String[] args) throws Exception {
+        Path file = Files.createTempFile("region", null);
+        try (FileChannel fc = FileChannel.open(file,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            testLongIndexes(fc);
+            testAdvise(fc);
+            testClose(fc);
+        } finally {
+            Files.delete(file);
+        }
+        System.out.println("OK");
+    }
+
+    static void testLongIndexes(FileChannel fc) throws Exception {
+        try (MappedRegion r = MappedRegion.map(fc, MapMode.READ_WRITE, 0, SIZE)) {
+            long[] indexes = {0, Integer.MAX_VALUE - 3, 1L << 31, (1L << 32) + 1, SIZE - 8};
+            for (ByteOrder bo : new ByteOrder[] {ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+                r.order(bo);
+                for (long i : indexes) {
+                    long v = 0x0102030405060708L ^ i;
+                    r.putLong(i, v);
+                    check(r.getLong(i) == v, "long at " + i);
+                    check(fileBytes(fc, i, 8).order(bo).getLong() == v, "file long at " + i);
+                    r.putInt(i + 1, (int)v);
+                    check(r.getInt(i + 1) == (int)v, "int at " + (i + 1));
+                    r.putShort(i + 3, (short)v);
+                    check(r.getShort(i + 3) == (short)v, "short at " + (i + 3));
+                    r.putDouble(i, Math.PI);
+                    check(r.getDouble(i) == Math.PI, "double at " + i);
+                    r.put(i + 7, (byte)0x5a);
+                    check(r.get(i + 7) == 0x5a, "byte at " + (i + 7));
+                }
+            }
+
+            // an array copy across the 2GB boundary
+            byte[] src = new byte[4096];
+            for (int i = 0; i < src.length; i++)
+                src[i] = (byte)(i * 31);
+            long at = Integer.MAX_VALUE - 1000L;
+            r.put(at, src, 0, src.length);
+            byte[] dst = new byte[src.length];
+            r.get(at, dst, 0, dst.length);
+            check(Arrays.equals(src, dst), "array across 2GB");
+            r.force(at, src.length);
+            check(Arrays.equals(src, fileBytes(fc, at, src.length).array()), "file across 2GB");
+
+            // a view beyond 2GB
+            MappedByteBuffer view = r.slice(at, src.length);
+            byte[] b = new byte[src.length];
+            view.get(b);
+            check(Arrays.equals(src, b), "view across 2GB");
+            r.release(view);
+            expect(IllegalArgumentException.class, () -> r.release(fc.map(MapMode.READ_ONLY, 0, 16)));
+
+            expect(IndexOutOfBoundsException.class, () -> r.get(SIZE));
+            expect(IndexOutOfBoundsException.class, () -> r.getLong(SIZE - 7));
+            expect(IndexOutOfBoundsException.class, () -> r.get(-1L));
+            expect(IndexOutOfBoundsException.class, () -> r.slice(SIZE - 1, 2));
+        }
+    }
+
+    static void testAdvise(FileChannel fc) throws Exception {
+        try (MappedRegion r = MappedRegion.map(fc, MapMode.READ_WRITE, 0, SIZE)) {
+            long i = (1L << 31) + 12345;
+            r.putLong(i, 42L);
+            for (MappedRegion.Advice advice : MappedRegion.Advice.values()) {
+                r.advise(advice, 0, SIZE);
+                r.advise(advice, i - 100, 1000);    // not page aligned
+                r.advise(advice, SIZE, 0);
+            }
+            // dropping the pages of a shared mapping keeps the content
+            check(r.getLong(i) == 42L, "content after DONTNEED");
+            expect(NullPointerException.class, () -> r.advise(null, 0, 1));
+            expect(IndexOutOfBoundsException.class,
+                   () -> r.advise(MappedRegion.Advice.WILLNEED, SIZE - 1, 2));
+        }
+    }
+
+    static void testClose(FileChannel fc) throws Exception {
+        BufferPoolMXBean mapped = null;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("mapped"))
+                mapped = pool;
+        }
+        long count = mapped.getCount();
+
+        // without views the memory is unmapped by close
+        MappedRegion r = MappedRegion.map(fc, MapMode.READ_WRITE, 0, 1 << 20);
+        check(mapped.getCount() == count + 1, "mapped count");
+        r.putInt(0, 1);
+        r.close();
+        check(!r.isOpen(), "open after close");
+        check(mapped.getCount() == count, "not unmapped by close");
+        r.close();
+
+        expect(IllegalStateException.class, () -> r.get(0));
+        expect(IllegalStateException.class, () -> r.getLong(0));
+        expect(IllegalStateException.class, () -> r.put(0, (byte)0));
+        expect(IllegalStateException.class, () -> r.putInt(0, 0));
+        expect(IllegalStateException.class, () -> r.get(0, new byte[1], 0, 1));
+        expect(IllegalStateException.class, () -> r.slice(0, 1));
+        expect(IllegalStateException.class, () -> r.advise(MappedRegion.Advice.NORMAL, 0, 1));
+        expect(IllegalStateException.class, () -> r.force());
+
+        // with a view the memory is unmapped by the last of close and release
+        MappedRegion r2 = MappedRegion.map(fc, MapMode.READ_WRITE, 0, 1 << 20);
+        MappedByteBuffer v1 = r2.slice(0, 4096);
+        MappedByteBuffer v2 = r2.slice(8192, 4096);
+        r2.putInt(8192, 7);
+        r2.release(v1);
+        r2.release(v1);
+        r2.close();
+        expect(IllegalStateException.class, () -> r2.get(0));
+        check(mapped.getCount() == count + 1, "unmapped under a view");
+        check(v2.getInt(0) == 7, "view after close");
+        expect(IllegalArgumentException.class, () -> r2.release((MappedByteBuffer)v2.duplicate()));
+        r2.release(v2);
+        check(mapped.getCount() == count, "not unmapped by release");
+    }
+
+    static ByteBuffer fileBytes(FileChannel fc, long position, int n) throws Exception {
+        ByteBuffer bb = ByteBuffer.allocate(n);
+        while (bb.hasRemaining()) {
+            if (fc.read(bb, position + bb.position()) < 0)
+                throw new RuntimeException("EOF");
+        }
+        bb.flip();
+        return bb;
+    }
+
+    interface Action {
+        void run() throws Exception;
+    }
+
+    static void expect(Class<? extends Exception> type, Action action) throws Exception {
+        try {
+            action.run();
+        } catch (Exception e) {
+            if (type.isInstance(e))
+                return;
+            throw e;
+        }
+        throw new RuntimeException(type.getSimpleName() + " expected");
+    }
+
+    static void check(boolean b, String what) {
+        if (!b)
+            throw new RuntimeException(what);
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * SSLEngine throughput over loopback SocketChannels.
+ *
+ * Run with -Djavax.net.ssl.keyStore, -Djavax.net.ssl.keyStorePassword
+ * and -Djavax.net.ssl.trustStore pointing at a keystore with an RSA key.
+ */
+public class SSLEngineTest {
+
+    private static final long TOTAL = 1024L * 1024 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        String[] suites = {
+            "TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256",
+            "TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA256"
+        };
+        for (String suite : suites) {
+            for (boolean direct : new boolean[] {false, true}) {
+                test(suite, direct, 1);
+                test(suite, direct, 4);
+            }
+        }
+    }
+
+    static ByteBuffer allocate(boolean direct, int size) {
+        return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
+    public static void test(String suite, final boolean direct, final int packets) throws Exception {
+        SSLContext context = SSLContext.getDefault();
+        final ServerSocketChannel ssc = ServerSocketChannel.open();
+        ssc.bind(new InetSocketAddress("127.0.0.1", 0));
+
+        final SSLEngine server = context.createSSLEngine();
+        server.setUseClientMode(false);
+        server.setEnabledCipherSuites(new String[] {suite});
+        SSLEngine client = context.createSSLEngine();
+        client.setUseClientMode(true);
+        client.setEnabledCipherSuites(new String[] {suite});
+
+        Thread reader = new Thread() {
+            public void run() {
+                try {
+                    SocketChannel sc = ssc.accept();
+                    int packetSize = server.getSession().getPacketBufferSize();
+                    ByteBuffer net = allocate(direct, packetSize * packets);
+                    ByteBuffer app = allocate(direct, server.getSession().getApplicationBufferSize() * packets);
+                    handshake(server, sc, net, app);
+                    long read = 0;
+                    while (read < TOTAL) {
+                        if (sc.read(net) < 0) {
+                            break;
+                        }
+                        net.flip();
+                        while (true) {
+                            app.clear();
+                            SSLEngineResult result = server.unwrap(net, app);
+                            read += result.bytesProduced();
+                            if (result.getStatus() != SSLEngineResult.Status.OK || !net.hasRemaining()) {
+                                break;
+                            }
+                        }
+                        net.compact();
+                    }
+                    sc.close();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+        reader.start();
+
+        SocketChannel sc = SocketChannel.open(ssc.getLocalAddress());
+        int packetSize = client.getSession().getPacketBufferSize();
+        ByteBuffer net = allocate(direct, packetSize * packets);
+        ByteBuffer app = allocate(direct, 64 * 1024);
+        handshake(client, sc, net, allocate(direct, client.getSession().getApplicationBufferSize()));
+
+        long bytes = 0;
+        long start = System.nanoTime();
+        while (bytes < TOTAL) {
+            app.clear();
+            while (app.hasRemaining()) {
+                net.clear();
+                SSLEngineResult result = client.wrap(app, net);
+                bytes += result.bytesConsumed();
+                net.flip();
+                while (net.hasRemaining()) {
+                    sc.write(net);
+                }
+            }
+        }
+        reader.join();
+        long time = System.nanoTime() - start;
+        sc.close();
+        ssc.close();
+        System.out.println(suite + ":" + (direct ? "direct" : "heap") + ":" + packets + " packets:"
+                + (bytes * 1000 / time) + " MB/s");
+    }
+
+    static void handshake(SSLEngine engine, SocketChannel sc, ByteBuffer net, ByteBuffer app) throws Exception {
+        ByteBuffer empty = ByteBuffer.allocate(0);
+        ByteBuffer out = allocate(net.isDirect(), net.capacity());
+        engine.beginHandshake();
+        HandshakeStatus status = engine.getHandshakeStatus();
+        while (status != HandshakeStatus.FINISHED && status != HandshakeStatus.NOT_HANDSHAKING) {
+            switch (status) {
+                case NEED_TASK:
+                    Runnable task;
+                    while ((task = engine.getDelegatedTask()) != null) {
+                        task.run();
+                    }
+                    status = engine.getHandshakeStatus();
+                    break;
+                case NEED_WRAP:
+                    out.clear();
+                    status = engine.wrap(empty, out).getHandshakeStatus();
+                    out.flip();
+                    while (out.hasRemaining()) {
+                        sc.write(out);
+                    }
+                    break;
+                case NEED_UNWRAP:
+                    net.flip();
+                    app.clear();
+                    SSLEngineResult result = engine.unwrap(net, app);
+                    net.compact();
+                    status = result.getHandshakeStatus();
+                    if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                        sc.read(net);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException(status.toString());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * Known answers of the DRBG mechanisms, distinct streams for the threads
+ * sharing a DRBG, and the throughput of a SecureRandom shared by several
+ * threads and of UUID.randomUUID().
+ */
+public class SecureRandomTest {
+
+    private static final int REQUESTS = 1000000;
+
+    public static void main(String[] args) throws Exception {
+        testKnownAnswers();
+        testThreadStreams();
+        String[] algorithms = {"SHA1PRNG", "NativePRNGNonBlocking", "DRBG"};
+        for (String algorithm : algorithms) {
+            for (int threads : new int[] {1, 4, 16}) {
+                test(SecureRandom.getInstance(algorithm), threads, 32);
+            }
+        }
+        testUUID();
+    }
+
+    public static void test(final SecureRandom random, int threads, final int size) throws Exception {
+        // warm up, and instantiate the per-thread DRBGs of the main thread
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < 100000; i++) {
+            random.nextBytes(bytes);
+        }
+
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread() {
+                public void run() {
+                    byte[] bytes = new byte[size];
+                    for (int j = 0; j < REQUESTS; j++) {
+                        random.nextBytes(bytes);
+                    }
+                }
+            };
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long time = System.nanoTime() - start;
+        System.out.println(random.getAlgorithm() + ":" + threads + " threads:"
+                + (threads * (long) REQUESTS * 1000000 / time) + " requests/ms");
+    }
+
+    /**
+     * COUNT = 0 of the SHA-256 sections without prediction resistance,
+     * personalization string or additional input in the NIST CAVP files
+     * Hash_DRBG.rsp and HMAC_DRBG.rsp (drbgvectors_no_reseed): instantiate,
+     * generate 1024 bits twice and compare the second output.
+     */
+    public static void testKnownAnswers() throws Exception {
+        knownAnswer("HashDrbg",
+                "a65ad0f345db4e0effe875c3a2e71f42c7129d620ff5c119a9ef55f05185e0fb",
+                "8581f9317517276e06e9607ddbcbcc2e",
+                "d3e160c35b99f340b2628264d1751060e0045da383ff57a57d73a673d2b8d80d"
+                + "aaf6a6c35a91bb4579d73fd0c8fed111b0391306828adfed528f018121b3febd"
+                + "c343e797b87dbb63db1333ded9d1ece177cfa6b71fe8ab1da46624ed6415e51c"
+                + "cde2c7ca86e283990eeaeb91120415528b2295910281b02dd431f4c9f70427df");
+        knownAnswer("HmacDrbg",
+                "ca851911349384bffe89de1cbdc46e6831e44d34a4fb935ee285dd14b71a7488",
+                "659ba96c601dc69fc902940805ec0ca8",
+                "e528e9abf2dece54d47c7e75e5fe302149f817ea9fb4bee6f4199697d04d5b89"
+                + "d54fbb978a15b5c443c9ec21036d2460b6f73ebad0dc2aba6e624abf07745bc1"
+                + "07694bb7547bb0995f70de25d6b29e2d3011bb19d27676c07162c8b5ccde0668"
+                + "961df86803482cb37ed6d5c0bb8d50cf1f50d476aa0458bdaba806f48be9dcb8");
+        System.out.println("DRBG known answers: OK");
+    }
+
+    private static void knownAnswer(String mechanism, String entropyInput,
+            String nonce, String returnedBits) throws Exception {
+        Class<?> c = Class.forName("sun.security.provider." + mechanism);
+        Class<?> abstractDrbg = c.getSuperclass();
+        Constructor<?> ctor = c.getDeclaredConstructor(
+                String.class, int.class, boolean.class, long.class);
+        ctor.setAccessible(true);
+        Object drbg = ctor.newInstance("SHA-256", 256, false, 1L << 20);
+
+        // instantiate with the test's entropy input instead of the seeder's
+        Method instantiate = c.getDeclaredMethod("instantiateAlgorithm",
+                byte[].class, byte[].class, byte[].class);
+        instantiate.setAccessible(true);
+        instantiate.invoke(drbg, hex(entropyInput), hex(nonce), null);
+        Field reseedCounter = abstractDrbg.getDeclaredField("reseedCounter");
+        reseedCounter.setAccessible(true);
+        reseedCounter.setLong(drbg, 1);
+
+        Method generate = abstractDrbg.getDeclaredMethod("generate",
+                byte[].class, byte[].class);
+        generate.setAccessible(true);
+        byte[] expected = hex(returnedBits);
+        byte[] result = new byte[expected.length];
+        generate.invoke(drbg, result, null);
+        generate.invoke(drbg, result, null);
+        if (!Arrays.equals(result, expected)) {
+            throw new RuntimeException(mechanism + " returned " + Arrays.toString(result));
+        }
+    }
+
+    private static byte[] hex(String s) {
+        byte[] b = new byte[s.length() / 2];
+        for (int i = 0; i < b.length; i++) {
+            b[i] = (byte) Integer.parseInt(s.substring(i * 2, i * 2 + 2), 16);
+        }
+        return b;
+    }
+
+    /**
+     * Threads that start together on a shared DRBG, and so instantiate
+     * their instances from the root seeder at about the same time, must
+     * not produce the same or overlapping streams.
+     */
+    public static void testThreadStreams() throws Exception {
+        final SecureRandom random = SecureRandom.getInstance("DRBG");
+        final int threads = 16;
+        final int blocks = 1000;
+        final Set<ByteBuffer> seen = new HashSet<>();
+        final CyclicBarrier barrier = new CyclicBarrier(threads);
+        Thread[] workers = new Thread[threads];
+        final Throwable[] failure = new Throwable[1];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread() {
+                public void run() {
+                    try {
+                        barrier.await();
+                        ByteBuffer[] stream = new ByteBuffer[blocks];
+                        for (int j = 0; j < blocks; j++) {
+                            byte[] block = new byte[16];
+                            random.nextBytes(block);
+                            stream[j] = ByteBuffer.wrap(block);
+                        }
+                        synchronized (seen) {
+                            for (ByteBuffer block : stream) {
+                                if (!seen.add(block)) {
+                                    throw new RuntimeException("repeated block");
+                                }
+                            }
+                        }
+                    } catch (Throwable t) {
+                        synchronized (failure) {
+                            failure[0] = t;
+                        }
+                    }
+                }
+            };
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure[0] != null) {
+            throw new RuntimeException(failure[0]);
+        }
+        System.out.println("DRBG thread streams: OK");
+    }
+
+    public static void testUUID() {
+        for (int i = 0; i < 100000; i++) {
+            UUID.randomUUID();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            UUID.randomUUID();
+        }
+        long time = System.nanoTime() - start;
+        System.out.println("UUID:" + (REQUESTS * 1000000L / time) + " uuids/ms");
+    }
+
+}
@@ -0,0 +1,185 @@
+package com.test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLSession;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Resumes a session from its ticket with a ClientHello that carries an
+ * empty session ID, which RFC 5077 section 3.4 allows.  The server must
+ * answer with ChangeCipherSpec right after its ServerHello.
+ *
+ * Run with -Djavax.net.ssl.keyStore, -Djavax.net.ssl.keyStorePassword
+ * and -Djavax.net.ssl.trustStore pointing at a keystore with an RSA key.
+ */
+public class SessionTicketTest {
+
+    private static final String SUITE = "TLS_RSA_WITH_AES_128_CBC_SHA";
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    public static void main(String[] args) throws Exception {
+        SSLContext context = SSLContext.getDefault();
+
+        // a full handshake to get a ticket
+        SSLEngine client = context.createSSLEngine();
+        client.setUseClientMode(true);
+        client.setEnabledCipherSuites(new String[] {SUITE});
+        SSLEngine server = context.createSSLEngine();
+        server.setUseClientMode(false);
+        server.setEnabledCipherSuites(new String[] {SUITE});
+        handshake(client, server);
+
+        SSLSession session = client.getSession();
+        Method getSessionTicket = session.getClass().getDeclaredMethod("getSessionTicket");
+        getSessionTicket.setAccessible(true);
+        byte[] ticket = (byte[]) getSessionTicket.invoke(session);
+        if (ticket == null || ticket.length == 0) {
+            throw new RuntimeException("server issued no session ticket");
+        }
+
+        byte[] reply = serverReply(context, clientHello(ticket));
+        if (sessionIdLength(reply) != 32) {
+            throw new RuntimeException("no session ID for the resumed session");
+        }
+        if (!hasChangeCipherSpec(reply)) {
+            throw new RuntimeException("ticket with an empty session ID was not resumed");
+        }
+
+        // a ticket which does not verify gets a full handshake
+        byte[] forged = ticket.clone();
+        forged[forged.length - 1] ^= 1;
+        if (hasChangeCipherSpec(serverReply(context, clientHello(forged)))) {
+            throw new RuntimeException("forged ticket was resumed");
+        }
+        System.out.println("OK");
+    }
+
+    // A TLS 1.2 ClientHello with an empty session ID and the given ticket
+    static byte[] clientHello(byte[] ticket) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(3);
+        body.write(3);
+        body.write(new byte[32], 0, 32);
+        body.write(0);                          // empty session ID
+        put16(body, 4);
+        put16(body, 0x002f);                    // TLS_RSA_WITH_AES_128_CBC_SHA
+        put16(body, 0x00ff);                    // TLS_EMPTY_RENEGOTIATION_INFO_SCSV
+        body.write(1);
+        body.write(0);                          // null compression
+        put16(body, 4 + ticket.length);
+        put16(body, 35);                        // session_ticket
+        put16(body, ticket.length);
+        body.write(ticket, 0, ticket.length);
+
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        record.write(22);
+        record.write(3);
+        record.write(1);
+        put16(record, 4 + body.size());
+        record.write(1);                        // client_hello
+        record.write(0);
+        put16(record, body.size());
+        byte[] b = body.toByteArray();
+        record.write(b, 0, b.length);
+        return record.toByteArray();
+    }
+
+    static void put16(ByteArrayOutputStream out, int v) {
+        out.write(v >>> 8);
+        out.write(v);
+    }
+
+    // Feeds the hello to a fresh server and returns the records it answers with
+    static byte[] serverReply(SSLContext context, byte[] hello) throws Exception {
+        SSLEngine server = context.createSSLEngine();
+        server.setUseClientMode(false);
+        server.setEnabledCipherSuites(new String[] {SUITE});
+        ByteBuffer in = ByteBuffer.wrap(hello);
+        ByteBuffer app = ByteBuffer.allocate(server.getSession().getApplicationBufferSize());
+        ByteBuffer out = ByteBuffer.allocate(server.getSession().getPacketBufferSize());
+        ByteArrayOutputStream reply = new ByteArrayOutputStream();
+        server.beginHandshake();
+        server.unwrap(in, app);
+        while (true) {
+            HandshakeStatus status = server.getHandshakeStatus();
+            if (status == HandshakeStatus.NEED_TASK) {
+                Runnable task;
+                while ((task = server.getDelegatedTask()) != null) {
+                    task.run();
+                }
+            } else if (status == HandshakeStatus.NEED_WRAP) {
+                out.clear();
+                server.wrap(EMPTY, out);
+                reply.write(out.array(), 0, out.position());
+            } else {
+                return reply.toByteArray();
+            }
+        }
+    }
+
+    static boolean hasChangeCipherSpec(byte[] records) {
+        for (int i = 0; i + 5 <= records.length;
+                i += 5 + ((records[i + 3] & 0xff) << 8 | (records[i + 4] & 0xff))) {
+            if (records[i] == 20) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The ServerHello leads the first record: header (5), type and length (4),
+    // version (2) and random (32) come before the session ID length
+    static int sessionIdLength(byte[] records) {
+        if (records.length < 44 || records[0] != 22 || records[5] != 2) {
+            throw new RuntimeException("no ServerHello in " + Arrays.toString(records));
+        }
+        return records[43] & 0xff;
+    }
+
+    static void handshake(SSLEngine client, SSLEngine server) throws Exception {
+        ByteBuffer clientOut = ByteBuffer.allocate(client.getSession().getPacketBufferSize());
+        ByteBuffer serverOut = ByteBuffer.allocate(server.getSession().getPacketBufferSize());
+        ByteBuffer app = ByteBuffer.allocate(
+                Math.max(client.getSession().getApplicationBufferSize(),
+                         server.getSession().getApplicationBufferSize()));
+        client.beginHandshake();
+        server.beginHandshake();
+        for (int i = 0; i < 1000; i++) {
+            step(client, serverOut, clientOut, app);
+            step(server, clientOut, serverOut, app);
+            if (client.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING
+                    && server.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING) {
+                return;
+            }
+        }
+        throw new RuntimeException("handshake did not finish");
+    }
+
+    static void step(SSLEngine engine, ByteBuffer in, ByteBuffer out, ByteBuffer app) throws Exception {
+        switch (engine.getHandshakeStatus()) {
+            case NEED_TASK:
+                Runnable task;
+                while ((task = engine.getDelegatedTask()) != null) {
+                    task.run();
+                }
+                break;
+            case NEED_WRAP:
+                engine.wrap(EMPTY, out);
+                break;
+            case NEED_UNWRAP:
+                in.flip();
+                app.clear();
+                engine.unwrap(in, app);
+                in.compact();
+                break;
+            default:
+                break;
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.test;
+
+import java.util.Arrays;
+
+/**
+ * Checks the Strings built by StringBuilder chains once C2 has fused them
+ * (-XX:+OptimizeStringConcat), mixing Latin1 and UTF16 Strings, chars on
+ * both sides of 0xff, null and extreme ints.
+ */
+public class StringConcatTest {
+
+    private static final String[] STRINGS = {
+        "", "a", "latin1 \u00e9\u00ff", "utf16 \u0100", "\u20ac\u20ac\u20ac\u20ac\u20ac\u20ac\u20ac", null
+    };
+    private static final int[] INTS = {0, 7, -42, 1234567890, Integer.MAX_VALUE, Integer.MIN_VALUE};
+    private static final char[] CHARS = {'x', '\u00ff', '\u0100', '\uffff'};
+
+    public static void main(String[] args) throws Exception {
+        int checks = 0;
+        for (int round = 0; round < 20000; round++) {
+            for (String s : STRINGS) {
+                for (int i : INTS) {
+                    char c = CHARS[(round + i) & 3];
+                    String t = STRINGS[(round + checks) % STRINGS.length];
+                    check(concat(s, i, c, t), expected(s, i, c, t));
+                    check(constants(c), expected("ab", 1, c, "\u00e9"));
+                    checks++;
+                }
+            }
+        }
+        System.out.println("OK " + checks);
+    }
+
+    private static String concat(String s, int i, char c, String t) {
+        return new StringBuilder().append(s).append(i).append(c).append(t).toString();
+    }
+
+    private static String constants(char c) {
+        return new StringBuilder().append("ab").append(1).append(c).append("\u00e9").toString();
+    }
+
+    // Builds the same String from a char[], out of the reach of the fusion
+    private static String expected(String s, int i, char c, String t) {
+        char[] a = String.valueOf(s).toCharArray();
+        char[] b = Integer.toString(i).toCharArray();
+        char[] d = String.valueOf(t).toCharArray();
+        char[] buf = Arrays.copyOf(a, a.length + b.length + 1 + d.length);
+        System.arraycopy(b, 0, buf, a.length, b.length);
+        buf[a.length + b.length] = c;
+        System.arraycopy(d, 0, buf, a.length + b.length + 1, d.length);
+        return new String(buf);
+    }
+
+    private static void check(String result, String expected) {
+        if (!result.equals(expected) || result.hashCode() != expected.hashCode()
+                || result.length() != expected.length()) {
+            throw new RuntimeException("got \"" + result + "\", expected \"" + expected + "\"");
+        }
+    }
+
+}